@@ -17,25 +17,33 @@ import com.facebook.presto.spi.ColumnMetadata;
 import com.facebook.presto.spi.ConnectorColumnHandle;
 import com.facebook.presto.spi.ConnectorPartition;
 import com.facebook.presto.spi.ConnectorPartitionResult;
+import com.facebook.presto.spi.ConnectorSplit;
 import com.facebook.presto.spi.ConnectorSplitSource;
 import com.facebook.presto.spi.ConnectorTableMetadata;
+import com.facebook.presto.spi.Domain;
 import com.facebook.presto.spi.FixedSplitSource;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.TableNotFoundException;
 import com.facebook.presto.spi.TupleDomain;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.Ints;
 import io.airlift.log.Logger;
+import org.joda.time.Days;
+import org.joda.time.LocalDate;
 
 import javax.annotation.Nullable;
 
+import java.math.BigInteger;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
+import java.sql.Date;
 import java.sql.Driver;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -49,6 +57,7 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.UUID;
 
+import static com.facebook.presto.plugin.jdbc.Types.checkType;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_FOUND;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
@@ -66,6 +75,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.collect.Maps.fromProperties;
+import static java.lang.String.format;
 import static java.util.Collections.nCopies;
 
 public class BaseJdbcClient
@@ -86,11 +96,17 @@ public class BaseJdbcClient
             .put(TIMESTAMP_WITH_TIME_ZONE, "timestamp with timezone")
             .build();
 
+    private static final LocalDate EPOCH = new LocalDate(1970, 1, 1);
+
     protected final String connectorId;
     protected final Driver driver;
     protected final String connectionUrl;
     protected final Properties connectionProperties;
     protected final String identifierQuote;
+    protected final int splitCount;
+    protected final String splitColumn;
+    protected final int fetchSize;
+    protected final int insertBatchSize;
 
     public BaseJdbcClient(JdbcConnectorId connectorId, BaseJdbcConfig config, String identifierQuote, Driver driver)
     {
@@ -100,6 +116,10 @@ public class BaseJdbcClient
 
         checkNotNull(config, "config is null");
         connectionUrl = config.getConnectionUrl();
+        splitCount = config.getSplitCount();
+        splitColumn = config.getSplitColumn();
+        fetchSize = config.getFetchSize();
+        insertBatchSize = config.getInsertBatchSize();
 
         connectionProperties = new Properties();
         if (config.getConnectionUser() != null) {
@@ -223,25 +243,192 @@ public class BaseJdbcClient
     @Override
     public ConnectorPartitionResult getPartitions(JdbcTableHandle jdbcTableHandle, TupleDomain<ConnectorColumnHandle> tupleDomain)
     {
+        tupleDomain = tupleDomain.intersect(jdbcTableHandle.getConstraint());
+        if (tupleDomain.isNone()) {
+            return new ConnectorPartitionResult(ImmutableList.<ConnectorPartition>of(), TupleDomain.<ConnectorColumnHandle>all());
+        }
+
+        // the generated SQL evaluates the domains of some types exactly as the engine does, so they do not have to be checked again
+        ImmutableMap.Builder<ConnectorColumnHandle, Domain> undeterminedDomains = ImmutableMap.builder();
+        for (Map.Entry<ConnectorColumnHandle, Domain> entry : tupleDomain.getDomains().entrySet()) {
+            JdbcColumnHandle column = checkType(entry.getKey(), JdbcColumnHandle.class, "column");
+            if (!QueryBuilder.isEnforced(column.getColumnType())) {
+                undeterminedDomains.put(entry);
+            }
+        }
+
         // currently we don't support partitions
         return new ConnectorPartitionResult(
                 ImmutableList.<ConnectorPartition>of(new JdbcPartition(jdbcTableHandle, tupleDomain)),
-                tupleDomain);
+                TupleDomain.withColumnDomains(undeterminedDomains.build()));
     }
 
     @Override
     public ConnectorSplitSource getPartitionSplits(JdbcPartition jdbcPartition)
     {
         JdbcTableHandle jdbcTableHandle = jdbcPartition.getJdbcTableHandle();
-        JdbcSplit jdbcSplit = new JdbcSplit(
+        List<String> predicates = getSplitPredicates(jdbcTableHandle);
+        if (predicates.isEmpty()) {
+            return new FixedSplitSource(connectorId, ImmutableList.of(createSplit(jdbcPartition, null)));
+        }
+
+        ImmutableList.Builder<ConnectorSplit> splits = ImmutableList.builder();
+        for (String predicate : predicates) {
+            splits.add(createSplit(jdbcPartition, predicate));
+        }
+        return new FixedSplitSource(connectorId, splits.build());
+    }
+
+    private JdbcSplit createSplit(JdbcPartition jdbcPartition, @Nullable String additionalPredicate)
+    {
+        JdbcTableHandle jdbcTableHandle = jdbcPartition.getJdbcTableHandle();
+        return new JdbcSplit(
                 connectorId,
                 jdbcTableHandle.getCatalogName(),
                 jdbcTableHandle.getSchemaName(),
                 jdbcTableHandle.getTableName(),
                 connectionUrl,
                 fromProperties(connectionProperties),
-                jdbcPartition.getTupleDomain());
-        return new FixedSplitSource(connectorId, ImmutableList.of(jdbcSplit));
+                jdbcPartition.getTupleDomain(),
+                additionalPredicate,
+                jdbcTableHandle.getGroupingColumns(),
+                jdbcTableHandle.getLimit());
+    }
+
+    /**
+     * Divides the table into ranges of the split column, using the minimum and maximum
+     * values of the column.  The first range also covers null values and the outer ranges
+     * are unbounded, so rows outside of the sampled bounds are still read.  Returns an
+     * empty list if the table should be read as a single split.
+     */
+    protected List<String> getSplitPredicates(JdbcTableHandle tableHandle)
+    {
+        if (splitCount <= 1) {
+            return ImmutableList.of();
+        }
+
+        JdbcColumnHandle column = getSplitColumn(tableHandle);
+        if (column == null) {
+            return ImmutableList.of();
+        }
+
+        String sql = new QueryBuilder(identifierQuote).buildMinMaxSql(
+                tableHandle.getCatalogName(),
+                tableHandle.getSchemaName(),
+                tableHandle.getTableName(),
+                column);
+
+        List<Long> boundaries;
+        try (Connection connection = driver.connect(connectionUrl, connectionProperties);
+                Statement statement = connection.createStatement()) {
+            log.debug("Execute: %s", sql);
+            try (ResultSet resultSet = statement.executeQuery(sql)) {
+                if (!resultSet.next()) {
+                    return ImmutableList.of();
+                }
+                if (column.getColumnType().equals(DATE)) {
+                    Date min = resultSet.getDate(1);
+                    Date max = resultSet.getDate(2);
+                    if (min == null || max == null) {
+                        return ImmutableList.of();
+                    }
+                    boundaries = getSplitBoundaries(toEpochDay(min), toEpochDay(max), splitCount);
+                }
+                else {
+                    long min = resultSet.getLong(1);
+                    long max = resultSet.getLong(2);
+                    if (resultSet.wasNull()) {
+                        return ImmutableList.of();
+                    }
+                    boundaries = getSplitBoundaries(min, max, splitCount);
+                }
+            }
+        }
+        catch (SQLException e) {
+            throw Throwables.propagate(e);
+        }
+
+        if (boundaries.isEmpty()) {
+            return ImmutableList.of();
+        }
+
+        Type type = column.getColumnType();
+        String name = quoted(column.getColumnName());
+        ImmutableList.Builder<String> predicates = ImmutableList.builder();
+        predicates.add(format("%s < %s OR %s IS NULL", name, toSqlLiteral(type, boundaries.get(0)), name));
+        for (int i = 1; i < boundaries.size(); i++) {
+            predicates.add(format("%s >= %s AND %s < %s", name, toSqlLiteral(type, boundaries.get(i - 1)), name, toSqlLiteral(type, boundaries.get(i))));
+        }
+        predicates.add(format("%s >= %s", name, toSqlLiteral(type, boundaries.get(boundaries.size() - 1))));
+        return predicates.build();
+    }
+
+    /**
+     * Returns the configured split column if the table has it, or else the single column
+     * primary key.  Only bigint and date columns can be split on.
+     */
+    @Nullable
+    protected JdbcColumnHandle getSplitColumn(JdbcTableHandle tableHandle)
+    {
+        String columnName = splitColumn;
+        if (columnName == null) {
+            try (Connection connection = driver.connect(connectionUrl, connectionProperties);
+                    ResultSet resultSet = connection.getMetaData().getPrimaryKeys(tableHandle.getCatalogName(), tableHandle.getSchemaName(), tableHandle.getTableName())) {
+                List<String> keyColumns = new ArrayList<>();
+                while (resultSet.next()) {
+                    keyColumns.add(resultSet.getString("COLUMN_NAME"));
+                }
+                if (keyColumns.size() != 1) {
+                    return null;
+                }
+                columnName = keyColumns.get(0);
+            }
+            catch (SQLException e) {
+                throw Throwables.propagate(e);
+            }
+        }
+
+        for (JdbcColumnHandle column : getColumns(tableHandle)) {
+            Type type = column.getColumnType();
+            if (column.getColumnName().equalsIgnoreCase(columnName) && (type.equals(BIGINT) || type.equals(DATE))) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    protected String toSqlLiteral(Type type, long value)
+    {
+        if (type.equals(DATE)) {
+            // JDBC escape syntax, which compliant drivers translate to the native date literal
+            return "{d '" + EPOCH.plusDays(Ints.checkedCast(value)) + "'}";
+        }
+        return String.valueOf(value);
+    }
+
+    @VisibleForTesting
+    static List<Long> getSplitBoundaries(long min, long max, int splitCount)
+    {
+        checkArgument(min <= max, "min is greater than max");
+        BigInteger low = BigInteger.valueOf(min);
+        BigInteger range = BigInteger.valueOf(max).subtract(low).add(BigInteger.ONE);
+
+        // boundaries between adjacent splits, skipping empty ranges when there are fewer values than splits
+        ImmutableList.Builder<Long> boundaries = ImmutableList.builder();
+        long previous = min;
+        for (int i = 1; i < splitCount; i++) {
+            long boundary = low.add(range.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(splitCount))).longValue();
+            if (boundary > previous) {
+                boundaries.add(boundary);
+                previous = boundary;
+            }
+        }
+        return boundaries.build();
+    }
+
+    private static long toEpochDay(Date date)
+    {
+        return Days.daysBetween(EPOCH, LocalDate.fromDateFields(date)).getDays();
     }
 
     @Override
@@ -267,7 +454,19 @@ public class BaseJdbcClient
                 split.getSchemaName(),
                 split.getTableName(),
                 columnHandles,
-                split.getTupleDomain());
+                split.getTupleDomain(),
+                split.getAdditionalPredicate(),
+                split.getGroupingColumns(),
+                split.getLimit());
+    }
+
+    @Override
+    public Statement createStatement(Connection connection)
+            throws SQLException
+    {
+        Statement statement = connection.createStatement();
+        statement.setFetchSize(fetchSize);
+        return statement;
     }
 
     @Override
@@ -350,13 +549,31 @@ public class BaseJdbcClient
     }
 
     @Override
-    public String buildInsertSql(JdbcOutputTableHandle handle)
+    public int getInsertBatchSize(JdbcOutputTableHandle handle)
+    {
+        // keep the bind parameters of a statement within what the driver accepts
+        int columnCount = handle.getColumnNames().size();
+        return Math.max(1, Math.min(insertBatchSize, getMaxInsertParameters() / columnCount));
+    }
+
+    /**
+     * Maximum number of bind parameters in a single statement.  PostgreSQL
+     * accepts at most 32767, which is well within the limits of MySQL and H2.
+     */
+    protected int getMaxInsertParameters()
+    {
+        return Short.MAX_VALUE;
+    }
+
+    @Override
+    public String buildInsertSql(JdbcOutputTableHandle handle, int rowCount)
     {
-        String vars = Joiner.on(',').join(nCopies(handle.getColumnNames().size(), "?"));
+        checkArgument(rowCount > 0, "rowCount must be at least one");
+        String row = "(" + Joiner.on(',').join(nCopies(handle.getColumnNames().size(), "?")) + ")";
         return new StringBuilder()
                 .append("INSERT INTO ")
                 .append(quoted(handle.getCatalogName(), handle.getSchemaName(), handle.getTemporaryTableName()))
-                .append(" VALUES (").append(vars).append(")")
+                .append(" VALUES ").append(Joiner.on(',').join(nCopies(rowCount, row)))
                 .toString();
     }
 
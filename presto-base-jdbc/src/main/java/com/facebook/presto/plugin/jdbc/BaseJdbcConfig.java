@@ -14,7 +14,9 @@
 package com.facebook.presto.plugin.jdbc;
 
 import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
 public class BaseJdbcConfig
@@ -22,6 +24,10 @@ public class BaseJdbcConfig
     private String connectionUrl;
     private String connectionUser;
     private String connectionPassword;
+    private int splitCount = 1;
+    private String splitColumn;
+    private int fetchSize = 1000;
+    private int insertBatchSize = 1000;
 
     @NotNull
     public String getConnectionUrl()
@@ -59,4 +65,58 @@ public class BaseJdbcConfig
         this.connectionPassword = connectionPassword;
         return this;
     }
+
+    @Min(1)
+    public int getSplitCount()
+    {
+        return splitCount;
+    }
+
+    @Config("split-count")
+    @ConfigDescription("Number of range splits to divide each table into")
+    public BaseJdbcConfig setSplitCount(int splitCount)
+    {
+        this.splitCount = splitCount;
+        return this;
+    }
+
+    public String getSplitColumn()
+    {
+        return splitColumn;
+    }
+
+    @Config("split-column")
+    @ConfigDescription("Integer or date column to divide tables on, instead of a single column primary key")
+    public BaseJdbcConfig setSplitColumn(String splitColumn)
+    {
+        this.splitColumn = splitColumn;
+        return this;
+    }
+
+    @Min(1)
+    public int getFetchSize()
+    {
+        return fetchSize;
+    }
+
+    @Config("fetch-size")
+    public BaseJdbcConfig setFetchSize(int fetchSize)
+    {
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    @Min(1)
+    public int getInsertBatchSize()
+    {
+        return insertBatchSize;
+    }
+
+    @Config("insert-batch-size")
+    @ConfigDescription("Maximum number of rows written by a single INSERT statement")
+    public BaseJdbcConfig setInsertBatchSize(int insertBatchSize)
+    {
+        this.insertBatchSize = insertBatchSize;
+        return this;
+    }
 }
@@ -24,6 +24,7 @@ import javax.annotation.Nullable;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
@@ -48,11 +49,19 @@ public interface JdbcClient
 
     String buildSql(JdbcSplit split, List<JdbcColumnHandle> columnHandles);
 
+    Statement createStatement(Connection connection)
+            throws SQLException;
+
     JdbcOutputTableHandle beginCreateTable(ConnectorTableMetadata tableMetadata);
 
     void commitCreateTable(JdbcOutputTableHandle handle, Collection<String> fragments);
 
-    String buildInsertSql(JdbcOutputTableHandle handle);
+    /**
+     * Returns the number of rows to write with each INSERT statement built by {@link #buildInsertSql}.
+     */
+    int getInsertBatchSize(JdbcOutputTableHandle handle);
+
+    String buildInsertSql(JdbcOutputTableHandle handle, int rowCount);
 
     Connection getConnection(JdbcOutputTableHandle handle)
             throws SQLException;
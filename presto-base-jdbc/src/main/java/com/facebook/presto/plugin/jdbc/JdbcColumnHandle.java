@@ -20,6 +20,9 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Objects;
 
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 public final class JdbcColumnHandle
@@ -29,18 +32,41 @@ public final class JdbcColumnHandle
     private final String columnName;
     private final Type columnType;
     private final int ordinalPosition;
+    private final String aggregateFunction;
+    private final JdbcColumnHandle aggregateArgument;
+
+    public JdbcColumnHandle(String connectorId, String columnName, Type columnType, int ordinalPosition)
+    {
+        this(connectorId, columnName, columnType, ordinalPosition, null, null);
+    }
 
     @JsonCreator
     public JdbcColumnHandle(
             @JsonProperty("connectorId") String connectorId,
             @JsonProperty("columnName") String columnName,
             @JsonProperty("columnType") Type columnType,
-            @JsonProperty("ordinalPosition") int ordinalPosition)
+            @JsonProperty("ordinalPosition") int ordinalPosition,
+            @JsonProperty("aggregateFunction") @Nullable String aggregateFunction,
+            @JsonProperty("aggregateArgument") @Nullable JdbcColumnHandle aggregateArgument)
     {
         this.connectorId = checkNotNull(connectorId, "connectorId is null");
         this.columnName = checkNotNull(columnName, "columnName is null");
         this.columnType = checkNotNull(columnType, "columnType is null");
         this.ordinalPosition = ordinalPosition;
+        this.aggregateFunction = aggregateFunction;
+        this.aggregateArgument = aggregateArgument;
+        checkArgument(aggregateFunction != null || aggregateArgument == null, "aggregateArgument is set without aggregateFunction");
+    }
+
+    /**
+     * Creates a column holding the result of an aggregate function computed by the database.
+     *
+     * @param argument the aggregated column, or null for {@code count(*)}
+     */
+    public static JdbcColumnHandle aggregateColumn(String connectorId, String function, @Nullable JdbcColumnHandle argument, Type type, int ordinalPosition)
+    {
+        String columnName = function + "(" + (argument == null ? "*" : argument.getColumnName()) + ")";
+        return new JdbcColumnHandle(connectorId, columnName, type, ordinalPosition, function, argument);
     }
 
     @JsonProperty
@@ -67,6 +93,31 @@ public final class JdbcColumnHandle
         return ordinalPosition;
     }
 
+    /**
+     * Returns the aggregate function computing this column, or null if this is a column of the table.
+     */
+    @JsonProperty
+    @Nullable
+    public String getAggregateFunction()
+    {
+        return aggregateFunction;
+    }
+
+    /**
+     * Returns the argument of the aggregate function, or null for {@code count(*)} and for columns of the table.
+     */
+    @JsonProperty
+    @Nullable
+    public JdbcColumnHandle getAggregateArgument()
+    {
+        return aggregateArgument;
+    }
+
+    public boolean isAggregate()
+    {
+        return aggregateFunction != null;
+    }
+
     public ColumnMetadata getColumnMetadata()
     {
         return new ColumnMetadata(columnName, columnType, ordinalPosition, false);
@@ -83,13 +134,15 @@ public final class JdbcColumnHandle
         }
         JdbcColumnHandle o = (JdbcColumnHandle) obj;
         return Objects.equal(this.connectorId, o.connectorId) &&
-                Objects.equal(this.columnName, o.columnName);
+                Objects.equal(this.columnName, o.columnName) &&
+                Objects.equal(this.aggregateFunction, o.aggregateFunction) &&
+                Objects.equal(this.aggregateArgument, o.aggregateArgument);
     }
 
     @Override
     public int hashCode()
     {
-        return Objects.hashCode(connectorId, columnName);
+        return Objects.hashCode(connectorId, columnName, aggregateFunction, aggregateArgument);
     }
 
     @Override
@@ -100,6 +153,8 @@ public final class JdbcColumnHandle
                 .add("columnName", columnName)
                 .add("columnType", columnType)
                 .add("ordinalPosition", ordinalPosition)
+                .add("aggregateFunction", aggregateFunction)
+                .add("aggregateArgument", aggregateArgument)
                 .toString();
     }
 }
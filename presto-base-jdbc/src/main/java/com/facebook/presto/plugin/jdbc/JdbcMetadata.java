@@ -14,36 +14,56 @@
 package com.facebook.presto.plugin.jdbc;
 
 import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.ConnectorAggregate;
+import com.facebook.presto.spi.ConnectorAggregatedTable;
 import com.facebook.presto.spi.ConnectorColumnHandle;
 import com.facebook.presto.spi.ConnectorInsertTableHandle;
 import com.facebook.presto.spi.ConnectorMetadata;
 import com.facebook.presto.spi.ConnectorOutputTableHandle;
+import com.facebook.presto.spi.ConnectorPartition;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorTableHandle;
 import com.facebook.presto.spi.ConnectorTableMetadata;
+import com.facebook.presto.spi.ConnectorTablePartitioning;
+import com.facebook.presto.spi.ConnectorTableStatistics;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.SchemaTablePrefix;
 import com.facebook.presto.spi.TableNotFoundException;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 
 import javax.inject.Inject;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static com.facebook.presto.plugin.jdbc.Types.checkType;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 public class JdbcMetadata
         implements ConnectorMetadata
 {
+    // types whose values compare the same in the database as in the engine
+    private static final Set<Type> EXACT_TYPES = ImmutableSet.<Type>of(BIGINT, BOOLEAN, DATE);
+    private static final Set<Type> NUMERIC_TYPES = ImmutableSet.<Type>of(BIGINT, DOUBLE);
+    private static final Set<Type> ORDERED_TYPES = ImmutableSet.<Type>of(BIGINT, DOUBLE, DATE);
+
+    private final String connectorId;
     private final JdbcClient jdbcClient;
 
     @Inject
     public JdbcMetadata(JdbcConnectorId connectorId, JdbcClient jdbcClient)
     {
+        this.connectorId = checkNotNull(connectorId, "connectorId is null").toString();
         this.jdbcClient = checkNotNull(jdbcClient, "client is null");
     }
 
@@ -121,6 +141,96 @@ public class JdbcMetadata
         return checkType(columnHandle, JdbcColumnHandle.class, "columnHandle").getColumnMetadata();
     }
 
+    @Override
+    public ConnectorTablePartitioning getTablePartitioning(ConnectorTableHandle tableHandle)
+    {
+        return null;
+    }
+
+    @Override
+    public ConnectorTableStatistics getTableStatistics(ConnectorTableHandle tableHandle, List<ConnectorPartition> partitions)
+    {
+        return ConnectorTableStatistics.UNKNOWN;
+    }
+
+    @Override
+    public ConnectorAggregatedTable pushDownAggregation(ConnectorTableHandle tableHandle, TupleDomain<ConnectorColumnHandle> constraint, List<ConnectorColumnHandle> groupingColumns, List<ConnectorAggregate> aggregates)
+    {
+        JdbcTableHandle handle = checkType(tableHandle, JdbcTableHandle.class, "tableHandle");
+        if (handle.isAggregated() || handle.getLimit() != null || constraint.isNone()) {
+            return null;
+        }
+
+        // the database must evaluate the constraint exactly, since the engine no longer sees the rows
+        for (ConnectorColumnHandle column : constraint.getDomains().keySet()) {
+            if (!QueryBuilder.isEnforced(checkType(column, JdbcColumnHandle.class, "column").getColumnType())) {
+                return null;
+            }
+        }
+
+        // collations may consider distinct strings equal, so only group by values that compare exactly
+        ImmutableList.Builder<JdbcColumnHandle> jdbcGroupingColumns = ImmutableList.builder();
+        for (ConnectorColumnHandle column : groupingColumns) {
+            JdbcColumnHandle jdbcColumn = checkType(column, JdbcColumnHandle.class, "column");
+            if (jdbcColumn.isAggregate() || !EXACT_TYPES.contains(jdbcColumn.getColumnType())) {
+                return null;
+            }
+            jdbcGroupingColumns.add(jdbcColumn);
+        }
+
+        ImmutableList.Builder<ConnectorColumnHandle> aggregateColumns = ImmutableList.builder();
+        for (int i = 0; i < aggregates.size(); i++) {
+            ConnectorAggregate aggregate = aggregates.get(i);
+            JdbcColumnHandle argument = null;
+            if (aggregate.getArgument() != null) {
+                argument = checkType(aggregate.getArgument(), JdbcColumnHandle.class, "argument");
+            }
+            if (!canPushDown(aggregate.getFunctionName(), argument)) {
+                return null;
+            }
+            aggregateColumns.add(JdbcColumnHandle.aggregateColumn(connectorId, aggregate.getFunctionName(), argument, aggregate.getType(), i));
+        }
+
+        List<JdbcColumnHandle> grouping = jdbcGroupingColumns.build();
+        return new ConnectorAggregatedTable(
+                handle.withAggregation(constraint, grouping),
+                ImmutableList.<ConnectorColumnHandle>copyOf(grouping),
+                aggregateColumns.build());
+    }
+
+    private static boolean canPushDown(String functionName, JdbcColumnHandle argument)
+    {
+        if (argument == null) {
+            return functionName.equals("count");
+        }
+        if (argument.isAggregate()) {
+            return false;
+        }
+        switch (functionName) {
+            case "count":
+                return true;
+            case "sum":
+                return NUMERIC_TYPES.contains(argument.getColumnType());
+            case "min":
+            case "max":
+                return ORDERED_TYPES.contains(argument.getColumnType());
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public ConnectorTableHandle pushDownLimit(ConnectorTableHandle tableHandle, long limit)
+    {
+        JdbcTableHandle handle = checkType(tableHandle, JdbcTableHandle.class, "tableHandle");
+
+        // a limit on each split would drop groups that also appear in other splits
+        if (handle.isAggregated()) {
+            return null;
+        }
+        return handle.withLimit(limit);
+    }
+
     @Override
     public boolean canCreateSampledTables(ConnectorSession session)
     {
@@ -67,8 +67,7 @@ public class JdbcRecordCursor
         try {
             connection = jdbcClient.getConnection(split);
 
-            statement = connection.createStatement();
-            statement.setFetchSize(1000);
+            statement = jdbcClient.createStatement(connection);
 
             log.debug("Executing: %s", sql);
             resultSet = statement.executeQuery(sql);
@@ -13,28 +13,49 @@
  */
 package com.facebook.presto.plugin.jdbc;
 
-import com.facebook.presto.spi.RecordSink;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageSink;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
 import com.google.common.base.Throwables;
+import io.airlift.slice.Slice;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.List;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+/**
+ * Buffers rows and writes them with multi-row INSERT statements, so a
+ * statement round trip is made for every {@link JdbcClient#getInsertBatchSize}
+ * rows instead of for every row.
+ */
 public class JdbcRecordSink
-        implements RecordSink
+        implements PageSink
 {
+    private final JdbcOutputTableHandle handle;
+    private final JdbcClient jdbcClient;
     private final Connection connection;
-    private final PreparedStatement statement;
 
     private final int fieldCount;
+    private final int batchSize;
+
+    // row major values of the buffered rows
+    private final Object[] values;
+    private int rowCount;
     private int field = -1;
-    private int batchSize;
+
+    private PreparedStatement batchStatement;
 
     public JdbcRecordSink(JdbcOutputTableHandle handle, JdbcClient jdbcClient)
     {
+        this.handle = handle;
+        this.jdbcClient = jdbcClient;
+
         try {
             connection = jdbcClient.getConnection(handle);
             connection.setAutoCommit(false);
@@ -43,14 +64,9 @@ public class JdbcRecordSink
             throw Throwables.propagate(e);
         }
 
-        try {
-            statement = connection.prepareStatement(jdbcClient.buildInsertSql(handle));
-        }
-        catch (SQLException e) {
-            throw Throwables.propagate(e);
-        }
-
         fieldCount = handle.getColumnNames().size();
+        batchSize = jdbcClient.getInsertBatchSize(handle);
+        values = new Object[batchSize * fieldCount];
     }
 
     @Override
@@ -66,86 +82,65 @@ public class JdbcRecordSink
         checkState(field != -1, "not in record");
         checkState(field == fieldCount, "not all fields set");
         field = -1;
-
-        try {
-            statement.addBatch();
-            batchSize++;
-
-            if (batchSize >= 1000) {
-                statement.executeBatch();
-                connection.commit();
-                connection.setAutoCommit(false);
-                batchSize = 0;
-            }
-        }
-        catch (SQLException e) {
-            throw Throwables.propagate(e);
-        }
+        finishRow();
     }
 
     @Override
     public void appendNull()
     {
-        try {
-            statement.setObject(next(), null);
-        }
-        catch (SQLException e) {
-            throw Throwables.propagate(e);
-        }
+        values[next()] = null;
     }
 
     @Override
     public void appendBoolean(boolean value)
     {
-        try {
-            statement.setBoolean(next(), value);
-        }
-        catch (SQLException e) {
-            throw Throwables.propagate(e);
-        }
+        values[next()] = value;
     }
 
     @Override
     public void appendLong(long value)
     {
-        try {
-            statement.setLong(next(), value);
-        }
-        catch (SQLException e) {
-            throw Throwables.propagate(e);
-        }
+        values[next()] = value;
     }
 
     @Override
     public void appendDouble(double value)
     {
-        try {
-            statement.setDouble(next(), value);
-        }
-        catch (SQLException e) {
-            throw Throwables.propagate(e);
-        }
+        values[next()] = value;
     }
 
     @Override
     public void appendString(byte[] value)
     {
-        try {
-            statement.setString(next(), new String(value, UTF_8));
-        }
-        catch (SQLException e) {
-            throw Throwables.propagate(e);
+        values[next()] = new String(value, UTF_8);
+    }
+
+    @Override
+    public void appendPage(Page page, List<Type> types)
+    {
+        checkState(field == -1, "already in record");
+        checkArgument(types.size() == fieldCount, "expected %s types, but got %s", fieldCount, types.size());
+
+        Block[] blocks = page.getBlocks();
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            int offset = rowCount * fieldCount;
+            for (int channel = 0; channel < fieldCount; channel++) {
+                values[offset + channel] = getValue(types.get(channel), blocks[channel], position);
+            }
+            finishRow();
         }
     }
 
     @Override
     public String commit()
     {
-        // commit and close
+        // write the remaining rows, commit and close
         try (Connection connection = this.connection) {
-            if (batchSize > 0) {
-                statement.executeBatch();
-                connection.commit();
+            if (rowCount > 0) {
+                flush();
+            }
+            if (batchStatement != null) {
+                batchStatement.close();
             }
         }
         catch (SQLException e) {
@@ -154,11 +149,76 @@ public class JdbcRecordSink
         return ""; // the committer does not need any additional info
     }
 
+    private void finishRow()
+    {
+        rowCount++;
+        if (rowCount == batchSize) {
+            try {
+                flush();
+            }
+            catch (SQLException e) {
+                throw Throwables.propagate(e);
+            }
+        }
+    }
+
+    private void flush()
+            throws SQLException
+    {
+        if (rowCount == batchSize) {
+            if (batchStatement == null) {
+                batchStatement = connection.prepareStatement(jdbcClient.buildInsertSql(handle, batchSize));
+            }
+            execute(batchStatement);
+        }
+        else {
+            // only the last rows of the table are written with a partial statement
+            try (PreparedStatement statement = connection.prepareStatement(jdbcClient.buildInsertSql(handle, rowCount))) {
+                execute(statement);
+            }
+        }
+        connection.commit();
+        rowCount = 0;
+    }
+
+    private void execute(PreparedStatement statement)
+            throws SQLException
+    {
+        int parameterCount = rowCount * fieldCount;
+        for (int i = 0; i < parameterCount; i++) {
+            statement.setObject(i + 1, values[i]);
+        }
+        statement.executeUpdate();
+    }
+
     private int next()
     {
         checkState(field != -1, "not in record");
         checkState(field < fieldCount, "all fields already set");
+        int index = rowCount * fieldCount + field;
         field++;
-        return field;
+        return index;
+    }
+
+    private static Object getValue(Type type, Block block, int position)
+    {
+        if (block.isNull(position)) {
+            return null;
+        }
+
+        Class<?> javaType = type.getJavaType();
+        if (javaType == boolean.class) {
+            return type.getBoolean(block, position);
+        }
+        if (javaType == long.class) {
+            return type.getLong(block, position);
+        }
+        if (javaType == double.class) {
+            return type.getDouble(block, position);
+        }
+        if (javaType == Slice.class) {
+            return type.getSlice(block, position).toStringUtf8();
+        }
+        throw new IllegalArgumentException("Unsupported type: " + type);
     }
 }
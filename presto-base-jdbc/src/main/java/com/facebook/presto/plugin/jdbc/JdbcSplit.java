@@ -39,6 +39,9 @@ public class JdbcSplit
     private final String connectionUrl;
     private final Map<String, String> connectionProperties;
     private final TupleDomain<ConnectorColumnHandle> tupleDomain;
+    private final String additionalPredicate;
+    private final List<JdbcColumnHandle> groupingColumns;
+    private final Long limit;
 
     @JsonCreator
     public JdbcSplit(
@@ -48,7 +51,10 @@ public class JdbcSplit
             @JsonProperty("tableName") String tableName,
             @JsonProperty("connectionUrl") String connectionUrl,
             @JsonProperty("connectionProperties") Map<String, String> connectionProperties,
-            @JsonProperty("tupleDomain") TupleDomain<ConnectorColumnHandle> tupleDomain)
+            @JsonProperty("tupleDomain") TupleDomain<ConnectorColumnHandle> tupleDomain,
+            @JsonProperty("additionalPredicate") @Nullable String additionalPredicate,
+            @JsonProperty("groupingColumns") @Nullable List<JdbcColumnHandle> groupingColumns,
+            @JsonProperty("limit") @Nullable Long limit)
     {
         this.connectorId = checkNotNull(connectorId, "connector id is null");
         this.catalogName = catalogName;
@@ -57,6 +63,9 @@ public class JdbcSplit
         this.connectionUrl = checkNotNull(connectionUrl, "connectionUrl is null");
         this.connectionProperties = ImmutableMap.copyOf(checkNotNull(connectionProperties, "connectionProperties is null"));
         this.tupleDomain = checkNotNull(tupleDomain, "tupleDomain is null");
+        this.additionalPredicate = additionalPredicate;
+        this.groupingColumns = groupingColumns == null ? null : ImmutableList.copyOf(groupingColumns);
+        this.limit = limit;
     }
 
     @JsonProperty
@@ -103,6 +112,37 @@ public class JdbcSplit
         return tupleDomain;
     }
 
+    /**
+     * SQL predicate that restricts this split to a range of the table, or null
+     * if the split covers the whole table.
+     */
+    @JsonProperty
+    @Nullable
+    public String getAdditionalPredicate()
+    {
+        return additionalPredicate;
+    }
+
+    /**
+     * Columns to group the rows of the split by, or null if the split is not aggregated.
+     */
+    @JsonProperty
+    @Nullable
+    public List<JdbcColumnHandle> getGroupingColumns()
+    {
+        return groupingColumns;
+    }
+
+    /**
+     * Maximum number of rows to read from the split, or null if there is no limit.
+     */
+    @JsonProperty
+    @Nullable
+    public Long getLimit()
+    {
+        return limit;
+    }
+
     @Override
     public boolean isRemotelyAccessible()
     {
@@ -13,16 +13,22 @@
  */
 package com.facebook.presto.plugin.jdbc;
 
+import com.facebook.presto.spi.ConnectorColumnHandle;
 import com.facebook.presto.spi.ConnectorTableHandle;
 import com.facebook.presto.spi.SchemaTableName;
+import com.facebook.presto.spi.TupleDomain;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Joiner;
 import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
 
 import javax.annotation.Nullable;
 
+import java.util.List;
+
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 
 public final class JdbcTableHandle
         implements ConnectorTableHandle
@@ -32,6 +38,14 @@ public final class JdbcTableHandle
     private final String catalogName;
     private final String schemaName;
     private final String tableName;
+    private final TupleDomain<ConnectorColumnHandle> constraint;
+    private final List<JdbcColumnHandle> groupingColumns;
+    private final Long limit;
+
+    public JdbcTableHandle(String connectorId, SchemaTableName schemaTableName, @Nullable String catalogName, @Nullable String schemaName, String tableName)
+    {
+        this(connectorId, schemaTableName, catalogName, schemaName, tableName, TupleDomain.<ConnectorColumnHandle>all(), null, null);
+    }
 
     @JsonCreator
     public JdbcTableHandle(
@@ -39,13 +53,19 @@ public final class JdbcTableHandle
             @JsonProperty("schemaTableName") SchemaTableName schemaTableName,
             @JsonProperty("catalogName") @Nullable String catalogName,
             @JsonProperty("schemaName") @Nullable String schemaName,
-            @JsonProperty("tableName") String tableName)
+            @JsonProperty("tableName") String tableName,
+            @JsonProperty("constraint") TupleDomain<ConnectorColumnHandle> constraint,
+            @JsonProperty("groupingColumns") @Nullable List<JdbcColumnHandle> groupingColumns,
+            @JsonProperty("limit") @Nullable Long limit)
     {
         this.connectorId = checkNotNull(connectorId, "connectorId is null");
         this.schemaTableName = checkNotNull(schemaTableName, "schemaTableName is null");
         this.catalogName = catalogName;
         this.schemaName = schemaName;
         this.tableName = checkNotNull(tableName, "tableName is null");
+        this.constraint = checkNotNull(constraint, "constraint is null");
+        this.groupingColumns = groupingColumns == null ? null : ImmutableList.copyOf(groupingColumns);
+        this.limit = limit;
     }
 
     @JsonProperty
@@ -80,6 +100,55 @@ public final class JdbcTableHandle
         return tableName;
     }
 
+    /**
+     * Returns the constraint the rows of the table are always filtered with.
+     */
+    @JsonProperty
+    public TupleDomain<ConnectorColumnHandle> getConstraint()
+    {
+        return constraint;
+    }
+
+    /**
+     * Returns the columns the rows are grouped by if the table is aggregated, or null otherwise.
+     */
+    @JsonProperty
+    @Nullable
+    public List<JdbcColumnHandle> getGroupingColumns()
+    {
+        return groupingColumns;
+    }
+
+    /**
+     * Returns the maximum number of rows read from each split, or null if there is no limit.
+     */
+    @JsonProperty
+    @Nullable
+    public Long getLimit()
+    {
+        return limit;
+    }
+
+    public boolean isAggregated()
+    {
+        return groupingColumns != null;
+    }
+
+    public JdbcTableHandle withAggregation(TupleDomain<ConnectorColumnHandle> constraint, List<JdbcColumnHandle> groupingColumns)
+    {
+        checkState(!isAggregated() && limit == null, "table is already aggregated or limited: %s", this);
+        return new JdbcTableHandle(connectorId, schemaTableName, catalogName, schemaName, tableName, this.constraint.intersect(constraint), groupingColumns, null);
+    }
+
+    public JdbcTableHandle withLimit(long limit)
+    {
+        checkState(!isAggregated(), "table is aggregated: %s", this);
+        if (this.limit != null) {
+            limit = Math.min(limit, this.limit);
+        }
+        return new JdbcTableHandle(connectorId, schemaTableName, catalogName, schemaName, tableName, constraint, groupingColumns, limit);
+    }
+
     @Override
     public boolean equals(Object obj)
     {
@@ -91,18 +160,28 @@ public final class JdbcTableHandle
         }
         JdbcTableHandle o = (JdbcTableHandle) obj;
         return Objects.equal(this.connectorId, o.connectorId) &&
-                Objects.equal(this.schemaTableName, o.schemaTableName);
+                Objects.equal(this.schemaTableName, o.schemaTableName) &&
+                Objects.equal(this.constraint, o.constraint) &&
+                Objects.equal(this.groupingColumns, o.groupingColumns) &&
+                Objects.equal(this.limit, o.limit);
     }
 
     @Override
     public int hashCode()
     {
-        return Objects.hashCode(connectorId, schemaTableName);
+        return Objects.hashCode(connectorId, schemaTableName, constraint, groupingColumns, limit);
     }
 
     @Override
     public String toString()
     {
-        return Joiner.on(":").useForNull("null").join(connectorId, schemaTableName, catalogName, schemaName, tableName);
+        String name = Joiner.on(":").useForNull("null").join(connectorId, schemaTableName, catalogName, schemaName, tableName);
+        if (isAggregated()) {
+            name += " grouped by " + groupingColumns;
+        }
+        if (limit != null) {
+            name += " limit " + limit;
+        }
+        return name;
     }
 }
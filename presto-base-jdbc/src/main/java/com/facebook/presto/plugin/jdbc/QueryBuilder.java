@@ -25,9 +25,13 @@ import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 
+import javax.annotation.Nullable;
+
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
+import static com.facebook.presto.plugin.jdbc.Types.checkType;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Strings.isNullOrEmpty;
@@ -43,7 +47,28 @@ public class QueryBuilder
         this.quote = checkNotNull(quote, "quote is null");
     }
 
-    public String buildSql(String catalog, String schema, String table, List<JdbcColumnHandle> columns, TupleDomain<ConnectorColumnHandle> tupleDomain)
+    /**
+     * Returns true if the domains of the type are evaluated by the database exactly as the engine would.
+     */
+    public static boolean isEnforced(Type type)
+    {
+        return type.equals(BigintType.BIGINT) || type.equals(BooleanType.BOOLEAN);
+    }
+
+    private static boolean isPushable(Type type)
+    {
+        return isEnforced(type) || type.equals(DoubleType.DOUBLE);
+    }
+
+    public String buildSql(
+            String catalog,
+            String schema,
+            String table,
+            List<JdbcColumnHandle> columns,
+            TupleDomain<ConnectorColumnHandle> tupleDomain,
+            @Nullable String additionalPredicate,
+            @Nullable List<JdbcColumnHandle> groupingColumns,
+            @Nullable Long limit)
     {
         StringBuilder sql = new StringBuilder();
 
@@ -54,33 +79,61 @@ public class QueryBuilder
         }
 
         sql.append(" FROM ");
-        if (!isNullOrEmpty(catalog)) {
-            sql.append(quote(catalog)).append('.');
-        }
-        if (!isNullOrEmpty(schema)) {
-            sql.append(quote(schema)).append('.');
-        }
-        sql.append(quote(table));
+        appendTable(sql, catalog, schema, table);
 
-        List<String> clauses = toConjuncts(columns, tupleDomain);
+        List<String> clauses = toConjuncts(tupleDomain);
+        if (additionalPredicate != null) {
+            clauses = ImmutableList.<String>builder()
+                    .addAll(clauses)
+                    .add("(" + additionalPredicate + ")")
+                    .build();
+        }
         if (!clauses.isEmpty()) {
             sql.append(" WHERE ")
                     .append(Joiner.on(" AND ").join(clauses));
         }
 
+        if (groupingColumns != null && !groupingColumns.isEmpty()) {
+            sql.append(" GROUP BY ");
+            Joiner.on(", ").appendTo(sql, transform(groupingColumns, quoteColumn()));
+        }
+
+        if (limit != null) {
+            sql.append(" LIMIT ").append(limit);
+        }
+
+        return sql.toString();
+    }
+
+    public String buildMinMaxSql(String catalog, String schema, String table, JdbcColumnHandle column)
+    {
+        String columnName = quote(column.getColumnName());
+        StringBuilder sql = new StringBuilder()
+                .append("SELECT min(").append(columnName).append("), max(").append(columnName).append(")")
+                .append(" FROM ");
+        appendTable(sql, catalog, schema, table);
         return sql.toString();
     }
 
-    private List<String> toConjuncts(List<JdbcColumnHandle> columns, TupleDomain<ConnectorColumnHandle> tupleDomain)
+    private void appendTable(StringBuilder sql, String catalog, String schema, String table)
     {
+        if (!isNullOrEmpty(catalog)) {
+            sql.append(quote(catalog)).append('.');
+        }
+        if (!isNullOrEmpty(schema)) {
+            sql.append(quote(schema)).append('.');
+        }
+        sql.append(quote(table));
+    }
+
+    private List<String> toConjuncts(TupleDomain<ConnectorColumnHandle> tupleDomain)
+    {
+        // columns that are only filtered on are not selected, so all of the domains have to be considered
         ImmutableList.Builder<String> builder = ImmutableList.builder();
-        for (JdbcColumnHandle column : columns) {
-            Type type = column.getColumnType();
-            if (type.equals(BigintType.BIGINT) || type.equals(DoubleType.DOUBLE) || type.equals(BooleanType.BOOLEAN)) {
-                Domain domain = tupleDomain.getDomains().get(column);
-                if (domain != null) {
-                    builder.add(toPredicate(column.getColumnName(), domain));
-                }
+        for (Map.Entry<ConnectorColumnHandle, Domain> entry : tupleDomain.getDomains().entrySet()) {
+            JdbcColumnHandle column = checkType(entry.getKey(), JdbcColumnHandle.class, "column");
+            if (isPushable(column.getColumnType())) {
+                builder.add(toPredicate(column.getColumnName(), entry.getValue()));
             }
         }
         return builder.build();
@@ -175,7 +228,11 @@ public class QueryBuilder
             @Override
             public String apply(JdbcColumnHandle column)
             {
-                return quote(column.getColumnName());
+                if (!column.isAggregate()) {
+                    return quote(column.getColumnName());
+                }
+                String argument = column.getAggregateArgument() == null ? "*" : quote(column.getAggregateArgument().getColumnName());
+                return column.getAggregateFunction() + "(" + argument + ")";
             }
         };
     }
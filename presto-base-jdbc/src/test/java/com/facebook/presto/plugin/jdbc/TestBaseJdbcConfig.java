@@ -27,7 +27,11 @@ public class TestBaseJdbcConfig
         ConfigAssertions.assertRecordedDefaults(ConfigAssertions.recordDefaults(BaseJdbcConfig.class)
                 .setConnectionUrl(null)
                 .setConnectionUser(null)
-                .setConnectionPassword(null));
+                .setConnectionPassword(null)
+                .setSplitCount(1)
+                .setSplitColumn(null)
+                .setFetchSize(1000)
+                .setInsertBatchSize(1000));
     }
 
     @Test
@@ -37,12 +41,20 @@ public class TestBaseJdbcConfig
                 .put("connection-url", "jdbc:h2:mem:config")
                 .put("connection-user", "user")
                 .put("connection-password", "password")
+                .put("split-count", "8")
+                .put("split-column", "id")
+                .put("fetch-size", "5000")
+                .put("insert-batch-size", "200")
                 .build();
 
         BaseJdbcConfig expected = new BaseJdbcConfig()
                 .setConnectionUrl("jdbc:h2:mem:config")
                 .setConnectionUser("user")
-                .setConnectionPassword("password");
+                .setConnectionPassword("password")
+                .setSplitCount(8)
+                .setSplitColumn("id")
+                .setFetchSize(5000)
+                .setInsertBatchSize(200);
 
         ConfigAssertions.assertFullMapping(properties, expected);
     }
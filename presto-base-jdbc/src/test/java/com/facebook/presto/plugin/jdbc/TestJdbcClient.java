@@ -13,18 +13,37 @@
  */
 package com.facebook.presto.plugin.jdbc;
 
+import com.facebook.presto.spi.ConnectorAggregate;
+import com.facebook.presto.spi.ConnectorAggregatedTable;
+import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.ConnectorPartitionResult;
+import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.Range;
+import com.facebook.presto.spi.RecordCursor;
 import com.facebook.presto.spi.SchemaTableName;
+import com.facebook.presto.spi.SortedRangeSet;
+import com.facebook.presto.spi.TupleDomain;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import org.h2.Driver;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import java.util.List;
+
 import static com.facebook.presto.plugin.jdbc.TestingDatabase.CONNECTOR_ID;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static io.airlift.slice.Slices.utf8Slice;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
 @Test
@@ -71,4 +90,121 @@ public class TestJdbcClient
                 new JdbcColumnHandle(CONNECTOR_ID, "TEXT", VARCHAR, 0),
                 new JdbcColumnHandle(CONNECTOR_ID, "VALUE", BIGINT, 1)));
     }
+
+    @Test
+    public void testRangeSplits()
+            throws Exception
+    {
+        BaseJdbcConfig config = new BaseJdbcConfig()
+                .setConnectionUrl(database.getConnection().getMetaData().getURL())
+                .setSplitCount(3)
+                .setSplitColumn("value");
+        JdbcClient client = new BaseJdbcClient(new JdbcConnectorId(CONNECTOR_ID), config, "\"", new Driver());
+
+        JdbcTableHandle table = client.getTableHandle(new SchemaTableName("example", "numbers"));
+        ConnectorPartitionResult partitions = client.getPartitions(table, TupleDomain.<ConnectorColumnHandle>all());
+        List<ConnectorSplit> splits = client.getPartitionSplits((JdbcPartition) getOnlyElement(partitions.getPartitions())).getNextBatch(1000);
+        assertEquals(splits.size(), 3);
+
+        // every row is read by exactly one split
+        List<JdbcColumnHandle> columns = client.getColumns(table);
+        int rows = 0;
+        long sum = 0;
+        for (ConnectorSplit split : splits) {
+            try (RecordCursor cursor = new JdbcRecordSet(client, (JdbcSplit) split, columns).cursor()) {
+                while (cursor.advanceNextPosition()) {
+                    rows++;
+                    sum += cursor.getLong(1);
+                }
+            }
+        }
+        assertEquals(rows, 6);
+        assertEquals(sum, 1 + 2 + 3 + 10 + 11 + 12);
+    }
+
+    @Test
+    public void testPartitionsUndeterminedDomain()
+    {
+        JdbcTableHandle table = jdbcClient.getTableHandle(new SchemaTableName("example", "numbers"));
+        List<JdbcColumnHandle> columns = jdbcClient.getColumns(table);
+        JdbcColumnHandle text = columns.get(0);
+        JdbcColumnHandle value = columns.get(1);
+
+        // bigint domains are evaluated exactly by the generated SQL, but varchar domains are not pushed down at all
+        TupleDomain<ConnectorColumnHandle> tupleDomain = TupleDomain.<ConnectorColumnHandle>withColumnDomains(ImmutableMap.<ConnectorColumnHandle, Domain>of(
+                text, Domain.singleValue(utf8Slice("one")),
+                value, Domain.create(SortedRangeSet.of(Range.greaterThanOrEqual(2L)), false)));
+        ConnectorPartitionResult partitions = jdbcClient.getPartitions(table, tupleDomain);
+        assertEquals(partitions.getPartitions().size(), 1);
+        assertEquals(partitions.getUndeterminedTupleDomain().getDomains().keySet(), ImmutableSet.of(text));
+
+        assertEquals(jdbcClient.getPartitions(table, TupleDomain.<ConnectorColumnHandle>none()).getPartitions().size(), 0);
+    }
+
+    @Test
+    public void testAggregationPushDown()
+    {
+        JdbcMetadata metadata = new JdbcMetadata(new JdbcConnectorId(CONNECTOR_ID), jdbcClient);
+        JdbcTableHandle table = jdbcClient.getTableHandle(new SchemaTableName("example", "numbers"));
+        List<JdbcColumnHandle> columns = jdbcClient.getColumns(table);
+        JdbcColumnHandle text = columns.get(0);
+        JdbcColumnHandle value = columns.get(1);
+
+        TupleDomain<ConnectorColumnHandle> constraint = TupleDomain.<ConnectorColumnHandle>withColumnDomains(ImmutableMap.<ConnectorColumnHandle, Domain>of(
+                value, Domain.create(SortedRangeSet.of(Range.greaterThanOrEqual(2L)), false)));
+        ConnectorAggregatedTable aggregatedTable = metadata.pushDownAggregation(
+                table,
+                constraint,
+                ImmutableList.<ConnectorColumnHandle>of(),
+                ImmutableList.of(
+                        new ConnectorAggregate("count", null, BIGINT),
+                        new ConnectorAggregate("sum", value, BIGINT),
+                        new ConnectorAggregate("max", value, BIGINT)));
+        assertNotNull(aggregatedTable);
+
+        JdbcTableHandle aggregatedHandle = (JdbcTableHandle) aggregatedTable.getTableHandle();
+        ConnectorPartitionResult partitions = jdbcClient.getPartitions(aggregatedHandle, TupleDomain.<ConnectorColumnHandle>all());
+        JdbcSplit split = (JdbcSplit) getOnlyElement(jdbcClient.getPartitionSplits((JdbcPartition) getOnlyElement(partitions.getPartitions())).getNextBatch(1000));
+
+        List<JdbcColumnHandle> aggregateColumns = ImmutableList.copyOf(Iterables.filter(aggregatedTable.getAggregateColumns(), JdbcColumnHandle.class));
+        try (RecordCursor cursor = new JdbcRecordSet(jdbcClient, split, aggregateColumns).cursor()) {
+            assertTrue(cursor.advanceNextPosition());
+            assertEquals(cursor.getLong(0), 5);
+            assertEquals(cursor.getLong(1), 2 + 3 + 10 + 11 + 12);
+            assertEquals(cursor.getLong(2), 12);
+            assertFalse(cursor.advanceNextPosition());
+        }
+
+        // the database may compare strings differently than the engine
+        assertNull(metadata.pushDownAggregation(table, constraint, ImmutableList.<ConnectorColumnHandle>of(text), ImmutableList.<ConnectorAggregate>of()));
+        assertNull(metadata.pushDownAggregation(table, constraint, ImmutableList.<ConnectorColumnHandle>of(), ImmutableList.of(new ConnectorAggregate("max", text, VARCHAR))));
+    }
+
+    @Test
+    public void testLimitPushDown()
+    {
+        JdbcMetadata metadata = new JdbcMetadata(new JdbcConnectorId(CONNECTOR_ID), jdbcClient);
+        JdbcTableHandle table = jdbcClient.getTableHandle(new SchemaTableName("example", "numbers"));
+
+        JdbcTableHandle limitedTable = (JdbcTableHandle) metadata.pushDownLimit(table, 2);
+        ConnectorPartitionResult partitions = jdbcClient.getPartitions(limitedTable, TupleDomain.<ConnectorColumnHandle>all());
+        JdbcSplit split = (JdbcSplit) getOnlyElement(jdbcClient.getPartitionSplits((JdbcPartition) getOnlyElement(partitions.getPartitions())).getNextBatch(1000));
+
+        int rows = 0;
+        try (RecordCursor cursor = new JdbcRecordSet(jdbcClient, split, jdbcClient.getColumns(table)).cursor()) {
+            while (cursor.advanceNextPosition()) {
+                rows++;
+            }
+        }
+        assertEquals(rows, 2);
+    }
+
+    @Test
+    public void testSplitBoundaries()
+    {
+        assertEquals(BaseJdbcClient.getSplitBoundaries(1, 12, 3), ImmutableList.of(5L, 9L));
+        assertEquals(BaseJdbcClient.getSplitBoundaries(0, 1, 4), ImmutableList.of(1L));
+        assertEquals(BaseJdbcClient.getSplitBoundaries(7, 7, 4), ImmutableList.of());
+        assertEquals(BaseJdbcClient.getSplitBoundaries(Long.MIN_VALUE, Long.MAX_VALUE, 2), ImmutableList.of(0L));
+    }
 }
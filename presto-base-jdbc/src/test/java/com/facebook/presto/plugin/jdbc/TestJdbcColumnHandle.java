@@ -16,6 +16,7 @@ package com.facebook.presto.plugin.jdbc;
 import io.airlift.testing.EquivalenceTester;
 import org.testng.annotations.Test;
 
+import static com.facebook.presto.plugin.jdbc.JdbcColumnHandle.aggregateColumn;
 import static com.facebook.presto.plugin.jdbc.MetadataUtil.COLUMN_CODEC;
 import static com.facebook.presto.plugin.jdbc.MetadataUtil.assertJsonRoundTrip;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
@@ -27,6 +28,8 @@ public class TestJdbcColumnHandle
     public void testJsonRoundTrip()
     {
         assertJsonRoundTrip(COLUMN_CODEC, new JdbcColumnHandle("connectorId", "columnName", VARCHAR, 0));
+        assertJsonRoundTrip(COLUMN_CODEC, aggregateColumn("connectorId", "count", null, BIGINT, 0));
+        assertJsonRoundTrip(COLUMN_CODEC, aggregateColumn("connectorId", "sum", new JdbcColumnHandle("connectorId", "columnName", BIGINT, 0), BIGINT, 0));
     }
 
     @Test
@@ -49,6 +49,6 @@ public class TestJdbcHandleResolver
 
     private static JdbcSplit createSplit(String connectorId)
     {
-        return new JdbcSplit(connectorId, "catalog", "schema", "table", "connectionUrl", ImmutableMap.<String, String>of(), TupleDomain.<ConnectorColumnHandle>all());
+        return new JdbcSplit(connectorId, "catalog", "schema", "table", "connectionUrl", ImmutableMap.<String, String>of(), TupleDomain.<ConnectorColumnHandle>all(), null, null, null);
     }
 }
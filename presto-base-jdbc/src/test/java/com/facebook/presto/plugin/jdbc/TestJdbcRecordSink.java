@@ -0,0 +1,139 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.facebook.presto.operator.PageBuilder;
+import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.ConnectorTableMetadata;
+import com.facebook.presto.spi.SchemaTableName;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import org.h2.Driver;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+import static com.facebook.presto.plugin.jdbc.TestingDatabase.CONNECTOR_ID;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestJdbcRecordSink
+{
+    private static final List<Type> TYPES = ImmutableList.<Type>of(VARCHAR, BIGINT);
+
+    private TestingDatabase database;
+    private JdbcClient jdbcClient;
+
+    @BeforeMethod
+    public void setUp()
+            throws Exception
+    {
+        database = new TestingDatabase();
+        BaseJdbcConfig config = new BaseJdbcConfig()
+                .setConnectionUrl(database.getConnection().getMetaData().getURL())
+                .setInsertBatchSize(4);
+        jdbcClient = new BaseJdbcClient(new JdbcConnectorId(CONNECTOR_ID), config, "\"", new Driver());
+    }
+
+    @AfterMethod
+    public void tearDown()
+            throws Exception
+    {
+        database.close();
+    }
+
+    @Test
+    public void testInsertBatchSize()
+    {
+        JdbcOutputTableHandle handle = beginCreateTable();
+        assertEquals(jdbcClient.getInsertBatchSize(handle), 4);
+        assertEquals(jdbcClient.buildInsertSql(handle, 2), "INSERT INTO \"" + handle.getCatalogName() + "\".\"EXAMPLE\".\"" + handle.getTemporaryTableName() + "\" VALUES (?,?),(?,?)");
+
+        // the bind parameters of a statement are limited regardless of the configured size
+        BaseJdbcConfig config = new BaseJdbcConfig()
+                .setConnectionUrl("jdbc:h2:mem:unused")
+                .setInsertBatchSize(1_000_000);
+        JdbcClient client = new BaseJdbcClient(new JdbcConnectorId(CONNECTOR_ID), config, "\"", new Driver());
+        assertEquals(client.getInsertBatchSize(handle), Short.MAX_VALUE / 2);
+    }
+
+    @Test
+    public void testWriteRecordsAndPages()
+            throws Exception
+    {
+        JdbcOutputTableHandle handle = beginCreateTable();
+        JdbcRecordSink sink = new JdbcRecordSink(handle, jdbcClient);
+
+        // three records, then a page of three rows, so a full and a partial statement are written
+        appendRecord(sink, "one", 1);
+        appendRecord(sink, "two", 2);
+        sink.beginRecord(1);
+        sink.appendNull();
+        sink.appendLong(3);
+        sink.finishRecord();
+
+        PageBuilder pageBuilder = new PageBuilder(TYPES);
+        appendRow(pageBuilder, "four", 4);
+        appendRow(pageBuilder, "five", 5);
+        pageBuilder.getBlockBuilder(0).appendNull();
+        pageBuilder.getBlockBuilder(1).appendNull();
+        pageBuilder.declarePosition();
+        sink.appendPage(pageBuilder.build(), TYPES);
+
+        jdbcClient.commitCreateTable(handle, ImmutableList.of(sink.commit()));
+
+        try (Statement statement = database.getConnection().createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT count(*), count(text), count(value), sum(value) FROM example.sink_test")) {
+            assertTrue(resultSet.next());
+            assertEquals(resultSet.getLong(1), 6);
+            assertEquals(resultSet.getLong(2), 4);
+            assertEquals(resultSet.getLong(3), 5);
+            assertEquals(resultSet.getLong(4), 1 + 2 + 3 + 4 + 5);
+        }
+    }
+
+    private JdbcOutputTableHandle beginCreateTable()
+    {
+        return jdbcClient.beginCreateTable(new ConnectorTableMetadata(
+                new SchemaTableName("example", "sink_test"),
+                ImmutableList.of(
+                        new ColumnMetadata("text", VARCHAR, 0, false),
+                        new ColumnMetadata("value", BIGINT, 1, false)),
+                "test"));
+    }
+
+    private static void appendRecord(JdbcRecordSink sink, String text, long value)
+    {
+        sink.beginRecord(1);
+        sink.appendString(text.getBytes(UTF_8));
+        sink.appendLong(value);
+        sink.finishRecord();
+    }
+
+    private static void appendRow(PageBuilder pageBuilder, String text, long value)
+    {
+        VARCHAR.writeSlice(pageBuilder.getBlockBuilder(0), utf8Slice(text));
+        BIGINT.writeLong(pageBuilder.getBlockBuilder(1), value);
+        pageBuilder.declarePosition();
+    }
+}
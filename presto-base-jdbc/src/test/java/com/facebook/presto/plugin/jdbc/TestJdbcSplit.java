@@ -25,7 +25,7 @@ import static org.testng.Assert.assertEquals;
 
 public class TestJdbcSplit
 {
-    private final JdbcSplit split = new JdbcSplit("connectorId", "catalog", "schemaName", "tableName", "connectionUrl", ImmutableMap.<String, String>of(), TupleDomain.<ConnectorColumnHandle>all());
+    private final JdbcSplit split = new JdbcSplit("connectorId", "catalog", "schemaName", "tableName", "connectionUrl", ImmutableMap.<String, String>of(), TupleDomain.<ConnectorColumnHandle>all(), "\"value\" >= 10", null, 10L);
 
     @Test
     public void testAddresses()
@@ -34,7 +34,7 @@ public class TestJdbcSplit
         assertEquals(split.getAddresses(), ImmutableList.of());
         assertEquals(split.isRemotelyAccessible(), true);
 
-        JdbcSplit jdbcSplit = new JdbcSplit("connectorId", "catalog", "schemaName", "tableName", "connectionUrl", ImmutableMap.<String, String>of(), TupleDomain.<ConnectorColumnHandle>all());
+        JdbcSplit jdbcSplit = new JdbcSplit("connectorId", "catalog", "schemaName", "tableName", "connectionUrl", ImmutableMap.<String, String>of(), TupleDomain.<ConnectorColumnHandle>all(), null, null, null);
         assertEquals(jdbcSplit.getAddresses(), ImmutableList.of());
     }
 
@@ -47,6 +47,9 @@ public class TestJdbcSplit
         assertEquals(copy.getConnectorId(), split.getConnectorId());
         assertEquals(copy.getSchemaName(), split.getSchemaName());
         assertEquals(copy.getTableName(), split.getTableName());
+        assertEquals(copy.getAdditionalPredicate(), split.getAdditionalPredicate());
+        assertEquals(copy.getGroupingColumns(), split.getGroupingColumns());
+        assertEquals(copy.getLimit(), split.getLimit());
 
         assertEquals(copy.getAddresses(), ImmutableList.of());
         assertEquals(copy.isRemotelyAccessible(), true);
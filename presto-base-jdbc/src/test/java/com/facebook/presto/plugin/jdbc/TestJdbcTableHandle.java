@@ -13,12 +13,16 @@
  */
 package com.facebook.presto.plugin.jdbc;
 
+import com.facebook.presto.spi.ConnectorColumnHandle;
 import com.facebook.presto.spi.SchemaTableName;
+import com.facebook.presto.spi.TupleDomain;
+import com.google.common.collect.ImmutableList;
 import io.airlift.testing.EquivalenceTester;
 import org.testng.annotations.Test;
 
 import static com.facebook.presto.plugin.jdbc.MetadataUtil.TABLE_CODEC;
 import static com.facebook.presto.plugin.jdbc.MetadataUtil.assertJsonRoundTrip;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
 
 public class TestJdbcTableHandle
 {
@@ -26,6 +30,12 @@ public class TestJdbcTableHandle
     public void testJsonRoundTrip()
     {
         assertJsonRoundTrip(TABLE_CODEC, new JdbcTableHandle("connectorId", new SchemaTableName("schema", "table"), "jdbcCatalog", "jdbcSchema", "jdbcTable"));
+
+        JdbcTableHandle tableHandle = new JdbcTableHandle("connectorId", new SchemaTableName("schema", "table"), "jdbcCatalog", "jdbcSchema", "jdbcTable");
+        assertJsonRoundTrip(TABLE_CODEC, tableHandle.withLimit(10));
+        assertJsonRoundTrip(TABLE_CODEC, tableHandle.withAggregation(
+                TupleDomain.<ConnectorColumnHandle>all(),
+                ImmutableList.of(new JdbcColumnHandle("connectorId", "columnName", BIGINT, 0))));
     }
 
     @Test
@@ -47,6 +57,9 @@ public class TestJdbcTableHandle
                         new JdbcTableHandle("connectorId", new SchemaTableName("schemaX", "table"), "jdbcCatalogX", "jdbcSchema", "jdbcTable"),
                         new JdbcTableHandle("connectorId", new SchemaTableName("schemaX", "table"), "jdbcCatalog", "jdbcSchemaX", "jdbcTable"),
                         new JdbcTableHandle("connectorId", new SchemaTableName("schemaX", "table"), "jdbcCatalog", "jdbcSchema", "jdbcTableX"))
+                .addEquivalentGroup(
+                        new JdbcTableHandle("connectorId", new SchemaTableName("schema", "table"), "jdbcCatalog", "jdbcSchema", "jdbcTable").withLimit(10),
+                        new JdbcTableHandle("connectorId", new SchemaTableName("schema", "table"), "jdbcCatalog", "jdbcSchema", "jdbcTable").withLimit(20).withLimit(10))
                 .check();
     }
 }
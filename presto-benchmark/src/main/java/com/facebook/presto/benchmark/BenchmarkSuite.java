@@ -38,11 +38,13 @@ public class BenchmarkSuite
                 new CountAggregationBenchmark(localQueryRunner),
                 new DoubleSumAggregationBenchmark(localQueryRunner),
                 new HashAggregationBenchmark(localQueryRunner),
+                new HashAggregationBenchmark(localQueryRunner, "custkey"),
                 new PredicateFilterBenchmark(localQueryRunner),
                 new RawStreamingBenchmark(localQueryRunner),
                 new Top100Benchmark(localQueryRunner),
                 new OrderByBenchmark(localQueryRunner),
                 new HashBuildBenchmark(localQueryRunner),
+                new HashBuildBenchmark(localQueryRunner, 4),
                 new HashJoinBenchmark(localQueryRunner),
                 new HashBuildAndJoinBenchmark(localQueryRunner),
                 new HandTpchQuery1(localQueryRunner),
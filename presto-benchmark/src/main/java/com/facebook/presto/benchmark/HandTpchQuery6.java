@@ -16,9 +16,9 @@ package com.facebook.presto.benchmark;
 import com.facebook.presto.operator.AggregationOperator.AggregationOperatorFactory;
 import com.facebook.presto.operator.FilterAndProjectOperator;
 import com.facebook.presto.operator.OperatorFactory;
-import com.facebook.presto.operator.Page;
 import com.facebook.presto.operator.PageBuilder;
 import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.operator.PageProcessor;
@@ -94,6 +94,12 @@ public class HandTpchQuery6
             return position;
         }
 
+        @Override
+        public Page processEncodedPage(ConnectorSession session, Page page)
+        {
+            return null;
+        }
+
         private static void project(int position, PageBuilder pageBuilder, Block extendedPriceBlock, Block discountBlock)
         {
             if (discountBlock.isNull(position) || extendedPriceBlock.isNull(position)) {
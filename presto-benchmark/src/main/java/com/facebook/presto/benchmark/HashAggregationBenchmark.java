@@ -29,15 +29,29 @@ import static com.facebook.presto.operator.aggregation.DoubleSumAggregation.DOUB
 public class HashAggregationBenchmark
         extends AbstractSimpleOperatorBenchmark
 {
+    private static final String DEFAULT_GROUP_BY_COLUMN = "orderstatus";
+
+    private final String groupByColumn;
+
     public HashAggregationBenchmark(LocalQueryRunner localQueryRunner)
     {
-        super(localQueryRunner, "hash_agg", 5, 25);
+        this(localQueryRunner, DEFAULT_GROUP_BY_COLUMN);
+    }
+
+    /**
+     * Groups orders by the specified column, so a varchar key (hashed through the generic
+     * group by hash) can be compared with a bigint key (hashed by the specialized one)
+     */
+    public HashAggregationBenchmark(LocalQueryRunner localQueryRunner, String groupByColumn)
+    {
+        super(localQueryRunner, groupByColumn.equals(DEFAULT_GROUP_BY_COLUMN) ? "hash_agg" : "hash_agg_" + groupByColumn, 5, 25);
+        this.groupByColumn = groupByColumn;
     }
 
     @Override
     protected List<? extends OperatorFactory> createOperatorFactories()
     {
-        OperatorFactory tableScanOperator = createTableScanOperator(0, "orders", "orderstatus", "totalprice");
+        OperatorFactory tableScanOperator = createTableScanOperator(0, "orders", groupByColumn, "totalprice");
         HashAggregationOperatorFactory aggregationOperator = new HashAggregationOperatorFactory(1,
                 ImmutableList.of(tableScanOperator.getTypes().get(0)),
                 Ints.asList(0),
@@ -49,6 +63,8 @@ public class HashAggregationBenchmark
 
     public static void main(String[] args)
     {
-        new HashAggregationBenchmark(createLocalQueryRunner()).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        LocalQueryRunner localQueryRunner = createLocalQueryRunner();
+        new HashAggregationBenchmark(localQueryRunner).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        new HashAggregationBenchmark(localQueryRunner, "custkey").runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
     }
 }
@@ -18,7 +18,9 @@ import com.facebook.presto.operator.DriverFactory;
 import com.facebook.presto.operator.HashBuilderOperator.HashBuilderOperatorFactory;
 import com.facebook.presto.operator.OperatorFactory;
 import com.facebook.presto.operator.TaskContext;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.testing.LocalQueryRunner;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
 
@@ -29,16 +31,24 @@ import static com.facebook.presto.benchmark.BenchmarkQueryRunner.createLocalQuer
 public class HashBuildBenchmark
         extends AbstractOperatorBenchmark
 {
+    private final int hashBuildConcurrency;
+
     public HashBuildBenchmark(LocalQueryRunner localQueryRunner)
     {
-        super(localQueryRunner, "hash_build", 4, 5);
+        this(localQueryRunner, 1);
+    }
+
+    public HashBuildBenchmark(LocalQueryRunner localQueryRunner, int hashBuildConcurrency)
+    {
+        super(localQueryRunner, hashBuildConcurrency == 1 ? "hash_build" : "hash_build_" + hashBuildConcurrency + "_threads", 4, 5);
+        this.hashBuildConcurrency = hashBuildConcurrency;
     }
 
     @Override
     protected List<Driver> createDrivers(TaskContext taskContext)
     {
         OperatorFactory ordersTableScan = createTableScanOperator(0, "orders", "orderkey", "totalprice");
-        HashBuilderOperatorFactory hashBuilder = new HashBuilderOperatorFactory(1, ordersTableScan.getTypes(), Ints.asList(0), 1_500_000);
+        HashBuilderOperatorFactory hashBuilder = new HashBuilderOperatorFactory(1, ordersTableScan.getTypes(), Ints.asList(0), 1_500_000, Optional.<SpillerFactory>absent(), hashBuildConcurrency, localQueryRunner.getExecutor());
 
         DriverFactory driverFactory = new DriverFactory(true, true, ordersTableScan, hashBuilder);
         Driver driver = driverFactory.createDriver(taskContext.addPipelineContext(true, true).addDriverContext());
@@ -47,6 +57,9 @@ public class HashBuildBenchmark
 
     public static void main(String[] args)
     {
-        new HashBuildBenchmark(createLocalQueryRunner()).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        LocalQueryRunner localQueryRunner = createLocalQueryRunner();
+        for (int hashBuildConcurrency : new int[] {1, 2, 4, 8}) {
+            new HashBuildBenchmark(localQueryRunner, hashBuildConcurrency).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        }
     }
 }
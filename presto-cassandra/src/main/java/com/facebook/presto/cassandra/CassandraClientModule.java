@@ -56,6 +56,7 @@ public class CassandraClientModule
         binder.bind(CassandraSplitManager.class).in(Scopes.SINGLETON);
         binder.bind(CassandraTokenSplitManager.class).in(Scopes.SINGLETON);
         binder.bind(CassandraRecordSetProvider.class).in(Scopes.SINGLETON);
+        binder.bind(CassandraPageSourceProvider.class).in(Scopes.SINGLETON);
         binder.bind(CassandraHandleResolver.class).in(Scopes.SINGLETON);
         binder.bind(CassandraConnectorRecordSinkProvider.class).in(Scopes.SINGLETON);
 
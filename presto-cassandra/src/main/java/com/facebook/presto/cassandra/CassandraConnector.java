@@ -17,6 +17,7 @@ import com.facebook.presto.spi.Connector;
 import com.facebook.presto.spi.ConnectorHandleResolver;
 import com.facebook.presto.spi.ConnectorIndexResolver;
 import com.facebook.presto.spi.ConnectorMetadata;
+import com.facebook.presto.spi.ConnectorPageSourceProvider;
 import com.facebook.presto.spi.ConnectorRecordSetProvider;
 import com.facebook.presto.spi.ConnectorRecordSinkProvider;
 import com.facebook.presto.spi.ConnectorSplitManager;
@@ -31,6 +32,7 @@ public class CassandraConnector
     private final CassandraMetadata metadata;
     private final CassandraSplitManager splitManager;
     private final ConnectorRecordSetProvider recordSetProvider;
+    private final CassandraPageSourceProvider pageSourceProvider;
     private final CassandraHandleResolver handleResolver;
     private final CassandraConnectorRecordSinkProvider recordSinkProvider;
 
@@ -39,12 +41,14 @@ public class CassandraConnector
             CassandraMetadata metadata,
             CassandraSplitManager splitManager,
             CassandraRecordSetProvider recordSetProvider,
+            CassandraPageSourceProvider pageSourceProvider,
             CassandraHandleResolver handleResolver,
             CassandraConnectorRecordSinkProvider recordSinkProvider)
     {
         this.metadata = checkNotNull(metadata, "metadata is null");
         this.splitManager = checkNotNull(splitManager, "splitManager is null");
         this.recordSetProvider = checkNotNull(recordSetProvider, "recordSetProvider is null");
+        this.pageSourceProvider = checkNotNull(pageSourceProvider, "pageSourceProvider is null");
         this.handleResolver = checkNotNull(handleResolver, "handleResolver is null");
         this.recordSinkProvider = checkNotNull(recordSinkProvider, "recordSinkProvider is null");
     }
@@ -67,6 +71,12 @@ public class CassandraConnector
         return recordSetProvider;
     }
 
+    @Override
+    public ConnectorPageSourceProvider getPageSourceProvider()
+    {
+        return pageSourceProvider;
+    }
+
     @Override
     public ConnectorHandleResolver getHandleResolver()
     {
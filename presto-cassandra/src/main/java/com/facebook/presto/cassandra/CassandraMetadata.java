@@ -15,18 +15,24 @@ package com.facebook.presto.cassandra;
 
 import com.facebook.presto.cassandra.util.CassandraCqlUtils;
 import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.ConnectorAggregate;
+import com.facebook.presto.spi.ConnectorAggregatedTable;
 import com.facebook.presto.spi.ConnectorColumnHandle;
 import com.facebook.presto.spi.ConnectorInsertTableHandle;
 import com.facebook.presto.spi.ConnectorMetadata;
 import com.facebook.presto.spi.ConnectorOutputTableHandle;
+import com.facebook.presto.spi.ConnectorPartition;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorTableHandle;
 import com.facebook.presto.spi.ConnectorTableMetadata;
+import com.facebook.presto.spi.ConnectorTablePartitioning;
+import com.facebook.presto.spi.ConnectorTableStatistics;
 import com.facebook.presto.spi.NotFoundException;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.SchemaNotFoundException;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.SchemaTablePrefix;
+import com.facebook.presto.spi.TupleDomain;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.base.Objects;
 import com.google.common.collect.ImmutableList;
@@ -204,6 +210,30 @@ public class CassandraMetadata
                 .toString();
     }
 
+    @Override
+    public ConnectorTablePartitioning getTablePartitioning(ConnectorTableHandle tableHandle)
+    {
+        return null;
+    }
+
+    @Override
+    public ConnectorTableStatistics getTableStatistics(ConnectorTableHandle tableHandle, List<ConnectorPartition> partitions)
+    {
+        return ConnectorTableStatistics.UNKNOWN;
+    }
+
+    @Override
+    public ConnectorAggregatedTable pushDownAggregation(ConnectorTableHandle tableHandle, TupleDomain<ConnectorColumnHandle> constraint, List<ConnectorColumnHandle> groupingColumns, List<ConnectorAggregate> aggregates)
+    {
+        return null;
+    }
+
+    @Override
+    public ConnectorTableHandle pushDownLimit(ConnectorTableHandle tableHandle, long limit)
+    {
+        return null;
+    }
+
     @Override
     public boolean canCreateSampledTables(ConnectorSession session)
     {
@@ -0,0 +1,199 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.cassandra;
+
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.airlift.slice.Slices.utf8Slice;
+import static java.lang.Math.min;
+
+/**
+ * Converts the rows of each result page directly into blocks.  The next result
+ * page is fetched in the background once less than a batch of fetched rows is
+ * left, so the scan does not wait for Cassandra at every page boundary.
+ */
+public class CassandraPageSource
+        implements ConnectorPageSource
+{
+    public static final int MAX_BATCH_SIZE = 1024;
+
+    private final List<Type> types;
+    private final FullCassandraType[] fullCassandraTypes;
+    private final CassandraType[] cassandraTypes;
+    private final ResultSet resultSet;
+
+    private long completedRows;
+    private long readTimeNanos;
+    private boolean closed;
+
+    public CassandraPageSource(
+            CassandraSession cassandraSession,
+            String schema,
+            List<FullCassandraType> fullCassandraTypes,
+            List<Type> types,
+            String cql)
+    {
+        checkNotNull(cassandraSession, "cassandraSession is null");
+        this.types = ImmutableList.copyOf(checkNotNull(types, "types is null"));
+        this.fullCassandraTypes = checkNotNull(fullCassandraTypes, "fullCassandraTypes is null").toArray(new FullCassandraType[fullCassandraTypes.size()]);
+        checkArgument(this.fullCassandraTypes.length == this.types.size(), "fullCassandraTypes and types must have the same size");
+
+        this.cassandraTypes = new CassandraType[this.fullCassandraTypes.length];
+        for (int channel = 0; channel < cassandraTypes.length; channel++) {
+            cassandraTypes[channel] = this.fullCassandraTypes[channel].getCassandraType();
+        }
+
+        long start = System.nanoTime();
+        resultSet = cassandraSession.executeQuery(checkNotNull(schema, "schema is null"), checkNotNull(cql, "cql is null"));
+        readTimeNanos = System.nanoTime() - start;
+    }
+
+    @Override
+    public List<Type> getTypes()
+    {
+        return types;
+    }
+
+    @Override
+    public long getTotalBytes()
+    {
+        // like the record cursor, progress is reported in rows, and only the fetched rows are known
+        return completedRows + resultSet.getAvailableWithoutFetching();
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return completedRows;
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return readTimeNanos;
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return closed;
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        if (closed) {
+            return null;
+        }
+
+        // only blocks when the prefetched page has not arrived yet
+        long start = System.nanoTime();
+        boolean exhausted = resultSet.isExhausted();
+        readTimeNanos += System.nanoTime() - start;
+        if (exhausted) {
+            close();
+            return null;
+        }
+
+        // Fetch the next result page in the background only once the rows left after this
+        // batch no longer fill another one.  Fetching on every call would start a new fetch
+        // as soon as the previous one completed, so the read-ahead would not be bounded.
+        int availableRows = resultSet.getAvailableWithoutFetching();
+        int batchSize = min(MAX_BATCH_SIZE, availableRows);
+        if (availableRows - batchSize < MAX_BATCH_SIZE && !resultSet.isFullyFetched()) {
+            resultSet.fetchMoreResults();
+        }
+        BlockBuilderStatus blockBuilderStatus = new BlockBuilderStatus();
+        BlockBuilder[] blockBuilders = new BlockBuilder[types.size()];
+        for (int channel = 0; channel < blockBuilders.length; channel++) {
+            blockBuilders[channel] = types.get(channel).createBlockBuilder(blockBuilderStatus);
+        }
+
+        int positionCount = 0;
+        while (positionCount < batchSize && !blockBuilderStatus.isFull()) {
+            Row row = resultSet.one();
+            for (int channel = 0; channel < blockBuilders.length; channel++) {
+                appendValue(row, channel, blockBuilders[channel]);
+            }
+            positionCount++;
+        }
+        completedRows += positionCount;
+
+        Block[] blocks = new Block[blockBuilders.length];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            blocks[channel] = blockBuilders[channel].build();
+        }
+        return new Page(positionCount, blocks);
+    }
+
+    private void appendValue(Row row, int channel, BlockBuilder output)
+    {
+        if (row.isNull(channel)) {
+            output.appendNull();
+            return;
+        }
+
+        Type type = types.get(channel);
+        switch (cassandraTypes[channel]) {
+            case ASCII:
+            case TEXT:
+            case VARCHAR:
+                type.writeSlice(output, utf8Slice(row.getString(channel)));
+                break;
+            case INT:
+                type.writeLong(output, row.getInt(channel));
+                break;
+            case BIGINT:
+            case COUNTER:
+                type.writeLong(output, row.getLong(channel));
+                break;
+            case TIMESTAMP:
+                type.writeLong(output, row.getDate(channel).getTime());
+                break;
+            case BOOLEAN:
+                type.writeBoolean(output, row.getBool(channel));
+                break;
+            case DOUBLE:
+                type.writeDouble(output, row.getDouble(channel));
+                break;
+            case FLOAT:
+                type.writeDouble(output, row.getFloat(channel));
+                break;
+            case DECIMAL:
+                type.writeDouble(output, row.getDecimal(channel).doubleValue());
+                break;
+            default:
+                // the remaining types are read as their string representation
+                type.writeSlice(output, utf8Slice(CassandraType.getColumnValue(row, channel, fullCassandraTypes[channel]).toString()));
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.cassandra;
+
+import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.ConnectorPageSourceProvider;
+import com.facebook.presto.spi.ConnectorSplit;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Inject;
+import io.airlift.log.Logger;
+
+import java.util.List;
+
+import static com.facebook.presto.cassandra.CassandraColumnHandle.cassandraFullTypeGetter;
+import static com.facebook.presto.cassandra.CassandraColumnHandle.nativeTypeGetter;
+import static com.facebook.presto.cassandra.CassandraRecordSetProvider.buildSelectCql;
+import static com.facebook.presto.cassandra.util.Types.checkType;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Iterables.transform;
+
+public class CassandraPageSourceProvider
+        implements ConnectorPageSourceProvider
+{
+    private static final Logger log = Logger.get(CassandraPageSourceProvider.class);
+
+    private final String connectorId;
+    private final CassandraSession cassandraSession;
+
+    @Inject
+    public CassandraPageSourceProvider(CassandraConnectorId connectorId, CassandraSession cassandraSession)
+    {
+        this.connectorId = checkNotNull(connectorId, "connectorId is null").toString();
+        this.cassandraSession = checkNotNull(cassandraSession, "cassandraSession is null");
+    }
+
+    @Override
+    public ConnectorPageSource createPageSource(ConnectorSplit split, List<ConnectorColumnHandle> columns)
+    {
+        CassandraSplit cassandraSplit = checkType(split, CassandraSplit.class, "split");
+
+        checkNotNull(columns, "columns is null");
+        List<CassandraColumnHandle> cassandraColumns = ImmutableList.copyOf(transform(columns, CassandraColumnHandle.cassandraColumnHandle()));
+
+        String cql = buildSelectCql(cassandraSplit, cassandraColumns);
+        log.debug("Creating page source: %s", cql);
+
+        return new CassandraPageSource(
+                cassandraSession,
+                cassandraSplit.getSchema(),
+                ImmutableList.copyOf(transform(cassandraColumns, cassandraFullTypeGetter())),
+                ImmutableList.copyOf(transform(cassandraColumns, nativeTypeGetter())),
+                cql);
+    }
+
+    @Override
+    public String toString()
+    {
+        return Objects.toStringHelper(this)
+                .add("connectorId", connectorId)
+                .toString();
+    }
+}
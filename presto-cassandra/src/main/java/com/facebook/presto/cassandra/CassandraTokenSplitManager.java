@@ -13,7 +13,9 @@
  */
 package com.facebook.presto.cassandra;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.inject.Inject;
 import org.apache.cassandra.dht.IPartitioner;
 import org.apache.cassandra.dht.Range;
@@ -26,6 +28,7 @@ import org.apache.cassandra.utils.FBUtilities;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
@@ -61,26 +64,39 @@ public class CassandraTokenSplitManager
     public List<TokenSplit> getSplits(String keyspace, String columnFamily)
             throws IOException
     {
-        List<TokenRange> masterRangeNodes = cassandraThriftClient.getRangeMap(keyspace);
+        List<TokenRange> masterRangeNodes = new ArrayList<>(cassandraThriftClient.getRangeMap(keyspace));
+        sortByStartToken(masterRangeNodes, partitioner);
 
         // canonical ranges, split into pieces, fetching the splits in parallel
-        List<TokenSplit> splits = new ArrayList<>();
-        List<Future<List<TokenSplit>>> splitFutures = new ArrayList<>();
+        List<Future<List<CfSplit>>> subSplitFutures = new ArrayList<>();
         for (TokenRange range : masterRangeNodes) {
             // for each range, pick a live owner and ask it to compute bite-sized splits
-            splitFutures.add(executor.submit(new SplitCallable<>(range, keyspace, columnFamily, splitSize, cassandraThriftClient, partitioner)));
+            subSplitFutures.add(executor.submit(new SubSplitCallable(range, keyspace, columnFamily, splitSize, cassandraThriftClient)));
         }
 
         // wait until we have all the results back
-        for (Future<List<TokenSplit>> futureInputSplits : splitFutures) {
+        List<List<CfSplit>> rangeSubSplits = new ArrayList<>();
+        for (Future<List<CfSplit>> futureSubSplits : subSplitFutures) {
             try {
-                splits.addAll(futureInputSplits.get());
+                rangeSubSplits.add(futureSubSplits.get());
             }
             catch (Exception e) {
                 throw new IOException("Could not get input splits", e);
             }
         }
 
+        // adjacent ranges on the same replicas, such as the many small ranges of virtual nodes,
+        // are merged like the sub-splits of a single range
+        List<TokenSplit> splits = new ArrayList<>();
+        for (List<Integer> group : groupAdjacentRanges(masterRangeNodes)) {
+            List<CfSplit> subSplits = new ArrayList<>();
+            for (int rangeIndex : group) {
+                subSplits.addAll(rangeSubSplits.get(rangeIndex));
+            }
+            List<String> endpoints = masterRangeNodes.get(group.get(0)).endpoints;
+            splits.addAll(toTokenSplits(mergeSubSplits(subSplits, splitSize), endpoints, partitioner));
+        }
+
         checkState(!splits.isEmpty(), "No splits created");
         //noinspection SharedThreadLocalRandom
         Collections.shuffle(splits, ThreadLocalRandom.current());
@@ -88,20 +104,19 @@ public class CassandraTokenSplitManager
     }
 
     /**
-     * Gets a token range and splits it up according to the suggested
-     * size into input splits that Hadoop can use.
+     * Gets a token range and asks a live owner to split it up according to the
+     * suggested size.
      */
-    private class SplitCallable<T extends Token<?>>
-            implements Callable<List<TokenSplit>>
+    private static class SubSplitCallable
+            implements Callable<List<CfSplit>>
     {
         private final TokenRange range;
         private final String keyspace;
         private final String columnFamily;
         private final int splitSize;
         private final CassandraThriftClient client;
-        private final IPartitioner<T> partitioner;
 
-        public SplitCallable(TokenRange range, String keyspace, String columnFamily, int splitSize, CassandraThriftClient client, IPartitioner<T> partitioner)
+        public SubSplitCallable(TokenRange range, String keyspace, String columnFamily, int splitSize, CassandraThriftClient client)
         {
             checkArgument(range.rpc_endpoints.size() == range.endpoints.size(), "rpc_endpoints size must match endpoints size");
             this.range = range;
@@ -109,32 +124,99 @@ public class CassandraTokenSplitManager
             this.columnFamily = columnFamily;
             this.splitSize = splitSize;
             this.client = client;
-            this.partitioner = partitioner;
         }
 
         @Override
-        public List<TokenSplit> call()
+        public List<CfSplit> call()
                 throws Exception
         {
-            ArrayList<TokenSplit> splits = new ArrayList<>();
-            List<CfSplit> subSplits = client.getSubSplits(keyspace, columnFamily, range, splitSize);
-
-            // turn the sub-ranges into InputSplits
-            List<String> endpoints = range.endpoints;
-            TokenFactory<T> factory = partitioner.getTokenFactory();
-            for (CfSplit subSplit : subSplits) {
-                Token<T> left = factory.fromString(subSplit.getStart_token());
-                Token<T> right = factory.fromString(subSplit.getEnd_token());
-                Range<Token<T>> range = new Range<>(left, right, partitioner);
-                List<Range<Token<T>>> ranges = range.isWrapAround() ? range.unwrap() : ImmutableList.of(range);
-                for (Range<Token<T>> subRange : ranges) {
-                    TokenSplit split = new TokenSplit(factory.toString(subRange.left), factory.toString(subRange.right), endpoints);
-
-                    splits.add(split);
+            return client.getSubSplits(keyspace, columnFamily, range, splitSize);
+        }
+    }
+
+    /**
+     * Turns the sub-ranges into splits, unwrapping the range that wraps around the ring.
+     */
+    private static <T extends Token<?>> List<TokenSplit> toTokenSplits(List<CfSplit> subSplits, List<String> endpoints, IPartitioner<T> partitioner)
+    {
+        List<TokenSplit> splits = new ArrayList<>();
+        TokenFactory<T> factory = partitioner.getTokenFactory();
+        for (CfSplit subSplit : subSplits) {
+            Token<T> left = factory.fromString(subSplit.getStart_token());
+            Token<T> right = factory.fromString(subSplit.getEnd_token());
+            Range<Token<T>> range = new Range<>(left, right, partitioner);
+            List<Range<Token<T>>> ranges = range.isWrapAround() ? range.unwrap() : ImmutableList.of(range);
+            for (Range<Token<T>> subRange : ranges) {
+                splits.add(new TokenSplit(factory.toString(subRange.left), factory.toString(subRange.right), endpoints));
+            }
+        }
+        return splits;
+    }
+
+    private static <T extends Token<?>> void sortByStartToken(List<TokenRange> ranges, IPartitioner<T> partitioner)
+    {
+        final TokenFactory<T> factory = partitioner.getTokenFactory();
+        Collections.sort(ranges, new Comparator<TokenRange>()
+        {
+            @Override
+            public int compare(TokenRange left, TokenRange right)
+            {
+                return factory.fromString(left.start_token).compareTo(factory.fromString(right.start_token));
+            }
+        });
+    }
+
+    /**
+     * Groups the indexes of ranges, ordered by their position on the ring, such that
+     * each group is a contiguous part of the ring stored on the same replicas.
+     */
+    @VisibleForTesting
+    static List<List<Integer>> groupAdjacentRanges(List<TokenRange> ranges)
+    {
+        List<List<Integer>> groups = new ArrayList<>();
+        List<Integer> group = new ArrayList<>();
+        for (int i = 0; i < ranges.size(); i++) {
+            if (!group.isEmpty()) {
+                TokenRange previous = ranges.get(i - 1);
+                TokenRange range = ranges.get(i);
+                if (!previous.end_token.equals(range.start_token) || !ImmutableSet.copyOf(previous.endpoints).equals(ImmutableSet.copyOf(range.endpoints))) {
+                    groups.add(group);
+                    group = new ArrayList<>();
+                }
+            }
+            group.add(i);
+        }
+        if (!group.isEmpty()) {
+            groups.add(group);
+        }
+        return groups;
+    }
+
+    /**
+     * Merges adjacent sub-splits whose estimated row counts add up to at most the
+     * split size.  Sparse parts of the ring, such as the many small ranges owned by
+     * virtual nodes, would otherwise each become a split holding few or no rows.
+     */
+    @VisibleForTesting
+    static List<CfSplit> mergeSubSplits(List<CfSplit> subSplits, int splitSize)
+    {
+        List<CfSplit> merged = new ArrayList<>();
+        CfSplit current = null;
+        for (CfSplit subSplit : subSplits) {
+            if (current != null && current.getRow_count() + subSplit.getRow_count() <= splitSize) {
+                current = new CfSplit(current.getStart_token(), subSplit.getEnd_token(), current.getRow_count() + subSplit.getRow_count());
+            }
+            else {
+                if (current != null) {
+                    merged.add(current);
                 }
+                current = subSplit;
             }
-            return splits;
         }
+        if (current != null) {
+            merged.add(current);
+        }
+        return merged;
     }
 
     public static class TokenSplit
@@ -18,6 +18,8 @@ import com.facebook.presto.spi.Connector;
 import com.facebook.presto.spi.ConnectorColumnHandle;
 import com.facebook.presto.spi.ConnectorHandleResolver;
 import com.facebook.presto.spi.ConnectorMetadata;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.ConnectorPageSourceProvider;
 import com.facebook.presto.spi.ConnectorPartitionResult;
 import com.facebook.presto.spi.ConnectorRecordSetProvider;
 import com.facebook.presto.spi.ConnectorSession;
@@ -26,6 +28,7 @@ import com.facebook.presto.spi.ConnectorSplitManager;
 import com.facebook.presto.spi.ConnectorSplitSource;
 import com.facebook.presto.spi.ConnectorTableHandle;
 import com.facebook.presto.spi.ConnectorTableMetadata;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.RecordCursor;
 import com.facebook.presto.spi.SchemaNotFoundException;
 import com.facebook.presto.spi.SchemaTableName;
@@ -86,6 +89,7 @@ public class TestCassandraConnector
     private ConnectorMetadata metadata;
     private ConnectorSplitManager splitManager;
     private ConnectorRecordSetProvider recordSetProvider;
+    private ConnectorPageSourceProvider pageSourceProvider;
 
     protected String database;
     protected SchemaTableName table;
@@ -120,6 +124,9 @@ public class TestCassandraConnector
         recordSetProvider = connector.getRecordSetProvider();
         assertInstanceOf(recordSetProvider, CassandraRecordSetProvider.class);
 
+        pageSourceProvider = connector.getPageSourceProvider();
+        assertInstanceOf(pageSourceProvider, CassandraPageSourceProvider.class);
+
         ConnectorHandleResolver handleResolver = connector.getHandleResolver();
         assertInstanceOf(handleResolver, CassandraHandleResolver.class);
 
@@ -230,6 +237,42 @@ public class TestCassandraConnector
         assertEquals(rowNumber, 9);
     }
 
+    @Test
+    public void testGetPages()
+            throws Exception
+    {
+        ConnectorTableHandle tableHandle = getTableHandle(table);
+        List<ConnectorColumnHandle> columnHandles = ImmutableList.copyOf(metadata.getColumnHandles(tableHandle).values());
+        Map<String, Integer> columnIndex = indexColumns(columnHandles);
+
+        ConnectorPartitionResult partitionResult = splitManager.getPartitions(tableHandle, TupleDomain.<ConnectorColumnHandle>all());
+        List<ConnectorSplit> splits = getAllSplits(splitManager.getPartitionSplits(tableHandle, partitionResult.getPartitions()));
+
+        long rowNumber = 0;
+        for (ConnectorSplit split : splits) {
+            try (ConnectorPageSource pageSource = pageSourceProvider.createPageSource(split, columnHandles)) {
+                while (!pageSource.isFinished()) {
+                    Page page = pageSource.getNextPage();
+                    if (page == null) {
+                        continue;
+                    }
+                    for (int position = 0; position < page.getPositionCount(); position++) {
+                        rowNumber++;
+
+                        String keyValue = VARCHAR.getSlice(page.getBlock(columnIndex.get("key")), position).toStringUtf8();
+                        assertTrue(keyValue.startsWith("key "));
+                        int rowId = Integer.parseInt(keyValue.substring(4));
+
+                        assertEquals(VARCHAR.getSlice(page.getBlock(columnIndex.get("t_utf8")), position).toStringUtf8(), "utf8 " + rowId);
+                        assertEquals(VARCHAR.getSlice(page.getBlock(columnIndex.get("t_bytes")), position).toStringUtf8(), String.format("0x%08X", rowId));
+                        assertEquals(BIGINT.getLong(page.getBlock(columnIndex.get("t_long")), position), 1000 + rowId);
+                    }
+                }
+            }
+        }
+        assertEquals(rowNumber, 9);
+    }
+
     private String toUtf8String(byte[] keys)
     {
         return new String(keys, Charsets.UTF_8);
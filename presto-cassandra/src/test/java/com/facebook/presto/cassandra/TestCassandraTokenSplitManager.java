@@ -0,0 +1,73 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.cassandra;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.cassandra.thrift.CfSplit;
+import org.apache.cassandra.thrift.TokenRange;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static com.facebook.presto.cassandra.CassandraTokenSplitManager.groupAdjacentRanges;
+import static com.facebook.presto.cassandra.CassandraTokenSplitManager.mergeSubSplits;
+import static org.testng.Assert.assertEquals;
+
+public class TestCassandraTokenSplitManager
+{
+    @Test
+    public void testMergeSubSplits()
+    {
+        List<CfSplit> subSplits = ImmutableList.of(
+                new CfSplit("0", "10", 10),
+                new CfSplit("10", "20", 0),
+                new CfSplit("20", "30", 80),
+                new CfSplit("30", "40", 100),
+                new CfSplit("40", "50", 30),
+                new CfSplit("50", "60", 30));
+
+        assertEquals(mergeSubSplits(subSplits, 100), ImmutableList.of(
+                new CfSplit("0", "30", 90),
+                new CfSplit("30", "40", 100),
+                new CfSplit("40", "60", 60)));
+
+        // sub-splits at the split size are never merged
+        assertEquals(mergeSubSplits(subSplits, 10), subSplits);
+
+        assertEquals(mergeSubSplits(ImmutableList.<CfSplit>of(), 100), ImmutableList.of());
+    }
+
+    @Test
+    public void testGroupAdjacentRanges()
+    {
+        List<String> replicasA = ImmutableList.of("a", "b");
+        List<String> replicasB = ImmutableList.of("b", "c");
+        List<TokenRange> ranges = ImmutableList.of(
+                new TokenRange("0", "10", replicasA),
+                new TokenRange("10", "20", ImmutableList.of("b", "a")),
+                new TokenRange("20", "30", replicasB),
+                new TokenRange("30", "40", replicasA),
+                new TokenRange("50", "60", replicasA),
+                new TokenRange("60", "0", replicasA));
+
+        // ranges are grouped only when they touch and share the same replicas, in any order
+        assertEquals(groupAdjacentRanges(ranges), ImmutableList.of(
+                ImmutableList.of(0, 1),
+                ImmutableList.of(2),
+                ImmutableList.of(3),
+                ImmutableList.of(4, 5)));
+
+        assertEquals(groupAdjacentRanges(ImmutableList.<TokenRange>of()), ImmutableList.of());
+    }
+}
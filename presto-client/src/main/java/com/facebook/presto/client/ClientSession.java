@@ -30,6 +30,7 @@ public class ClientSession
     private final String timeZoneId;
     private final Locale locale;
     private final boolean debug;
+    private final boolean columnarResults;
 
     public static ClientSession withCatalog(ClientSession session, String catalog)
     {
@@ -41,7 +42,8 @@ public class ClientSession
                 session.getSchema(),
                 session.getTimeZoneId(),
                 session.getLocale(),
-                session.isDebug());
+                session.isDebug(),
+                session.isColumnarResults());
     }
 
     public static ClientSession withSchema(ClientSession session, String schema)
@@ -54,10 +56,16 @@ public class ClientSession
                 schema,
                 session.getTimeZoneId(),
                 session.getLocale(),
-                session.isDebug());
+                session.isDebug(),
+                session.isColumnarResults());
     }
 
     public ClientSession(URI server, String user, String source, String catalog, String schema, String timeZoneId, Locale locale, boolean debug)
+    {
+        this(server, user, source, catalog, schema, timeZoneId, locale, debug, false);
+    }
+
+    public ClientSession(URI server, String user, String source, String catalog, String schema, String timeZoneId, Locale locale, boolean debug, boolean columnarResults)
     {
         this.server = checkNotNull(server, "server is null");
         this.user = user;
@@ -67,6 +75,7 @@ public class ClientSession
         this.locale = locale;
         this.timeZoneId = checkNotNull(timeZoneId, "timeZoneId is null");
         this.debug = debug;
+        this.columnarResults = columnarResults;
     }
 
     public URI getServer()
@@ -109,6 +118,14 @@ public class ClientSession
         return debug;
     }
 
+    /**
+     * Whether the server should send the rows in the binary {@link ColumnarPage} form.
+     */
+    public boolean isColumnarResults()
+    {
+        return columnarResults;
+    }
+
     @Override
     public String toString()
     {
@@ -120,6 +137,7 @@ public class ClientSession
                 .add("timeZone", timeZoneId)
                 .add("locale", locale)
                 .add("debug", debug)
+                .add("columnarResults", columnarResults)
                 .toString();
     }
 }
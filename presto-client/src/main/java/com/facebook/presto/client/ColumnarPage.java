@@ -0,0 +1,485 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.client;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A batch of result rows stored column by column.  Fixed width columns are kept in
+ * primitive arrays so clients can read them without boxing every value.
+ * <p>
+ * The binary form, which the server sends when the client asks for the
+ * {@link #FORMAT_NAME} result format, is: the row count and the column count as
+ * ints, followed by each column as one null flag byte per row and then the values
+ * of the non-null rows.  A bigint or double value is eight bytes, a boolean is one
+ * byte, and varbinary or textual values are an int length followed by the raw or
+ * UTF-8 encoded bytes.
+ */
+public final class ColumnarPage
+{
+    public static final String FORMAT_NAME = "columnar";
+
+    private final int rowCount;
+    private final List<Column> columns;
+    private final boolean[][] nulls;
+    private final Object[] values;
+
+    private ColumnarPage(int rowCount, List<Column> columns, boolean[][] nulls, Object[] values)
+    {
+        this.rowCount = rowCount;
+        this.columns = ImmutableList.copyOf(columns);
+        this.nulls = nulls;
+        this.values = values;
+    }
+
+    /**
+     * Returns true if all of the columns can be sent in the binary form.
+     */
+    public static boolean isSupported(List<Column> columns)
+    {
+        for (Column column : columns) {
+            if (getValueKind(column.getType()) == ValueKind.OTHER) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static ColumnarPage fromRows(List<Column> columns, Iterable<List<Object>> rows)
+    {
+        checkNotNull(columns, "columns is null");
+        checkNotNull(rows, "rows is null");
+
+        Builder builder = new Builder(columns);
+        for (List<Object> row : rows) {
+            checkArgument(row.size() == columns.size(), "row/column size mismatch");
+            for (int column = 0; column < columns.size(); column++) {
+                Object value = row.get(column);
+                if (value == null) {
+                    builder.appendNull(column);
+                    continue;
+                }
+                switch (builder.kinds[column]) {
+                    case LONG:
+                        builder.appendLong(column, ((Number) value).longValue());
+                        break;
+                    case DOUBLE:
+                        builder.appendDouble(column, ((Number) value).doubleValue());
+                        break;
+                    case BOOLEAN:
+                        builder.appendBoolean(column, (Boolean) value);
+                        break;
+                    default:
+                        builder.appendObject(column, value);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    public static ColumnarPage deserialize(List<Column> columns, byte[] data)
+    {
+        checkNotNull(columns, "columns is null");
+        checkNotNull(data, "data is null");
+
+        try {
+            return readPage(columns, data);
+        }
+        catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("truncated data", e);
+        }
+    }
+
+    private static ColumnarPage readPage(List<Column> columns, byte[] data)
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        int rowCount = buffer.getInt();
+        int columnCount = buffer.getInt();
+        checkArgument(rowCount >= 0, "invalid row count: %s", rowCount);
+        checkArgument(columnCount == columns.size(), "expected %s columns, but got %s", columns.size(), columnCount);
+
+        boolean[][] nulls = new boolean[columnCount][];
+        Object[] values = new Object[columnCount];
+        for (int column = 0; column < columnCount; column++) {
+            boolean[] isNull = new boolean[rowCount];
+            for (int row = 0; row < rowCount; row++) {
+                isNull[row] = buffer.get() != 0;
+            }
+            nulls[column] = isNull;
+
+            ValueKind kind = getValueKind(columns.get(column).getType());
+            switch (kind) {
+                case LONG: {
+                    long[] longs = new long[rowCount];
+                    for (int row = 0; row < rowCount; row++) {
+                        if (!isNull[row]) {
+                            longs[row] = buffer.getLong();
+                        }
+                    }
+                    values[column] = longs;
+                    break;
+                }
+                case DOUBLE: {
+                    double[] doubles = new double[rowCount];
+                    for (int row = 0; row < rowCount; row++) {
+                        if (!isNull[row]) {
+                            doubles[row] = buffer.getDouble();
+                        }
+                    }
+                    values[column] = doubles;
+                    break;
+                }
+                case BOOLEAN: {
+                    boolean[] booleans = new boolean[rowCount];
+                    for (int row = 0; row < rowCount; row++) {
+                        if (!isNull[row]) {
+                            booleans[row] = buffer.get() != 0;
+                        }
+                    }
+                    values[column] = booleans;
+                    break;
+                }
+                case BINARY:
+                case STRING: {
+                    Object[] objects = new Object[rowCount];
+                    for (int row = 0; row < rowCount; row++) {
+                        if (!isNull[row]) {
+                            int length = buffer.getInt();
+                            checkArgument(length >= 0 && length <= buffer.remaining(), "truncated data");
+                            if (kind == ValueKind.STRING) {
+                                objects[row] = new String(data, buffer.position(), length, Charsets.UTF_8);
+                            }
+                            else {
+                                objects[row] = Arrays.copyOfRange(data, buffer.position(), buffer.position() + length);
+                            }
+                            buffer.position(buffer.position() + length);
+                        }
+                    }
+                    values[column] = objects;
+                    break;
+                }
+                default:
+                    throw new IllegalArgumentException("Unsupported column type: " + columns.get(column).getType());
+            }
+        }
+        checkArgument(!buffer.hasRemaining(), "unexpected trailing data");
+        return new ColumnarPage(rowCount, columns, nulls, values);
+    }
+
+    public byte[] serialize()
+    {
+        checkState(isSupported(columns), "columns can not be serialized: %s", columns);
+
+        // encode the variable width values up front so the buffer can be sized exactly
+        int size = 8;
+        byte[][][] encoded = new byte[columns.size()][][];
+        for (int column = 0; column < columns.size(); column++) {
+            size += rowCount;
+            int nonNullCount = 0;
+            for (int row = 0; row < rowCount; row++) {
+                if (!nulls[column][row]) {
+                    nonNullCount++;
+                }
+            }
+            switch (getValueKind(columns.get(column).getType())) {
+                case LONG:
+                case DOUBLE:
+                    size += nonNullCount * 8;
+                    break;
+                case BOOLEAN:
+                    size += nonNullCount;
+                    break;
+                case BINARY:
+                case STRING:
+                    encoded[column] = new byte[rowCount][];
+                    for (int row = 0; row < rowCount; row++) {
+                        if (!nulls[column][row]) {
+                            byte[] bytes = getBytes(column, row);
+                            encoded[column][row] = bytes;
+                            size += 4 + bytes.length;
+                        }
+                    }
+                    break;
+                default:
+                    throw new AssertionError("unsupported column type");
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(rowCount);
+        buffer.putInt(columns.size());
+        for (int column = 0; column < columns.size(); column++) {
+            boolean[] isNull = nulls[column];
+            for (int row = 0; row < rowCount; row++) {
+                buffer.put((byte) (isNull[row] ? 1 : 0));
+            }
+            Object columnValues = values[column];
+            for (int row = 0; row < rowCount; row++) {
+                if (isNull[row]) {
+                    continue;
+                }
+                if (columnValues instanceof long[]) {
+                    buffer.putLong(((long[]) columnValues)[row]);
+                }
+                else if (columnValues instanceof double[]) {
+                    buffer.putDouble(((double[]) columnValues)[row]);
+                }
+                else if (columnValues instanceof boolean[]) {
+                    buffer.put((byte) (((boolean[]) columnValues)[row] ? 1 : 0));
+                }
+                else {
+                    byte[] bytes = encoded[column][row];
+                    buffer.putInt(bytes.length);
+                    buffer.put(bytes);
+                }
+            }
+        }
+        return buffer.array();
+    }
+
+    public int getRowCount()
+    {
+        return rowCount;
+    }
+
+    public List<Column> getColumns()
+    {
+        return columns;
+    }
+
+    public boolean isNull(int column, int row)
+    {
+        checkElementIndex(row, rowCount, "row");
+        return nulls[column][row];
+    }
+
+    public long getLong(int column, int row)
+    {
+        Object columnValues = values[column];
+        if (columnValues instanceof long[]) {
+            return ((long[]) columnValues)[row];
+        }
+        if (columnValues instanceof double[]) {
+            return (long) ((double[]) columnValues)[row];
+        }
+        return ((Number) getObject(column, row)).longValue();
+    }
+
+    public double getDouble(int column, int row)
+    {
+        Object columnValues = values[column];
+        if (columnValues instanceof double[]) {
+            return ((double[]) columnValues)[row];
+        }
+        if (columnValues instanceof long[]) {
+            return ((long[]) columnValues)[row];
+        }
+        return ((Number) getObject(column, row)).doubleValue();
+    }
+
+    public boolean getBoolean(int column, int row)
+    {
+        Object columnValues = values[column];
+        if (columnValues instanceof boolean[]) {
+            return ((boolean[]) columnValues)[row];
+        }
+        return (Boolean) getObject(column, row);
+    }
+
+    /**
+     * Returns the value as the same object type used for the JSON rows of {@link QueryResults}.
+     */
+    public Object getObject(int column, int row)
+    {
+        if (isNull(column, row)) {
+            return null;
+        }
+        Object columnValues = values[column];
+        if (columnValues instanceof long[]) {
+            return ((long[]) columnValues)[row];
+        }
+        if (columnValues instanceof double[]) {
+            return ((double[]) columnValues)[row];
+        }
+        if (columnValues instanceof boolean[]) {
+            return ((boolean[]) columnValues)[row];
+        }
+        return ((Object[]) columnValues)[row];
+    }
+
+    private byte[] getBytes(int column, int row)
+    {
+        Object value = ((Object[]) values[column])[row];
+        if (value instanceof byte[]) {
+            return (byte[]) value;
+        }
+        return value.toString().getBytes(Charsets.UTF_8);
+    }
+
+    private static ValueKind getValueKind(String type)
+    {
+        switch (type) {
+            case "bigint":
+                return ValueKind.LONG;
+            case "double":
+                return ValueKind.DOUBLE;
+            case "boolean":
+                return ValueKind.BOOLEAN;
+            case "varbinary":
+                return ValueKind.BINARY;
+            case "varchar":
+            case "time":
+            case "time with time zone":
+            case "timestamp":
+            case "timestamp with time zone":
+            case "date":
+            case "interval year to month":
+            case "interval day to second":
+                return ValueKind.STRING;
+            default:
+                return ValueKind.OTHER;
+        }
+    }
+
+    private enum ValueKind
+    {
+        LONG, DOUBLE, BOOLEAN, BINARY, STRING, OTHER
+    }
+
+    public static class Builder
+    {
+        private final List<Column> columns;
+        private final ValueKind[] kinds;
+        private final boolean[][] nulls;
+        private final Object[] values;
+        private final int[] positions;
+
+        public Builder(List<Column> columns)
+        {
+            this.columns = ImmutableList.copyOf(checkNotNull(columns, "columns is null"));
+            int columnCount = this.columns.size();
+            kinds = new ValueKind[columnCount];
+            nulls = new boolean[columnCount][];
+            values = new Object[columnCount];
+            positions = new int[columnCount];
+            for (int column = 0; column < columnCount; column++) {
+                kinds[column] = getValueKind(this.columns.get(column).getType());
+                nulls[column] = new boolean[16];
+                switch (kinds[column]) {
+                    case LONG:
+                        values[column] = new long[16];
+                        break;
+                    case DOUBLE:
+                        values[column] = new double[16];
+                        break;
+                    case BOOLEAN:
+                        values[column] = new boolean[16];
+                        break;
+                    default:
+                        values[column] = new Object[16];
+                }
+            }
+        }
+
+        public Builder appendNull(int column)
+        {
+            int position = nextPosition(column);
+            nulls[column][position] = true;
+            return this;
+        }
+
+        public Builder appendLong(int column, long value)
+        {
+            int position = nextPosition(column);
+            ((long[]) values[column])[position] = value;
+            return this;
+        }
+
+        public Builder appendDouble(int column, double value)
+        {
+            int position = nextPosition(column);
+            ((double[]) values[column])[position] = value;
+            return this;
+        }
+
+        public Builder appendBoolean(int column, boolean value)
+        {
+            int position = nextPosition(column);
+            ((boolean[]) values[column])[position] = value;
+            return this;
+        }
+
+        /**
+         * Appends a value of a column that is not a bigint, double or boolean.  Varbinary
+         * values are byte arrays and the other supported types are strings.
+         */
+        public Builder appendObject(int column, Object value)
+        {
+            checkNotNull(value, "value is null");
+            int position = nextPosition(column);
+            ((Object[]) values[column])[position] = value;
+            return this;
+        }
+
+        public ColumnarPage build()
+        {
+            int rowCount = positions.length == 0 ? 0 : positions[0];
+            boolean[][] pageNulls = new boolean[positions.length][];
+            Object[] pageValues = new Object[positions.length];
+            for (int column = 0; column < positions.length; column++) {
+                checkState(positions[column] == rowCount, "expected %s values in column %s, but got %s", rowCount, column, positions[column]);
+                pageNulls[column] = Arrays.copyOf(nulls[column], rowCount);
+                pageValues[column] = resize(values[column], rowCount);
+            }
+            return new ColumnarPage(rowCount, columns, pageNulls, pageValues);
+        }
+
+        private int nextPosition(int column)
+        {
+            int position = positions[column];
+            if (position == nulls[column].length) {
+                int newSize = position * 2;
+                nulls[column] = Arrays.copyOf(nulls[column], newSize);
+                values[column] = resize(values[column], newSize);
+            }
+            positions[column]++;
+            return position;
+        }
+
+        private static Object resize(Object array, int size)
+        {
+            if (array instanceof long[]) {
+                return Arrays.copyOf((long[]) array, size);
+            }
+            if (array instanceof double[]) {
+                return Arrays.copyOf((double[]) array, size);
+            }
+            if (array instanceof boolean[]) {
+                return Arrays.copyOf((boolean[]) array, size);
+            }
+            return Arrays.copyOf((Object[]) array, size);
+        }
+    }
+}
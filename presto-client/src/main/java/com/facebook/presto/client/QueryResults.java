@@ -41,6 +41,7 @@ public class QueryResults
     private final URI nextUri;
     private final List<Column> columns;
     private final Iterable<List<Object>> data;
+    private final byte[] columnarData;
     private final StatementStats stats;
     private final QueryError error;
 
@@ -52,10 +53,11 @@ public class QueryResults
             @JsonProperty("nextUri") URI nextUri,
             @JsonProperty("columns") List<Column> columns,
             @JsonProperty("data") List<List<Object>> data,
+            @JsonProperty("columnarData") byte[] columnarData,
             @JsonProperty("stats") StatementStats stats,
             @JsonProperty("error") QueryError error)
     {
-        this(id, infoUri, partialCancelUri, nextUri, columns, fixData(columns, data), stats, error);
+        this(id, infoUri, partialCancelUri, nextUri, columns, fixData(columns, data), columnarData, stats, error);
     }
 
     public QueryResults(
@@ -68,12 +70,28 @@ public class QueryResults
             StatementStats stats,
             QueryError error)
     {
+        this(id, infoUri, partialCancelUri, nextUri, columns, data, null, stats, error);
+    }
+
+    public QueryResults(
+            String id,
+            URI infoUri,
+            URI partialCancelUri,
+            URI nextUri,
+            List<Column> columns,
+            Iterable<List<Object>> data,
+            byte[] columnarData,
+            StatementStats stats,
+            QueryError error)
+    {
+        checkArgument(data == null || columnarData == null, "data and columnarData are both set");
         this.id = checkNotNull(id, "id is null");
         this.infoUri = checkNotNull(infoUri, "infoUri is null");
         this.partialCancelUri = partialCancelUri;
         this.nextUri = nextUri;
         this.columns = (columns != null) ? ImmutableList.copyOf(columns) : null;
         this.data = (data != null) ? unmodifiableIterable(data) : null;
+        this.columnarData = columnarData;
         this.stats = checkNotNull(stats, "stats is null");
         this.error = error;
     }
@@ -120,6 +138,31 @@ public class QueryResults
         return data;
     }
 
+    /**
+     * The rows in the {@link ColumnarPage} binary form, sent instead of {@link #getData}
+     * when the client requested the columnar result format.
+     */
+    @Nullable
+    @JsonProperty
+    public byte[] getColumnarData()
+    {
+        return columnarData;
+    }
+
+    /**
+     * Returns the rows of these results as a columnar page, or null if there are no rows.
+     */
+    public ColumnarPage toColumnarPage()
+    {
+        if (columnarData != null) {
+            return ColumnarPage.deserialize(columns, columnarData);
+        }
+        if (data != null) {
+            return ColumnarPage.fromRows(columns, data);
+        }
+        return null;
+    }
+
     @NotNull
     @JsonProperty
     public StatementStats getStats()
@@ -143,7 +186,7 @@ public class QueryResults
                 .add("partialCancelUri", partialCancelUri)
                 .add("nextUri", nextUri)
                 .add("columns", columns)
-                .add("hasData", data != null)
+                .add("hasData", data != null || columnarData != null)
                 .add("stats", stats)
                 .add("error", error)
                 .toString();
@@ -102,6 +102,9 @@ public class StatementClient
         }
         builder.setHeader(PrestoHeaders.PRESTO_TIME_ZONE, session.getTimeZoneId());
         builder.setHeader(PrestoHeaders.PRESTO_LANGUAGE, session.getLocale().toLanguageTag());
+        if (session.isColumnarResults()) {
+            builder.setHeader(PrestoHeaders.PRESTO_RESULT_FORMAT, ColumnarPage.FORMAT_NAME);
+        }
         builder.setHeader(USER_AGENT, USER_AGENT_VALUE);
 
         return builder.build();
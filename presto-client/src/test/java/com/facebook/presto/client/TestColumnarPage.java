@@ -0,0 +1,209 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.client;
+
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class TestColumnarPage
+{
+    private static final List<Column> COLUMNS = ImmutableList.of(
+            new Column("a", "bigint"),
+            new Column("b", "double"),
+            new Column("c", "boolean"),
+            new Column("d", "varbinary"),
+            new Column("e", "varchar"),
+            new Column("f", "timestamp"));
+
+    @Test
+    public void testRoundTrip()
+    {
+        ColumnarPage page = new ColumnarPage.Builder(COLUMNS)
+                .appendLong(0, 123).appendDouble(1, 0.5).appendBoolean(2, true).appendObject(3, new byte[] {1, 2, 3}).appendObject(4, "hello").appendObject(5, "2001-08-22 03:04:05.321")
+                .appendNull(0).appendNull(1).appendNull(2).appendNull(3).appendNull(4).appendNull(5)
+                .appendLong(0, Long.MIN_VALUE).appendDouble(1, Double.NaN).appendBoolean(2, false).appendObject(3, new byte[0]).appendObject(4, "über").appendObject(5, "1970-01-01 00:00:00.000")
+                .build();
+
+        ColumnarPage copy = ColumnarPage.deserialize(COLUMNS, page.serialize());
+        assertEquals(copy.getColumns(), COLUMNS);
+        assertEquals(copy.getRowCount(), 3);
+
+        assertFalse(copy.isNull(0, 0));
+        assertEquals(copy.getLong(0, 0), 123);
+        assertEquals(copy.getDouble(1, 0), 0.5);
+        assertEquals(copy.getBoolean(2, 0), true);
+        assertEquals((byte[]) copy.getObject(3, 0), new byte[] {1, 2, 3});
+        assertEquals(copy.getObject(4, 0), "hello");
+        assertEquals(copy.getObject(5, 0), "2001-08-22 03:04:05.321");
+
+        for (int column = 0; column < COLUMNS.size(); column++) {
+            assertTrue(copy.isNull(column, 1));
+            assertNull(copy.getObject(column, 1));
+        }
+
+        assertEquals(copy.getLong(0, 2), Long.MIN_VALUE);
+        assertTrue(Double.isNaN(copy.getDouble(1, 2)));
+        assertEquals(copy.getBoolean(2, 2), false);
+        assertEquals((byte[]) copy.getObject(3, 2), new byte[0]);
+        assertEquals(copy.getObject(4, 2), "über");
+        assertEquals(copy.getObject(5, 2), "1970-01-01 00:00:00.000");
+
+        // the primitive values are boxed to the same types as the JSON rows
+        assertEquals(copy.getObject(0, 0), 123L);
+        assertEquals(copy.getObject(1, 0), 0.5);
+        assertEquals(copy.getObject(2, 0), true);
+    }
+
+    @Test
+    public void testManyRows()
+    {
+        List<Column> columns = ImmutableList.of(new Column("a", "bigint"));
+        ColumnarPage.Builder builder = new ColumnarPage.Builder(columns);
+        for (int row = 0; row < 1000; row++) {
+            if (row % 3 == 0) {
+                builder.appendNull(0);
+            }
+            else {
+                builder.appendLong(0, row);
+            }
+        }
+
+        ColumnarPage page = ColumnarPage.deserialize(columns, builder.build().serialize());
+        assertEquals(page.getRowCount(), 1000);
+        for (int row = 0; row < 1000; row++) {
+            assertEquals(page.isNull(0, row), row % 3 == 0);
+            if (row % 3 != 0) {
+                assertEquals(page.getLong(0, row), row);
+            }
+        }
+    }
+
+    @Test
+    public void testEmptyPage()
+    {
+        ColumnarPage page = ColumnarPage.deserialize(COLUMNS, new ColumnarPage.Builder(COLUMNS).build().serialize());
+        assertEquals(page.getRowCount(), 0);
+        assertEquals(page.getColumns(), COLUMNS);
+
+        List<Column> noColumns = ImmutableList.of();
+        page = ColumnarPage.deserialize(noColumns, new ColumnarPage.Builder(noColumns).build().serialize());
+        assertEquals(page.getRowCount(), 0);
+        assertEquals(page.getColumns(), noColumns);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class, expectedExceptionsMessageRegExp = "expected 1 values in column 1, but got 0")
+    public void testMissingValue()
+    {
+        new ColumnarPage.Builder(COLUMNS.subList(0, 2))
+                .appendLong(0, 1)
+                .build();
+    }
+
+    @Test
+    public void testTruncatedData()
+    {
+        byte[] data = createPage().serialize();
+        for (int length = 0; length < data.length; length++) {
+            try {
+                ColumnarPage.deserialize(COLUMNS, Arrays.copyOf(data, length));
+                throw new AssertionError("expected truncated data of length " + length + " to fail");
+            }
+            catch (IllegalArgumentException e) {
+                assertEquals(e.getMessage(), "truncated data");
+            }
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "unexpected trailing data")
+    public void testTrailingData()
+    {
+        byte[] data = createPage().serialize();
+        ColumnarPage.deserialize(COLUMNS, Arrays.copyOf(data, data.length + 1));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "expected 5 columns, but got 6")
+    public void testColumnCountMismatch()
+    {
+        ColumnarPage.deserialize(COLUMNS.subList(0, 5), createPage().serialize());
+    }
+
+    @Test
+    public void testUnsupportedTypes()
+    {
+        assertTrue(ColumnarPage.isSupported(COLUMNS));
+        assertTrue(ColumnarPage.isSupported(ImmutableList.<Column>of()));
+        assertFalse(ColumnarPage.isSupported(ImmutableList.of(new Column("a", "bigint"), new Column("b", "HyperLogLog"))));
+        assertFalse(ColumnarPage.isSupported(ImmutableList.of(new Column("a", "unknown"))));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class, expectedExceptionsMessageRegExp = "columns can not be serialized: .*")
+    public void testSerializeUnsupportedType()
+    {
+        List<Column> columns = ImmutableList.of(new Column("a", "HyperLogLog"));
+        new ColumnarPage.Builder(columns)
+                .appendObject(0, new byte[] {1})
+                .build()
+                .serialize();
+    }
+
+    @Test
+    public void testFromRows()
+    {
+        // values as they come from the JSON rows, where numbers are not always the column type
+        List<List<Object>> rows = ImmutableList.of(
+                Arrays.<Object>asList(1, 2, true, new byte[] {1}, "x", "2001-08-22"),
+                Arrays.<Object>asList(null, null, null, null, null, null),
+                Arrays.<Object>asList(3L, 4.5, false, new byte[0], "", "1970-01-01"));
+
+        ColumnarPage page = ColumnarPage.fromRows(COLUMNS, rows);
+        assertEquals(page.getRowCount(), 3);
+
+        assertEquals(page.getLong(0, 0), 1);
+        assertEquals(page.getDouble(1, 0), 2.0);
+        assertEquals(page.getBoolean(2, 0), true);
+        assertEquals((byte[]) page.getObject(3, 0), new byte[] {1});
+        assertEquals(page.getObject(4, 0), "x");
+        assertEquals(page.getObject(5, 0), "2001-08-22");
+
+        for (int column = 0; column < COLUMNS.size(); column++) {
+            assertTrue(page.isNull(column, 1));
+        }
+
+        assertEquals(page.getObject(0, 2), 3L);
+        assertEquals(page.getObject(1, 2), 4.5);
+        assertEquals(page.getObject(2, 2), false);
+
+        // columns the binary form does not support are kept as objects
+        List<Column> columns = ImmutableList.of(new Column("a", "HyperLogLog"), new Column("b", "unknown"));
+        page = ColumnarPage.fromRows(columns, ImmutableList.of(Arrays.<Object>asList(new byte[] {7}, null)));
+        assertEquals((byte[]) page.getObject(0, 0), new byte[] {7});
+        assertTrue(page.isNull(1, 0));
+    }
+
+    private static ColumnarPage createPage()
+    {
+        return new ColumnarPage.Builder(COLUMNS)
+                .appendLong(0, 1).appendDouble(1, 2.0).appendBoolean(2, true).appendObject(3, new byte[] {3}).appendObject(4, "four").appendObject(5, "2001-08-22")
+                .appendNull(0).appendNull(1).appendNull(2).appendNull(3).appendNull(4).appendNull(5)
+                .build();
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.client;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.json.JsonCodec;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.List;
+
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class TestQueryResults
+{
+    private static final JsonCodec<QueryResults> QUERY_RESULTS_CODEC = jsonCodec(QueryResults.class);
+
+    private static final List<Column> COLUMNS = ImmutableList.of(
+            new Column("a", "bigint"),
+            new Column("b", "double"),
+            new Column("c", "boolean"),
+            new Column("d", "varbinary"),
+            new Column("e", "varchar"));
+
+    private static final String STATS_JSON = "{" +
+            "\"state\":\"FINISHED\",\"scheduled\":true,\"nodes\":1," +
+            "\"totalSplits\":0,\"queuedSplits\":0,\"runningSplits\":0,\"completedSplits\":0," +
+            "\"userTimeMillis\":0,\"cpuTimeMillis\":0,\"wallTimeMillis\":0," +
+            "\"processedRows\":0,\"processedBytes\":0}";
+
+    @Test
+    public void testJsonRowsToColumnarPage()
+    {
+        // the form sent by servers that do not support the columnar format
+        String json = "{" +
+                "\"id\":\"query\"," +
+                "\"infoUri\":\"http://localhost/query.html?query\"," +
+                "\"columns\":[" +
+                "{\"name\":\"a\",\"type\":\"bigint\"}," +
+                "{\"name\":\"b\",\"type\":\"double\"}," +
+                "{\"name\":\"c\",\"type\":\"boolean\"}," +
+                "{\"name\":\"d\",\"type\":\"varbinary\"}," +
+                "{\"name\":\"e\",\"type\":\"varchar\"}]," +
+                "\"data\":[[123,0.5,true,\"AQID\",\"hello\"],[null,null,null,null,null],[9223372036854775807,\"NaN\",false,\"\",\"\"]]," +
+                "\"stats\":" + STATS_JSON +
+                "}";
+
+        ColumnarPage page = QUERY_RESULTS_CODEC.fromJson(json).toColumnarPage();
+        assertEquals(page.getColumns(), COLUMNS);
+        assertEquals(page.getRowCount(), 3);
+
+        assertEquals(page.getLong(0, 0), 123);
+        assertEquals(page.getDouble(1, 0), 0.5);
+        assertEquals(page.getBoolean(2, 0), true);
+        assertEquals((byte[]) page.getObject(3, 0), new byte[] {1, 2, 3});
+        assertEquals(page.getObject(4, 0), "hello");
+
+        for (int column = 0; column < COLUMNS.size(); column++) {
+            assertTrue(page.isNull(column, 1));
+        }
+
+        assertEquals(page.getLong(0, 2), Long.MAX_VALUE);
+        assertTrue(Double.isNaN(page.getDouble(1, 2)));
+        assertEquals(page.getBoolean(2, 2), false);
+        assertEquals((byte[]) page.getObject(3, 2), new byte[0]);
+        assertEquals(page.getObject(4, 2), "");
+    }
+
+    @Test
+    public void testColumnarData()
+    {
+        ColumnarPage page = new ColumnarPage.Builder(COLUMNS)
+                .appendLong(0, 123).appendDouble(1, 0.5).appendBoolean(2, true).appendObject(3, new byte[] {1, 2, 3}).appendObject(4, "hello")
+                .appendNull(0).appendNull(1).appendNull(2).appendNull(3).appendNull(4)
+                .build();
+        QueryResults results = new QueryResults(
+                "query",
+                URI.create("http://localhost/query.html?query"),
+                null,
+                null,
+                COLUMNS,
+                null,
+                page.serialize(),
+                new StatementStats("FINISHED", true, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, null),
+                null);
+
+        QueryResults copy = QUERY_RESULTS_CODEC.fromJson(QUERY_RESULTS_CODEC.toJson(results));
+        assertNull(copy.getData());
+
+        ColumnarPage copyPage = copy.toColumnarPage();
+        assertEquals(copyPage.getRowCount(), 2);
+        assertEquals(copyPage.getLong(0, 0), 123);
+        assertEquals(copyPage.getDouble(1, 0), 0.5);
+        assertEquals(copyPage.getBoolean(2, 0), true);
+        assertEquals((byte[]) copyPage.getObject(3, 0), new byte[] {1, 2, 3});
+        assertEquals(copyPage.getObject(4, 0), "hello");
+        for (int column = 0; column < COLUMNS.size(); column++) {
+            assertTrue(copyPage.isNull(column, 1));
+        }
+    }
+
+    @Test
+    public void testNoData()
+    {
+        String json = "{\"id\":\"query\",\"infoUri\":\"http://localhost/query.html?query\",\"stats\":" + STATS_JSON + "}";
+        assertNull(QUERY_RESULTS_CODEC.fromJson(json).toColumnarPage());
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableList;
+import io.airlift.stats.CounterStat;
+import io.airlift.units.Duration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Directory lister that shares listings between the partitions and queries of a
+ * connector.  A listing is only cached after it has been read to the end, so a
+ * listing that is still streaming from the delegate never delays the caller, and
+ * an abandoned listing is never cached partially.
+ */
+public class CachingDirectoryLister
+        implements DirectoryLister
+{
+    private final DirectoryLister delegate;
+    private final Cache<Path, List<LocatedFileStatus>> cache;
+    private final boolean enabled;
+
+    private final CounterStat hits = new CounterStat();
+    private final CounterStat misses = new CounterStat();
+
+    @Inject
+    public CachingDirectoryLister(HiveClientConfig config)
+    {
+        this(new HadoopDirectoryLister(), config.getFileStatusCacheExpireTime(), config.getFileStatusCacheMaxSize());
+    }
+
+    /**
+     * @param expireAfterWrite how long a listing is cached, or zero to disable the cache
+     * @param maxSize the maximum number of file statuses held by the cache
+     */
+    public CachingDirectoryLister(DirectoryLister delegate, Duration expireAfterWrite, long maxSize)
+    {
+        this.delegate = checkNotNull(delegate, "delegate is null");
+        checkNotNull(expireAfterWrite, "expireAfterWrite is null");
+        checkArgument(maxSize >= 0, "maxSize is negative");
+
+        this.enabled = expireAfterWrite.toMillis() > 0 && maxSize > 0;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxSize)
+                .weigher(new Weigher<Path, List<LocatedFileStatus>>()
+                {
+                    @Override
+                    public int weigh(Path key, List<LocatedFileStatus> value)
+                    {
+                        // count the directory itself so empty directories have a weight
+                        return value.size() + 1;
+                    }
+                })
+                .expireAfterWrite(expireAfterWrite.toMillis(), MILLISECONDS)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public RemoteIterator<LocatedFileStatus> list(FileSystem fs, Path path)
+            throws IOException
+    {
+        if (!enabled) {
+            return delegate.list(fs, path);
+        }
+
+        Path qualifiedPath = fs.makeQualified(path);
+        List<LocatedFileStatus> files = cache.getIfPresent(qualifiedPath);
+        if (files != null) {
+            hits.update(1);
+            return new CachedIterator(files.iterator());
+        }
+        misses.update(1);
+        return new CachingIterator(qualifiedPath, delegate.list(fs, path));
+    }
+
+    public void flushCache()
+    {
+        cache.invalidateAll();
+    }
+
+    @Managed
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    @Managed
+    public long getSize()
+    {
+        return cache.size();
+    }
+
+    @Managed
+    public double getHitRate()
+    {
+        return cache.stats().hitRate();
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getHits()
+    {
+        return hits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getMisses()
+    {
+        return misses;
+    }
+
+    private static class CachedIterator
+            implements RemoteIterator<LocatedFileStatus>
+    {
+        private final Iterator<LocatedFileStatus> iterator;
+
+        private CachedIterator(Iterator<LocatedFileStatus> iterator)
+        {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public LocatedFileStatus next()
+        {
+            return iterator.next();
+        }
+    }
+
+    private class CachingIterator
+            implements RemoteIterator<LocatedFileStatus>
+    {
+        private final Path path;
+        private final RemoteIterator<LocatedFileStatus> iterator;
+        private final ImmutableList.Builder<LocatedFileStatus> files = ImmutableList.builder();
+        private boolean cached;
+
+        private CachingIterator(Path path, RemoteIterator<LocatedFileStatus> iterator)
+        {
+            this.path = path;
+            this.iterator = checkNotNull(iterator, "iterator is null");
+        }
+
+        @Override
+        public boolean hasNext()
+                throws IOException
+        {
+            boolean hasNext = iterator.hasNext();
+            if (!hasNext && !cached) {
+                cache.put(path, files.build());
+                cached = true;
+            }
+            return hasNext;
+        }
+
+        @Override
+        public LocatedFileStatus next()
+                throws IOException
+        {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            LocatedFileStatus status = iterator.next();
+            files.add(status);
+            return status;
+        }
+    }
+}
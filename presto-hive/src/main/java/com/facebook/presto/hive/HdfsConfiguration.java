@@ -51,6 +51,8 @@ public class HdfsConfiguration
     private final int s3MaxConnections;
     private final DataSize s3MultipartMinFileSize;
     private final DataSize s3MultipartMinPartSize;
+    private final DataSize s3ReadaheadSize;
+    private final int s3MaxConcurrentRangeRequests;
     private final File s3StagingDirectory;
     private final List<String> resourcePaths;
     private final boolean verifyChecksum;
@@ -87,6 +89,8 @@ public class HdfsConfiguration
         this.s3MaxConnections = hiveClientConfig.getS3MaxConnections();
         this.s3MultipartMinFileSize = hiveClientConfig.getS3MultipartMinFileSize();
         this.s3MultipartMinPartSize = hiveClientConfig.getS3MultipartMinPartSize();
+        this.s3ReadaheadSize = hiveClientConfig.getS3ReadaheadSize();
+        this.s3MaxConcurrentRangeRequests = hiveClientConfig.getS3MaxConcurrentRangeRequests();
         this.s3StagingDirectory = hiveClientConfig.getS3StagingDirectory();
         this.resourcePaths = hiveClientConfig.getResourceConfigFiles();
         this.verifyChecksum = hiveClientConfig.isVerifyChecksum();
@@ -162,6 +166,8 @@ public class HdfsConfiguration
         config.setInt(PrestoS3FileSystem.S3_MAX_CONNECTIONS, s3MaxConnections);
         config.setLong(PrestoS3FileSystem.S3_MULTIPART_MIN_FILE_SIZE, s3MultipartMinFileSize.toBytes());
         config.setLong(PrestoS3FileSystem.S3_MULTIPART_MIN_PART_SIZE, s3MultipartMinPartSize.toBytes());
+        config.setLong(PrestoS3FileSystem.S3_READAHEAD_SIZE, s3ReadaheadSize.toBytes());
+        config.setInt(PrestoS3FileSystem.S3_MAX_CONCURRENT_RANGE_REQUESTS, s3MaxConcurrentRangeRequests);
 
         updateConfiguration(config);
 
@@ -13,6 +13,8 @@
  */
 package com.facebook.presto.hive;
 
+import com.facebook.presto.hive.cache.CachingFileSystem;
+import com.facebook.presto.hive.cache.FileBlockCache;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
@@ -28,11 +30,18 @@ import static com.google.common.base.Preconditions.checkNotNull;
 public class HdfsEnvironment
 {
     private final HdfsConfiguration hdfsConfiguration;
+    private final FileBlockCache fileBlockCache;
 
-    @Inject
     public HdfsEnvironment(HdfsConfiguration hdfsConfiguration)
+    {
+        this(hdfsConfiguration, new FileBlockCache(new HiveClientConfig()));
+    }
+
+    @Inject
+    public HdfsEnvironment(HdfsConfiguration hdfsConfiguration, FileBlockCache fileBlockCache)
     {
         this.hdfsConfiguration = checkNotNull(hdfsConfiguration, "hdfsConfiguration is null");
+        this.fileBlockCache = checkNotNull(fileBlockCache, "fileBlockCache is null");
     }
 
     public Configuration getConfiguration(Path path)
@@ -55,4 +64,18 @@ public class HdfsEnvironment
 
         return fileSystem;
     }
+
+    /**
+     * Returns the file system used to read the data of splits.  When the local file
+     * cache is enabled, the contents of remote files are read through the cache.
+     */
+    public FileSystem getCachingFileSystem(Path path)
+            throws IOException
+    {
+        FileSystem fileSystem = getFileSystem(path);
+        if (!fileBlockCache.isEnabled() || "file".equals(path.toUri().getScheme())) {
+            return fileSystem;
+        }
+        return new CachingFileSystem(fileSystem, fileBlockCache);
+    }
 }
@@ -16,9 +16,13 @@ package com.facebook.presto.hive;
 import com.facebook.presto.hadoop.HadoopFileSystemCache;
 import com.facebook.presto.hadoop.HadoopNative;
 import com.facebook.presto.hive.metastore.HiveMetastore;
+import com.facebook.presto.hive.metastore.PartitionKeyIndex;
 import com.facebook.presto.hive.util.BoundedExecutor;
 import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.ConnectorAggregate;
+import com.facebook.presto.spi.ConnectorAggregatedTable;
 import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.ConnectorColumnStatistics;
 import com.facebook.presto.spi.ConnectorHandleResolver;
 import com.facebook.presto.spi.ConnectorIndexHandle;
 import com.facebook.presto.spi.ConnectorInsertTableHandle;
@@ -34,10 +38,11 @@ import com.facebook.presto.spi.ConnectorSplitManager;
 import com.facebook.presto.spi.ConnectorSplitSource;
 import com.facebook.presto.spi.ConnectorTableHandle;
 import com.facebook.presto.spi.ConnectorTableMetadata;
+import com.facebook.presto.spi.ConnectorTablePartitioning;
+import com.facebook.presto.spi.ConnectorTableStatistics;
 import com.facebook.presto.spi.Domain;
 import com.facebook.presto.spi.FixedSplitSource;
 import com.facebook.presto.spi.PrestoException;
-import com.facebook.presto.spi.Range;
 import com.facebook.presto.spi.RecordSet;
 import com.facebook.presto.spi.RecordSink;
 import com.facebook.presto.spi.SchemaNotFoundException;
@@ -48,6 +53,7 @@ import com.facebook.presto.spi.TupleDomain;
 import com.facebook.presto.spi.ViewNotFoundException;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.base.Function;
+import com.google.common.base.Joiner;
 import com.google.common.base.Objects;
 import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
@@ -63,7 +69,6 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Ordering;
 import com.google.inject.Inject;
 import io.airlift.log.Logger;
-import io.airlift.slice.Slice;
 import io.airlift.units.DataSize;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.metastore.ProtectMode;
@@ -84,6 +89,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -145,6 +151,13 @@ public class HiveClient
 
     private static final Logger log = Logger.get(HiveClient.class);
 
+    // statistics maintained by Hive in the table and partition parameters
+    private static final String NUM_ROWS = "numRows";
+    private static final String TOTAL_SIZE = "totalSize";
+
+    // statistics of larger tables are extrapolated from a sample of the partitions
+    private static final int MAX_STATISTICS_PARTITIONS = 100;
+
     private final String connectorId;
     private final int maxOutstandingSplits;
     private final int maxSplitIteratorThreads;
@@ -333,6 +346,135 @@ public class HiveClient
         }
     }
 
+    @Override
+    public ConnectorTablePartitioning getTablePartitioning(ConnectorTableHandle tableHandle)
+    {
+        SchemaTableName tableName = getTableName(tableHandle);
+        try {
+            Table table = metastore.getTable(tableName.getSchemaName(), tableName.getTableName());
+            StorageDescriptor sd = table.getSd();
+            if (!sd.isSetBucketCols() || sd.getBucketCols().isEmpty() || !sd.isSetNumBuckets() || (sd.getNumBuckets() <= 0)) {
+                return null;
+            }
+
+            Map<String, HiveColumnHandle> columnHandles = new HashMap<>();
+            for (HiveColumnHandle columnHandle : getColumnHandles(table, false)) {
+                columnHandles.put(columnHandle.getName(), columnHandle);
+            }
+            ImmutableList.Builder<ConnectorColumnHandle> partitioningColumns = ImmutableList.builder();
+            ImmutableList.Builder<String> hiveTypeNames = ImmutableList.builder();
+            for (String bucketColumn : sd.getBucketCols()) {
+                HiveColumnHandle columnHandle = columnHandles.get(bucketColumn);
+                if (columnHandle == null) {
+                    return null;
+                }
+                partitioningColumns.add(columnHandle);
+                hiveTypeNames.add(columnHandle.getHiveType().getHiveTypeName());
+            }
+
+            // Hive hashes each type differently (e.g. int and bigint), so the types are part of the bucket function
+            String bucketFunction = "hive(" + Joiner.on(',').join(hiveTypeNames.build()) + ")";
+            return new ConnectorTablePartitioning(partitioningColumns.build(), bucketFunction, sd.getNumBuckets());
+        }
+        catch (NoSuchObjectException e) {
+            throw new TableNotFoundException(tableName);
+        }
+    }
+
+    @Override
+    public ConnectorTableStatistics getTableStatistics(ConnectorTableHandle tableHandle, List<ConnectorPartition> partitions)
+    {
+        SchemaTableName tableName = getTableName(tableHandle);
+        try {
+            Table table = metastore.getTable(tableName.getSchemaName(), tableName.getTableName());
+            if (table.getPartitionKeys().isEmpty()) {
+                return getStatistics(ImmutableList.of(table.getParameters()), 1);
+            }
+
+            List<String> partitionNames;
+            if (partitions != null) {
+                partitionNames = Lists.transform(partitions, HiveUtil.partitionIdGetter());
+            }
+            else {
+                partitionNames = metastore.getPartitionNames(tableName.getSchemaName(), tableName.getTableName());
+            }
+            if (partitionNames.isEmpty()) {
+                return new ConnectorTableStatistics(0, 0, ImmutableMap.<ConnectorColumnHandle, ConnectorColumnStatistics>of());
+            }
+
+            // read the statistics of evenly spaced partitions, so the cost does not grow with the table
+            int sampleSize = Math.min(partitionNames.size(), MAX_STATISTICS_PARTITIONS);
+            ImmutableList.Builder<String> sampledNames = ImmutableList.builder();
+            for (int i = 0; i < sampleSize; i++) {
+                sampledNames.add(partitionNames.get((int) ((long) i * partitionNames.size() / sampleSize)));
+            }
+
+            ImmutableList.Builder<Map<String, String>> parameters = ImmutableList.builder();
+            for (Partition partition : metastore.getPartitionsByNames(tableName.getSchemaName(), tableName.getTableName(), sampledNames.build())) {
+                parameters.add(partition.getParameters());
+            }
+            return getStatistics(parameters.build(), partitionNames.size());
+        }
+        catch (NoSuchObjectException e) {
+            throw new TableNotFoundException(tableName);
+        }
+    }
+
+    @Override
+    public ConnectorAggregatedTable pushDownAggregation(ConnectorTableHandle tableHandle, TupleDomain<ConnectorColumnHandle> constraint, List<ConnectorColumnHandle> groupingColumns, List<ConnectorAggregate> aggregates)
+    {
+        return null;
+    }
+
+    @Override
+    public ConnectorTableHandle pushDownLimit(ConnectorTableHandle tableHandle, long limit)
+    {
+        return null;
+    }
+
+    /**
+     * Extrapolates the statistics of all partitions from the statistics of the sampled
+     * partitions that have any.  Hive reports -1 for statistics it has not computed.
+     */
+    private static ConnectorTableStatistics getStatistics(List<Map<String, String>> sampledParameters, int partitionCount)
+    {
+        double rowCount = 0;
+        double dataSize = 0;
+        int partitionsWithRowCount = 0;
+        int partitionsWithDataSize = 0;
+        for (Map<String, String> parameters : sampledParameters) {
+            long partitionRowCount = getLongParameter(parameters, NUM_ROWS);
+            if (partitionRowCount >= 0) {
+                rowCount += partitionRowCount;
+                partitionsWithRowCount++;
+            }
+            long partitionDataSize = getLongParameter(parameters, TOTAL_SIZE);
+            if (partitionDataSize >= 0) {
+                dataSize += partitionDataSize;
+                partitionsWithDataSize++;
+            }
+        }
+
+        return new ConnectorTableStatistics(
+                (partitionsWithRowCount == 0) ? Double.NaN : rowCount / partitionsWithRowCount * partitionCount,
+                (partitionsWithDataSize == 0) ? Double.NaN : dataSize / partitionsWithDataSize * partitionCount,
+                ImmutableMap.<ConnectorColumnHandle, ConnectorColumnStatistics>of());
+    }
+
+    private static long getLongParameter(Map<String, String> parameters, String name)
+    {
+        String value = (parameters == null) ? null : parameters.get(name);
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return parseLong(value);
+        }
+        catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
     @Override
     public boolean canCreateSampledTables(ConnectorSession session)
     {
@@ -822,55 +964,43 @@ public class HiveClient
         }
 
         ImmutableMap.Builder<String, ConnectorColumnHandle> partitionKeysByNameBuilder = ImmutableMap.builder();
-        List<String> filterPrefix = new ArrayList<>();
+        ImmutableMap.Builder<String, Predicate<String>> partitionKeyFilters = ImmutableMap.builder();
         for (int i = 0; i < partitionKeys.size(); i++) {
             FieldSchema field = partitionKeys.get(i);
 
             HiveColumnHandle columnHandle = new HiveColumnHandle(connectorId, field.getName(), i, getSupportedHiveType(field.getType()), -1, true);
             partitionKeysByNameBuilder.put(field.getName(), columnHandle);
 
-            // only add to prefix if all previous keys have a value
-            if (filterPrefix.size() == i && !tupleDomain.isNone()) {
+            if (!tupleDomain.isNone()) {
                 Domain domain = tupleDomain.getDomains().get(columnHandle);
-                if (domain != null && domain.getRanges().getRangeCount() == 1) {
-                    // We intentionally ignore whether NULL is in the domain since partition keys can never be NULL
-                    Range range = Iterables.getOnlyElement(domain.getRanges());
-                    if (range.isSingleValue()) {
-                        Comparable<?> value = range.getLow().getValue();
-                        checkArgument(value instanceof Boolean || value instanceof Slice || value instanceof Double || value instanceof Long,
-                                "Only Boolean, Slice (UTF8 String), Double and Long partition keys are supported");
-                        if (value instanceof Slice) {
-                            filterPrefix.add(((Slice) value).toStringUtf8());
-                        }
-                        else {
-                            filterPrefix.add(value.toString());
-                        }
-                    }
+                if (domain != null) {
+                    partitionKeyFilters.put(field.getName(), partitionValueMatches(columnHandle, domain, timeZone));
                 }
             }
         }
 
-        // fetch the partition names
+        // fetch the partition names, pruned with the in-memory index of the partition values
         List<String> partitionNames;
         try {
             if (partitionKeys.isEmpty()) {
                 partitionNames = ImmutableList.of(UNPARTITIONED_ID);
             }
-            else if (filterPrefix.isEmpty()) {
-                partitionNames = metastore.getPartitionNames(tableName.getSchemaName(), tableName.getTableName());
+            else if (tupleDomain.isNone()) {
+                partitionNames = ImmutableList.of();
             }
             else {
-                partitionNames = metastore.getPartitionNamesByParts(tableName.getSchemaName(), tableName.getTableName(), filterPrefix);
+                PartitionKeyIndex index = metastore.getPartitionKeyIndex(tableName.getSchemaName(), tableName.getTableName());
+                partitionNames = index.getPartitionNames(partitionKeyFilters.build());
             }
         }
         catch (NoSuchObjectException e) {
             throw new TableNotFoundException(tableName);
         }
 
-        // do a final pass to filter based on fields that could not be used to build the prefix
+        // do a final pass to filter the partitions as a whole
         Map<String, ConnectorColumnHandle> partitionKeysByName = partitionKeysByNameBuilder.build();
         List<ConnectorPartition> partitions = FluentIterable.from(partitionNames)
-                .transform(toPartition(tableName, partitionKeysByName, bucket, timeZone))
+                .transform(toPartition(tableName, partitionKeysByName, bucket, tupleDomain, timeZone))
                 .filter(partitionMatches(tupleDomain))
                 .filter(ConnectorPartition.class)
                 .toList();
@@ -881,6 +1011,13 @@ public class HiveClient
             remainingTupleDomain = TupleDomain.withColumnDomains(Maps.filterKeys(tupleDomain.getDomains(), not(in(partitionKeysByName.values()))));
         }
 
+        // start loading the partitions in the order they are used by getPartitionSplits
+        if (!partitionKeys.isEmpty() && !partitions.isEmpty()) {
+            List<String> selectedPartitionNames = new ArrayList<>(Lists.transform(partitions, HiveUtil.partitionIdGetter()));
+            Collections.sort(selectedPartitionNames, Ordering.natural().reverse());
+            metastore.prefetchPartitions(tableName.getSchemaName(), tableName.getTableName(), selectedPartitionNames);
+        }
+
         return new ConnectorPartitionResult(partitions, remainingTupleDomain);
     }
 
@@ -898,6 +1035,7 @@ public class HiveClient
         HivePartition hivePartition = checkType(partition, HivePartition.class, "partition");
         SchemaTableName tableName = hivePartition.getTableName();
         Optional<HiveBucket> bucket = hivePartition.getBucket();
+        TupleDomain<ConnectorColumnHandle> effectivePredicate = hivePartition.getEffectivePredicate();
 
         List<String> partitionNames = new ArrayList<>(Lists.transform(partitions, HiveUtil.partitionIdGetter()));
         Collections.sort(partitionNames, Ordering.natural().reverse());
@@ -917,6 +1055,7 @@ public class HiveClient
                 partitionNames,
                 hivePartitions,
                 bucket,
+                effectivePredicate,
                 maxSplitSize,
                 maxOutstandingSplits,
                 maxSplitIteratorThreads,
@@ -1107,6 +1246,7 @@ public class HiveClient
             final SchemaTableName tableName,
             final Map<String, ConnectorColumnHandle> columnsByName,
             final Optional<HiveBucket> bucket,
+            final TupleDomain<ConnectorColumnHandle> effectivePredicate,
             final DateTimeZone timeZone)
     {
         return new Function<String, HivePartition>()
@@ -1116,7 +1256,7 @@ public class HiveClient
             {
                 try {
                     if (partitionId.equals(UNPARTITIONED_ID)) {
-                        return new HivePartition(tableName);
+                        return new HivePartition(tableName, effectivePredicate);
                     }
 
                     ImmutableMap.Builder<ConnectorColumnHandle, Comparable<?>> builder = ImmutableMap.builder();
@@ -1125,44 +1265,10 @@ public class HiveClient
                         checkArgument(handle != null, "Invalid partition key %s in partition %s", entry.getKey(), partitionId);
                         HiveColumnHandle columnHandle = checkType(handle, HiveColumnHandle.class, "handle");
 
-                        String value = entry.getValue();
-                        Type type = columnHandle.getType();
-                        if (BOOLEAN.equals(type)) {
-                            if (value.isEmpty()) {
-                                builder.put(columnHandle, false);
-                            }
-                            else {
-                                builder.put(columnHandle, parseBoolean(value));
-                            }
-                        }
-                        else if (BIGINT.equals(type)) {
-                            if (value.isEmpty()) {
-                                builder.put(columnHandle, 0L);
-                            }
-                            else if (columnHandle.getHiveType() == HiveType.TIMESTAMP) {
-                                builder.put(columnHandle, parseHiveTimestamp(value, timeZone));
-                            }
-                            else {
-                                builder.put(columnHandle, parseLong(value));
-                            }
-                        }
-                        else if (DOUBLE.equals(type)) {
-                            if (value.isEmpty()) {
-                                builder.put(columnHandle, 0.0);
-                            }
-                            else {
-                                builder.put(columnHandle, parseDouble(value));
-                            }
-                        }
-                        else if (VARCHAR.equals(type)) {
-                            builder.put(columnHandle, utf8Slice(value));
-                        }
-                        else {
-                            throw new IllegalArgumentException(format("Unsupported partition type [%s] for partition: %s", type, partitionId));
-                        }
+                        builder.put(columnHandle, parsePartitionValue(columnHandle, entry.getValue(), timeZone));
                     }
 
-                    return new HivePartition(tableName, partitionId, builder.build(), bucket);
+                    return new HivePartition(tableName, partitionId, builder.build(), bucket, effectivePredicate);
                 }
                 catch (MetaException e) {
                     // invalid partition id
@@ -1172,6 +1278,48 @@ public class HiveClient
         };
     }
 
+    static Comparable<?> parsePartitionValue(HiveColumnHandle columnHandle, String value, DateTimeZone timeZone)
+    {
+        Type type = columnHandle.getType();
+        if (BOOLEAN.equals(type)) {
+            if (value.isEmpty()) {
+                return false;
+            }
+            return parseBoolean(value);
+        }
+        if (BIGINT.equals(type)) {
+            if (value.isEmpty()) {
+                return 0L;
+            }
+            if (columnHandle.getHiveType() == HiveType.TIMESTAMP) {
+                return parseHiveTimestamp(value, timeZone);
+            }
+            return parseLong(value);
+        }
+        if (DOUBLE.equals(type)) {
+            if (value.isEmpty()) {
+                return 0.0;
+            }
+            return parseDouble(value);
+        }
+        if (VARCHAR.equals(type)) {
+            return utf8Slice(value);
+        }
+        throw new IllegalArgumentException(format("Unsupported partition type [%s] for partition key: %s", type, columnHandle.getName()));
+    }
+
+    private static Predicate<String> partitionValueMatches(final HiveColumnHandle columnHandle, final Domain domain, final DateTimeZone timeZone)
+    {
+        return new Predicate<String>()
+        {
+            @Override
+            public boolean apply(String value)
+            {
+                return domain.includesValue(parsePartitionValue(columnHandle, value, timeZone));
+            }
+        };
+    }
+
     public static Predicate<HivePartition> partitionMatches(final TupleDomain<ConnectorColumnHandle> tupleDomain)
     {
         return new Predicate<HivePartition>()
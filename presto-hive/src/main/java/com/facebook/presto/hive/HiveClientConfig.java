@@ -31,6 +31,7 @@ import java.util.List;
 import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 
 public class HiveClientConfig
@@ -53,6 +54,7 @@ public class HiveClientConfig
     private Duration metastoreCacheTtl = new Duration(1, TimeUnit.HOURS);
     private Duration metastoreRefreshInterval = new Duration(2, TimeUnit.MINUTES);
     private int maxMetastoreRefreshThreads = 100;
+    private int metastorePartitionPrefetchThreads = 10;
     private HostAndPort metastoreSocksProxy;
     private Duration metastoreTimeout = new Duration(10, TimeUnit.SECONDS);
 
@@ -60,6 +62,7 @@ public class HiveClientConfig
     private Duration dfsConnectTimeout = new Duration(500, TimeUnit.MILLISECONDS);
     private int dfsConnectMaxRetries = 5;
     private boolean verifyChecksum = true;
+    private boolean optimizedReaderEnabled = true;
 
     private String domainSocketPath;
 
@@ -75,6 +78,15 @@ public class HiveClientConfig
     private File s3StagingDirectory = new File(StandardSystemProperty.JAVA_IO_TMPDIR.value());
     private DataSize s3MultipartMinFileSize = new DataSize(16, MEGABYTE);
     private DataSize s3MultipartMinPartSize = new DataSize(5, MEGABYTE);
+    private DataSize s3ReadaheadSize = new DataSize(1, MEGABYTE);
+    private int s3MaxConcurrentRangeRequests = 20;
+
+    private File fileCacheDirectory;
+    private DataSize fileCacheMaxSize = new DataSize(100, GIGABYTE);
+    private DataSize fileCacheBlockSize = new DataSize(1, MEGABYTE);
+
+    private Duration fileStatusCacheExpireTime = new Duration(0, TimeUnit.SECONDS);
+    private long fileStatusCacheMaxSize = 1_000_000;
 
     private HiveStorageFormat hiveStorageFormat = HiveStorageFormat.RCBINARY;
 
@@ -243,6 +255,20 @@ public class HiveClientConfig
         return this;
     }
 
+    @Min(0)
+    public int getMetastorePartitionPrefetchThreads()
+    {
+        return metastorePartitionPrefetchThreads;
+    }
+
+    @Config("hive.metastore.partition-prefetch-threads")
+    @ConfigDescription("Maximum number of concurrent requests prefetching the partitions selected for a query, or 0 to disable prefetching")
+    public HiveClientConfig setMetastorePartitionPrefetchThreads(int metastorePartitionPrefetchThreads)
+    {
+        this.metastorePartitionPrefetchThreads = metastorePartitionPrefetchThreads;
+        return this;
+    }
+
     public HostAndPort getMetastoreSocksProxy()
     {
         return metastoreSocksProxy;
@@ -389,6 +415,19 @@ public class HiveClientConfig
         return this;
     }
 
+    public boolean isOptimizedReaderEnabled()
+    {
+        return optimizedReaderEnabled;
+    }
+
+    @Config("hive.optimized-reader.enabled")
+    @ConfigDescription("Read ORC and binary RCFile files with the native readers instead of the Hive SerDes")
+    public HiveClientConfig setOptimizedReaderEnabled(boolean optimizedReaderEnabled)
+    {
+        this.optimizedReaderEnabled = optimizedReaderEnabled;
+        return this;
+    }
+
     public String getS3AwsAccessKey()
     {
         return s3AwsAccessKey;
@@ -549,4 +588,101 @@ public class HiveClientConfig
         this.s3MultipartMinPartSize = size;
         return this;
     }
+
+    @NotNull
+    public DataSize getS3ReadaheadSize()
+    {
+        return s3ReadaheadSize;
+    }
+
+    @Config("hive.s3.readahead-size")
+    @ConfigDescription("Size of the ranged requests that read S3 objects ahead of the reader, or 0B to stream objects with a single request")
+    public HiveClientConfig setS3ReadaheadSize(DataSize s3ReadaheadSize)
+    {
+        this.s3ReadaheadSize = s3ReadaheadSize;
+        return this;
+    }
+
+    @Min(1)
+    public int getS3MaxConcurrentRangeRequests()
+    {
+        return s3MaxConcurrentRangeRequests;
+    }
+
+    @Config("hive.s3.max-concurrent-range-requests")
+    @ConfigDescription("Maximum number of concurrent readahead and ranged requests to S3")
+    public HiveClientConfig setS3MaxConcurrentRangeRequests(int s3MaxConcurrentRangeRequests)
+    {
+        this.s3MaxConcurrentRangeRequests = s3MaxConcurrentRangeRequests;
+        return this;
+    }
+
+    public File getFileCacheDirectory()
+    {
+        return fileCacheDirectory;
+    }
+
+    @Config("hive.file-cache.directory")
+    @ConfigDescription("Local directory for caching blocks of remote files read by the workers, or unset to disable the cache")
+    public HiveClientConfig setFileCacheDirectory(File fileCacheDirectory)
+    {
+        this.fileCacheDirectory = fileCacheDirectory;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getFileCacheMaxSize()
+    {
+        return fileCacheMaxSize;
+    }
+
+    @Config("hive.file-cache.max-size")
+    @ConfigDescription("Maximum size of the local file cache")
+    public HiveClientConfig setFileCacheMaxSize(DataSize fileCacheMaxSize)
+    {
+        this.fileCacheMaxSize = fileCacheMaxSize;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getFileCacheBlockSize()
+    {
+        return fileCacheBlockSize;
+    }
+
+    @Config("hive.file-cache.block-size")
+    @ConfigDescription("Size of the file blocks stored in the local file cache")
+    public HiveClientConfig setFileCacheBlockSize(DataSize fileCacheBlockSize)
+    {
+        this.fileCacheBlockSize = fileCacheBlockSize;
+        return this;
+    }
+
+    @NotNull
+    public Duration getFileStatusCacheExpireTime()
+    {
+        return fileStatusCacheExpireTime;
+    }
+
+    @Config("hive.file-status-cache-expire-time")
+    @ConfigDescription("How long directory listings are cached and shared between queries, or 0 to disable the cache")
+    public HiveClientConfig setFileStatusCacheExpireTime(Duration fileStatusCacheExpireTime)
+    {
+        this.fileStatusCacheExpireTime = fileStatusCacheExpireTime;
+        return this;
+    }
+
+    @Min(0)
+    public long getFileStatusCacheMaxSize()
+    {
+        return fileStatusCacheMaxSize;
+    }
+
+    @Config("hive.file-status-cache-max-size")
+    @ConfigDescription("Maximum number of file statuses held in the directory listing cache")
+    public HiveClientConfig setFileStatusCacheMaxSize(long fileStatusCacheMaxSize)
+    {
+        this.fileStatusCacheMaxSize = fileStatusCacheMaxSize;
+        return this;
+    }
 }
@@ -13,11 +13,16 @@
  */
 package com.facebook.presto.hive;
 
+import com.facebook.presto.hive.cache.CacheAffinitySplitManager;
+import com.facebook.presto.hive.cache.FileBlockCache;
 import com.facebook.presto.hive.metastore.HiveMetastore;
 import com.facebook.presto.spi.Connector;
 import com.facebook.presto.spi.ConnectorFactory;
+import com.facebook.presto.spi.ConnectorSplitManager;
+import com.facebook.presto.spi.NodeManager;
 import com.facebook.presto.spi.classloader.ClassLoaderSafeConnectorHandleResolver;
 import com.facebook.presto.spi.classloader.ClassLoaderSafeConnectorMetadata;
+import com.facebook.presto.spi.classloader.ClassLoaderSafeConnectorPageSourceProvider;
 import com.facebook.presto.spi.classloader.ClassLoaderSafeConnectorRecordSetProvider;
 import com.facebook.presto.spi.classloader.ClassLoaderSafeConnectorRecordSinkProvider;
 import com.facebook.presto.spi.classloader.ClassLoaderSafeConnectorSplitManager;
@@ -48,6 +53,7 @@ public class HiveConnectorFactory
     private final Map<String, String> optionalConfig;
     private final ClassLoader classLoader;
     private final HiveMetastore metastore;
+    private final NodeManager nodeManager;
 
     public HiveConnectorFactory(String name, Map<String, String> optionalConfig, ClassLoader classLoader)
     {
@@ -55,12 +61,21 @@ public class HiveConnectorFactory
     }
 
     public HiveConnectorFactory(String name, Map<String, String> optionalConfig, ClassLoader classLoader, HiveMetastore metastore)
+    {
+        this(name, optionalConfig, classLoader, metastore, null);
+    }
+
+    /**
+     * @param nodeManager used to assign splits to the workers caching their data, may be null
+     */
+    public HiveConnectorFactory(String name, Map<String, String> optionalConfig, ClassLoader classLoader, HiveMetastore metastore, NodeManager nodeManager)
     {
         checkArgument(!isNullOrEmpty(name), "name is null or empty");
         this.name = name;
         this.optionalConfig = checkNotNull(optionalConfig, "optionalConfig is null");
         this.classLoader = checkNotNull(classLoader, "classLoader is null");
         this.metastore = metastore;
+        this.nodeManager = nodeManager;
     }
 
     @Override
@@ -100,11 +115,18 @@ public class HiveConnectorFactory
                     .initialize();
 
             HiveClient hiveClient = injector.getInstance(HiveClient.class);
+            HivePageSourceProvider pageSourceProvider = injector.getInstance(HivePageSourceProvider.class);
+
+            ConnectorSplitManager splitManager = hiveClient;
+            if (nodeManager != null && injector.getInstance(FileBlockCache.class).isEnabled()) {
+                splitManager = new CacheAffinitySplitManager(hiveClient, nodeManager, connectorId);
+            }
 
             return new HiveConnector(
                     new ClassLoaderSafeConnectorMetadata(hiveClient, classLoader),
-                    new ClassLoaderSafeConnectorSplitManager(hiveClient, classLoader),
+                    new ClassLoaderSafeConnectorSplitManager(splitManager, classLoader),
                     new ClassLoaderSafeConnectorRecordSetProvider(hiveClient, classLoader),
+                    new ClassLoaderSafeConnectorPageSourceProvider(pageSourceProvider, classLoader),
                     new ClassLoaderSafeConnectorRecordSinkProvider(hiveClient, classLoader),
                     new ClassLoaderSafeConnectorHandleResolver(hiveClient, classLoader));
         }
@@ -0,0 +1,113 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.hive.orc.OrcPageSourceFactory;
+import com.facebook.presto.hive.rcfile.RcBinaryPageSourceFactory;
+import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.ConnectorPageSourceProvider;
+import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.InMemoryRecordSet;
+import com.facebook.presto.spi.RecordPageSource;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Inject;
+import org.joda.time.DateTimeZone;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.facebook.presto.hive.HiveClient.parsePartitionValue;
+import static com.facebook.presto.hive.HiveColumnHandle.hiveColumnHandle;
+import static com.facebook.presto.hive.HiveColumnHandle.nativeTypeGetter;
+import static com.facebook.presto.hive.util.Types.checkType;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Lists.transform;
+
+/**
+ * Reads ORC and binary RCFile splits with the native readers when they support
+ * the columns, and all other splits with the record cursors of the Hive SerDes.
+ */
+public class HivePageSourceProvider
+        implements ConnectorPageSourceProvider
+{
+    private final HdfsEnvironment hdfsEnvironment;
+    private final DateTimeZone hiveStorageTimeZone;
+    private final boolean optimizedReaderEnabled;
+    private final OrcPageSourceFactory orcPageSourceFactory;
+    private final RcBinaryPageSourceFactory rcBinaryPageSourceFactory;
+
+    @Inject
+    public HivePageSourceProvider(HiveClientConfig hiveClientConfig, HdfsEnvironment hdfsEnvironment)
+    {
+        this(hdfsEnvironment,
+                DateTimeZone.forTimeZone(checkNotNull(hiveClientConfig, "hiveClientConfig is null").getTimeZone()),
+                hiveClientConfig.isOptimizedReaderEnabled());
+    }
+
+    public HivePageSourceProvider(HdfsEnvironment hdfsEnvironment, DateTimeZone hiveStorageTimeZone, boolean optimizedReaderEnabled)
+    {
+        this.hdfsEnvironment = checkNotNull(hdfsEnvironment, "hdfsEnvironment is null");
+        this.hiveStorageTimeZone = checkNotNull(hiveStorageTimeZone, "hiveStorageTimeZone is null");
+        this.optimizedReaderEnabled = optimizedReaderEnabled;
+        this.orcPageSourceFactory = new OrcPageSourceFactory(hdfsEnvironment, hiveStorageTimeZone);
+        this.rcBinaryPageSourceFactory = new RcBinaryPageSourceFactory(hdfsEnvironment);
+    }
+
+    @Override
+    public ConnectorPageSource createPageSource(ConnectorSplit split, List<ConnectorColumnHandle> columns)
+    {
+        HiveSplit hiveSplit = checkType(split, HiveSplit.class, "split");
+        List<HiveColumnHandle> hiveColumns = ImmutableList.copyOf(transform(columns, hiveColumnHandle()));
+
+        if (!partitionMatches(hiveSplit)) {
+            // the predicate may have been narrowed during execution, after the partition was selected
+            return new RecordPageSource(new InMemoryRecordSet(transform(hiveColumns, nativeTypeGetter()), ImmutableList.<List<Object>>of()));
+        }
+
+        if (optimizedReaderEnabled) {
+            Optional<ConnectorPageSource> pageSource = orcPageSourceFactory.createPageSource(hiveSplit, hiveColumns);
+            if (!pageSource.isPresent()) {
+                pageSource = rcBinaryPageSourceFactory.createPageSource(hiveSplit, hiveColumns);
+            }
+            if (pageSource.isPresent()) {
+                return pageSource.get();
+            }
+        }
+
+        return new RecordPageSource(new HiveRecordSet(hdfsEnvironment, hiveSplit, hiveColumns, HiveRecordCursorProviders.getDefaultProviders(), hiveStorageTimeZone));
+    }
+
+    private boolean partitionMatches(HiveSplit split)
+    {
+        if (split.getEffectivePredicate().isNone()) {
+            return false;
+        }
+        Map<ConnectorColumnHandle, Domain> domains = split.getEffectivePredicate().getDomains();
+        for (HivePartitionKey partitionKey : split.getPartitionKeys()) {
+            for (Map.Entry<ConnectorColumnHandle, Domain> entry : domains.entrySet()) {
+                HiveColumnHandle column = checkType(entry.getKey(), HiveColumnHandle.class, "column");
+                if (column.isPartitionKey() && column.getName().equals(partitionKey.getName())) {
+                    Comparable<?> value = parsePartitionValue(column, partitionKey.getValue(), hiveStorageTimeZone);
+                    if (!entry.getValue().includesValue(value)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -35,21 +35,39 @@ public class HivePartition
     private final String partitionId;
     private final Map<ConnectorColumnHandle, Comparable<?>> keys;
     private final Optional<HiveBucket> bucket;
+    private final TupleDomain<ConnectorColumnHandle> effectivePredicate;
 
     public HivePartition(SchemaTableName tableName)
+    {
+        this(tableName, TupleDomain.<ConnectorColumnHandle>all());
+    }
+
+    public HivePartition(SchemaTableName tableName, TupleDomain<ConnectorColumnHandle> effectivePredicate)
     {
         this.tableName = checkNotNull(tableName, "tableName is null");
         this.partitionId = UNPARTITIONED_ID;
         this.keys = ImmutableMap.of();
         this.bucket = Optional.absent();
+        this.effectivePredicate = checkNotNull(effectivePredicate, "effectivePredicate is null");
     }
 
     public HivePartition(SchemaTableName tableName, String partitionId, Map<ConnectorColumnHandle, Comparable<?>> keys, Optional<HiveBucket> bucket)
+    {
+        this(tableName, partitionId, keys, bucket, TupleDomain.<ConnectorColumnHandle>all());
+    }
+
+    public HivePartition(
+            SchemaTableName tableName,
+            String partitionId,
+            Map<ConnectorColumnHandle, Comparable<?>> keys,
+            Optional<HiveBucket> bucket,
+            TupleDomain<ConnectorColumnHandle> effectivePredicate)
     {
         this.tableName = checkNotNull(tableName, "tableName is null");
         this.partitionId = checkNotNull(partitionId, "partitionId is null");
         this.keys = ImmutableMap.copyOf(checkNotNull(keys, "keys is null"));
         this.bucket = checkNotNull(bucket, "bucket number is null");
+        this.effectivePredicate = checkNotNull(effectivePredicate, "effectivePredicate is null");
     }
 
     public SchemaTableName getTableName()
@@ -79,6 +97,15 @@ public class HivePartition
         return bucket;
     }
 
+    /**
+     * Predicate on the columns of the table that all rows read from this partition
+     * must satisfy.  Readers may use it to skip data, but are not required to.
+     */
+    public TupleDomain<ConnectorColumnHandle> getEffectivePredicate()
+    {
+        return effectivePredicate;
+    }
+
     @Override
     public int hashCode()
     {
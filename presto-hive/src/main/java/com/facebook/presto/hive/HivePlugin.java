@@ -15,10 +15,13 @@ package com.facebook.presto.hive;
 
 import com.facebook.presto.hive.metastore.HiveMetastore;
 import com.facebook.presto.spi.ConnectorFactory;
+import com.facebook.presto.spi.NodeManager;
 import com.facebook.presto.spi.Plugin;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
+import javax.inject.Inject;
+
 import java.util.List;
 import java.util.Map;
 
@@ -32,6 +35,7 @@ public class HivePlugin
     private final String name;
     private Map<String, String> optionalConfig = ImmutableMap.of();
     private HiveMetastore metastore;
+    private NodeManager nodeManager;
 
     public HivePlugin(String name)
     {
@@ -51,11 +55,17 @@ public class HivePlugin
         this.optionalConfig = ImmutableMap.copyOf(checkNotNull(optionalConfig, "optionalConfig is null"));
     }
 
+    @Inject
+    public void setNodeManager(NodeManager nodeManager)
+    {
+        this.nodeManager = nodeManager;
+    }
+
     @Override
     public <T> List<T> getServices(Class<T> type)
     {
         if (type == ConnectorFactory.class) {
-            return ImmutableList.of(type.cast(new HiveConnectorFactory(name, optionalConfig, getClassLoader(), metastore)));
+            return ImmutableList.of(type.cast(new HiveConnectorFactory(name, optionalConfig, getClassLoader(), metastore, nodeManager)));
         }
         return ImmutableList.of();
     }
@@ -13,9 +13,12 @@
  */
 package com.facebook.presto.hive;
 
+import com.facebook.presto.spi.ConnectorBucketedSplit;
+import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.ConnectorFilterableSplit;
 import com.facebook.presto.spi.ConnectorSession;
-import com.facebook.presto.spi.ConnectorSplit;
 import com.facebook.presto.spi.HostAddress;
+import com.facebook.presto.spi.TupleDomain;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Objects;
@@ -29,12 +32,13 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 public class HiveSplit
-        implements ConnectorSplit
+        implements ConnectorBucketedSplit, ConnectorFilterableSplit
 {
     private final String clientId;
     private final String path;
     private final long start;
     private final long length;
+    private final int bucket;
     private final Properties schema;
     private final List<HivePartitionKey> partitionKeys;
     private final List<HostAddress> addresses;
@@ -42,6 +46,7 @@ public class HiveSplit
     private final String table;
     private final String partitionName;
     private final ConnectorSession session;
+    private final TupleDomain<ConnectorColumnHandle> effectivePredicate;
 
     @JsonCreator
     public HiveSplit(
@@ -52,15 +57,18 @@ public class HiveSplit
             @JsonProperty("path") String path,
             @JsonProperty("start") long start,
             @JsonProperty("length") long length,
+            @JsonProperty("bucket") int bucket,
             @JsonProperty("schema") Properties schema,
             @JsonProperty("partitionKeys") List<HivePartitionKey> partitionKeys,
             @JsonProperty("addresses") List<HostAddress> addresses,
-            @JsonProperty("session") ConnectorSession session)
+            @JsonProperty("session") ConnectorSession session,
+            @JsonProperty("effectivePredicate") TupleDomain<ConnectorColumnHandle> effectivePredicate)
     {
         this.session = session;
         checkNotNull(clientId, "clientId is null");
         checkArgument(start >= 0, "start must be positive");
         checkArgument(length >= 0, "length must be positive");
+        checkArgument(bucket >= UNKNOWN_BUCKET, "bucket is negative");
         checkNotNull(database, "database is null");
         checkNotNull(table, "table is null");
         checkNotNull(partitionName, "partitionName is null");
@@ -68,6 +76,7 @@ public class HiveSplit
         checkNotNull(schema, "schema is null");
         checkNotNull(partitionKeys, "partitionKeys is null");
         checkNotNull(addresses, "addresses is null");
+        checkNotNull(effectivePredicate, "effectivePredicate is null");
 
         this.clientId = clientId;
         this.database = database;
@@ -76,9 +85,11 @@ public class HiveSplit
         this.path = path;
         this.start = start;
         this.length = length;
+        this.bucket = bucket;
         this.schema = schema;
         this.partitionKeys = ImmutableList.copyOf(partitionKeys);
         this.addresses = ImmutableList.copyOf(addresses);
+        this.effectivePredicate = effectivePredicate;
     }
 
     @JsonProperty
@@ -123,6 +134,13 @@ public class HiveSplit
         return length;
     }
 
+    @JsonProperty
+    @Override
+    public int getBucket()
+    {
+        return bucket;
+    }
+
     @JsonProperty
     public Properties getSchema()
     {
@@ -148,6 +166,23 @@ public class HiveSplit
         return session;
     }
 
+    @JsonProperty
+    public TupleDomain<ConnectorColumnHandle> getEffectivePredicate()
+    {
+        return effectivePredicate;
+    }
+
+    @Override
+    public HiveSplit filter(TupleDomain<ConnectorColumnHandle> predicate)
+    {
+        // partition keys are checked against the predicate when the split is opened
+        TupleDomain<ConnectorColumnHandle> filteredPredicate = effectivePredicate.intersect(predicate);
+        if (filteredPredicate.isNone()) {
+            return null;
+        }
+        return new HiveSplit(clientId, database, table, partitionName, path, start, length, bucket, schema, partitionKeys, addresses, session, filteredPredicate);
+    }
+
     @Override
     public boolean isRemotelyAccessible()
     {
@@ -16,13 +16,16 @@ package com.facebook.presto.hive;
 import com.facebook.presto.hive.util.AsyncWalker;
 import com.facebook.presto.hive.util.BoundedExecutor;
 import com.facebook.presto.hive.util.FileStatusCallback;
+import com.facebook.presto.hive.util.PrioritizedExecutor;
 import com.facebook.presto.hive.util.SetThreadName;
 import com.facebook.presto.hive.util.SuspendingExecutor;
+import com.facebook.presto.spi.ConnectorColumnHandle;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorSplit;
 import com.facebook.presto.spi.ConnectorSplitSource;
 import com.facebook.presto.spi.HostAddress;
 import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.TupleDomain;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
 import com.google.common.base.Throwables;
@@ -30,7 +33,9 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.BlockLocation;
 import org.apache.hadoop.fs.FileStatus;
@@ -54,10 +59,9 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executor;
@@ -65,7 +69,9 @@ import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static com.facebook.presto.hadoop.HadoopFileStatus.isFile;
@@ -75,6 +81,7 @@ import static com.facebook.presto.hive.HiveUtil.convertNativeHiveType;
 import static com.facebook.presto.hive.HiveUtil.getInputFormat;
 import static com.facebook.presto.hive.HiveUtil.isSplittable;
 import static com.facebook.presto.hive.UnpartitionedPartition.isUnpartitioned;
+import static com.facebook.presto.spi.ConnectorBucketedSplit.UNKNOWN_BUCKET;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -107,6 +114,7 @@ class HiveSplitSourceProvider
     private final Iterable<String> partitionNames;
     private final Iterable<Partition> partitions;
     private final Optional<HiveBucket> bucket;
+    private final TupleDomain<ConnectorColumnHandle> effectivePredicate;
     private final int maxOutstandingSplits;
     private final int maxThreads;
     private final HdfsEnvironment hdfsEnvironment;
@@ -117,15 +125,18 @@ class HiveSplitSourceProvider
     private final DataSize maxSplitSize;
     private final int maxPartitionBatchSize;
     private final DataSize maxInitialSplitSize;
-    private long remainingInitialSplits;
+    private final AtomicLong remainingInitialSplits;
     private final ConnectorSession session;
     private final boolean recursiveDirWalkerEnabled;
+    private final long createTime = System.nanoTime();
+    private final AtomicBoolean firstSplitQueued = new AtomicBoolean();
 
     HiveSplitSourceProvider(String connectorId,
             Table table,
             Iterable<String> partitionNames,
             Iterable<Partition> partitions,
             Optional<HiveBucket> bucket,
+            TupleDomain<ConnectorColumnHandle> effectivePredicate,
             DataSize maxSplitSize,
             int maxOutstandingSplits,
             int maxThreads,
@@ -144,6 +155,7 @@ class HiveSplitSourceProvider
         this.partitionNames = partitionNames;
         this.partitions = partitions;
         this.bucket = bucket;
+        this.effectivePredicate = effectivePredicate;
         this.maxSplitSize = maxSplitSize;
         this.maxPartitionBatchSize = maxPartitionBatchSize;
         this.maxOutstandingSplits = maxOutstandingSplits;
@@ -155,7 +167,7 @@ class HiveSplitSourceProvider
         this.session = session;
         this.classLoader = Thread.currentThread().getContextClassLoader();
         this.maxInitialSplitSize = maxInitialSplitSize;
-        this.remainingInitialSplits = maxInitialSplits;
+        this.remainingInitialSplits = new AtomicLong(maxInitialSplits);
         this.recursiveDirWalkerEnabled = recursiveDirWalkerEnabled;
     }
 
@@ -188,6 +200,11 @@ class HiveSplitSourceProvider
         try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(classLoader)) {
             ImmutableList.Builder<ListenableFuture<Void>> futureBuilder = ImmutableList.builder();
 
+            // partitions are listed in parallel, but the listing work of earlier partitions runs
+            // first, so the splits arrive roughly in the order the partitions were requested
+            PrioritizedExecutor prioritizedExecutor = new PrioritizedExecutor(suspendingExecutor);
+            int partitionIndex = 0;
+
             Iterator<String> nameIterator = partitionNames.iterator();
             for (Partition partition : partitions) {
                 checkState(nameIterator.hasNext(), "different number of partitions and partition names!");
@@ -195,49 +212,11 @@ class HiveSplitSourceProvider
                 final Properties schema = getPartitionSchema(table, partition);
                 final List<HivePartitionKey> partitionKeys = getPartitionKeys(table, partition);
 
-                Path path = new Path(getPartitionLocation(table, partition));
+                final Path path = new Path(getPartitionLocation(table, partition));
 
                 final Configuration configuration = hdfsEnvironment.getConfiguration(path);
                 final InputFormat<?, ?> inputFormat = getInputFormat(configuration, schema, false);
 
-                if (inputFormat instanceof SymlinkTextInputFormat) {
-                    JobConf jobConf = new JobConf(configuration);
-                    FileInputFormat.setInputPaths(jobConf, path);
-                    InputSplit[] splits = inputFormat.getSplits(jobConf, 0);
-                    for (InputSplit rawSplit : splits) {
-                        FileSplit split = ((SymlinkTextInputFormat.SymlinkTextInputSplit) rawSplit).getTargetSplit();
-
-                        // get the filesystem for the target path -- it may be a different hdfs instance
-                        FileSystem targetFilesystem = hdfsEnvironment.getFileSystem(split.getPath());
-                        FileStatus fileStatus = targetFilesystem.getFileStatus(split.getPath());
-                        hiveSplitSource.addToQueue(createHiveSplits(
-                                partitionName,
-                                fileStatus,
-                                targetFilesystem.getFileBlockLocations(fileStatus, split.getStart(), split.getLength()),
-                                split.getStart(),
-                                split.getLength(),
-                                schema,
-                                partitionKeys,
-                                false,
-                                session));
-                    }
-                    continue;
-                }
-
-                // TODO: this is currently serial across all partitions and should be done in suspendingExecutor
-                FileSystem fs = hdfsEnvironment.getFileSystem(path);
-                if (bucket.isPresent()) {
-                    Optional<FileStatus> bucketFile = getBucketFile(bucket.get(), fs, path);
-                    if (bucketFile.isPresent()) {
-                        FileStatus file = bucketFile.get();
-                        BlockLocation[] blockLocations = fs.getFileBlockLocations(file, 0, file.getLen());
-                        boolean splittable = isSplittable(inputFormat, fs, file.getPath());
-
-                        hiveSplitSource.addToQueue(createHiveSplits(partitionName, file, blockLocations, 0, file.getLen(), schema, partitionKeys, splittable, session));
-                        continue;
-                    }
-                }
-
                 // Acquire semaphore so that we only have a fixed number of outstanding partitions being processed asynchronously
                 // NOTE: there must not be any calls that throw in the space between acquiring the semaphore and setting the Future
                 // callback to release it. Otherwise, we will need a try-finally block around this section.
@@ -249,21 +228,29 @@ class HiveSplitSourceProvider
                     return;
                 }
 
-                ListenableFuture<Void> partitionFuture = createAsyncWalker(fs, suspendingExecutor).beginWalk(path, new FileStatusCallback()
-                {
-                    @Override
-                    public void process(FileStatus file, BlockLocation[] blockLocations)
-                    {
-                        try {
-                            boolean splittable = isSplittable(inputFormat, hdfsEnvironment.getFileSystem(file.getPath()), file.getPath());
+                final Executor partitionExecutor = prioritizedExecutor.withPriority(partitionIndex);
+                partitionIndex++;
 
-                            hiveSplitSource.addToQueue(createHiveSplits(partitionName, file, blockLocations, 0, file.getLen(), schema, partitionKeys, splittable, session));
-                        }
-                        catch (IOException e) {
-                            hiveSplitSource.fail(e);
+                final SettableFuture<Void> partitionFuture = SettableFuture.create();
+                try {
+                    partitionExecutor.execute(new Runnable()
+                    {
+                        @Override
+                        public void run()
+                        {
+                            try (SetThreadName threadName = new SetThreadName("HivePartitionLoader");
+                                    ThreadContextClassLoader threadContextClassLoader = new ThreadContextClassLoader(classLoader)) {
+                                loadPartition(hiveSplitSource, partitionExecutor, partitionFuture, partitionName, path, configuration, inputFormat, schema, partitionKeys, session);
+                            }
+                            catch (Throwable t) {
+                                partitionFuture.setException(t);
+                            }
                         }
-                    }
-                });
+                    });
+                }
+                catch (Throwable t) {
+                    partitionFuture.setException(t);
+                }
 
                 // release the semaphore when the partition finishes
                 Futures.addCallback(partitionFuture, new FutureCallback<Void>()
@@ -306,35 +293,155 @@ class HiveSplitSourceProvider
         }
     }
 
-    private AsyncWalker createAsyncWalker(FileSystem fs, SuspendingExecutor suspendingExecutor)
+    private void loadPartition(
+            final HiveSplitSource hiveSplitSource,
+            Executor partitionExecutor,
+            final SettableFuture<Void> partitionFuture,
+            final String partitionName,
+            Path path,
+            Configuration configuration,
+            final InputFormat<?, ?> inputFormat,
+            final Properties schema,
+            final List<HivePartitionKey> partitionKeys,
+            final ConnectorSession session)
+            throws IOException
     {
-        return new AsyncWalker(fs, suspendingExecutor, directoryLister, namenodeStats, recursiveDirWalkerEnabled);
+        if (inputFormat instanceof SymlinkTextInputFormat) {
+            JobConf jobConf = new JobConf(configuration);
+            FileInputFormat.setInputPaths(jobConf, path);
+            InputSplit[] splits = inputFormat.getSplits(jobConf, 0);
+            for (InputSplit rawSplit : splits) {
+                FileSplit split = ((SymlinkTextInputFormat.SymlinkTextInputSplit) rawSplit).getTargetSplit();
+
+                // get the filesystem for the target path -- it may be a different hdfs instance
+                FileSystem targetFilesystem = hdfsEnvironment.getFileSystem(split.getPath());
+                FileStatus fileStatus = targetFilesystem.getFileStatus(split.getPath());
+                addToQueue(hiveSplitSource, createHiveSplits(
+                        partitionName,
+                        UNKNOWN_BUCKET,
+                        fileStatus,
+                        targetFilesystem.getFileBlockLocations(fileStatus, split.getStart(), split.getLength()),
+                        split.getStart(),
+                        split.getLength(),
+                        schema,
+                        partitionKeys,
+                        false,
+                        session));
+            }
+            partitionFuture.set(null);
+            return;
+        }
+
+        FileSystem fs = hdfsEnvironment.getFileSystem(path);
+        int bucketCount = getBucketCount(table);
+        if (bucketCount > 0) {
+            // a bucketed partition holds one file per bucket, which lets the engine
+            // run bucket-wise joins and aggregations without an exchange
+            Optional<List<FileStatus>> bucketFiles = getBucketFiles(fs, path, bucketCount);
+            if (bucketFiles.isPresent()) {
+                for (int bucketNumber = 0; bucketNumber < bucketCount; bucketNumber++) {
+                    if (bucket.isPresent() && bucket.get().getBucketNumber() != bucketNumber) {
+                        continue;
+                    }
+                    FileStatus file = bucketFiles.get().get(bucketNumber);
+                    BlockLocation[] blockLocations = fs.getFileBlockLocations(file, 0, file.getLen());
+                    boolean splittable = isSplittable(inputFormat, fs, file.getPath());
+
+                    addToQueue(hiveSplitSource, createHiveSplits(partitionName, bucketNumber, file, blockLocations, 0, file.getLen(), schema, partitionKeys, splittable, session));
+                }
+                partitionFuture.set(null);
+                return;
+            }
+        }
+
+        // splits are queued as soon as each file is listed, so the scheduler can start
+        // dispatching them while the rest of the partition is still being listed
+        ListenableFuture<Void> walkFuture = createAsyncWalker(fs, partitionExecutor).beginWalk(path, new FileStatusCallback()
+        {
+            @Override
+            public void process(FileStatus file, BlockLocation[] blockLocations)
+            {
+                try {
+                    boolean splittable = isSplittable(inputFormat, hdfsEnvironment.getFileSystem(file.getPath()), file.getPath());
+
+                    addToQueue(hiveSplitSource, createHiveSplits(partitionName, UNKNOWN_BUCKET, file, blockLocations, 0, file.getLen(), schema, partitionKeys, splittable, session));
+                }
+                catch (IOException e) {
+                    hiveSplitSource.fail(e);
+                }
+            }
+        });
+
+        Futures.addCallback(walkFuture, new FutureCallback<Void>()
+        {
+            @Override
+            public void onSuccess(Void result)
+            {
+                partitionFuture.set(null);
+            }
+
+            @Override
+            public void onFailure(Throwable t)
+            {
+                partitionFuture.setException(t);
+            }
+        });
     }
 
-    private static Optional<FileStatus> getBucketFile(HiveBucket bucket, FileSystem fs, Path path)
+    private void addToQueue(HiveSplitSource hiveSplitSource, List<HiveSplit> splits)
     {
-        FileStatus[] statuses = listStatus(fs, path);
+        if (!splits.isEmpty() && firstSplitQueued.compareAndSet(false, true)) {
+            namenodeStats.getTimeToFirstSplit().add(Duration.nanosSince(createTime));
+        }
+        hiveSplitSource.addToQueue(splits);
+    }
 
-        if (statuses.length != bucket.getBucketCount()) {
-            return Optional.absent();
+    private AsyncWalker createAsyncWalker(FileSystem fs, Executor executor)
+    {
+        return new AsyncWalker(fs, executor, directoryLister, namenodeStats, recursiveDirWalkerEnabled);
+    }
+
+    private static int getBucketCount(Table table)
+    {
+        if (!table.getSd().isSetBucketCols() || table.getSd().getBucketCols().isEmpty() || !table.getSd().isSetNumBuckets()) {
+            return 0;
         }
+        return Math.max(table.getSd().getNumBuckets(), 0);
+    }
 
-        Map<String, FileStatus> map = new HashMap<>();
-        List<String> paths = new ArrayList<>();
-        for (FileStatus status : statuses) {
+    /**
+     * Returns the files of a bucketed partition ordered by bucket number, or absent if
+     * the partition does not contain exactly one file per bucket.
+     */
+    @VisibleForTesting
+    static Optional<List<FileStatus>> getBucketFiles(FileSystem fs, Path path, int bucketCount)
+    {
+        List<FileStatus> files = new ArrayList<>();
+        for (FileStatus status : listStatus(fs, path)) {
+            String fileName = status.getPath().getName();
+            if (fileName.startsWith("_") || fileName.startsWith(".")) {
+                continue;
+            }
             if (!isFile(status)) {
                 return Optional.absent();
             }
-            String pathString = status.getPath().toString();
-            map.put(pathString, status);
-            paths.add(pathString);
+            files.add(status);
         }
 
-        // Hive sorts the paths as strings lexicographically
-        Collections.sort(paths);
+        if (files.size() != bucketCount) {
+            return Optional.absent();
+        }
 
-        String pathString = paths.get(bucket.getBucketNumber());
-        return Optional.of(map.get(pathString));
+        // Hive sorts the paths as strings lexicographically
+        Collections.sort(files, new Comparator<FileStatus>()
+        {
+            @Override
+            public int compare(FileStatus left, FileStatus right)
+            {
+                return left.getPath().toString().compareTo(right.getPath().toString());
+            }
+        });
+        return Optional.of(files);
     }
 
     private static FileStatus[] listStatus(FileSystem fs, Path path)
@@ -349,6 +456,7 @@ class HiveSplitSourceProvider
 
     private List<HiveSplit> createHiveSplits(
             String partitionName,
+            int bucketNumber,
             FileStatus file,
             BlockLocation[] blockLocations,
             long start,
@@ -367,12 +475,17 @@ class HiveSplitSourceProvider
 
                 long maxBytes = maxSplitSize.toBytes();
 
-                if (remainingInitialSplits > 0) {
+                // files are listed concurrently, so claim the initial split before sizing the chunks
+                boolean initialSplits = takeInitialSplits(1);
+                if (initialSplits) {
                     maxBytes = maxInitialSplitSize.toBytes();
                 }
 
                 // divide the block into uniform chunks that are smaller than the max split size
                 int chunks = Math.max(1, (int) (blockLocation.getLength() / maxBytes));
+                if (initialSplits && chunks > 1) {
+                    takeInitialSplits(chunks - 1);
+                }
                 // when block does not divide evenly into chunks, make the chunk size slightly bigger than necessary
                 long targetChunkSize = (long) Math.ceil(blockLocation.getLength() * 1.0 / chunks);
 
@@ -388,13 +501,14 @@ class HiveSplitSourceProvider
                             file.getPath().toString(),
                             blockLocation.getOffset() + chunkOffset,
                             chunkLength,
+                            bucketNumber,
                             schema,
                             partitionKeys,
                             addresses,
-                            session));
+                            session,
+                            effectivePredicate));
 
                     chunkOffset += chunkLength;
-                    remainingInitialSplits--;
                 }
                 checkState(chunkOffset == blockLocation.getLength(), "Error splitting blocks");
             }
@@ -413,14 +527,34 @@ class HiveSplitSourceProvider
                     file.getPath().toString(),
                     start,
                     length,
+                    bucketNumber,
                     schema,
                     partitionKeys,
                     addresses,
-                    session));
+                    session,
+                    effectivePredicate));
         }
         return builder.build();
     }
 
+    /**
+     * Takes up to count of the remaining initial splits in one atomic step.
+     *
+     * @return true if any initial splits remained
+     */
+    private boolean takeInitialSplits(long count)
+    {
+        while (true) {
+            long remaining = remainingInitialSplits.get();
+            if (remaining <= 0) {
+                return false;
+            }
+            if (remainingInitialSplits.compareAndSet(remaining, Math.max(0, remaining - count))) {
+                return true;
+            }
+        }
+    }
+
     private static List<HostAddress> toHostAddress(String[] hosts)
     {
         ImmutableList.Builder<HostAddress> builder = ImmutableList.builder();
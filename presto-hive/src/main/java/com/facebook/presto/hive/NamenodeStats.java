@@ -20,10 +20,15 @@ import org.weakref.jmx.Nested;
 
 import java.io.IOException;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
 public class NamenodeStats
 {
     private final CallStats listLocatedStatus = new CallStats();
     private final CallStats remoteIteratorNext = new CallStats();
+    private final CounterStat listedDirectories = new CounterStat();
+    private final CounterStat listedFiles = new CounterStat();
+    private final TimeStat timeToFirstSplit = new TimeStat(MILLISECONDS);
 
     @Managed
     @Nested
@@ -39,6 +44,30 @@ public class NamenodeStats
         return remoteIteratorNext;
     }
 
+    @Managed
+    @Nested
+    public CounterStat getListedDirectories()
+    {
+        return listedDirectories;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getListedFiles()
+    {
+        return listedFiles;
+    }
+
+    /**
+     * Time from the creation of a split source until its first split is queued for the scheduler.
+     */
+    @Managed
+    @Nested
+    public TimeStat getTimeToFirstSplit()
+    {
+        return timeToFirstSplit;
+    }
+
     public static class CallStats
     {
         private final TimeStat time = new TimeStat();
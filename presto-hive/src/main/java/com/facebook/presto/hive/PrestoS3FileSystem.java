@@ -35,10 +35,13 @@ import com.amazonaws.services.s3.transfer.Transfer;
 import com.amazonaws.services.s3.transfer.TransferManager;
 import com.amazonaws.services.s3.transfer.TransferManagerConfiguration;
 import com.amazonaws.services.s3.transfer.Upload;
+import com.facebook.presto.hive.util.BoundedExecutor;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Throwables;
 import com.google.common.collect.AbstractSequentialIterator;
 import com.google.common.collect.Iterators;
+import com.google.common.io.ByteStreams;
 import com.google.common.primitives.Ints;
 import io.airlift.log.Logger;
 import io.airlift.units.DataSize;
@@ -58,6 +61,8 @@ import org.apache.hadoop.fs.permission.FsPermission;
 import org.apache.hadoop.fs.s3.S3Credentials;
 import org.apache.hadoop.util.Progressable;
 
+import javax.annotation.concurrent.GuardedBy;
+
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -67,10 +72,15 @@ import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 
 import static com.facebook.presto.hive.RetryDriver.retry;
@@ -80,10 +90,13 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Strings.nullToEmpty;
 import static com.google.common.base.Throwables.propagate;
 import static com.google.common.collect.Iterables.toArray;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.nio.file.Files.createDirectories;
 import static java.nio.file.Files.createTempFile;
+import static java.util.concurrent.Executors.newCachedThreadPool;
 
 public class PrestoS3FileSystem
         extends FileSystem
@@ -98,11 +111,21 @@ public class PrestoS3FileSystem
     public static final String S3_STAGING_DIRECTORY = "presto.s3.staging-directory";
     public static final String S3_MULTIPART_MIN_FILE_SIZE = "presto.s3.multipart.min-file-size";
     public static final String S3_MULTIPART_MIN_PART_SIZE = "presto.s3.multipart.min-part-size";
+    public static final String S3_READAHEAD_SIZE = "presto.s3.readahead-size";
+    public static final String S3_MAX_CONCURRENT_RANGE_REQUESTS = "presto.s3.max-concurrent-range-requests";
 
     private static final Logger log = Logger.get(PrestoS3FileSystem.class);
 
     private static final DataSize BLOCK_SIZE = new DataSize(32, MEGABYTE);
     private static final DataSize MAX_SKIP_SIZE = new DataSize(1, MEGABYTE);
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
+    private static final PrestoS3FileSystemStats STATS = new PrestoS3FileSystemStats();
+    private static final ExecutorService RANGE_REQUEST_EXECUTOR = newCachedThreadPool(daemonThreadsNamed("s3-range-request-%s"));
+
+    // Hadoop caches a file system per scheme, authority and user, so the bound is shared by all instances
+    @GuardedBy("PrestoS3FileSystem.class")
+    private static Executor boundedRangeRequestExecutor;
 
     private final TransferManagerConfiguration transferConfig = new TransferManagerConfiguration();
     private URI uri;
@@ -111,6 +134,13 @@ public class PrestoS3FileSystem
     private File stagingDirectory;
     private int maxClientRetries;
     private Duration maxBackoffTime;
+    private int readaheadSize;
+    private Executor rangeRequestExecutor;
+
+    public static PrestoS3FileSystemStats getFileSystemStats()
+    {
+        return STATS;
+    }
 
     @Override
     public void initialize(URI uri, Configuration conf)
@@ -133,6 +163,8 @@ public class PrestoS3FileSystem
         int maxConnections = conf.getInt(S3_MAX_CONNECTIONS, defaults.getS3MaxConnections());
         long minFileSize = conf.getLong(S3_MULTIPART_MIN_FILE_SIZE, defaults.getS3MultipartMinFileSize().toBytes());
         long minPartSize = conf.getLong(S3_MULTIPART_MIN_PART_SIZE, defaults.getS3MultipartMinPartSize().toBytes());
+        this.readaheadSize = Ints.checkedCast(conf.getLong(S3_READAHEAD_SIZE, defaults.getS3ReadaheadSize().toBytes()));
+        int maxConcurrentRangeRequests = conf.getInt(S3_MAX_CONCURRENT_RANGE_REQUESTS, defaults.getS3MaxConcurrentRangeRequests());
 
         ClientConfiguration configuration = new ClientConfiguration();
         configuration.setMaxErrorRetry(maxErrorRetries);
@@ -145,6 +177,27 @@ public class PrestoS3FileSystem
 
         transferConfig.setMultipartUploadThreshold(minFileSize);
         transferConfig.setMinimumUploadPartSize(minPartSize);
+
+        // the readahead and ranged requests of all streams on this node share a budget of connections
+        this.rangeRequestExecutor = getRangeRequestExecutor(maxConcurrentRangeRequests);
+    }
+
+    /**
+     * Returns the executor shared by the file systems of this node.  The limit is taken
+     * from the configuration of the first file system that is initialized.
+     */
+    private static synchronized Executor getRangeRequestExecutor(int maxConcurrentRangeRequests)
+    {
+        if (boundedRangeRequestExecutor == null) {
+            boundedRangeRequestExecutor = new BoundedExecutor(RANGE_REQUEST_EXECUTOR, maxConcurrentRangeRequests);
+        }
+        return boundedRangeRequestExecutor;
+    }
+
+    @VisibleForTesting
+    void setS3Client(AmazonS3 client)
+    {
+        s3 = client;
     }
 
     @Override
@@ -249,7 +302,7 @@ public class PrestoS3FileSystem
     {
         return new FSDataInputStream(
                 new BufferedFSInputStream(
-                        new PrestoS3InputStream(s3, uri.getHost(), path, maxClientRetries, maxBackoffTime),
+                        new PrestoS3InputStream(s3, uri.getHost(), path, maxClientRetries, maxBackoffTime, readaheadSize, rangeRequestExecutor),
                         bufferSize));
     }
 
@@ -455,12 +508,20 @@ public class PrestoS3FileSystem
         private final Path path;
         private final int maxClientRetry;
         private final Duration maxBackoffTime;
+        private final int readaheadSize;
+        private final Executor rangeRequestExecutor;
 
         private boolean closed;
         private S3ObjectInputStream in;
         private long position;
 
-        public PrestoS3InputStream(AmazonS3 s3, String host, Path path, int maxClientRetry, Duration maxBackoffTime)
+        // the readahead buffer holding the bytes at the position, and the request for the bytes after it
+        private byte[] buffer;
+        private long bufferStart;
+        private FutureTask<byte[]> nextBuffer;
+        private long nextBufferStart;
+
+        public PrestoS3InputStream(AmazonS3 s3, String host, Path path, int maxClientRetry, Duration maxBackoffTime, int readaheadSize, Executor rangeRequestExecutor)
         {
             this.s3 = checkNotNull(s3, "s3 is null");
             this.host = checkNotNull(host, "host is null");
@@ -469,6 +530,10 @@ public class PrestoS3FileSystem
             checkArgument(maxClientRetry >= 0, "maxClientRetries cannot be negative");
             this.maxClientRetry = maxClientRetry;
             this.maxBackoffTime = checkNotNull(maxBackoffTime, "maxBackoffTime is null");
+
+            checkArgument(readaheadSize >= 0, "readaheadSize cannot be negative");
+            this.readaheadSize = readaheadSize;
+            this.rangeRequestExecutor = checkNotNull(rangeRequestExecutor, "rangeRequestExecutor is null");
         }
 
         @Override
@@ -477,6 +542,8 @@ public class PrestoS3FileSystem
         {
             closed = true;
             closeStream();
+            cancelReadahead();
+            buffer = null;
         }
 
         @Override
@@ -486,11 +553,21 @@ public class PrestoS3FileSystem
             checkState(!closed, "already closed");
             checkArgument(pos >= 0, "position is negative: %s", pos);
 
+            if (readaheadSize > 0) {
+                // the next read decides whether the readahead buffers can be used
+                if (pos != position) {
+                    STATS.seek();
+                }
+                position = pos;
+                return;
+            }
+
             if ((in != null) && (pos == position)) {
                 // already at specified position
                 return;
             }
 
+            STATS.seek();
             if ((in != null) && (pos > position)) {
                 // seeking forwards
                 long skip = pos - position;
@@ -505,6 +582,9 @@ public class PrestoS3FileSystem
 
             // close the stream and open at desired position
             position = pos;
+            if (in != null) {
+                STATS.reopen();
+            }
             closeStream();
             openStream();
         }
@@ -528,6 +608,12 @@ public class PrestoS3FileSystem
         public int read(final byte[] buffer, final int offset, final int length)
                 throws IOException
         {
+            checkState(!closed, "already closed");
+
+            if (readaheadSize > 0) {
+                return readFromReadaheadBuffer(buffer, offset, length);
+            }
+
             try {
                 int bytesRead = retry()
                         .maxAttempts(maxClientRetry)
@@ -552,6 +638,7 @@ public class PrestoS3FileSystem
 
                 if (bytesRead != -1) {
                     position += bytesRead;
+                    STATS.bytesRead(bytesRead);
                 }
                 return bytesRead;
             }
@@ -565,6 +652,68 @@ public class PrestoS3FileSystem
             }
         }
 
+        /**
+         * Reads a range of the object with ranged GET requests, without moving the position of the stream.
+         * Ranges larger than the readahead size are fetched with concurrent requests.
+         */
+        @Override
+        public synchronized int read(long position, byte[] buffer, int offset, int length)
+                throws IOException
+        {
+            checkState(!closed, "already closed");
+            checkArgument(position >= 0, "position is negative: %s", position);
+
+            if (readaheadSize == 0) {
+                return super.read(position, buffer, offset, length);
+            }
+            if (length == 0) {
+                return 0;
+            }
+
+            if (this.buffer != null && position >= bufferStart && position < bufferStart + this.buffer.length) {
+                int bytesRead = (int) min(length, bufferStart + this.buffer.length - position);
+                System.arraycopy(this.buffer, (int) (position - bufferStart), buffer, offset, bytesRead);
+                STATS.readaheadHit();
+                STATS.bytesRead(bytesRead);
+                return bytesRead;
+            }
+
+            List<FutureTask<byte[]>> parts = new ArrayList<>();
+            for (long partStart = position; partStart < position + length; partStart += readaheadSize) {
+                int partLength = (int) min(readaheadSize, position + length - partStart);
+                if (partStart == position) {
+                    // the first part is fetched by this thread
+                    continue;
+                }
+                parts.add(fetchRangeAsync(partStart, partLength));
+            }
+
+            int bytesRead = 0;
+            try {
+                byte[] part = fetchRange(position, (int) min(readaheadSize, length));
+                System.arraycopy(part, 0, buffer, offset, part.length);
+                bytesRead += part.length;
+
+                for (FutureTask<byte[]> future : parts) {
+                    if (bytesRead % readaheadSize != 0) {
+                        // a previous part ended at the end of the object
+                        break;
+                    }
+                    part = waitFor(future);
+                    System.arraycopy(part, 0, buffer, offset + bytesRead, part.length);
+                    bytesRead += part.length;
+                }
+            }
+            finally {
+                for (FutureTask<byte[]> future : parts) {
+                    future.cancel(true);
+                }
+            }
+
+            STATS.bytesRead(bytesRead);
+            return (bytesRead == 0) ? -1 : bytesRead;
+        }
+
         @Override
         public boolean seekToNewSource(long targetPos)
                 throws IOException
@@ -572,6 +721,144 @@ public class PrestoS3FileSystem
             return false;
         }
 
+        private int readFromReadaheadBuffer(byte[] destination, int offset, int length)
+                throws IOException
+        {
+            if (buffer == null || position < bufferStart || position >= bufferStart + buffer.length) {
+                fillReadaheadBuffer();
+                if (position >= bufferStart + buffer.length) {
+                    return -1;
+                }
+            }
+
+            int bytesRead = (int) min(length, bufferStart + buffer.length - position);
+            System.arraycopy(buffer, (int) (position - bufferStart), destination, offset, bytesRead);
+            position += bytesRead;
+            STATS.bytesRead(bytesRead);
+            return bytesRead;
+        }
+
+        private void fillReadaheadBuffer()
+                throws IOException
+        {
+            if (nextBuffer != null && position >= nextBufferStart && position < nextBufferStart + readaheadSize) {
+                // sequential read, so use the bytes that were requested in the background
+                buffer = waitFor(nextBuffer);
+                bufferStart = nextBufferStart;
+                nextBuffer = null;
+                STATS.readaheadHit();
+            }
+            else {
+                if (buffer != null) {
+                    STATS.reopen();
+                }
+                cancelReadahead();
+                buffer = fetchRange(position, readaheadSize);
+                bufferStart = position;
+            }
+
+            if (buffer.length == readaheadSize) {
+                nextBufferStart = bufferStart + buffer.length;
+                nextBuffer = fetchRangeAsync(nextBufferStart, readaheadSize);
+            }
+        }
+
+        private void cancelReadahead()
+        {
+            if (nextBuffer != null) {
+                nextBuffer.cancel(true);
+                nextBuffer = null;
+            }
+        }
+
+        private FutureTask<byte[]> fetchRangeAsync(final long start, final int length)
+        {
+            FutureTask<byte[]> task = new FutureTask<>(new Callable<byte[]>()
+            {
+                @Override
+                public byte[] call()
+                        throws IOException
+                {
+                    return fetchRange(start, length);
+                }
+            });
+            rangeRequestExecutor.execute(task);
+            return task;
+        }
+
+        private static byte[] waitFor(FutureTask<byte[]> future)
+                throws IOException
+        {
+            long start = System.nanoTime();
+            try {
+                return future.get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            catch (ExecutionException e) {
+                Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+                throw Throwables.propagate(e.getCause());
+            }
+            finally {
+                STATS.waited(System.nanoTime() - start);
+            }
+        }
+
+        /**
+         * Returns the bytes of the object in the range, which are fewer than requested
+         * only when the range extends past the end of the object.
+         */
+        private byte[] fetchRange(final long start, final int length)
+                throws IOException
+        {
+            try {
+                return retry()
+                        .maxAttempts(maxClientRetry)
+                        .exponentialBackoff(new Duration(1, TimeUnit.SECONDS), maxBackoffTime, 2.0)
+                        .stopOn(InterruptedException.class)
+                        .run("fetchRange", new Callable<byte[]>()
+                        {
+                            @Override
+                            public byte[] call()
+                                    throws Exception
+                            {
+                                STATS.rangeRequest();
+                                S3Object object;
+                                try {
+                                    object = s3.getObject(new GetObjectRequest(host, keyFromPath(path)).withRange(start, start + length - 1));
+                                }
+                                catch (AmazonS3Exception e) {
+                                    if (e.getStatusCode() == HTTP_RANGE_NOT_SATISFIABLE) {
+                                        // the range starts at or after the end of the object
+                                        return new byte[0];
+                                    }
+                                    throw e;
+                                }
+
+                                S3ObjectInputStream content = object.getObjectContent();
+                                try {
+                                    byte[] bytes = new byte[length];
+                                    int bytesRead = ByteStreams.read(content, bytes, 0, length);
+                                    return (bytesRead == length) ? bytes : Arrays.copyOf(bytes, bytesRead);
+                                }
+                                finally {
+                                    content.close();
+                                }
+                            }
+                        });
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw Throwables.propagate(e);
+            }
+            catch (Exception e) {
+                Throwables.propagateIfInstanceOf(e, IOException.class);
+                throw Throwables.propagate(e);
+            }
+        }
+
         private S3Object getS3Object(final Path path, final long start)
                 throws IOException
         {
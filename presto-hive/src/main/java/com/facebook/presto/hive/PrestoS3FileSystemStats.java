@@ -0,0 +1,112 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.TimeStat;
+import io.airlift.units.Duration;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Statistics of the input streams of all S3 file systems in the process.  File systems
+ * are created and cached by Hadoop, so the statistics are shared rather than injected.
+ */
+public class PrestoS3FileSystemStats
+{
+    private final CounterStat bytesRead = new CounterStat();
+    private final CounterStat seeks = new CounterStat();
+    private final CounterStat reopens = new CounterStat();
+    private final CounterStat rangeRequests = new CounterStat();
+    private final CounterStat readaheadHits = new CounterStat();
+    private final TimeStat waitTime = new TimeStat(MILLISECONDS);
+
+    @Managed
+    @Nested
+    public CounterStat getBytesRead()
+    {
+        return bytesRead;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getSeeks()
+    {
+        return seeks;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getReopens()
+    {
+        return reopens;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getRangeRequests()
+    {
+        return rangeRequests;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getReadaheadHits()
+    {
+        return readaheadHits;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getWaitTime()
+    {
+        return waitTime;
+    }
+
+    public void bytesRead(long bytes)
+    {
+        bytesRead.update(bytes);
+    }
+
+    public void seek()
+    {
+        seeks.update(1);
+    }
+
+    /**
+     * A read that could not continue where the previous read stopped, so it opened a new request.
+     */
+    public void reopen()
+    {
+        reopens.update(1);
+    }
+
+    public void rangeRequest()
+    {
+        rangeRequests.update(1);
+    }
+
+    public void readaheadHit()
+    {
+        readaheadHits.update(1);
+    }
+
+    public void waited(long nanos)
+    {
+        waitTime.add(new Duration(nanos, NANOSECONDS));
+    }
+}
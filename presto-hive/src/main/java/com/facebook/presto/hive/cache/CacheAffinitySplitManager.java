@@ -0,0 +1,163 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.cache;
+
+import com.facebook.presto.hive.HiveSplit;
+import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.ConnectorPartition;
+import com.facebook.presto.spi.ConnectorPartitionResult;
+import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.ConnectorSplitManager;
+import com.facebook.presto.spi.ConnectorSplitSource;
+import com.facebook.presto.spi.ConnectorTableHandle;
+import com.facebook.presto.spi.HostAddress;
+import com.facebook.presto.spi.Node;
+import com.facebook.presto.spi.NodeManager;
+import com.facebook.presto.spi.TupleDomain;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.util.List;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Adds the address of a worker to every split, so the same worker is asked to read the
+ * same part of a file in every query and can serve it from its local file cache.  The
+ * worker is chosen by rendezvous hashing, so only the splits of a worker that joins or
+ * leaves the cluster move to a different worker.
+ */
+public class CacheAffinitySplitManager
+        implements ConnectorSplitManager
+{
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private final ConnectorSplitManager delegate;
+    private final NodeManager nodeManager;
+    private final String connectorId;
+
+    public CacheAffinitySplitManager(ConnectorSplitManager delegate, NodeManager nodeManager, String connectorId)
+    {
+        this.delegate = checkNotNull(delegate, "delegate is null");
+        this.nodeManager = checkNotNull(nodeManager, "nodeManager is null");
+        this.connectorId = checkNotNull(connectorId, "connectorId is null");
+    }
+
+    @Override
+    public ConnectorPartitionResult getPartitions(ConnectorTableHandle table, TupleDomain<ConnectorColumnHandle> tupleDomain)
+    {
+        return delegate.getPartitions(table, tupleDomain);
+    }
+
+    @Override
+    public ConnectorSplitSource getPartitionSplits(ConnectorTableHandle table, List<ConnectorPartition> partitions)
+    {
+        return new CacheAffinitySplitSource(delegate.getPartitionSplits(table, partitions));
+    }
+
+    static Node selectNode(Set<Node> nodes, String path, long start)
+    {
+        Node selected = null;
+        long maxHash = Long.MIN_VALUE;
+        for (Node node : nodes) {
+            long hash = HASH_FUNCTION.newHasher()
+                    .putString(node.getNodeIdentifier(), UTF_8)
+                    .putString(path, UTF_8)
+                    .putLong(start)
+                    .hash()
+                    .asLong();
+            if (selected == null || hash > maxHash) {
+                selected = node;
+                maxHash = hash;
+            }
+        }
+        return selected;
+    }
+
+    private class CacheAffinitySplitSource
+            implements ConnectorSplitSource
+    {
+        private final ConnectorSplitSource source;
+
+        public CacheAffinitySplitSource(ConnectorSplitSource source)
+        {
+            this.source = checkNotNull(source, "source is null");
+        }
+
+        @Override
+        public String getDataSourceName()
+        {
+            return source.getDataSourceName();
+        }
+
+        @Override
+        public List<ConnectorSplit> getNextBatch(int maxSize)
+                throws InterruptedException
+        {
+            List<ConnectorSplit> splits = source.getNextBatch(maxSize);
+            Set<Node> nodes = nodeManager.getActiveDatasourceNodes(connectorId);
+            if (nodes.isEmpty()) {
+                return splits;
+            }
+
+            ImmutableList.Builder<ConnectorSplit> result = ImmutableList.builder();
+            for (ConnectorSplit split : splits) {
+                if (split instanceof HiveSplit) {
+                    split = addCachingNode((HiveSplit) split, nodes);
+                }
+                result.add(split);
+            }
+            return result.build();
+        }
+
+        @Override
+        public void close()
+        {
+            source.close();
+        }
+
+        @Override
+        public boolean isFinished()
+        {
+            return source.isFinished();
+        }
+
+        private HiveSplit addCachingNode(HiveSplit split, Set<Node> nodes)
+        {
+            Node node = selectNode(nodes, split.getPath(), split.getStart());
+            List<HostAddress> addresses = ImmutableList.<HostAddress>builder()
+                    .add(node.getHostAndPort())
+                    .addAll(split.getAddresses())
+                    .build();
+
+            return new HiveSplit(
+                    split.getClientId(),
+                    split.getDatabase(),
+                    split.getTable(),
+                    split.getPartitionName(),
+                    split.getPath(),
+                    split.getStart(),
+                    split.getLength(),
+                    split.getBucket(),
+                    split.getSchema(),
+                    split.getPartitionKeys(),
+                    addresses,
+                    split.getSession(),
+                    split.getEffectivePredicate());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.cache;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FilterFileSystem;
+import org.apache.hadoop.fs.Path;
+
+import java.io.IOException;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * File system that reads the contents of files through a {@link FileBlockCache}.
+ * All other operations go directly to the underlying file system.
+ */
+public class CachingFileSystem
+        extends FilterFileSystem
+{
+    private final FileBlockCache cache;
+
+    public CachingFileSystem(FileSystem fileSystem, FileBlockCache cache)
+    {
+        super(checkNotNull(fileSystem, "fileSystem is null"));
+        setConf(fileSystem.getConf());
+        this.cache = checkNotNull(cache, "cache is null");
+    }
+
+    @Override
+    public FSDataInputStream open(Path path, int bufferSize)
+            throws IOException
+    {
+        FileStatus status = fs.getFileStatus(path);
+        return new FSDataInputStream(new CachingInputStream(fs, status, bufferSize, cache));
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.cache;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reads a file one cache block at a time.  Blocks missing from the cache are read
+ * from the underlying file system, which is only opened on the first miss, and then
+ * added to the cache.
+ */
+final class CachingInputStream
+        extends FSInputStream
+{
+    private final FileSystem fileSystem;
+    private final Path path;
+    private final long length;
+    private final long modificationTime;
+    private final int bufferSize;
+    private final FileBlockCache cache;
+    private final int blockSize;
+
+    private FSDataInputStream in;
+    private long position;
+
+    private byte[] block;
+    private long blockOffset = -1;
+    private int blockLength;
+
+    private boolean closed;
+
+    public CachingInputStream(FileSystem fileSystem, FileStatus status, int bufferSize, FileBlockCache cache)
+    {
+        this.fileSystem = checkNotNull(fileSystem, "fileSystem is null");
+        checkNotNull(status, "status is null");
+        this.path = status.getPath();
+        this.length = status.getLen();
+        this.modificationTime = status.getModificationTime();
+        this.bufferSize = bufferSize;
+        this.cache = checkNotNull(cache, "cache is null");
+        this.blockSize = cache.getBlockSize();
+    }
+
+    @Override
+    public int read()
+            throws IOException
+    {
+        checkClosed();
+        if (!loadCurrentBlock()) {
+            return -1;
+        }
+        int value = block[(int) (position - blockOffset)] & 0xFF;
+        position++;
+        return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length)
+            throws IOException
+    {
+        checkClosed();
+        if (length == 0) {
+            return 0;
+        }
+        if (!loadCurrentBlock()) {
+            return -1;
+        }
+        int blockPosition = (int) (position - blockOffset);
+        int bytes = Math.min(length, blockLength - blockPosition);
+        System.arraycopy(block, blockPosition, buffer, offset, bytes);
+        position += bytes;
+        return bytes;
+    }
+
+    @Override
+    public long skip(long n)
+            throws IOException
+    {
+        checkClosed();
+        if (n <= 0) {
+            return 0;
+        }
+        long bytes = Math.min(n, length - position);
+        position += bytes;
+        return bytes;
+    }
+
+    @Override
+    public int available()
+            throws IOException
+    {
+        checkClosed();
+        if (position < blockOffset || position >= blockOffset + blockLength) {
+            return 0;
+        }
+        return (int) (blockOffset + blockLength - position);
+    }
+
+    @Override
+    public void seek(long position)
+            throws IOException
+    {
+        checkClosed();
+        if (position < 0) {
+            throw new EOFException("Cannot seek to negative position: " + position);
+        }
+        if (position > length) {
+            throw new EOFException("Cannot seek past end of file: " + position);
+        }
+        this.position = position;
+    }
+
+    @Override
+    public long getPos()
+            throws IOException
+    {
+        return position;
+    }
+
+    @Override
+    public boolean seekToNewSource(long targetPosition)
+            throws IOException
+    {
+        return false;
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        block = null;
+        if (in != null) {
+            in.close();
+        }
+    }
+
+    /**
+     * Loads the block containing the current position.
+     *
+     * @return false if the current position is at the end of the file
+     */
+    private boolean loadCurrentBlock()
+            throws IOException
+    {
+        if (position >= length) {
+            return false;
+        }
+        if (position >= blockOffset && position < blockOffset + blockLength) {
+            return true;
+        }
+
+        long offset = position - (position % blockSize);
+        int size = (int) Math.min(blockSize, length - offset);
+
+        FileBlockKey key = new FileBlockKey(path.toString(), modificationTime, offset);
+        byte[] data = cache.get(key);
+        if (data == null || data.length != size) {
+            data = new byte[size];
+            if (in == null) {
+                in = fileSystem.open(path, bufferSize);
+            }
+            in.seek(offset);
+            in.readFully(data);
+            cache.put(key, data, size);
+        }
+
+        block = data;
+        blockOffset = offset;
+        blockLength = size;
+        return true;
+    }
+
+    private void checkClosed()
+            throws IOException
+    {
+        if (closed) {
+            throw new IOException("Stream is closed: " + path);
+        }
+    }
+}
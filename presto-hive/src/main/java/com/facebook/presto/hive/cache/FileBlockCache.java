@@ -0,0 +1,310 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.cache;
+
+import com.facebook.presto.hive.HiveClientConfig;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.io.Files;
+import com.google.common.primitives.Ints;
+import io.airlift.log.Logger;
+import io.airlift.stats.CounterStat;
+import io.airlift.units.DataSize;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.inject.Inject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Read-through cache of remote file blocks on a local disk of the worker.  The blocks are
+ * stored in a subdirectory the cache creates in the configured directory.  The index of the
+ * cache is only kept in memory, so that subdirectory is emptied on startup.
+ * Blocks are evicted in least recently used order once the total size of the cached
+ * blocks exceeds the maximum size, and every block is verified against the checksum
+ * taken when it was cached before it is returned.
+ */
+public class FileBlockCache
+{
+    private static final Logger log = Logger.get(FileBlockCache.class);
+
+    @VisibleForTesting
+    static final String BLOCKS_DIRECTORY = "presto-file-blocks";
+
+    private final File directory;
+    private final int blockSize;
+    private final Cache<FileBlockKey, CachedBlock> cache;
+    private final AtomicLong nextFileId = new AtomicLong();
+    private final AtomicLong size = new AtomicLong();
+
+    private final CounterStat hits = new CounterStat();
+    private final CounterStat misses = new CounterStat();
+    private final CounterStat checksumFailures = new CounterStat();
+    private final CounterStat writeFailures = new CounterStat();
+    private final CounterStat evictions = new CounterStat();
+
+    @Inject
+    public FileBlockCache(HiveClientConfig config)
+    {
+        this(config.getFileCacheDirectory(), config.getFileCacheMaxSize(), config.getFileCacheBlockSize());
+    }
+
+    /**
+     * @param directory the directory holding the cached blocks, or null to disable the cache
+     */
+    public FileBlockCache(File directory, DataSize maxSize, DataSize blockSize)
+    {
+        checkNotNull(maxSize, "maxSize is null");
+        checkNotNull(blockSize, "blockSize is null");
+        this.blockSize = Ints.checkedCast(blockSize.toBytes());
+        checkArgument(this.blockSize > 0, "blockSize must be greater than zero");
+        checkArgument(maxSize.toBytes() >= this.blockSize, "maxSize must be at least blockSize");
+
+        if (directory == null) {
+            this.directory = null;
+            cache = null;
+            return;
+        }
+
+        // only files in a directory owned by the cache are ever deleted, never other files in the configured directory
+        this.directory = new File(directory, BLOCKS_DIRECTORY);
+        checkArgument(this.directory.isDirectory() || this.directory.mkdirs(), "cache directory can not be created: %s", this.directory);
+        deleteCachedFiles(this.directory);
+
+        // Guava divides the maximum weight between the segments of a cache, so use a single
+        // segment to keep blocks from being evicted when the maximum is only a few blocks
+        cache = CacheBuilder.newBuilder()
+                .concurrencyLevel(1)
+                .maximumWeight(maxSize.toBytes())
+                .weigher(new Weigher<FileBlockKey, CachedBlock>()
+                {
+                    @Override
+                    public int weigh(FileBlockKey key, CachedBlock block)
+                    {
+                        return block.getLength();
+                    }
+                })
+                .removalListener(new RemovalListener<FileBlockKey, CachedBlock>()
+                {
+                    @Override
+                    public void onRemoval(RemovalNotification<FileBlockKey, CachedBlock> notification)
+                    {
+                        if (notification.wasEvicted()) {
+                            evictions.update(1);
+                        }
+                        CachedBlock block = notification.getValue();
+                        size.addAndGet(-block.getLength());
+                        if (!block.getFile().delete()) {
+                            log.warn("Could not delete cached block file %s", block.getFile());
+                        }
+                    }
+                })
+                .build();
+    }
+
+    @Managed
+    public boolean isEnabled()
+    {
+        return cache != null;
+    }
+
+    public int getBlockSize()
+    {
+        return blockSize;
+    }
+
+    /**
+     * Returns the cached contents of the block, or null if the block is not cached
+     * or the cached copy is damaged.
+     */
+    public byte[] get(FileBlockKey key)
+    {
+        if (cache == null) {
+            return null;
+        }
+
+        CachedBlock block = cache.getIfPresent(key);
+        if (block == null) {
+            misses.update(1);
+            return null;
+        }
+
+        byte[] data;
+        try {
+            data = Files.toByteArray(block.getFile());
+        }
+        catch (IOException e) {
+            // the block was evicted while it was being read
+            misses.update(1);
+            cache.asMap().remove(key, block);
+            return null;
+        }
+
+        if (data.length != block.getLength() || checksum(data, data.length) != block.getChecksum()) {
+            log.warn("Checksum mismatch for cached block %s in file %s", key, block.getFile());
+            checksumFailures.update(1);
+            misses.update(1);
+            cache.asMap().remove(key, block);
+            return null;
+        }
+
+        hits.update(1);
+        return data;
+    }
+
+    /**
+     * Stores the first {@code length} bytes of {@code data} as the contents of the block.
+     * Failures to write the local file are counted but otherwise ignored.
+     */
+    public void put(FileBlockKey key, byte[] data, int length)
+    {
+        if (cache == null) {
+            return;
+        }
+
+        File file = new File(directory, String.valueOf(nextFileId.incrementAndGet()));
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(data, 0, length);
+        }
+        catch (IOException e) {
+            log.warn(e, "Could not write cached block file %s", file);
+            writeFailures.update(1);
+            file.delete();
+            return;
+        }
+
+        size.addAndGet(length);
+        cache.put(key, new CachedBlock(file, length, checksum(data, length)));
+    }
+
+    @Managed
+    public long getSize()
+    {
+        return size.get();
+    }
+
+    @Managed
+    public long getBlockCount()
+    {
+        return (cache == null) ? 0 : cache.size();
+    }
+
+    @Managed
+    public double getHitRate()
+    {
+        long hitCount = hits.getTotalCount();
+        long requestCount = hitCount + misses.getTotalCount();
+        if (requestCount == 0) {
+            return 0;
+        }
+        return ((double) hitCount) / requestCount;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getHits()
+    {
+        return hits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getMisses()
+    {
+        return misses;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getChecksumFailures()
+    {
+        return checksumFailures;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getWriteFailures()
+    {
+        return writeFailures;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getEvictions()
+    {
+        return evictions;
+    }
+
+    private static long checksum(byte[] data, int length)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        return crc.getValue();
+    }
+
+    private static void deleteCachedFiles(File directory)
+    {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isFile() && !file.delete()) {
+                log.warn("Could not delete stale cached block file %s", file);
+            }
+        }
+    }
+
+    private static final class CachedBlock
+    {
+        private final File file;
+        private final int length;
+        private final long checksum;
+
+        private CachedBlock(File file, int length, long checksum)
+        {
+            this.file = file;
+            this.length = length;
+            this.checksum = checksum;
+        }
+
+        public File getFile()
+        {
+            return file;
+        }
+
+        public int getLength()
+        {
+            return length;
+        }
+
+        public long getChecksum()
+        {
+            return checksum;
+        }
+    }
+}
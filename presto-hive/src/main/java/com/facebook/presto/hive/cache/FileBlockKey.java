@@ -0,0 +1,82 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.cache;
+
+import com.google.common.base.Objects;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Identifies a block of a file.  The modification time is part of the key, so blocks
+ * of a file that is rewritten in place are never served from the cache.
+ */
+public final class FileBlockKey
+{
+    private final String path;
+    private final long modificationTime;
+    private final long offset;
+
+    public FileBlockKey(String path, long modificationTime, long offset)
+    {
+        this.path = checkNotNull(path, "path is null");
+        this.modificationTime = modificationTime;
+        this.offset = offset;
+    }
+
+    public String getPath()
+    {
+        return path;
+    }
+
+    public long getModificationTime()
+    {
+        return modificationTime;
+    }
+
+    public long getOffset()
+    {
+        return offset;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hashCode(path, modificationTime, offset);
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        FileBlockKey other = (FileBlockKey) obj;
+        return Objects.equal(this.path, other.path) &&
+                this.modificationTime == other.modificationTime &&
+                this.offset == other.offset;
+    }
+
+    @Override
+    public String toString()
+    {
+        return Objects.toStringHelper(this)
+                .add("path", path)
+                .add("modificationTime", modificationTime)
+                .add("offset", offset)
+                .toString();
+    }
+}
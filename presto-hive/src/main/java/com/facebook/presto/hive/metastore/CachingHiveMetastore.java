@@ -14,6 +14,7 @@
 package com.facebook.presto.hive.metastore;
 
 import com.facebook.presto.hive.util.BackgroundCacheLoader;
+import com.facebook.presto.hive.util.BoundedExecutor;
 import com.facebook.presto.hive.ForHiveMetastore;
 import com.facebook.presto.hive.HiveClientConfig;
 import com.facebook.presto.hive.HiveCluster;
@@ -33,9 +34,12 @@ import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.airlift.log.Logger;
+import io.airlift.stats.TimeStat;
 import io.airlift.units.Duration;
 import org.apache.hadoop.hive.common.FileUtils;
 import org.apache.hadoop.hive.metastore.TableType;
@@ -56,10 +60,14 @@ import javax.annotation.concurrent.ThreadSafe;
 import javax.inject.Inject;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 
 import static com.facebook.presto.hive.HiveUtil.PRESTO_VIEW_FLAG;
@@ -78,6 +86,8 @@ import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.HIVE_
 public class CachingHiveMetastore
         implements HiveMetastore
 {
+    private static final Logger log = Logger.get(CachingHiveMetastore.class);
+
     private final CachingHiveMetastoreStats stats = new CachingHiveMetastoreStats();
     protected final HiveCluster clientProvider;
     private final LoadingCache<String, List<String>> databaseNamesCache;
@@ -88,6 +98,11 @@ public class CachingHiveMetastore
     private final LoadingCache<HiveTableName, Table> tableCache;
     private final LoadingCache<HivePartitionName, Partition> partitionCache;
     private final LoadingCache<PartitionFilter, List<String>> partitionFilterCache;
+    private final LoadingCache<HiveTableName, PartitionKeyIndex> partitionKeyIndexCache;
+
+    private final Executor prefetchExecutor;
+    private final int prefetchBatchSize;
+    private final Set<HivePartitionName> prefetchingPartitions = Collections.newSetFromMap(new ConcurrentHashMap<HivePartitionName, Boolean>());
 
     @Inject
     public CachingHiveMetastore(HiveCluster hiveCluster, @ForHiveMetastore ExecutorService executor, HiveClientConfig hiveClientConfig)
@@ -95,12 +110,27 @@ public class CachingHiveMetastore
         this(checkNotNull(hiveCluster, "hiveCluster is null"),
                 checkNotNull(executor, "executor is null"),
                 checkNotNull(hiveClientConfig, "hiveClientConfig is null").getMetastoreCacheTtl(),
-                hiveClientConfig.getMetastoreRefreshInterval());
+                hiveClientConfig.getMetastoreRefreshInterval(),
+                hiveClientConfig.getMetastorePartitionPrefetchThreads(),
+                hiveClientConfig.getMaxPartitionBatchSize());
     }
 
     public CachingHiveMetastore(HiveCluster hiveCluster, ExecutorService executor, Duration cacheTtl, Duration refreshInterval)
+    {
+        this(hiveCluster, executor, cacheTtl, refreshInterval, 0, 1);
+    }
+
+    /**
+     * @param prefetchThreads the maximum number of concurrent prefetch requests, or 0 to disable prefetching
+     * @param prefetchBatchSize the number of partitions loaded by each prefetch request
+     */
+    public CachingHiveMetastore(HiveCluster hiveCluster, ExecutorService executor, Duration cacheTtl, Duration refreshInterval, int prefetchThreads, int prefetchBatchSize)
     {
         this.clientProvider = checkNotNull(hiveCluster, "hiveCluster is null");
+        checkArgument(prefetchThreads >= 0, "prefetchThreads is negative");
+        checkArgument(prefetchBatchSize > 0, "prefetchBatchSize must be at least 1");
+        this.prefetchExecutor = (prefetchThreads == 0) ? null : new BoundedExecutor(checkNotNull(executor, "executor is null"), prefetchThreads);
+        this.prefetchBatchSize = prefetchBatchSize;
 
         long expiresAfterWriteMillis = checkNotNull(cacheTtl, "cacheTtl is null").toMillis();
         long refreshMills = checkNotNull(refreshInterval, "refreshInterval is null").toMillis();
@@ -198,6 +228,19 @@ public class CachingHiveMetastore
                     }
                 });
 
+        partitionKeyIndexCache = CacheBuilder.newBuilder()
+                .expireAfterWrite(expiresAfterWriteMillis, MILLISECONDS)
+                .refreshAfterWrite(refreshMills, MILLISECONDS)
+                .build(new BackgroundCacheLoader<HiveTableName, PartitionKeyIndex>(listeningExecutor)
+                {
+                    @Override
+                    public PartitionKeyIndex load(HiveTableName hiveTableName)
+                            throws Exception
+                    {
+                        return loadPartitionKeyIndex(hiveTableName);
+                    }
+                });
+
         partitionCache = CacheBuilder.newBuilder()
                 .expireAfterWrite(expiresAfterWriteMillis, MILLISECONDS)
                 .refreshAfterWrite(refreshMills, MILLISECONDS)
@@ -238,6 +281,7 @@ public class CachingHiveMetastore
         tableCache.invalidateAll();
         partitionCache.invalidateAll();
         partitionFilterCache.invalidateAll();
+        partitionKeyIndexCache.invalidateAll();
     }
 
     private static <K, V, E extends Exception> V get(LoadingCache<K, V> cache, K key, Class<E> exceptionClass)
@@ -594,6 +638,25 @@ public class CachingHiveMetastore
         }
     }
 
+    @Override
+    public PartitionKeyIndex getPartitionKeyIndex(String databaseName, String tableName)
+            throws NoSuchObjectException
+    {
+        return get(partitionKeyIndexCache, HiveTableName.table(databaseName, tableName), NoSuchObjectException.class);
+    }
+
+    private PartitionKeyIndex loadPartitionKeyIndex(HiveTableName hiveTableName)
+            throws Exception
+    {
+        // load the names directly, so the index is never older than the cached partition names
+        List<String> partitionNames = loadPartitionNames(hiveTableName);
+        partitionNamesCache.put(hiveTableName, partitionNames);
+
+        try (TimeStat.BlockTimer ignored = stats.getBuildPartitionKeyIndex().time()) {
+            return PartitionKeyIndex.create(partitionNames);
+        }
+    }
+
     @Override
     public List<String> getPartitionNamesByParts(String databaseName, String tableName, List<String> parts)
             throws NoSuchObjectException
@@ -639,6 +702,47 @@ public class CachingHiveMetastore
         return ImmutableList.copyOf(getAll(partitionCache, names, NoSuchObjectException.class).values());
     }
 
+    @Override
+    public void prefetchPartitions(final String databaseName, final String tableName, List<String> partitionNames)
+    {
+        if (prefetchExecutor == null) {
+            return;
+        }
+
+        List<HivePartitionName> partitionsToFetch = new ArrayList<>();
+        for (String partitionName : partitionNames) {
+            HivePartitionName hivePartitionName = HivePartitionName.partition(databaseName, tableName, partitionName);
+            if (partitionCache.getIfPresent(hivePartitionName) != null) {
+                stats.getPrefetchCachedPartitions().update(1);
+            }
+            else if (prefetchingPartitions.add(hivePartitionName)) {
+                partitionsToFetch.add(hivePartitionName);
+            }
+        }
+        stats.getPrefetchedPartitions().update(partitionsToFetch.size());
+
+        // batches are loaded in parallel, and a query waiting for a partition that is being prefetched loads it again
+        for (final List<HivePartitionName> batch : Lists.partition(partitionsToFetch, prefetchBatchSize)) {
+            prefetchExecutor.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try {
+                        partitionCache.getAll(batch);
+                    }
+                    catch (Exception e) {
+                        stats.getPrefetchFailures().update(1);
+                        log.debug(e, "Prefetching partitions of %s.%s failed", databaseName, tableName);
+                    }
+                    finally {
+                        prefetchingPartitions.removeAll(batch);
+                    }
+                }
+            });
+        }
+    }
+
     private Partition loadPartitionByName(final HivePartitionName partitionName)
             throws Exception
     {
@@ -13,6 +13,8 @@
  */
 package com.facebook.presto.hive.metastore;
 
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.TimeStat;
 import org.weakref.jmx.Managed;
 import org.weakref.jmx.Nested;
 
@@ -30,6 +32,10 @@ public class CachingHiveMetastoreStats
     private final HiveMetastoreApiStats createTable = new HiveMetastoreApiStats();
     private final HiveMetastoreApiStats dropTable = new HiveMetastoreApiStats();
     private final HiveMetastoreApiStats renameTable = new HiveMetastoreApiStats();
+    private final TimeStat buildPartitionKeyIndex = new TimeStat();
+    private final CounterStat prefetchedPartitions = new CounterStat();
+    private final CounterStat prefetchCachedPartitions = new CounterStat();
+    private final CounterStat prefetchFailures = new CounterStat();
 
     @Managed
     @Nested
@@ -114,4 +120,32 @@ public class CachingHiveMetastoreStats
     {
         return renameTable;
     }
+
+    @Managed
+    @Nested
+    public TimeStat getBuildPartitionKeyIndex()
+    {
+        return buildPartitionKeyIndex;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getPrefetchedPartitions()
+    {
+        return prefetchedPartitions;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getPrefetchCachedPartitions()
+    {
+        return prefetchCachedPartitions;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getPrefetchFailures()
+    {
+        return prefetchFailures;
+    }
 }
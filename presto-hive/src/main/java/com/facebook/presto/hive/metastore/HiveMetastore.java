@@ -52,6 +52,15 @@ public interface HiveMetastore
     List<Partition> getPartitionsByNames(String databaseName, String tableName, List<String> partitionNames)
             throws NoSuchObjectException;
 
+    PartitionKeyIndex getPartitionKeyIndex(String databaseName, String tableName)
+            throws NoSuchObjectException;
+
+    /**
+     * Starts loading the specified partitions in the background, so later calls to
+     * {@link #getPartitionsByNames} for these partitions do not wait for the metastore.
+     */
+    void prefetchPartitions(String databaseName, String tableName, List<String> partitionNames);
+
     Table getTable(String databaseName, String tableName)
             throws NoSuchObjectException;
 }
@@ -159,6 +159,18 @@ public class InMemoryHiveMetastore
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public PartitionKeyIndex getPartitionKeyIndex(String databaseName, String tableName)
+            throws NoSuchObjectException
+    {
+        return PartitionKeyIndex.create(getPartitionNames(databaseName, tableName));
+    }
+
+    @Override
+    public void prefetchPartitions(String databaseName, String tableName, List<String> partitionNames)
+    {
+    }
+
     @Override
     public Table getTable(String databaseName, String tableName)
             throws NoSuchObjectException
@@ -0,0 +1,156 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.metastore;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Ints;
+import org.apache.hadoop.hive.metastore.Warehouse;
+import org.apache.hadoop.hive.metastore.api.MetaException;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Index of the partitions of a table by the value of each partition key.  A filter on
+ * a key is evaluated once for every distinct value of the key instead of once for every
+ * partition, which makes pruning tables with many partitions cheap.
+ */
+public final class PartitionKeyIndex
+{
+    private final List<String> partitionNames;
+    private final List<String> keyNames;
+    // for each partition key, the positions of the partitions by the value of the key
+    private final List<Map<String, int[]>> partitionsByValue;
+
+    private PartitionKeyIndex(List<String> partitionNames, List<String> keyNames, List<Map<String, int[]>> partitionsByValue)
+    {
+        this.partitionNames = partitionNames;
+        this.keyNames = keyNames;
+        this.partitionsByValue = partitionsByValue;
+    }
+
+    public static PartitionKeyIndex create(List<String> partitionNames)
+    {
+        checkNotNull(partitionNames, "partitionNames is null");
+        partitionNames = ImmutableList.copyOf(partitionNames);
+        if (partitionNames.isEmpty()) {
+            return new PartitionKeyIndex(partitionNames, ImmutableList.<String>of(), ImmutableList.<Map<String, int[]>>of());
+        }
+
+        List<String> keyNames = null;
+        List<Map<String, List<Integer>>> positionsByValue = new ArrayList<>();
+        for (int position = 0; position < partitionNames.size(); position++) {
+            String partitionName = partitionNames.get(position);
+            Map<String, String> spec = parsePartitionName(partitionName);
+            if (keyNames == null) {
+                keyNames = ImmutableList.copyOf(spec.keySet());
+                for (int i = 0; i < keyNames.size(); i++) {
+                    positionsByValue.add(new LinkedHashMap<String, List<Integer>>());
+                }
+            }
+            checkArgument(keyNames.equals(ImmutableList.copyOf(spec.keySet())), "Partition %s does not have the partition keys %s", partitionName, keyNames);
+
+            int key = 0;
+            for (String value : spec.values()) {
+                Map<String, List<Integer>> positions = positionsByValue.get(key);
+                List<Integer> valuePositions = positions.get(value);
+                if (valuePositions == null) {
+                    valuePositions = new ArrayList<>();
+                    positions.put(value, valuePositions);
+                }
+                valuePositions.add(position);
+                key++;
+            }
+        }
+
+        ImmutableList.Builder<Map<String, int[]>> partitionsByValue = ImmutableList.builder();
+        for (Map<String, List<Integer>> positions : positionsByValue) {
+            ImmutableMap.Builder<String, int[]> partitions = ImmutableMap.builder();
+            for (Entry<String, List<Integer>> entry : positions.entrySet()) {
+                partitions.put(entry.getKey(), Ints.toArray(entry.getValue()));
+            }
+            partitionsByValue.add(partitions.build());
+        }
+        return new PartitionKeyIndex(partitionNames, keyNames, partitionsByValue.build());
+    }
+
+    public List<String> getPartitionNames()
+    {
+        return partitionNames;
+    }
+
+    public List<String> getKeyNames()
+    {
+        return keyNames;
+    }
+
+    /**
+     * Returns the names of the partitions where the value of every filtered key is
+     * accepted by the filter of the key, in the order of {@link #getPartitionNames}.
+     *
+     * @param filters filters on the unparsed partition values by partition key name
+     */
+    public List<String> getPartitionNames(Map<String, ? extends Predicate<String>> filters)
+    {
+        checkNotNull(filters, "filters is null");
+        // the keys of a table without partitions are unknown, and no partition can match
+        if (filters.isEmpty() || partitionNames.isEmpty()) {
+            return partitionNames;
+        }
+
+        BitSet selected = new BitSet(partitionNames.size());
+        selected.set(0, partitionNames.size());
+        for (Entry<String, ? extends Predicate<String>> filter : filters.entrySet()) {
+            int key = keyNames.indexOf(filter.getKey());
+            checkArgument(key >= 0, "Unknown partition key %s", filter.getKey());
+
+            BitSet matching = new BitSet(partitionNames.size());
+            for (Entry<String, int[]> entry : partitionsByValue.get(key).entrySet()) {
+                if (filter.getValue().apply(entry.getKey())) {
+                    for (int position : entry.getValue()) {
+                        matching.set(position);
+                    }
+                }
+            }
+            selected.and(matching);
+        }
+
+        ImmutableList.Builder<String> result = ImmutableList.builder();
+        for (int position = selected.nextSetBit(0); position >= 0; position = selected.nextSetBit(position + 1)) {
+            result.add(partitionNames.get(position));
+        }
+        return result.build();
+    }
+
+    private static Map<String, String> parsePartitionName(String partitionName)
+    {
+        try {
+            return Warehouse.makeSpecFromName(partitionName);
+        }
+        catch (MetaException e) {
+            // invalid partition name
+            throw Throwables.propagate(e);
+        }
+    }
+}
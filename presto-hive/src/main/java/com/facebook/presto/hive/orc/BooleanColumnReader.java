@@ -0,0 +1,49 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.facebook.presto.spi.block.BlockBuilder;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+public class BooleanColumnReader
+        extends ColumnReader
+{
+    private final BooleanStream dataStream;
+
+    public BooleanColumnReader(@Nullable BooleanStream presentStream, BooleanStream dataStream)
+    {
+        super(BOOLEAN, presentStream);
+        this.dataStream = checkNotNull(dataStream, "dataStream is null");
+    }
+
+    @Override
+    protected void readValue(BlockBuilder builder)
+            throws IOException
+    {
+        BOOLEAN.writeBoolean(builder, dataStream.next());
+    }
+
+    @Override
+    protected void skipValues(long items)
+            throws IOException
+    {
+        dataStream.skip(items);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import java.io.IOException;
+
+/**
+ * Decoder for ORC boolean streams, which are byte run length encoded
+ * bytes of eight values each, most significant bit first.
+ */
+public class BooleanStream
+{
+    private final ByteStream byteStream;
+    private int data;
+    private int bitsInData;
+
+    public BooleanStream(OrcInputStream input)
+    {
+        this.byteStream = new ByteStream(input);
+    }
+
+    public boolean next()
+            throws IOException
+    {
+        if (bitsInData == 0) {
+            data = byteStream.next() & 0xFF;
+            bitsInData = 8;
+        }
+        boolean result = (data & 0x80) != 0;
+        data <<= 1;
+        bitsInData--;
+        return result;
+    }
+
+    /**
+     * Reads the next {@code items} values into {@code vector} and returns the number of true values.
+     */
+    public int getSetBits(int items, boolean[] vector)
+            throws IOException
+    {
+        int count = 0;
+        for (int i = 0; i < items; i++) {
+            vector[i] = next();
+            if (vector[i]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Skips the next {@code items} values and returns the number of true values skipped.
+     */
+    public long countSetBits(long items)
+            throws IOException
+    {
+        long count = 0;
+        for (long i = 0; i < items; i++) {
+            if (next()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public void skip(long items)
+            throws IOException
+    {
+        if (bitsInData >= items) {
+            data <<= items;
+            bitsInData -= items;
+            return;
+        }
+
+        items -= bitsInData;
+        bitsInData = 0;
+        byteStream.skip(items >>> 3);
+        items &= 7;
+
+        if (items != 0) {
+            data = (byteStream.next() & 0xFF) << items;
+            bitsInData = 8 - (int) items;
+        }
+    }
+}
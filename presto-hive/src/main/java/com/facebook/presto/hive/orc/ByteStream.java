@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Decoder for the ORC byte run length encoding.
+ */
+public class ByteStream
+{
+    private static final int MIN_REPEAT_SIZE = 3;
+    private static final int MAX_LITERAL_SIZE = 128;
+
+    private final OrcInputStream input;
+    private final byte[] buffer = new byte[MIN_REPEAT_SIZE + MAX_LITERAL_SIZE];
+    private int length;
+    private int offset;
+
+    public ByteStream(OrcInputStream input)
+    {
+        this.input = checkNotNull(input, "input is null");
+    }
+
+    private void readNextBlock()
+            throws IOException
+    {
+        int control = input.readByte();
+        if (control < 0x80) {
+            length = control + MIN_REPEAT_SIZE;
+            Arrays.fill(buffer, 0, length, (byte) input.readByte());
+        }
+        else {
+            length = 0x100 - control;
+            input.readFully(buffer, 0, length);
+        }
+        offset = 0;
+    }
+
+    public byte next()
+            throws IOException
+    {
+        if (offset == length) {
+            readNextBlock();
+        }
+        return buffer[offset++];
+    }
+
+    public void skip(long items)
+            throws IOException
+    {
+        while (items > 0) {
+            if (offset == length) {
+                readNextBlock();
+            }
+            long consume = Math.min(items, length - offset);
+            offset += consume;
+            items -= consume;
+        }
+    }
+}
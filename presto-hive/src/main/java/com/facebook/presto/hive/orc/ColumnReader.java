@@ -0,0 +1,92 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.type.Type;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reads the values of one column of one stripe.  Rows that are not needed can be
+ * skipped, which decodes the streams without materializing any values.
+ */
+public abstract class ColumnReader
+{
+    private final Type type;
+    @Nullable
+    private final BooleanStream presentStream;
+
+    protected ColumnReader(Type type, @Nullable BooleanStream presentStream)
+    {
+        this.type = checkNotNull(type, "type is null");
+        this.presentStream = presentStream;
+    }
+
+    public Type getType()
+    {
+        return type;
+    }
+
+    public Block readBlock(int items)
+            throws IOException
+    {
+        BlockBuilder builder = type.createBlockBuilder(new BlockBuilderStatus());
+        if (presentStream == null) {
+            for (int i = 0; i < items; i++) {
+                readValue(builder);
+            }
+        }
+        else {
+            for (int i = 0; i < items; i++) {
+                if (presentStream.next()) {
+                    readValue(builder);
+                }
+                else {
+                    builder.appendNull();
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    public void skip(int items)
+            throws IOException
+    {
+        if (presentStream == null) {
+            skipValues(items);
+        }
+        else {
+            skipValues(presentStream.countSetBits(items));
+        }
+    }
+
+    /**
+     * Reads the next non-null value of the column into the builder.
+     */
+    protected abstract void readValue(BlockBuilder builder)
+            throws IOException;
+
+    /**
+     * Skips the next {@code items} non-null values of the column.
+     */
+    protected abstract void skipValues(long items)
+            throws IOException;
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto.ColumnEncoding;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto.CompressionKind;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto.Stream.Kind;
+import org.joda.time.DateTimeZone;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static org.apache.hadoop.hive.ql.io.orc.OrcProto.Stream.Kind.DATA;
+import static org.apache.hadoop.hive.ql.io.orc.OrcProto.Stream.Kind.DICTIONARY_DATA;
+import static org.apache.hadoop.hive.ql.io.orc.OrcProto.Stream.Kind.LENGTH;
+import static org.apache.hadoop.hive.ql.io.orc.OrcProto.Stream.Kind.PRESENT;
+import static org.apache.hadoop.hive.ql.io.orc.OrcProto.Stream.Kind.SECONDARY;
+
+public final class ColumnReaders
+{
+    private ColumnReaders() {}
+
+    /**
+     * Gets the Presto type of the values of a column of the ORC type, or absent if
+     * the native reader does not support the type.
+     */
+    public static Optional<Type> getType(OrcProto.Type.Kind kind)
+    {
+        switch (kind) {
+            case BOOLEAN:
+                return Optional.<Type>of(BOOLEAN);
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+                return Optional.<Type>of(BIGINT);
+            case FLOAT:
+            case DOUBLE:
+                return Optional.<Type>of(DOUBLE);
+            case STRING:
+                return Optional.<Type>of(VARCHAR);
+            case BINARY:
+                return Optional.<Type>of(VARBINARY);
+            case TIMESTAMP:
+                return Optional.<Type>of(TIMESTAMP);
+            default:
+                return Optional.absent();
+        }
+    }
+
+    public static ColumnReader createColumnReader(
+            OrcProto.Type type,
+            ColumnEncoding encoding,
+            Map<Kind, OrcInputStream> streams,
+            DateTimeZone hiveStorageTimeZone)
+            throws IOException
+    {
+        BooleanStream presentStream = null;
+        if (streams.containsKey(PRESENT)) {
+            presentStream = new BooleanStream(streams.get(PRESENT));
+        }
+
+        ColumnEncoding.Kind encodingKind = encoding.getKind();
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return new BooleanColumnReader(presentStream, new BooleanStream(getStream(streams, DATA)));
+            case BYTE:
+                return new LongColumnReader(presentStream, new ByteLongStream(new ByteStream(getStream(streams, DATA))));
+            case SHORT:
+            case INT:
+            case LONG:
+                return new LongColumnReader(presentStream, createLongStream(getStream(streams, DATA), encodingKind, true));
+            case FLOAT:
+                return new DoubleColumnReader(presentStream, getStream(streams, DATA), true);
+            case DOUBLE:
+                return new DoubleColumnReader(presentStream, getStream(streams, DATA), false);
+            case STRING:
+            case BINARY:
+                Type sliceType = getType(type.getKind()).get();
+                if (encodingKind == ColumnEncoding.Kind.DICTIONARY || encodingKind == ColumnEncoding.Kind.DICTIONARY_V2) {
+                    Slice[] dictionary = readDictionary(
+                            getStream(streams, DICTIONARY_DATA),
+                            createLongStream(getStream(streams, LENGTH), encodingKind, false),
+                            encoding.getDictionarySize());
+                    return new SliceDictionaryColumnReader(sliceType, presentStream, createLongStream(getStream(streams, DATA), encodingKind, false), dictionary);
+                }
+                return new SliceDirectColumnReader(sliceType, presentStream, createLongStream(getStream(streams, LENGTH), encodingKind, false), getStream(streams, DATA));
+            case TIMESTAMP:
+                return new TimestampColumnReader(
+                        presentStream,
+                        createLongStream(getStream(streams, DATA), encodingKind, true),
+                        createLongStream(getStream(streams, SECONDARY), encodingKind, false),
+                        hiveStorageTimeZone);
+            default:
+                throw new IllegalArgumentException("Unsupported ORC type: " + type.getKind());
+        }
+    }
+
+    private static Slice[] readDictionary(OrcInputStream dataStream, LongStream lengthStream, int dictionarySize)
+            throws IOException
+    {
+        int[] lengths = new int[dictionarySize];
+        long totalLength = 0;
+        for (int i = 0; i < dictionarySize; i++) {
+            lengths[i] = (int) lengthStream.next();
+            totalLength += lengths[i];
+        }
+        if (totalLength > Integer.MAX_VALUE) {
+            throw new OrcCorruptionException("Dictionary of stream %s is larger than 2GB", dataStream);
+        }
+
+        byte[] data = new byte[(int) totalLength];
+        dataStream.readFully(data, 0, data.length);
+
+        Slice slice = Slices.wrappedBuffer(data);
+        Slice[] dictionary = new Slice[dictionarySize];
+        int offset = 0;
+        for (int i = 0; i < dictionarySize; i++) {
+            dictionary[i] = slice.slice(offset, lengths[i]);
+            offset += lengths[i];
+        }
+        return dictionary;
+    }
+
+    private static LongStream createLongStream(OrcInputStream input, ColumnEncoding.Kind encoding, boolean signed)
+    {
+        if (encoding == ColumnEncoding.Kind.DIRECT_V2 || encoding == ColumnEncoding.Kind.DICTIONARY_V2) {
+            return new LongStreamV2(input, signed);
+        }
+        return new LongStreamV1(input, signed);
+    }
+
+    private static OrcInputStream getStream(Map<Kind, OrcInputStream> streams, Kind kind)
+    {
+        OrcInputStream stream = streams.get(kind);
+        if (stream == null) {
+            // the writer omits streams that would be empty, for example the data of a column that is all null
+            return new OrcInputStream(kind.toString(), new byte[0], 0, 0, CompressionKind.NONE, 1);
+        }
+        return stream;
+    }
+
+    private static class ByteLongStream
+            implements LongStream
+    {
+        private final ByteStream byteStream;
+
+        public ByteLongStream(ByteStream byteStream)
+        {
+            this.byteStream = byteStream;
+        }
+
+        @Override
+        public long next()
+                throws IOException
+        {
+            return byteStream.next();
+        }
+
+        @Override
+        public void skip(long items)
+                throws IOException
+        {
+            byteStream.skip(items);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.facebook.presto.spi.block.BlockBuilder;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reads FLOAT and DOUBLE columns, which ORC stores as little endian IEEE 754 values.
+ */
+public class DoubleColumnReader
+        extends ColumnReader
+{
+    private final OrcInputStream dataStream;
+    private final boolean isFloat;
+
+    public DoubleColumnReader(@Nullable BooleanStream presentStream, OrcInputStream dataStream, boolean isFloat)
+    {
+        super(DOUBLE, presentStream);
+        this.dataStream = checkNotNull(dataStream, "dataStream is null");
+        this.isFloat = isFloat;
+    }
+
+    @Override
+    protected void readValue(BlockBuilder builder)
+            throws IOException
+    {
+        if (isFloat) {
+            DOUBLE.writeDouble(builder, Float.intBitsToFloat((int) readLittleEndian(4)));
+        }
+        else {
+            DOUBLE.writeDouble(builder, Double.longBitsToDouble(readLittleEndian(8)));
+        }
+    }
+
+    @Override
+    protected void skipValues(long items)
+            throws IOException
+    {
+        dataStream.skipFully(items * (isFloat ? 4 : 8));
+    }
+
+    private long readLittleEndian(int bytes)
+            throws IOException
+    {
+        long bits = 0;
+        for (int i = 0; i < bytes; i++) {
+            bits |= ((long) dataStream.readByte()) << (i * 8);
+        }
+        return bits;
+    }
+}
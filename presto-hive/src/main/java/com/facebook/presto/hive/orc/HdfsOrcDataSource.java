@@ -0,0 +1,80 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+
+import java.io.IOException;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+public class HdfsOrcDataSource
+        implements OrcDataSource
+{
+    private final String path;
+    private final FSDataInputStream inputStream;
+    private final long size;
+    private long readBytes;
+    private long readTimeNanos;
+
+    public HdfsOrcDataSource(String path, FSDataInputStream inputStream, long size)
+    {
+        this.path = checkNotNull(path, "path is null");
+        this.inputStream = checkNotNull(inputStream, "inputStream is null");
+        checkArgument(size >= 0, "size is negative");
+        this.size = size;
+    }
+
+    @Override
+    public long getReadBytes()
+    {
+        return readBytes;
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return readTimeNanos;
+    }
+
+    @Override
+    public long getSize()
+    {
+        return size;
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer, int bufferOffset, int bufferLength)
+            throws IOException
+    {
+        long start = System.nanoTime();
+        inputStream.readFully(position, buffer, bufferOffset, bufferLength);
+        readTimeNanos += System.nanoTime() - start;
+        readBytes += bufferLength;
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        inputStream.close();
+    }
+
+    @Override
+    public String toString()
+    {
+        return path;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import java.io.IOException;
+
+final class LongDecode
+{
+    private LongDecode() {}
+
+    public static long readVInt(boolean signed, OrcInputStream input)
+            throws IOException
+    {
+        if (signed) {
+            return zigzagDecode(readUnsignedVInt(input));
+        }
+        return readUnsignedVInt(input);
+    }
+
+    public static long readUnsignedVInt(OrcInputStream input)
+            throws IOException
+    {
+        long result = 0;
+        int offset = 0;
+        int b;
+        do {
+            b = input.readByte();
+            result |= (long) (b & 0x7F) << offset;
+            offset += 7;
+        }
+        while (b >= 0x80);
+        return result;
+    }
+
+    public static long zigzagDecode(long value)
+    {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public static long readBigEndian(OrcInputStream input, int bytes)
+            throws IOException
+    {
+        long result = 0;
+        for (int i = 0; i < bytes; i++) {
+            result = (result << 8) | input.readByte();
+        }
+        return result;
+    }
+
+    /**
+     * Decodes the five bit width code used by the version 2 run length encoding.
+     */
+    public static int decodeBitWidth(int code)
+    {
+        if (code < 24) {
+            return code + 1;
+        }
+        switch (code) {
+            case 24:
+                return 26;
+            case 25:
+                return 28;
+            case 26:
+                return 30;
+            case 27:
+                return 32;
+            case 28:
+                return 40;
+            case 29:
+                return 48;
+            case 30:
+                return 56;
+            default:
+                return 64;
+        }
+    }
+
+    /**
+     * Rounds a bit width up to a width the version 2 run length encoding can store.
+     */
+    public static int getClosestFixedBits(int width)
+    {
+        if (width == 0) {
+            return 1;
+        }
+        if (width <= 24) {
+            return width;
+        }
+        if (width <= 26) {
+            return 26;
+        }
+        if (width <= 28) {
+            return 28;
+        }
+        if (width <= 30) {
+            return 30;
+        }
+        if (width <= 32) {
+            return 32;
+        }
+        if (width <= 40) {
+            return 40;
+        }
+        if (width <= 48) {
+            return 48;
+        }
+        if (width <= 56) {
+            return 56;
+        }
+        return 64;
+    }
+
+    /**
+     * Reads {@code length} bit packed values of {@code bitSize} bits, most significant bit first.
+     */
+    public static void readBitPacked(long[] buffer, int offset, int length, int bitSize, OrcInputStream input)
+            throws IOException
+    {
+        int bitsLeft = 0;
+        int current = 0;
+        for (int i = offset; i < offset + length; i++) {
+            long result = 0;
+            int bitsLeftToRead = bitSize;
+            while (bitsLeftToRead > bitsLeft) {
+                result <<= bitsLeft;
+                result |= current & ((1 << bitsLeft) - 1);
+                bitsLeftToRead -= bitsLeft;
+                current = input.readByte();
+                bitsLeft = 8;
+            }
+
+            if (bitsLeftToRead > 0) {
+                result <<= bitsLeftToRead;
+                bitsLeft -= bitsLeftToRead;
+                result |= (current >> bitsLeft) & ((1 << bitsLeftToRead) - 1);
+            }
+            buffer[i] = result;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import java.io.IOException;
+
+import static com.facebook.presto.hive.orc.LongDecode.readVInt;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Decoder for the original ORC integer run length encoding.
+ */
+public class LongStreamV1
+        implements LongStream
+{
+    private static final int MIN_REPEAT_SIZE = 3;
+    private static final int MAX_LITERAL_SIZE = 128;
+
+    private final OrcInputStream input;
+    private final boolean signed;
+    private final long[] literals = new long[MAX_LITERAL_SIZE];
+    private int numLiterals;
+    private int delta;
+    private int used;
+    private boolean repeat;
+
+    public LongStreamV1(OrcInputStream input, boolean signed)
+    {
+        this.input = checkNotNull(input, "input is null");
+        this.signed = signed;
+    }
+
+    // This comes from the Apache Hive ORC code
+    private void readValues()
+            throws IOException
+    {
+        int control = input.readByte();
+        if (control < 0x80) {
+            numLiterals = control + MIN_REPEAT_SIZE;
+            repeat = true;
+            delta = (byte) input.readByte();
+            literals[0] = readVInt(signed, input);
+        }
+        else {
+            numLiterals = 0x100 - control;
+            repeat = false;
+            for (int i = 0; i < numLiterals; i++) {
+                literals[i] = readVInt(signed, input);
+            }
+        }
+        used = 0;
+    }
+
+    @Override
+    public long next()
+            throws IOException
+    {
+        if (used == numLiterals) {
+            readValues();
+        }
+        if (repeat) {
+            return literals[0] + (used++) * delta;
+        }
+        return literals[used++];
+    }
+
+    @Override
+    public void skip(long items)
+            throws IOException
+    {
+        while (items > 0) {
+            if (used == numLiterals) {
+                readValues();
+            }
+            long consume = Math.min(items, numLiterals - used);
+            used += consume;
+            items -= consume;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import java.io.IOException;
+
+import static com.facebook.presto.hive.orc.LongDecode.decodeBitWidth;
+import static com.facebook.presto.hive.orc.LongDecode.getClosestFixedBits;
+import static com.facebook.presto.hive.orc.LongDecode.readBigEndian;
+import static com.facebook.presto.hive.orc.LongDecode.readBitPacked;
+import static com.facebook.presto.hive.orc.LongDecode.readUnsignedVInt;
+import static com.facebook.presto.hive.orc.LongDecode.readVInt;
+import static com.facebook.presto.hive.orc.LongDecode.zigzagDecode;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Decoder for the version 2 ORC integer run length encoding, which picks one of
+ * short repeat, direct, patched base or delta encoding for each run.
+ */
+public class LongStreamV2
+        implements LongStream
+{
+    private static final int MIN_REPEAT_SIZE = 3;
+    private static final int MAX_LITERAL_SIZE = 512;
+
+    private enum EncodingType
+    {
+        SHORT_REPEAT, DIRECT, PATCHED_BASE, DELTA
+    }
+
+    private final OrcInputStream input;
+    private final boolean signed;
+    private final long[] literals = new long[MAX_LITERAL_SIZE];
+    private int numLiterals;
+    private int used;
+
+    public LongStreamV2(OrcInputStream input, boolean signed)
+    {
+        this.input = checkNotNull(input, "input is null");
+        this.signed = signed;
+    }
+
+    // This comes from the Apache Hive ORC code
+    private void readValues()
+            throws IOException
+    {
+        numLiterals = 0;
+        used = 0;
+
+        int firstByte = input.readByte();
+        EncodingType encoding = EncodingType.values()[(firstByte >>> 6) & 0x03];
+        switch (encoding) {
+            case SHORT_REPEAT:
+                readShortRepeatValues(firstByte);
+                break;
+            case DIRECT:
+                readDirectValues(firstByte);
+                break;
+            case PATCHED_BASE:
+                readPatchedBaseValues(firstByte);
+                break;
+            case DELTA:
+                readDeltaValues(firstByte);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported encoding " + encoding);
+        }
+    }
+
+    private void readShortRepeatValues(int firstByte)
+            throws IOException
+    {
+        // read the number of bytes occupied by the value
+        int size = ((firstByte >>> 3) & 0x07) + 1;
+
+        // read the run length
+        int length = (firstByte & 0x07) + MIN_REPEAT_SIZE;
+
+        long value = readBigEndian(input, size);
+        if (signed) {
+            value = zigzagDecode(value);
+        }
+
+        for (int i = 0; i < length; i++) {
+            literals[numLiterals++] = value;
+        }
+    }
+
+    private void readDirectValues(int firstByte)
+            throws IOException
+    {
+        // extract the number of fixed bits
+        int fixedBits = decodeBitWidth((firstByte >>> 1) & 0x1F);
+
+        // extract the run length
+        int length = (((firstByte & 0x01) << 8) | input.readByte()) + 1;
+
+        readBitPacked(literals, numLiterals, length, fixedBits, input);
+        if (signed) {
+            for (int i = 0; i < length; i++) {
+                literals[numLiterals] = zigzagDecode(literals[numLiterals]);
+                numLiterals++;
+            }
+        }
+        else {
+            numLiterals += length;
+        }
+    }
+
+    private void readPatchedBaseValues(int firstByte)
+            throws IOException
+    {
+        // extract the number of fixed bits
+        int fixedBits = decodeBitWidth((firstByte >>> 1) & 0x1F);
+
+        // extract the run length
+        int length = (((firstByte & 0x01) << 8) | input.readByte()) + 1;
+
+        // extract the number of bytes occupied by the base, and the patch width
+        int thirdByte = input.readByte();
+        int baseWidth = ((thirdByte >>> 5) & 0x07) + 1;
+        int patchWidth = decodeBitWidth(thirdByte & 0x1F);
+
+        // extract the patch gap width and the length of the patch list
+        int fourthByte = input.readByte();
+        int patchGapWidth = ((fourthByte >>> 5) & 0x07) + 1;
+        int patchListLength = fourthByte & 0x1F;
+
+        // the base value is stored as a sign and magnitude
+        long base = readBigEndian(input, baseWidth);
+        long mask = 1L << ((baseWidth * 8) - 1);
+        if ((base & mask) != 0) {
+            base = -(base & ~mask);
+        }
+
+        long[] unpacked = new long[length];
+        readBitPacked(unpacked, 0, length, fixedBits, input);
+
+        long[] patches = new long[patchListLength];
+        readBitPacked(patches, 0, patchListLength, getClosestFixedBits(patchWidth + patchGapWidth), input);
+        if (patchListLength == 0) {
+            throw new OrcCorruptionException("Patched base run without patches in stream %s", input);
+        }
+
+        long patchMask = (1L << patchWidth) - 1;
+        int patchIndex = 0;
+        long currentGap = patches[patchIndex] >>> patchWidth;
+        long currentPatch = patches[patchIndex] & patchMask;
+        long actualGap = 0;
+
+        // a gap of 255 with an empty patch only extends the gap of the next patch
+        while (currentGap == 255 && currentPatch == 0) {
+            actualGap += 255;
+            patchIndex++;
+            currentGap = patches[patchIndex] >>> patchWidth;
+            currentPatch = patches[patchIndex] & patchMask;
+        }
+        actualGap += currentGap;
+
+        for (int i = 0; i < length; i++) {
+            if (i == actualGap) {
+                literals[numLiterals++] = base + (unpacked[i] | (currentPatch << fixedBits));
+
+                patchIndex++;
+                if (patchIndex < patchListLength) {
+                    currentGap = patches[patchIndex] >>> patchWidth;
+                    currentPatch = patches[patchIndex] & patchMask;
+                    actualGap = 0;
+
+                    while (currentGap == 255 && currentPatch == 0) {
+                        actualGap += 255;
+                        patchIndex++;
+                        currentGap = patches[patchIndex] >>> patchWidth;
+                        currentPatch = patches[patchIndex] & patchMask;
+                    }
+                    actualGap += currentGap;
+                    actualGap += i;
+                }
+            }
+            else {
+                literals[numLiterals++] = base + unpacked[i];
+            }
+        }
+    }
+
+    private void readDeltaValues(int firstByte)
+            throws IOException
+    {
+        // extract the number of fixed bits, where zero means a fixed delta run
+        int fixedBits = (firstByte >>> 1) & 0x1F;
+        if (fixedBits != 0) {
+            fixedBits = decodeBitWidth(fixedBits);
+        }
+
+        // extract the number of values after the first one
+        int length = ((firstByte & 0x01) << 8) | input.readByte();
+
+        long firstValue = readVInt(signed, input);
+        literals[numLiterals++] = firstValue;
+
+        if (fixedBits == 0) {
+            long fixedDelta = zigzagDecode(readUnsignedVInt(input));
+            for (int i = 0; i < length; i++) {
+                literals[numLiterals] = literals[numLiterals - 1] + fixedDelta;
+                numLiterals++;
+            }
+        }
+        else {
+            long deltaBase = zigzagDecode(readUnsignedVInt(input));
+            literals[numLiterals++] = firstValue + deltaBase;
+            long previousValue = literals[numLiterals - 1];
+            length--;
+
+            // the remaining deltas are bit packed magnitudes with the sign of the delta base
+            readBitPacked(literals, numLiterals, length, fixedBits, input);
+            for (int i = 0; i < length; i++) {
+                if (deltaBase < 0) {
+                    literals[numLiterals] = previousValue - literals[numLiterals];
+                }
+                else {
+                    literals[numLiterals] = previousValue + literals[numLiterals];
+                }
+                previousValue = literals[numLiterals];
+                numLiterals++;
+            }
+        }
+    }
+
+    @Override
+    public long next()
+            throws IOException
+    {
+        if (used == numLiterals) {
+            readValues();
+        }
+        return literals[used++];
+    }
+
+    @Override
+    public void skip(long items)
+            throws IOException
+    {
+        while (items > 0) {
+            if (used == numLiterals) {
+                readValues();
+            }
+            long consume = Math.min(items, numLiterals - used);
+            used += consume;
+            items -= consume;
+        }
+    }
+}
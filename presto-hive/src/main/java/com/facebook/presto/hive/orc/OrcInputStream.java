@@ -0,0 +1,251 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import org.apache.hadoop.hive.ql.io.orc.OrcProto.CompressionKind;
+import org.iq80.snappy.CorruptionException;
+import org.iq80.snappy.Snappy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
+/**
+ * Input stream over one ORC stream that has already been read into memory.
+ * Compressed streams are a sequence of chunks, each with a three byte header
+ * holding the chunk length and a flag for chunks the writer stored uncompressed.
+ * Chunks are decompressed one at a time as the stream is consumed.
+ */
+public final class OrcInputStream
+        extends InputStream
+{
+    private static final int CHUNK_HEADER_SIZE = 3;
+
+    private final String source;
+    private final byte[] data;
+    private final int end;
+    private final CompressionKind compressionKind;
+    private final int maxBufferSize;
+
+    private int position;
+
+    private byte[] buffer;
+    private int bufferPosition;
+    private int bufferEnd;
+
+    private byte[] decompressed;
+    private Inflater inflater;
+
+    public OrcInputStream(String source, byte[] data, int offset, int length, CompressionKind compressionKind, int maxBufferSize)
+    {
+        this.source = checkNotNull(source, "source is null");
+        this.data = checkNotNull(data, "data is null");
+        checkPositionIndexes(offset, offset + length, data.length);
+        this.position = offset;
+        this.end = offset + length;
+        this.compressionKind = checkNotNull(compressionKind, "compressionKind is null");
+        checkArgument(compressionKind != CompressionKind.LZO, "LZO compression is not supported");
+        checkArgument(maxBufferSize > 0, "maxBufferSize must be positive");
+        this.maxBufferSize = maxBufferSize;
+    }
+
+    @Override
+    public int available()
+    {
+        return bufferEnd - bufferPosition;
+    }
+
+    @Override
+    public int read()
+            throws IOException
+    {
+        if (bufferPosition == bufferEnd && !advance()) {
+            return -1;
+        }
+        return buffer[bufferPosition++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int length)
+            throws IOException
+    {
+        if (bufferPosition == bufferEnd && !advance()) {
+            return -1;
+        }
+        length = Math.min(length, bufferEnd - bufferPosition);
+        System.arraycopy(buffer, bufferPosition, b, off, length);
+        bufferPosition += length;
+        return length;
+    }
+
+    @Override
+    public long skip(long n)
+            throws IOException
+    {
+        if (bufferPosition == bufferEnd && !advance()) {
+            return 0;
+        }
+        int length = (int) Math.min(n, bufferEnd - bufferPosition);
+        bufferPosition += length;
+        return length;
+    }
+
+    public int readByte()
+            throws IOException
+    {
+        int value = read();
+        if (value < 0) {
+            throw new OrcCorruptionException("Unexpected end of stream %s", source);
+        }
+        return value;
+    }
+
+    public void readFully(byte[] b, int off, int length)
+            throws IOException
+    {
+        while (length > 0) {
+            int count = read(b, off, length);
+            if (count < 0) {
+                throw new OrcCorruptionException("Unexpected end of stream %s", source);
+            }
+            off += count;
+            length -= count;
+        }
+    }
+
+    public void skipFully(long length)
+            throws IOException
+    {
+        while (length > 0) {
+            long count = skip(length);
+            if (count <= 0) {
+                throw new OrcCorruptionException("Unexpected end of stream %s", source);
+            }
+            length -= count;
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        if (inflater != null) {
+            inflater.end();
+            inflater = null;
+        }
+    }
+
+    private boolean advance()
+            throws IOException
+    {
+        if (position >= end) {
+            return false;
+        }
+
+        if (compressionKind == CompressionKind.NONE) {
+            setBuffer(data, position, end);
+            position = end;
+            return true;
+        }
+
+        if (end - position < CHUNK_HEADER_SIZE) {
+            throw new OrcCorruptionException("Truncated chunk header in stream %s", source);
+        }
+        int header = (data[position] & 0xFF) | ((data[position + 1] & 0xFF) << 8) | ((data[position + 2] & 0xFF) << 16);
+        position += CHUNK_HEADER_SIZE;
+
+        boolean isUncompressed = (header & 1) == 1;
+        int chunkLength = header >>> 1;
+        if (chunkLength > end - position) {
+            throw new OrcCorruptionException("Chunk length %s exceeds the remaining %s bytes of stream %s", chunkLength, end - position, source);
+        }
+
+        if (isUncompressed) {
+            setBuffer(data, position, position + chunkLength);
+        }
+        else {
+            if (decompressed == null) {
+                decompressed = new byte[maxBufferSize];
+            }
+            int length;
+            if (compressionKind == CompressionKind.ZLIB) {
+                length = inflate(position, chunkLength);
+            }
+            else {
+                length = uncompressSnappy(position, chunkLength);
+            }
+            setBuffer(decompressed, 0, length);
+        }
+        position += chunkLength;
+
+        // an empty chunk is legal, so keep going until there is data or the stream ends
+        return bufferPosition < bufferEnd || advance();
+    }
+
+    private int inflate(int offset, int length)
+            throws IOException
+    {
+        if (inflater == null) {
+            // ORC writes raw deflate data without the zlib header
+            inflater = new Inflater(true);
+        }
+        inflater.reset();
+        inflater.setInput(data, offset, length);
+        try {
+            int uncompressedLength = 0;
+            while (!inflater.finished()) {
+                if (uncompressedLength == decompressed.length || inflater.needsInput()) {
+                    throw new OrcCorruptionException("Invalid zlib chunk in stream %s", source);
+                }
+                uncompressedLength += inflater.inflate(decompressed, uncompressedLength, decompressed.length - uncompressedLength);
+            }
+            return uncompressedLength;
+        }
+        catch (DataFormatException e) {
+            throw new OrcCorruptionException(e, "Invalid zlib chunk in stream %s", source);
+        }
+    }
+
+    private int uncompressSnappy(int offset, int length)
+            throws IOException
+    {
+        try {
+            int uncompressedLength = Snappy.getUncompressedLength(data, offset);
+            if (uncompressedLength > decompressed.length) {
+                throw new OrcCorruptionException("Snappy chunk of %s bytes exceeds the buffer size %s in stream %s", uncompressedLength, decompressed.length, source);
+            }
+            return Snappy.uncompress(data, offset, length, decompressed, 0);
+        }
+        catch (CorruptionException e) {
+            throw new OrcCorruptionException(e, "Invalid snappy chunk in stream %s", source);
+        }
+    }
+
+    private void setBuffer(byte[] buffer, int position, int end)
+    {
+        this.buffer = buffer;
+        this.bufferPosition = position;
+        this.bufferEnd = end;
+    }
+
+    @Override
+    public String toString()
+    {
+        return source;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+
+import java.io.IOException;
+import java.util.List;
+
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_BAD_DATA;
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_CURSOR_ERROR;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+public class OrcPageSource
+        implements ConnectorPageSource
+{
+    private final OrcRecordReader recordReader;
+    private final List<Type> types;
+    private final Block[] constantBlocks;
+    private final int[] fields;
+    private final long totalBytes;
+    private boolean closed;
+
+    /**
+     * @param constantBlocks for each column, a block of {@link OrcRecordReader#MAX_BATCH_SIZE} copies of the value of a
+     * partition key or of nulls for a column missing from the file, or null for a column read from the file
+     * @param fields for each column read from the file, the index of the column in the fields of the record reader
+     */
+    public OrcPageSource(OrcRecordReader recordReader, List<Type> types, Block[] constantBlocks, int[] fields, long totalBytes)
+    {
+        this.recordReader = checkNotNull(recordReader, "recordReader is null");
+        this.types = ImmutableList.copyOf(checkNotNull(types, "types is null"));
+        this.constantBlocks = checkNotNull(constantBlocks, "constantBlocks is null").clone();
+        this.fields = checkNotNull(fields, "fields is null").clone();
+        checkArgument(constantBlocks.length == types.size() && fields.length == types.size(), "types, constantBlocks and fields must have the same size");
+        this.totalBytes = totalBytes;
+    }
+
+    @Override
+    public List<Type> getTypes()
+    {
+        return types;
+    }
+
+    @Override
+    public long getTotalBytes()
+    {
+        return totalBytes;
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return recordReader.getReadBytes();
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return recordReader.getReadTimeNanos();
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return closed;
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        if (closed) {
+            return null;
+        }
+
+        try {
+            int batchSize = recordReader.nextBatch();
+            if (batchSize <= 0) {
+                close();
+                return null;
+            }
+
+            Block[] blocks = new Block[types.size()];
+            for (int channel = 0; channel < blocks.length; channel++) {
+                if (constantBlocks[channel] != null) {
+                    blocks[channel] = constantBlocks[channel].getRegion(0, batchSize);
+                }
+                else {
+                    blocks[channel] = recordReader.readBlock(fields[channel]);
+                }
+            }
+            return new Page(batchSize, blocks);
+        }
+        catch (OrcCorruptionException e) {
+            closeWithSuppression(e);
+            throw new PrestoException(HIVE_BAD_DATA.toErrorCode(), e);
+        }
+        catch (IOException | RuntimeException e) {
+            closeWithSuppression(e);
+            throw new PrestoException(HIVE_CURSOR_ERROR.toErrorCode(), e);
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            recordReader.close();
+        }
+        catch (IOException e) {
+            throw new PrestoException(HIVE_CURSOR_ERROR.toErrorCode(), e);
+        }
+    }
+
+    private void closeWithSuppression(Throwable throwable)
+    {
+        try {
+            close();
+        }
+        catch (RuntimeException e) {
+            throwable.addSuppressed(e);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.facebook.presto.hive.HdfsEnvironment;
+import com.facebook.presto.hive.HiveColumnHandle;
+import com.facebook.presto.hive.HivePartitionKey;
+import com.facebook.presto.hive.HiveSplit;
+import com.facebook.presto.hive.HiveType;
+import com.facebook.presto.hive.orc.TupleDomainOrcPredicate.ColumnReference;
+import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto;
+import org.apache.hadoop.hive.ql.io.orc.OrcSerde;
+import org.joda.time.DateTimeZone;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_CANNOT_OPEN_SPLIT;
+import static com.facebook.presto.hive.HiveUtil.getDeserializer;
+import static com.facebook.presto.hive.orc.OrcRecordReader.MAX_BATCH_SIZE;
+import static com.facebook.presto.hive.util.ConstantBlocks.createNullBlock;
+import static com.facebook.presto.hive.util.ConstantBlocks.createPartitionKeyBlock;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Maps.uniqueIndex;
+import static java.lang.String.format;
+
+/**
+ * Creates page sources that decode ORC files directly into blocks, for splits
+ * of tables using the ORC SerDe with only primitive columns.
+ */
+public class OrcPageSourceFactory
+{
+    private final HdfsEnvironment hdfsEnvironment;
+    private final DateTimeZone hiveStorageTimeZone;
+
+    public OrcPageSourceFactory(HdfsEnvironment hdfsEnvironment, DateTimeZone hiveStorageTimeZone)
+    {
+        this.hdfsEnvironment = checkNotNull(hdfsEnvironment, "hdfsEnvironment is null");
+        this.hiveStorageTimeZone = checkNotNull(hiveStorageTimeZone, "hiveStorageTimeZone is null");
+    }
+
+    public Optional<ConnectorPageSource> createPageSource(HiveSplit split, List<HiveColumnHandle> columns)
+    {
+        if (!(getDeserializer(split.getSchema()) instanceof OrcSerde)) {
+            return Optional.absent();
+        }
+        for (HiveColumnHandle column : columns) {
+            if (!column.isPartitionKey() && isComplexType(column.getHiveType())) {
+                return Optional.absent();
+            }
+        }
+
+        Path path = new Path(split.getPath());
+        OrcDataSource orcDataSource;
+        try {
+            FileSystem fileSystem = hdfsEnvironment.getCachingFileSystem(path);
+            long size = fileSystem.getFileStatus(path).getLen();
+            orcDataSource = new HdfsOrcDataSource(path.toString(), fileSystem.open(path), size);
+        }
+        catch (IOException e) {
+            throw new PrestoException(HIVE_CANNOT_OPEN_SPLIT.toErrorCode(), splitError(split, e), e);
+        }
+
+        try {
+            OrcReader reader = new OrcReader(orcDataSource);
+            List<OrcProto.Type> types = reader.getTypes();
+            OrcProto.Type rootType = types.get(0);
+
+            Map<String, HivePartitionKey> partitionKeysByName = uniqueIndex(split.getPartitionKeys(), HivePartitionKey.nameGetter());
+            ImmutableList.Builder<Type> columnTypes = ImmutableList.builder();
+            Block[] constantBlocks = new Block[columns.size()];
+            int[] fields = new int[columns.size()];
+            List<Integer> includedColumns = new ArrayList<>();
+            ImmutableList.Builder<ColumnReference<ConnectorColumnHandle>> columnReferences = ImmutableList.builder();
+
+            for (int channel = 0; channel < columns.size(); channel++) {
+                HiveColumnHandle column = columns.get(channel);
+                Type type = column.getType();
+                columnTypes.add(type);
+
+                if (column.isPartitionKey()) {
+                    HivePartitionKey partitionKey = partitionKeysByName.get(column.getName());
+                    checkArgument(partitionKey != null, "Unknown partition key %s", column.getName());
+                    constantBlocks[channel] = createPartitionKeyBlock(column, partitionKey.getValue(), MAX_BATCH_SIZE);
+                }
+                else if (column.getHiveColumnIndex() >= rootType.getSubtypesCount()) {
+                    // the column was added to the table after the file was written
+                    constantBlocks[channel] = createNullBlock(type, MAX_BATCH_SIZE);
+                }
+                else {
+                    int orcColumn = rootType.getSubtypes(column.getHiveColumnIndex());
+                    Optional<Type> orcType = ColumnReaders.getType(types.get(orcColumn).getKind());
+                    if (!orcType.isPresent() || !orcType.get().equals(type)) {
+                        // the type of the column in the file does not match the table, so let the SerDe coerce the values
+                        orcDataSource.close();
+                        return Optional.absent();
+                    }
+                    fields[channel] = includedColumns.size();
+                    includedColumns.add(orcColumn);
+                    columnReferences.add(new ColumnReference<ConnectorColumnHandle>(column, orcColumn, type));
+                }
+            }
+
+            OrcPredicate predicate = new TupleDomainOrcPredicate<>(split.getEffectivePredicate(), columnReferences.build());
+            OrcRecordReader recordReader = reader.createRecordReader(includedColumns, predicate, split.getStart(), split.getLength(), hiveStorageTimeZone);
+            return Optional.<ConnectorPageSource>of(new OrcPageSource(recordReader, columnTypes.build(), constantBlocks, fields, split.getLength()));
+        }
+        catch (IOException | RuntimeException e) {
+            try {
+                orcDataSource.close();
+            }
+            catch (IOException ignored) {
+            }
+            throw new PrestoException(HIVE_CANNOT_OPEN_SPLIT.toErrorCode(), splitError(split, e), e);
+        }
+    }
+
+    private static boolean isComplexType(HiveType hiveType)
+    {
+        return hiveType == HiveType.LIST || hiveType == HiveType.MAP || hiveType == HiveType.STRUCT;
+    }
+
+    private static String splitError(HiveSplit split, Throwable cause)
+    {
+        return format("Error opening Hive split %s (offset=%s, length=%s) using the ORC reader: %s",
+                split.getPath(),
+                split.getStart(),
+                split.getLength(),
+                cause.getMessage());
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import org.apache.hadoop.hive.ql.io.orc.OrcProto.ColumnStatistics;
+
+import java.util.Map;
+
+public interface OrcPredicate
+{
+    OrcPredicate TRUE = new OrcPredicate()
+    {
+        @Override
+        public boolean matches(long numberOfRows, Map<Integer, ColumnStatistics> statisticsByColumnIndex)
+        {
+            return true;
+        }
+    };
+
+    /**
+     * Should the ORC reader process a file section with the specified statistics.
+     *
+     * @param numberOfRows the number of rows in the section
+     * @param statisticsByColumnIndex statistics for the columns with an index, keyed by ORC column id
+     */
+    boolean matches(long numberOfRows, Map<Integer, ColumnStatistics> statisticsByColumnIndex);
+}
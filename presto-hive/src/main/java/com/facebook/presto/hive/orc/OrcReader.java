@@ -0,0 +1,148 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto.CompressionKind;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto.Footer;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto.Metadata;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto.PostScript;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto.StripeStatistics;
+import org.joda.time.DateTimeZone;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reads the tail of an ORC file: the postscript, the footer with the stripe
+ * locations and types, and the metadata with the statistics of each stripe.
+ */
+public class OrcReader
+{
+    private static final int EXPECTED_FOOTER_SIZE = 16 * 1024;
+
+    private final OrcDataSource orcDataSource;
+    private final CompressionKind compressionKind;
+    private final int bufferSize;
+    private final Footer footer;
+    private final List<StripeStatistics> stripeStatistics;
+
+    public OrcReader(OrcDataSource orcDataSource)
+            throws IOException
+    {
+        this.orcDataSource = checkNotNull(orcDataSource, "orcDataSource is null");
+
+        long size = orcDataSource.getSize();
+        if (size <= 0) {
+            throw new OrcCorruptionException("File %s is empty", orcDataSource);
+        }
+
+        // read the tail of the file, which usually contains the entire footer
+        byte[] buffer = new byte[(int) Math.min(size, EXPECTED_FOOTER_SIZE)];
+        orcDataSource.readFully(size - buffer.length, buffer, 0, buffer.length);
+
+        // the last byte of the file is the length of the postscript, which is never compressed
+        int postScriptSize = buffer[buffer.length - 1] & 0xFF;
+        if (postScriptSize >= buffer.length) {
+            throw new OrcCorruptionException("Invalid postscript length %s in file %s", postScriptSize, orcDataSource);
+        }
+        PostScript postScript = PostScript.parseFrom(new ByteArrayInputStream(buffer, buffer.length - 1 - postScriptSize, postScriptSize));
+
+        this.compressionKind = postScript.getCompression();
+        if (compressionKind == CompressionKind.LZO) {
+            throw new OrcCorruptionException("LZO compression is not supported: %s", orcDataSource);
+        }
+        this.bufferSize = (int) postScript.getCompressionBlockSize();
+
+        int footerSize = (int) postScript.getFooterLength();
+        int metadataSize = (int) postScript.getMetadataLength();
+        int tailSize = 1 + postScriptSize + footerSize + metadataSize;
+        if (tailSize > size) {
+            throw new OrcCorruptionException("Invalid footer length %s in file %s", footerSize, orcDataSource);
+        }
+
+        // read the rest of the tail if the footer is larger than expected
+        if (tailSize > buffer.length) {
+            byte[] tail = new byte[tailSize];
+            orcDataSource.readFully(size - tailSize, tail, 0, tailSize - buffer.length);
+            System.arraycopy(buffer, 0, tail, tailSize - buffer.length, buffer.length);
+            buffer = tail;
+        }
+
+        int metadataOffset = buffer.length - tailSize;
+        if (metadataSize > 0) {
+            OrcInputStream metadataStream = new OrcInputStream(orcDataSource + " metadata", buffer, metadataOffset, metadataSize, compressionKind, bufferSize);
+            Metadata metadata = Metadata.parseFrom(metadataStream);
+            this.stripeStatistics = ImmutableList.copyOf(metadata.getStripeStatsList());
+        }
+        else {
+            // files written before stripe statistics were added only have the row indexes
+            this.stripeStatistics = ImmutableList.of();
+        }
+
+        OrcInputStream footerStream = new OrcInputStream(orcDataSource + " footer", buffer, metadataOffset + metadataSize, footerSize, compressionKind, bufferSize);
+        this.footer = Footer.parseFrom(footerStream);
+    }
+
+    public OrcDataSource getOrcDataSource()
+    {
+        return orcDataSource;
+    }
+
+    public CompressionKind getCompressionKind()
+    {
+        return compressionKind;
+    }
+
+    public int getBufferSize()
+    {
+        return bufferSize;
+    }
+
+    public Footer getFooter()
+    {
+        return footer;
+    }
+
+    public List<OrcProto.Type> getTypes()
+    {
+        return footer.getTypesList();
+    }
+
+    /**
+     * Gets the statistics of each stripe, which is empty for files written without stripe statistics.
+     */
+    public List<StripeStatistics> getStripeStatistics()
+    {
+        return stripeStatistics;
+    }
+
+    /**
+     * @param includedColumns the ORC column ids of the top level columns to read, keyed by reader field
+     */
+    public OrcRecordReader createRecordReader(
+            List<Integer> includedColumns,
+            OrcPredicate predicate,
+            long splitOffset,
+            long splitLength,
+            DateTimeZone hiveStorageTimeZone)
+            throws IOException
+    {
+        return new OrcRecordReader(this, includedColumns, predicate, splitOffset, splitLength, hiveStorageTimeZone);
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.facebook.presto.spi.block.Block;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Table;
+import com.google.common.primitives.Booleans;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto.ColumnStatistics;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto.CompressionKind;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto.RowIndex;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto.RowIndexEntry;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto.Stream.Kind;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto.StripeFooter;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto.StripeInformation;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto.StripeStatistics;
+import org.joda.time.DateTimeZone;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static org.apache.hadoop.hive.ql.io.orc.OrcProto.Stream.Kind.ROW_INDEX;
+
+/**
+ * Reads the stripes of an ORC file that start within a split in batches of rows.
+ * Only the streams of the included columns are read.  Stripes are skipped
+ * using the stripe statistics, and row groups using the statistics in the row
+ * indexes, when the predicate proves they contain no matching rows.
+ * <p>
+ * For each batch, {@link #readBlock} may be called at most once per field.
+ */
+public class OrcRecordReader
+        implements Closeable
+{
+    public static final int MAX_BATCH_SIZE = 1024;
+
+    // streams of included columns closer than this are read with a single request
+    private static final int MAX_MERGE_DISTANCE = 1024 * 1024;
+
+    private final OrcDataSource orcDataSource;
+    private final CompressionKind compressionKind;
+    private final int bufferSize;
+    private final List<OrcProto.Type> types;
+    private final List<Integer> includedColumns;
+    private final Set<Integer> includedColumnSet;
+    private final OrcPredicate predicate;
+    private final DateTimeZone hiveStorageTimeZone;
+    private final long rowIndexStride;
+    private final List<StripeInformation> stripes;
+
+    private int currentStripe = -1;
+    private long stripeRowCount;
+    private long stripeRowPosition;
+    private boolean[] selectedRowGroups;
+    private ColumnReader[] columnReaders;
+
+    private int batchSize;
+    private boolean[] blockRead;
+
+    public OrcRecordReader(
+            OrcReader orcReader,
+            List<Integer> includedColumns,
+            OrcPredicate predicate,
+            long splitOffset,
+            long splitLength,
+            DateTimeZone hiveStorageTimeZone)
+    {
+        checkNotNull(orcReader, "orcReader is null");
+        this.orcDataSource = orcReader.getOrcDataSource();
+        this.compressionKind = orcReader.getCompressionKind();
+        this.bufferSize = orcReader.getBufferSize();
+        this.types = orcReader.getTypes();
+        this.includedColumns = ImmutableList.copyOf(checkNotNull(includedColumns, "includedColumns is null"));
+        this.includedColumnSet = ImmutableSet.copyOf(includedColumns);
+        this.predicate = checkNotNull(predicate, "predicate is null");
+        this.hiveStorageTimeZone = checkNotNull(hiveStorageTimeZone, "hiveStorageTimeZone is null");
+        this.rowIndexStride = orcReader.getFooter().getRowIndexStride();
+        this.blockRead = new boolean[includedColumns.size()];
+        Arrays.fill(blockRead, true);
+
+        for (int column : includedColumns) {
+            checkArgument(column > 0 && column < types.size(), "Invalid column %s", column);
+        }
+
+        // select the stripes that start in the split and may contain matching rows
+        List<StripeStatistics> stripeStatistics = orcReader.getStripeStatistics();
+        ImmutableList.Builder<StripeInformation> stripes = ImmutableList.builder();
+        List<StripeInformation> fileStripes = orcReader.getFooter().getStripesList();
+        for (int i = 0; i < fileStripes.size(); i++) {
+            StripeInformation stripe = fileStripes.get(i);
+            if (stripe.getOffset() < splitOffset || stripe.getOffset() >= splitOffset + splitLength) {
+                continue;
+            }
+            if (i < stripeStatistics.size() && !predicate.matches(stripe.getNumberOfRows(), getStatisticsByColumnIndex(stripeStatistics.get(i).getColStatsList()))) {
+                continue;
+            }
+            stripes.add(stripe);
+        }
+        this.stripes = stripes.build();
+    }
+
+    public long getReadBytes()
+    {
+        return orcDataSource.getReadBytes();
+    }
+
+    public long getReadTimeNanos()
+    {
+        return orcDataSource.getReadTimeNanos();
+    }
+
+    /**
+     * Advances to the next batch of rows.
+     *
+     * @return the number of rows in the batch, or -1 if there are no more rows
+     */
+    public int nextBatch()
+            throws IOException
+    {
+        // skip the values of the last batch that were not read
+        for (int field = 0; field < blockRead.length; field++) {
+            if (!blockRead[field]) {
+                columnReaders[field].skip(batchSize);
+                blockRead[field] = true;
+            }
+        }
+        batchSize = 0;
+
+        while (true) {
+            if (columnReaders == null || stripeRowPosition == stripeRowCount) {
+                if (!advanceToNextStripe()) {
+                    return -1;
+                }
+                continue;
+            }
+
+            long rowGroupEnd = stripeRowCount;
+            boolean selected = true;
+            if (selectedRowGroups != null) {
+                int rowGroup = (int) (stripeRowPosition / rowIndexStride);
+                rowGroupEnd = Math.min(stripeRowCount, (rowGroup + 1) * rowIndexStride);
+                selected = selectedRowGroups[rowGroup];
+            }
+
+            if (!selected) {
+                // the streams are not seekable, so decode the rows of the row group without materializing them
+                int skippedRows = (int) (rowGroupEnd - stripeRowPosition);
+                for (ColumnReader columnReader : columnReaders) {
+                    columnReader.skip(skippedRows);
+                }
+                stripeRowPosition = rowGroupEnd;
+                continue;
+            }
+
+            batchSize = (int) Math.min(MAX_BATCH_SIZE, rowGroupEnd - stripeRowPosition);
+            stripeRowPosition += batchSize;
+            for (int field = 0; field < blockRead.length; field++) {
+                blockRead[field] = false;
+            }
+            return batchSize;
+        }
+    }
+
+    /**
+     * Reads the values of the current batch for a field.
+     *
+     * @param field the index of the column in the included columns
+     */
+    public Block readBlock(int field)
+            throws IOException
+    {
+        checkState(!blockRead[field], "Block for field %s has already been read", field);
+        blockRead[field] = true;
+        return columnReaders[field].readBlock(batchSize);
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        orcDataSource.close();
+    }
+
+    private boolean advanceToNextStripe()
+            throws IOException
+    {
+        columnReaders = null;
+        while (currentStripe + 1 < stripes.size()) {
+            currentStripe++;
+            StripeInformation stripe = stripes.get(currentStripe);
+            stripeRowCount = stripe.getNumberOfRows();
+            stripeRowPosition = 0;
+
+            StripeFooter stripeFooter = readStripeFooter(stripe);
+
+            selectedRowGroups = null;
+            if (rowIndexStride > 0 && predicate != OrcPredicate.TRUE && !includedColumns.isEmpty()) {
+                selectedRowGroups = selectRowGroups(stripe, stripeFooter);
+                if (selectedRowGroups != null && !Booleans.contains(selectedRowGroups, true)) {
+                    continue;
+                }
+            }
+
+            Table<Integer, Kind, OrcInputStream> streams = readStreams(stripe, stripeFooter, false);
+            columnReaders = new ColumnReader[includedColumns.size()];
+            for (int field = 0; field < columnReaders.length; field++) {
+                int column = includedColumns.get(field);
+                columnReaders[field] = ColumnReaders.createColumnReader(types.get(column), stripeFooter.getColumns(column), streams.row(column), hiveStorageTimeZone);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private boolean[] selectRowGroups(StripeInformation stripe, StripeFooter stripeFooter)
+            throws IOException
+    {
+        Map<Integer, List<RowIndexEntry>> rowIndexes = new HashMap<>();
+        for (Table.Cell<Integer, Kind, OrcInputStream> cell : readStreams(stripe, stripeFooter, true).cellSet()) {
+            rowIndexes.put(cell.getRowKey(), RowIndex.parseFrom(cell.getValue()).getEntryList());
+        }
+        if (rowIndexes.isEmpty()) {
+            return null;
+        }
+
+        int rowGroupCount = (int) ((stripeRowCount + rowIndexStride - 1) / rowIndexStride);
+        boolean[] selectedRowGroups = new boolean[rowGroupCount];
+        for (int rowGroup = 0; rowGroup < rowGroupCount; rowGroup++) {
+            ImmutableMap.Builder<Integer, ColumnStatistics> statistics = ImmutableMap.builder();
+            for (Map.Entry<Integer, List<RowIndexEntry>> entry : rowIndexes.entrySet()) {
+                if (rowGroup < entry.getValue().size()) {
+                    statistics.put(entry.getKey(), entry.getValue().get(rowGroup).getStatistics());
+                }
+            }
+            long rows = Math.min(rowIndexStride, stripeRowCount - (rowGroup * rowIndexStride));
+            selectedRowGroups[rowGroup] = predicate.matches(rows, statistics.build());
+        }
+        return selectedRowGroups;
+    }
+
+    private StripeFooter readStripeFooter(StripeInformation stripe)
+            throws IOException
+    {
+        long offset = stripe.getOffset() + stripe.getIndexLength() + stripe.getDataLength();
+        byte[] buffer = new byte[(int) stripe.getFooterLength()];
+        orcDataSource.readFully(offset, buffer, 0, buffer.length);
+        return StripeFooter.parseFrom(new OrcInputStream(orcDataSource + " stripe footer", buffer, 0, buffer.length, compressionKind, bufferSize));
+    }
+
+    /**
+     * Reads either the index streams or the data streams of the included columns.
+     * Streams that are close together are read with a single request.
+     */
+    private Table<Integer, Kind, OrcInputStream> readStreams(StripeInformation stripe, StripeFooter stripeFooter, boolean indexStreams)
+            throws IOException
+    {
+        Table<Integer, Kind, OrcInputStream> streams = HashBasedTable.create();
+
+        List<OrcProto.Stream> run = new ArrayList<>();
+        List<Long> runOffsets = new ArrayList<>();
+        long runEnd = 0;
+
+        // the streams are stored in the stripe in the order of the stripe footer
+        long offset = stripe.getOffset();
+        for (OrcProto.Stream stream : stripeFooter.getStreamsList()) {
+            if (includedColumnSet.contains(stream.getColumn()) && (stream.getKind() == ROW_INDEX) == indexStreams) {
+                if (!run.isEmpty() && offset - runEnd > MAX_MERGE_DISTANCE) {
+                    readRun(run, runOffsets, runEnd, streams);
+                    run.clear();
+                    runOffsets.clear();
+                }
+                run.add(stream);
+                runOffsets.add(offset);
+                runEnd = offset + stream.getLength();
+            }
+            offset += stream.getLength();
+        }
+        if (!run.isEmpty()) {
+            readRun(run, runOffsets, runEnd, streams);
+        }
+        return streams;
+    }
+
+    private void readRun(List<OrcProto.Stream> run, List<Long> runOffsets, long runEnd, Table<Integer, Kind, OrcInputStream> streams)
+            throws IOException
+    {
+        long runStart = runOffsets.get(0);
+        byte[] buffer = new byte[(int) (runEnd - runStart)];
+        orcDataSource.readFully(runStart, buffer, 0, buffer.length);
+
+        for (int i = 0; i < run.size(); i++) {
+            OrcProto.Stream stream = run.get(i);
+            String source = orcDataSource + " column " + stream.getColumn() + " " + stream.getKind();
+            int streamOffset = (int) (runOffsets.get(i) - runStart);
+            streams.put(stream.getColumn(), stream.getKind(), new OrcInputStream(source, buffer, streamOffset, (int) stream.getLength(), compressionKind, bufferSize));
+        }
+    }
+
+    private Map<Integer, ColumnStatistics> getStatisticsByColumnIndex(List<ColumnStatistics> columnStatistics)
+    {
+        ImmutableMap.Builder<Integer, ColumnStatistics> statistics = ImmutableMap.builder();
+        for (int column : includedColumnSet) {
+            if (column < columnStatistics.size()) {
+                statistics.put(column, columnStatistics.get(column));
+            }
+        }
+        return statistics.build();
+    }
+}
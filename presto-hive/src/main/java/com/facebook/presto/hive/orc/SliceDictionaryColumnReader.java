@@ -0,0 +1,59 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.type.Type;
+import io.airlift.slice.Slice;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reads STRING columns stored as ids into a dictionary of the distinct values of the stripe.
+ */
+public class SliceDictionaryColumnReader
+        extends ColumnReader
+{
+    private final LongStream dataStream;
+    private final Slice[] dictionary;
+
+    public SliceDictionaryColumnReader(Type type, @Nullable BooleanStream presentStream, LongStream dataStream, Slice[] dictionary)
+    {
+        super(type, presentStream);
+        this.dataStream = checkNotNull(dataStream, "dataStream is null");
+        this.dictionary = checkNotNull(dictionary, "dictionary is null");
+    }
+
+    @Override
+    protected void readValue(BlockBuilder builder)
+            throws IOException
+    {
+        long id = dataStream.next();
+        if (id < 0 || id >= dictionary.length) {
+            throw new OrcCorruptionException("Dictionary id %s is out of range, dictionary size is %s", id, dictionary.length);
+        }
+        getType().writeSlice(builder, dictionary[(int) id]);
+    }
+
+    @Override
+    protected void skipValues(long items)
+            throws IOException
+    {
+        dataStream.skip(items);
+    }
+}
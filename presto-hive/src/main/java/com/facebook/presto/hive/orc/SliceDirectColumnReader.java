@@ -0,0 +1,68 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.type.Type;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reads STRING and BINARY columns stored as a length stream and the concatenated bytes.
+ */
+public class SliceDirectColumnReader
+        extends ColumnReader
+{
+    private final LongStream lengthStream;
+    private final OrcInputStream dataStream;
+    private byte[] buffer = new byte[0];
+    private Slice slice = Slices.EMPTY_SLICE;
+
+    public SliceDirectColumnReader(Type type, @Nullable BooleanStream presentStream, LongStream lengthStream, OrcInputStream dataStream)
+    {
+        super(type, presentStream);
+        this.lengthStream = checkNotNull(lengthStream, "lengthStream is null");
+        this.dataStream = checkNotNull(dataStream, "dataStream is null");
+    }
+
+    @Override
+    protected void readValue(BlockBuilder builder)
+            throws IOException
+    {
+        int length = (int) lengthStream.next();
+        if (length > buffer.length) {
+            buffer = new byte[Math.max(length, buffer.length * 2)];
+            slice = Slices.wrappedBuffer(buffer);
+        }
+        dataStream.readFully(buffer, 0, length);
+        getType().writeSlice(builder, slice, 0, length);
+    }
+
+    @Override
+    protected void skipValues(long items)
+            throws IOException
+    {
+        long dataLength = 0;
+        for (long i = 0; i < items; i++) {
+            dataLength += lengthStream.next();
+        }
+        dataStream.skipFully(dataLength);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.facebook.presto.spi.block.BlockBuilder;
+import org.joda.time.DateTimeZone;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reads TIMESTAMP columns, which ORC stores as the seconds since 2015-01-01 00:00:00
+ * in the local time of the writer, and the nanoseconds of the second.
+ */
+public class TimestampColumnReader
+        extends ColumnReader
+{
+    private static final long BASE_TIMESTAMP_IN_SECONDS = 1420070400L;
+    private static final int MILLIS_PER_SECOND = 1000;
+    private static final int NANOS_PER_MILLI = 1000000;
+
+    private final LongStream secondsStream;
+    private final LongStream nanosStream;
+    private final long baseTimestampInSeconds;
+
+    public TimestampColumnReader(@Nullable BooleanStream presentStream, LongStream secondsStream, LongStream nanosStream, DateTimeZone hiveStorageTimeZone)
+    {
+        super(TIMESTAMP, presentStream);
+        this.secondsStream = checkNotNull(secondsStream, "secondsStream is null");
+        this.nanosStream = checkNotNull(nanosStream, "nanosStream is null");
+        checkNotNull(hiveStorageTimeZone, "hiveStorageTimeZone is null");
+
+        // only the base is in the local time of the writer, the offsets from it are plain seconds,
+        // so converting the result instead of the base would be off by an hour across DST changes
+        this.baseTimestampInSeconds = hiveStorageTimeZone.convertLocalToUTC(BASE_TIMESTAMP_IN_SECONDS * MILLIS_PER_SECOND, false) / MILLIS_PER_SECOND;
+    }
+
+    @Override
+    protected void readValue(BlockBuilder builder)
+            throws IOException
+    {
+        long millis = (secondsStream.next() + baseTimestampInSeconds) * MILLIS_PER_SECOND;
+        int nanos = parseNanos(nanosStream.next());
+
+        // the writer truncates the seconds towards zero, but the nanoseconds are always positive
+        if (millis < 0 && nanos != 0) {
+            millis -= MILLIS_PER_SECOND;
+        }
+        millis += nanos / NANOS_PER_MILLI;
+        TIMESTAMP.writeLong(builder, millis);
+    }
+
+    @Override
+    protected void skipValues(long items)
+            throws IOException
+    {
+        secondsStream.skip(items);
+        nanosStream.skip(items);
+    }
+
+    // This comes from the Apache Hive ORC code
+    private static int parseNanos(long serialized)
+    {
+        int zeros = ((int) serialized) & 0x07;
+        int result = (int) (serialized >>> 3);
+        if (zeros != 0) {
+            for (int i = 0; i <= zeros; i++) {
+                result *= 10;
+            }
+        }
+        return result;
+    }
+}
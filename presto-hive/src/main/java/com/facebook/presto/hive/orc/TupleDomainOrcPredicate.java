@@ -0,0 +1,153 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.Range;
+import com.facebook.presto.spi.SortedRangeSet;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto.BucketStatistics;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto.ColumnStatistics;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto.DoubleStatistics;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto.IntegerStatistics;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto.StringStatistics;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.primitives.Primitives.wrap;
+import static io.airlift.slice.Slices.utf8Slice;
+
+/**
+ * Rejects file sections whose min/max statistics prove that no row satisfies a TupleDomain.
+ */
+public class TupleDomainOrcPredicate<C>
+        implements OrcPredicate
+{
+    private final TupleDomain<C> effectivePredicate;
+    private final List<ColumnReference<C>> columnReferences;
+
+    public TupleDomainOrcPredicate(TupleDomain<C> effectivePredicate, List<ColumnReference<C>> columnReferences)
+    {
+        this.effectivePredicate = checkNotNull(effectivePredicate, "effectivePredicate is null");
+        this.columnReferences = ImmutableList.copyOf(checkNotNull(columnReferences, "columnReferences is null"));
+    }
+
+    @Override
+    public boolean matches(long numberOfRows, Map<Integer, ColumnStatistics> statisticsByColumnIndex)
+    {
+        if (effectivePredicate.isNone()) {
+            return false;
+        }
+
+        Map<C, Domain> predicateDomains = effectivePredicate.getDomains();
+        for (ColumnReference<C> columnReference : columnReferences) {
+            Domain predicateDomain = predicateDomains.get(columnReference.getColumn());
+            if (predicateDomain == null) {
+                // no predicate on this column, so the column can not be used to filter
+                continue;
+            }
+
+            ColumnStatistics columnStatistics = statisticsByColumnIndex.get(columnReference.getOrdinal());
+            if (columnStatistics == null) {
+                // no statistics for this column, so the column can not be used to filter
+                continue;
+            }
+
+            Domain stripeDomain = getDomain(columnReference.getType(), columnStatistics);
+            if (!stripeDomain.overlaps(predicateDomain)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Domain getDomain(Type type, ColumnStatistics columnStatistics)
+    {
+        Class<?> boxedJavaType = wrap(type.getJavaType());
+        if (columnStatistics.hasNumberOfValues() && columnStatistics.getNumberOfValues() == 0) {
+            // statistics only count the values that are not null
+            return Domain.onlyNull(boxedJavaType);
+        }
+
+        // the statistics do not record whether the section contains nulls, so always allow them
+        if (type.equals(BOOLEAN) && columnStatistics.hasBucketStatistics() && columnStatistics.hasNumberOfValues()) {
+            BucketStatistics bucketStatistics = columnStatistics.getBucketStatistics();
+            if (bucketStatistics.getCountCount() > 0) {
+                long trueCount = bucketStatistics.getCount(0);
+                if (trueCount == 0) {
+                    return Domain.create(SortedRangeSet.of(Range.equal(false)), true);
+                }
+                if (trueCount == columnStatistics.getNumberOfValues()) {
+                    return Domain.create(SortedRangeSet.of(Range.equal(true)), true);
+                }
+            }
+        }
+        else if (type.equals(BIGINT) && columnStatistics.hasIntStatistics()) {
+            IntegerStatistics statistics = columnStatistics.getIntStatistics();
+            if (statistics.hasMinimum() && statistics.hasMaximum()) {
+                return Domain.create(SortedRangeSet.of(Range.range(statistics.getMinimum(), true, statistics.getMaximum(), true)), true);
+            }
+        }
+        else if (type.equals(DOUBLE) && columnStatistics.hasDoubleStatistics()) {
+            DoubleStatistics statistics = columnStatistics.getDoubleStatistics();
+            if (statistics.hasMinimum() && statistics.hasMaximum() && !Double.isNaN(statistics.getMinimum()) && !Double.isNaN(statistics.getMaximum())) {
+                return Domain.create(SortedRangeSet.of(Range.range(statistics.getMinimum(), true, statistics.getMaximum(), true)), true);
+            }
+        }
+        else if (type.equals(VARCHAR) && columnStatistics.hasStringStatistics()) {
+            StringStatistics statistics = columnStatistics.getStringStatistics();
+            if (statistics.hasMinimum() && statistics.hasMaximum()) {
+                return Domain.create(SortedRangeSet.of(Range.range(utf8Slice(statistics.getMinimum()), true, utf8Slice(statistics.getMaximum()), true)), true);
+            }
+        }
+        return Domain.all(boxedJavaType);
+    }
+
+    public static class ColumnReference<C>
+    {
+        private final C column;
+        private final int ordinal;
+        private final Type type;
+
+        public ColumnReference(C column, int ordinal, Type type)
+        {
+            this.column = checkNotNull(column, "column is null");
+            this.ordinal = ordinal;
+            this.type = checkNotNull(type, "type is null");
+        }
+
+        public C getColumn()
+        {
+            return column;
+        }
+
+        public int getOrdinal()
+        {
+            return ordinal;
+        }
+
+        public Type getType()
+        {
+            return type;
+        }
+    }
+}
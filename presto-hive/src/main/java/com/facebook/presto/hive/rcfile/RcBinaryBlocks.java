@@ -0,0 +1,239 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.rcfile;
+
+import com.facebook.presto.hive.HiveType;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.FixedWidthBlock;
+import com.facebook.presto.spi.block.VariableWidthBlock;
+import com.facebook.presto.spi.type.Type;
+import io.airlift.slice.ByteArrays;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import org.apache.hadoop.hive.serde2.columnar.BytesRefArrayWritable;
+import org.apache.hadoop.hive.serde2.columnar.BytesRefWritable;
+import org.apache.hadoop.hive.serde2.io.TimestampWritable;
+import org.apache.hadoop.io.WritableUtils;
+
+import java.io.IOException;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.slice.SizeOf.SIZE_OF_BYTE;
+import static io.airlift.slice.SizeOf.SIZE_OF_DOUBLE;
+import static io.airlift.slice.SizeOf.SIZE_OF_INT;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
+import static io.airlift.slice.SizeOf.SIZE_OF_SHORT;
+
+/**
+ * Decodes a range of the values of a column chunk of an RCFile row group written with the
+ * LazyBinaryColumnarSerDe directly into a block.  The encoding is resolved once per block
+ * instead of once per value, and the values are written straight into the backing slice
+ * of the block.  This is the batch equivalent of the parsing in ColumnarBinaryHiveRecordCursor.
+ */
+final class RcBinaryBlocks
+{
+    private static final byte HIVE_EMPTY_STRING_BYTE = (byte) 0xbf;
+
+    private RcBinaryBlocks() {}
+
+    public static Block decodeBlock(Type type, HiveType hiveType, BytesRefArrayWritable column, int offset, int positionCount)
+            throws IOException
+    {
+        if (BOOLEAN.equals(type)) {
+            return decodeBooleans(column, offset, positionCount);
+        }
+        if (BIGINT.equals(type) || TIMESTAMP.equals(type)) {
+            return decodeLongs(hiveType, column, offset, positionCount);
+        }
+        if (DOUBLE.equals(type)) {
+            return decodeDoubles(hiveType, column, offset, positionCount);
+        }
+        if (VARCHAR.equals(type) || VARBINARY.equals(type)) {
+            return decodeSlices(hiveType, column, offset, positionCount);
+        }
+        throw new UnsupportedOperationException("Unsupported column type: " + type);
+    }
+
+    private static Block decodeBooleans(BytesRefArrayWritable column, int offset, int positionCount)
+            throws IOException
+    {
+        Slice slice = Slices.allocate(positionCount * SIZE_OF_BYTE);
+        boolean[] valueIsNull = new boolean[positionCount];
+        for (int position = 0; position < positionCount; position++) {
+            BytesRefWritable field = column.unCheckedGet(offset + position);
+            if (field.getLength() == 0) {
+                valueIsNull[position] = true;
+            }
+            else if (field.getData()[field.getStart()] != 0) {
+                slice.setByte(position, 1);
+            }
+        }
+        return new FixedWidthBlock(SIZE_OF_BYTE, positionCount, slice, valueIsNull);
+    }
+
+    private static Block decodeLongs(HiveType hiveType, BytesRefArrayWritable column, int offset, int positionCount)
+            throws IOException
+    {
+        Slice slice = Slices.allocate(positionCount * SIZE_OF_LONG);
+        boolean[] valueIsNull = new boolean[positionCount];
+        switch (hiveType) {
+            case BYTE:
+                for (int position = 0; position < positionCount; position++) {
+                    BytesRefWritable field = column.unCheckedGet(offset + position);
+                    int length = field.getLength();
+                    if (length == 0) {
+                        valueIsNull[position] = true;
+                        continue;
+                    }
+                    checkState(length == 1, "Byte should be 1 byte");
+                    slice.setLong(position * SIZE_OF_LONG, field.getData()[field.getStart()]);
+                }
+                break;
+            case SHORT:
+                for (int position = 0; position < positionCount; position++) {
+                    BytesRefWritable field = column.unCheckedGet(offset + position);
+                    int length = field.getLength();
+                    if (length == 0) {
+                        valueIsNull[position] = true;
+                        continue;
+                    }
+                    // the file format uses big endian
+                    checkState(length == SIZE_OF_SHORT, "Short should be 2 bytes");
+                    slice.setLong(position * SIZE_OF_LONG, Short.reverseBytes(ByteArrays.getShort(field.getData(), field.getStart())));
+                }
+                break;
+            case INT:
+            case LONG:
+                for (int position = 0; position < positionCount; position++) {
+                    BytesRefWritable field = column.unCheckedGet(offset + position);
+                    int length = field.getLength();
+                    if (length == 0) {
+                        valueIsNull[position] = true;
+                        continue;
+                    }
+                    slice.setLong(position * SIZE_OF_LONG, readVLong(field.getData(), field.getStart(), length));
+                }
+                break;
+            case TIMESTAMP:
+                for (int position = 0; position < positionCount; position++) {
+                    BytesRefWritable field = column.unCheckedGet(offset + position);
+                    if (field.getLength() == 0) {
+                        valueIsNull[position] = true;
+                        continue;
+                    }
+                    byte[] bytes = field.getData();
+                    int start = field.getStart();
+                    long seconds = TimestampWritable.getSeconds(bytes, start);
+                    long nanos = TimestampWritable.getNanos(bytes, start + SIZE_OF_INT);
+                    slice.setLong(position * SIZE_OF_LONG, (seconds * 1000) + (nanos / 1_000_000));
+                }
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("%s is not a valid LONG type", hiveType));
+        }
+        return new FixedWidthBlock(SIZE_OF_LONG, positionCount, slice, valueIsNull);
+    }
+
+    private static long readVLong(byte[] bytes, int start, int length)
+    {
+        if (length == 1) {
+            return bytes[start];
+        }
+        long value = 0;
+        for (int i = 1; i < length; i++) {
+            value <<= 8;
+            value |= (bytes[start + i] & 0xFF);
+        }
+        return WritableUtils.isNegativeVInt(bytes[start]) ? ~value : value;
+    }
+
+    private static Block decodeDoubles(HiveType hiveType, BytesRefArrayWritable column, int offset, int positionCount)
+            throws IOException
+    {
+        Slice slice = Slices.allocate(positionCount * SIZE_OF_DOUBLE);
+        boolean[] valueIsNull = new boolean[positionCount];
+        switch (hiveType) {
+            case FLOAT:
+                for (int position = 0; position < positionCount; position++) {
+                    BytesRefWritable field = column.unCheckedGet(offset + position);
+                    int length = field.getLength();
+                    if (length == 0) {
+                        valueIsNull[position] = true;
+                        continue;
+                    }
+                    // the file format uses big endian
+                    checkState(length == SIZE_OF_INT, "Float should be 4 bytes");
+                    int intBits = ByteArrays.getInt(field.getData(), field.getStart());
+                    slice.setDouble(position * SIZE_OF_DOUBLE, Float.intBitsToFloat(Integer.reverseBytes(intBits)));
+                }
+                break;
+            case DOUBLE:
+                for (int position = 0; position < positionCount; position++) {
+                    BytesRefWritable field = column.unCheckedGet(offset + position);
+                    int length = field.getLength();
+                    if (length == 0) {
+                        valueIsNull[position] = true;
+                        continue;
+                    }
+                    // the file format uses big endian
+                    checkState(length == SIZE_OF_LONG, "Double should be 8 bytes");
+                    long longBits = ByteArrays.getLong(field.getData(), field.getStart());
+                    slice.setDouble(position * SIZE_OF_DOUBLE, Double.longBitsToDouble(Long.reverseBytes(longBits)));
+                }
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("%s is not a valid DOUBLE type", hiveType));
+        }
+        return new FixedWidthBlock(SIZE_OF_DOUBLE, positionCount, slice, valueIsNull);
+    }
+
+    private static Block decodeSlices(HiveType hiveType, BytesRefArrayWritable column, int offset, int positionCount)
+            throws IOException
+    {
+        checkState(hiveType == HiveType.STRING || hiveType == HiveType.BINARY, "%s is not a valid STRING type", hiveType);
+
+        // size the slice for the whole range up front, so the values are copied exactly once
+        int[] offsets = new int[positionCount + 1];
+        boolean[] valueIsNull = new boolean[positionCount];
+        int totalLength = 0;
+        for (int position = 0; position < positionCount; position++) {
+            BytesRefWritable field = column.unCheckedGet(offset + position);
+            int length = field.getLength();
+            if (length == 0) {
+                valueIsNull[position] = true;
+            }
+            // TODO: zero length BINARY is not supported. See https://issues.apache.org/jira/browse/HIVE-2483
+            else if (hiveType != HiveType.STRING || length != 1 || field.getData()[field.getStart()] != HIVE_EMPTY_STRING_BYTE) {
+                totalLength += length;
+            }
+            offsets[position + 1] = totalLength;
+        }
+
+        Slice slice = Slices.allocate(totalLength);
+        for (int position = 0; position < positionCount; position++) {
+            int length = offsets[position + 1] - offsets[position];
+            if (length > 0) {
+                BytesRefWritable field = column.unCheckedGet(offset + position);
+                slice.setBytes(offsets[position], field.getData(), field.getStart(), length);
+            }
+        }
+        return new VariableWidthBlock(positionCount, slice, offsets, valueIsNull);
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.rcfile;
+
+import com.facebook.presto.hive.HiveType;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import org.apache.hadoop.hive.ql.io.RCFile;
+import org.apache.hadoop.hive.serde2.columnar.BytesRefArrayWritable;
+
+import java.io.IOException;
+import java.util.List;
+
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_CURSOR_ERROR;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Reads RCFile row groups written with the LazyBinaryColumnarSerDe, decoding the column
+ * chunk of each read column into blocks of up to {@link #MAX_BATCH_SIZE} positions.
+ */
+public class RcBinaryPageSource
+        implements ConnectorPageSource
+{
+    public static final int MAX_BATCH_SIZE = 1024;
+
+    private final RCFile.Reader reader;
+    private final long start;
+    private final long end;
+    private final List<Type> types;
+    private final HiveType[] hiveTypes;
+    private final Block[] constantBlocks;
+    private final int[] fields;
+    private final int[] readHiveColumnIndexes;
+    private final BytesRefArrayWritable[] columnChunks;
+    private final long totalBytes;
+
+    private int rowGroupSize;
+    private int rowGroupPosition;
+
+    private long completedBytes;
+    private long readTimeNanos;
+    private boolean closed;
+
+    /**
+     * @param reader a reader positioned at the first row group of the split
+     * @param constantBlocks for each column, a block of {@link #MAX_BATCH_SIZE} copies of the value of a partition key
+     * or of nulls for a column missing from the file, or null for a column read from the file
+     * @param fields for each column read from the file, the index of the column in the read hive columns
+     * @param readHiveColumnIndexes the distinct hive columns read from the file, which must contain at least one
+     * column, because the row count of a row group is only known from the column chunks
+     */
+    public RcBinaryPageSource(
+            RCFile.Reader reader,
+            long end,
+            List<Type> types,
+            List<HiveType> hiveTypes,
+            Block[] constantBlocks,
+            int[] fields,
+            int[] readHiveColumnIndexes,
+            long totalBytes)
+            throws IOException
+    {
+        this.reader = checkNotNull(reader, "reader is null");
+        this.start = reader.getPosition();
+        this.end = end;
+        this.types = ImmutableList.copyOf(checkNotNull(types, "types is null"));
+        this.hiveTypes = checkNotNull(hiveTypes, "hiveTypes is null").toArray(new HiveType[hiveTypes.size()]);
+        this.constantBlocks = checkNotNull(constantBlocks, "constantBlocks is null").clone();
+        this.fields = checkNotNull(fields, "fields is null").clone();
+        checkArgument(hiveTypes.size() == types.size() && constantBlocks.length == types.size() && fields.length == types.size(),
+                "types, hiveTypes, constantBlocks and fields must have the same size");
+        this.readHiveColumnIndexes = checkNotNull(readHiveColumnIndexes, "readHiveColumnIndexes is null").clone();
+        checkArgument(readHiveColumnIndexes.length > 0, "readHiveColumnIndexes is empty");
+        this.columnChunks = new BytesRefArrayWritable[readHiveColumnIndexes.length];
+        this.totalBytes = totalBytes;
+    }
+
+    @Override
+    public List<Type> getTypes()
+    {
+        return types;
+    }
+
+    @Override
+    public long getTotalBytes()
+    {
+        return totalBytes;
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return completedBytes;
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return readTimeNanos;
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return closed;
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        if (closed) {
+            return null;
+        }
+
+        try {
+            if (rowGroupPosition == rowGroupSize && !advanceToNextRowGroup()) {
+                close();
+                return null;
+            }
+
+            int batchSize = min(MAX_BATCH_SIZE, rowGroupSize - rowGroupPosition);
+            Block[] blocks = new Block[types.size()];
+            for (int channel = 0; channel < blocks.length; channel++) {
+                if (constantBlocks[channel] != null) {
+                    blocks[channel] = constantBlocks[channel].getRegion(0, batchSize);
+                }
+                else {
+                    blocks[channel] = RcBinaryBlocks.decodeBlock(types.get(channel), hiveTypes[channel], columnChunks[fields[channel]], rowGroupPosition, batchSize);
+                }
+            }
+            rowGroupPosition += batchSize;
+            return new Page(batchSize, blocks);
+        }
+        catch (IOException | RuntimeException e) {
+            closeWithSuppression(e);
+            throw new PrestoException(HIVE_CURSOR_ERROR.toErrorCode(), e);
+        }
+    }
+
+    private boolean advanceToNextRowGroup()
+            throws IOException
+    {
+        long readStart = System.nanoTime();
+        try {
+            rowGroupSize = 0;
+            rowGroupPosition = 0;
+            while (rowGroupSize == 0) {
+                // a row group belongs to the split containing the sync marker preceding it
+                if (start >= end || !reader.nextBlock() || reader.lastSeenSyncPos() >= end) {
+                    return false;
+                }
+
+                // each column chunk can only be fetched once per row group, because fetching advances the column
+                for (int field = 0; field < readHiveColumnIndexes.length; field++) {
+                    columnChunks[field] = reader.getColumn(readHiveColumnIndexes[field], columnChunks[field]);
+                }
+                rowGroupSize = columnChunks[0].size();
+            }
+            completedBytes = min(totalBytes, max(completedBytes, reader.getPosition() - start));
+            return true;
+        }
+        finally {
+            readTimeNanos += System.nanoTime() - readStart;
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        reader.close();
+    }
+
+    private void closeWithSuppression(Throwable throwable)
+    {
+        try {
+            close();
+        }
+        catch (RuntimeException e) {
+            throwable.addSuppressed(e);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.rcfile;
+
+import com.facebook.presto.hive.HdfsEnvironment;
+import com.facebook.presto.hive.HiveColumnHandle;
+import com.facebook.presto.hive.HivePartitionKey;
+import com.facebook.presto.hive.HiveSplit;
+import com.facebook.presto.hive.HiveType;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.io.RCFile;
+import org.apache.hadoop.hive.ql.io.RCFileInputFormat;
+import org.apache.hadoop.hive.serde2.ColumnProjectionUtils;
+import org.apache.hadoop.hive.serde2.columnar.LazyBinaryColumnarSerDe;
+import org.apache.hadoop.io.Text;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_CANNOT_OPEN_SPLIT;
+import static com.facebook.presto.hive.HiveUtil.getDeserializer;
+import static com.facebook.presto.hive.HiveUtil.getInputFormatName;
+import static com.facebook.presto.hive.rcfile.RcBinaryPageSource.MAX_BATCH_SIZE;
+import static com.facebook.presto.hive.util.ConstantBlocks.createNullBlock;
+import static com.facebook.presto.hive.util.ConstantBlocks.createPartitionKeyBlock;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Maps.uniqueIndex;
+import static java.lang.String.format;
+
+/**
+ * Creates page sources that decode RCFile row groups directly into blocks, for splits
+ * of tables using the binary columnar SerDe with only primitive columns.
+ */
+public class RcBinaryPageSourceFactory
+{
+    private final HdfsEnvironment hdfsEnvironment;
+
+    public RcBinaryPageSourceFactory(HdfsEnvironment hdfsEnvironment)
+    {
+        this.hdfsEnvironment = checkNotNull(hdfsEnvironment, "hdfsEnvironment is null");
+    }
+
+    public Optional<ConnectorPageSource> createPageSource(HiveSplit split, List<HiveColumnHandle> columns)
+    {
+        if (!(getDeserializer(split.getSchema()) instanceof LazyBinaryColumnarSerDe) ||
+                !RCFileInputFormat.class.getName().equals(getInputFormatName(split.getSchema()))) {
+            return Optional.absent();
+        }
+        List<Integer> projectedHiveColumnIndexes = new ArrayList<>();
+        for (HiveColumnHandle column : columns) {
+            if (column.isPartitionKey()) {
+                continue;
+            }
+            if (isComplexType(column.getHiveType())) {
+                return Optional.absent();
+            }
+            if (!projectedHiveColumnIndexes.contains(column.getHiveColumnIndex())) {
+                projectedHiveColumnIndexes.add(column.getHiveColumnIndex());
+            }
+        }
+        if (projectedHiveColumnIndexes.isEmpty()) {
+            // the row count of a row group is only known from its column chunks, so read the lengths of the first column
+            projectedHiveColumnIndexes.add(0);
+        }
+
+        Path path = new Path(split.getPath());
+        Configuration configuration = new Configuration(hdfsEnvironment.getConfiguration(path));
+        ColumnProjectionUtils.setReadColumnIDs(configuration, projectedHiveColumnIndexes);
+
+        RCFile.Reader reader;
+        try {
+            FileSystem fileSystem = hdfsEnvironment.getCachingFileSystem(path);
+            reader = new RCFile.Reader(fileSystem, path, configuration);
+        }
+        catch (IOException e) {
+            throw new PrestoException(HIVE_CANNOT_OPEN_SPLIT.toErrorCode(), splitError(split, e), e);
+        }
+
+        try {
+            Text columnCountText = reader.getMetadata().get(new Text(RCFile.COLUMN_NUMBER_METADATA_STR));
+            if (columnCountText == null) {
+                reader.close();
+                return Optional.absent();
+            }
+            int fileColumnCount = Integer.parseInt(columnCountText.toString());
+
+            Map<String, HivePartitionKey> partitionKeysByName = uniqueIndex(split.getPartitionKeys(), HivePartitionKey.nameGetter());
+            ImmutableList.Builder<Type> types = ImmutableList.builder();
+            ImmutableList.Builder<HiveType> hiveTypes = ImmutableList.builder();
+            Block[] constantBlocks = new Block[columns.size()];
+            int[] fields = new int[columns.size()];
+            List<Integer> readHiveColumnIndexes = new ArrayList<>();
+
+            for (int channel = 0; channel < columns.size(); channel++) {
+                HiveColumnHandle column = columns.get(channel);
+                types.add(column.getType());
+                hiveTypes.add(column.getHiveType());
+
+                if (column.isPartitionKey()) {
+                    HivePartitionKey partitionKey = partitionKeysByName.get(column.getName());
+                    checkArgument(partitionKey != null, "Unknown partition key %s", column.getName());
+                    constantBlocks[channel] = createPartitionKeyBlock(column, partitionKey.getValue(), MAX_BATCH_SIZE);
+                }
+                else if (column.getHiveColumnIndex() >= fileColumnCount) {
+                    // the column was added to the table after the file was written
+                    constantBlocks[channel] = createNullBlock(column.getType(), MAX_BATCH_SIZE);
+                }
+                else {
+                    int field = readHiveColumnIndexes.indexOf(column.getHiveColumnIndex());
+                    if (field < 0) {
+                        field = readHiveColumnIndexes.size();
+                        readHiveColumnIndexes.add(column.getHiveColumnIndex());
+                    }
+                    fields[channel] = field;
+                }
+            }
+            if (readHiveColumnIndexes.isEmpty()) {
+                readHiveColumnIndexes.add(0);
+            }
+
+            long end = split.getStart() + split.getLength();
+            if (split.getStart() > reader.getPosition()) {
+                reader.sync(split.getStart());
+            }
+
+            return Optional.<ConnectorPageSource>of(new RcBinaryPageSource(
+                    reader,
+                    end,
+                    types.build(),
+                    hiveTypes.build(),
+                    constantBlocks,
+                    fields,
+                    Ints.toArray(readHiveColumnIndexes),
+                    split.getLength()));
+        }
+        catch (IOException | RuntimeException e) {
+            reader.close();
+            throw new PrestoException(HIVE_CANNOT_OPEN_SPLIT.toErrorCode(), splitError(split, e), e);
+        }
+    }
+
+    private static boolean isComplexType(HiveType hiveType)
+    {
+        return hiveType == HiveType.LIST || hiveType == HiveType.MAP || hiveType == HiveType.STRUCT;
+    }
+
+    private static String splitError(HiveSplit split, Throwable cause)
+    {
+        return format("Error opening Hive split %s (offset=%s, length=%s) using the RCFile binary reader: %s",
+                split.getPath(),
+                split.getStart(),
+                split.getLength(),
+                cause.getMessage());
+    }
+}
@@ -82,6 +82,7 @@ public class AsyncWalker
     {
         try (SetThreadName ignored = new SetThreadName("HiveHdfsWalker")) {
             RemoteIterator<LocatedFileStatus> iterator = getLocatedFileStatusRemoteIterator(path);
+            namenodeStats.getListedDirectories().update(1);
 
             while (iterator.hasNext()) {
                 LocatedFileStatus status = getLocatedFileStatus(iterator);
@@ -92,6 +93,7 @@ public class AsyncWalker
                     continue;
                 }
                 if (!isDirectory(status)) {
+                    namenodeStats.getListedFiles().update(1);
                     callback.process(status, status.getBlockLocations());
                 }
                 else if (recursive) {
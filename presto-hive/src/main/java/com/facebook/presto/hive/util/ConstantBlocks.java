@@ -0,0 +1,98 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.util;
+
+import com.facebook.presto.hive.HiveColumnHandle;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Charsets;
+import io.airlift.slice.Slices;
+
+import static com.facebook.presto.hive.HiveBooleanParser.isFalse;
+import static com.facebook.presto.hive.HiveBooleanParser.isTrue;
+import static com.facebook.presto.hive.NumberParser.parseDouble;
+import static com.facebook.presto.hive.NumberParser.parseLong;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static java.lang.String.format;
+
+/**
+ * Blocks repeating a single value, for the columns of a page source that are not read from the file.
+ */
+public final class ConstantBlocks
+{
+    private ConstantBlocks() {}
+
+    public static Block createPartitionKeyBlock(HiveColumnHandle column, String value, int positionCount)
+    {
+        byte[] bytes = value.getBytes(Charsets.UTF_8);
+        Type type = column.getType();
+        BlockBuilder builder = type.createBlockBuilder(new BlockBuilderStatus());
+        if (BOOLEAN.equals(type)) {
+            boolean booleanValue;
+            if (isTrue(bytes, 0, bytes.length)) {
+                booleanValue = true;
+            }
+            else if (isFalse(bytes, 0, bytes.length)) {
+                booleanValue = false;
+            }
+            else {
+                throw new IllegalArgumentException(format("Invalid partition value '%s' for BOOLEAN partition key %s", value, column.getName()));
+            }
+            for (int i = 0; i < positionCount; i++) {
+                BOOLEAN.writeBoolean(builder, booleanValue);
+            }
+        }
+        else if (BIGINT.equals(type)) {
+            if (bytes.length == 0) {
+                throw new IllegalArgumentException(format("Invalid partition value '' for BIGINT partition key %s", column.getName()));
+            }
+            long longValue = parseLong(bytes, 0, bytes.length);
+            for (int i = 0; i < positionCount; i++) {
+                BIGINT.writeLong(builder, longValue);
+            }
+        }
+        else if (DOUBLE.equals(type)) {
+            if (bytes.length == 0) {
+                throw new IllegalArgumentException(format("Invalid partition value '' for DOUBLE partition key %s", column.getName()));
+            }
+            double doubleValue = parseDouble(bytes, 0, bytes.length);
+            for (int i = 0; i < positionCount; i++) {
+                DOUBLE.writeDouble(builder, doubleValue);
+            }
+        }
+        else if (VARCHAR.equals(type)) {
+            for (int i = 0; i < positionCount; i++) {
+                VARCHAR.writeSlice(builder, Slices.wrappedBuffer(bytes));
+            }
+        }
+        else {
+            throw new UnsupportedOperationException("Unsupported column type: " + type);
+        }
+        return builder.build();
+    }
+
+    public static Block createNullBlock(Type type, int positionCount)
+    {
+        BlockBuilder builder = type.createBlockBuilder(new BlockBuilderStatus());
+        for (int i = 0; i < positionCount; i++) {
+            builder.appendNull();
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.util;
+
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Executor that runs the pending task with the lowest priority value first, and tasks
+ * of equal priority in submission order. Tasks are only reordered while they wait for
+ * a thread of the underlying Executor, so this is most useful over a bounded or
+ * suspendable Executor.
+ */
+@ThreadSafe
+public class PrioritizedExecutor
+{
+    private final Executor executor;
+    private final PriorityBlockingQueue<PrioritizedTask> taskQueue = new PriorityBlockingQueue<>();
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final Runnable pollTask = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            PrioritizedTask task = taskQueue.poll();
+            checkState(task != null, "No task to execute");
+            task.run();
+        }
+    };
+
+    public PrioritizedExecutor(Executor executor)
+    {
+        this.executor = checkNotNull(executor, "executor is null");
+    }
+
+    /**
+     * Returns an Executor that submits all tasks with the specified priority.
+     */
+    public Executor withPriority(final int priority)
+    {
+        return new Executor()
+        {
+            @Override
+            public void execute(Runnable task)
+            {
+                taskQueue.add(new PrioritizedTask(priority, nextSequence.getAndIncrement(), task));
+                executor.execute(pollTask);
+                // INVARIANT: every enqueued task is matched with a pollTask
+            }
+        };
+    }
+
+    private static class PrioritizedTask
+            implements Runnable, Comparable<PrioritizedTask>
+    {
+        private final int priority;
+        private final long sequence;
+        private final Runnable task;
+
+        private PrioritizedTask(int priority, long sequence, Runnable task)
+        {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.task = checkNotNull(task, "task is null");
+        }
+
+        @Override
+        public void run()
+        {
+            task.run();
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask other)
+        {
+            int result = Ints.compare(priority, other.priority);
+            if (result != 0) {
+                return result;
+            }
+            return Longs.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.Duration;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestCachingDirectoryLister
+{
+    private FileSystem fileSystem;
+
+    @BeforeClass
+    public void setUp()
+            throws Exception
+    {
+        fileSystem = FileSystem.getLocal(new Configuration());
+    }
+
+    @Test
+    public void testCachesCompleteListing()
+            throws Exception
+    {
+        CountingDirectoryLister delegate = new CountingDirectoryLister(ImmutableList.of("a", "b", "c"));
+        CachingDirectoryLister lister = new CachingDirectoryLister(delegate, new Duration(1, HOURS), 1000);
+        assertTrue(lister.isEnabled());
+
+        assertEquals(readAll(lister.list(fileSystem, new Path("/table"))), ImmutableList.of("a", "b", "c"));
+        assertEquals(delegate.getListCount(), 1);
+
+        assertEquals(readAll(lister.list(fileSystem, new Path("/table"))), ImmutableList.of("a", "b", "c"));
+        assertEquals(delegate.getListCount(), 1);
+        assertEquals(lister.getHits().getTotalCount(), 1);
+        assertEquals(lister.getMisses().getTotalCount(), 1);
+
+        // a different directory is listed separately
+        assertEquals(readAll(lister.list(fileSystem, new Path("/other"))), ImmutableList.of("a", "b", "c"));
+        assertEquals(delegate.getListCount(), 2);
+
+        lister.flushCache();
+        readAll(lister.list(fileSystem, new Path("/table")));
+        assertEquals(delegate.getListCount(), 3);
+    }
+
+    @Test
+    public void testPartialListingNotCached()
+            throws Exception
+    {
+        CountingDirectoryLister delegate = new CountingDirectoryLister(ImmutableList.of("a", "b", "c"));
+        CachingDirectoryLister lister = new CachingDirectoryLister(delegate, new Duration(1, HOURS), 1000);
+
+        RemoteIterator<LocatedFileStatus> iterator = lister.list(fileSystem, new Path("/table"));
+        assertTrue(iterator.hasNext());
+        iterator.next();
+
+        assertEquals(readAll(lister.list(fileSystem, new Path("/table"))), ImmutableList.of("a", "b", "c"));
+        assertEquals(delegate.getListCount(), 2);
+        assertEquals(lister.getSize(), 1);
+    }
+
+    @Test
+    public void testDisabled()
+            throws Exception
+    {
+        CountingDirectoryLister delegate = new CountingDirectoryLister(ImmutableList.of("a"));
+        CachingDirectoryLister lister = new CachingDirectoryLister(delegate, new Duration(0, SECONDS), 1000);
+        assertFalse(lister.isEnabled());
+
+        readAll(lister.list(fileSystem, new Path("/table")));
+        readAll(lister.list(fileSystem, new Path("/table")));
+        assertEquals(delegate.getListCount(), 2);
+        assertEquals(lister.getSize(), 0);
+    }
+
+    private static List<String> readAll(RemoteIterator<LocatedFileStatus> iterator)
+            throws IOException
+    {
+        ImmutableList.Builder<String> names = ImmutableList.builder();
+        while (iterator.hasNext()) {
+            names.add(iterator.next().getPath().getName());
+        }
+        return names.build();
+    }
+
+    private static class CountingDirectoryLister
+            implements DirectoryLister
+    {
+        private final List<String> fileNames;
+        private int listCount;
+
+        private CountingDirectoryLister(List<String> fileNames)
+        {
+            this.fileNames = ImmutableList.copyOf(fileNames);
+        }
+
+        public int getListCount()
+        {
+            return listCount;
+        }
+
+        @Override
+        public RemoteIterator<LocatedFileStatus> list(FileSystem fs, Path path)
+                throws IOException
+        {
+            listCount++;
+            ImmutableList.Builder<LocatedFileStatus> files = ImmutableList.builder();
+            for (String fileName : fileNames) {
+                FileStatus status = new FileStatus(0, false, 0, 0, 0, new Path(path, fileName));
+                files.add(new LocatedFileStatus(status, new BlockLocation[0]));
+            }
+            final Iterator<LocatedFileStatus> iterator = files.build().iterator();
+            return new RemoteIterator<LocatedFileStatus>()
+            {
+                @Override
+                public boolean hasNext()
+                {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public LocatedFileStatus next()
+                {
+                    return iterator.next();
+                }
+            };
+        }
+    }
+}
@@ -48,6 +48,7 @@ public class TestHiveClientConfig
                 .setMetastoreCacheTtl(new Duration(1, TimeUnit.HOURS))
                 .setMetastoreRefreshInterval(new Duration(2, TimeUnit.MINUTES))
                 .setMaxMetastoreRefreshThreads(100)
+                .setMetastorePartitionPrefetchThreads(10)
                 .setMetastoreSocksProxy(null)
                 .setMetastoreTimeout(new Duration(10, TimeUnit.SECONDS))
                 .setMinPartitionBatchSize(10)
@@ -58,6 +59,7 @@ public class TestHiveClientConfig
                 .setDfsConnectTimeout(new Duration(500, TimeUnit.MILLISECONDS))
                 .setDfsConnectMaxRetries(5)
                 .setVerifyChecksum(true)
+                .setOptimizedReaderEnabled(true)
                 .setResourceConfigFiles((String) null)
                 .setHiveStorageFormat(HiveStorageFormat.RCBINARY)
                 .setDomainSocketPath(null)
@@ -72,7 +74,14 @@ public class TestHiveClientConfig
                 .setS3MultipartMinFileSize(new DataSize(16, Unit.MEGABYTE))
                 .setS3MultipartMinPartSize(new DataSize(5, Unit.MEGABYTE))
                 .setS3MaxConnections(500)
-                .setS3StagingDirectory(new File(StandardSystemProperty.JAVA_IO_TMPDIR.value())));
+                .setS3StagingDirectory(new File(StandardSystemProperty.JAVA_IO_TMPDIR.value()))
+                .setS3ReadaheadSize(new DataSize(1, Unit.MEGABYTE))
+                .setS3MaxConcurrentRangeRequests(20)
+                .setFileCacheDirectory(null)
+                .setFileCacheMaxSize(new DataSize(100, Unit.GIGABYTE))
+                .setFileCacheBlockSize(new DataSize(1, Unit.MEGABYTE))
+                .setFileStatusCacheExpireTime(new Duration(0, TimeUnit.SECONDS))
+                .setFileStatusCacheMaxSize(1_000_000));
     }
 
     @Test
@@ -89,6 +98,7 @@ public class TestHiveClientConfig
                 .put("hive.metastore-cache-ttl", "2h")
                 .put("hive.metastore-refresh-interval", "30m")
                 .put("hive.metastore-refresh-max-threads", "2500")
+                .put("hive.metastore.partition-prefetch-threads", "5")
                 .put("hive.metastore.thrift.client.socks-proxy", "localhost:1080")
                 .put("hive.metastore-timeout", "20s")
                 .put("hive.metastore.partition-batch-size.min", "1")
@@ -97,6 +107,7 @@ public class TestHiveClientConfig
                 .put("hive.dfs.connect.timeout", "20s")
                 .put("hive.dfs.connect.max-retries", "10")
                 .put("hive.dfs.verify-checksum", "false")
+                .put("hive.optimized-reader.enabled", "false")
                 .put("hive.config.resources", "/foo.xml,/bar.xml")
                 .put("hive.max-initial-splits", "10")
                 .put("hive.max-initial-split-size", "16MB")
@@ -114,6 +125,13 @@ public class TestHiveClientConfig
                 .put("hive.s3.multipart.min-part-size", "15MB")
                 .put("hive.s3.max-connections", "77")
                 .put("hive.s3.staging-directory", "/s3-staging")
+                .put("hive.s3.readahead-size", "4MB")
+                .put("hive.s3.max-concurrent-range-requests", "7")
+                .put("hive.file-cache.directory", "/file-cache")
+                .put("hive.file-cache.max-size", "20GB")
+                .put("hive.file-cache.block-size", "4MB")
+                .put("hive.file-status-cache-expire-time", "30s")
+                .put("hive.file-status-cache-max-size", "1000")
                 .build();
 
         HiveClientConfig expected = new HiveClientConfig()
@@ -127,6 +145,7 @@ public class TestHiveClientConfig
                 .setMetastoreCacheTtl(new Duration(2, TimeUnit.HOURS))
                 .setMetastoreRefreshInterval(new Duration(30, TimeUnit.MINUTES))
                 .setMaxMetastoreRefreshThreads(2500)
+                .setMetastorePartitionPrefetchThreads(5)
                 .setMetastoreSocksProxy(HostAndPort.fromParts("localhost", 1080))
                 .setMetastoreTimeout(new Duration(20, TimeUnit.SECONDS))
                 .setMinPartitionBatchSize(1)
@@ -137,6 +156,7 @@ public class TestHiveClientConfig
                 .setDfsConnectTimeout(new Duration(20, TimeUnit.SECONDS))
                 .setDfsConnectMaxRetries(10)
                 .setVerifyChecksum(false)
+                .setOptimizedReaderEnabled(false)
                 .setResourceConfigFiles(ImmutableList.of("/foo.xml", "/bar.xml"))
                 .setHiveStorageFormat(HiveStorageFormat.SEQUENCEFILE)
                 .setDomainSocketPath("/foo")
@@ -151,7 +171,14 @@ public class TestHiveClientConfig
                 .setS3MultipartMinFileSize(new DataSize(32, Unit.MEGABYTE))
                 .setS3MultipartMinPartSize(new DataSize(15, Unit.MEGABYTE))
                 .setS3MaxConnections(77)
-                .setS3StagingDirectory(new File("/s3-staging"));
+                .setS3StagingDirectory(new File("/s3-staging"))
+                .setS3ReadaheadSize(new DataSize(4, Unit.MEGABYTE))
+                .setS3MaxConcurrentRangeRequests(7)
+                .setFileCacheDirectory(new File("/file-cache"))
+                .setFileCacheMaxSize(new DataSize(20, Unit.GIGABYTE))
+                .setFileCacheBlockSize(new DataSize(4, Unit.MEGABYTE))
+                .setFileStatusCacheExpireTime(new Duration(30, TimeUnit.SECONDS))
+                .setFileStatusCacheMaxSize(1000);
 
         ConfigAssertions.assertFullMapping(properties, expected);
     }
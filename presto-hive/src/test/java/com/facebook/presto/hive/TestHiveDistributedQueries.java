@@ -46,7 +46,13 @@ public class TestHiveDistributedQueries
     public TestHiveDistributedQueries()
             throws Exception
     {
-        super(createQueryRunner(), createSession("tpch_sampled"));
+        this(ImmutableMap.<String, String>of());
+    }
+
+    protected TestHiveDistributedQueries(Map<String, String> extraProperties)
+            throws Exception
+    {
+        super(createQueryRunner(extraProperties), createSession("tpch_sampled"));
     }
 
     @AfterClass(alwaysRun = true)
@@ -55,10 +61,10 @@ public class TestHiveDistributedQueries
         queryRunner.close();
     }
 
-    private static QueryRunner createQueryRunner()
+    private static QueryRunner createQueryRunner(Map<String, String> extraProperties)
             throws Exception
     {
-        DistributedQueryRunner queryRunner = new DistributedQueryRunner(createSession("tpch"), 4);
+        DistributedQueryRunner queryRunner = new DistributedQueryRunner(createSession("tpch"), 4, extraProperties);
 
         try {
             queryRunner.installPlugin(new TpchPlugin());
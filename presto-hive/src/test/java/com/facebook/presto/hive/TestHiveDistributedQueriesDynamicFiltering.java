@@ -0,0 +1,30 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Runs the Hive query suite with dynamic filtering, so that the values collected by
+ * hash joins narrow the effective predicate of the Hive splits on the probe side.
+ */
+public class TestHiveDistributedQueriesDynamicFiltering
+        extends TestHiveDistributedQueries
+{
+    public TestHiveDistributedQueriesDynamicFiltering()
+            throws Exception
+    {
+        super(ImmutableMap.of("task.dynamic-filtering-enabled", "true"));
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.HostAddress;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.Range;
+import com.facebook.presto.spi.SortedRangeSet;
+import com.facebook.presto.spi.TupleDomain;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.joda.time.DateTimeZone;
+import org.testng.annotations.Test;
+
+import java.util.Locale;
+import java.util.Properties;
+
+import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class TestHivePageSourceProvider
+{
+    private static final ConnectorSession SESSION = new ConnectorSession("user", "test", "catalog", "test", UTC_KEY, Locale.ENGLISH, null, null);
+    private static final HiveColumnHandle ID_COLUMN = new HiveColumnHandle("clientId", "id", 0, HiveType.LONG, 0, false);
+    private static final HiveColumnHandle DS_COLUMN = new HiveColumnHandle("clientId", "ds", 1, HiveType.STRING, -1, true);
+
+    @Test
+    public void testFilterNarrowsPredicate()
+    {
+        Domain idDomain = Domain.create(SortedRangeSet.of(Range.range(0L, true, 100L, true)), false);
+        HiveSplit split = createSplit(TupleDomain.withColumnDomains(ImmutableMap.<ConnectorColumnHandle, Domain>of(ID_COLUMN, idDomain)));
+
+        Domain dsDomain = Domain.singleValue(utf8Slice("2014-01-02"));
+        HiveSplit filtered = split.filter(TupleDomain.withColumnDomains(ImmutableMap.<ConnectorColumnHandle, Domain>of(DS_COLUMN, dsDomain)));
+        assertNotNull(filtered);
+        assertEquals(filtered.getEffectivePredicate(), TupleDomain.withColumnDomains(ImmutableMap.<ConnectorColumnHandle, Domain>of(ID_COLUMN, idDomain, DS_COLUMN, dsDomain)));
+        assertEquals(filtered.getPath(), split.getPath());
+        assertEquals(filtered.getPartitionKeys(), split.getPartitionKeys());
+
+        // a filter that excludes every row of the split removes the split
+        Domain otherIdDomain = Domain.create(SortedRangeSet.of(Range.range(200L, true, 300L, true)), false);
+        assertNull(split.filter(TupleDomain.withColumnDomains(ImmutableMap.<ConnectorColumnHandle, Domain>of(ID_COLUMN, otherIdDomain))));
+    }
+
+    @Test
+    public void testFilteredPartitionIsNotRead()
+    {
+        HiveSplit split = createSplit(TupleDomain.<ConnectorColumnHandle>all());
+
+        // the split does not know its partition values, so it is only dropped when it is opened
+        HiveSplit filtered = split.filter(TupleDomain.withColumnDomains(ImmutableMap.<ConnectorColumnHandle, Domain>of(DS_COLUMN, Domain.singleValue(utf8Slice("2014-01-02")))));
+        assertNotNull(filtered);
+
+        // the file does not exist, so this fails if the split is opened
+        HivePageSourceProvider pageSourceProvider = new HivePageSourceProvider(new HdfsEnvironment(new HdfsConfiguration(new HiveClientConfig())), DateTimeZone.UTC, true);
+        try (ConnectorPageSource pageSource = pageSourceProvider.createPageSource(filtered, ImmutableList.<ConnectorColumnHandle>of(ID_COLUMN, DS_COLUMN))) {
+            assertEquals(pageSource.getTypes().size(), 2);
+            int rows = 0;
+            while (!pageSource.isFinished()) {
+                Page page = pageSource.getNextPage();
+                if (page != null) {
+                    rows += page.getPositionCount();
+                }
+            }
+            assertEquals(rows, 0);
+        }
+    }
+
+    @Test
+    public void testNoneFilterRemovesSplit()
+    {
+        HiveSplit split = createSplit(TupleDomain.<ConnectorColumnHandle>all());
+        assertNull(split.filter(TupleDomain.<ConnectorColumnHandle>none()));
+        assertTrue(split.filter(TupleDomain.<ConnectorColumnHandle>all()).getEffectivePredicate().isAll());
+    }
+
+    private static HiveSplit createSplit(TupleDomain<ConnectorColumnHandle> effectivePredicate)
+    {
+        return new HiveSplit("clientId", "db", "table", "ds=2014-01-01", "file:///does/not/exist", 0, 100, 0, new Properties(),
+                ImmutableList.of(new HivePartitionKey("ds", HiveType.STRING, "2014-01-01")),
+                ImmutableList.<HostAddress>of(),
+                SESSION,
+                effectivePredicate);
+    }
+}
@@ -13,8 +13,10 @@
  */
 package com.facebook.presto.hive;
 
+import com.facebook.presto.spi.ConnectorColumnHandle;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.HostAddress;
+import com.facebook.presto.spi.TupleDomain;
 import com.google.common.collect.ImmutableList;
 import io.airlift.json.JsonCodec;
 import org.testng.annotations.Test;
@@ -39,7 +41,7 @@ public class TestHiveSplit
 
         ImmutableList<HivePartitionKey> partitionKeys = ImmutableList.of(new HivePartitionKey("a", HiveType.STRING, "apple"), new HivePartitionKey("b", HiveType.LONG, "42"));
         ImmutableList<HostAddress> addresses = ImmutableList.of(HostAddress.fromParts("127.0.0.1", 44), HostAddress.fromParts("127.0.0.1", 45));
-        HiveSplit expected = new HiveSplit("clientId", "db", "table", "partitionId", "path", 42, 88, schema, partitionKeys, addresses, SESSION);
+        HiveSplit expected = new HiveSplit("clientId", "db", "table", "partitionId", "path", 42, 88, 3, schema, partitionKeys, addresses, SESSION, TupleDomain.<ConnectorColumnHandle>all());
 
         String json = codec.toJson(expected);
         HiveSplit actual = codec.fromJson(json);
@@ -51,9 +53,11 @@ public class TestHiveSplit
         assertEquals(actual.getPath(), expected.getPath());
         assertEquals(actual.getStart(), expected.getStart());
         assertEquals(actual.getLength(), expected.getLength());
+        assertEquals(actual.getBucket(), expected.getBucket());
         assertEquals(actual.getSchema(), expected.getSchema());
         assertEquals(actual.getPartitionKeys(), expected.getPartitionKeys());
         assertEquals(actual.getAddresses(), expected.getAddresses());
+        assertEquals(actual.getEffectivePredicate(), expected.getEffectivePredicate());
         assertEquals(actual.getSession().getUser(), expected.getSession().getUser());
         assertEquals(actual.getSession().getLocale(), expected.getSession().getLocale());
         assertEquals(actual.getSession().getTimeZoneKey(), expected.getSession().getTimeZoneKey());
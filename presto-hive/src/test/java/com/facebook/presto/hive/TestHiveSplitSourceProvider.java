@@ -0,0 +1,117 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import io.airlift.testing.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static com.facebook.presto.hive.HiveSplitSourceProvider.getBucketFiles;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestHiveSplitSourceProvider
+{
+    private File tempDir;
+    private FileSystem fileSystem;
+    private Path partitionPath;
+
+    @BeforeMethod
+    public void setUp()
+            throws Exception
+    {
+        tempDir = Files.createTempDir();
+        fileSystem = FileSystem.getLocal(new Configuration());
+        partitionPath = new Path(tempDir.getAbsolutePath());
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        FileUtils.deleteRecursively(tempDir);
+    }
+
+    @Test
+    public void testBucketFilesAreNumberedByName()
+            throws Exception
+    {
+        // created out of order, Hive numbers the buckets by the sorted file names
+        createFiles("000010_0", "000002_0", "000000_0", "000001_0");
+
+        Optional<List<FileStatus>> bucketFiles = getBucketFiles(fileSystem, partitionPath, 4);
+        assertTrue(bucketFiles.isPresent());
+        assertEquals(getNames(bucketFiles.get()), ImmutableList.of("000000_0", "000001_0", "000002_0", "000010_0"));
+    }
+
+    @Test
+    public void testHiddenFilesAreIgnored()
+            throws Exception
+    {
+        createFiles("000001_0", "000000_0", "_SUCCESS", ".000000_0.tmp");
+
+        Optional<List<FileStatus>> bucketFiles = getBucketFiles(fileSystem, partitionPath, 2);
+        assertTrue(bucketFiles.isPresent());
+        assertEquals(getNames(bucketFiles.get()), ImmutableList.of("000000_0", "000001_0"));
+    }
+
+    @Test
+    public void testFileCountDoesNotMatchBucketCount()
+            throws Exception
+    {
+        createFiles("000000_0", "000001_0", "000001_0_copy_1");
+
+        assertFalse(getBucketFiles(fileSystem, partitionPath, 2).isPresent());
+        assertFalse(getBucketFiles(fileSystem, partitionPath, 4).isPresent());
+    }
+
+    @Test
+    public void testDirectoryInPartition()
+            throws Exception
+    {
+        createFiles("000000_0");
+        assertTrue(new File(tempDir, "000001_0").mkdir());
+
+        assertFalse(getBucketFiles(fileSystem, partitionPath, 2).isPresent());
+    }
+
+    private void createFiles(String... names)
+            throws IOException
+    {
+        for (String name : names) {
+            Files.touch(new File(tempDir, name));
+        }
+    }
+
+    private static List<String> getNames(List<FileStatus> files)
+    {
+        ImmutableList.Builder<String> names = ImmutableList.builder();
+        for (FileStatus file : files) {
+            names.add(file.getPath().getName());
+        }
+        return names.build();
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.google.common.io.ByteStreams;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.Path;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.facebook.presto.hive.PrestoS3FileSystem.S3_READAHEAD_SIZE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestPrestoS3FileSystem
+{
+    private static final int OBJECT_SIZE = 10_000;
+    private static final int READAHEAD_SIZE = 1_000;
+
+    @Test
+    public void testSequentialRead()
+            throws Exception
+    {
+        byte[] data = randomBytes(OBJECT_SIZE);
+        MockAmazonS3 s3 = new MockAmazonS3(data);
+        try (PrestoS3FileSystem fileSystem = createFileSystem(s3, READAHEAD_SIZE);
+                FSDataInputStream in = fileSystem.open(new Path("s3n://test-bucket/test"))) {
+            assertEquals(ByteStreams.toByteArray(in), data);
+        }
+        // one request per readahead buffer, and one for the buffer after the end of the object
+        assertEquals(s3.getRequests(), OBJECT_SIZE / READAHEAD_SIZE + 1);
+    }
+
+    @Test
+    public void testSeekWithinReadaheadBuffer()
+            throws Exception
+    {
+        byte[] data = randomBytes(OBJECT_SIZE);
+        MockAmazonS3 s3 = new MockAmazonS3(data);
+        try (PrestoS3FileSystem fileSystem = createFileSystem(s3, READAHEAD_SIZE);
+                FSDataInputStream in = fileSystem.open(new Path("s3n://test-bucket/test"), 16)) {
+            in.seek(100);
+            assertEquals(in.read(), data[100] & 0xFF);
+            in.seek(500);
+            assertEquals(in.read(), data[500] & 0xFF);
+            in.seek(200);
+            assertEquals(in.read(), data[200] & 0xFF);
+        }
+        // the request for the first buffer, and the readahead request for the one after it
+        assertTrue(s3.getRequests() <= 2);
+    }
+
+    @Test
+    public void testPositionedRead()
+            throws Exception
+    {
+        byte[] data = randomBytes(OBJECT_SIZE);
+        MockAmazonS3 s3 = new MockAmazonS3(data);
+        try (PrestoS3FileSystem fileSystem = createFileSystem(s3, READAHEAD_SIZE);
+                FSDataInputStream in = fileSystem.open(new Path("s3n://test-bucket/test"))) {
+            // a range spanning several readahead sizes is fetched with concurrent requests
+            byte[] buffer = new byte[4_500];
+            in.readFully(3_210, buffer, 0, buffer.length);
+            assertEquals(buffer, Arrays.copyOfRange(data, 3_210, 3_210 + buffer.length));
+            assertEquals(s3.getRequests(), 5);
+
+            // the range is read without moving the position of the stream
+            assertEquals(in.getPos(), 0);
+            assertEquals(in.read(), data[0] & 0xFF);
+
+            // a read at the end of the object
+            buffer = new byte[10];
+            assertEquals(in.read(OBJECT_SIZE - 4, buffer, 0, buffer.length), 4);
+            assertEquals(Arrays.copyOf(buffer, 4), Arrays.copyOfRange(data, OBJECT_SIZE - 4, OBJECT_SIZE));
+        }
+    }
+
+    private static PrestoS3FileSystem createFileSystem(MockAmazonS3 s3, int readaheadSize)
+            throws IOException
+    {
+        Configuration configuration = new Configuration();
+        configuration.set("fs.s3n.awsAccessKeyId", "access");
+        configuration.set("fs.s3n.awsSecretAccessKey", "secret");
+        configuration.setLong(S3_READAHEAD_SIZE, readaheadSize);
+
+        PrestoS3FileSystem fileSystem = new PrestoS3FileSystem();
+        fileSystem.setConf(configuration);
+        fileSystem.initialize(URI.create("s3n://test-bucket/"), configuration);
+        fileSystem.setS3Client(s3);
+        return fileSystem;
+    }
+
+    private static byte[] randomBytes(int size)
+    {
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Serves ranged GET requests for a single object from memory.
+     */
+    private static class MockAmazonS3
+            extends AmazonS3Client
+    {
+        private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
+        private final byte[] data;
+        private final AtomicInteger requests = new AtomicInteger();
+
+        public MockAmazonS3(byte[] data)
+        {
+            super(new BasicAWSCredentials("access", "secret"));
+            this.data = data;
+        }
+
+        public int getRequests()
+        {
+            return requests.get();
+        }
+
+        @Override
+        public S3Object getObject(GetObjectRequest request)
+        {
+            requests.incrementAndGet();
+
+            long[] range = request.getRange();
+            int start = (int) range[0];
+            if (start >= data.length) {
+                AmazonS3Exception exception = new AmazonS3Exception("Requested range not satisfiable");
+                exception.setStatusCode(HTTP_RANGE_NOT_SATISFIABLE);
+                throw exception;
+            }
+            int end = (int) Math.min(range[1], data.length - 1);
+
+            S3Object object = new S3Object();
+            object.setObjectContent(new ByteArrayInputStream(data, start, end - start + 1));
+            return object;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.cache;
+
+import com.google.common.io.Files;
+import io.airlift.testing.FileUtils;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class TestFileBlockCache
+{
+    private static final DataSize BLOCK_SIZE = new DataSize(1, KILOBYTE);
+
+    private File tempDir;
+    private File cacheDir;
+    private File blocksDir;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        tempDir = Files.createTempDir();
+        cacheDir = new File(tempDir, "cache");
+        blocksDir = new File(cacheDir, FileBlockCache.BLOCKS_DIRECTORY);
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        FileUtils.deleteRecursively(tempDir);
+    }
+
+    @Test
+    public void testGetAndPut()
+    {
+        FileBlockCache cache = new FileBlockCache(cacheDir, new DataSize(64, KILOBYTE), BLOCK_SIZE);
+        assertTrue(cache.isEnabled());
+
+        FileBlockKey key = new FileBlockKey("hdfs://test/file", 123, 0);
+        assertNull(cache.get(key));
+
+        byte[] data = randomBytes(1024);
+        cache.put(key, data, 1000);
+
+        assertEquals(cache.get(key), Arrays.copyOf(data, 1000));
+        assertNull(cache.get(new FileBlockKey("hdfs://test/file", 124, 0)));
+        assertEquals(cache.getSize(), 1000);
+        assertEquals(cache.getBlockCount(), 1);
+        assertEquals(cache.getHits().getTotalCount(), 1);
+        assertEquals(cache.getMisses().getTotalCount(), 2);
+    }
+
+    @Test
+    public void testChecksumFailure()
+            throws Exception
+    {
+        FileBlockCache cache = new FileBlockCache(cacheDir, new DataSize(64, KILOBYTE), BLOCK_SIZE);
+
+        FileBlockKey key = new FileBlockKey("hdfs://test/file", 123, 0);
+        cache.put(key, randomBytes(1024), 1024);
+
+        File[] files = blocksDir.listFiles();
+        assertEquals(files.length, 1);
+        byte[] corrupted = Files.toByteArray(files[0]);
+        corrupted[100]++;
+        Files.write(corrupted, files[0]);
+
+        assertNull(cache.get(key));
+        assertEquals(cache.getChecksumFailures().getTotalCount(), 1);
+        assertEquals(cache.getBlockCount(), 0);
+        assertEquals(blocksDir.listFiles().length, 0);
+    }
+
+    @Test
+    public void testEviction()
+    {
+        DataSize maxSize = new DataSize(4, KILOBYTE);
+        FileBlockCache cache = new FileBlockCache(cacheDir, maxSize, BLOCK_SIZE);
+
+        for (int i = 0; i < 10; i++) {
+            cache.put(new FileBlockKey("hdfs://test/file", 123, i * 1024), randomBytes(1024), 1024);
+        }
+
+        assertTrue(cache.getSize() <= maxSize.toBytes());
+        assertTrue(cache.getEvictions().getTotalCount() > 0);
+        assertEquals(cache.getBlockCount() + cache.getEvictions().getTotalCount(), 10);
+        assertEquals(blocksDir.listFiles().length, cache.getBlockCount());
+    }
+
+    @Test
+    public void testEvictionWithFewBlocks()
+    {
+        // the whole maximum size is available to a block, however small the maximum is
+        FileBlockCache cache = new FileBlockCache(cacheDir, BLOCK_SIZE, BLOCK_SIZE);
+
+        FileBlockKey key = new FileBlockKey("hdfs://test/file", 123, 0);
+        cache.put(key, randomBytes(1024), 1024);
+        assertEquals(cache.getBlockCount(), 1);
+        assertEquals(cache.getEvictions().getTotalCount(), 0);
+        assertEquals(cache.get(key), randomBytes(1024));
+
+        cache.put(new FileBlockKey("hdfs://test/file", 123, 1024), randomBytes(1024), 1024);
+        assertEquals(cache.getBlockCount(), 1);
+        assertEquals(cache.getEvictions().getTotalCount(), 1);
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    public void testStaleFilesDeleted()
+            throws Exception
+    {
+        assertTrue(blocksDir.mkdirs());
+        Files.write(randomBytes(10), new File(blocksDir, "1"));
+
+        new FileBlockCache(cacheDir, new DataSize(64, KILOBYTE), BLOCK_SIZE);
+        assertEquals(blocksDir.listFiles().length, 0);
+    }
+
+    @Test
+    public void testOtherFilesKept()
+            throws Exception
+    {
+        // files the cache did not create are left alone, even directly in the configured directory
+        assertTrue(cacheDir.mkdirs());
+        File file = new File(cacheDir, "1");
+        Files.write(randomBytes(10), file);
+
+        FileBlockCache cache = new FileBlockCache(cacheDir, new DataSize(64, KILOBYTE), BLOCK_SIZE);
+        cache.put(new FileBlockKey("hdfs://test/file", 123, 0), randomBytes(1024), 1024);
+        assertTrue(file.exists());
+        assertEquals(Files.toByteArray(file), randomBytes(10));
+        assertEquals(blocksDir.listFiles().length, 1);
+    }
+
+    @Test
+    public void testDisabled()
+    {
+        FileBlockCache cache = new FileBlockCache(null, new DataSize(64, KILOBYTE), BLOCK_SIZE);
+        assertFalse(cache.isEnabled());
+
+        FileBlockKey key = new FileBlockKey("hdfs://test/file", 123, 0);
+        cache.put(key, randomBytes(1024), 1024);
+        assertNull(cache.get(key));
+        assertEquals(cache.getBlockCount(), 0);
+    }
+
+    @Test
+    public void testCachingFileSystem()
+            throws Exception
+    {
+        FileBlockCache cache = new FileBlockCache(cacheDir, new DataSize(64, KILOBYTE), BLOCK_SIZE);
+
+        byte[] data = randomBytes(2500);
+        File file = new File(tempDir, "data");
+        Files.write(data, file);
+        Path path = new Path(file.toURI());
+
+        FileSystem fileSystem = new CachingFileSystem(FileSystem.getLocal(new Configuration()), cache);
+        for (int i = 0; i < 2; i++) {
+            try (FSDataInputStream in = fileSystem.open(path)) {
+                byte[] actual = new byte[data.length];
+                in.readFully(actual);
+                assertEquals(actual, data);
+                assertEquals(in.read(), -1);
+
+                in.seek(1500);
+                assertEquals(in.read(), data[1500] & 0xFF);
+
+                byte[] range = new byte[1000];
+                in.readFully(700, range);
+                assertEquals(range, Arrays.copyOfRange(data, 700, 1700));
+            }
+        }
+
+        // the first pass reads the three blocks of the file, and everything else is served from the cache
+        assertEquals(cache.getBlockCount(), 3);
+        assertEquals(cache.getMisses().getTotalCount(), 3);
+        assertTrue(cache.getHits().getTotalCount() > 0);
+    }
+
+    private static byte[] randomBytes(int length)
+    {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
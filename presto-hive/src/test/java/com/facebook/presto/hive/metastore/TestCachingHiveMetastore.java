@@ -22,6 +22,7 @@ import org.apache.hadoop.hive.metastore.api.NoSuchObjectException;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import static com.facebook.presto.hive.metastore.MockHiveMetastoreClient.BAD_DATABASE;
@@ -34,6 +35,7 @@ import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestCachingHiveMetastore
@@ -194,6 +196,50 @@ public class TestCachingHiveMetastore
         assertEquals(mockClient.getAccessCount(), 4);
     }
 
+    @Test
+    public void testGetPartitionKeyIndex()
+            throws Exception
+    {
+        ImmutableList<String> expectedPartitions = ImmutableList.of(TEST_PARTITION1, TEST_PARTITION2);
+        assertEquals(mockClient.getAccessCount(), 0);
+        assertEquals(metastore.getPartitionKeyIndex(TEST_DATABASE, TEST_TABLE).getPartitionNames(), expectedPartitions);
+        assertEquals(mockClient.getAccessCount(), 1);
+        assertEquals(metastore.getPartitionKeyIndex(TEST_DATABASE, TEST_TABLE).getPartitionNames(), expectedPartitions);
+        // the partition names loaded for the index are cached as well
+        assertEquals(metastore.getPartitionNames(TEST_DATABASE, TEST_TABLE), expectedPartitions);
+        assertEquals(mockClient.getAccessCount(), 1);
+
+        metastore.flushCache();
+
+        assertEquals(metastore.getPartitionKeyIndex(TEST_DATABASE, TEST_TABLE).getPartitionNames(), expectedPartitions);
+        assertEquals(mockClient.getAccessCount(), 2);
+    }
+
+    @Test
+    public void testPrefetchPartitions()
+            throws Exception
+    {
+        ExecutorService executor = newCachedThreadPool(daemonThreadsNamed("test-prefetch-%s"));
+        CachingHiveMetastore prefetchingMetastore = new CachingHiveMetastore(new MockHiveCluster(mockClient), executor, new Duration(5, TimeUnit.MINUTES), new Duration(1, TimeUnit.MINUTES), 10, 1);
+
+        prefetchingMetastore.prefetchPartitions(TEST_DATABASE, TEST_TABLE, ImmutableList.of(TEST_PARTITION1, TEST_PARTITION2));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // one request for each batch
+        assertEquals(mockClient.getAccessCount(), 2);
+        assertEquals(prefetchingMetastore.getStats().getPrefetchedPartitions().getTotalCount(), 2);
+
+        // the partitions are served from the cache
+        assertEquals(prefetchingMetastore.getPartitionsByNames(TEST_DATABASE, TEST_TABLE, ImmutableList.of(TEST_PARTITION1, TEST_PARTITION2)).size(), 2);
+        assertEquals(mockClient.getAccessCount(), 2);
+
+        // cached partitions are not prefetched again
+        prefetchingMetastore.prefetchPartitions(TEST_DATABASE, TEST_TABLE, ImmutableList.of(TEST_PARTITION1));
+        assertEquals(prefetchingMetastore.getStats().getPrefetchCachedPartitions().getTotalCount(), 1);
+        assertEquals(mockClient.getAccessCount(), 2);
+    }
+
     @Test(expectedExceptions = NoSuchObjectException.class)
     public void testInvalidGetPartitionsByNames()
             throws Exception
@@ -0,0 +1,78 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.metastore;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+
+public class TestPartitionKeyIndex
+{
+    private static final List<String> PARTITION_NAMES = ImmutableList.of(
+            "ds=2014-01-01/hour=1",
+            "ds=2014-01-01/hour=2",
+            "ds=2014-01-02/hour=1",
+            "ds=2014-01-02/hour=2",
+            "ds=2014-01-03/hour=1");
+
+    @Test
+    public void testNoFilter()
+    {
+        PartitionKeyIndex index = PartitionKeyIndex.create(PARTITION_NAMES);
+        assertEquals(index.getKeyNames(), ImmutableList.of("ds", "hour"));
+        assertEquals(index.getPartitionNames(ImmutableMap.<String, Predicate<String>>of()), PARTITION_NAMES);
+    }
+
+    @Test
+    public void testFilter()
+    {
+        PartitionKeyIndex index = PartitionKeyIndex.create(PARTITION_NAMES);
+
+        assertEquals(index.getPartitionNames(ImmutableMap.of("hour", Predicates.equalTo("1"))),
+                ImmutableList.of("ds=2014-01-01/hour=1", "ds=2014-01-02/hour=1", "ds=2014-01-03/hour=1"));
+
+        assertEquals(index.getPartitionNames(ImmutableMap.of("ds", Predicates.in(ImmutableList.of("2014-01-02", "2014-01-03")), "hour", Predicates.equalTo("2"))),
+                ImmutableList.of("ds=2014-01-02/hour=2"));
+
+        assertEquals(index.getPartitionNames(ImmutableMap.of("ds", Predicates.<String>alwaysFalse())), ImmutableList.of());
+    }
+
+    @Test
+    public void testEscapedValues()
+    {
+        PartitionKeyIndex index = PartitionKeyIndex.create(ImmutableList.of("name=a%2Fb", "name=c"));
+        assertEquals(index.getPartitionNames(ImmutableMap.of("name", Predicates.equalTo("a/b"))), ImmutableList.of("name=a%2Fb"));
+    }
+
+    @Test
+    public void testEmpty()
+    {
+        PartitionKeyIndex index = PartitionKeyIndex.create(ImmutableList.<String>of());
+        assertEquals(index.getPartitionNames(ImmutableMap.<String, Predicate<String>>of()), ImmutableList.of());
+        assertEquals(index.getPartitionNames(ImmutableMap.of("ds", Predicates.equalTo("2014-01-01"))), ImmutableList.of());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnknownKey()
+    {
+        PartitionKeyIndex index = PartitionKeyIndex.create(PARTITION_NAMES);
+        index.getPartitionNames(ImmutableMap.of("unknown", Predicates.<String>alwaysTrue()));
+    }
+}
@@ -0,0 +1,498 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.facebook.presto.hive.HdfsConfiguration;
+import com.facebook.presto.hive.HdfsEnvironment;
+import com.facebook.presto.hive.HiveClientConfig;
+import com.facebook.presto.hive.HiveColumnHandle;
+import com.facebook.presto.hive.HivePageSourceProvider;
+import com.facebook.presto.hive.HivePartitionKey;
+import com.facebook.presto.hive.HiveSplit;
+import com.facebook.presto.hive.HiveType;
+import com.facebook.presto.hive.orc.TupleDomainOrcPredicate.ColumnReference;
+import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.HostAddress;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.Range;
+import com.facebook.presto.spi.SortedRangeSet;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.spi.block.Block;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+import io.airlift.testing.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.io.orc.CompressionKind;
+import org.apache.hadoop.hive.ql.io.orc.OrcFile;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto.StripeInformation;
+import org.apache.hadoop.hive.ql.io.orc.OrcSerde;
+import org.apache.hadoop.hive.ql.io.orc.Writer;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.joda.time.DateTimeZone;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Random;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory.ObjectInspectorOptions.JAVA;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestOrcReader
+{
+    private static final int ROW_COUNT = 10_000;
+    private static final int ROW_INDEX_STRIDE = 1_000;
+    private static final ConnectorSession SESSION = new ConnectorSession("user", "test", "catalog", "test", UTC_KEY, Locale.ENGLISH, null, null);
+
+    private File tempDir;
+    private List<EncodingTestRow> encodingRows;
+
+    @BeforeClass
+    public void setUp()
+    {
+        tempDir = Files.createTempDir();
+        encodingRows = createEncodingRows();
+    }
+
+    @AfterClass
+    public void tearDown()
+    {
+        FileUtils.deleteRecursively(tempDir);
+    }
+
+    @DataProvider(name = "compression")
+    public Object[][] compression()
+    {
+        return new Object[][] {{CompressionKind.NONE}, {CompressionKind.ZLIB}, {CompressionKind.SNAPPY}};
+    }
+
+    @Test(dataProvider = "compression")
+    public void testReadAllColumns(CompressionKind compression)
+            throws Exception
+    {
+        File file = writeFile(compression);
+        try (OrcRecordReader reader = createRecordReader(file, ImmutableList.of(1, 2, 3, 4), OrcPredicate.TRUE)) {
+            int row = 0;
+            for (int batchSize = reader.nextBatch(); batchSize >= 0; batchSize = reader.nextBatch()) {
+                Block ids = reader.readBlock(0);
+                Block values = reader.readBlock(1);
+                Block names = reader.readBlock(2);
+                Block flags = reader.readBlock(3);
+                for (int position = 0; position < batchSize; position++) {
+                    TestRow expected = createRow(row);
+                    if (expected.id == null) {
+                        assertTrue(ids.isNull(position));
+                    }
+                    else {
+                        assertEquals(BIGINT.getLong(ids, position), expected.id.longValue());
+                    }
+                    assertEquals(DOUBLE.getDouble(values, position), expected.value.doubleValue());
+                    assertEquals(VARCHAR.getSlice(names, position).toStringUtf8(), expected.name);
+                    assertEquals(BOOLEAN.getBoolean(flags, position), expected.flag.booleanValue());
+                    row++;
+                }
+            }
+            assertEquals(row, ROW_COUNT);
+        }
+    }
+
+    @Test
+    public void testUnreadColumnsAreSkipped()
+            throws Exception
+    {
+        File file = writeFile(CompressionKind.ZLIB);
+        try (OrcRecordReader reader = createRecordReader(file, ImmutableList.of(1, 3), OrcPredicate.TRUE)) {
+            int row = 0;
+            int batch = 0;
+            for (int batchSize = reader.nextBatch(); batchSize >= 0; batchSize = reader.nextBatch()) {
+                // only read the names of every other batch
+                if (batch++ % 2 == 0) {
+                    Block names = reader.readBlock(1);
+                    for (int position = 0; position < batchSize; position++) {
+                        assertEquals(VARCHAR.getSlice(names, position).toStringUtf8(), createRow(row + position).name);
+                    }
+                }
+                row += batchSize;
+            }
+            assertEquals(row, ROW_COUNT);
+        }
+    }
+
+    @Test
+    public void testRowGroupsAreSkipped()
+            throws Exception
+    {
+        File file = writeFile(CompressionKind.ZLIB);
+
+        TupleDomain<String> effectivePredicate = TupleDomain.withColumnDomains(ImmutableMap.of(
+                "id", Domain.create(SortedRangeSet.of(Range.range(2500L, true, 3500L, true)), false)));
+        OrcPredicate predicate = new TupleDomainOrcPredicate<>(effectivePredicate, ImmutableList.of(new ColumnReference<>("id", 1, BIGINT)));
+
+        List<Long> ids = new ArrayList<>();
+        try (OrcRecordReader reader = createRecordReader(file, ImmutableList.of(1), predicate)) {
+            for (int batchSize = reader.nextBatch(); batchSize >= 0; batchSize = reader.nextBatch()) {
+                Block block = reader.readBlock(0);
+                for (int position = 0; position < batchSize; position++) {
+                    if (!block.isNull(position)) {
+                        ids.add(BIGINT.getLong(block, position));
+                    }
+                }
+            }
+        }
+
+        // only the row groups starting at 2000 and 3000 can contain matching rows
+        assertFalse(ids.isEmpty());
+        assertEquals(ids.get(0).longValue(), 2000L);
+        assertEquals(ids.get(ids.size() - 1).longValue(), 3999L);
+        for (long id = 2500; id <= 3500; id++) {
+            assertEquals(ids.contains(id), createRow((int) id).id != null);
+        }
+    }
+
+    @Test
+    public void testAllRowsSkipped()
+            throws Exception
+    {
+        File file = writeFile(CompressionKind.ZLIB);
+
+        TupleDomain<String> effectivePredicate = TupleDomain.withColumnDomains(ImmutableMap.of(
+                "name", Domain.singleValue(utf8Slice("unknown"))));
+        OrcPredicate predicate = new TupleDomainOrcPredicate<>(effectivePredicate, ImmutableList.of(new ColumnReference<>("name", 3, VARCHAR)));
+
+        try (OrcRecordReader reader = createRecordReader(file, ImmutableList.of(3), predicate)) {
+            assertEquals(reader.nextBatch(), -1);
+        }
+    }
+
+    @Test(dataProvider = "compression")
+    public void testReadEncodings(CompressionKind compression)
+            throws Exception
+    {
+        File file = writeEncodingsFile(compression);
+        try (OrcRecordReader reader = createRecordReader(file, ImmutableList.of(1, 2, 3, 4, 5, 6), OrcPredicate.TRUE)) {
+            int row = 0;
+            for (int batchSize = reader.nextBatch(); batchSize >= 0; batchSize = reader.nextBatch()) {
+                for (int field = 0; field < 6; field++) {
+                    Block block = reader.readBlock(field);
+                    for (int position = 0; position < batchSize; position++) {
+                        assertValue(block, position, encodingRows.get(row + position).getValues().get(field));
+                    }
+                }
+                row += batchSize;
+            }
+            assertEquals(row, ROW_COUNT);
+        }
+    }
+
+    @Test
+    public void testEncodingsAreSkipped()
+            throws Exception
+    {
+        File file = writeEncodingsFile(CompressionKind.ZLIB);
+        try (OrcRecordReader reader = createRecordReader(file, ImmutableList.of(1, 2, 3, 4, 5, 6), OrcPredicate.TRUE)) {
+            int row = 0;
+            int batch = 0;
+            for (int batchSize = reader.nextBatch(); batchSize >= 0; batchSize = reader.nextBatch()) {
+                // every column skips two batches out of three, so each skip starts in the middle of a run
+                for (int field = 0; field < 6; field++) {
+                    if ((batch + field) % 3 == 0) {
+                        Block block = reader.readBlock(field);
+                        for (int position = 0; position < batchSize; position++) {
+                            assertValue(block, position, encodingRows.get(row + position).getValues().get(field));
+                        }
+                    }
+                }
+                row += batchSize;
+                batch++;
+            }
+            assertEquals(row, ROW_COUNT);
+        }
+    }
+
+    @Test
+    public void testStripesAreSkipped()
+            throws Exception
+    {
+        int rowCount = 3 * ROW_COUNT;
+        File file = new File(tempDir, "stripes.orc");
+
+        // the writer checks its memory every 5000 rows, so a tiny stripe size flushes a stripe
+        // each time, and without a row index only the stripe statistics can skip rows
+        ObjectInspector inspector = ObjectInspectorFactory.getReflectionObjectInspector(TestRow.class, JAVA);
+        Writer writer = OrcFile.createWriter(FileSystem.getLocal(new Configuration()), new Path(file.toURI()), new Configuration(), inspector, 1024, CompressionKind.ZLIB, 8 * 1024, 0);
+        try {
+            for (int row = 0; row < rowCount; row++) {
+                writer.addRow(createRow(row));
+            }
+        }
+        finally {
+            writer.close();
+        }
+
+        List<StripeInformation> stripes;
+        try (OrcDataSource orcDataSource = openDataSource(file)) {
+            OrcReader orcReader = new OrcReader(orcDataSource);
+            stripes = orcReader.getFooter().getStripesList();
+            assertTrue(stripes.size() > 2, "expected several stripes");
+            assertEquals(orcReader.getStripeStatistics().size(), stripes.size());
+        }
+
+        TupleDomain<String> effectivePredicate = TupleDomain.withColumnDomains(ImmutableMap.of(
+                "id", Domain.create(SortedRangeSet.of(Range.range(12_000L, true, 12_100L, true)), false)));
+        OrcPredicate predicate = new TupleDomainOrcPredicate<>(effectivePredicate, ImmutableList.of(new ColumnReference<>("id", 1, BIGINT)));
+
+        List<Integer> expectedRows = new ArrayList<>();
+        int stripeStart = 0;
+        for (StripeInformation stripe : stripes) {
+            int stripeEnd = stripeStart + (int) stripe.getNumberOfRows();
+            if (stripeStart <= 12_100 && stripeEnd > 12_000) {
+                for (int row = stripeStart; row < stripeEnd; row++) {
+                    expectedRows.add(row);
+                }
+            }
+            stripeStart = stripeEnd;
+        }
+        assertEquals(stripeStart, rowCount);
+        assertTrue(expectedRows.size() < rowCount, "expected some stripes to be skipped");
+
+        int rowIndex = 0;
+        try (OrcRecordReader reader = createRecordReader(file, ImmutableList.of(1), predicate)) {
+            for (int batchSize = reader.nextBatch(); batchSize >= 0; batchSize = reader.nextBatch()) {
+                Block block = reader.readBlock(0);
+                for (int position = 0; position < batchSize; position++) {
+                    assertValue(block, position, createRow(expectedRows.get(rowIndex)).id);
+                    rowIndex++;
+                }
+            }
+        }
+        assertEquals(rowIndex, expectedRows.size());
+    }
+
+    @Test
+    public void testReadThroughPageSourceProvider()
+            throws Exception
+    {
+        File file = writeFile(CompressionKind.ZLIB);
+
+        Properties schema = new Properties();
+        schema.setProperty("serialization.lib", OrcSerde.class.getName());
+        schema.setProperty("columns", "id,value,name,flag");
+        schema.setProperty("columns.types", "bigint:double:string:boolean");
+
+        HiveColumnHandle idColumn = new HiveColumnHandle("clientId", "id", 0, HiveType.LONG, 0, false);
+        HiveColumnHandle nameColumn = new HiveColumnHandle("clientId", "name", 2, HiveType.STRING, 2, false);
+        HiveColumnHandle dsColumn = new HiveColumnHandle("clientId", "ds", 4, HiveType.STRING, -1, true);
+
+        TupleDomain<ConnectorColumnHandle> effectivePredicate = TupleDomain.withColumnDomains(ImmutableMap.<ConnectorColumnHandle, Domain>of(
+                idColumn, Domain.create(SortedRangeSet.of(Range.range(2500L, true, 3500L, true)), false)));
+        HiveSplit split = new HiveSplit("clientId", "db", "table", "ds=2014-01-01", new Path(file.toURI()).toString(), 0, file.length(), 0, schema,
+                ImmutableList.of(new HivePartitionKey("ds", HiveType.STRING, "2014-01-01")),
+                ImmutableList.<HostAddress>of(),
+                SESSION,
+                effectivePredicate);
+
+        HivePageSourceProvider pageSourceProvider = new HivePageSourceProvider(new HdfsEnvironment(new HdfsConfiguration(new HiveClientConfig())), DateTimeZone.getDefault(), true);
+        int row = 2000;
+        try (ConnectorPageSource pageSource = pageSourceProvider.createPageSource(split, ImmutableList.<ConnectorColumnHandle>of(idColumn, dsColumn, nameColumn))) {
+            assertTrue(pageSource instanceof OrcPageSource, "expected the optimized ORC reader");
+            while (!pageSource.isFinished()) {
+                Page page = pageSource.getNextPage();
+                if (page == null) {
+                    continue;
+                }
+                for (int position = 0; position < page.getPositionCount(); position++) {
+                    TestRow expected = createRow(row);
+                    assertValue(page.getBlock(0), position, expected.id);
+                    assertEquals(VARCHAR.getSlice(page.getBlock(1), position).toStringUtf8(), "2014-01-01");
+                    assertEquals(VARCHAR.getSlice(page.getBlock(2), position).toStringUtf8(), expected.name);
+                    row++;
+                }
+            }
+        }
+
+        // only the row groups starting at 2000 and 3000 can contain matching rows
+        assertEquals(row, 4000);
+    }
+
+    private static void assertValue(Block block, int position, Object expected)
+    {
+        if (expected == null) {
+            assertTrue(block.isNull(position));
+        }
+        else if (expected instanceof Long) {
+            assertEquals(BIGINT.getLong(block, position), ((Long) expected).longValue());
+        }
+        else if (expected instanceof Timestamp) {
+            assertEquals(TIMESTAMP.getLong(block, position), ((Timestamp) expected).getTime());
+        }
+        else {
+            assertEquals(VARCHAR.getSlice(block, position).toStringUtf8(), expected);
+        }
+    }
+
+    private static OrcDataSource openDataSource(File file)
+            throws IOException
+    {
+        FileSystem fileSystem = FileSystem.getLocal(new Configuration());
+        return new HdfsOrcDataSource(file.getPath(), fileSystem.open(new Path(file.toURI())), file.length());
+    }
+
+    private OrcRecordReader createRecordReader(File file, List<Integer> includedColumns, OrcPredicate predicate)
+            throws IOException
+    {
+        // the writer stores timestamps in the local time of the JVM
+        OrcReader orcReader = new OrcReader(openDataSource(file));
+        return orcReader.createRecordReader(includedColumns, predicate, 0, file.length(), DateTimeZone.getDefault());
+    }
+
+    private File writeFile(CompressionKind compression)
+            throws IOException
+    {
+        File file = new File(tempDir, compression + ".orc");
+        if (file.exists()) {
+            return file;
+        }
+
+        ObjectInspector inspector = ObjectInspectorFactory.getReflectionObjectInspector(TestRow.class, JAVA);
+        FileSystem fileSystem = FileSystem.getLocal(new Configuration());
+        Writer writer = OrcFile.createWriter(fileSystem, new Path(file.toURI()), new Configuration(), inspector, 64 * 1024 * 1024, compression, 8 * 1024, ROW_INDEX_STRIDE);
+        try {
+            for (int row = 0; row < ROW_COUNT; row++) {
+                writer.addRow(createRow(row));
+            }
+        }
+        finally {
+            writer.close();
+        }
+        return file;
+    }
+
+    private File writeEncodingsFile(CompressionKind compression)
+            throws IOException
+    {
+        File file = new File(tempDir, "encodings-" + compression + ".orc");
+        if (file.exists()) {
+            return file;
+        }
+
+        ObjectInspector inspector = ObjectInspectorFactory.getReflectionObjectInspector(EncodingTestRow.class, JAVA);
+        FileSystem fileSystem = FileSystem.getLocal(new Configuration());
+        Writer writer = OrcFile.createWriter(fileSystem, new Path(file.toURI()), new Configuration(), inspector, 64 * 1024 * 1024, compression, 8 * 1024, ROW_INDEX_STRIDE);
+        try {
+            for (EncodingTestRow row : encodingRows) {
+                writer.addRow(row);
+            }
+        }
+        finally {
+            writer.close();
+        }
+        return file;
+    }
+
+    private static TestRow createRow(int row)
+    {
+        Long id = (row % 100 == 7) ? null : (long) row;
+        return new TestRow(id, row * 0.5, "name" + (row % 37), row % 3 == 0);
+    }
+
+    private static List<EncodingTestRow> createEncodingRows()
+    {
+        Random random = new Random(42);
+        ImmutableList.Builder<EncodingTestRow> rows = ImmutableList.builder();
+        for (int row = 0; row < ROW_COUNT; row++) {
+            // wide random values are written with the DIRECT encoding, small values
+            // with rare outliers with PATCHED_BASE, and short runs with SHORT_REPEAT
+            long randomValue = random.nextInt() * 1_000_003L;
+            long negativeValue = -random.nextInt(1_000_000);
+            long patchedValue = (row % 50 == 0) ? 1_000_000_000_000L + random.nextInt(1_000_000) : random.nextInt(100);
+
+            // timestamps before 1970 and with fractional seconds, but not within a second before 1970 which Hive can not read back
+            Timestamp timestamp = (row % 89 == 0) ? null : new Timestamp((row - ROW_COUNT / 2) * 86_400_123L);
+
+            // unique strings are not worth a dictionary, so they are written with the DIRECT encoding
+            String uniqueName = (row % 97 == 0) ? null : "unique" + random.nextLong();
+
+            rows.add(new EncodingTestRow(randomValue, negativeValue, (long) (row / 5), patchedValue, timestamp, uniqueName));
+        }
+        return rows.build();
+    }
+
+    @SuppressWarnings("UnusedDeclaration")
+    public static class TestRow
+    {
+        private final Long id;
+        private final Double value;
+        private final String name;
+        private final Boolean flag;
+
+        public TestRow(Long id, Double value, String name, Boolean flag)
+        {
+            this.id = id;
+            this.value = value;
+            this.name = name;
+            this.flag = flag;
+        }
+    }
+
+    @SuppressWarnings("UnusedDeclaration")
+    public static class EncodingTestRow
+    {
+        private final Long randomValue;
+        private final Long negativeValue;
+        private final Long repeatedValue;
+        private final Long patchedValue;
+        private final Timestamp timestamp;
+        private final String uniqueName;
+
+        public EncodingTestRow(Long randomValue, Long negativeValue, Long repeatedValue, Long patchedValue, Timestamp timestamp, String uniqueName)
+        {
+            this.randomValue = randomValue;
+            this.negativeValue = negativeValue;
+            this.repeatedValue = repeatedValue;
+            this.patchedValue = patchedValue;
+            this.timestamp = timestamp;
+            this.uniqueName = uniqueName;
+        }
+
+        public List<Object> getValues()
+        {
+            return Arrays.<Object>asList(randomValue, negativeValue, repeatedValue, patchedValue, timestamp, uniqueName);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.rcfile;
+
+import com.facebook.presto.hive.HiveType;
+import com.facebook.presto.spi.block.Block;
+import io.airlift.slice.Slices;
+import org.apache.hadoop.hive.serde2.columnar.BytesRefArrayWritable;
+import org.apache.hadoop.hive.serde2.columnar.BytesRefWritable;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.WritableUtils;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestRcBinaryBlocks
+{
+    @Test
+    public void testLongs()
+            throws Exception
+    {
+        Long[] values = {0L, 1L, -1L, null, 127L, -128L, 300L, Long.MAX_VALUE, Long.MIN_VALUE, null};
+        BytesRefArrayWritable column = new BytesRefArrayWritable(values.length);
+        for (int i = 0; i < values.length; i++) {
+            DataOutputBuffer buffer = new DataOutputBuffer();
+            if (values[i] != null) {
+                WritableUtils.writeVLong(buffer, values[i]);
+            }
+            column.set(i, new BytesRefWritable(Arrays.copyOf(buffer.getData(), buffer.getLength())));
+        }
+
+        // decode a range that does not start at the beginning of the chunk
+        Block block = RcBinaryBlocks.decodeBlock(BIGINT, HiveType.LONG, column, 1, values.length - 1);
+        assertEquals(block.getPositionCount(), values.length - 1);
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            Long expected = values[position + 1];
+            if (expected == null) {
+                assertTrue(block.isNull(position));
+            }
+            else {
+                assertFalse(block.isNull(position));
+                assertEquals(BIGINT.getLong(block, position), expected.longValue());
+            }
+        }
+    }
+
+    @Test
+    public void testDoubles()
+            throws Exception
+    {
+        double[] values = {0.0, -1.5, Double.MAX_VALUE, Double.NaN};
+        BytesRefArrayWritable column = new BytesRefArrayWritable(values.length + 1);
+        for (int i = 0; i < values.length; i++) {
+            // the file format uses big endian
+            DataOutputBuffer buffer = new DataOutputBuffer();
+            buffer.writeDouble(values[i]);
+            column.set(i, new BytesRefWritable(Arrays.copyOf(buffer.getData(), buffer.getLength())));
+        }
+        column.set(values.length, new BytesRefWritable(new byte[0]));
+
+        Block block = RcBinaryBlocks.decodeBlock(DOUBLE, HiveType.DOUBLE, column, 0, values.length + 1);
+        for (int position = 0; position < values.length; position++) {
+            assertEquals(DOUBLE.getDouble(block, position), values[position]);
+        }
+        assertTrue(block.isNull(values.length));
+    }
+
+    @Test
+    public void testBooleans()
+            throws IOException
+    {
+        BytesRefArrayWritable column = new BytesRefArrayWritable(3);
+        column.set(0, new BytesRefWritable(new byte[] {1}));
+        column.set(1, new BytesRefWritable(new byte[] {0}));
+        column.set(2, new BytesRefWritable(new byte[0]));
+
+        Block block = RcBinaryBlocks.decodeBlock(BOOLEAN, HiveType.BOOLEAN, column, 0, 3);
+        assertTrue(BOOLEAN.getBoolean(block, 0));
+        assertFalse(BOOLEAN.getBoolean(block, 1));
+        assertTrue(block.isNull(2));
+    }
+
+    @Test
+    public void testStrings()
+            throws IOException
+    {
+        // all values share one buffer, as they do in a column chunk
+        byte[] data = Arrays.copyOf("helloworld".getBytes(UTF_8), 11);
+        // hive writes an empty string as a single 0xbf byte
+        data[10] = (byte) 0xbf;
+        BytesRefArrayWritable column = new BytesRefArrayWritable(4);
+        column.set(0, new BytesRefWritable(data, 0, 5));
+        column.set(1, new BytesRefWritable(data, 5, 0));
+        column.set(2, new BytesRefWritable(data, 5, 5));
+        column.set(3, new BytesRefWritable(data, 10, 1));
+
+        Block block = RcBinaryBlocks.decodeBlock(VARCHAR, HiveType.STRING, column, 0, 4);
+        assertEquals(VARCHAR.getSlice(block, 0), Slices.utf8Slice("hello"));
+        assertTrue(block.isNull(1));
+        assertEquals(VARCHAR.getSlice(block, 2), Slices.utf8Slice("world"));
+        assertFalse(block.isNull(3));
+        assertEquals(VARCHAR.getSlice(block, 3), Slices.EMPTY_SLICE);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.util;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.testng.Assert.assertEquals;
+
+public class TestPrioritizedExecutor
+{
+    @Test
+    public void testPriorityOrder()
+            throws Exception
+    {
+        SuspendingExecutor suspendingExecutor = new SuspendingExecutor(MoreExecutors.sameThreadExecutor());
+        PrioritizedExecutor prioritizedExecutor = new PrioritizedExecutor(suspendingExecutor);
+        List<String> executed = new CopyOnWriteArrayList<>();
+
+        // queue the tasks while suspended so they are reordered
+        suspendingExecutor.suspend();
+        prioritizedExecutor.withPriority(2).execute(new RecordingTask(executed, "c"));
+        prioritizedExecutor.withPriority(1).execute(new RecordingTask(executed, "b1"));
+        prioritizedExecutor.withPriority(0).execute(new RecordingTask(executed, "a"));
+        prioritizedExecutor.withPriority(1).execute(new RecordingTask(executed, "b2"));
+        assertEquals(executed, ImmutableList.of());
+
+        suspendingExecutor.resume();
+        assertEquals(executed, ImmutableList.of("a", "b1", "b2", "c"));
+
+        // tasks run immediately when there is nothing queued
+        prioritizedExecutor.withPriority(5).execute(new RecordingTask(executed, "d"));
+        assertEquals(executed, ImmutableList.of("a", "b1", "b2", "c", "d"));
+    }
+
+    private static class RecordingTask
+            implements Runnable
+    {
+        private final List<String> executed;
+        private final String name;
+
+        private RecordingTask(List<String> executed, String name)
+        {
+            this.executed = executed;
+            this.name = name;
+        }
+
+        @Override
+        public void run()
+        {
+            executed.add(name);
+        }
+    }
+}
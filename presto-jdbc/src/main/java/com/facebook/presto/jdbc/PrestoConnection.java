@@ -537,7 +537,7 @@ public class PrestoConnection
         URI uri = createHttpUri(address);
 
         String source = Objects.firstNonNull(clientInfo.get("ApplicationName"), "presto-jdbc");
-        ClientSession session = new ClientSession(uri, user, source, catalog.get(), schema.get(), timeZoneId.get(), locale.get(), false);
+        ClientSession session = new ClientSession(uri, user, source, catalog.get(), schema.get(), timeZoneId.get(), locale.get(), false, true);
         return queryExecutor.startQuery(session, sql);
     }
 
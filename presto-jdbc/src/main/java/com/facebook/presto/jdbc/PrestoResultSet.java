@@ -14,10 +14,10 @@
 package com.facebook.presto.jdbc;
 
 import com.facebook.presto.client.Column;
+import com.facebook.presto.client.ColumnarPage;
 import com.facebook.presto.client.QueryError;
 import com.facebook.presto.client.QueryResults;
 import com.facebook.presto.client.StatementClient;
-import com.google.common.base.Function;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -57,13 +57,12 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Throwables.propagate;
 import static com.google.common.base.Throwables.propagateIfInstanceOf;
-import static com.google.common.collect.Iterators.concat;
-import static com.google.common.collect.Iterators.transform;
 import static java.lang.String.format;
 
 public class PrestoResultSet
@@ -128,11 +127,12 @@ public class PrestoResultSet
     private final StatementClient client;
     private final DateTimeZone sessionTimeZone;
     private final String queryId;
-    private final Iterator<List<Object>> results;
+    private final Iterator<ColumnarPage> pages;
     private final Map<String, Integer> fieldMap;
     private final List<ColumnInfo> columnInfoList;
     private final ResultSetMetaData resultSetMetaData;
-    private final AtomicReference<List<Object>> row = new AtomicReference<>();
+    private final AtomicReference<ColumnarPage> page = new AtomicReference<>();
+    private final AtomicInteger position = new AtomicInteger(-1);
     private final AtomicBoolean wasNull = new AtomicBoolean();
 
     PrestoResultSet(StatementClient client)
@@ -147,7 +147,7 @@ public class PrestoResultSet
         this.columnInfoList = getColumnInfo(columns);
         this.resultSetMetaData = new PrestoResultSetMetaData(columnInfoList);
 
-        this.results = flatten(new ResultsPageIterator(client));
+        this.pages = new ResultsPageIterator(client);
     }
 
     public String getQueryId()
@@ -161,12 +161,21 @@ public class PrestoResultSet
     {
         checkOpen();
         try {
-            if (!results.hasNext()) {
-                row.set(null);
-                return false;
+            ColumnarPage current = page.get();
+            if ((current != null) && (position.get() + 1 < current.getRowCount())) {
+                position.incrementAndGet();
+                return true;
             }
-            row.set(results.next());
-            return true;
+            while (pages.hasNext()) {
+                ColumnarPage next = pages.next();
+                if (next.getRowCount() > 0) {
+                    page.set(next);
+                    position.set(0);
+                    return true;
+                }
+            }
+            page.set(null);
+            return false;
         }
         catch (RuntimeException e) {
             propagateIfInstanceOf(e, SQLException.class);
@@ -200,56 +209,49 @@ public class PrestoResultSet
     public boolean getBoolean(int columnIndex)
             throws SQLException
     {
-        Object value = column(columnIndex);
-        return (value != null) ? (Boolean) value : false;
+        return !isNull(columnIndex) && page.get().getBoolean(columnIndex - 1, position.get());
     }
 
     @Override
     public byte getByte(int columnIndex)
             throws SQLException
     {
-        Object value = column(columnIndex);
-        return (value != null) ? ((Number) value).byteValue() : 0;
+        return (byte) getLong(columnIndex);
     }
 
     @Override
     public short getShort(int columnIndex)
             throws SQLException
     {
-        Object value = column(columnIndex);
-        return (value != null) ? ((Number) value).shortValue() : 0;
+        return (short) getLong(columnIndex);
     }
 
     @Override
     public int getInt(int columnIndex)
             throws SQLException
     {
-        Object value = column(columnIndex);
-        return (value != null) ? ((Number) value).intValue() : 0;
+        return (int) getLong(columnIndex);
     }
 
     @Override
     public long getLong(int columnIndex)
             throws SQLException
     {
-        Object value = column(columnIndex);
-        return (value != null) ? ((Number) value).longValue() : 0;
+        return isNull(columnIndex) ? 0 : page.get().getLong(columnIndex - 1, position.get());
     }
 
     @Override
     public float getFloat(int columnIndex)
             throws SQLException
     {
-        Object value = column(columnIndex);
-        return (value != null) ? ((Number) value).floatValue() : 0;
+        return (float) getDouble(columnIndex);
     }
 
     @Override
     public double getDouble(int columnIndex)
             throws SQLException
     {
-        Object value = column(columnIndex);
-        return (value != null) ? ((Number) value).doubleValue() : 0;
+        return isNull(columnIndex) ? 0 : page.get().getDouble(columnIndex - 1, position.get());
     }
 
     @Override
@@ -388,64 +390,56 @@ public class PrestoResultSet
     public String getString(String columnLabel)
             throws SQLException
     {
-        Object value = column(columnLabel);
-        return (value != null) ? value.toString() : null;
+        return getString(columnIndex(columnLabel));
     }
 
     @Override
     public boolean getBoolean(String columnLabel)
             throws SQLException
     {
-        Object value = column(columnLabel);
-        return (value != null) ? (Boolean) value : false;
+        return getBoolean(columnIndex(columnLabel));
     }
 
     @Override
     public byte getByte(String columnLabel)
             throws SQLException
     {
-        Object value = column(columnLabel);
-        return (value != null) ? ((Number) value).byteValue() : 0;
+        return getByte(columnIndex(columnLabel));
     }
 
     @Override
     public short getShort(String columnLabel)
             throws SQLException
     {
-        Object value = column(columnLabel);
-        return (value != null) ? ((Number) value).shortValue() : 0;
+        return getShort(columnIndex(columnLabel));
     }
 
     @Override
     public int getInt(String columnLabel)
             throws SQLException
     {
-        Object value = column(columnLabel);
-        return (value != null) ? ((Number) value).intValue() : 0;
+        return getInt(columnIndex(columnLabel));
     }
 
     @Override
     public long getLong(String columnLabel)
             throws SQLException
     {
-        Object value = column(columnLabel);
-        return (value != null) ? ((Number) value).longValue() : 0;
+        return getLong(columnIndex(columnLabel));
     }
 
     @Override
     public float getFloat(String columnLabel)
             throws SQLException
     {
-        Object value = column(columnLabel);
-        return (value != null) ? ((Number) value).floatValue() : 0;
+        return getFloat(columnIndex(columnLabel));
     }
 
     @Override
     public double getDouble(String columnLabel)
             throws SQLException
     {
-        Object value = column(columnLabel);
-        return (value != null) ? ((Number) value).doubleValue() : 0;
+        return getDouble(columnIndex(columnLabel));
     }
 
     @Override
@@ -459,7 +453,7 @@ public class PrestoResultSet
     public byte[] getBytes(String columnLabel)
             throws SQLException
     {
-        return (byte[]) column(columnLabel);
+        return getBytes(columnIndex(columnLabel));
     }
 
     @Override
@@ -1660,7 +1654,7 @@ public class PrestoResultSet
     private void checkValidRow()
             throws SQLException
     {
-        if (row.get() == null) {
+        if (page.get() == null) {
             throw new SQLException("Not on a valid row");
         }
     }
@@ -1668,20 +1662,32 @@ public class PrestoResultSet
     private Object column(int index)
             throws SQLException
     {
-        checkOpen();
-        checkValidRow();
-        if ((index <= 0) || (index > resultSetMetaData.getColumnCount())) {
-            throw new SQLException("Invalid column index: " + index);
+        if (isNull(index)) {
+            return null;
         }
-        return row.get().get(index - 1);
+        return page.get().getObject(index - 1, position.get());
     }
 
     private Object column(String label)
             throws SQLException
+    {
+        return column(columnIndex(label));
+    }
+
+    /**
+     * Checks the column of the current row and records the result for {@link #wasNull}.
+     */
+    private boolean isNull(int index)
+            throws SQLException
     {
         checkOpen();
         checkValidRow();
-        return row.get().get(columnIndex(label) - 1);
+        if ((index <= 0) || (index > resultSetMetaData.getColumnCount())) {
+            throw new SQLException("Invalid column index: " + index);
+        }
+        boolean isNull = page.get().isNull(index - 1, position.get());
+        wasNull.set(isNull);
+        return isNull;
     }
 
     private int columnIndex(String label)
@@ -1715,20 +1721,8 @@ public class PrestoResultSet
         throw resultsException(results);
     }
 
-    private static <T> Iterator<T> flatten(Iterator<Iterable<T>> iterator)
-    {
-        return concat(transform(iterator, new Function<Iterable<T>, Iterator<T>>()
-        {
-            @Override
-            public Iterator<T> apply(Iterable<T> input)
-            {
-                return input.iterator();
-            }
-        }));
-    }
-
     private static class ResultsPageIterator
-            extends AbstractIterator<Iterable<List<Object>>>
+            extends AbstractIterator<ColumnarPage>
     {
         private final StatementClient client;
 
@@ -1738,10 +1732,10 @@ public class PrestoResultSet
         }
 
         @Override
-        protected Iterable<List<Object>> computeNext()
+        protected ColumnarPage computeNext()
         {
             while (client.isValid()) {
-                Iterable<List<Object>> data = client.current().getData();
+                ColumnarPage data = client.current().toColumnarPage();
                 client.advance();
                 if (data != null) {
                     return data;
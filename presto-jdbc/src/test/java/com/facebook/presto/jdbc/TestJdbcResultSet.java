@@ -32,6 +32,8 @@ import java.sql.Types;
 import static com.facebook.presto.jdbc.TestDriver.closeQuietly;
 import static java.lang.String.format;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
@@ -118,6 +120,47 @@ public class TestJdbcResultSet
         }
     }
 
+    @Test
+    public void testNullValues()
+            throws Exception
+    {
+        String sql = "SELECT 123, CAST(NULL AS BIGINT), CAST(NULL AS DOUBLE), CAST(NULL AS BOOLEAN), CAST(NULL AS VARCHAR)";
+        try (ResultSet rs = statement.executeQuery(sql)) {
+            assertTrue(rs.next());
+            assertEquals(rs.getLong(1), 123L);
+            assertFalse(rs.wasNull());
+            assertEquals(rs.getLong(2), 0L);
+            assertTrue(rs.wasNull());
+            assertEquals(rs.getDouble(3), 0.0);
+            assertTrue(rs.wasNull());
+            assertEquals(rs.getBoolean(4), false);
+            assertTrue(rs.wasNull());
+            assertNull(rs.getString(5));
+            assertTrue(rs.wasNull());
+            assertFalse(rs.next());
+        }
+    }
+
+    @Test
+    public void testJsonResultsFallback()
+            throws Exception
+    {
+        // the columnar format does not cover the type of NULL, so the server sends JSON rows
+        try (ResultSet rs = statement.executeQuery("SELECT 123, 0.5, 'hello', NULL")) {
+            ResultSetMetaData metadata = rs.getMetaData();
+            assertEquals(metadata.getColumnCount(), 4);
+            assertEquals(metadata.getColumnTypeName(4), "UNKNOWN");
+
+            assertTrue(rs.next());
+            assertEquals(rs.getLong(1), 123L);
+            assertEquals(rs.getDouble(2), 0.5);
+            assertEquals(rs.getString(3), "hello");
+            assertNull(rs.getObject(4));
+            assertTrue(rs.wasNull());
+            assertFalse(rs.next());
+        }
+    }
+
     private Connection createConnection()
             throws SQLException
     {
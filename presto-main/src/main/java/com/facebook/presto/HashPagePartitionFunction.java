@@ -13,18 +13,22 @@
  */
 package com.facebook.presto;
 
-import com.facebook.presto.operator.Page;
 import com.facebook.presto.operator.PageBuilder;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.Type;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Objects;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 
 import java.util.List;
 
+import static com.facebook.presto.operator.scalar.HashFunctions.combineHash;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.type.TypeUtils.hashPosition;
+import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
 public final class HashPagePartitionFunction
@@ -33,6 +37,7 @@ public final class HashPagePartitionFunction
     private final int partition;
     private final int partitionCount;
     private final List<Integer> partitioningChannels;
+    private final Optional<Integer> hashChannel;
     private final List<Type> types;
 
     @JsonCreator
@@ -40,11 +45,13 @@ public final class HashPagePartitionFunction
             @JsonProperty("partition") int partition,
             @JsonProperty("partitionCount") int partitionCount,
             @JsonProperty("partitioningChannels") List<Integer> partitioningChannels,
+            @JsonProperty("hashChannel") Optional<Integer> hashChannel,
             @JsonProperty("types") List<Type> types)
     {
         this.partition = partition;
         this.partitionCount = partitionCount;
         this.partitioningChannels = ImmutableList.copyOf(partitioningChannels);
+        this.hashChannel = checkNotNull(hashChannel, "hashChannel is null");
         this.types = ImmutableList.copyOf(types);
     }
 
@@ -66,6 +73,12 @@ public final class HashPagePartitionFunction
         return partitioningChannels;
     }
 
+    @JsonProperty
+    public Optional<Integer> getHashChannel()
+    {
+        return hashChannel;
+    }
+
     @JsonProperty
     public List<Type> getTypes()
     {
@@ -111,12 +124,21 @@ public final class HashPagePartitionFunction
 
     private int getPartitionHashBucket(int position, Page page)
     {
-        long hashCode = 1;
-        for (int channel : partitioningChannels) {
-            hashCode *= 31;
-            Type type = types.get(channel);
-            Block block = page.getBlock(channel);
-            hashCode += hashPosition(type, block, position);
+        long hashCode;
+        if (hashChannel.isPresent()) {
+            // the hash of the partitioning channels was precomputed by the planner
+            hashCode = BIGINT.getLong(page.getBlock(hashChannel.get()), position);
+        }
+        else {
+            // the same value as the combine_hash chain the planner generates, so producers that
+            // precompute the hash and producers that do not agree on the bucket of a row
+            int rowHash = 0;
+            for (int channel : partitioningChannels) {
+                Type type = types.get(channel);
+                Block block = page.getBlock(channel);
+                rowHash = (int) combineHash(rowHash, hashPosition(type, block, position));
+            }
+            hashCode = rowHash;
         }
         // clear the sign bit
         hashCode &= 0x7fff_ffff_ffff_ffffL;
@@ -129,7 +151,7 @@ public final class HashPagePartitionFunction
     @Override
     public int hashCode()
     {
-        return Objects.hashCode(partition, partitionCount, partitioningChannels);
+        return Objects.hashCode(partition, partitionCount, partitioningChannels, hashChannel);
     }
 
     @Override
@@ -144,7 +166,8 @@ public final class HashPagePartitionFunction
         final HashPagePartitionFunction other = (HashPagePartitionFunction) obj;
         return Objects.equal(this.partition, other.partition) &&
                 Objects.equal(this.partitionCount, other.partitionCount) &&
-                Objects.equal(this.partitioningChannels, other.partitioningChannels);
+                Objects.equal(this.partitioningChannels, other.partitioningChannels) &&
+                Objects.equal(this.hashChannel, other.hashChannel);
     }
 
     @Override
@@ -154,6 +177,7 @@ public final class HashPagePartitionFunction
                 .add("partition", partition)
                 .add("partitionCount", partitionCount)
                 .add("partitioningChannels", partitioningChannels)
+                .add("hashChannel", hashChannel)
                 .toString();
     }
 }
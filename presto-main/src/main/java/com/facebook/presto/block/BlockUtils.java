@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.block;
 
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.type.Type;
 import io.airlift.slice.Slice;
@@ -55,4 +56,28 @@ public final class BlockUtils
             throw new IllegalArgumentException("Unsupported type: " + value.getClass().getName());
         }
     }
+
+    /**
+     * Returns the value at the position in the native representation used by domains,
+     * or null if the position is null.
+     */
+    public static Comparable<?> getNativeValue(Type type, Block block, int position)
+    {
+        if (block.isNull(position)) {
+            return null;
+        }
+        if (type.getJavaType() == boolean.class) {
+            return type.getBoolean(block, position);
+        }
+        if (type.getJavaType() == double.class) {
+            return type.getDouble(block, position);
+        }
+        if (type.getJavaType() == long.class) {
+            return type.getLong(block, position);
+        }
+        if (type.getJavaType() == Slice.class) {
+            return type.getSlice(block, position);
+        }
+        throw new IllegalArgumentException("Unsupported type: " + type);
+    }
 }
@@ -25,12 +25,14 @@ import com.facebook.presto.spi.ConnectorFactory;
 import com.facebook.presto.spi.ConnectorHandleResolver;
 import com.facebook.presto.spi.ConnectorIndexResolver;
 import com.facebook.presto.spi.ConnectorMetadata;
+import com.facebook.presto.spi.ConnectorPageSourceProvider;
 import com.facebook.presto.spi.ConnectorRecordSetProvider;
 import com.facebook.presto.spi.ConnectorRecordSinkProvider;
 import com.facebook.presto.spi.ConnectorSplitManager;
 import com.facebook.presto.spi.NodeManager;
 import com.facebook.presto.split.ConnectorDataStreamProvider;
 import com.facebook.presto.split.DataStreamManager;
+import com.facebook.presto.split.PageSourceDataStreamProvider;
 import com.facebook.presto.split.RecordSetDataStreamProvider;
 import com.facebook.presto.split.SplitManager;
 import com.google.inject.Inject;
@@ -144,6 +146,19 @@ public class ConnectorManager
             }
         }
 
+        if (connectorDataStreamProvider == null) {
+            ConnectorPageSourceProvider connectorPageSourceProvider = null;
+            try {
+                connectorPageSourceProvider = connector.getPageSourceProvider();
+                checkNotNull(connectorPageSourceProvider, "Connector %s returned a null page source provider", connectorId);
+            }
+            catch (UnsupportedOperationException ignored) {
+            }
+            if (connectorPageSourceProvider != null) {
+                connectorDataStreamProvider = new PageSourceDataStreamProvider(connectorPageSourceProvider);
+            }
+        }
+
         if (connectorDataStreamProvider == null) {
             ConnectorRecordSetProvider connectorRecordSetProvider = null;
             try {
@@ -18,6 +18,7 @@ import com.facebook.presto.spi.ConnectorFactory;
 import com.facebook.presto.spi.ConnectorHandleResolver;
 import com.facebook.presto.spi.ConnectorIndexResolver;
 import com.facebook.presto.spi.ConnectorMetadata;
+import com.facebook.presto.spi.ConnectorPageSourceProvider;
 import com.facebook.presto.spi.ConnectorRecordSetProvider;
 import com.facebook.presto.spi.ConnectorRecordSinkProvider;
 import com.facebook.presto.spi.ConnectorSplitManager;
@@ -78,6 +79,12 @@ public class JmxConnectorFactory
                 return new JmxRecordSetProvider(mbeanServer, nodeManager);
             }
 
+            @Override
+            public ConnectorPageSourceProvider getPageSourceProvider()
+            {
+                throw new UnsupportedOperationException();
+            }
+
             @Override
             public ConnectorRecordSinkProvider getRecordSinkProvider()
             {
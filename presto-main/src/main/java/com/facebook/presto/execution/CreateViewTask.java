@@ -21,6 +21,7 @@ import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.sql.analyzer.Analysis;
 import com.facebook.presto.sql.analyzer.Analyzer;
 import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.facebook.presto.sql.analyzer.FeaturesConfig.JoinDistributionType;
 import com.facebook.presto.sql.analyzer.Field;
 import com.facebook.presto.sql.analyzer.QueryExplainer;
 import com.facebook.presto.sql.parser.ParsingException;
@@ -34,6 +35,7 @@ import com.google.common.base.Optional;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 import io.airlift.json.JsonCodec;
+import io.airlift.units.DataSize;
 
 import javax.inject.Inject;
 
@@ -53,6 +55,9 @@ public class CreateViewTask
     private final List<PlanOptimizer> planOptimizers;
     private final boolean experimentalSyntaxEnabled;
     private final boolean distributedIndexJoinsEnabled;
+    private final boolean colocatedJoinsEnabled;
+    private final JoinDistributionType joinDistributionType;
+    private final Optional<DataSize> broadcastJoinMaxSize;
 
     @Inject
     public CreateViewTask(JsonCodec<ViewDefinition> codec, SqlParser sqlParser, List<PlanOptimizer> planOptimizers, FeaturesConfig featuresConfig)
@@ -63,6 +68,9 @@ public class CreateViewTask
         checkNotNull(featuresConfig, "featuresConfig is null");
         this.experimentalSyntaxEnabled = featuresConfig.isExperimentalSyntaxEnabled();
         this.distributedIndexJoinsEnabled = featuresConfig.isDistributedIndexJoinsEnabled();
+        this.colocatedJoinsEnabled = featuresConfig.isColocatedJoinsEnabled();
+        this.joinDistributionType = featuresConfig.getJoinDistributionType();
+        this.broadcastJoinMaxSize = Optional.fromNullable(featuresConfig.getBroadcastJoinMaxSize());
     }
 
     @Override
@@ -84,7 +92,7 @@ public class CreateViewTask
 
     public Analysis analyzeStatement(Statement statement, ConnectorSession session, Metadata metadata)
     {
-        QueryExplainer explainer = new QueryExplainer(session, planOptimizers, metadata, sqlParser, experimentalSyntaxEnabled, distributedIndexJoinsEnabled);
+        QueryExplainer explainer = new QueryExplainer(session, planOptimizers, metadata, sqlParser, experimentalSyntaxEnabled, distributedIndexJoinsEnabled, colocatedJoinsEnabled, joinDistributionType, broadcastJoinMaxSize);
         Analyzer analyzer = new Analyzer(session, metadata, sqlParser, Optional.of(explainer), experimentalSyntaxEnabled);
         return analyzer.analyze(statement);
     }
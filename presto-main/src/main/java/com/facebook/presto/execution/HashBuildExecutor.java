@@ -0,0 +1,76 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import io.airlift.concurrent.ThreadPoolExecutorMBean;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+
+/**
+ * Node-wide pool for the partitions of parallel hash builds.  The pool has a fixed
+ * number of threads shared by all tasks, so concurrent hash builds queue for a thread
+ * instead of growing the pool, and the drivers that start them are not held while
+ * the partitions are built.
+ */
+@ThreadSafe
+public class HashBuildExecutor
+        implements Executor
+{
+    private final ExecutorService executor;
+    private final ThreadPoolExecutorMBean executorMBean;
+
+    @Inject
+    public HashBuildExecutor(TaskManagerConfig config)
+    {
+        this(config.getHashBuildThreads());
+    }
+
+    public HashBuildExecutor(int threads)
+    {
+        checkArgument(threads > 0, "threads must be at least 1");
+        this.executor = newFixedThreadPool(threads, daemonThreadsNamed("hash-build-%d"));
+        this.executorMBean = new ThreadPoolExecutorMBean((ThreadPoolExecutor) executor);
+    }
+
+    @Override
+    public void execute(Runnable command)
+    {
+        executor.execute(command);
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        executor.shutdownNow();
+    }
+
+    @Managed
+    @Nested
+    public ThreadPoolExecutorMBean getExecutor()
+    {
+        return executorMBean;
+    }
+}
@@ -206,8 +206,11 @@ public class NodeScheduler
 
             for (Split split : splits) {
                 List<Node> candidateNodes;
+                List<Node> exactNodes = ImmutableList.of();
                 if (locationAwareScheduling) {
-                    candidateNodes = selectCandidateNodes(nodeMap.get().get(), split);
+                    NodeMap currentNodeMap = nodeMap.get().get();
+                    candidateNodes = selectCandidateNodes(currentNodeMap, split);
+                    exactNodes = selectExactNodes(currentNodeMap, split);
                 }
                 else {
                     candidateNodes = selectRandomNodes(minCandidates);
@@ -220,19 +223,15 @@ public class NodeScheduler
                         splitCountByNode.put(node, nodeTaskMap.getPartitionedSplitsOnNode(node));
                     }
                 }
-                Node chosenNode = null;
-                int min = Integer.MAX_VALUE;
 
-                for (Node node : candidateNodes) {
-                    int assignedSplitCount = assignmentCount.containsKey(node) ? assignmentCount.get(node) : 0;
-                    int totalSplitCount = assignedSplitCount + splitCountByNode.get(node);
-
-                    if (totalSplitCount < min && totalSplitCount < maxSplitsPerNode) {
-                        chosenNode = node;
-                        min = totalSplitCount;
-                    }
+                // nodes named by host and port in the hints, e.g. because they cache the data of the split,
+                // are preferred over less loaded candidates as long as they are not full
+                Node chosenNode = selectLeastLoadedNode(exactNodes, assignmentCount, splitCountByNode);
+                if (chosenNode == null) {
+                    chosenNode = selectLeastLoadedNode(candidateNodes, assignmentCount, splitCountByNode);
                 }
                 if (chosenNode == null) {
+                    int min = Integer.MAX_VALUE;
                     for (Node node : candidateNodes) {
                         int assignedSplitCount = assignmentCount.containsKey(node) ? assignmentCount.get(node) : 0;
                         RemoteTask remoteTask = taskMap.get(node);
@@ -253,6 +252,34 @@ public class NodeScheduler
             return assignment;
         }
 
+        private Node selectLeastLoadedNode(List<Node> nodes, Map<Node, Integer> assignmentCount, Map<Node, Integer> splitCountByNode)
+        {
+            Node chosenNode = null;
+            int min = Integer.MAX_VALUE;
+
+            for (Node node : nodes) {
+                int assignedSplitCount = assignmentCount.containsKey(node) ? assignmentCount.get(node) : 0;
+                int totalSplitCount = assignedSplitCount + splitCountByNode.get(node);
+
+                if (totalSplitCount < min && totalSplitCount < maxSplitsPerNode) {
+                    chosenNode = node;
+                    min = totalSplitCount;
+                }
+            }
+            return chosenNode;
+        }
+
+        private List<Node> selectExactNodes(NodeMap nodeMap, Split split)
+        {
+            ImmutableList.Builder<Node> nodes = ImmutableList.builder();
+            for (HostAddress hint : split.getAddresses()) {
+                if (hint.hasPort()) {
+                    nodes.addAll(nodeMap.getNodesByHostAndPort().get(hint));
+                }
+            }
+            return nodes.build();
+        }
+
         private List<Node> selectCandidateNodes(NodeMap nodeMap, Split split)
         {
             Set<Node> chosen = new LinkedHashSet<>(minCandidates);
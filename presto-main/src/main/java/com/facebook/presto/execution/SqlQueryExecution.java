@@ -22,6 +22,7 @@ import com.facebook.presto.split.SplitManager;
 import com.facebook.presto.sql.analyzer.Analysis;
 import com.facebook.presto.sql.analyzer.Analyzer;
 import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.facebook.presto.sql.analyzer.FeaturesConfig.JoinDistributionType;
 import com.facebook.presto.sql.analyzer.QueryExplainer;
 import com.facebook.presto.sql.parser.SqlParser;
 import com.facebook.presto.sql.planner.DistributedExecutionPlanner;
@@ -38,6 +39,7 @@ import com.facebook.presto.util.SetThreadName;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
+import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 
 import javax.annotation.concurrent.ThreadSafe;
@@ -75,6 +77,9 @@ public class SqlQueryExecution
     private final int initialHashPartitions;
     private final boolean experimentalSyntaxEnabled;
     private final boolean distributedIndexJoinsEnabled;
+    private final boolean colocatedJoinsEnabled;
+    private final JoinDistributionType joinDistributionType;
+    private final Optional<DataSize> broadcastJoinMaxSize;
     private final ExecutorService queryExecutor;
 
     private final QueryExplainer queryExplainer;
@@ -98,6 +103,9 @@ public class SqlQueryExecution
             int initialHashPartitions,
             boolean experimentalSyntaxEnabled,
             boolean distributedIndexJoinsEnabled,
+            boolean colocatedJoinsEnabled,
+            JoinDistributionType joinDistributionType,
+            Optional<DataSize> broadcastJoinMaxSize,
             ExecutorService queryExecutor,
             NodeTaskMap nodeTaskMap)
     {
@@ -114,6 +122,9 @@ public class SqlQueryExecution
             this.queryExecutor = checkNotNull(queryExecutor, "queryExecutor is null");
             this.experimentalSyntaxEnabled = experimentalSyntaxEnabled;
             this.distributedIndexJoinsEnabled = distributedIndexJoinsEnabled;
+            this.colocatedJoinsEnabled = colocatedJoinsEnabled;
+            this.joinDistributionType = checkNotNull(joinDistributionType, "joinDistributionType is null");
+            this.broadcastJoinMaxSize = checkNotNull(broadcastJoinMaxSize, "broadcastJoinMaxSize is null");
             this.nodeTaskMap = checkNotNull(nodeTaskMap, "nodeTaskMap is null");
 
             checkArgument(maxPendingSplitsPerNode > 0, "scheduleSplitBatchSize must be greater than 0");
@@ -128,7 +139,7 @@ public class SqlQueryExecution
             checkNotNull(self, "self is null");
             this.stateMachine = new QueryStateMachine(queryId, query, session, self, queryExecutor);
 
-            this.queryExplainer = new QueryExplainer(session, planOptimizers, metadata, sqlParser, experimentalSyntaxEnabled, distributedIndexJoinsEnabled);
+            this.queryExplainer = new QueryExplainer(session, planOptimizers, metadata, sqlParser, experimentalSyntaxEnabled, distributedIndexJoinsEnabled, colocatedJoinsEnabled, joinDistributionType, broadcastJoinMaxSize);
         }
     }
 
@@ -208,7 +219,7 @@ public class SqlQueryExecution
         stateMachine.setInputs(inputs);
 
         // fragment the plan
-        SubPlan subplan = new DistributedLogicalPlanner(session, metadata, idAllocator).createSubPlans(plan, false, distributedIndexJoinsEnabled);
+        SubPlan subplan = new DistributedLogicalPlanner(session, metadata, idAllocator).createSubPlans(plan, false, distributedIndexJoinsEnabled, colocatedJoinsEnabled, joinDistributionType, broadcastJoinMaxSize);
 
         stateMachine.recordAnalysisTime(analysisStart);
         return subplan;
@@ -388,6 +399,9 @@ public class SqlQueryExecution
         private final int initialHashPartitions;
         private final boolean experimentalSyntaxEnabled;
         private final boolean distributedIndexJoinsEnabled;
+        private final boolean colocatedJoinsEnabled;
+    private final JoinDistributionType joinDistributionType;
+    private final Optional<DataSize> broadcastJoinMaxSize;
         private final Metadata metadata;
         private final SqlParser sqlParser;
         private final SplitManager splitManager;
@@ -425,6 +439,9 @@ public class SqlQueryExecution
             checkNotNull(featuresConfig, "featuresConfig is null");
             this.experimentalSyntaxEnabled = featuresConfig.isExperimentalSyntaxEnabled();
             this.distributedIndexJoinsEnabled = featuresConfig.isDistributedIndexJoinsEnabled();
+            this.colocatedJoinsEnabled = featuresConfig.isColocatedJoinsEnabled();
+            this.joinDistributionType = featuresConfig.getJoinDistributionType();
+            this.broadcastJoinMaxSize = Optional.fromNullable(featuresConfig.getBroadcastJoinMaxSize());
             this.executor = checkNotNull(executor, "executor is null");
             this.nodeTaskMap = checkNotNull(nodeTaskMap, "nodeTaskMap is null");
         }
@@ -449,6 +466,9 @@ public class SqlQueryExecution
                     initialHashPartitions,
                     experimentalSyntaxEnabled,
                     distributedIndexJoinsEnabled,
+                    colocatedJoinsEnabled,
+                    joinDistributionType,
+                    broadcastJoinMaxSize,
                     executor,
                     nodeTaskMap);
 
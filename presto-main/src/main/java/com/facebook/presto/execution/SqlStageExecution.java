@@ -21,7 +21,9 @@ import com.facebook.presto.execution.NodeScheduler.NodeSelector;
 import com.facebook.presto.execution.StateMachine.StateChangeListener;
 import com.facebook.presto.metadata.Split;
 import com.facebook.presto.operator.TaskStats;
+import com.facebook.presto.spi.ConnectorBucketedSplit;
 import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.ConnectorSplit;
 import com.facebook.presto.spi.Node;
 import com.facebook.presto.split.RemoteSplit;
 import com.facebook.presto.sql.planner.PlanFragment;
@@ -39,6 +41,7 @@ import com.google.common.base.Function;
 import com.google.common.base.Objects;
 import com.google.common.base.Optional;
 import com.google.common.base.Throwables;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
@@ -56,6 +59,7 @@ import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
@@ -74,6 +78,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import static com.facebook.presto.OutputBuffers.INITIAL_EMPTY_OUTPUT_BUFFERS;
 import static com.facebook.presto.execution.StageInfo.stageStateGetter;
 import static com.facebook.presto.execution.TaskInfo.taskStateGetter;
+import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
 import static com.facebook.presto.spi.StandardErrorCode.NO_NODES_AVAILABLE;
 import static com.facebook.presto.util.Failures.checkCondition;
 import static com.facebook.presto.util.Failures.toFailures;
@@ -109,6 +114,7 @@ public class SqlStageExecution
     private final ConcurrentMap<Node, RemoteTask> tasks = new ConcurrentHashMap<>();
 
     private final Optional<SplitSource> dataSource;
+    private final Map<PlanNodeId, SplitSource> bucketedDataSources;
     private final RemoteTaskFactory remoteTaskFactory;
     private final ConnectorSession session; // only used for remote task factory
     private final int splitBatchSize;
@@ -199,6 +205,7 @@ public class SqlStageExecution
             this.location = locationFactory.createStageLocation(stageId);
             this.fragment = plan.getFragment();
             this.dataSource = plan.getDataSource();
+            this.bucketedDataSources = plan.getBucketedDataSources();
             this.remoteTaskFactory = remoteTaskFactory;
             this.session = session;
             this.splitBatchSize = splitBatchSize;
@@ -410,7 +417,7 @@ public class SqlStageExecution
             ImmutableMap.Builder<String, PagePartitionFunction> buffers = ImmutableMap.builder();
             for (int nodeIndex = 0; nodeIndex < parentNodes.size(); nodeIndex++) {
                 Node node = parentNodes.get(nodeIndex);
-                buffers.put(node.getNodeIdentifier(), new HashPagePartitionFunction(nodeIndex, parentNodes.size(), fragment.getPartitioningChannels(), fragment.getTypes()));
+                buffers.put(node.getNodeIdentifier(), new HashPagePartitionFunction(nodeIndex, parentNodes.size(), fragment.getPartitioningChannels(), fragment.getPartitionHashChannel(), fragment.getTypes()));
             }
 
             newOutputBuffers = startingOutputBuffers
@@ -553,6 +560,9 @@ public class SqlStageExecution
                 else if (fragment.getDistribution() == PlanDistribution.SOURCE) {
                     scheduleSourcePartitionedNodes();
                 }
+                else if (fragment.getDistribution() == PlanDistribution.BUCKETED) {
+                    scheduleBucketedNodes();
+                }
                 else if (fragment.getDistribution() == PlanDistribution.COORDINATOR_ONLY) {
                     scheduleOnCurrentNode();
                 }
@@ -655,6 +665,66 @@ public class SqlStageExecution
         setNoMoreStageNodes();
     }
 
+    private void scheduleBucketedNodes()
+            throws InterruptedException
+    {
+        // create tasks on random nodes, like a fixed distribution
+        List<Node> nodes = nodeSelector.selectRandomNodes(initialHashPartitions);
+        checkCondition(!nodes.isEmpty(), NO_NODES_AVAILABLE, "No worker nodes available");
+        List<RemoteTask> bucketTasks = new ArrayList<>();
+        for (int taskId = 0; taskId < nodes.size(); taskId++) {
+            bucketTasks.add(scheduleTask(taskId, nodes.get(taskId)));
+        }
+
+        // tell sub stages about all nodes and that there will not be more nodes
+        for (StageExecutionNode subStage : subStages.values()) {
+            subStage.parentNodesAdded(nodes, true);
+        }
+
+        // bucket N of every table goes to the same task, so the rows that can match are processed together
+        for (Entry<PlanNodeId, SplitSource> entry : bucketedDataSources.entrySet()) {
+            PlanNodeId sourceId = entry.getKey();
+            try (SplitSource splitSource = entry.getValue()) {
+                while (!splitSource.isFinished()) {
+                    // if query has been canceled, exit cleanly; query will never run regardless
+                    if (getState().isDone()) {
+                        break;
+                    }
+
+                    long start = System.nanoTime();
+                    List<Split> splits = splitSource.getNextBatch(splitBatchSize);
+                    getSplitDistribution.add(System.nanoTime() - start);
+
+                    long scheduleSplitStart = System.nanoTime();
+                    Multimap<RemoteTask, Split> splitAssignment = ArrayListMultimap.create();
+                    for (Split split : splits) {
+                        splitAssignment.put(bucketTasks.get(getBucket(split) % bucketTasks.size()), split);
+                    }
+                    for (Entry<RemoteTask, Collection<Split>> taskSplits : splitAssignment.asMap().entrySet()) {
+                        taskSplits.getKey().addSplits(sourceId, taskSplits.getValue());
+                    }
+                    addSplitDistribution.add(System.nanoTime() - scheduleSplitStart);
+                }
+            }
+
+            for (RemoteTask task : bucketTasks) {
+                task.noMoreSplits(sourceId);
+            }
+            completeSources.add(sourceId);
+        }
+    }
+
+    private static int getBucket(Split split)
+    {
+        ConnectorSplit connectorSplit = split.getConnectorSplit();
+        int bucket = ConnectorBucketedSplit.UNKNOWN_BUCKET;
+        if (connectorSplit instanceof ConnectorBucketedSplit) {
+            bucket = ((ConnectorBucketedSplit) connectorSplit).getBucket();
+        }
+        checkCondition(bucket >= 0, NOT_SUPPORTED, "Split %s of a bucketed table does not belong to a single bucket", connectorSplit);
+        return bucket;
+    }
+
     private void assignSplits(AtomicInteger nextTaskId, Multimap<Node, Split> splitAssignment)
     {
         for (Entry<Node, Collection<Split>> taskSplits : splitAssignment.asMap().entrySet()) {
@@ -34,7 +34,9 @@ import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.util.SetThreadName;
 import com.google.common.base.Objects;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -59,6 +61,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static java.lang.Math.max;
 
 public class SqlTaskExecution
@@ -89,8 +92,7 @@ public class SqlTaskExecution
     @GuardedBy("this")
     private long maxAcknowledgedSplit = Long.MIN_VALUE;
 
-    private final PlanNodeId partitionedSourceId;
-    private final DriverSplitRunnerFactory partitionedDriverFactory;
+    private final Map<PlanNodeId, DriverSplitRunnerFactory> partitionedDriverFactories;
 
     private final List<DriverSplitRunnerFactory> unpartitionedDriverFactories;
 
@@ -141,28 +143,29 @@ public class SqlTaskExecution
         this.queryMonitor = checkNotNull(queryMonitor, "queryMonitor is null");
 
         try (SetThreadName ignored = new SetThreadName("Task-%s", taskId)) {
-            LocalExecutionPlan localExecutionPlan = planner.plan(taskContext.getSession(), fragment.getRoot(), fragment.getSymbols(), new TaskOutputFactory(sharedBuffer));
+            LocalExecutionPlan localExecutionPlan = planner.plan(taskContext.getSession(), fragment.getRoot(), fragment.getSymbols(), new TaskOutputFactory(sharedBuffer), fragment.getPartitionedSources());
             List<DriverFactory> driverFactories = localExecutionPlan.getDriverFactories();
 
             // index driver factories
-            DriverSplitRunnerFactory partitionedDriverFactory = null;
+            ImmutableMap.Builder<PlanNodeId, DriverSplitRunnerFactory> partitionedDriverFactories = ImmutableMap.builder();
             ImmutableList.Builder<DriverSplitRunnerFactory> unpartitionedDriverFactories = ImmutableList.builder();
             for (DriverFactory driverFactory : driverFactories) {
-                if (driverFactory.getSourceIds().contains(fragment.getPartitionedSource())) {
-                    checkState(partitionedDriverFactory == null, "multiple partitioned sources are not supported");
-                    partitionedDriverFactory = new DriverSplitRunnerFactory(driverFactory);
+                Set<PlanNodeId> partitionedSources = Sets.intersection(driverFactory.getSourceIds(), fragment.getPartitionedSources());
+                if (!partitionedSources.isEmpty()) {
+                    checkState(partitionedSources.size() == 1, "a driver can not read multiple partitioned sources");
+                    PlanNodeId partitionedSourceId = getOnlyElement(partitionedSources);
+                    partitionedDriverFactories.put(partitionedSourceId, new DriverSplitRunnerFactory(driverFactory, partitionedSourceId));
                 }
                 else {
-                    unpartitionedDriverFactories.add(new DriverSplitRunnerFactory(driverFactory));
+                    unpartitionedDriverFactories.add(new DriverSplitRunnerFactory(driverFactory, null));
                 }
             }
             this.unpartitionedDriverFactories = unpartitionedDriverFactories.build();
+            this.partitionedDriverFactories = partitionedDriverFactories.build();
 
-            if (fragment.getDistribution() == PlanDistribution.SOURCE) {
-                checkArgument(partitionedDriverFactory != null, "Fragment is partitioned, but no partitioned driver found");
+            if (fragment.getDistribution() == PlanDistribution.SOURCE || fragment.getDistribution() == PlanDistribution.BUCKETED) {
+                checkArgument(this.partitionedDriverFactories.keySet().equals(fragment.getPartitionedSources()), "Fragment is partitioned, but no partitioned driver found");
             }
-            this.partitionedSourceId = fragment.getPartitionedSource();
-            this.partitionedDriverFactory = partitionedDriverFactory;
 
             taskHandle = taskExecutor.addTask(taskId);
 
@@ -180,7 +183,9 @@ public class SqlTaskExecution
         // start unpartitioned drivers
         List<DriverSplitRunner> runners = new ArrayList<>();
         for (DriverSplitRunnerFactory driverFactory : unpartitionedDriverFactories) {
-            runners.add(driverFactory.createDriverRunner(null, false));
+            for (int i = 0; i < driverFactory.getDriverInstances(); i++) {
+                runners.add(driverFactory.createDriverRunner(null, false));
+            }
             driverFactory.setNoMoreSplits();
         }
         enqueueDrivers(true, runners);
@@ -239,7 +244,8 @@ public class SqlTaskExecution
 
         for (TaskSource source : sources) {
             PlanNodeId sourceId = source.getPlanNodeId();
-            if (sourceId.equals(partitionedSourceId)) {
+            DriverSplitRunnerFactory partitionedDriverFactory = partitionedDriverFactories.get(sourceId);
+            if (partitionedDriverFactory != null) {
                 // partitioned split
                 ImmutableList.Builder<DriverSplitRunner> runners = ImmutableList.builder();
                 for (ScheduledSplit scheduledSplit : source.getSplits()) {
@@ -349,8 +355,10 @@ public class SqlTaskExecution
     public Set<PlanNodeId> getNoMoreSplits()
     {
         ImmutableSet.Builder<PlanNodeId> noMoreSplits = ImmutableSet.builder();
-        if (partitionedDriverFactory != null && partitionedDriverFactory.isNoMoreSplits()) {
-            noMoreSplits.add(partitionedSourceId);
+        for (Map.Entry<PlanNodeId, DriverSplitRunnerFactory> entry : partitionedDriverFactories.entrySet()) {
+            if (entry.getValue().isNoMoreSplits()) {
+                noMoreSplits.add(entry.getKey());
+            }
         }
         for (TaskSource taskSource : unpartitionedSources.values()) {
             if (taskSource.isNoMoreSplits()) {
@@ -367,8 +375,10 @@ public class SqlTaskExecution
         }
 
         // are there more partition splits expected?
-        if (partitionedDriverFactory != null && !partitionedDriverFactory.isNoMoreSplits()) {
-            return;
+        for (DriverSplitRunnerFactory partitionedDriverFactory : partitionedDriverFactories.values()) {
+            if (!partitionedDriverFactory.isNoMoreSplits()) {
+                return;
+            }
         }
         // do we still have running tasks?
         if (remainingDrivers.get() != 0) {
@@ -414,14 +424,17 @@ public class SqlTaskExecution
     private class DriverSplitRunnerFactory
     {
         private final DriverFactory driverFactory;
+        @Nullable
+        private final PlanNodeId partitionedSourceId;
         private final PipelineContext pipelineContext;
 
         private final AtomicInteger pendingCreation = new AtomicInteger();
         private final AtomicBoolean noMoreSplits = new AtomicBoolean();
 
-        private DriverSplitRunnerFactory(DriverFactory driverFactory)
+        private DriverSplitRunnerFactory(DriverFactory driverFactory, @Nullable PlanNodeId partitionedSourceId)
         {
             this.driverFactory = driverFactory;
+            this.partitionedSourceId = partitionedSourceId;
             this.pipelineContext = taskContext.addPipelineContext(driverFactory.isInputDriver(), driverFactory.isOutputDriver());
         }
 
@@ -458,6 +471,11 @@ public class SqlTaskExecution
             return driver;
         }
 
+        private int getDriverInstances()
+        {
+            return driverFactory.getDriverInstances();
+        }
+
         private boolean isNoMoreSplits()
         {
             return noMoreSplits.get();
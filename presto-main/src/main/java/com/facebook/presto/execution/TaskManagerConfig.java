@@ -22,6 +22,7 @@ import io.airlift.units.MinDuration;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
+import java.nio.file.Paths;
 import java.util.concurrent.TimeUnit;
 
 public class TaskManagerConfig
@@ -31,6 +32,15 @@ public class TaskManagerConfig
     private DataSize operatorPreAllocatedMemory = new DataSize(16, Unit.MEGABYTE);
     private DataSize maxTaskIndexMemoryUsage = new DataSize(64, Unit.MEGABYTE);
     private int maxShardProcessorThreads = Runtime.getRuntime().availableProcessors() * 4;
+    private int taskConcurrency = 1;
+    private int hashBuildConcurrency = 1;
+    private int hashBuildThreads = Runtime.getRuntime().availableProcessors();
+    private int writerCount = 1;
+
+    private boolean spillEnabled;
+    private boolean dynamicFilteringEnabled;
+    private int dynamicFilteringMaxValues = 10_000;
+    private String spillPath = Paths.get(System.getProperty("java.io.tmpdir"), "presto", "spill").toString();
 
     private DataSize sinkMaxBufferSize = new DataSize(32, Unit.MEGABYTE);
 
@@ -101,6 +111,108 @@ public class TaskManagerConfig
         return this;
     }
 
+    @Min(1)
+    public int getTaskConcurrency()
+    {
+        return taskConcurrency;
+    }
+
+    @Config("task.concurrency")
+    public TaskManagerConfig setTaskConcurrency(int taskConcurrency)
+    {
+        this.taskConcurrency = taskConcurrency;
+        return this;
+    }
+
+    @Min(1)
+    public int getHashBuildConcurrency()
+    {
+        return hashBuildConcurrency;
+    }
+
+    @Config("task.hash-build-concurrency")
+    public TaskManagerConfig setHashBuildConcurrency(int hashBuildConcurrency)
+    {
+        this.hashBuildConcurrency = hashBuildConcurrency;
+        return this;
+    }
+
+    @Min(1)
+    public int getHashBuildThreads()
+    {
+        return hashBuildThreads;
+    }
+
+    @Config("task.hash-build-threads")
+    public TaskManagerConfig setHashBuildThreads(int hashBuildThreads)
+    {
+        this.hashBuildThreads = hashBuildThreads;
+        return this;
+    }
+
+    @Min(1)
+    public int getWriterCount()
+    {
+        return writerCount;
+    }
+
+    @Config("task.writer-count")
+    public TaskManagerConfig setWriterCount(int writerCount)
+    {
+        this.writerCount = writerCount;
+        return this;
+    }
+
+    public boolean isSpillEnabled()
+    {
+        return spillEnabled;
+    }
+
+    @Config("task.spill-enabled")
+    public TaskManagerConfig setSpillEnabled(boolean spillEnabled)
+    {
+        this.spillEnabled = spillEnabled;
+        return this;
+    }
+
+    public boolean isDynamicFilteringEnabled()
+    {
+        return dynamicFilteringEnabled;
+    }
+
+    @Config("task.dynamic-filtering-enabled")
+    public TaskManagerConfig setDynamicFilteringEnabled(boolean dynamicFilteringEnabled)
+    {
+        this.dynamicFilteringEnabled = dynamicFilteringEnabled;
+        return this;
+    }
+
+    @Min(0)
+    public int getDynamicFilteringMaxValues()
+    {
+        return dynamicFilteringMaxValues;
+    }
+
+    @Config("task.dynamic-filtering-max-values")
+    public TaskManagerConfig setDynamicFilteringMaxValues(int dynamicFilteringMaxValues)
+    {
+        this.dynamicFilteringMaxValues = dynamicFilteringMaxValues;
+        return this;
+    }
+
+    @NotNull
+    public String getSpillPath()
+    {
+        return spillPath;
+    }
+
+    @Config("task.spill-path")
+    public TaskManagerConfig setSpillPath(String spillPath)
+    {
+        this.spillPath = spillPath;
+        return this;
+    }
+
     @NotNull
     public DataSize getSinkMaxBufferSize()
     {
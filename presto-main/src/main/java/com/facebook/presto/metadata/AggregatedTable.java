@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.metadata;
+
+import com.facebook.presto.spi.ConnectorAggregatedTable;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+import static com.facebook.presto.metadata.ColumnHandle.fromConnectorHandle;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Iterables.transform;
+
+public final class AggregatedTable
+{
+    private final TableHandle tableHandle;
+    private final List<ColumnHandle> groupingColumns;
+    private final List<ColumnHandle> aggregateColumns;
+
+    public AggregatedTable(String connectorId, ConnectorAggregatedTable aggregatedTable)
+    {
+        checkNotNull(connectorId, "connectorId is null");
+        checkNotNull(aggregatedTable, "aggregatedTable is null");
+
+        this.tableHandle = new TableHandle(connectorId, aggregatedTable.getTableHandle());
+        this.groupingColumns = ImmutableList.copyOf(transform(aggregatedTable.getGroupingColumns(), fromConnectorHandle(connectorId)));
+        this.aggregateColumns = ImmutableList.copyOf(transform(aggregatedTable.getAggregateColumns(), fromConnectorHandle(connectorId)));
+    }
+
+    public TableHandle getTableHandle()
+    {
+        return tableHandle;
+    }
+
+    public List<ColumnHandle> getGroupingColumns()
+    {
+        return groupingColumns;
+    }
+
+    public List<ColumnHandle> getAggregateColumns()
+    {
+        return aggregateColumns;
+    }
+
+    @Override
+    public String toString()
+    {
+        return Objects.toStringHelper(this)
+                .add("tableHandle", tableHandle)
+                .add("groupingColumns", groupingColumns)
+                .add("aggregateColumns", aggregateColumns)
+                .toString();
+    }
+}
@@ -14,7 +14,9 @@
 package com.facebook.presto.metadata;
 
 import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.ConnectorAggregate;
 import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.TupleDomain;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
 import com.facebook.presto.sql.tree.QualifiedName;
@@ -76,6 +78,42 @@ public interface Metadata
     @NotNull
     Optional<ColumnHandle> getSampleWeightColumnHandle(TableHandle tableHandle);
 
+    /**
+     * Returns how the rows of the table are bucketed, or absent if the table is not bucketed.
+     *
+     * @throws RuntimeException if the table handle is no longer valid
+     */
+    @NotNull
+    Optional<TablePartitioning> getTablePartitioning(TableHandle tableHandle);
+
+    /**
+     * Returns estimated statistics for the specified partitions of the table, or for the
+     * entire table if the partitions are absent.
+     *
+     * @throws RuntimeException if the table handle is no longer valid
+     */
+    @NotNull
+    TableStatistics getTableStatistics(TableHandle tableHandle, Optional<List<Partition>> partitions);
+
+    /**
+     * Offers the connector the aggregation of the rows of the table that match the constraint.
+     * The aggregates must refer to columns of the table.
+     *
+     * @return the table of partial aggregates computed for each split, or absent if the connector can not compute them
+     * @throws RuntimeException if the table handle is no longer valid
+     */
+    @NotNull
+    Optional<AggregatedTable> pushDownAggregation(TableHandle tableHandle, TupleDomain<ColumnHandle> constraint, List<ColumnHandle> groupingColumns, List<ConnectorAggregate> aggregates);
+
+    /**
+     * Offers the connector a limit on the number of rows read from each split of the table.
+     *
+     * @return a handle for the limited table, or absent if the connector can not apply the limit
+     * @throws RuntimeException if the table handle is no longer valid
+     */
+    @NotNull
+    Optional<TableHandle> pushDownLimit(TableHandle tableHandle, long limit);
+
     /**
      * Returns true iff this catalog supports creation of sampled tables
      *
@@ -15,16 +15,22 @@ package com.facebook.presto.metadata;
 
 import com.facebook.presto.connector.informationSchema.InformationSchemaMetadata;
 import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.ConnectorAggregate;
+import com.facebook.presto.spi.ConnectorAggregatedTable;
 import com.facebook.presto.spi.ConnectorColumnHandle;
 import com.facebook.presto.spi.ConnectorInsertTableHandle;
 import com.facebook.presto.spi.ConnectorMetadata;
 import com.facebook.presto.spi.ConnectorOutputTableHandle;
+import com.facebook.presto.spi.ConnectorPartition;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorTableHandle;
 import com.facebook.presto.spi.ConnectorTableMetadata;
+import com.facebook.presto.spi.ConnectorTablePartitioning;
+import com.facebook.presto.spi.ConnectorTableStatistics;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.SchemaTablePrefix;
+import com.facebook.presto.spi.TupleDomain;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
 import com.facebook.presto.sql.analyzer.FeaturesConfig;
@@ -36,6 +42,7 @@ import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import io.airlift.json.JsonCodec;
@@ -58,6 +65,7 @@ import java.util.concurrent.ConcurrentMap;
 import static com.facebook.presto.metadata.ColumnHandle.fromConnectorHandle;
 import static com.facebook.presto.metadata.MetadataUtil.checkCatalogName;
 import static com.facebook.presto.metadata.QualifiedTableName.convertFromSchemaTableName;
+import static com.facebook.presto.metadata.Util.toConnectorDomain;
 import static com.facebook.presto.metadata.ViewDefinition.ViewColumn;
 import static com.facebook.presto.spi.StandardErrorCode.INVALID_VIEW;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_FOUND;
@@ -258,6 +266,67 @@ public class MetadataManager
         return Optional.of(new ColumnHandle(tableHandle.getConnectorId(), handle));
     }
 
+    @Override
+    public Optional<TablePartitioning> getTablePartitioning(TableHandle tableHandle)
+    {
+        checkNotNull(tableHandle, "tableHandle is null");
+        ConnectorTablePartitioning partitioning = lookupConnectorFor(tableHandle).getTablePartitioning(tableHandle.getConnectorHandle());
+
+        if (partitioning == null) {
+            return Optional.absent();
+        }
+
+        return Optional.of(new TablePartitioning(tableHandle.getConnectorId(), partitioning));
+    }
+
+    @Override
+    public TableStatistics getTableStatistics(TableHandle tableHandle, Optional<List<Partition>> partitions)
+    {
+        checkNotNull(tableHandle, "tableHandle is null");
+        checkNotNull(partitions, "partitions is null");
+
+        List<ConnectorPartition> connectorPartitions = null;
+        if (partitions.isPresent()) {
+            connectorPartitions = Lists.transform(partitions.get(), Partition.connectorPartitionGetter());
+        }
+        ConnectorTableStatistics statistics = lookupConnectorFor(tableHandle).getTableStatistics(tableHandle.getConnectorHandle(), connectorPartitions);
+        return new TableStatistics(tableHandle.getConnectorId(), statistics);
+    }
+
+    @Override
+    public Optional<AggregatedTable> pushDownAggregation(TableHandle tableHandle, TupleDomain<ColumnHandle> constraint, List<ColumnHandle> groupingColumns, List<ConnectorAggregate> aggregates)
+    {
+        checkNotNull(tableHandle, "tableHandle is null");
+        checkNotNull(constraint, "constraint is null");
+        checkNotNull(groupingColumns, "groupingColumns is null");
+        checkNotNull(aggregates, "aggregates is null");
+
+        ConnectorAggregatedTable aggregatedTable = lookupConnectorFor(tableHandle).pushDownAggregation(
+                tableHandle.getConnectorHandle(),
+                toConnectorDomain(constraint),
+                Lists.transform(groupingColumns, ColumnHandle.connectorHandleGetter()),
+                aggregates);
+
+        if (aggregatedTable == null) {
+            return Optional.absent();
+        }
+
+        return Optional.of(new AggregatedTable(tableHandle.getConnectorId(), aggregatedTable));
+    }
+
+    @Override
+    public Optional<TableHandle> pushDownLimit(TableHandle tableHandle, long limit)
+    {
+        checkNotNull(tableHandle, "tableHandle is null");
+        ConnectorTableHandle limitedTable = lookupConnectorFor(tableHandle).pushDownLimit(tableHandle.getConnectorHandle(), limit);
+
+        if (limitedTable == null) {
+            return Optional.absent();
+        }
+
+        return Optional.of(new TableHandle(tableHandle.getConnectorId(), limitedTable));
+    }
+
     @Override
     public boolean canCreateSampledTables(ConnectorSession session, String catalogName)
     {
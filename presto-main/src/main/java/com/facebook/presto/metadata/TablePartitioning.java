@@ -0,0 +1,83 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.metadata;
+
+import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.ConnectorTablePartitioning;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+public final class TablePartitioning
+{
+    private final String connectorId;
+    private final List<ColumnHandle> partitioningColumns;
+    private final String bucketFunction;
+    private final int bucketCount;
+
+    public TablePartitioning(String connectorId, ConnectorTablePartitioning partitioning)
+    {
+        this.connectorId = checkNotNull(connectorId, "connectorId is null");
+        checkNotNull(partitioning, "partitioning is null");
+
+        ImmutableList.Builder<ColumnHandle> columns = ImmutableList.builder();
+        for (ConnectorColumnHandle column : partitioning.getPartitioningColumns()) {
+            columns.add(new ColumnHandle(connectorId, column));
+        }
+        this.partitioningColumns = columns.build();
+        this.bucketFunction = partitioning.getBucketFunction();
+        this.bucketCount = partitioning.getBucketCount();
+    }
+
+    public String getConnectorId()
+    {
+        return connectorId;
+    }
+
+    public List<ColumnHandle> getPartitioningColumns()
+    {
+        return partitioningColumns;
+    }
+
+    public int getBucketCount()
+    {
+        return bucketCount;
+    }
+
+    /**
+     * Returns true if rows of both tables with equal values in the respective partitioning
+     * columns are always placed in the same bucket.
+     */
+    public boolean isCompatibleWith(TablePartitioning other)
+    {
+        return connectorId.equals(other.connectorId) &&
+                bucketFunction.equals(other.bucketFunction) &&
+                bucketCount == other.bucketCount &&
+                partitioningColumns.size() == other.partitioningColumns.size();
+    }
+
+    @Override
+    public String toString()
+    {
+        return Objects.toStringHelper(this)
+                .add("connectorId", connectorId)
+                .add("partitioningColumns", partitioningColumns)
+                .add("bucketFunction", bucketFunction)
+                .add("bucketCount", bucketCount)
+                .toString();
+    }
+}
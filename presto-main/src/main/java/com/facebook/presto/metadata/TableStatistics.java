@@ -0,0 +1,84 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.metadata;
+
+import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.ConnectorColumnStatistics;
+import com.facebook.presto.spi.ConnectorTableStatistics;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+public final class TableStatistics
+{
+    private final double rowCount;
+    private final double dataSize;
+    private final Map<ColumnHandle, ConnectorColumnStatistics> columnStatistics;
+
+    public TableStatistics(String connectorId, ConnectorTableStatistics statistics)
+    {
+        checkNotNull(connectorId, "connectorId is null");
+        checkNotNull(statistics, "statistics is null");
+
+        this.rowCount = statistics.getRowCount();
+        this.dataSize = statistics.getDataSize();
+
+        ImmutableMap.Builder<ColumnHandle, ConnectorColumnStatistics> columnStatistics = ImmutableMap.builder();
+        for (Map.Entry<ConnectorColumnHandle, ConnectorColumnStatistics> entry : statistics.getColumnStatistics().entrySet()) {
+            columnStatistics.put(new ColumnHandle(connectorId, entry.getKey()), entry.getValue());
+        }
+        this.columnStatistics = columnStatistics.build();
+    }
+
+    /**
+     * Returns the estimated number of rows, or NaN if unknown.
+     */
+    public double getRowCount()
+    {
+        return rowCount;
+    }
+
+    /**
+     * Returns the estimated size of the data as stored by the connector in bytes, or NaN if unknown.
+     */
+    public double getDataSize()
+    {
+        return dataSize;
+    }
+
+    /**
+     * Returns the estimated number of distinct non-null values of the column, or NaN if unknown.
+     */
+    public double getDistinctValuesCount(ColumnHandle column)
+    {
+        ConnectorColumnStatistics statistics = columnStatistics.get(column);
+        if (statistics == null) {
+            return Double.NaN;
+        }
+        return statistics.getDistinctValuesCount();
+    }
+
+    @Override
+    public String toString()
+    {
+        return Objects.toStringHelper(this)
+                .add("rowCount", rowCount)
+                .add("dataSize", dataSize)
+                .add("columnStatistics", columnStatistics)
+                .toString();
+    }
+}
@@ -13,10 +13,12 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
 
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -24,6 +26,7 @@ import java.util.List;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.units.DataSize.Unit.BYTE;
 
 public class AlignmentOperator
         implements Operator
@@ -140,7 +143,7 @@ public class AlignmentOperator
         }
 
         Page page = new Page(blocks);
-        operatorContext.recordGeneratedInput(page.getDataSize(), page.getPositionCount());
+        operatorContext.recordGeneratedInput(new DataSize(page.getSizeInBytes(), BYTE), page.getPositionCount());
         return page;
     }
 
@@ -0,0 +1,328 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.block.dictionary.DictionaryEncodedBlock;
+import com.facebook.presto.block.rle.RunLengthEncodedBlock;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.util.array.LongBigArray;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+import io.airlift.slice.Murmur3;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static it.unimi.dsi.fastutil.HashCommon.arraySize;
+import static it.unimi.dsi.fastutil.HashCommon.maxFill;
+
+/**
+ * Group by hash for a single key stored as a long (bigint, date or timestamp).  The keys
+ * are kept inline in the hash table, so lookups compare primitive longs instead of going
+ * through a {@link PagesHashStrategy}.
+ */
+// This implementation assumes arrays used in the hash are always a power of 2
+public class BigintGroupByHash
+        implements GroupByHash
+{
+    private static final float FILL_RATIO = 0.75f;
+
+    private final Type type;
+    private final int channel;
+    private final Optional<Integer> inputHashChannel;
+    private final List<Type> types;
+
+    private int maxFill;
+    private int mask;
+    private long[] values;
+    private int[] groupIds;
+
+    private int nullGroupId = -1;
+
+    private final LongBigArray valuesByGroupId;
+    // only used when the input has a precomputed hash, so it can be output with the groups
+    private final LongBigArray rawHashByGroupId;
+
+    private int nextGroupId;
+
+    public BigintGroupByHash(Type type, int channel, Optional<Integer> inputHashChannel, int expectedSize)
+    {
+        this.type = checkNotNull(type, "type is null");
+        checkArgument(type.getJavaType() == long.class, "type %s is not stored as a long", type);
+        checkArgument(channel >= 0, "channel is negative");
+        this.channel = channel;
+        this.inputHashChannel = checkNotNull(inputHashChannel, "inputHashChannel is null");
+
+        ImmutableList.Builder<Type> types = ImmutableList.<Type>builder().add(type);
+        if (inputHashChannel.isPresent()) {
+            types.add(BIGINT);
+        }
+        this.types = types.build();
+
+        int hashSize = arraySize(expectedSize, FILL_RATIO);
+        maxFill = maxFill(hashSize, FILL_RATIO);
+        mask = hashSize - 1;
+        values = new long[hashSize];
+        groupIds = new int[hashSize];
+        Arrays.fill(groupIds, -1);
+
+        valuesByGroupId = new LongBigArray();
+        valuesByGroupId.ensureCapacity(maxFill);
+        rawHashByGroupId = new LongBigArray();
+        if (inputHashChannel.isPresent()) {
+            rawHashByGroupId.ensureCapacity(maxFill);
+        }
+    }
+
+    @Override
+    public long getEstimatedSize()
+    {
+        return sizeOf(values) +
+                sizeOf(groupIds) +
+                valuesByGroupId.sizeOf() +
+                rawHashByGroupId.sizeOf();
+    }
+
+    @Override
+    public List<Type> getTypes()
+    {
+        return types;
+    }
+
+    @Override
+    public int getGroupCount()
+    {
+        return nextGroupId;
+    }
+
+    @Override
+    public void appendValuesTo(int groupId, PageBuilder pageBuilder, int outputChannelOffset)
+    {
+        BlockBuilder blockBuilder = pageBuilder.getBlockBuilder(outputChannelOffset);
+        if (groupId == nullGroupId) {
+            blockBuilder.appendNull();
+        }
+        else {
+            type.writeLong(blockBuilder, valuesByGroupId.get(groupId));
+        }
+
+        if (inputHashChannel.isPresent()) {
+            BIGINT.writeLong(pageBuilder.getBlockBuilder(outputChannelOffset + 1), rawHashByGroupId.get(groupId));
+        }
+    }
+
+    @Override
+    public GroupByIdBlock getGroupIds(Page page)
+    {
+        int positionCount = page.getPositionCount();
+
+        Block block = page.getBlock(channel);
+        Block hashBlock = null;
+        if (inputHashChannel.isPresent()) {
+            hashBlock = page.getBlock(inputHashChannel.get());
+        }
+
+        if (block instanceof RunLengthEncodedBlock) {
+            // all rows of the page are in the same group
+            BlockBuilder blockBuilder = BIGINT.createFixedSizeBlockBuilder(1);
+            BIGINT.writeLong(blockBuilder, putIfAbsent(0, ((RunLengthEncodedBlock) block).getValue(), getRawHash(hashBlock, 0)));
+            return new GroupByIdBlock(nextGroupId, new RunLengthEncodedBlock(blockBuilder.build(), positionCount));
+        }
+
+        // we know the exact size required for the block
+        BlockBuilder blockBuilder = BIGINT.createFixedSizeBlockBuilder(positionCount);
+
+        if (block instanceof DictionaryEncodedBlock && ((DictionaryEncodedBlock) block).getDictionary().getPositionCount() <= positionCount) {
+            // look up each dictionary entry once, on the first row that uses it
+            Block dictionary = ((DictionaryEncodedBlock) block).getDictionary();
+            Block idBlock = ((DictionaryEncodedBlock) block).getIdBlock();
+            int[] dictionaryGroupIds = new int[dictionary.getPositionCount()];
+            Arrays.fill(dictionaryGroupIds, -1);
+
+            for (int position = 0; position < positionCount; position++) {
+                int groupId;
+                if (idBlock.isNull(position)) {
+                    groupId = putIfAbsent(position, block, getRawHash(hashBlock, position));
+                }
+                else {
+                    int id = Ints.checkedCast(BIGINT.getLong(idBlock, position));
+                    groupId = dictionaryGroupIds[id];
+                    if (groupId < 0) {
+                        groupId = putIfAbsent(id, dictionary, getRawHash(hashBlock, position));
+                        dictionaryGroupIds[id] = groupId;
+                    }
+                }
+                BIGINT.writeLong(blockBuilder, groupId);
+            }
+            return new GroupByIdBlock(nextGroupId, blockBuilder.build());
+        }
+
+        for (int position = 0; position < positionCount; position++) {
+            BIGINT.writeLong(blockBuilder, putIfAbsent(position, block, getRawHash(hashBlock, position)));
+        }
+
+        return new GroupByIdBlock(nextGroupId, blockBuilder.build());
+    }
+
+    private static long getRawHash(Block hashBlock, int position)
+    {
+        if (hashBlock == null) {
+            return 0;
+        }
+        return BIGINT.getLong(hashBlock, position);
+    }
+
+    @Override
+    public boolean contains(int position, Block... blocks)
+    {
+        Block block = blocks[0];
+        if (block.isNull(position)) {
+            return nullGroupId >= 0;
+        }
+
+        long value = type.getLong(block, position);
+        int hashPosition = getHashPosition(value, mask);
+
+        // look for a slot containing this key
+        while (groupIds[hashPosition] != -1) {
+            if (values[hashPosition] == value) {
+                return true;
+            }
+            // increment position and mask to handle wrap around
+            hashPosition = (hashPosition + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * The raw hash is not needed to probe the table, which hashes the long value directly
+     */
+    @Override
+    public boolean contains(int position, Block[] blocks, int rawHash)
+    {
+        return contains(position, blocks);
+    }
+
+    @Override
+    public int putIfAbsent(int position, Block... blocks)
+    {
+        Block block = blocks[0];
+        int rawHash = 0;
+        if (!block.isNull(position)) {
+            rawHash = type.hash(block, position);
+        }
+        return putIfAbsent(position, block, rawHash);
+    }
+
+    @Override
+    public int putIfAbsent(int position, Block[] blocks, int rawHash)
+    {
+        return putIfAbsent(position, blocks[0], rawHash);
+    }
+
+    private int putIfAbsent(int position, Block block, long rawHash)
+    {
+        if (block.isNull(position)) {
+            if (nullGroupId < 0) {
+                // null is not stored in the table, but it still needs a group id
+                nullGroupId = nextGroupId++;
+                recordGroup(nullGroupId, 0, rawHash);
+            }
+            return nullGroupId;
+        }
+
+        long value = type.getLong(block, position);
+        int hashPosition = getHashPosition(value, mask);
+
+        // look for an empty slot or a slot containing this key
+        while (groupIds[hashPosition] != -1) {
+            if (values[hashPosition] == value) {
+                return groupIds[hashPosition];
+            }
+            // increment position and mask to handle wrap around
+            hashPosition = (hashPosition + 1) & mask;
+        }
+
+        return addNewGroup(hashPosition, value, rawHash);
+    }
+
+    private int addNewGroup(int hashPosition, long value, long rawHash)
+    {
+        int groupId = nextGroupId++;
+        values[hashPosition] = value;
+        groupIds[hashPosition] = groupId;
+        recordGroup(groupId, value, rawHash);
+
+        // increase capacity, if necessary
+        if (nextGroupId >= maxFill) {
+            rehash(maxFill * 2);
+        }
+        return groupId;
+    }
+
+    private void recordGroup(int groupId, long value, long rawHash)
+    {
+        valuesByGroupId.ensureCapacity(nextGroupId);
+        valuesByGroupId.set(groupId, value);
+        if (inputHashChannel.isPresent()) {
+            rawHashByGroupId.ensureCapacity(nextGroupId);
+            rawHashByGroupId.set(groupId, rawHash);
+        }
+    }
+
+    private void rehash(int size)
+    {
+        int newSize = arraySize(size + 1, FILL_RATIO);
+
+        int newMask = newSize - 1;
+        long[] newValues = new long[newSize];
+        int[] newGroupIds = new int[newSize];
+        Arrays.fill(newGroupIds, -1);
+
+        for (int i = 0; i < values.length; i++) {
+            int groupId = groupIds[i];
+            if (groupId == -1) {
+                continue;
+            }
+
+            // find an empty slot for the value
+            long value = values[i];
+            int hashPosition = getHashPosition(value, newMask);
+            while (newGroupIds[hashPosition] != -1) {
+                hashPosition = (hashPosition + 1) & newMask;
+            }
+
+            newValues[hashPosition] = value;
+            newGroupIds[hashPosition] = groupId;
+        }
+
+        this.mask = newMask;
+        this.maxFill = maxFill(newSize, FILL_RATIO);
+        this.values = newValues;
+        this.groupIds = newGroupIds;
+    }
+
+    private static int getHashPosition(long value, int mask)
+    {
+        return ((int) Murmur3.hash64(value)) & mask;
+    }
+}
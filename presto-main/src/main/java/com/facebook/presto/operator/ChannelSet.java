@@ -13,12 +13,15 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import io.airlift.units.DataSize;
 
+import static com.google.common.base.Preconditions.checkState;
 import static io.airlift.units.DataSize.Unit.BYTE;
 
 public class ChannelSet
@@ -57,15 +60,34 @@ public class ChannelSet
         return hash.contains(position, block);
     }
 
+    /**
+     * @param rawHash the precomputed hash of the value, as computed by {@link PagesHashStrategy#hashRow}
+     */
+    public boolean contains(int position, Block block, int rawHash)
+    {
+        return hash.contains(position, new Block[] {block}, rawHash);
+    }
+
     public static class ChannelSetBuilder
     {
         private final GroupByHash hash;
         private final OperatorContext operatorContext;
         private final Block nullBlock;
+        private final boolean hasHashBlock;
 
         public ChannelSetBuilder(Type type, int expectedPositions, OperatorContext operatorContext)
         {
-            this.hash = new GroupByHash(ImmutableList.of(type), new int[] {0}, expectedPositions);
+            this(type, false, expectedPositions, operatorContext);
+        }
+
+        /**
+         * @param hasHashBlock if true, blocks are added with a block holding their precomputed hash
+         */
+        public ChannelSetBuilder(Type type, boolean hasHashBlock, int expectedPositions, OperatorContext operatorContext)
+        {
+            this.hasHashBlock = hasHashBlock;
+            Optional<Integer> hashChannel = hasHashBlock ? Optional.of(1) : Optional.<Integer>absent();
+            this.hash = new MultiChannelGroupByHash(ImmutableList.of(type), new int[] {0}, hashChannel, expectedPositions);
             this.operatorContext = operatorContext;
             this.nullBlock = type.createBlockBuilder(new BlockBuilderStatus()).appendNull().build();
         }
@@ -87,8 +109,20 @@ public class ChannelSet
 
         public void addBlock(Block block)
         {
+            checkState(!hasHashBlock, "builder expects a hash block");
             hash.getGroupIds(new Page(block));
+            updateMemoryReservation();
+        }
 
+        public void addBlock(Block block, Block hashBlock)
+        {
+            checkState(hasHashBlock, "builder does not expect a hash block");
+            hash.getGroupIds(new Page(block, hashBlock));
+            updateMemoryReservation();
+        }
+
+        private void updateMemoryReservation()
+        {
             if (operatorContext != null) {
                 operatorContext.setMemoryReservation(hash.getEstimatedSize());
             }
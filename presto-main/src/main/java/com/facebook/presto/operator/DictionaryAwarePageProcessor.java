@@ -0,0 +1,307 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.block.dictionary.DictionaryEncodedBlock;
+import com.facebook.presto.block.rle.RunLengthEncodedBlock;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Page processor for a filter and projections that each read a single channel.  When that channel
+ * is dictionary encoded, the expression is evaluated once per dictionary entry used by the page,
+ * and when it is run length encoded, once per page.  Projections are only evaluated for entries
+ * used by the rows selected by the filter, so they fail only when row by row evaluation would.
+ * Projected values stay dictionary or run length encoded.  Pages that can not be processed this
+ * way are processed position by position by the delegate.
+ */
+public class DictionaryAwarePageProcessor
+        implements PageProcessor
+{
+    private final PageProcessor delegate;
+    private final Optional<ChannelExpression> filter;
+    private final List<ChannelExpression> projections;
+
+    /**
+     * @param filter the filter, or absent if all positions are selected
+     */
+    public DictionaryAwarePageProcessor(PageProcessor delegate, Optional<ChannelExpression> filter, List<ChannelExpression> projections)
+    {
+        this.delegate = checkNotNull(delegate, "delegate is null");
+        this.filter = checkNotNull(filter, "filter is null");
+        this.projections = ImmutableList.copyOf(checkNotNull(projections, "projections is null"));
+        checkArgument(!filter.isPresent() || !filter.get().isInputReference(), "filter can not be an input reference");
+    }
+
+    @Override
+    public int process(ConnectorSession session, Page page, int start, int end, PageBuilder pageBuilder)
+    {
+        return delegate.process(session, page, start, end, pageBuilder);
+    }
+
+    @Override
+    public Page processEncodedPage(ConnectorSession session, Page page)
+    {
+        int positionCount = page.getPositionCount();
+        if (positionCount == 0) {
+            return new Page(0);
+        }
+
+        // positions selected by the filter, or null if all positions are selected
+        boolean[] selectedPositions = null;
+        int selectedCount = positionCount;
+        if (filter.isPresent()) {
+            Block block = page.getBlock(filter.get().getChannel());
+            if (block instanceof RunLengthEncodedBlock) {
+                Block result = evaluate(session, filter.get(), ((RunLengthEncodedBlock) block).getValue(), positionCount);
+                if (result == null) {
+                    return null;
+                }
+                if (!isTrue(result, 0)) {
+                    return new Page(0);
+                }
+            }
+            else if (block instanceof DictionaryEncodedBlock) {
+                DictionaryEncodedBlock dictionaryBlock = (DictionaryEncodedBlock) block;
+                Block idBlock = dictionaryBlock.getIdBlock();
+                if (hasNullIds(idBlock)) {
+                    return null;
+                }
+                Block result = evaluateUsedEntries(session, filter.get(), dictionaryBlock, null, positionCount);
+                if (result == null) {
+                    return null;
+                }
+
+                selectedPositions = new boolean[positionCount];
+                selectedCount = 0;
+                for (int position = 0; position < positionCount; position++) {
+                    if (isTrue(result, position)) {
+                        selectedPositions[position] = true;
+                        selectedCount++;
+                    }
+                }
+
+                if (selectedCount == 0) {
+                    return new Page(0);
+                }
+                if (selectedCount == positionCount) {
+                    selectedPositions = null;
+                }
+            }
+            else {
+                return null;
+            }
+        }
+
+        if (projections.isEmpty()) {
+            return new Page(selectedCount);
+        }
+
+        Block[] blocks = new Block[projections.size()];
+        for (int i = 0; i < projections.size(); i++) {
+            ChannelExpression projection = projections.get(i);
+            Block block = page.getBlock(projection.getChannel());
+
+            if (block instanceof RunLengthEncodedBlock) {
+                Block value = ((RunLengthEncodedBlock) block).getValue();
+                if (!projection.isInputReference()) {
+                    value = evaluate(session, projection, value, positionCount);
+                    if (value == null) {
+                        return null;
+                    }
+                }
+                blocks[i] = new RunLengthEncodedBlock(value, selectedCount);
+            }
+            else if (block instanceof DictionaryEncodedBlock) {
+                DictionaryEncodedBlock dictionaryBlock = (DictionaryEncodedBlock) block;
+                if (projection.isInputReference()) {
+                    blocks[i] = new DictionaryEncodedBlock(dictionaryBlock.getDictionary(), selectPositions(dictionaryBlock.getIdBlock(), selectedPositions, selectedCount));
+                    continue;
+                }
+
+                // a null id is null regardless of the dictionary, but the projection of null may not be null
+                if (hasNullIds(dictionaryBlock.getIdBlock())) {
+                    return null;
+                }
+                blocks[i] = evaluateUsedEntries(session, projection, dictionaryBlock, selectedPositions, selectedCount);
+                if (blocks[i] == null) {
+                    return null;
+                }
+            }
+            else if (projection.isInputReference() && selectedPositions == null) {
+                blocks[i] = block;
+            }
+            else {
+                return null;
+            }
+        }
+        return new Page(selectedCount, blocks);
+    }
+
+    /**
+     * Evaluates the expression for each position of the values, or returns null if
+     * there are more values than positions in the page being processed
+     */
+    private static Block evaluate(ConnectorSession session, ChannelExpression expression, Block values, int pagePositionCount)
+    {
+        int positionCount = values.getPositionCount();
+        if (positionCount > pagePositionCount) {
+            return null;
+        }
+
+        PageBuilder pageBuilder = new PageBuilder(ImmutableList.of(expression.getType()));
+        int end = expression.getProcessor().get().process(session, new Page(values), 0, positionCount, pageBuilder);
+        if (end != positionCount) {
+            // the results do not fit in a single page
+            return null;
+        }
+        return pageBuilder.build().getBlock(0);
+    }
+
+    /**
+     * Evaluates the expression for the dictionary entries used by the selected positions, and returns
+     * the results as a dictionary encoded block over the selected positions, or null if the results
+     * do not fit in a single page.  Entries that are not used are never evaluated, so an expression
+     * that fails for them does not fail the query.
+     *
+     * @param selectedPositions the selected positions, or null if all positions are selected
+     */
+    private static DictionaryEncodedBlock evaluateUsedEntries(
+            ConnectorSession session,
+            ChannelExpression expression,
+            DictionaryEncodedBlock block,
+            @Nullable boolean[] selectedPositions,
+            int selectedCount)
+    {
+        Block idBlock = block.getIdBlock();
+
+        // number the used entries in order of first use
+        int[] usedIndexes = new int[block.getDictionary().getPositionCount()];
+        Arrays.fill(usedIndexes, -1);
+        BlockBuilder usedIds = BIGINT.createFixedSizeBlockBuilder(selectedCount);
+        BlockBuilder ids = BIGINT.createFixedSizeBlockBuilder(selectedCount);
+        int usedCount = 0;
+        for (int position = 0; position < idBlock.getPositionCount(); position++) {
+            if (selectedPositions != null && !selectedPositions[position]) {
+                continue;
+            }
+            int id = (int) BIGINT.getLong(idBlock, position);
+            if (usedIndexes[id] < 0) {
+                usedIndexes[id] = usedCount;
+                usedCount++;
+                BIGINT.writeLong(usedIds, id);
+            }
+            BIGINT.writeLong(ids, usedIndexes[id]);
+        }
+
+        // the expression reads the used entries through a dictionary block, so they are not copied
+        Block values = evaluate(session, expression, new DictionaryEncodedBlock(block.getDictionary(), usedIds.build()), idBlock.getPositionCount());
+        if (values == null) {
+            return null;
+        }
+        return new DictionaryEncodedBlock(values, ids.build());
+    }
+
+    private static boolean isTrue(Block block, int position)
+    {
+        return !block.isNull(position) && BOOLEAN.getBoolean(block, position);
+    }
+
+    private static boolean hasNullIds(Block idBlock)
+    {
+        for (int position = 0; position < idBlock.getPositionCount(); position++) {
+            if (idBlock.isNull(position)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Block selectPositions(Block idBlock, boolean[] selectedPositions, int selectedCount)
+    {
+        if (selectedPositions == null) {
+            return idBlock;
+        }
+
+        BlockBuilder blockBuilder = BIGINT.createFixedSizeBlockBuilder(selectedCount);
+        for (int position = 0; position < selectedPositions.length; position++) {
+            if (selectedPositions[position]) {
+                if (idBlock.isNull(position)) {
+                    blockBuilder.appendNull();
+                }
+                else {
+                    BIGINT.writeLong(blockBuilder, BIGINT.getLong(idBlock, position));
+                }
+            }
+        }
+        return blockBuilder.build();
+    }
+
+    /**
+     * An expression that reads a single input channel
+     */
+    public static class ChannelExpression
+    {
+        private final int channel;
+        private final Type type;
+        private final Optional<PageProcessor> processor;
+
+        /**
+         * @param processor processor that evaluates the expression as its only projection, reading
+         * the channel as channel 0, or absent if the expression is a reference to the channel
+         */
+        public ChannelExpression(int channel, Type type, Optional<PageProcessor> processor)
+        {
+            checkArgument(channel >= 0, "channel is negative");
+            this.channel = channel;
+            this.type = checkNotNull(type, "type is null");
+            this.processor = checkNotNull(processor, "processor is null");
+        }
+
+        public int getChannel()
+        {
+            return channel;
+        }
+
+        public Type getType()
+        {
+            return type;
+        }
+
+        public Optional<PageProcessor> getProcessor()
+        {
+            return processor;
+        }
+
+        public boolean isInputReference()
+        {
+            return !processor.isPresent();
+        }
+    }
+}
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
@@ -89,7 +90,7 @@ public class DistinctLimitOperator
             distinctChannels.add(i);
         }
 
-        this.groupByHash = new GroupByHash(distinctTypes.build(), Ints.toArray(distinctChannels.build()), Math.min((int) limit, 10_000));
+        this.groupByHash = new MultiChannelGroupByHash(distinctTypes.build(), Ints.toArray(distinctChannels.build()), Math.min((int) limit, 10_000));
 
         this.pageBuilder = new PageBuilder(types);
         remainingLimit = limit;
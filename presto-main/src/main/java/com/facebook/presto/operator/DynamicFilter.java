@@ -0,0 +1,170 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.metadata.ColumnHandle;
+import com.facebook.presto.metadata.Split;
+import com.facebook.presto.spi.ConnectorFilterableSplit;
+import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.TupleDomain;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.facebook.presto.metadata.Util.toConnectorDomain;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Restricts the table scan on the probe side of an inner join to the join keys seen on
+ * the build side.  Each hash builder publishes the keys of its partition when the build
+ * side is complete, and the probe side scan waits for all partitions before it reads any
+ * split, so that it can skip the splits and rows the join would discard.
+ */
+@ThreadSafe
+public class DynamicFilter
+{
+    private final List<ColumnHandle> probeColumns;
+    private final List<Integer> joinClauses;
+    private final int partitionCount;
+    private final int maxValues;
+    private final SettableFuture<?> ready = SettableFuture.create();
+
+    @GuardedBy("this")
+    private final List<List<Domain>> partitions = new ArrayList<>();
+
+    private volatile TupleDomain<ColumnHandle> tupleDomain;
+
+    /**
+     * @param probeColumns the probe side columns that are filtered
+     * @param joinClauses the index of the join clause that compares each probe column to a build key
+     * @param partitionCount the number of hash builders that publish their keys
+     * @param maxValues the number of distinct keys above which a hash builder publishes a range instead
+     */
+    public DynamicFilter(List<ColumnHandle> probeColumns, List<Integer> joinClauses, int partitionCount, int maxValues)
+    {
+        this.probeColumns = ImmutableList.copyOf(checkNotNull(probeColumns, "probeColumns is null"));
+        this.joinClauses = ImmutableList.copyOf(checkNotNull(joinClauses, "joinClauses is null"));
+        checkArgument(!probeColumns.isEmpty(), "probeColumns is empty");
+        checkArgument(probeColumns.size() == joinClauses.size(), "probeColumns and joinClauses must have the same size");
+        checkArgument(partitionCount > 0, "partitionCount must be at least 1");
+        checkArgument(maxValues >= 0, "maxValues is negative");
+        this.partitionCount = partitionCount;
+        this.maxValues = maxValues;
+    }
+
+    public List<ColumnHandle> getProbeColumns()
+    {
+        return probeColumns;
+    }
+
+    public List<Integer> getJoinClauses()
+    {
+        return joinClauses;
+    }
+
+    public int getMaxValues()
+    {
+        return maxValues;
+    }
+
+    /**
+     * Publishes the domains of the keys of one partition of the build side, in the order of the probe columns.
+     */
+    public void addPartition(List<Domain> domains)
+    {
+        checkNotNull(domains, "domains is null");
+        checkArgument(domains.size() == probeColumns.size(), "expected %s domains, but got %s", probeColumns.size(), domains.size());
+
+        synchronized (this) {
+            checkState(partitions.size() < partitionCount, "All %s partitions are already published", partitionCount);
+            partitions.add(ImmutableList.copyOf(domains));
+            if (partitions.size() < partitionCount) {
+                return;
+            }
+            tupleDomain = createTupleDomain();
+        }
+
+        // notify the waiting scans outside of the lock
+        ready.set(null);
+    }
+
+    @GuardedBy("this")
+    private TupleDomain<ColumnHandle> createTupleDomain()
+    {
+        Map<ColumnHandle, Domain> domains = new HashMap<>();
+        for (int i = 0; i < probeColumns.size(); i++) {
+            List<Domain> partitionDomains = new ArrayList<>();
+            for (List<Domain> partition : partitions) {
+                partitionDomains.add(partition.get(i));
+            }
+            Domain domain = Domain.union(partitionDomains);
+
+            // a column used in several clauses must match the keys of all of them
+            ColumnHandle column = probeColumns.get(i);
+            Domain existing = domains.get(column);
+            domains.put(column, existing == null ? domain : existing.intersect(domain));
+        }
+        return TupleDomain.withColumnDomains(domains);
+    }
+
+    public ListenableFuture<?> isBlocked()
+    {
+        return ready;
+    }
+
+    public boolean isReady()
+    {
+        return ready.isDone();
+    }
+
+    public TupleDomain<ColumnHandle> getTupleDomain()
+    {
+        checkState(isReady(), "Dynamic filter is not ready");
+        return tupleDomain;
+    }
+
+    /**
+     * Returns the split narrowed to the rows that may match the filter, or absent if
+     * no row of the split can match.
+     */
+    public Optional<Split> filterSplit(Split split)
+    {
+        checkNotNull(split, "split is null");
+        TupleDomain<ColumnHandle> tupleDomain = getTupleDomain();
+        if (tupleDomain.isNone()) {
+            return Optional.absent();
+        }
+        if (!(split.getConnectorSplit() instanceof ConnectorFilterableSplit)) {
+            return Optional.of(split);
+        }
+
+        ConnectorSplit filteredSplit = ((ConnectorFilterableSplit) split.getConnectorSplit()).filter(toConnectorDomain(tupleDomain));
+        if (filteredSplit == null) {
+            return Optional.absent();
+        }
+        return Optional.of(new Split(split.getConnectorId(), filteredSplit));
+    }
+}
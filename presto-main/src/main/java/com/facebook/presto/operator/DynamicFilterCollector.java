@@ -0,0 +1,159 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.Range;
+import com.facebook.presto.spi.SortedRangeSet;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Primitives;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.facebook.presto.block.BlockUtils.getNativeValue;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Collects the join keys of the pages added to one hash builder.  The keys of each
+ * channel are published as the set of distinct values, or as the range between the
+ * lowest and the highest value once there are too many distinct values.
+ */
+public class DynamicFilterCollector
+{
+    private final DynamicFilter dynamicFilter;
+    private final List<Integer> channels;
+    private final List<Type> types;
+
+    // null once the channel has more distinct values than the filter allows
+    private final List<Set<Comparable<?>>> values;
+    private final Comparable<?>[] min;
+    private final Comparable<?>[] max;
+
+    private boolean published;
+
+    /**
+     * @param types the types of the build pages
+     * @param joinChannels the build channel of each join clause
+     */
+    public DynamicFilterCollector(DynamicFilter dynamicFilter, List<Type> types, List<Integer> joinChannels)
+    {
+        this.dynamicFilter = checkNotNull(dynamicFilter, "dynamicFilter is null");
+        checkNotNull(types, "types is null");
+        checkNotNull(joinChannels, "joinChannels is null");
+
+        ImmutableList.Builder<Integer> channels = ImmutableList.builder();
+        ImmutableList.Builder<Type> channelTypes = ImmutableList.builder();
+        this.values = new ArrayList<>();
+        for (int clause : dynamicFilter.getJoinClauses()) {
+            int channel = joinChannels.get(clause);
+            channels.add(channel);
+            channelTypes.add(types.get(channel));
+            values.add(new HashSet<Comparable<?>>());
+        }
+        this.channels = channels.build();
+        this.types = channelTypes.build();
+        this.min = new Comparable<?>[channels.size()];
+        this.max = new Comparable<?>[channels.size()];
+    }
+
+    public void add(Page page)
+    {
+        checkNotNull(page, "page is null");
+        checkState(!published, "Keys are already published");
+
+        for (int i = 0; i < channels.size(); i++) {
+            Block block = page.getBlock(channels.get(i));
+            Type type = types.get(i);
+            for (int position = 0; position < block.getPositionCount(); position++) {
+                Comparable<?> value = getNativeValue(type, block, position);
+                // null keys never match in an inner join
+                if (value != null) {
+                    addValue(i, value);
+                }
+            }
+        }
+    }
+
+    private void addValue(int channel, Comparable<?> value)
+    {
+        Set<Comparable<?>> channelValues = values.get(channel);
+        if (channelValues != null && !channelValues.contains(value)) {
+            if (channelValues.size() < dynamicFilter.getMaxValues()) {
+                channelValues.add(copy(value));
+            }
+            else {
+                values.set(channel, null);
+            }
+        }
+        if (min[channel] == null || compare(value, min[channel]) < 0) {
+            min[channel] = copy(value);
+        }
+        if (max[channel] == null || compare(value, max[channel]) > 0) {
+            max[channel] = copy(value);
+        }
+    }
+
+    /**
+     * Publishes the collected keys to the dynamic filter.
+     */
+    public void publish()
+    {
+        checkState(!published, "Keys are already published");
+        published = true;
+
+        ImmutableList.Builder<Domain> domains = ImmutableList.builder();
+        for (int i = 0; i < channels.size(); i++) {
+            Class<?> javaType = Primitives.wrap(types.get(i).getJavaType());
+            Set<Comparable<?>> channelValues = values.get(i);
+            if (min[i] == null) {
+                domains.add(Domain.none(javaType));
+            }
+            else if (channelValues != null) {
+                List<Range> ranges = new ArrayList<>();
+                for (Comparable<?> value : channelValues) {
+                    ranges.add(Range.equal(value));
+                }
+                domains.add(Domain.create(SortedRangeSet.copyOf(javaType, ranges), false));
+            }
+            else {
+                domains.add(Domain.create(SortedRangeSet.of(Range.range(min[i], true, max[i], true)), false));
+            }
+        }
+        dynamicFilter.addPartition(domains.build());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Comparable<?> left, Comparable<?> right)
+    {
+        return ((Comparable<Object>) left).compareTo(right);
+    }
+
+    private static Comparable<?> copy(Comparable<?> value)
+    {
+        // slices read from a block may share the memory of the page
+        if (value instanceof Slice) {
+            return Slices.wrappedBuffer(((Slice) value).getBytes());
+        }
+        return value;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.metadata.ColumnHandle;
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.Range;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.facebook.presto.block.BlockUtils.getNativeValue;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Removes the rows of a page whose join keys are outside the domains of a dynamic filter.
+ */
+public class DynamicPageFilter
+{
+    private final List<Type> types;
+    private final int[] channels;
+    private final List<Type> channelTypes;
+    private final List<Domain> domains;
+
+    // the values of domains that only contain single values, which are faster to look up
+    private final List<Set<Comparable<?>>> values;
+
+    /**
+     * @param columnChannels the channel of the pages holding each column, for the columns that are in the pages
+     * @param types the types of the pages
+     */
+    public DynamicPageFilter(TupleDomain<ColumnHandle> tupleDomain, Map<ColumnHandle, Integer> columnChannels, List<Type> types)
+    {
+        checkNotNull(tupleDomain, "tupleDomain is null");
+        checkArgument(!tupleDomain.isNone(), "tupleDomain is none");
+        checkNotNull(columnChannels, "columnChannels is null");
+        this.types = ImmutableList.copyOf(checkNotNull(types, "types is null"));
+
+        List<Integer> channels = new ArrayList<>();
+        ImmutableList.Builder<Type> channelTypes = ImmutableList.builder();
+        ImmutableList.Builder<Domain> domains = ImmutableList.builder();
+        this.values = new ArrayList<>();
+        for (Map.Entry<ColumnHandle, Domain> entry : tupleDomain.getDomains().entrySet()) {
+            Integer channel = columnChannels.get(entry.getKey());
+            if (channel == null) {
+                continue;
+            }
+            channels.add(channel);
+            channelTypes.add(types.get(channel));
+            domains.add(entry.getValue());
+            values.add(getSingleValues(entry.getValue()));
+        }
+        this.channels = Ints.toArray(channels);
+        this.channelTypes = channelTypes.build();
+        this.domains = domains.build();
+    }
+
+    private static Set<Comparable<?>> getSingleValues(Domain domain)
+    {
+        Set<Comparable<?>> values = new HashSet<>();
+        for (Range range : domain.getRanges()) {
+            if (!range.isSingleValue()) {
+                return null;
+            }
+            values.add(range.getSingleValue());
+        }
+        return values;
+    }
+
+    /**
+     * Returns the page without the rows that can not match, or null if no row matches.
+     */
+    public Page filter(Page page)
+    {
+        if (channels.length == 0) {
+            return page;
+        }
+
+        int positionCount = page.getPositionCount();
+        boolean[] retained = new boolean[positionCount];
+        int retainedCount = 0;
+        for (int position = 0; position < positionCount; position++) {
+            retained[position] = matches(page, position);
+            if (retained[position]) {
+                retainedCount++;
+            }
+        }
+
+        if (retainedCount == positionCount) {
+            return page;
+        }
+        if (retainedCount == 0) {
+            return null;
+        }
+
+        PageBuilder pageBuilder = new PageBuilder(types);
+        for (int position = 0; position < positionCount; position++) {
+            if (retained[position]) {
+                for (int channel = 0; channel < types.size(); channel++) {
+                    types.get(channel).appendTo(page.getBlock(channel), position, pageBuilder.getBlockBuilder(channel));
+                }
+                pageBuilder.declarePosition();
+            }
+        }
+        return pageBuilder.build();
+    }
+
+    private boolean matches(Page page, int position)
+    {
+        for (int i = 0; i < channels.length; i++) {
+            Comparable<?> value = getNativeValue(channelTypes.get(i), page.getBlock(channels[i]), position);
+            if (value == null) {
+                if (!domains.get(i).isNullAllowed()) {
+                    return false;
+                }
+            }
+            else if (values.get(i) != null) {
+                if (!values.get(i).contains(value)) {
+                    return false;
+                }
+            }
+            else if (!domains.get(i).includesValue(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -14,11 +14,13 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.metadata.Split;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.split.RemoteSplit;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.base.Supplier;
 import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
 
 import java.io.Closeable;
 import java.net.URI;
@@ -27,6 +29,7 @@ import java.util.List;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.units.DataSize.Unit.BYTE;
 
 public class ExchangeOperator
         implements SourceOperator, Closeable
@@ -179,7 +182,7 @@ public class ExchangeOperator
     {
         Page page = exchangeClient.pollPage();
         if (page != null) {
-            operatorContext.recordGeneratedInput(page.getDataSize(), page.getPositionCount());
+            operatorContext.recordGeneratedInput(new DataSize(page.getSizeInBytes(), BYTE), page.getPositionCount());
         }
         return page;
     }
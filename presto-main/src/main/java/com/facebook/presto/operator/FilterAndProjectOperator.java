@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -32,6 +33,8 @@ public class FilterAndProjectOperator
     private final PageProcessor processor;
     private Page currentPage;
     private int currentPosition;
+    // a page processed without decoding its dictionary and run length encoded blocks
+    private Page encodedOutputPage;
     private boolean finishing;
 
     public FilterAndProjectOperator(OperatorContext operatorContext, Iterable<? extends Type> types, PageProcessor processor)
@@ -63,7 +66,7 @@ public class FilterAndProjectOperator
     @Override
     public final boolean isFinished()
     {
-        return finishing && pageBuilder.isEmpty() && currentPage == null;
+        return finishing && pageBuilder.isEmpty() && currentPage == null && encodedOutputPage == null;
     }
 
     @Override
@@ -75,7 +78,7 @@ public class FilterAndProjectOperator
     @Override
     public final boolean needsInput()
     {
-        return !finishing && !pageBuilder.isFull() && currentPage == null;
+        return !finishing && !pageBuilder.isFull() && currentPage == null && encodedOutputPage == null;
     }
 
     @Override
@@ -85,6 +88,14 @@ public class FilterAndProjectOperator
         checkNotNull(page, "page is null");
         checkState(!pageBuilder.isFull(), "Page buffer is full");
 
+        Page encodedPage = processor.processEncodedPage(operatorContext.getSession(), page);
+        if (encodedPage != null) {
+            if (encodedPage.getPositionCount() > 0) {
+                encodedOutputPage = encodedPage;
+            }
+            return;
+        }
+
         currentPage = page;
         currentPosition = 0;
     }
@@ -92,6 +103,18 @@ public class FilterAndProjectOperator
     @Override
     public final Page getOutput()
     {
+        if (encodedOutputPage != null) {
+            // the rows of earlier pages are output first
+            if (!pageBuilder.isEmpty()) {
+                Page page = pageBuilder.build();
+                pageBuilder.reset();
+                return page;
+            }
+            Page page = encodedOutputPage;
+            encodedOutputPage = null;
+            return page;
+        }
+
         if (!pageBuilder.isFull() && currentPage != null) {
             currentPosition = processor.process(operatorContext.getSession(), currentPage, currentPosition, currentPage.getPositionCount(), pageBuilder);
             if (currentPosition == currentPage.getPositionCount()) {
@@ -14,6 +14,7 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
 import com.google.common.collect.ImmutableList;
 
 import java.util.List;
@@ -45,4 +46,10 @@ public class GenericPageProcessor
 
         return end;
     }
+
+    @Override
+    public Page processEncodedPage(ConnectorSession session, Page page)
+    {
+        return null;
+    }
 }
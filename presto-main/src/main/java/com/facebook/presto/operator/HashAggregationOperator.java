@@ -16,34 +16,47 @@ package com.facebook.presto.operator;
 import com.facebook.presto.ExceededMemoryLimitException;
 import com.facebook.presto.operator.aggregation.AccumulatorFactory;
 import com.facebook.presto.operator.aggregation.GroupedAccumulator;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.PartitioningSpiller;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.sql.planner.plan.AggregationNode.Step;
+import com.google.common.base.Optional;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
 import com.google.common.primitives.Ints;
 import com.google.common.util.concurrent.ListenableFuture;
 
+import java.io.Closeable;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
 public class HashAggregationOperator
-        implements Operator
+        implements Operator, Closeable
 {
+    private static final int SPILL_PARTITION_COUNT = 16;
+
     public static class HashAggregationOperatorFactory
             implements OperatorFactory
     {
         private final int operatorId;
         private final List<Type> groupByTypes;
         private final List<Integer> groupByChannels;
+        private final Optional<Integer> hashChannel;
         private final Step step;
         private final List<AccumulatorFactory> accumulatorFactories;
         private final int expectedGroups;
+        private final Optional<SpillerFactory> spillerFactory;
         private final List<Type> types;
         private boolean closed;
 
@@ -54,15 +67,46 @@ public class HashAggregationOperator
                 Step step,
                 List<AccumulatorFactory> accumulatorFactories,
                 int expectedGroups)
+        {
+            this(operatorId, groupByTypes, groupByChannels, step, accumulatorFactories, expectedGroups, Optional.<SpillerFactory>absent());
+        }
+
+        public HashAggregationOperatorFactory(
+                int operatorId,
+                List<? extends Type> groupByTypes,
+                List<Integer> groupByChannels,
+                Step step,
+                List<AccumulatorFactory> accumulatorFactories,
+                int expectedGroups,
+                Optional<SpillerFactory> spillerFactory)
+        {
+            this(operatorId, groupByTypes, groupByChannels, Optional.<Integer>absent(), step, accumulatorFactories, expectedGroups, spillerFactory);
+        }
+
+        /**
+         * @param hashChannel channel holding the precomputed hash of the group by channels, which is
+         * output after the group by columns
+         */
+        public HashAggregationOperatorFactory(
+                int operatorId,
+                List<? extends Type> groupByTypes,
+                List<Integer> groupByChannels,
+                Optional<Integer> hashChannel,
+                Step step,
+                List<AccumulatorFactory> accumulatorFactories,
+                int expectedGroups,
+                Optional<SpillerFactory> spillerFactory)
         {
             this.operatorId = operatorId;
             this.groupByTypes = ImmutableList.copyOf(groupByTypes);
             this.groupByChannels = ImmutableList.copyOf(groupByChannels);
+            this.hashChannel = checkNotNull(hashChannel, "hashChannel is null");
             this.step = step;
             this.accumulatorFactories = ImmutableList.copyOf(accumulatorFactories);
             this.expectedGroups = expectedGroups;
+            this.spillerFactory = checkNotNull(spillerFactory, "spillerFactory is null");
 
-            this.types = toTypes(groupByTypes, step, accumulatorFactories);
+            this.types = toTypes(groupByTypes, hashChannel, step, accumulatorFactories);
         }
 
         @Override
@@ -81,9 +125,11 @@ public class HashAggregationOperator
                     operatorContext,
                     groupByTypes,
                     groupByChannels,
+                    hashChannel,
                     step,
                     accumulatorFactories,
-                    expectedGroups
+                    expectedGroups,
+                    spillerFactory
             );
         }
 
@@ -97,14 +143,17 @@ public class HashAggregationOperator
     private final OperatorContext operatorContext;
     private final List<Type> groupByTypes;
     private final List<Integer> groupByChannels;
+    private final Optional<Integer> hashChannel;
     private final Step step;
     private final List<AccumulatorFactory> accumulatorFactories;
     private final int expectedGroups;
+    private final Optional<SpillerFactory> spillerFactory;
 
     private final List<Type> types;
     private final MemoryManager memoryManager;
 
     private GroupByHashAggregationBuilder aggregationBuilder;
+    private PartitioningSpiller spiller;
     private Iterator<Page> outputIterator;
     private boolean finishing;
 
@@ -115,6 +164,31 @@ public class HashAggregationOperator
             Step step,
             List<AccumulatorFactory> accumulatorFactories,
             int expectedGroups)
+    {
+        this(operatorContext, groupByTypes, groupByChannels, step, accumulatorFactories, expectedGroups, Optional.<SpillerFactory>absent());
+    }
+
+    public HashAggregationOperator(
+            OperatorContext operatorContext,
+            List<Type> groupByTypes,
+            List<Integer> groupByChannels,
+            Step step,
+            List<AccumulatorFactory> accumulatorFactories,
+            int expectedGroups,
+            Optional<SpillerFactory> spillerFactory)
+    {
+        this(operatorContext, groupByTypes, groupByChannels, Optional.<Integer>absent(), step, accumulatorFactories, expectedGroups, spillerFactory);
+    }
+
+    public HashAggregationOperator(
+            OperatorContext operatorContext,
+            List<Type> groupByTypes,
+            List<Integer> groupByChannels,
+            Optional<Integer> hashChannel,
+            Step step,
+            List<AccumulatorFactory> accumulatorFactories,
+            int expectedGroups,
+            Optional<SpillerFactory> spillerFactory)
     {
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
         checkNotNull(step, "step is null");
@@ -123,12 +197,14 @@ public class HashAggregationOperator
 
         this.groupByTypes = ImmutableList.copyOf(groupByTypes);
         this.groupByChannels = ImmutableList.copyOf(groupByChannels);
+        this.hashChannel = checkNotNull(hashChannel, "hashChannel is null");
         this.accumulatorFactories = ImmutableList.copyOf(accumulatorFactories);
         this.step = step;
         this.expectedGroups = expectedGroups;
+        this.spillerFactory = checkNotNull(spillerFactory, "spillerFactory is null");
         this.memoryManager = new MemoryManager(operatorContext);
 
-        this.types = toTypes(groupByTypes, step, accumulatorFactories);
+        this.types = toTypes(groupByTypes, hashChannel, step, accumulatorFactories);
     }
 
     @Override
@@ -152,7 +228,7 @@ public class HashAggregationOperator
     @Override
     public boolean isFinished()
     {
-        return finishing && aggregationBuilder == null && (outputIterator == null || !outputIterator.hasNext());
+        return finishing && aggregationBuilder == null && spiller == null && (outputIterator == null || !outputIterator.hasNext());
     }
 
     @Override
@@ -174,11 +250,11 @@ public class HashAggregationOperator
         checkNotNull(page, "page is null");
         if (aggregationBuilder == null) {
             aggregationBuilder = new GroupByHashAggregationBuilder(
-                    accumulatorFactories,
-                    step,
+                    createAggregators(),
                     expectedGroups,
                     groupByTypes,
                     groupByChannels,
+                    hashChannel,
                     memoryManager);
 
             // assume initial aggregationBuilder is not full
@@ -192,6 +268,10 @@ public class HashAggregationOperator
     @Override
     public Page getOutput()
     {
+        if (spiller != null && finishing) {
+            return getSpilledOutput();
+        }
+
         if (outputIterator == null || !outputIterator.hasNext()) {
             // no data
             if (aggregationBuilder == null) {
@@ -205,7 +285,11 @@ public class HashAggregationOperator
 
             // Only partial aggregation can flush early. Also, check that we are not flushing tiny bits at a time
             if (!finishing && step != Step.PARTIAL) {
-                throw new ExceededMemoryLimitException(memoryManager.getMaxMemorySize());
+                if (!spillerFactory.isPresent()) {
+                    throw new ExceededMemoryLimitException(memoryManager.getMaxMemorySize());
+                }
+                spillToDisk();
+                return null;
             }
 
             outputIterator = aggregationBuilder.build();
@@ -219,10 +303,127 @@ public class HashAggregationOperator
         return outputIterator.next();
     }
 
-    private static List<Type> toTypes(List<? extends Type> groupByType, Step step, List<AccumulatorFactory> factories)
+    @Override
+    public void close()
+    {
+        if (spiller != null) {
+            spiller.close();
+            spiller = null;
+        }
+    }
+
+    private Page getSpilledOutput()
+    {
+        if (outputIterator == null) {
+            // spill the remaining groups so every group is merged from exactly one partition
+            if (aggregationBuilder != null) {
+                spillToDisk();
+            }
+            outputIterator = mergeSpilledPartitions();
+        }
+
+        if (!outputIterator.hasNext()) {
+            close();
+            return null;
+        }
+        return outputIterator.next();
+    }
+
+    private void spillToDisk()
+    {
+        if (spiller == null) {
+            spiller = new PartitioningSpiller(
+                    spillerFactory.get().create(),
+                    aggregationBuilder.getIntermediateTypes(),
+                    spilledGroupByChannels(),
+                    SPILL_PARTITION_COUNT);
+        }
+        spiller.spill(aggregationBuilder.buildIntermediate());
+        spiller.flush();
+
+        // the memory reservation is kept and reused by the next builder
+        aggregationBuilder = null;
+    }
+
+    private Iterator<Page> mergeSpilledPartitions()
+    {
+        final PartitioningSpiller spiller = this.spiller;
+        return Iterators.concat(new AbstractIterator<Iterator<Page>>()
+        {
+            private int partition;
+
+            @Override
+            protected Iterator<Page> computeNext()
+            {
+                if (partition >= spiller.getPartitionCount()) {
+                    return endOfData();
+                }
+
+                GroupByHashAggregationBuilder mergeBuilder = new GroupByHashAggregationBuilder(
+                        createMergeAggregators(),
+                        expectedGroups,
+                        groupByTypes,
+                        spilledGroupByChannels(),
+                        spilledHashChannel(),
+                        memoryManager);
+
+                Iterator<Page> spilledPages = spiller.readPartition(partition);
+                partition++;
+                while (spilledPages.hasNext()) {
+                    mergeBuilder.processPage(spilledPages.next());
+                    if (mergeBuilder.isFull()) {
+                        throw new ExceededMemoryLimitException(memoryManager.getMaxMemorySize());
+                    }
+                }
+                return mergeBuilder.build();
+            }
+        });
+    }
+
+    private List<Aggregator> createAggregators()
+    {
+        ImmutableList.Builder<Aggregator> aggregators = ImmutableList.builder();
+        for (AccumulatorFactory accumulatorFactory : accumulatorFactories) {
+            aggregators.add(new Aggregator(accumulatorFactory, step));
+        }
+        return aggregators.build();
+    }
+
+    private List<Aggregator> createMergeAggregators()
+    {
+        // spilled pages contain the group by columns and the hash, followed by one intermediate column per aggregation
+        int firstIntermediateChannel = groupByTypes.size() + spilledHashChannel().asSet().size();
+        ImmutableList.Builder<Aggregator> aggregators = ImmutableList.builder();
+        for (int i = 0; i < accumulatorFactories.size(); i++) {
+            aggregators.add(new Aggregator(accumulatorFactories.get(i), Step.FINAL, firstIntermediateChannel + i));
+        }
+        return aggregators.build();
+    }
+
+    private List<Integer> spilledGroupByChannels()
+    {
+        ImmutableList.Builder<Integer> channels = ImmutableList.builder();
+        for (int channel = 0; channel < groupByTypes.size(); channel++) {
+            channels.add(channel);
+        }
+        return channels.build();
+    }
+
+    private Optional<Integer> spilledHashChannel()
+    {
+        if (hashChannel.isPresent()) {
+            return Optional.of(groupByTypes.size());
+        }
+        return Optional.absent();
+    }
+
+    private static List<Type> toTypes(List<? extends Type> groupByType, Optional<Integer> hashChannel, Step step, List<AccumulatorFactory> factories)
     {
         ImmutableList.Builder<Type> types = ImmutableList.builder();
         types.addAll(groupByType);
+        if (hashChannel.isPresent()) {
+            types.add(BIGINT);
+        }
         for (AccumulatorFactory factory : factories) {
             types.add(new Aggregator(factory, step).getType());
         }
@@ -236,24 +437,27 @@ public class HashAggregationOperator
         private final MemoryManager memoryManager;
 
         private GroupByHashAggregationBuilder(
-                List<AccumulatorFactory> accumulatorFactories,
-                Step step,
+                List<Aggregator> aggregators,
                 int expectedGroups,
                 List<Type> groupByTypes,
                 List<Integer> groupByChannels,
+                Optional<Integer> hashChannel,
                 MemoryManager memoryManager)
         {
-            this.groupByHash = new GroupByHash(groupByTypes, Ints.toArray(groupByChannels), expectedGroups);
+            this.groupByHash = createGroupByHash(groupByTypes, groupByChannels, hashChannel, expectedGroups);
+            this.aggregators = ImmutableList.copyOf(checkNotNull(aggregators, "aggregators is null"));
             this.memoryManager = memoryManager;
+        }
 
-            // wrapper each function with an aggregator
-            ImmutableList.Builder<Aggregator> builder = ImmutableList.builder();
-            checkNotNull(accumulatorFactories, "accumulatorFactories is null");
-            for (int i = 0; i < accumulatorFactories.size(); i++) {
-                AccumulatorFactory accumulatorFactory = accumulatorFactories.get(i);
-                builder.add(new Aggregator(accumulatorFactory, step));
+        private static GroupByHash createGroupByHash(List<Type> groupByTypes, List<Integer> groupByChannels, Optional<Integer> hashChannel, int expectedGroups)
+        {
+            if (groupByTypes.size() == 1) {
+                Type type = groupByTypes.get(0);
+                if (type.equals(BIGINT) || type.equals(DATE) || type.equals(TIMESTAMP)) {
+                    return new BigintGroupByHash(type, groupByChannels.get(0), hashChannel, expectedGroups);
+                }
             }
-            aggregators = builder.build();
+            return new MultiChannelGroupByHash(groupByTypes, Ints.toArray(groupByChannels), hashChannel, expectedGroups);
         }
 
         private void processPage(Page page)
@@ -274,11 +478,33 @@ public class HashAggregationOperator
             return !memoryManager.canUse(memorySize);
         }
 
+        public List<Type> getIntermediateTypes()
+        {
+            List<Type> types = new ArrayList<>(groupByHash.getTypes());
+            for (Aggregator aggregator : aggregators) {
+                types.add(aggregator.getIntermediateType());
+            }
+            return types;
+        }
+
         public Iterator<Page> build()
+        {
+            return build(false);
+        }
+
+        /**
+         * Produces the group by columns and the hash, followed by the intermediate state of each aggregation
+         */
+        public Iterator<Page> buildIntermediate()
+        {
+            return build(true);
+        }
+
+        private Iterator<Page> build(final boolean intermediate)
         {
             List<Type> types = new ArrayList<>(groupByHash.getTypes());
             for (Aggregator aggregator : aggregators) {
-                types.add(aggregator.getType());
+                types.add(intermediate ? aggregator.getIntermediateType() : aggregator.getType());
             }
 
             final PageBuilder pageBuilder = new PageBuilder(types);
@@ -303,7 +529,12 @@ public class HashAggregationOperator
                         for (int i = 0; i < aggregators.size(); i++) {
                             Aggregator aggregator = aggregators.get(i);
                             BlockBuilder output = pageBuilder.getBlockBuilder(types.size() + i);
-                            aggregator.evaluate(groupId, output);
+                            if (intermediate) {
+                                aggregator.evaluateIntermediate(groupId, output);
+                            }
+                            else {
+                                aggregator.evaluate(groupId, output);
+                            }
                         }
 
                         groupId++;
@@ -322,19 +553,32 @@ public class HashAggregationOperator
         private final int intermediateChannel;
 
         private Aggregator(AccumulatorFactory accumulatorFactory, Step step)
+        {
+            this(accumulatorFactory, step, getIntermediateChannel(accumulatorFactory, step));
+        }
+
+        private Aggregator(AccumulatorFactory accumulatorFactory, Step step, int intermediateChannel)
         {
             if (step == Step.FINAL) {
-                checkArgument(accumulatorFactory.getInputChannels().size() == 1, "expected 1 input channel for intermediate aggregation");
-                intermediateChannel = accumulatorFactory.getInputChannels().get(0);
+                this.intermediateChannel = intermediateChannel;
                 aggregation = accumulatorFactory.createGroupedIntermediateAccumulator();
             }
             else {
-                intermediateChannel = -1;
+                this.intermediateChannel = -1;
                 aggregation = accumulatorFactory.createGroupedAccumulator();
             }
             this.step = step;
         }
 
+        private static int getIntermediateChannel(AccumulatorFactory accumulatorFactory, Step step)
+        {
+            if (step != Step.FINAL) {
+                return -1;
+            }
+            checkArgument(accumulatorFactory.getInputChannels().size() == 1, "expected 1 input channel for intermediate aggregation");
+            return accumulatorFactory.getInputChannels().get(0);
+        }
+
         public long getEstimatedSize()
         {
             return aggregation.getEstimatedSize();
@@ -350,6 +594,11 @@ public class HashAggregationOperator
             }
         }
 
+        public Type getIntermediateType()
+        {
+            return aggregation.getIntermediateType();
+        }
+
         public void processPage(GroupByIdBlock groupIds, Page page)
         {
             if (step == Step.FINAL) {
@@ -369,5 +618,10 @@ public class HashAggregationOperator
                 aggregation.evaluateFinal(groupId, output);
             }
         }
+
+        public void evaluateIntermediate(int groupId, BlockBuilder output)
+        {
+            aggregation.evaluateIntermediate(groupId, output);
+        }
     }
 }
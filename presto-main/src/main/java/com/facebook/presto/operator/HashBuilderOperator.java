@@ -13,29 +13,48 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.PartitioningSpiller;
+import com.facebook.presto.spiller.SpillerFactory;
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
 
 import javax.annotation.concurrent.ThreadSafe;
 
+import java.io.Closeable;
 import java.util.List;
+import java.util.concurrent.Executor;
 
+import static com.facebook.presto.util.MoreFutures.tryGetUnchecked;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static io.airlift.units.DataSize.Unit.BYTE;
 
 @ThreadSafe
 public class HashBuilderOperator
-        implements Operator
+        implements Operator, Closeable
 {
+    private static final int SPILL_PARTITION_COUNT = 16;
+
     public static class HashBuilderOperatorFactory
             implements OperatorFactory
     {
         private final int operatorId;
         private final SettableLookupSourceSupplier lookupSourceSupplier;
         private final List<Integer> hashChannels;
+        private final Optional<Integer> hashChannel;
         private final int expectedPositions;
+        private final int hashBuildConcurrency;
+        private final Executor hashBuildExecutor;
+        private final Optional<SpillerFactory> spillerFactory;
+        private final Optional<DynamicFilter> dynamicFilter;
+        private int nextPartition;
         private boolean closed;
 
         public HashBuilderOperatorFactory(
@@ -43,14 +62,116 @@ public class HashBuilderOperator
                 List<Type> types,
                 List<Integer> hashChannels,
                 int expectedPositions)
+        {
+            this(operatorId, types, hashChannels, expectedPositions, Optional.<SpillerFactory>absent());
+        }
+
+        public HashBuilderOperatorFactory(
+                int operatorId,
+                List<Type> types,
+                List<Integer> hashChannels,
+                int expectedPositions,
+                Optional<SpillerFactory> spillerFactory)
+        {
+            this(operatorId, types, hashChannels, expectedPositions, spillerFactory, 1, sameThreadExecutor());
+        }
+
+        /**
+         * @param hashBuildConcurrency the number of partitions of the hash table built in parallel once all pages are collected
+         * @param hashBuildExecutor bounded executor that builds the partitions, while the operator is blocked
+         */
+        public HashBuilderOperatorFactory(
+                int operatorId,
+                List<Type> types,
+                List<Integer> hashChannels,
+                int expectedPositions,
+                Optional<SpillerFactory> spillerFactory,
+                int hashBuildConcurrency,
+                Executor hashBuildExecutor)
+        {
+            this(operatorId, types, hashChannels, Optional.<Integer>absent(), expectedPositions, spillerFactory, hashBuildConcurrency, hashBuildExecutor);
+        }
+
+        /**
+         * @param hashChannel channel holding the precomputed hash of the hash channels
+         */
+        public HashBuilderOperatorFactory(
+                int operatorId,
+                List<Type> types,
+                List<Integer> hashChannels,
+                Optional<Integer> hashChannel,
+                int expectedPositions,
+                Optional<SpillerFactory> spillerFactory,
+                int hashBuildConcurrency,
+                Executor hashBuildExecutor)
+        {
+            this(operatorId, types, hashChannels, hashChannel, expectedPositions, 1, hashBuildConcurrency, hashBuildExecutor, spillerFactory, Optional.<DynamicFilter>absent());
+        }
+
+        /**
+         * Creates a factory for {@code partitionCount} operators, each building the lookup
+         * source for one partition of a local exchange hash partitioned on the hash channels.
+         * Operators are assigned partitions in creation order.
+         */
+        public HashBuilderOperatorFactory(
+                int operatorId,
+                List<Type> types,
+                List<Integer> hashChannels,
+                int expectedPositions,
+                int partitionCount)
+        {
+            this(operatorId, types, hashChannels, Optional.<Integer>absent(), expectedPositions, partitionCount);
+        }
+
+        public HashBuilderOperatorFactory(
+                int operatorId,
+                List<Type> types,
+                List<Integer> hashChannels,
+                Optional<Integer> hashChannel,
+                int expectedPositions,
+                int partitionCount)
+        {
+            this(operatorId, types, hashChannels, hashChannel, expectedPositions, partitionCount, 1, sameThreadExecutor(), Optional.<SpillerFactory>absent(), Optional.<DynamicFilter>absent());
+        }
+
+        /**
+         * @param dynamicFilter filter that receives the keys of each operator, one partition per operator
+         */
+        public HashBuilderOperatorFactory(
+                int operatorId,
+                List<Type> types,
+                List<Integer> hashChannels,
+                Optional<Integer> hashChannel,
+                int expectedPositions,
+                int partitionCount,
+                int hashBuildConcurrency,
+                Executor hashBuildExecutor,
+                Optional<SpillerFactory> spillerFactory,
+                Optional<DynamicFilter> dynamicFilter)
         {
             this.operatorId = operatorId;
-            this.lookupSourceSupplier = new SettableLookupSourceSupplier(checkNotNull(types, "types is null"));
+            checkNotNull(types, "types is null");
 
             Preconditions.checkArgument(!hashChannels.isEmpty(), "hashChannels is empty");
             this.hashChannels = ImmutableList.copyOf(checkNotNull(hashChannels, "hashChannels is null"));
+            this.hashChannel = checkNotNull(hashChannel, "hashChannel is null");
+
+            ImmutableList.Builder<Type> hashTypes = ImmutableList.builder();
+            for (int channel : hashChannels) {
+                hashTypes.add(types.get(channel));
+            }
+            this.lookupSourceSupplier = new SettableLookupSourceSupplier(types, hashTypes.build(), partitionCount);
 
             this.expectedPositions = checkNotNull(expectedPositions, "expectedPositions is null");
+
+            // the partitions of a parallel hash build can not be nested inside the partitions of a local exchange
+            checkArgument(hashBuildConcurrency > 0, "hashBuildConcurrency must be at least 1");
+            checkArgument(partitionCount == 1 || hashBuildConcurrency == 1, "hashBuildConcurrency is not supported for a partitioned lookup source");
+            this.hashBuildConcurrency = hashBuildConcurrency;
+            this.hashBuildExecutor = checkNotNull(hashBuildExecutor, "hashBuildExecutor is null");
+
+            this.spillerFactory = checkNotNull(spillerFactory, "spillerFactory is null");
+            this.dynamicFilter = checkNotNull(dynamicFilter, "dynamicFilter is null");
         }
 
         public LookupSourceSupplier getLookupSourceSupplier()
@@ -68,12 +189,27 @@ public class HashBuilderOperator
         public Operator createOperator(DriverContext driverContext)
         {
             checkState(!closed, "Factory is already closed");
+            int partition = 0;
+            if (lookupSourceSupplier.getPartitionCount() > 1) {
+                checkState(nextPartition < lookupSourceSupplier.getPartitionCount(), "All %s partitions already have an operator", lookupSourceSupplier.getPartitionCount());
+                partition = nextPartition++;
+            }
             OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, HashBuilderOperator.class.getSimpleName());
+            Optional<DynamicFilterCollector> dynamicFilterCollector = Optional.absent();
+            if (dynamicFilter.isPresent()) {
+                dynamicFilterCollector = Optional.of(new DynamicFilterCollector(dynamicFilter.get(), lookupSourceSupplier.getTypes(), hashChannels));
+            }
             return new HashBuilderOperator(
                     operatorContext,
                     lookupSourceSupplier,
+                    partition,
                     hashChannels,
-                    expectedPositions);
+                    hashChannel,
+                    expectedPositions,
+                    hashBuildConcurrency,
+                    hashBuildExecutor,
+                    spillerFactory,
+                    dynamicFilterCollector);
         }
 
         @Override
@@ -85,9 +221,19 @@ public class HashBuilderOperator
 
     private final OperatorContext operatorContext;
     private final SettableLookupSourceSupplier lookupSourceSupplier;
+    private final int partition;
     private final List<Integer> hashChannels;
+    private final Optional<Integer> hashChannel;
+    private final int hashBuildConcurrency;
+    private final Executor hashBuildExecutor;
+    private final Optional<SpillerFactory> spillerFactory;
+    private final Optional<DynamicFilterCollector> dynamicFilterCollector;
+
+    private PagesIndex pagesIndex;
+    private PartitioningSpiller spiller;
 
-    private final PagesIndex pagesIndex;
+    // set once the lookup source is being built, which may complete in the background
+    private ListenableFuture<LookupSource> lookupSourceFuture;
 
     private boolean finished;
 
@@ -96,13 +242,38 @@ public class HashBuilderOperator
             SettableLookupSourceSupplier lookupSourceSupplier,
             List<Integer> hashChannels,
             int expectedPositions)
+    {
+        this(operatorContext, lookupSourceSupplier, 0, hashChannels, Optional.<Integer>absent(), expectedPositions, 1, sameThreadExecutor(), Optional.<SpillerFactory>absent(), Optional.<DynamicFilterCollector>absent());
+    }
+
+    public HashBuilderOperator(
+            OperatorContext operatorContext,
+            SettableLookupSourceSupplier lookupSourceSupplier,
+            int partition,
+            List<Integer> hashChannels,
+            Optional<Integer> hashChannel,
+            int expectedPositions,
+            int hashBuildConcurrency,
+            Executor hashBuildExecutor,
+            Optional<SpillerFactory> spillerFactory,
+            Optional<DynamicFilterCollector> dynamicFilterCollector)
     {
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
 
         this.lookupSourceSupplier = checkNotNull(lookupSourceSupplier, "hashSupplier is null");
+        this.partition = partition;
 
         Preconditions.checkArgument(!hashChannels.isEmpty(), "hashChannels is empty");
         this.hashChannels = ImmutableList.copyOf(checkNotNull(hashChannels, "hashChannels is null"));
+        this.hashChannel = checkNotNull(hashChannel, "hashChannel is null");
+
+        checkArgument(hashBuildConcurrency > 0, "hashBuildConcurrency must be at least 1");
+        this.hashBuildConcurrency = hashBuildConcurrency;
+        this.hashBuildExecutor = checkNotNull(hashBuildExecutor, "hashBuildExecutor is null");
+
+        this.spillerFactory = checkNotNull(spillerFactory, "spillerFactory is null");
+        checkArgument(lookupSourceSupplier.getPartitionCount() == 1 || !spillerFactory.isPresent(), "Spilling is not supported for a partitioned lookup source");
+        this.dynamicFilterCollector = checkNotNull(dynamicFilterCollector, "dynamicFilterCollector is null");
 
         this.pagesIndex = new PagesIndex(lookupSourceSupplier.getTypes(), expectedPositions, operatorContext);
     }
@@ -126,8 +297,30 @@ public class HashBuilderOperator
             return;
         }
 
-        LookupSource lookupSource = pagesIndex.createLookupSource(hashChannels);
-        lookupSourceSupplier.setLookupSource(lookupSource);
+        if (lookupSourceFuture == null) {
+            // publish the keys before the lookup source, so the probe side scan is not started without them
+            if (dynamicFilterCollector.isPresent()) {
+                dynamicFilterCollector.get().publish();
+            }
+
+            if (spiller != null) {
+                // hand the spill files over to the join operators, which release them when done
+                spiller.flush();
+                lookupSourceSupplier.setSpilledPartitions(new SpilledLookupPartitions(spiller, hashChannels, hashChannel, spillerFactory.get()));
+                spiller = null;
+                finished = true;
+                return;
+            }
+
+            lookupSourceFuture = pagesIndex.createLookupSource(hashChannels, hashChannel, hashBuildConcurrency, hashBuildExecutor);
+        }
+
+        // a parallel build runs in the background while the operator reports itself blocked,
+        // and the driver calls finish again once it is done
+        if (!lookupSourceFuture.isDone()) {
+            return;
+        }
+        lookupSourceSupplier.setLookupSource(partition, tryGetUnchecked(lookupSourceFuture));
         finished = true;
     }
 
@@ -140,13 +333,16 @@ public class HashBuilderOperator
     @Override
     public ListenableFuture<?> isBlocked()
     {
-        return NOT_BLOCKED;
+        if (lookupSourceFuture == null || finished) {
+            return NOT_BLOCKED;
+        }
+        return lookupSourceFuture;
     }
 
     @Override
     public boolean needsInput()
     {
-        return !finished;
+        return !finished && lookupSourceFuture == null;
     }
 
     @Override
@@ -155,8 +351,29 @@ public class HashBuilderOperator
         checkNotNull(page, "page is null");
         checkState(!isFinished(), "Operator is already finished");
 
-        pagesIndex.addPage(page);
-        operatorContext.recordGeneratedOutput(page.getDataSize(), page.getPositionCount());
+        if (dynamicFilterCollector.isPresent()) {
+            dynamicFilterCollector.get().add(page);
+        }
+
+        if (!spillerFactory.isPresent()) {
+            pagesIndex.addPage(page);
+        }
+        else if (spiller != null || !pagesIndex.tryAddPage(page)) {
+            spill(page);
+        }
+        operatorContext.recordGeneratedOutput(new DataSize(page.getSizeInBytes(), BYTE), page.getPositionCount());
+    }
+
+    private void spill(Page page)
+    {
+        if (spiller == null) {
+            // the build side does not fit in memory, so switch to a partitioned join
+            spiller = new PartitioningSpiller(spillerFactory.get().create(), lookupSourceSupplier.getTypes(), hashChannels, SPILL_PARTITION_COUNT);
+            spiller.spill(pagesIndex.getPages().iterator());
+            pagesIndex = null;
+            operatorContext.trySetMemoryReservation(0);
+        }
+        spiller.spill(page);
     }
 
     @Override
@@ -164,4 +381,19 @@ public class HashBuilderOperator
     {
         return null;
     }
+
+    @Override
+    public void close()
+    {
+        // only running if the operator failed or was aborted during a parallel build
+        if (lookupSourceFuture != null && !finished) {
+            lookupSourceFuture.cancel(true);
+        }
+
+        // only set if the operator failed before publishing the spilled partitions
+        if (spiller != null) {
+            spiller.close();
+            spiller = null;
+        }
+    }
 }
@@ -14,14 +14,17 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.operator.SetBuilderOperator.SetSupplier;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.List;
 
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
 import static com.facebook.presto.util.MoreFutures.tryGetUnchecked;
 import static com.google.common.base.Preconditions.checkArgument;
@@ -40,16 +43,26 @@ public class HashSemiJoinOperator
         private final SetSupplier setSupplier;
         private final List<Type> probeTypes;
         private final int probeJoinChannel;
+        private final Optional<Integer> probeHashChannel;
         private final List<Type> types;
         private boolean closed;
 
         public HashSemiJoinOperatorFactory(int operatorId, SetSupplier setSupplier, List<? extends Type> probeTypes, int probeJoinChannel)
+        {
+            this(operatorId, setSupplier, probeTypes, probeJoinChannel, Optional.<Integer>absent());
+        }
+
+        /**
+         * @param probeHashChannel channel holding the precomputed hash of the probe join channel
+         */
+        public HashSemiJoinOperatorFactory(int operatorId, SetSupplier setSupplier, List<? extends Type> probeTypes, int probeJoinChannel, Optional<Integer> probeHashChannel)
         {
             this.operatorId = operatorId;
             this.setSupplier = setSupplier;
             this.probeTypes = ImmutableList.copyOf(probeTypes);
             checkArgument(probeJoinChannel >= 0, "probeJoinChannel is negative");
             this.probeJoinChannel = probeJoinChannel;
+            this.probeHashChannel = checkNotNull(probeHashChannel, "probeHashChannel is null");
 
             this.types = ImmutableList.<Type>builder()
                     .addAll(probeTypes)
@@ -68,7 +81,7 @@ public class HashSemiJoinOperator
         {
             checkState(!closed, "Factory is already closed");
             OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, HashBuilderOperator.class.getSimpleName());
-            return new HashSemiJoinOperator(operatorContext, setSupplier, probeTypes, probeJoinChannel);
+            return new HashSemiJoinOperator(operatorContext, setSupplier, probeTypes, probeJoinChannel, probeHashChannel);
         }
 
         @Override
@@ -79,6 +92,7 @@ public class HashSemiJoinOperator
     }
 
     private final int probeJoinChannel;
+    private final Optional<Integer> probeHashChannel;
     private final List<Type> types;
     private final ListenableFuture<ChannelSet> channelSetFuture;
 
@@ -87,6 +101,11 @@ public class HashSemiJoinOperator
     private boolean finishing;
 
     public HashSemiJoinOperator(OperatorContext operatorContext, SetSupplier channelSetFuture, List<Type> probeTypes, int probeJoinChannel)
+    {
+        this(operatorContext, channelSetFuture, probeTypes, probeJoinChannel, Optional.<Integer>absent());
+    }
+
+    public HashSemiJoinOperator(OperatorContext operatorContext, SetSupplier channelSetFuture, List<Type> probeTypes, int probeJoinChannel, Optional<Integer> probeHashChannel)
     {
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
 
@@ -97,6 +116,7 @@ public class HashSemiJoinOperator
 
         this.channelSetFuture = channelSetFuture.getChannelSet();
         this.probeJoinChannel = probeJoinChannel;
+        this.probeHashChannel = checkNotNull(probeHashChannel, "probeHashChannel is null");
 
         this.types = ImmutableList.<Type>builder()
                 .addAll(probeTypes)
@@ -160,6 +180,10 @@ public class HashSemiJoinOperator
         BlockBuilder blockBuilder = BOOLEAN.createFixedSizeBlockBuilder(page.getPositionCount());
 
         Block probeJoinBlock = page.getBlock(probeJoinChannel);
+        Block probeHashBlock = null;
+        if (probeHashChannel.isPresent()) {
+            probeHashBlock = page.getBlock(probeHashChannel.get());
+        }
 
         // update hashing strategy to use probe cursor
         for (int position = 0; position < page.getPositionCount(); position++) {
@@ -167,7 +191,13 @@ public class HashSemiJoinOperator
                 blockBuilder.appendNull();
             }
             else {
-                boolean contains = channelSet.contains(position, probeJoinBlock);
+                boolean contains;
+                if (probeHashBlock != null) {
+                    contains = channelSet.contains(position, probeJoinBlock, (int) BIGINT.getLong(probeHashBlock, position));
+                }
+                else {
+                    contains = channelSet.contains(position, probeJoinBlock);
+                }
                 if (!contains && channelSet.containsNull()) {
                     blockBuilder.appendNull();
                 }
@@ -13,7 +13,10 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
@@ -22,6 +25,7 @@ import io.airlift.units.DataSize;
 import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -32,13 +36,32 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 
+/**
+ * Moves pages between the pipelines of a task.  Pages are written by any number of
+ * sinks and spread over one buffer per reading driver, either round-robin or by hashing
+ * a set of partition channels, so each reader sees all the rows of its partitions.
+ */
 @ThreadSafe
 public class InMemoryExchange
 {
     private final List<Type> types;
-    private final Queue<Page> buffer;
+    private final List<Queue<Page>> buffers;
+    private final Optional<List<Integer>> partitionChannels;
+    private final Optional<LocalPartitionFunction> partitionFunction;
     private final long maxBufferedBytes;
 
+    @GuardedBy("this")
+    private final boolean[] finishedBuffers;
+
+    @GuardedBy("this")
+    private int finishedBufferCount;
+
+    @GuardedBy("this")
+    private int nextBuffer;
+
+    @GuardedBy("this")
+    private int nextSourceBuffer;
+
     @GuardedBy("this")
     private boolean finishing;
 
@@ -66,9 +89,39 @@ public class InMemoryExchange
     }
 
     public InMemoryExchange(List<Type> types, DataSize maxBufferedBytes)
+    {
+        this(types, 1, Optional.<List<Integer>>absent(), maxBufferedBytes);
+    }
+
+    public InMemoryExchange(List<Type> types, int bufferCount, Optional<List<Integer>> partitionChannels)
+    {
+        this(types, bufferCount, partitionChannels, new DataSize(32, MEGABYTE));
+    }
+
+    public InMemoryExchange(List<Type> types, int bufferCount, Optional<List<Integer>> partitionChannels, DataSize maxBufferedBytes)
     {
         this.types = ImmutableList.copyOf(checkNotNull(types, "types is null"));
-        this.buffer = new ConcurrentLinkedQueue<>();
+
+        checkArgument(bufferCount > 0, "bufferCount must be at least 1");
+        ImmutableList.Builder<Queue<Page>> buffers = ImmutableList.builder();
+        for (int i = 0; i < bufferCount; i++) {
+            buffers.add(new ConcurrentLinkedQueue<Page>());
+        }
+        this.buffers = buffers.build();
+        this.finishedBuffers = new boolean[bufferCount];
+
+        checkNotNull(partitionChannels, "partitionChannels is null");
+        this.partitionChannels = partitionChannels.isPresent() ? Optional.<List<Integer>>of(ImmutableList.copyOf(partitionChannels.get())) : Optional.<List<Integer>>absent();
+        if (partitionChannels.isPresent() && bufferCount > 1) {
+            ImmutableList.Builder<Type> partitionTypes = ImmutableList.builder();
+            for (int channel : partitionChannels.get()) {
+                partitionTypes.add(types.get(channel));
+            }
+            this.partitionFunction = Optional.of(new LocalPartitionFunction(partitionTypes.build(), bufferCount));
+        }
+        else {
+            this.partitionFunction = Optional.absent();
+        }
 
         checkArgument(maxBufferedBytes.toBytes() > 0, "maxBufferedBytes must be greater than zero");
         this.maxBufferedBytes = maxBufferedBytes.toBytes();
@@ -79,6 +132,24 @@ public class InMemoryExchange
         return types;
     }
 
+    public int getBufferCount()
+    {
+        return buffers.size();
+    }
+
+    /**
+     * Assigns a buffer to a new reader.  Readers are assigned buffers in creation order;
+     * with a single buffer, all readers share it.
+     */
+    synchronized int assignSourceBuffer()
+    {
+        if (buffers.size() == 1) {
+            return 0;
+        }
+        checkState(nextSourceBuffer < buffers.size(), "All %s buffers are already assigned to a reader", buffers.size());
+        return nextSourceBuffer++;
+    }
+
     public synchronized OperatorFactory createSinkFactory(int operatorId)
     {
         sinkFactories++;
@@ -130,18 +201,115 @@ public class InMemoryExchange
         notifyBlockedWriters();
     }
 
-    public synchronized boolean isFinished()
+    public boolean isFinished()
+    {
+        return isFinished(0);
+    }
+
+    public synchronized boolean isFinished(int bufferId)
+    {
+        return finishedBuffers[bufferId] || (finishing && buffers.get(bufferId).isEmpty());
+    }
+
+    /**
+     * Called when the reader of a buffer no longer needs input.  Once every reader is
+     * done, the exchange finishes and the writers are released.
+     */
+    public synchronized void finish(int bufferId)
+    {
+        if (finishedBuffers[bufferId]) {
+            return;
+        }
+        finishedBuffers[bufferId] = true;
+        finishedBufferCount++;
+
+        Queue<Page> buffer = buffers.get(bufferId);
+        for (Page page = buffer.poll(); page != null; page = buffer.poll()) {
+            bufferBytes -= page.getSizeInBytes();
+        }
+
+        if (finishedBufferCount == buffers.size()) {
+            finish();
+        }
+        else if (bufferBytes < maxBufferedBytes) {
+            notifyBlockedWriters();
+        }
+    }
+
+    public void addPage(Page page)
     {
-        return finishing && buffer.isEmpty();
+        if (!partitionFunction.isPresent()) {
+            addPage(page, -1);
+            return;
+        }
+
+        // partition outside of the lock, so concurrent sinks do not serialize on the exchange
+        List<Integer> channels = partitionChannels.get();
+        Block[] partitionBlocks = new Block[channels.size()];
+        for (int i = 0; i < partitionBlocks.length; i++) {
+            partitionBlocks[i] = page.getBlock(channels.get(i));
+        }
+
+        // compute the partition of every position first, so builders are only created for the partitions that have rows
+        int positionCount = page.getPositionCount();
+        if (positionCount == 0) {
+            return;
+        }
+        int[] partitions = new int[positionCount];
+        int[] partitionSizes = new int[buffers.size()];
+        for (int position = 0; position < positionCount; position++) {
+            int partition = partitionFunction.get().getPartition(position, partitionBlocks);
+            partitions[position] = partition;
+            partitionSizes[partition]++;
+        }
+
+        // group the positions by partition, keeping their order within each partition
+        int[] partitionStarts = new int[buffers.size() + 1];
+        for (int partition = 0; partition < buffers.size(); partition++) {
+            partitionStarts[partition + 1] = partitionStarts[partition] + partitionSizes[partition];
+            if (partitionSizes[partition] == positionCount) {
+                // every row belongs to the same partition, so the page does not need to be copied
+                addPage(page, partition);
+                return;
+            }
+        }
+        int[] nextPositions = Arrays.copyOf(partitionStarts, buffers.size());
+        int[] positions = new int[positionCount];
+        for (int position = 0; position < positionCount; position++) {
+            positions[nextPositions[partitions[position]]++] = position;
+        }
+
+        for (int partition = 0; partition < buffers.size(); partition++) {
+            if (partitionSizes[partition] == 0) {
+                continue;
+            }
+            PageBuilder pageBuilder = new PageBuilder(types);
+            for (int i = partitionStarts[partition]; i < partitionStarts[partition + 1]; i++) {
+                int position = positions[i];
+                for (int channel = 0; channel < types.size(); channel++) {
+                    types.get(channel).appendTo(page.getBlock(channel), position, pageBuilder.getBlockBuilder(channel));
+                }
+                pageBuilder.declarePosition();
+            }
+            addPage(pageBuilder.build(), partition);
+        }
     }
 
-    public synchronized void addPage(Page page)
+    private synchronized void addPage(Page page, int bufferId)
     {
         if (finishing) {
             return;
         }
-        buffer.add(page);
-        bufferBytes += page.getDataSize().toBytes();
+        if (bufferId < 0) {
+            // round-robin whole pages over the buffers
+            bufferId = nextBuffer;
+            nextBuffer = (nextBuffer + 1) % buffers.size();
+        }
+        if (finishedBuffers[bufferId]) {
+            return;
+        }
+        buffers.get(bufferId).add(page);
+        bufferBytes += page.getSizeInBytes();
         // TODO: record memory usage using OperatorContext.setMemoryReservation()
         notifyBlockedReaders();
     }
@@ -154,9 +322,14 @@ public class InMemoryExchange
         }
     }
 
-    public synchronized ListenableFuture<?> waitForReading()
+    public ListenableFuture<?> waitForReading()
+    {
+        return waitForReading(0);
+    }
+
+    public synchronized ListenableFuture<?> waitForReading(int bufferId)
     {
-        if (finishing || !buffer.isEmpty()) {
+        if (finishing || finishedBuffers[bufferId] || !buffers.get(bufferId).isEmpty()) {
             return NOT_BLOCKED;
         }
         if (readerFuture == null) {
@@ -165,11 +338,16 @@ public class InMemoryExchange
         return readerFuture;
     }
 
-    public synchronized Page removePage()
+    public Page removePage()
+    {
+        return removePage(0);
+    }
+
+    public synchronized Page removePage(int bufferId)
     {
-        Page page = buffer.poll();
+        Page page = buffers.get(bufferId).poll();
         if (page != null) {
-            bufferBytes -= page.getDataSize().toBytes();
+            bufferBytes -= page.getSizeInBytes();
         }
         if (bufferBytes < maxBufferedBytes) {
             notifyBlockedWriters();
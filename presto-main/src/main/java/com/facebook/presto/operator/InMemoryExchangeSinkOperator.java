@@ -13,13 +13,16 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
 
 import java.util.List;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.units.DataSize.Unit.BYTE;
 
 public class InMemoryExchangeSinkOperator
         implements Operator
@@ -86,7 +89,7 @@ public class InMemoryExchangeSinkOperator
         checkNotNull(page, "page is null");
         checkState(!finished, "Already finished");
         inMemoryExchange.addPage(page);
-        operatorContext.recordGeneratedOutput(page.getDataSize(), page.getPositionCount());
+        operatorContext.recordGeneratedOutput(new DataSize(page.getSizeInBytes(), BYTE), page.getPositionCount());
     }
 
     @Override
@@ -13,13 +13,17 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
 
 import java.util.List;
 
+import static com.google.common.base.Preconditions.checkElementIndex;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.units.DataSize.Unit.BYTE;
 
 public class InMemoryExchangeSourceOperator
         implements Operator
@@ -48,7 +52,7 @@ public class InMemoryExchangeSourceOperator
         {
             checkState(!closed, "Factory is already closed");
             OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, InMemoryExchangeSourceOperator.class.getSimpleName());
-            return new InMemoryExchangeSourceOperator(operatorContext, inMemoryExchange);
+            return new InMemoryExchangeSourceOperator(operatorContext, inMemoryExchange, inMemoryExchange.assignSourceBuffer());
         }
 
         @Override
@@ -60,11 +64,19 @@ public class InMemoryExchangeSourceOperator
 
     private final OperatorContext operatorContext;
     private final InMemoryExchange exchange;
+    private final int bufferId;
 
     public InMemoryExchangeSourceOperator(OperatorContext operatorContext, InMemoryExchange exchange)
+    {
+        this(operatorContext, exchange, 0);
+    }
+
+    public InMemoryExchangeSourceOperator(OperatorContext operatorContext, InMemoryExchange exchange, int bufferId)
     {
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
         this.exchange = checkNotNull(exchange, "exchange is null");
+        checkElementIndex(bufferId, exchange.getBufferCount(), "bufferId");
+        this.bufferId = bufferId;
     }
 
     @Override
@@ -82,19 +94,19 @@ public class InMemoryExchangeSourceOperator
     @Override
     public void finish()
     {
-        exchange.finish();
+        exchange.finish(bufferId);
     }
 
     @Override
     public boolean isFinished()
     {
-        return exchange.isFinished();
+        return exchange.isFinished(bufferId);
     }
 
     @Override
     public ListenableFuture<?> isBlocked()
     {
-        ListenableFuture<?> blocked = exchange.waitForReading();
+        ListenableFuture<?> blocked = exchange.waitForReading(bufferId);
         if (blocked.isDone()) {
             return NOT_BLOCKED;
         }
@@ -116,9 +128,9 @@ public class InMemoryExchangeSourceOperator
     @Override
     public Page getOutput()
     {
-        Page page = exchange.removePage();
+        Page page = exchange.removePage(bufferId);
         if (page != null) {
-            operatorContext.recordGeneratedInput(page.getDataSize(), page.getPositionCount());
+            operatorContext.recordGeneratedInput(new DataSize(page.getSizeInBytes(), BYTE), page.getPositionCount());
         }
         return page;
     }
@@ -94,7 +94,13 @@ public final class InMemoryJoinHash
     @Override
     public long getJoinPosition(int position, Block... blocks)
     {
-        int pos = ((int) Murmur3.hash64(pagesHashStrategy.hashRow(position, blocks))) & mask;
+        return getJoinPosition(position, blocks, pagesHashStrategy.hashRow(position, blocks));
+    }
+
+    @Override
+    public long getJoinPosition(int position, Block[] blocks, long rawHash)
+    {
+        int pos = ((int) Murmur3.hash64((int) rawHash)) & mask;
 
         while (key[pos] != -1) {
             if (positionEqualsCurrentRow(key[pos], position, blocks)) {
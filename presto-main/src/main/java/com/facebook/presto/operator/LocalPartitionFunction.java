@@ -0,0 +1,62 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Murmur3;
+
+import java.util.List;
+
+import static com.facebook.presto.type.TypeUtils.hashPosition;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Assigns rows to the partitions of a local exchange by hashing a set of channels.
+ * Every user of the same types and partition count agrees on the partition of a row,
+ * so a probe row can be routed to the build partition that holds its matches.
+ */
+public final class LocalPartitionFunction
+{
+    private final List<Type> types;
+    private final int partitionCount;
+
+    public LocalPartitionFunction(List<? extends Type> types, int partitionCount)
+    {
+        checkArgument(partitionCount > 0, "partitionCount must be at least 1");
+        this.types = ImmutableList.copyOf(checkNotNull(types, "types is null"));
+        this.partitionCount = partitionCount;
+    }
+
+    public int getPartitionCount()
+    {
+        return partitionCount;
+    }
+
+    /**
+     * @param blocks the blocks of the hashed channels, in the order of the types
+     */
+    public int getPartition(int position, Block... blocks)
+    {
+        long hashCode = 1;
+        for (int i = 0; i < blocks.length; i++) {
+            hashCode *= 31;
+            hashCode += hashPosition(types.get(i), blocks[i], position);
+        }
+        // hash tables and spill partitions use the low bits of this mixing function, so use the high bits here
+        return (int) ((Murmur3.hash64(hashCode) >>> 32) % partitionCount);
+    }
+}
@@ -13,10 +13,15 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.PartitioningSpiller;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
 
+import java.io.Closeable;
+import java.util.Iterator;
 import java.util.List;
 
 import static com.facebook.presto.util.MoreFutures.tryGetUnchecked;
@@ -24,11 +29,15 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
 public class LookupJoinOperator
-        implements Operator
+        implements Operator, Closeable
 {
     private final ListenableFuture<LookupSource> lookupSourceFuture;
+    private final ListenableFuture<Optional<SpilledLookupPartitions>> spilledPartitionsFuture;
 
     private final OperatorContext operatorContext;
+    private final LookupSourceSupplier lookupSourceSupplier;
+    private final List<Type> probeTypes;
+    private final List<Integer> probeJoinChannels;
     private final JoinProbeFactory joinProbeFactory;
     private final boolean enableOuterJoin;
     private final List<Type> types;
@@ -37,23 +46,34 @@ public class LookupJoinOperator
     private LookupSource lookupSource;
     private JoinProbe probe;
 
+    // set when the build side was spilled, in which case the probe side is spilled
+    // with the same partitioning and joined one partition at a time after finish
+    private SpilledLookupPartitions spilledPartitions;
+    private PartitioningSpiller probeSpiller;
+    private Iterator<Page> spilledProbePages;
+    private int spilledPartition = -1;
+
     private boolean finishing;
+    private boolean closed;
     private long joinPosition = -1;
 
     public LookupJoinOperator(
             OperatorContext operatorContext,
             LookupSourceSupplier lookupSourceSupplier,
             List<Type> probeTypes,
+            List<Integer> probeJoinChannels,
             boolean enableOuterJoin,
             JoinProbeFactory joinProbeFactory)
     {
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
 
         // todo pass in desired projection
-        checkNotNull(lookupSourceSupplier, "lookupSourceSupplier is null");
-        checkNotNull(probeTypes, "probeTypes is null");
+        this.lookupSourceSupplier = checkNotNull(lookupSourceSupplier, "lookupSourceSupplier is null");
+        this.probeTypes = ImmutableList.copyOf(checkNotNull(probeTypes, "probeTypes is null"));
+        this.probeJoinChannels = ImmutableList.copyOf(checkNotNull(probeJoinChannels, "probeJoinChannels is null"));
 
         this.lookupSourceFuture = lookupSourceSupplier.getLookupSource(operatorContext);
+        this.spilledPartitionsFuture = lookupSourceSupplier.getSpilledPartitions();
         this.joinProbeFactory = joinProbeFactory;
         this.enableOuterJoin = enableOuterJoin;
 
@@ -62,6 +82,8 @@ public class LookupJoinOperator
                 .addAll(lookupSourceSupplier.getTypes())
                 .build();
         this.pageBuilder = new PageBuilder(types);
+
+        lookupSourceSupplier.retain();
     }
 
     @Override
@@ -85,7 +107,7 @@ public class LookupJoinOperator
     @Override
     public boolean isFinished()
     {
-        boolean finished = finishing && probe == null && pageBuilder.isEmpty();
+        boolean finished = finishing && probe == null && probeSpiller == null && pageBuilder.isEmpty();
 
         // if finished drop references so memory is freed early
         if (finished) {
@@ -100,7 +122,8 @@ public class LookupJoinOperator
     @Override
     public ListenableFuture<?> isBlocked()
     {
-        return lookupSourceFuture;
+        // completes once the build side is done, whether or not it was spilled
+        return spilledPartitionsFuture;
     }
 
     @Override
@@ -110,10 +133,20 @@ public class LookupJoinOperator
             return false;
         }
 
-        if (lookupSource == null) {
-            lookupSource = tryGetUnchecked(lookupSourceFuture);
+        if (lookupSource == null && spilledPartitions == null) {
+            Optional<SpilledLookupPartitions> spilled = tryGetUnchecked(spilledPartitionsFuture);
+            if (spilled == null) {
+                return false;
+            }
+            if (spilled.isPresent()) {
+                spilledPartitions = spilled.get();
+                probeSpiller = spilledPartitions.createProbeSpiller(probeTypes, probeJoinChannels);
+            }
+            else {
+                lookupSource = tryGetUnchecked(lookupSourceFuture);
+            }
         }
-        return lookupSource != null && probe == null;
+        return (lookupSource != null || probeSpiller != null) && probe == null;
     }
 
     @Override
@@ -121,9 +154,14 @@ public class LookupJoinOperator
     {
         checkNotNull(page, "page is null");
         checkState(!finishing, "Operator is finishing");
-        checkState(lookupSource != null, "Lookup source has not been built yet");
+        checkState(lookupSource != null || probeSpiller != null, "Lookup source has not been built yet");
         checkState(probe == null, "Current page has not been completely processed yet");
 
+        if (probeSpiller != null) {
+            probeSpiller.spill(page);
+            return;
+        }
+
         // create probe
         probe = joinProbeFactory.createJoinProbe(lookupSource, page);
 
@@ -134,6 +172,10 @@ public class LookupJoinOperator
     @Override
     public Page getOutput()
     {
+        if (probe == null && finishing && probeSpiller != null) {
+            advanceSpilledProbe();
+        }
+
         // join probe page with the lookup source
         if (probe != null) {
             while (joinCurrentPosition()) {
@@ -147,7 +189,7 @@ public class LookupJoinOperator
         }
 
         // only flush full pages unless we are done
-        if (pageBuilder.isFull() || (finishing && !pageBuilder.isEmpty() && probe == null)) {
+        if (pageBuilder.isFull() || (finishing && !pageBuilder.isEmpty() && probe == null && probeSpiller == null)) {
             Page page = pageBuilder.build();
             pageBuilder.reset();
             return page;
@@ -156,6 +198,50 @@ public class LookupJoinOperator
         return null;
     }
 
+    private void advanceSpilledProbe()
+    {
+        while (spilledProbePages == null || !spilledProbePages.hasNext()) {
+            // drop the previous partition before loading the next one
+            lookupSource = null;
+            operatorContext.trySetMemoryReservation(0);
+
+            spilledPartition++;
+            if (spilledPartition >= spilledPartitions.getPartitionCount()) {
+                closeProbeSpiller();
+                return;
+            }
+
+            spilledProbePages = probeSpiller.readPartition(spilledPartition);
+            if (spilledProbePages.hasNext()) {
+                lookupSource = spilledPartitions.loadPartition(spilledPartition, operatorContext);
+            }
+        }
+
+        probe = joinProbeFactory.createJoinProbe(lookupSource, spilledProbePages.next());
+        joinPosition = -1;
+    }
+
+    private void closeProbeSpiller()
+    {
+        if (probeSpiller != null) {
+            probeSpiller.close();
+            probeSpiller = null;
+            spilledProbePages = null;
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        closeProbeSpiller();
+        lookupSourceSupplier.release();
+    }
+
     private boolean joinCurrentPosition()
     {
         // while we have a position to join against...
@@ -21,6 +21,11 @@ public interface LookupSource
 
     long getJoinPosition(int position, Block... blocks);
 
+    /**
+     * @param rawHash the hash of the row, as computed by {@link PagesHashStrategy#hashRow}
+     */
+    long getJoinPosition(int position, Block[] blocks, long rawHash);
+
     long getNextJoinPosition(long currentPosition);
 
     void appendTo(long position, PageBuilder pageBuilder, int outputChannelOffset);
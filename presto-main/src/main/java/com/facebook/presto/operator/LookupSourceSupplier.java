@@ -14,6 +14,7 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.List;
@@ -23,4 +24,23 @@ public interface LookupSourceSupplier
     List<Type> getTypes();
 
     ListenableFuture<LookupSource> getLookupSource(OperatorContext operatorContext);
+
+    /**
+     * Returns a future that completes once the build side is done.  The value is absent if
+     * the build side fit in memory, in which case {@link #getLookupSource} is done as well.
+     * Otherwise the build side was spilled to disk, the lookup source is never set, and the
+     * join must be performed one partition at a time against the returned partitions.
+     */
+    ListenableFuture<Optional<SpilledLookupPartitions>> getSpilledPartitions();
+
+    /**
+     * Registers a user of the lookup source.  Every call must be matched by a call to {@link #release}.
+     */
+    void retain();
+
+    /**
+     * Unregisters a user of the lookup source.  Once all users are gone, any resources
+     * held by the lookup source may be freed.
+     */
+    void release();
 }
@@ -13,10 +13,12 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
 
 import java.util.List;
 
@@ -34,7 +36,12 @@ public class MarkDistinctHash
 
     public MarkDistinctHash(List<Type> types, int[] channels, int expectedDistinctValues)
     {
-        this.groupByHash = new GroupByHash(types, channels, expectedDistinctValues);
+        this(types, channels, Optional.<Integer>absent(), expectedDistinctValues);
+    }
+
+    public MarkDistinctHash(List<Type> types, int[] channels, Optional<Integer> hashChannel, int expectedDistinctValues)
+    {
+        this.groupByHash = new MultiChannelGroupByHash(types, channels, hashChannel, expectedDistinctValues);
     }
 
     public long getEstimatedSize()
@@ -13,8 +13,10 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -35,15 +37,22 @@ public class MarkDistinctOperator
     {
         private final int operatorId;
         private final int[] markDistinctChannels;
+        private final Optional<Integer> hashChannel;
         private final List<Type> types;
         private boolean closed;
 
         public MarkDistinctOperatorFactory(int operatorId, List<? extends Type> sourceTypes, Collection<Integer> markDistinctChannels)
+        {
+            this(operatorId, sourceTypes, markDistinctChannels, Optional.<Integer>absent());
+        }
+
+        public MarkDistinctOperatorFactory(int operatorId, List<? extends Type> sourceTypes, Collection<Integer> markDistinctChannels, Optional<Integer> hashChannel)
         {
             this.operatorId = operatorId;
             checkNotNull(markDistinctChannels, "markDistinctChannels is null");
             checkArgument(!markDistinctChannels.isEmpty(), "markDistinctChannels is empty");
             this.markDistinctChannels = Ints.toArray(markDistinctChannels);
+            this.hashChannel = checkNotNull(hashChannel, "hashChannel is null");
 
             this.types = ImmutableList.<Type>builder()
                     .addAll(sourceTypes)
@@ -62,7 +71,7 @@ public class MarkDistinctOperator
         {
             checkState(!closed, "Factory is already closed");
             OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, MarkDistinctOperator.class.getSimpleName());
-                return new MarkDistinctOperator(operatorContext, types, markDistinctChannels);
+                return new MarkDistinctOperator(operatorContext, types, markDistinctChannels, hashChannel);
         }
 
         @Override
@@ -80,6 +89,11 @@ public class MarkDistinctOperator
     private boolean finishing;
 
     public MarkDistinctOperator(OperatorContext operatorContext, List<Type> types, int[] markDistinctChannels)
+    {
+        this(operatorContext, types, markDistinctChannels, Optional.<Integer>absent());
+    }
+
+    public MarkDistinctOperator(OperatorContext operatorContext, List<Type> types, int[] markDistinctChannels, Optional<Integer> hashChannel)
     {
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
 
@@ -90,7 +104,7 @@ public class MarkDistinctOperator
         for (int channel : markDistinctChannels) {
             markDistinctTypes.add(types.get(channel));
         }
-        this.markDistinctHash = new MarkDistinctHash(markDistinctTypes.build(), markDistinctChannels);
+        this.markDistinctHash = new MarkDistinctHash(markDistinctTypes.build(), markDistinctChannels, checkNotNull(hashChannel, "hashChannel is null"), 10_000);
 
         this.types = ImmutableList.copyOf(types);
     }
@@ -15,6 +15,7 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.ExceededMemoryLimitException;
 import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
 import com.google.common.base.Function;
 import com.google.common.base.Supplier;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -123,7 +124,7 @@ public class OperatorContext
         addInputUserNanos.getAndAdd(nanosBetween(intervalUserStart.get(), currentThreadUserTime()));
 
         if (page != null) {
-            inputDataSize.update(page.getDataSize().toBytes());
+            inputDataSize.update(page.getSizeInBytes());
             inputPositions.update(page.getPositionCount());
         }
     }
@@ -148,7 +149,7 @@ public class OperatorContext
         getOutputUserNanos.getAndAdd(nanosBetween(intervalUserStart.get(), currentThreadUserTime()));
 
         if (page != null) {
-            outputDataSize.update(page.getDataSize().toBytes());
+            outputDataSize.update(page.getSizeInBytes());
             outputPositions.update(page.getPositionCount());
         }
     }
@@ -221,6 +222,25 @@ public class OperatorContext
         return newMemoryReservation;
     }
 
+    /**
+     * Like {@link #setMemoryReservation} but returns false instead of failing when the
+     * memory is not available.  Unlike setMemoryReservation, shrinking the reservation
+     * releases memory back to the task.
+     */
+    public synchronized boolean trySetMemoryReservation(long newMemoryReservation)
+    {
+        checkArgument(newMemoryReservation >= 0, "newMemoryReservation is negative");
+
+        long delta = newMemoryReservation - memoryReservation.get();
+        if (delta > 0) {
+            return reserveMemory(delta);
+        }
+        if (delta < 0) {
+            freeMemory(-delta);
+        }
+        return true;
+    }
+
     public void setInfoSupplier(Supplier<Object> infoSupplier)
     {
         checkNotNull(infoSupplier, "infoProvider is null");
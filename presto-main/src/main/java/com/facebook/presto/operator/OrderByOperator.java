@@ -13,19 +13,26 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.SortedRunSpiller;
+import com.facebook.presto.spiller.SpillerFactory;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
 import com.google.common.util.concurrent.ListenableFuture;
 
+import java.io.Closeable;
+import java.util.Iterator;
 import java.util.List;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
 public class OrderByOperator
-        implements Operator
+        implements Operator, Closeable
 {
     public static class OrderByOperatorFactory
             implements OperatorFactory
@@ -38,6 +45,7 @@ public class OrderByOperator
         private final List<Integer> sortChannels;
         private final List<SortOrder> sortOrder;
         private final List<Type> types;
+        private final Optional<SpillerFactory> spillerFactory;
         private boolean closed;
 
         public OrderByOperatorFactory(
@@ -47,6 +55,18 @@ public class OrderByOperator
                 int expectedPositions,
                 List<Integer> sortChannels,
                 List<SortOrder> sortOrder)
+        {
+            this(operatorId, sourceTypes, outputChannels, expectedPositions, sortChannels, sortOrder, Optional.<SpillerFactory>absent());
+        }
+
+        public OrderByOperatorFactory(
+                int operatorId,
+                List<? extends Type> sourceTypes,
+                List<Integer> outputChannels,
+                int expectedPositions,
+                List<Integer> sortChannels,
+                List<SortOrder> sortOrder,
+                Optional<SpillerFactory> spillerFactory)
         {
             this.operatorId = operatorId;
             this.sourceTypes = ImmutableList.copyOf(checkNotNull(sourceTypes, "sourceTypes is null"));
@@ -61,6 +81,7 @@ public class OrderByOperator
             this.sortOrder = ImmutableList.copyOf(checkNotNull(sortOrder, "sortOrder is null"));
 
             this.types = toTypes(sourceTypes, outputChannels);
+            this.spillerFactory = checkNotNull(spillerFactory, "spillerFactory is null");
         }
 
         @Override
@@ -82,7 +103,8 @@ public class OrderByOperator
                     expectedPositions,
                     sortTypes,
                     sortChannels,
-                    sortOrder);
+                    sortOrder,
+                    spillerFactory);
         }
 
         @Override
@@ -104,13 +126,19 @@ public class OrderByOperator
     private final List<Integer> sortChannels;
     private final List<SortOrder> sortOrder;
     private final int[] outputChannels;
+    private final List<Type> sourceTypes;
     private final List<Type> types;
+    private final Optional<SpillerFactory> spillerFactory;
 
     private final PagesIndex pageIndex;
 
     private final PageBuilder pageBuilder;
     private int currentPosition;
 
+    // set once the input did not fit in memory and sorted runs were written to disk
+    private SortedRunSpiller sortedRuns;
+    private Iterator<Page> mergedPages;
+
     private State state = State.NEEDS_INPUT;
 
     public OrderByOperator(
@@ -121,13 +149,28 @@ public class OrderByOperator
             List<Type> sortTypes,
             List<Integer> sortChannels,
             List<SortOrder> sortOrder)
+    {
+        this(operatorContext, sourceTypes, outputChannels, expectedPositions, sortTypes, sortChannels, sortOrder, Optional.<SpillerFactory>absent());
+    }
+
+    public OrderByOperator(
+            OperatorContext operatorContext,
+            List<Type> sourceTypes,
+            List<Integer> outputChannels,
+            int expectedPositions,
+            List<Type> sortTypes,
+            List<Integer> sortChannels,
+            List<SortOrder> sortOrder,
+            Optional<SpillerFactory> spillerFactory)
     {
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
         this.outputChannels = Ints.toArray(checkNotNull(outputChannels, "outputChannels is null"));
+        this.sourceTypes = ImmutableList.copyOf(checkNotNull(sourceTypes, "sourceTypes is null"));
         this.types = toTypes(sourceTypes, outputChannels);
         this.sortTypes = ImmutableList.copyOf(checkNotNull(sortTypes, "sortTypes is null"));
         this.sortChannels = ImmutableList.copyOf(checkNotNull(sortChannels, "sortChannels is null"));
         this.sortOrder = ImmutableList.copyOf(checkNotNull(sortOrder, "sortOrder is null"));
+        this.spillerFactory = checkNotNull(spillerFactory, "spillerFactory is null");
 
         this.pageIndex = new PagesIndex(sourceTypes, expectedPositions, operatorContext);
 
@@ -152,6 +195,13 @@ public class OrderByOperator
         if (state == State.NEEDS_INPUT) {
             state = State.HAS_OUTPUT;
 
+            if (sortedRuns != null) {
+                // write the last run as well, so the memory of the index is free during the merge
+                spillRun();
+                mergedPages = sortedRuns.mergeRuns();
+                return;
+            }
+
             // sort the index
             pageIndex.sort(sortTypes, sortChannels, sortOrder);
         }
@@ -181,7 +231,22 @@ public class OrderByOperator
         checkState(state == State.NEEDS_INPUT, "Operator is already finishing");
         checkNotNull(page, "page is null");
 
-        pageIndex.addPage(page);
+        if (!spillerFactory.isPresent()) {
+            pageIndex.addPage(page);
+        }
+        else if (!pageIndex.tryAddPage(page)) {
+            spillRun();
+            pageIndex.addPage(page);
+        }
+    }
+
+    private void spillRun()
+    {
+        if (sortedRuns == null) {
+            sortedRuns = new SortedRunSpiller(spillerFactory.get().create(), sourceTypes, sortTypes, sortChannels, sortOrder);
+        }
+        sortedRuns.spill(pageIndex);
+        pageIndex.clear();
     }
 
     @Override
@@ -191,6 +256,10 @@ public class OrderByOperator
             return null;
         }
 
+        if (mergedPages != null) {
+            return getMergedOutput();
+        }
+
         if (currentPosition >= pageIndex.getPositionCount()) {
             state = State.FINISHED;
             return null;
@@ -210,6 +279,32 @@ public class OrderByOperator
         return page;
     }
 
+    private Page getMergedOutput()
+    {
+        if (!mergedPages.hasNext()) {
+            state = State.FINISHED;
+            close();
+            return null;
+        }
+
+        Page page = mergedPages.next();
+        Block[] blocks = new Block[outputChannels.length];
+        for (int i = 0; i < outputChannels.length; i++) {
+            blocks[i] = page.getBlock(outputChannels[i]);
+        }
+        return new Page(page.getPositionCount(), blocks);
+    }
+
+    @Override
+    public void close()
+    {
+        if (sortedRuns != null) {
+            sortedRuns.close();
+            sortedRuns = null;
+            mergedPages = null;
+        }
+    }
+
     private static List<Type> toTypes(List<? extends Type> sourceTypes, List<Integer> outputChannels)
     {
         ImmutableList.Builder<Type> types = ImmutableList.builder();
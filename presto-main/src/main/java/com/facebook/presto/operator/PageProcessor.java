@@ -14,8 +14,17 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
 
 public interface PageProcessor
 {
     int process(ConnectorSession session, Page page, int start, int end, PageBuilder pageBuilder);
+
+    /**
+     * Processes all positions of the page at once, so dictionary and run length encoded
+     * inputs can stay encoded in the output.  The returned page may have no positions.
+     *
+     * @return the processed page, or null if the page must be processed with {@link #process}
+     */
+    Page processEncodedPage(ConnectorSession session, Page page);
 }
@@ -0,0 +1,119 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
+
+import java.io.Closeable;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.airlift.units.DataSize.Unit.BYTE;
+
+public class PageSourceOperator
+        implements Operator, Closeable
+{
+    private final OperatorContext operatorContext;
+    private final ConnectorPageSource pageSource;
+    private final List<Type> types;
+    private boolean closed;
+    private long completedBytes;
+    private long readTimeNanos;
+
+    public PageSourceOperator(OperatorContext operatorContext, ConnectorPageSource pageSource)
+    {
+        this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
+        this.pageSource = checkNotNull(pageSource, "pageSource is null");
+        this.types = ImmutableList.copyOf(pageSource.getTypes());
+    }
+
+    @Override
+    public OperatorContext getOperatorContext()
+    {
+        return operatorContext;
+    }
+
+    public ConnectorPageSource getPageSource()
+    {
+        return pageSource;
+    }
+
+    @Override
+    public List<Type> getTypes()
+    {
+        return types;
+    }
+
+    @Override
+    public void finish()
+    {
+        close();
+    }
+
+    @Override
+    public void close()
+    {
+        if (!closed) {
+            closed = true;
+            pageSource.close();
+        }
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return closed || pageSource.isFinished();
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        return NOT_BLOCKED;
+    }
+
+    @Override
+    public boolean needsInput()
+    {
+        return false;
+    }
+
+    @Override
+    public void addInput(Page page)
+    {
+        throw new UnsupportedOperationException(getClass().getName() + " can not take input");
+    }
+
+    @Override
+    public Page getOutput()
+    {
+        if (isFinished()) {
+            return null;
+        }
+
+        Page page = pageSource.getNextPage();
+
+        long endCompletedBytes = pageSource.getCompletedBytes();
+        long endReadTimeNanos = pageSource.getReadTimeNanos();
+        operatorContext.recordGeneratedInput(new DataSize(endCompletedBytes - completedBytes, BYTE), page == null ? 0 : page.getPositionCount(), endReadTimeNanos - readTimeNanos);
+        completedBytes = endCompletedBytes;
+        readTimeNanos = endReadTimeNanos;
+
+        return page;
+    }
+}
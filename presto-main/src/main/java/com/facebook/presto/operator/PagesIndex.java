@@ -13,6 +13,8 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.ExceededMemoryLimitException;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.SortOrder;
@@ -20,7 +22,13 @@ import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.facebook.presto.sql.gen.JoinCompiler.LookupSourceFactory;
 import com.facebook.presto.sql.gen.OrderingCompiler;
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
 import io.airlift.log.Logger;
 import io.airlift.slice.Slice;
 import io.airlift.units.DataSize;
@@ -32,12 +40,18 @@ import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 
 import static com.facebook.presto.operator.SyntheticAddress.decodePosition;
 import static com.facebook.presto.operator.SyntheticAddress.decodeSliceIndex;
 import static com.facebook.presto.operator.SyntheticAddress.encodeSyntheticAddress;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
 import static io.airlift.slice.SizeOf.sizeOf;
+import static io.airlift.slice.SizeOf.sizeOfIntArray;
+import static io.airlift.slice.SizeOf.sizeOfLongArray;
 
 /**
  * PagesIndex a low-level data structure which contains the address of every value position of every channel.
@@ -59,6 +73,9 @@ public class PagesIndex
     // todo this should be a services assigned in the constructor
     private static final JoinCompiler joinCompiler = new JoinCompiler();
 
+    // below this many positions per partition, a parallel hash build is not worth the extra pass
+    private static final int MIN_PARALLEL_BUILD_POSITIONS = 10_000;
+
     private final List<Type> types;
     private final OperatorContext operatorContext;
     private final LongArrayList valueAddresses;
@@ -102,6 +119,31 @@ public class PagesIndex
     }
 
     public void addPage(Page page)
+    {
+        addPageInternal(page);
+        estimatedSize = operatorContext.setMemoryReservation(calculateEstimatedSize());
+    }
+
+    /**
+     * Adds the page only if the operator can reserve the memory the index needs to hold it.
+     *
+     * @return false, leaving the index unchanged, if the memory is not available
+     */
+    public boolean tryAddPage(Page page)
+    {
+        if (!operatorContext.trySetMemoryReservation(estimateSizeWith(page))) {
+            return false;
+        }
+
+        addPageInternal(page);
+
+        // the estimate is an upper bound, so this only gives memory back
+        estimatedSize = calculateEstimatedSize();
+        operatorContext.trySetMemoryReservation(estimatedSize);
+        return true;
+    }
+
+    private void addPageInternal(Page page)
     {
         positionCount += page.getPositionCount();
 
@@ -116,8 +158,38 @@ public class PagesIndex
             long sliceAddress = encodeSyntheticAddress(pageIndex, position);
             valueAddresses.add(sliceAddress);
         }
+    }
 
-        estimatedSize = operatorContext.setMemoryReservation(calculateEstimatedSize());
+    /**
+     * Removes all pages from the index and gives their memory back to the operator.
+     */
+    public void clear()
+    {
+        for (ObjectArrayList<Block> channel : channels) {
+            channel.clear();
+        }
+        valueAddresses.clear();
+        positionCount = 0;
+        pagesMemorySize = 0;
+
+        estimatedSize = calculateEstimatedSize();
+        operatorContext.trySetMemoryReservation(estimatedSize);
+    }
+
+    /**
+     * Returns the pages added to this index, in the order they were added.
+     */
+    public List<Page> getPages()
+    {
+        ImmutableList.Builder<Page> pages = ImmutableList.builder();
+        for (int pageIndex = 0; pageIndex < channels[0].size(); pageIndex++) {
+            Block[] blocks = new Block[channels.length];
+            for (int channel = 0; channel < channels.length; channel++) {
+                blocks[channel] = channels[channel].get(pageIndex);
+            }
+            pages.add(new Page(blocks));
+        }
+        return pages.build();
     }
 
     public DataSize getEstimatedSize()
@@ -125,6 +197,28 @@ public class PagesIndex
         return new DataSize(estimatedSize, Unit.BYTE);
     }
 
+    private long estimateSizeWith(Page page)
+    {
+        long pageSize = 0;
+        for (int i = 0; i < channels.length; i++) {
+            pageSize += page.getBlock(i).getSizeInBytes();
+        }
+
+        // account for the backing arrays growing the same way the fastutil lists grow them;
+        // block references are charged as longs so the estimate is never too small
+        long growth = 0;
+        int addressCapacity = valueAddresses.elements().length;
+        if (positionCount + page.getPositionCount() > addressCapacity) {
+            growth += SIZE_OF_LONG * (Math.max(2L * addressCapacity, positionCount + page.getPositionCount()) - addressCapacity);
+        }
+        int channelCapacity = channels[0].elements().length;
+        if (channels[0].size() + 1 > channelCapacity) {
+            growth += SIZE_OF_LONG * channelCapacity * channels.length;
+        }
+
+        return calculateEstimatedSize() + pageSize + growth;
+    }
+
     private long calculateEstimatedSize()
     {
         long channelsArraySize = sizeOf(channels[0].elements()) * channels.length;
@@ -242,6 +336,134 @@ public class PagesIndex
     }
 
     public LookupSource createLookupSource(List<Integer> joinChannels)
+    {
+        return createLookupSource(joinChannels, Optional.<Integer>absent());
+    }
+
+    /**
+     * @param hashChannel channel holding the precomputed hash of the join channels
+     */
+    public LookupSource createLookupSource(List<Integer> joinChannels, Optional<Integer> hashChannel)
+    {
+        return createLookupSource(valueAddresses, joinChannels, hashChannel);
+    }
+
+    public ListenableFuture<LookupSource> createLookupSource(List<Integer> joinChannels, int concurrency, Executor executor)
+    {
+        return createLookupSource(joinChannels, Optional.<Integer>absent(), concurrency, executor);
+    }
+
+    /**
+     * Builds the lookup source as {@code concurrency} hash tables over disjoint partitions
+     * of the positions, hashing and building the partitions concurrently on the executor.
+     * The calling thread does not wait for the build; small builds are done immediately.
+     */
+    public ListenableFuture<LookupSource> createLookupSource(final List<Integer> joinChannels, final Optional<Integer> hashChannel, final int concurrency, final Executor executor)
+    {
+        checkArgument(concurrency > 0, "concurrency must be at least 1");
+        checkNotNull(hashChannel, "hashChannel is null");
+        checkNotNull(executor, "executor is null");
+        if (concurrency == 1 || positionCount < concurrency * MIN_PARALLEL_BUILD_POSITIONS) {
+            return Futures.immediateFuture(createLookupSource(joinChannels, hashChannel));
+        }
+
+        ImmutableList.Builder<Type> joinChannelTypes = ImmutableList.builder();
+        for (Integer joinChannel : joinChannels) {
+            joinChannelTypes.add(types.get(joinChannel));
+        }
+        final LocalPartitionFunction partitionFunction = new LocalPartitionFunction(joinChannelTypes.build(), concurrency);
+
+        // the partition of every position, and the addresses of every partition
+        long partitionMemory = sizeOfIntArray(positionCount) + sizeOfLongArray(positionCount);
+        if (!operatorContext.reserveMemory(partitionMemory)) {
+            throw new ExceededMemoryLimitException(operatorContext.getMaxMemorySize());
+        }
+
+        // hash the positions into partitions, one range of positions per task
+        final int[] positionPartitions = new int[positionCount];
+        int rangeSize = (positionCount + concurrency - 1) / concurrency;
+        ImmutableList.Builder<ListenableFutureTask<Void>> hashTasks = ImmutableList.builder();
+        for (int start = 0; start < positionCount; start += rangeSize) {
+            final int rangeStart = start;
+            final int rangeEnd = Math.min(start + rangeSize, positionCount);
+            hashTasks.add(ListenableFutureTask.create(new Callable<Void>()
+            {
+                @Override
+                public Void call()
+                {
+                    Block[] blocks = new Block[joinChannels.size()];
+                    int currentBlockIndex = -1;
+                    for (int position = rangeStart; position < rangeEnd; position++) {
+                        long pageAddress = valueAddresses.getLong(position);
+                        int blockIndex = decodeSliceIndex(pageAddress);
+                        if (blockIndex != currentBlockIndex) {
+                            for (int i = 0; i < blocks.length; i++) {
+                                blocks[i] = channels[joinChannels.get(i)].get(blockIndex);
+                            }
+                            currentBlockIndex = blockIndex;
+                        }
+                        positionPartitions[position] = partitionFunction.getPartition(decodePosition(pageAddress), blocks);
+                    }
+                    return null;
+                }
+            }));
+        }
+        ListenableFuture<List<Void>> hashed = runAll(hashTasks.build(), executor);
+
+        // once every position is hashed, build one hash table per partition
+        ListenableFuture<List<LookupSource>> built = Futures.transform(hashed, new AsyncFunction<List<Void>, List<LookupSource>>()
+        {
+            @Override
+            public ListenableFuture<List<LookupSource>> apply(List<Void> ignored)
+            {
+                int[] partitionSizes = new int[concurrency];
+                for (int partition : positionPartitions) {
+                    partitionSizes[partition]++;
+                }
+                LongArrayList[] partitionAddresses = new LongArrayList[concurrency];
+                for (int partition = 0; partition < concurrency; partition++) {
+                    partitionAddresses[partition] = new LongArrayList(partitionSizes[partition]);
+                }
+                for (int position = 0; position < positionCount; position++) {
+                    partitionAddresses[positionPartitions[position]].add(valueAddresses.getLong(position));
+                }
+
+                ImmutableList.Builder<ListenableFutureTask<LookupSource>> buildTasks = ImmutableList.builder();
+                for (int partition = 0; partition < concurrency; partition++) {
+                    final LongArrayList addresses = partitionAddresses[partition];
+                    buildTasks.add(ListenableFutureTask.create(new Callable<LookupSource>()
+                    {
+                        @Override
+                        public LookupSource call()
+                        {
+                            return createLookupSource(addresses, joinChannels, hashChannel);
+                        }
+                    }));
+                }
+                return runAll(buildTasks.build(), executor);
+            }
+        });
+
+        return Futures.transform(built, new Function<List<LookupSource>, LookupSource>()
+        {
+            @Override
+            public LookupSource apply(List<LookupSource> lookupSources)
+            {
+                operatorContext.freeMemory(sizeOfIntArray(positionCount));
+                return new PartitionedLookupSource(lookupSources, partitionFunction);
+            }
+        });
+    }
+
+    private static <T> ListenableFuture<List<T>> runAll(List<ListenableFutureTask<T>> tasks, Executor executor)
+    {
+        for (ListenableFutureTask<T> task : tasks) {
+            executor.execute(task);
+        }
+        return Futures.allAsList(tasks);
+    }
+
+    private LookupSource createLookupSource(LongArrayList addresses, List<Integer> joinChannels, Optional<Integer> hashChannel)
     {
         try {
             LookupSourceFactory lookupSourceFactory = joinCompiler.compileLookupSourceFactory(types, joinChannels);
@@ -251,9 +473,10 @@ public class PagesIndex
                 joinChannelTypes.add(types.get(joinChannel));
             }
             LookupSource lookupSource = lookupSourceFactory.createLookupSource(
-                    valueAddresses,
+                    addresses,
                     joinChannelTypes.build(),
                     ImmutableList.<List<Block>>copyOf(channels),
+                    hashChannel,
                     operatorContext);
 
             return lookupSource;
@@ -266,11 +489,14 @@ public class PagesIndex
                 types,
                 ImmutableList.<List<Block>>copyOf(channels),
                 joinChannels);
+        if (hashChannel.isPresent()) {
+            hashStrategy = new PrecomputedHashPagesHashStrategy(hashStrategy, channels[hashChannel.get()]);
+        }
 
         ImmutableList.Builder<Type> hashTypes = ImmutableList.builder();
         for (Integer channel : joinChannels) {
             hashTypes.add(types.get(channel));
         }
-        return new InMemoryJoinHash(valueAddresses, hashTypes.build(), hashStrategy, operatorContext);
+        return new InMemoryJoinHash(addresses, hashTypes.build(), hashStrategy, operatorContext);
     }
 }
@@ -0,0 +1,93 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.block.Block;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Combines the lookup sources built in parallel for each partition of a local exchange.
+ * Probe rows are routed to the partition that holds their matches, and the partition
+ * is encoded in the upper half of the join positions.
+ */
+public final class PartitionedLookupSource
+        implements LookupSource
+{
+    private final LookupSource[] lookupSources;
+    private final LocalPartitionFunction partitionFunction;
+
+    public PartitionedLookupSource(List<? extends LookupSource> lookupSources, LocalPartitionFunction partitionFunction)
+    {
+        checkNotNull(lookupSources, "lookupSources is null");
+        this.lookupSources = ImmutableList.copyOf(lookupSources).toArray(new LookupSource[lookupSources.size()]);
+        this.partitionFunction = checkNotNull(partitionFunction, "partitionFunction is null");
+        checkArgument(this.lookupSources.length == partitionFunction.getPartitionCount(), "expected %s lookup sources, but got %s", partitionFunction.getPartitionCount(), this.lookupSources.length);
+    }
+
+    @Override
+    public int getChannelCount()
+    {
+        return lookupSources[0].getChannelCount();
+    }
+
+    @Override
+    public long getJoinPosition(int position, Block... blocks)
+    {
+        int partition = partitionFunction.getPartition(position, blocks);
+        return encodePosition(partition, lookupSources[partition].getJoinPosition(position, blocks));
+    }
+
+    @Override
+    public long getJoinPosition(int position, Block[] blocks, long rawHash)
+    {
+        int partition = partitionFunction.getPartition(position, blocks);
+        return encodePosition(partition, lookupSources[partition].getJoinPosition(position, blocks, rawHash));
+    }
+
+    @Override
+    public long getNextJoinPosition(long currentPosition)
+    {
+        int partition = decodePartition(currentPosition);
+        return encodePosition(partition, lookupSources[partition].getNextJoinPosition(decodePosition(currentPosition)));
+    }
+
+    @Override
+    public void appendTo(long position, PageBuilder pageBuilder, int outputChannelOffset)
+    {
+        lookupSources[decodePartition(position)].appendTo(decodePosition(position), pageBuilder, outputChannelOffset);
+    }
+
+    private static long encodePosition(int partition, long joinPosition)
+    {
+        if (joinPosition < 0) {
+            return joinPosition;
+        }
+        return (((long) partition) << 32) | joinPosition;
+    }
+
+    private static int decodePartition(long position)
+    {
+        return (int) (position >>> 32);
+    }
+
+    private static long decodePosition(long position)
+    {
+        return position & 0xFFFF_FFFFL;
+    }
+}
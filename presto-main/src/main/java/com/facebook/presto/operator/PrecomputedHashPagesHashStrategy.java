@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.block.Block;
+
+import java.util.List;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reads the hash of the indexed positions from a channel holding the precomputed
+ * hash of the hashed columns, instead of hashing the columns again.
+ */
+public final class PrecomputedHashPagesHashStrategy
+        implements PagesHashStrategy
+{
+    private final PagesHashStrategy delegate;
+    private final List<Block> hashChannel;
+
+    public PrecomputedHashPagesHashStrategy(PagesHashStrategy delegate, List<Block> hashChannel)
+    {
+        this.delegate = checkNotNull(delegate, "delegate is null");
+        // not copied, since the channel may still be growing
+        this.hashChannel = checkNotNull(hashChannel, "hashChannel is null");
+    }
+
+    @Override
+    public int getChannelCount()
+    {
+        return delegate.getChannelCount();
+    }
+
+    @Override
+    public void appendTo(int blockIndex, int position, PageBuilder pageBuilder, int outputChannelOffset)
+    {
+        delegate.appendTo(blockIndex, position, pageBuilder, outputChannelOffset);
+    }
+
+    @Override
+    public int hashPosition(int blockIndex, int position)
+    {
+        return (int) BIGINT.getLong(hashChannel.get(blockIndex), position);
+    }
+
+    @Override
+    public int hashRow(int position, Block... blocks)
+    {
+        return delegate.hashRow(position, blocks);
+    }
+
+    @Override
+    public boolean positionEqualsRow(int leftBlockIndex, int leftPosition, int rightPosition, Block... rightBlocks)
+    {
+        return delegate.positionEqualsRow(leftBlockIndex, leftPosition, rightPosition, rightBlocks);
+    }
+
+    @Override
+    public boolean positionEqualsPosition(int leftBlockIndex, int leftPosition, int rightBlockIndex, int rightPosition)
+    {
+        return delegate.positionEqualsPosition(leftBlockIndex, leftPosition, rightBlockIndex, rightPosition);
+    }
+}
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.util.array.LongBigArray;
 import com.google.common.collect.ImmutableList;
@@ -123,7 +124,7 @@ public class RowNumberLimitOperator
         this.maxRowCountPerPartition = maxRowCountPerPartition;
 
         this.partitionRowCount = new LongBigArray(0);
-        this.groupByHash = new GroupByHash(partitionTypes, Ints.toArray(partitionChannels), expectedPositions);
+        this.groupByHash = new MultiChannelGroupByHash(partitionTypes, Ints.toArray(partitionChannels), expectedPositions);
         this.types = toTypes(sourceTypes, outputChannels);
         this.pageBuilder = new PageBuilder(types);
     }
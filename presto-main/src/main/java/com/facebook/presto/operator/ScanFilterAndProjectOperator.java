@@ -15,12 +15,17 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.metadata.ColumnHandle;
 import com.facebook.presto.metadata.Split;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.RecordCursor;
+import com.facebook.presto.spi.TupleDomain;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.split.DataStreamProvider;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.google.common.base.Optional;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
 
@@ -28,6 +33,7 @@ import javax.annotation.concurrent.GuardedBy;
 
 import java.io.Closeable;
 import java.util.List;
+import java.util.Map;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -46,13 +52,23 @@ public class ScanFilterAndProjectOperator
     private final PageBuilder pageBuilder;
     private final CursorProcessor cursorProcessor;
     private final PageProcessor pageProcessor;
+    private final Optional<DynamicFilter> dynamicFilter;
+    private final Map<ColumnHandle, Integer> dynamicFilterChannels;
+
+    @GuardedBy("this")
+    private Split pendingSplit;
 
     @GuardedBy("this")
     private RecordCursor cursor;
 
+    @GuardedBy("this")
+    private ConnectorPageSource pageSource;
+
     @GuardedBy("this")
     private Operator operator;
 
+    private DynamicPageFilter pageFilter;
+
     private Page currentPage;
     private int currentPosition;
 
@@ -68,7 +84,9 @@ public class ScanFilterAndProjectOperator
             CursorProcessor cursorProcessor,
             PageProcessor pageProcessor,
             Iterable<ColumnHandle> columns,
-            Iterable<Type> types)
+            Iterable<Type> types,
+            Optional<DynamicFilter> dynamicFilter,
+            Map<ColumnHandle, Integer> dynamicFilterChannels)
     {
         this.cursorProcessor = checkNotNull(cursorProcessor, "cursorProcessor is null");
         this.pageProcessor = checkNotNull(pageProcessor, "pageProcessor is null");
@@ -77,6 +95,8 @@ public class ScanFilterAndProjectOperator
         this.dataStreamProvider = checkNotNull(dataStreamProvider, "dataStreamProvider is null");
         this.types = ImmutableList.copyOf(checkNotNull(types, "types is null"));
         this.columns = ImmutableList.copyOf(checkNotNull(columns, "columns is null"));
+        this.dynamicFilter = checkNotNull(dynamicFilter, "dynamicFilter is null");
+        this.dynamicFilterChannels = ImmutableMap.copyOf(checkNotNull(dynamicFilterChannels, "dynamicFilterChannels is null"));
 
         this.pageBuilder = new PageBuilder(getTypes());
     }
@@ -97,26 +117,54 @@ public class ScanFilterAndProjectOperator
     public synchronized void addSplit(Split split)
     {
         checkNotNull(split, "split is null");
-        checkState(cursor == null && operator == null, "split already set");
+        checkState(pendingSplit == null && cursor == null && pageSource == null && operator == null, "split already set");
+
+        Object splitInfo = split.getInfo();
+        if (splitInfo != null) {
+            operatorContext.setInfoSupplier(Suppliers.ofInstance(splitInfo));
+        }
+
+        if (dynamicFilter.isPresent()) {
+            // the split is opened once the build side of the join has published its keys
+            pendingSplit = split;
+            return;
+        }
+        createDataStream(split);
+    }
 
+    @GuardedBy("this")
+    private void createDataStream(Split split)
+    {
         Operator dataStream = dataStreamProvider.createNewDataStream(operatorContext, split, columns);
         if (dataStream instanceof RecordProjectOperator) {
             cursor = ((RecordProjectOperator) dataStream).getCursor();
         }
+        else if (dataStream instanceof PageSourceOperator) {
+            pageSource = ((PageSourceOperator) dataStream).getPageSource();
+        }
         else {
             operator = dataStream;
         }
+    }
 
-        Object splitInfo = split.getInfo();
-        if (splitInfo != null) {
-            operatorContext.setInfoSupplier(Suppliers.ofInstance(splitInfo));
+    private synchronized void startPendingSplit()
+    {
+        TupleDomain<ColumnHandle> tupleDomain = dynamicFilter.get().getTupleDomain();
+        Optional<Split> split = dynamicFilter.get().filterSplit(pendingSplit);
+        pendingSplit = null;
+        if (!split.isPresent()) {
+            // no row of the split can match the build side
+            finishing = true;
+            return;
         }
+        pageFilter = new DynamicPageFilter(tupleDomain, dynamicFilterChannels, types);
+        createDataStream(split.get());
     }
 
     @Override
     public synchronized void noMoreSplits()
     {
-        if (cursor == null && operator == null) {
+        if (pendingSplit == null && cursor == null && pageSource == null && operator == null) {
             finishing = true;
         }
     }
@@ -136,9 +184,13 @@ public class ScanFilterAndProjectOperator
     @Override
     public void close()
     {
+        pendingSplit = null;
         if (operator != null) {
             operator.finish();
         }
+        else if (pageSource != null) {
+            pageSource.close();
+        }
         else if (cursor != null) {
             cursor.close();
         }
@@ -148,7 +200,10 @@ public class ScanFilterAndProjectOperator
     @Override
     public final boolean isFinished()
     {
-        if (operator != null && operator.isFinished()) {
+        if (operator != null && operator.isFinished() && currentPage == null) {
+            finishing = true;
+        }
+        if (pageSource != null && pageSource.isFinished() && currentPage == null) {
             finishing = true;
         }
 
@@ -158,6 +213,9 @@ public class ScanFilterAndProjectOperator
     @Override
     public ListenableFuture<?> isBlocked()
     {
+        if (pendingSplit != null && !dynamicFilter.get().isReady()) {
+            return dynamicFilter.get().isBlocked();
+        }
         if (operator != null) {
             return operator.isBlocked();
         }
@@ -179,6 +237,13 @@ public class ScanFilterAndProjectOperator
     @Override
     public Page getOutput()
     {
+        if (!finishing && pendingSplit != null) {
+            if (!dynamicFilter.get().isReady()) {
+                return null;
+            }
+            startPendingSplit();
+        }
+
         if (!finishing) {
             if (cursor != null) {
                 int rowsProcessed = cursorProcessor.process(operatorContext.getSession(), cursor, ROWS_PER_PAGE, pageBuilder);
@@ -194,8 +259,25 @@ public class ScanFilterAndProjectOperator
             }
             else {
                 if (currentPage == null) {
-                    currentPage = operator.getOutput();
+                    if (pageSource != null) {
+                        currentPage = pageSource.getNextPage();
+                        recordPageSourceInput(currentPage);
+                    }
+                    else {
+                        currentPage = operator.getOutput();
+                    }
                     currentPosition = 0;
+
+                    if (currentPage != null) {
+                        // pages with dictionary or run length encoded blocks may be processed without decoding them
+                        Page encodedPage = pageProcessor.processEncodedPage(operatorContext.getSession(), currentPage);
+                        if (encodedPage != null) {
+                            currentPage = null;
+                            if (encodedPage.getPositionCount() > 0) {
+                                return filterPage(encodedPage);
+                            }
+                        }
+                    }
                 }
 
                 if (currentPage != null) {
@@ -215,7 +297,24 @@ public class ScanFilterAndProjectOperator
 
         Page page = pageBuilder.build();
         pageBuilder.reset();
-        return page;
+        return filterPage(page);
+    }
+
+    private Page filterPage(Page page)
+    {
+        if (pageFilter == null) {
+            return page;
+        }
+        return pageFilter.filter(page);
+    }
+
+    private void recordPageSourceInput(Page page)
+    {
+        long bytesProcessed = pageSource.getCompletedBytes() - completedBytes;
+        long elapsedNanos = pageSource.getReadTimeNanos() - readTimeNanos;
+        operatorContext.recordGeneratedInput(new DataSize(bytesProcessed, BYTE), page == null ? 0 : page.getPositionCount(), elapsedNanos);
+        completedBytes = pageSource.getCompletedBytes();
+        readTimeNanos = pageSource.getReadTimeNanos();
     }
 
     public static class ScanFilterAndProjectOperatorFactory
@@ -228,6 +327,8 @@ public class ScanFilterAndProjectOperator
         private final DataStreamProvider dataStreamProvider;
         private final List<ColumnHandle> columns;
         private final List<Type> types;
+        private final Optional<DynamicFilter> dynamicFilter;
+        private final Map<ColumnHandle, Integer> dynamicFilterChannels;
         private boolean closed;
 
         public ScanFilterAndProjectOperatorFactory(
@@ -238,6 +339,23 @@ public class ScanFilterAndProjectOperator
                 PageProcessor pageProcessor,
                 Iterable<ColumnHandle> columns,
                 List<Type> types)
+        {
+            this(operatorId, sourceId, dataStreamProvider, cursorProcessor, pageProcessor, columns, types, Optional.<DynamicFilter>absent(), ImmutableMap.<ColumnHandle, Integer>of());
+        }
+
+        /**
+         * @param dynamicFilterChannels the output channel of each column of the dynamic filter that is in the output
+         */
+        public ScanFilterAndProjectOperatorFactory(
+                int operatorId,
+                PlanNodeId sourceId,
+                DataStreamProvider dataStreamProvider,
+                CursorProcessor cursorProcessor,
+                PageProcessor pageProcessor,
+                Iterable<ColumnHandle> columns,
+                List<Type> types,
+                Optional<DynamicFilter> dynamicFilter,
+                Map<ColumnHandle, Integer> dynamicFilterChannels)
         {
             this.operatorId = operatorId;
             this.cursorProcessor = checkNotNull(cursorProcessor, "cursorProcessor is null");
@@ -246,6 +364,8 @@ public class ScanFilterAndProjectOperator
             this.dataStreamProvider = checkNotNull(dataStreamProvider, "dataStreamProvider is null");
             this.columns = ImmutableList.copyOf(checkNotNull(columns, "columns is null"));
             this.types = checkNotNull(types, "types is null");
+            this.dynamicFilter = checkNotNull(dynamicFilter, "dynamicFilter is null");
+            this.dynamicFilterChannels = ImmutableMap.copyOf(checkNotNull(dynamicFilterChannels, "dynamicFilterChannels is null"));
         }
 
         @Override
@@ -272,7 +392,9 @@ public class ScanFilterAndProjectOperator
                     cursorProcessor,
                     pageProcessor,
                     columns,
-                    types);
+                    types,
+                    dynamicFilter,
+                    dynamicFilterChannels);
         }
 
         @Override
@@ -14,8 +14,10 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.operator.ChannelSet.ChannelSetBuilder;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -65,6 +67,7 @@ public class SetBuilderOperator
         private final int operatorId;
         private final SetSupplier setProvider;
         private final int setChannel;
+        private final Optional<Integer> hashChannel;
         private final int expectedPositions;
         private boolean closed;
 
@@ -73,11 +76,25 @@ public class SetBuilderOperator
                 List<Type> types,
                 int setChannel,
                 int expectedPositions)
+        {
+            this(operatorId, types, setChannel, Optional.<Integer>absent(), expectedPositions);
+        }
+
+        /**
+         * @param hashChannel channel holding the precomputed hash of the set channel
+         */
+        public SetBuilderOperatorFactory(
+                int operatorId,
+                List<Type> types,
+                int setChannel,
+                Optional<Integer> hashChannel,
+                int expectedPositions)
         {
             this.operatorId = operatorId;
             Preconditions.checkArgument(setChannel >= 0, "setChannel is negative");
             this.setProvider = new SetSupplier(checkNotNull(types, "types is null").get(setChannel));
             this.setChannel = setChannel;
+            this.hashChannel = checkNotNull(hashChannel, "hashChannel is null");
             this.expectedPositions = checkNotNull(expectedPositions, "expectedPositions is null");
         }
 
@@ -97,7 +114,7 @@ public class SetBuilderOperator
         {
             checkState(!closed, "Factory is already closed");
             OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, SetBuilderOperator.class.getSimpleName());
-            return new SetBuilderOperator(operatorContext, setProvider, setChannel, expectedPositions);
+            return new SetBuilderOperator(operatorContext, setProvider, setChannel, hashChannel, expectedPositions);
         }
 
         @Override
@@ -110,6 +127,7 @@ public class SetBuilderOperator
     private final OperatorContext operatorContext;
     private final SetSupplier setSupplier;
     private final int setChannel;
+    private final Optional<Integer> hashChannel;
 
     private final ChannelSetBuilder channelSetBuilder;
 
@@ -120,12 +138,24 @@ public class SetBuilderOperator
             SetSupplier setSupplier,
             int setChannel,
             int expectedPositions)
+    {
+        this(operatorContext, setSupplier, setChannel, Optional.<Integer>absent(), expectedPositions);
+    }
+
+    public SetBuilderOperator(
+            OperatorContext operatorContext,
+            SetSupplier setSupplier,
+            int setChannel,
+            Optional<Integer> hashChannel,
+            int expectedPositions)
     {
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
         this.setSupplier = checkNotNull(setSupplier, "setProvider is null");
         this.setChannel = setChannel;
+        this.hashChannel = checkNotNull(hashChannel, "hashChannel is null");
         this.channelSetBuilder = new ChannelSetBuilder(
                 setSupplier.getType(),
+                hashChannel.isPresent(),
                 expectedPositions,
                 checkNotNull(operatorContext, "operatorContext is null"));
     }
@@ -180,7 +210,12 @@ public class SetBuilderOperator
         checkState(!isFinished(), "Operator is already finished");
 
         Block sourceBlock = page.getBlock(setChannel);
-        channelSetBuilder.addBlock(sourceBlock);
+        if (hashChannel.isPresent()) {
+            channelSetBuilder.addBlock(sourceBlock, page.getBlock(hashChannel.get()));
+        }
+        else {
+            channelSetBuilder.addBlock(sourceBlock);
+        }
     }
 
     @Override
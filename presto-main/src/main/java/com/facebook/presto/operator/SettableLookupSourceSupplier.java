@@ -14,12 +14,17 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static com.google.common.base.Preconditions.checkElementIndex;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
@@ -28,10 +33,32 @@ public final class SettableLookupSourceSupplier
 {
     private final List<Type> types;
     private final SettableFuture<LookupSource> lookupSourceFuture = SettableFuture.create();
+    private final SettableFuture<Optional<SpilledLookupPartitions>> spilledPartitionsFuture = SettableFuture.create();
+    private final AtomicInteger referenceCount = new AtomicInteger();
+
+    private final LocalPartitionFunction partitionFunction;
+    private final LookupSource[] partitions;
+    private int partitionsSet;
 
     public SettableLookupSourceSupplier(List<Type> types)
+    {
+        this(types, ImmutableList.<Type>of(), 1);
+    }
+
+    /**
+     * Creates a supplier whose lookup source is built in parallel by one operator per
+     * partition of a local exchange, partitioned on hash channels of the given types.
+     */
+    public SettableLookupSourceSupplier(List<Type> types, List<Type> hashTypes, int partitionCount)
     {
         this.types = ImmutableList.copyOf(checkNotNull(types, "types is null"));
+        this.partitionFunction = new LocalPartitionFunction(checkNotNull(hashTypes, "hashTypes is null"), partitionCount);
+        this.partitions = new LookupSource[partitionCount];
+    }
+
+    public int getPartitionCount()
+    {
+        return partitions.length;
     }
 
     @Override
@@ -46,10 +73,86 @@ public final class SettableLookupSourceSupplier
         return lookupSourceFuture;
     }
 
+    @Override
+    public ListenableFuture<Optional<SpilledLookupPartitions>> getSpilledPartitions()
+    {
+        return spilledPartitionsFuture;
+    }
+
     public void setLookupSource(LookupSource lookupSource)
     {
         checkNotNull(lookupSource, "lookupSource is null");
         boolean wasSet = lookupSourceFuture.set(lookupSource);
         checkState(wasSet, "Lookup source already set");
+
+        // the lookup source is set first, so it is available as soon as the build side is done
+        spilledPartitionsFuture.set(Optional.<SpilledLookupPartitions>absent());
+    }
+
+    /**
+     * Publishes a build side that was spilled to disk.  The supplier takes ownership of
+     * the spill files and deletes them once all users are released.
+     */
+    public void setSpilledPartitions(SpilledLookupPartitions spilledPartitions)
+    {
+        checkNotNull(spilledPartitions, "spilledPartitions is null");
+        checkState(partitions.length == 1, "Spilling is not supported for a partitioned lookup source");
+        boolean wasSet = spilledPartitionsFuture.set(Optional.of(spilledPartitions));
+        checkState(wasSet, "Lookup source already set");
+    }
+
+    /**
+     * Sets the lookup source of one partition.  The combined lookup source is published
+     * once every partition has been set.
+     */
+    public void setLookupSource(int partition, LookupSource lookupSource)
+    {
+        checkNotNull(lookupSource, "lookupSource is null");
+        checkElementIndex(partition, partitions.length, "partition");
+        if (partitions.length == 1) {
+            setLookupSource(lookupSource);
+            return;
+        }
+
+        synchronized (this) {
+            checkState(partitions[partition] == null, "Lookup source for partition %s already set", partition);
+            partitions[partition] = lookupSource;
+            partitionsSet++;
+            if (partitionsSet < partitions.length) {
+                return;
+            }
+        }
+        setLookupSource(new PartitionedLookupSource(ImmutableList.copyOf(partitions), partitionFunction));
+    }
+
+    @Override
+    public void retain()
+    {
+        referenceCount.incrementAndGet();
+    }
+
+    @Override
+    public void release()
+    {
+        if (referenceCount.decrementAndGet() > 0) {
+            return;
+        }
+
+        // the build side may still be under construction, so delete any spill files once it is done
+        Futures.addCallback(spilledPartitionsFuture, new FutureCallback<Optional<SpilledLookupPartitions>>()
+        {
+            @Override
+            public void onSuccess(Optional<SpilledLookupPartitions> spilledPartitions)
+            {
+                if (spilledPartitions.isPresent()) {
+                    spilledPartitions.get().close();
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable t)
+            {
+            }
+        });
     }
 }
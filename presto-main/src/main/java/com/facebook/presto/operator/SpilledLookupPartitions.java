@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.PartitioningSpiller;
+import com.facebook.presto.spiller.SpillerFactory;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Build side of a hash join that did not fit in memory.  The build rows are hash
+ * partitioned on the join channels into spill files, and the probe side is expected
+ * to partition its rows the same way and join one partition at a time against
+ * {@link #loadPartition}.  Unlike a {@link LookupSource}, this can not be probed
+ * directly, so join operators ask for it explicitly through
+ * {@link LookupSourceSupplier#getSpilledPartitions}.
+ */
+public class SpilledLookupPartitions
+        implements Closeable
+{
+    private final PartitioningSpiller buildSpiller;
+    private final List<Integer> hashChannels;
+    private final Optional<Integer> hashChannel;
+    private final SpillerFactory spillerFactory;
+
+    public SpilledLookupPartitions(PartitioningSpiller buildSpiller, List<Integer> hashChannels, Optional<Integer> hashChannel, SpillerFactory spillerFactory)
+    {
+        this.buildSpiller = checkNotNull(buildSpiller, "buildSpiller is null");
+        this.hashChannels = ImmutableList.copyOf(checkNotNull(hashChannels, "hashChannels is null"));
+        this.hashChannel = checkNotNull(hashChannel, "hashChannel is null");
+        this.spillerFactory = checkNotNull(spillerFactory, "spillerFactory is null");
+    }
+
+    public int getPartitionCount()
+    {
+        return buildSpiller.getPartitionCount();
+    }
+
+    /**
+     * Creates a spiller that partitions probe rows consistently with the build rows.
+     */
+    public PartitioningSpiller createProbeSpiller(List<Type> probeTypes, List<Integer> probeJoinChannels)
+    {
+        return new PartitioningSpiller(spillerFactory.create(), probeTypes, probeJoinChannels, getPartitionCount());
+    }
+
+    /**
+     * Builds an in-memory lookup source for a single partition.  The memory is charged
+     * to the supplied operator, which fails if a single partition does not fit.
+     */
+    public LookupSource loadPartition(int partition, OperatorContext operatorContext)
+    {
+        PagesIndex pagesIndex = new PagesIndex(buildSpiller.getTypes(), 10_000, operatorContext);
+        Iterator<Page> pages = buildSpiller.readPartition(partition);
+        while (pages.hasNext()) {
+            pagesIndex.addPage(pages.next());
+        }
+        return pagesIndex.createLookupSource(hashChannels, hashChannel);
+    }
+
+    @Override
+    public void close()
+    {
+        buildSpiller.close();
+    }
+}
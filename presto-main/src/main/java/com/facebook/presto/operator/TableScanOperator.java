@@ -15,9 +15,11 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.metadata.ColumnHandle;
 import com.facebook.presto.metadata.Split;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.split.DataStreamProvider;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -25,7 +27,9 @@ import com.google.common.util.concurrent.SettableFuture;
 
 import javax.annotation.concurrent.GuardedBy;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -41,6 +45,7 @@ public class TableScanOperator
         private final DataStreamProvider dataStreamProvider;
         private final List<Type> types;
         private final List<ColumnHandle> columns;
+        private final Optional<DynamicFilter> dynamicFilter;
         private boolean closed;
 
         public TableScanOperatorFactory(
@@ -49,12 +54,24 @@ public class TableScanOperator
                 DataStreamProvider dataStreamProvider,
                 List<Type> types,
                 Iterable<ColumnHandle> columns)
+        {
+            this(operatorId, sourceId, dataStreamProvider, types, columns, Optional.<DynamicFilter>absent());
+        }
+
+        public TableScanOperatorFactory(
+                int operatorId,
+                PlanNodeId sourceId,
+                DataStreamProvider dataStreamProvider,
+                List<Type> types,
+                Iterable<ColumnHandle> columns,
+                Optional<DynamicFilter> dynamicFilter)
         {
             this.operatorId = operatorId;
             this.sourceId = checkNotNull(sourceId, "sourceId is null");
             this.types = checkNotNull(types, "types is null");
             this.dataStreamProvider = checkNotNull(dataStreamProvider, "dataStreamProvider is null");
             this.columns = ImmutableList.copyOf(checkNotNull(columns, "columns is null"));
+            this.dynamicFilter = checkNotNull(dynamicFilter, "dynamicFilter is null");
         }
 
         @Override
@@ -79,7 +96,8 @@ public class TableScanOperator
                     sourceId,
                     dataStreamProvider,
                     types,
-                    columns);
+                    columns,
+                    dynamicFilter);
         }
 
         @Override
@@ -94,23 +112,42 @@ public class TableScanOperator
     private final DataStreamProvider dataStreamProvider;
     private final List<Type> types;
     private final List<ColumnHandle> columns;
+    private final Optional<DynamicFilter> dynamicFilter;
     private final SettableFuture<?> blocked;
 
+    @GuardedBy("this")
+    private Split pendingSplit;
+
     @GuardedBy("this")
     private Operator source;
 
+    @GuardedBy("this")
+    private DynamicPageFilter pageFilter;
+
     public TableScanOperator(
             OperatorContext operatorContext,
             PlanNodeId planNodeId,
             DataStreamProvider dataStreamProvider,
             List<Type> types,
             Iterable<ColumnHandle> columns)
+    {
+        this(operatorContext, planNodeId, dataStreamProvider, types, columns, Optional.<DynamicFilter>absent());
+    }
+
+    public TableScanOperator(
+            OperatorContext operatorContext,
+            PlanNodeId planNodeId,
+            DataStreamProvider dataStreamProvider,
+            List<Type> types,
+            Iterable<ColumnHandle> columns,
+            Optional<DynamicFilter> dynamicFilter)
     {
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
         this.planNodeId = checkNotNull(planNodeId, "planNodeId is null");
         this.types = checkNotNull(types, "types is null");
         this.dataStreamProvider = checkNotNull(dataStreamProvider, "dataStreamProvider is null");
         this.columns = ImmutableList.copyOf(checkNotNull(columns, "columns is null"));
+        this.dynamicFilter = checkNotNull(dynamicFilter, "dynamicFilter is null");
         this.blocked = SettableFuture.create();
     }
 
@@ -130,9 +167,15 @@ public class TableScanOperator
     public synchronized void addSplit(Split split)
     {
         checkNotNull(split, "split is null");
-        checkState(getSource() == null, "Table scan split already set");
+        checkState(pendingSplit == null && getSource() == null, "Table scan split already set");
 
-        source = dataStreamProvider.createNewDataStream(operatorContext, split, columns);
+        if (dynamicFilter.isPresent()) {
+            // the split is opened once the build side of the join has published its keys
+            pendingSplit = split;
+        }
+        else {
+            source = dataStreamProvider.createNewDataStream(operatorContext, split, columns);
+        }
 
         Object splitInfo = split.getInfo();
         if (splitInfo != null) {
@@ -144,16 +187,52 @@ public class TableScanOperator
     @Override
     public synchronized void noMoreSplits()
     {
-        if (source == null) {
+        if (source == null && pendingSplit == null) {
             source = new FinishedOperator(operatorContext, types);
         }
     }
 
     private synchronized Operator getSource()
     {
+        if (pendingSplit != null && dynamicFilter.get().isReady()) {
+            Optional<Split> split = dynamicFilter.get().filterSplit(pendingSplit);
+            if (split.isPresent()) {
+                source = dataStreamProvider.createNewDataStream(operatorContext, split.get(), columns);
+                pageFilter = new DynamicPageFilter(dynamicFilter.get().getTupleDomain(), getColumnChannels(), types);
+            }
+            else {
+                // no row of the split can match the build side
+                source = new FinishedOperator(operatorContext, types);
+            }
+            pendingSplit = null;
+        }
         return source;
     }
 
+    private Map<ColumnHandle, Integer> getColumnChannels()
+    {
+        Map<ColumnHandle, Integer> channels = new HashMap<>();
+        for (int channel = 0; channel < columns.size(); channel++) {
+            if (!channels.containsKey(columns.get(channel))) {
+                channels.put(columns.get(channel), channel);
+            }
+        }
+        return channels;
+    }
+
+    private synchronized ListenableFuture<?> getPendingSplitBlocked()
+    {
+        if (pendingSplit != null) {
+            return dynamicFilter.get().isBlocked();
+        }
+        return blocked;
+    }
+
+    private synchronized DynamicPageFilter getPageFilter()
+    {
+        return pageFilter;
+    }
+
     @Override
     public List<Type> getTypes()
     {
@@ -163,6 +242,13 @@ public class TableScanOperator
     @Override
     public void finish()
     {
+        synchronized (this) {
+            if (pendingSplit != null) {
+                pendingSplit = null;
+                source = new FinishedOperator(operatorContext, types);
+            }
+        }
+
         Operator delegate = getSource();
         if (delegate == null) {
             return;
@@ -184,7 +270,7 @@ public class TableScanOperator
         if (delegate != null) {
             return delegate.isBlocked();
         }
-        return blocked;
+        return getPendingSplitBlocked();
     }
 
     @Override
@@ -206,6 +292,11 @@ public class TableScanOperator
         if (delegate == null) {
             return null;
         }
-        return delegate.getOutput();
+        Page page = delegate.getOutput();
+        DynamicPageFilter pageFilter = getPageFilter();
+        if (page == null || pageFilter == null) {
+            return page;
+        }
+        return pageFilter.filter(page);
     }
 }
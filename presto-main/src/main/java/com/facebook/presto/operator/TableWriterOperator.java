@@ -13,11 +13,14 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageSink;
 import com.facebook.presto.spi.RecordSink;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -40,17 +43,20 @@ public class TableWriterOperator
             implements OperatorFactory
     {
         private final int operatorId;
-        private final RecordSink recordSink;
+        private final Supplier<RecordSink> recordSinkSupplier;
         private final List<Integer> inputChannels;
         private final List<Type> recordTypes;
         private final Optional<Integer> sampleWeightChannel;
         private boolean closed;
 
-        public TableWriterOperatorFactory(int operatorId, RecordSink recordSink, List<Type> recordTypes, List<Integer> inputChannels, Optional<Integer> sampleWeightChannel)
+        /**
+         * @param recordSinkSupplier creates the sink of each writer, since a task may run several writers
+         */
+        public TableWriterOperatorFactory(int operatorId, Supplier<RecordSink> recordSinkSupplier, List<Type> recordTypes, List<Integer> inputChannels, Optional<Integer> sampleWeightChannel)
         {
             this.operatorId = operatorId;
             this.inputChannels = checkNotNull(inputChannels, "inputChannels is null");
-            this.recordSink = checkNotNull(recordSink, "recordSink is null");
+            this.recordSinkSupplier = checkNotNull(recordSinkSupplier, "recordSinkSupplier is null");
 
             checkNotNull(recordTypes, "types is null");
             this.recordTypes = ImmutableList.copyOf(Iterables.transform(recordTypes, new Function<Type, Type>()
@@ -76,7 +82,7 @@ public class TableWriterOperator
         {
             checkState(!closed, "Factory is already closed");
             OperatorContext context = driverContext.addOperatorContext(operatorId, TableWriterOperator.class.getSimpleName());
-            return new TableWriterOperator(context, recordSink, recordTypes, inputChannels, sampleWeightChannel);
+            return new TableWriterOperator(context, recordSinkSupplier.get(), recordTypes, inputChannels, sampleWeightChannel);
         }
 
         @Override
@@ -167,6 +173,12 @@ public class TableWriterOperator
             blocks[outputChannel] = page.getBlock(inputChannels.get(outputChannel));
         }
 
+        if (recordSink instanceof PageSink && sampleWeightBlock == null) {
+            ((PageSink) recordSink).appendPage(new Page(page.getPositionCount(), blocks), recordTypes);
+            rowCount += page.getPositionCount();
+            return;
+        }
+
         for (int position = 0; position < page.getPositionCount(); position++) {
             long sampleWeight = 1;
             if (sampleWeightBlock != null) {
@@ -14,14 +14,17 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.execution.SharedBuffer;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
 
 import java.util.List;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.units.DataSize.Unit.BYTE;
 
 public class TaskOutputOperator
         implements Operator
@@ -140,7 +143,7 @@ public class TaskOutputOperator
         if (!future.isDone()) {
             this.blocked = future;
         }
-        operatorContext.recordGeneratedOutput(page.getDataSize(), page.getPositionCount());
+        operatorContext.recordGeneratedOutput(new DataSize(page.getSizeInBytes(), BYTE), page.getPositionCount());
     }
 
     @Override
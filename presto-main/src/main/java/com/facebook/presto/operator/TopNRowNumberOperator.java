@@ -14,6 +14,7 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.ExceededMemoryLimitException;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
@@ -162,7 +163,7 @@ public class TopNRowNumberOperator
         this.types = toTypes(sourceTypes, outputChannels);
         this.memoryManager = new MemoryManager(operatorContext);
         this.partitionRows = new HashMap<>();
-        this.groupByHash = new GroupByHash(partitionTypes, Ints.toArray(partitionChannels), expectedPositions);
+        this.groupByHash = new MultiChannelGroupByHash(partitionTypes, Ints.toArray(partitionChannels), expectedPositions);
         this.flushingPartition = Optional.absent();
         this.pageBuilder = new PageBuilder(types);
     }
@@ -14,23 +14,33 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.operator.window.WindowFunction;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.SortedRunSpiller;
+import com.facebook.presto.spiller.SpillerFactory;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
 import com.google.common.util.concurrent.ListenableFuture;
 import it.unimi.dsi.fastutil.ints.IntComparator;
 
+import java.io.Closeable;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
+import static com.facebook.presto.operator.SyntheticAddress.decodePosition;
+import static com.facebook.presto.operator.SyntheticAddress.decodeSliceIndex;
 import static com.facebook.presto.spi.block.SortOrder.ASC_NULLS_LAST;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Iterables.concat;
 
 public class WindowOperator
-        implements Operator
+        implements Operator, Closeable
 {
     public static class WindowOperatorFactory
             implements OperatorFactory
@@ -46,6 +56,7 @@ public class WindowOperator
         private final List<SortOrder> sortOrder;
         private final int expectedPositions;
         private final List<Type> types;
+        private final Optional<SpillerFactory> spillerFactory;
         private boolean closed;
 
         public WindowOperatorFactory(
@@ -57,6 +68,20 @@ public class WindowOperator
                 List<Integer> sortChannels,
                 List<SortOrder> sortOrder,
                 int expectedPositions)
+        {
+            this(operatorId, sourceTypes, outputChannels, windowFunctionDefinitions, partitionChannels, sortChannels, sortOrder, expectedPositions, Optional.<SpillerFactory>absent());
+        }
+
+        public WindowOperatorFactory(
+                int operatorId,
+                List<? extends Type> sourceTypes,
+                List<Integer> outputChannels,
+                List<WindowFunctionDefinition> windowFunctionDefinitions,
+                List<Integer> partitionChannels,
+                List<Integer> sortChannels,
+                List<SortOrder> sortOrder,
+                int expectedPositions,
+                Optional<SpillerFactory> spillerFactory)
         {
             this.operatorId = operatorId;
             this.sourceTypes = ImmutableList.copyOf(sourceTypes);
@@ -78,6 +103,7 @@ public class WindowOperator
             this.expectedPositions = expectedPositions;
 
             this.types = toTypes(sourceTypes, outputChannels, toWindowFunctions(windowFunctionDefinitions));
+            this.spillerFactory = checkNotNull(spillerFactory, "spillerFactory is null");
         }
 
         @Override
@@ -102,7 +128,8 @@ public class WindowOperator
                     sortTypes,
                     sortChannels,
                     sortOrder,
-                    expectedPositions);
+                    expectedPositions,
+                    spillerFactory);
         }
 
         @Override
@@ -120,22 +147,39 @@ public class WindowOperator
     }
 
     private final OperatorContext operatorContext;
+    private final List<Type> sourceTypes;
     private final int[] outputChannels;
-    private final List<WindowFunction> windowFunctions;
+    private final List<WindowFunctionDefinition> windowFunctionDefinitions;
     private final List<Type> partitionTypes;
     private final List<Integer> partitionChannels;
     private final List<Type> sortTypes;
     private final List<Integer> sortChannels;
     private final List<SortOrder> sortOrder;
     private final List<Type> types;
+    private final Optional<SpillerFactory> spillerFactory;
+
+    // everything sorted by partition channels, then sort channels
+    private final List<SortOrder> partitionOrder;
+    private final List<Integer> orderChannels;
+    private final List<SortOrder> ordering;
+    private final List<Type> orderingTypes;
 
-    private final PagesIndex pagesIndex;
+    private final int expectedPositions;
+    private PagesIndex pagesIndex;
+    private List<WindowFunction> windowFunctions;
 
     private final PageBuilder pageBuilder;
 
     private State state = State.NEEDS_INPUT;
 
     private int currentPosition;
+    // positions before this limit belong to complete partitions and can be output
+    private int positionLimit;
+
+    // set once the input did not fit in memory and sorted runs were written to disk
+    private SortedRunSpiller sortedRuns;
+    private Iterator<Page> mergedPages;
+    private List<Page> pendingPartition = ImmutableList.of();
 
     private IntComparator partitionComparator;
     private IntComparator orderComparator;
@@ -153,10 +197,26 @@ public class WindowOperator
             List<Type> sortTypes, List<Integer> sortChannels,
             List<SortOrder> sortOrder,
             int expectedPositions)
+    {
+        this(operatorContext, sourceTypes, outputChannels, windowFunctionDefinitions, partitionTypes, partitionChannels, sortTypes, sortChannels, sortOrder, expectedPositions, Optional.<SpillerFactory>absent());
+    }
+
+    public WindowOperator(
+            OperatorContext operatorContext,
+            List<Type> sourceTypes,
+            List<Integer> outputChannels,
+            List<WindowFunctionDefinition> windowFunctionDefinitions,
+            List<Type> partitionTypes, List<Integer> partitionChannels,
+            List<Type> sortTypes, List<Integer> sortChannels,
+            List<SortOrder> sortOrder,
+            int expectedPositions,
+            Optional<SpillerFactory> spillerFactory)
     {
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
+        this.sourceTypes = ImmutableList.copyOf(checkNotNull(sourceTypes, "sourceTypes is null"));
         this.outputChannels = Ints.toArray(checkNotNull(outputChannels, "outputChannels is null"));
-        this.windowFunctions = toWindowFunctions(checkNotNull(windowFunctionDefinitions, "windowFunctionDefinitions is null"));
+        this.windowFunctionDefinitions = ImmutableList.copyOf(checkNotNull(windowFunctionDefinitions, "windowFunctionDefinitions is null"));
+        this.windowFunctions = toWindowFunctions(windowFunctionDefinitions);
         this.partitionTypes = ImmutableList.copyOf(checkNotNull(partitionTypes, "partitionTypes is null"));
         this.partitionChannels = ImmutableList.copyOf(checkNotNull(partitionChannels, "partitionChannels is null"));
         this.sortTypes = ImmutableList.copyOf(checkNotNull(sortTypes, "sortTypes is null"));
@@ -164,7 +224,15 @@ public class WindowOperator
         this.sortOrder = ImmutableList.copyOf(checkNotNull(sortOrder, "sortOrder is null"));
 
         this.types = toTypes(sourceTypes, outputChannels, windowFunctions);
+        this.spillerFactory = checkNotNull(spillerFactory, "spillerFactory is null");
 
+        // we partition by ordering the values so partitions are sequential values
+        this.partitionOrder = Collections.nCopies(partitionChannels.size(), ASC_NULLS_LAST);
+        this.orderChannels = ImmutableList.copyOf(concat(partitionChannels, sortChannels));
+        this.ordering = ImmutableList.copyOf(concat(partitionOrder, sortOrder));
+        this.orderingTypes = ImmutableList.copyOf(concat(partitionTypes, sortTypes));
+
+        this.expectedPositions = expectedPositions;
         this.pagesIndex = new PagesIndex(sourceTypes, expectedPositions, operatorContext);
         this.pageBuilder = new PageBuilder(this.types);
     }
@@ -187,22 +255,19 @@ public class WindowOperator
         if (state == State.NEEDS_INPUT) {
             state = State.HAS_OUTPUT;
 
-            // we partition by ordering the values so partitions are sequential values
-            List<SortOrder> partitionOrder = Collections.nCopies(partitionChannels.size(), ASC_NULLS_LAST);
-
-            // sort everything by partition channels, then sort channels
-            List<Integer> orderChannels = ImmutableList.copyOf(concat(partitionChannels, sortChannels));
-            List<SortOrder> ordering = ImmutableList.copyOf(concat(partitionOrder, sortOrder));
-            List<Type> orderingTypes = ImmutableList.copyOf(concat(partitionTypes, sortTypes));
+            if (sortedRuns != null) {
+                // write the last run as well, so the memory of the index is free during the merge
+                spillRun();
+                mergedPages = sortedRuns.mergeRuns();
+                loadNextPartitions();
+                return;
+            }
 
             // sort the index
             pagesIndex.sort(orderingTypes, orderChannels, ordering);
 
-            // create partition comparator
-            partitionComparator = pagesIndex.createComparator(orderingTypes, partitionChannels, partitionOrder);
-
-            // create order comparator
-            orderComparator = pagesIndex.createComparator(orderingTypes, sortChannels, sortOrder);
+            createComparators();
+            positionLimit = pagesIndex.getPositionCount();
         }
     }
 
@@ -230,7 +295,144 @@ public class WindowOperator
         checkState(state == State.NEEDS_INPUT, "Operator is already finishing");
         checkNotNull(page, "page is null");
 
-        pagesIndex.addPage(page);
+        if (!spillerFactory.isPresent()) {
+            pagesIndex.addPage(page);
+        }
+        else if (!pagesIndex.tryAddPage(page)) {
+            spillRun();
+            pagesIndex.addPage(page);
+        }
+    }
+
+    private void createComparators()
+    {
+        // create partition comparator
+        partitionComparator = pagesIndex.createComparator(orderingTypes, partitionChannels, partitionOrder);
+
+        // create order comparator
+        orderComparator = pagesIndex.createComparator(orderingTypes, sortChannels, sortOrder);
+    }
+
+    private void spillRun()
+    {
+        if (sortedRuns == null) {
+            sortedRuns = new SortedRunSpiller(spillerFactory.get().create(), sourceTypes, orderingTypes, orderChannels, ordering);
+        }
+        sortedRuns.spill(pagesIndex);
+        pagesIndex.clear();
+    }
+
+    /**
+     * Reads as many complete partitions from the merged runs as fit in memory into a new
+     * index.  The rows of the last, possibly incomplete, partition are kept aside and
+     * become the start of the next index.  A single partition must fit in memory.
+     */
+    private void loadNextPartitions()
+    {
+        // free the previous index before building the next one
+        pagesIndex = null;
+        operatorContext.trySetMemoryReservation(0);
+        pagesIndex = new PagesIndex(sourceTypes, expectedPositions, operatorContext);
+        for (Page page : pendingPartition) {
+            pagesIndex.addPage(page);
+        }
+        pendingPartition = ImmutableList.of();
+        createComparators();
+
+        boolean complete = true;
+        while (mergedPages.hasNext()) {
+            Page page = mergedPages.next();
+            if (!pagesIndex.tryAddPage(page)) {
+                if (startsNewPartition(page)) {
+                    // every partition in the index is complete
+                    pendingPartition = ImmutableList.of(page);
+                    break;
+                }
+                if (hasCompletePartition()) {
+                    pendingPartition = new ArrayList<>();
+                    pendingPartition.add(page);
+                    complete = false;
+                    break;
+                }
+                pagesIndex.addPage(page);
+            }
+        }
+
+        positionLimit = pagesIndex.getPositionCount();
+        if (!complete) {
+            positionLimit = findLastPartitionStart();
+            int[] allChannels = new int[sourceTypes.size()];
+            for (int channel = 0; channel < allChannels.length; channel++) {
+                allChannels[channel] = channel;
+            }
+            List<Page> remaining = new ArrayList<>();
+            PageBuilder partitionBuilder = new PageBuilder(sourceTypes);
+            int position = positionLimit;
+            while (position < pagesIndex.getPositionCount()) {
+                partitionBuilder.reset();
+                position = pagesIndex.buildPage(position, allChannels, partitionBuilder);
+                remaining.add(partitionBuilder.build());
+            }
+            remaining.addAll(pendingPartition);
+            pendingPartition = remaining;
+        }
+
+        // window functions track positions from the start of the index
+        windowFunctions = toWindowFunctions(windowFunctionDefinitions);
+        currentPosition = 0;
+        partitionEnd = 0;
+        peerGroupEnd = 0;
+        peerGroupCount = 0;
+    }
+
+    /**
+     * Is the first row of the page in a different partition than the last row of the index?
+     */
+    private boolean startsNewPartition(Page page)
+    {
+        if (pagesIndex.getPositionCount() == 0 || page.getPositionCount() == 0) {
+            return false;
+        }
+
+        long lastAddress = pagesIndex.getValueAddresses().getLong(pagesIndex.getPositionCount() - 1);
+        for (int i = 0; i < partitionChannels.size(); i++) {
+            int channel = partitionChannels.get(i);
+            Block indexBlock = pagesIndex.getChannel(channel).get(decodeSliceIndex(lastAddress));
+            int indexPosition = decodePosition(lastAddress);
+            Block pageBlock = page.getBlock(channel);
+
+            boolean indexNull = indexBlock.isNull(indexPosition);
+            if (indexNull != pageBlock.isNull(0)) {
+                return true;
+            }
+            if (!indexNull && !partitionTypes.get(i).equalTo(indexBlock, indexPosition, pageBlock, 0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasCompletePartition()
+    {
+        return pagesIndex.getPositionCount() > 0 && findLastPartitionStart() > 0;
+    }
+
+    private int findLastPartitionStart()
+    {
+        int start = pagesIndex.getPositionCount() - 1;
+        while (start > 0 && partitionComparator.compare(start - 1, start) == 0) {
+            start--;
+        }
+        return start;
+    }
+
+    @Override
+    public void close()
+    {
+        if (sortedRuns != null) {
+            sortedRuns.close();
+            sortedRuns = null;
+        }
     }
 
     @Override
@@ -240,20 +442,25 @@ public class WindowOperator
             return null;
         }
 
-        if (currentPosition >= pagesIndex.getPositionCount()) {
+        if (currentPosition >= positionLimit && mergedPages != null && !pendingPartition.isEmpty()) {
+            loadNextPartitions();
+        }
+
+        if (currentPosition >= positionLimit) {
             state = State.FINISHED;
+            close();
             return null;
         }
 
         // iterate through the positions sequentially until we have one full page
         pageBuilder.reset();
-        while (!pageBuilder.isFull() && currentPosition < pagesIndex.getPositionCount()) {
+        while (!pageBuilder.isFull() && currentPosition < positionLimit) {
             // check for new partition
             boolean newPartition = (currentPosition == 0) || (currentPosition == partitionEnd);
             if (newPartition) {
                 // find end of partition
                 partitionEnd++;
-                while ((partitionEnd < pagesIndex.getPositionCount()) &&
+                while ((partitionEnd < positionLimit) &&
                         (partitionComparator.compare(partitionEnd - 1, partitionEnd) == 0)) {
                     partitionEnd++;
                 }
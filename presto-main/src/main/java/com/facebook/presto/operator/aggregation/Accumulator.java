@@ -13,8 +13,8 @@
  */
 package com.facebook.presto.operator.aggregation;
 
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
-import com.facebook.presto.operator.Page;
 import com.facebook.presto.spi.type.Type;
 
 public interface Accumulator
@@ -23,16 +23,15 @@ import com.facebook.presto.byteCode.NamedParameterDefinition;
 import com.facebook.presto.byteCode.Variable;
 import com.facebook.presto.byteCode.control.ForLoop;
 import com.facebook.presto.operator.GroupByIdBlock;
-import com.facebook.presto.operator.Page;
 import com.facebook.presto.operator.aggregation.state.AccumulatorStateFactory;
 import com.facebook.presto.operator.aggregation.state.AccumulatorStateSerializer;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.gen.CallSiteBinder;
 import com.facebook.presto.sql.gen.CompilerOperations;
 import com.facebook.presto.sql.gen.SqlTypeByteCodeExpression;
-import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
@@ -228,25 +227,19 @@ public class AccumulatorCompiler
             sampleWeightsBlock = context.declareVariable(com.facebook.presto.spi.block.Block.class, "sampleWeightsBlock");
         }
 
-        body.comment("masksBlock = maskChannel.transform(page.blockGetter()).orNull();")
+        body.comment("masksBlock = CompilerOperations.getBlock(page, maskChannel);")
+                .getVariable("page")
                 .pushThis()
                 .getField(maskChannelField)
-                .getVariable("page")
-                .invokeVirtual(type(Page.class), "blockGetter", type(Function.class, Integer.class, com.facebook.presto.spi.block.Block.class))
-                .invokeVirtual(Optional.class, "transform", Optional.class, Function.class)
-                .invokeVirtual(Optional.class, "orNull", Object.class)
-                .checkCast(com.facebook.presto.spi.block.Block.class)
+                .invokeStatic(CompilerOperations.class, "getBlock", com.facebook.presto.spi.block.Block.class, Page.class, Optional.class)
                 .putVariable(masksBlock);
 
         if (sampleWeightChannelField != null) {
-            body.comment("sampleWeightsBlock = sampleWeightChannel.transform(page.blockGetter()).get();")
+            body.comment("sampleWeightsBlock = CompilerOperations.getBlock(page, sampleWeightChannel);")
+                    .getVariable("page")
                     .pushThis()
                     .getField(sampleWeightChannelField)
-                    .getVariable("page")
-                    .invokeVirtual(type(Page.class), "blockGetter", type(Function.class, Integer.class, com.facebook.presto.spi.block.Block.class))
-                    .invokeVirtual(Optional.class, "transform", Optional.class, Function.class)
-                    .invokeVirtual(Optional.class, "get", Object.class)
-                    .checkCast(com.facebook.presto.spi.block.Block.class)
+                    .invokeStatic(CompilerOperations.class, "getBlock", com.facebook.presto.spi.block.Block.class, Page.class, Optional.class)
                     .putVariable(sampleWeightsBlock);
         }
 
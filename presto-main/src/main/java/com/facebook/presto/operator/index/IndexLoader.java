@@ -330,6 +330,12 @@ public class IndexLoader
             return IndexSnapshot.UNLOADED_INDEX_KEY;
         }
 
+        @Override
+        public long getJoinPosition(int position, Block[] blocks, long rawHash)
+        {
+            return IndexSnapshot.UNLOADED_INDEX_KEY;
+        }
+
         @Override
         public long getNextJoinPosition(long currentPosition)
         {
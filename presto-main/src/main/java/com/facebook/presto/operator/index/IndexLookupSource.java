@@ -61,6 +61,13 @@ public class IndexLookupSource
         return joinPosition;
     }
 
+    @Override
+    public long getJoinPosition(int position, Block[] blocks, long rawHash)
+    {
+        // the index does not use precomputed hashes
+        return getJoinPosition(position, blocks);
+    }
+
     @Override
     public long getNextJoinPosition(long currentPosition)
     {
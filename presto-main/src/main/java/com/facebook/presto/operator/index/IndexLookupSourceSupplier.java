@@ -17,8 +17,10 @@ import com.facebook.presto.operator.DriverFactory;
 import com.facebook.presto.operator.LookupSource;
 import com.facebook.presto.operator.LookupSourceSupplier;
 import com.facebook.presto.operator.OperatorContext;
+import com.facebook.presto.operator.SpilledLookupPartitions;
 import com.facebook.presto.operator.index.PagesIndexBuilderOperator.PagesIndexBuilderOperatorFactory;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
@@ -53,4 +55,20 @@ public class IndexLookupSourceSupplier
         indexLoader.setContext(operatorContext.getDriverContext().getPipelineContext().getTaskContext());
         return Futures.<LookupSource>immediateFuture(new IndexLookupSource(indexLoader));
     }
+
+    @Override
+    public ListenableFuture<Optional<SpilledLookupPartitions>> getSpilledPartitions()
+    {
+        return Futures.immediateFuture(Optional.<SpilledLookupPartitions>absent());
+    }
+
+    @Override
+    public void retain()
+    {
+    }
+
+    @Override
+    public void release()
+    {
+    }
 }
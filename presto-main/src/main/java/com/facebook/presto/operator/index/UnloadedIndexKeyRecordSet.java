@@ -14,6 +14,7 @@
 package com.facebook.presto.operator.index;
 
 import com.facebook.presto.operator.GroupByHash;
+import com.facebook.presto.operator.MultiChannelGroupByHash;
 import com.facebook.presto.spi.RecordCursor;
 import com.facebook.presto.spi.RecordSet;
 import com.facebook.presto.spi.block.Block;
@@ -51,7 +52,7 @@ public class UnloadedIndexKeyRecordSet
 
         ImmutableList.Builder<PageAndPositions> builder = ImmutableList.builder();
         long nextDistinctId = 0;
-        GroupByHash groupByHash = new GroupByHash(types, allChannels, 10_000);
+        GroupByHash groupByHash = new MultiChannelGroupByHash(types, allChannels, 10_000);
         for (UpdateRequest request : requests) {
             IntList positions = new IntArrayList();
             Block[] blocks = request.getBlocks();
@@ -0,0 +1,34 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.scalar;
+
+import com.facebook.presto.spi.type.BigintType;
+import com.facebook.presto.type.SqlType;
+
+public final class HashFunctions
+{
+    private HashFunctions() {}
+
+    /**
+     * Folds the hash code of one more column into the hash of a row.  The result matches
+     * the hash computed by {@link com.facebook.presto.operator.PagesHashStrategy#hashRow},
+     * so a precomputed hash can be used in place of hashing the columns in the operator.
+     */
+    @ScalarFunction(value = "combine_hash", hidden = true)
+    @SqlType(BigintType.NAME)
+    public static long combineHash(@SqlType(BigintType.NAME) long previousHashValue, @SqlType(BigintType.NAME) long value)
+    {
+        return ((int) previousHashValue) * 31 + ((int) value);
+    }
+}
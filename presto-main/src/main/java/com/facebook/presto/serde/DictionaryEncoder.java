@@ -15,6 +15,7 @@ package com.facebook.presto.serde;
 
 import com.facebook.presto.block.dictionary.DictionaryBlockEncoding;
 import com.facebook.presto.operator.GroupByHash;
+import com.facebook.presto.operator.MultiChannelGroupByHash;
 import com.facebook.presto.operator.PageBuilder;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
@@ -39,7 +40,7 @@ public class DictionaryEncoder
     {
         this.type = type;
         this.idWriter = checkNotNull(idWriter, "idWriter is null");
-        this.dictionaryBuilder = new GroupByHash(ImmutableList.of(type), new int[] {0}, 1_000);
+        this.dictionaryBuilder = new MultiChannelGroupByHash(ImmutableList.of(type), new int[] {0}, 1_000);
     }
 
     @Override
@@ -278,17 +278,27 @@ public class HttpRemoteTask
     @Override
     public synchronized int getPartitionedSplitCount()
     {
-        int splitCount = pendingSplits.get(planFragment.getPartitionedSource()).size();
+        int splitCount = getPendingPartitionedSplitCount();
         return splitCount + taskInfo.get().getStats().getQueuedPartitionedDrivers() + taskInfo.get().getStats().getRunningPartitionedDrivers();
     }
 
     @Override
     public synchronized int getQueuedPartitionedSplitCount()
     {
-        int splitCount = pendingSplits.get(planFragment.getPartitionedSource()).size();
+        int splitCount = getPendingPartitionedSplitCount();
         return splitCount + taskInfo.get().getStats().getQueuedPartitionedDrivers();
     }
 
+    @GuardedBy("this")
+    private int getPendingPartitionedSplitCount()
+    {
+        int splitCount = 0;
+        for (PlanNodeId partitionedSource : planFragment.getPartitionedSources()) {
+            splitCount += pendingSplits.get(partitionedSource).size();
+        }
+        return splitCount;
+    }
+
     @Override
     public void addStateChangeListener(StateChangeListener<TaskInfo> stateChangeListener)
     {
@@ -14,6 +14,7 @@
 package com.facebook.presto.server;
 
 import com.facebook.presto.client.Column;
+import com.facebook.presto.client.ColumnarPage;
 import com.facebook.presto.client.FailureInfo;
 import com.facebook.presto.client.QueryError;
 import com.facebook.presto.client.QueryResults;
@@ -29,8 +30,8 @@ import com.facebook.presto.execution.StageInfo;
 import com.facebook.presto.execution.StageState;
 import com.facebook.presto.execution.TaskInfo;
 import com.facebook.presto.operator.ExchangeClient;
-import com.facebook.presto.operator.Page;
 import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.TimeZoneKey;
 import com.facebook.presto.spi.type.TimeZoneNotSupportedException;
@@ -88,6 +89,7 @@ import java.util.concurrent.atomic.AtomicLong;
 
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CATALOG;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_LANGUAGE;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_RESULT_FORMAT;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_SCHEMA;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_SOURCE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_TIME_ZONE;
@@ -147,6 +149,7 @@ public class StatementResource
             @HeaderParam(PRESTO_SCHEMA) String schema,
             @HeaderParam(PRESTO_TIME_ZONE) String timeZoneId,
             @HeaderParam(PRESTO_LANGUAGE) String language,
+            @HeaderParam(PRESTO_RESULT_FORMAT) String resultFormat,
             @HeaderParam(USER_AGENT) String userAgent,
             @Context HttpServletRequest requestContext,
             @Context UriInfo uriInfo)
@@ -170,8 +173,10 @@ public class StatementResource
 
         ConnectorSession session = new ConnectorSession(user, source, catalog, schema, getTimeZoneKey(timeZoneId), locale, remoteUserAddress, userAgent);
 
+        boolean columnarResults = ColumnarPage.FORMAT_NAME.equalsIgnoreCase(resultFormat);
+
         ExchangeClient exchangeClient = exchangeClientSupplier.get();
-        Query query = new Query(session, statement, queryManager, exchangeClient);
+        Query query = new Query(session, statement, queryManager, exchangeClient, columnarResults);
         queries.put(query.getQueryId(), query);
         return Response.ok(query.getNextResults(uriInfo, new Duration(1, TimeUnit.MILLISECONDS))).build();
     }
@@ -242,6 +247,7 @@ public class StatementResource
         private final QueryManager queryManager;
         private final QueryId queryId;
         private final ExchangeClient exchangeClient;
+        private final boolean columnarResults;
 
         private final AtomicLong resultId = new AtomicLong();
         private final ConnectorSession session;
@@ -255,10 +261,22 @@ public class StatementResource
         @GuardedBy("this")
         private List<Column> columns;
 
+        @GuardedBy("this")
+        private List<Type> types;
+
         public Query(ConnectorSession session,
                 String query,
                 QueryManager queryManager,
                 ExchangeClient exchangeClient)
+        {
+            this(session, query, queryManager, exchangeClient, false);
+        }
+
+        public Query(ConnectorSession session,
+                String query,
+                QueryManager queryManager,
+                ExchangeClient exchangeClient,
+                boolean columnarResults)
         {
             checkNotNull(session, "session is null");
             checkNotNull(query, "query is null");
@@ -271,6 +289,7 @@ public class StatementResource
             QueryInfo queryInfo = queryManager.createQuery(session, query);
             queryId = queryInfo.getQueryId();
             this.exchangeClient = exchangeClient;
+            this.columnarResults = columnarResults;
         }
 
         @Override
@@ -311,7 +330,17 @@ public class StatementResource
         public synchronized QueryResults getNextResults(UriInfo uriInfo, Duration maxWaitTime)
                 throws InterruptedException
         {
-            Iterable<List<Object>> data = getData(maxWaitTime);
+            List<Page> pages = getPages(maxWaitTime);
+            Iterable<List<Object>> data = null;
+            byte[] columnarData = null;
+            if (pages != null) {
+                if (columnarResults && ColumnarPage.isSupported(columns)) {
+                    columnarData = toColumnarPage(session, types, columns, pages).serialize();
+                }
+                else {
+                    data = toRows(session, types, pages);
+                }
+            }
 
             // get the query info before returning
             // force update if query manager is closed
@@ -357,6 +386,7 @@ public class StatementResource
                     nextResultsUri,
                     columns,
                     data,
+                    columnarData,
                     toStatementStats(queryInfo),
                     toQueryError(queryInfo));
 
@@ -371,7 +401,7 @@ public class StatementResource
             return queryResults;
         }
 
-        private synchronized Iterable<List<Object>> getData(Duration maxWait)
+        private synchronized List<Page> getPages(Duration maxWait)
                 throws InterruptedException
         {
             // wait for query to start
@@ -388,13 +418,12 @@ public class StatementResource
 
             if (columns == null) {
                 columns = createColumnsList(queryInfo);
+                types = queryInfo.getOutputStage().getTypes();
             }
 
-            List<Type> types = queryInfo.getOutputStage().getTypes();
-
             updateExchangeClient(queryInfo.getOutputStage());
 
-            ImmutableList.Builder<RowIterable> pages = ImmutableList.builder();
+            ImmutableList.Builder<Page> pages = ImmutableList.builder();
             // wait up to max wait for data to arrive; then try to return at least DESIRED_RESULT_BYTES
             int bytes = 0;
             while (bytes < DESIRED_RESULT_BYTES) {
@@ -402,8 +431,8 @@ public class StatementResource
                 if (page == null) {
                     break;
                 }
-                bytes += page.getDataSize().toBytes();
-                pages.add(new RowIterable(session, types, page));
+                bytes += page.getSizeInBytes();
+                pages.add(page);
 
                 // only wait on first call
                 maxWait = new Duration(0, TimeUnit.MILLISECONDS);
@@ -413,7 +442,52 @@ public class StatementResource
                 return null;
             }
 
-            return Iterables.concat(pages.build());
+            return pages.build();
+        }
+
+        private static Iterable<List<Object>> toRows(ConnectorSession session, List<Type> types, List<Page> pages)
+        {
+            ImmutableList.Builder<RowIterable> rows = ImmutableList.builder();
+            for (Page page : pages) {
+                rows.add(new RowIterable(session, types, page));
+            }
+            return Iterables.concat(rows.build());
+        }
+
+        private static ColumnarPage toColumnarPage(ConnectorSession session, List<Type> types, List<Column> columns, List<Page> pages)
+        {
+            ColumnarPage.Builder builder = new ColumnarPage.Builder(columns);
+            for (Page page : pages) {
+                for (int channel = 0; channel < page.getChannelCount(); channel++) {
+                    Type type = types.get(channel);
+                    Block block = page.getBlock(channel);
+                    String columnType = columns.get(channel).getType();
+                    for (int position = 0; position < page.getPositionCount(); position++) {
+                        if (block.isNull(position)) {
+                            builder.appendNull(channel);
+                            continue;
+                        }
+                        switch (columnType) {
+                            case "bigint":
+                                builder.appendLong(channel, type.getLong(block, position));
+                                break;
+                            case "double":
+                                builder.appendDouble(channel, type.getDouble(block, position));
+                                break;
+                            case "boolean":
+                                builder.appendBoolean(channel, type.getBoolean(block, position));
+                                break;
+                            case "varbinary":
+                                builder.appendObject(channel, type.getSlice(block, position).getBytes());
+                                break;
+                            default:
+                                // the remaining supported types are sent in the same text form as the JSON rows
+                                builder.appendObject(channel, String.valueOf(type.getObjectValue(session, block, position)));
+                        }
+                    }
+                }
+            }
+            return builder.build();
         }
 
         private static boolean isQueryStarted(QueryInfo queryInfo)
@@ -0,0 +1,148 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spiller;
+
+import com.facebook.presto.operator.PageBuilder;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+import io.airlift.slice.Murmur3;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.List;
+
+import static com.facebook.presto.type.TypeUtils.hashPosition;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Hash partitions rows on a set of channels into one spill file per partition, so
+ * that all rows with equal keys end up in the same partition.
+ */
+public class PartitioningSpiller
+        implements Closeable
+{
+    private final Spiller spiller;
+    private final List<Type> types;
+    private final int[] partitionChannels;
+    private final SpillFile[] spillFiles;
+    private final PageBuilder[] pageBuilders;
+
+    public PartitioningSpiller(Spiller spiller, List<? extends Type> types, List<Integer> partitionChannels, int partitionCount)
+    {
+        checkArgument(partitionCount > 0, "partitionCount must be at least 1");
+        this.spiller = checkNotNull(spiller, "spiller is null");
+        this.types = ImmutableList.copyOf(checkNotNull(types, "types is null"));
+        this.partitionChannels = Ints.toArray(checkNotNull(partitionChannels, "partitionChannels is null"));
+
+        spillFiles = new SpillFile[partitionCount];
+        pageBuilders = new PageBuilder[partitionCount];
+        for (int partition = 0; partition < partitionCount; partition++) {
+            pageBuilders[partition] = new PageBuilder(types);
+        }
+    }
+
+    public int getPartitionCount()
+    {
+        return spillFiles.length;
+    }
+
+    public List<Type> getTypes()
+    {
+        return types;
+    }
+
+    public void spill(Iterator<Page> pages)
+    {
+        while (pages.hasNext()) {
+            spill(pages.next());
+        }
+    }
+
+    public synchronized void spill(Page page)
+    {
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            int partition = getPartition(page, position);
+
+            PageBuilder pageBuilder = pageBuilders[partition];
+            for (int channel = 0; channel < types.size(); channel++) {
+                types.get(channel).appendTo(page.getBlock(channel), position, pageBuilder.getBlockBuilder(channel));
+            }
+            pageBuilder.declarePosition();
+
+            if (pageBuilder.isFull()) {
+                flush(partition);
+            }
+        }
+    }
+
+    public int getPartition(Page page, int position)
+    {
+        long hashCode = 1;
+        for (int channel : partitionChannels) {
+            hashCode *= 31;
+            hashCode += hashPosition(types.get(channel), page.getBlock(channel), position);
+        }
+        // remix the hash so spill partitions are independent of the exchange partitioning
+        hashCode = Murmur3.hash64(hashCode) & 0x7fff_ffff_ffff_ffffL;
+        return (int) (hashCode % spillFiles.length);
+    }
+
+    /**
+     * Writes all buffered rows to disk.
+     */
+    public synchronized void flush()
+    {
+        for (int partition = 0; partition < spillFiles.length; partition++) {
+            flush(partition);
+        }
+    }
+
+    private void flush(int partition)
+    {
+        PageBuilder pageBuilder = pageBuilders[partition];
+        if (pageBuilder.isEmpty()) {
+            return;
+        }
+        if (spillFiles[partition] == null) {
+            spillFiles[partition] = spiller.createSpillFile();
+        }
+        spillFiles[partition].append(pageBuilder.build());
+        pageBuilder.reset();
+    }
+
+    public synchronized Iterator<Page> readPartition(int partition)
+    {
+        checkElementIndex(partition, spillFiles.length, "partition");
+        flush(partition);
+        if (spillFiles[partition] == null) {
+            return ImmutableList.<Page>of().iterator();
+        }
+        return spillFiles[partition].read();
+    }
+
+    public long getSpilledBytes()
+    {
+        return spiller.getSpilledBytes();
+    }
+
+    @Override
+    public void close()
+    {
+        spiller.close();
+    }
+}
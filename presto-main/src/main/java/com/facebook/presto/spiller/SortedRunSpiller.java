@@ -0,0 +1,207 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spiller;
+
+import com.facebook.presto.operator.PageBuilder;
+import com.facebook.presto.operator.PagesIndex;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.SortOrder;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * External merge sort: writes the contents of a {@link PagesIndex} to disk as a sorted
+ * run each time the operator runs out of memory, and merges the runs back in sort order.
+ */
+public class SortedRunSpiller
+        implements Closeable
+{
+    private final Spiller spiller;
+    private final List<Type> types;
+    private final List<Type> sortTypes;
+    private final List<Integer> sortChannels;
+    private final List<SortOrder> sortOrders;
+    private final int[] allChannels;
+    private final List<SpillFile> runs = new ArrayList<>();
+
+    public SortedRunSpiller(Spiller spiller, List<Type> types, List<Type> sortTypes, List<Integer> sortChannels, List<SortOrder> sortOrders)
+    {
+        this.spiller = checkNotNull(spiller, "spiller is null");
+        this.types = ImmutableList.copyOf(checkNotNull(types, "types is null"));
+        this.sortTypes = ImmutableList.copyOf(checkNotNull(sortTypes, "sortTypes is null"));
+        this.sortChannels = ImmutableList.copyOf(checkNotNull(sortChannels, "sortChannels is null"));
+        this.sortOrders = ImmutableList.copyOf(checkNotNull(sortOrders, "sortOrders is null"));
+        checkArgument(sortTypes.size() == sortChannels.size(), "sortTypes size (%s) doesn't match sortChannels size (%s)", sortTypes.size(), sortChannels.size());
+        checkArgument(sortChannels.size() == sortOrders.size(), "sortChannels size (%s) doesn't match sortOrders size (%s)", sortChannels.size(), sortOrders.size());
+
+        allChannels = new int[types.size()];
+        for (int channel = 0; channel < allChannels.length; channel++) {
+            allChannels[channel] = channel;
+        }
+    }
+
+    public int getRunCount()
+    {
+        return runs.size();
+    }
+
+    public long getSpilledBytes()
+    {
+        return spiller.getSpilledBytes();
+    }
+
+    /**
+     * Sorts the index and writes it to disk as a new run.  The caller is responsible
+     * for clearing the index afterwards.
+     */
+    public void spill(PagesIndex pagesIndex)
+    {
+        if (pagesIndex.getPositionCount() == 0) {
+            return;
+        }
+
+        pagesIndex.sort(sortTypes, sortChannels, sortOrders);
+
+        SpillFile run = spiller.createSpillFile();
+        PageBuilder pageBuilder = new PageBuilder(types);
+        int position = 0;
+        while (position < pagesIndex.getPositionCount()) {
+            pageBuilder.reset();
+            position = pagesIndex.buildPage(position, allChannels, pageBuilder);
+            run.append(pageBuilder.build());
+        }
+        runs.add(run);
+    }
+
+    /**
+     * Returns all spilled rows in sort order, using a k-way merge of the runs.
+     */
+    public Iterator<Page> mergeRuns()
+    {
+        ImmutableList.Builder<Iterator<Page>> runIterators = ImmutableList.builder();
+        for (SpillFile run : runs) {
+            runIterators.add(run.read());
+        }
+        return new MergingIterator(runIterators.build(), types, sortTypes, Ints.toArray(sortChannels), sortOrders);
+    }
+
+    @Override
+    public void close()
+    {
+        spiller.close();
+    }
+
+    private static class MergingIterator
+            extends AbstractIterator<Page>
+    {
+        private final List<Type> types;
+        private final PriorityQueue<RunCursor> queue;
+        private final PageBuilder pageBuilder;
+
+        private MergingIterator(List<Iterator<Page>> runs, List<Type> types, final List<Type> sortTypes, final int[] sortChannels, final List<SortOrder> sortOrders)
+        {
+            this.types = types;
+            this.pageBuilder = new PageBuilder(types);
+
+            Comparator<RunCursor> comparator = new Comparator<RunCursor>()
+            {
+                @Override
+                public int compare(RunCursor left, RunCursor right)
+                {
+                    for (int i = 0; i < sortChannels.length; i++) {
+                        int channel = sortChannels[i];
+                        int comparison = sortOrders.get(i).compareBlockValue(
+                                sortTypes.get(i),
+                                left.page.getBlock(channel),
+                                left.position,
+                                right.page.getBlock(channel),
+                                right.position);
+                        if (comparison != 0) {
+                            return comparison;
+                        }
+                    }
+                    return 0;
+                }
+            };
+
+            queue = new PriorityQueue<>(Math.max(1, runs.size()), comparator);
+            for (Iterator<Page> run : runs) {
+                RunCursor cursor = new RunCursor(run);
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+            }
+        }
+
+        @Override
+        protected Page computeNext()
+        {
+            pageBuilder.reset();
+            while (!pageBuilder.isFull() && !queue.isEmpty()) {
+                RunCursor cursor = queue.poll();
+                for (int channel = 0; channel < types.size(); channel++) {
+                    types.get(channel).appendTo(cursor.page.getBlock(channel), cursor.position, pageBuilder.getBlockBuilder(channel));
+                }
+                pageBuilder.declarePosition();
+
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+            }
+
+            if (pageBuilder.isEmpty()) {
+                return endOfData();
+            }
+            return pageBuilder.build();
+        }
+    }
+
+    private static class RunCursor
+    {
+        private final Iterator<Page> pages;
+        private Page page;
+        private int position;
+
+        private RunCursor(Iterator<Page> pages)
+        {
+            this.pages = pages;
+        }
+
+        private boolean advance()
+        {
+            position++;
+            while (page == null || position >= page.getPositionCount()) {
+                if (!pages.hasNext()) {
+                    page = null;
+                    return false;
+                }
+                page = pages.next();
+                position = 0;
+            }
+            return true;
+        }
+    }
+}
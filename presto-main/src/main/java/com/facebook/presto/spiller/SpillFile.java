@@ -0,0 +1,211 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spiller;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.BlockEncodingSerde;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slices;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static com.facebook.presto.serde.PagesSerde.readPages;
+import static com.facebook.presto.serde.PagesSerde.writePages;
+import static com.facebook.presto.spi.StandardErrorCode.INTERNAL_ERROR;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * An append-only file of pages on local disk.
+ * <p/>
+ * Each page is written as a length prefixed, self-describing {@link com.facebook.presto.serde.PagesSerde}
+ * entry, so pages with different block encodings can be mixed in a single file.
+ * Once reading has started, no more pages can be appended.  A file may be read
+ * concurrently, for example by several join operators sharing a spilled build side.
+ */
+public final class SpillFile
+        implements Closeable
+{
+    private final BlockEncodingSerde blockEncodingSerde;
+    private final Path path;
+    private final List<Closeable> openReaders = new ArrayList<>();
+
+    private DataOutputStream output;
+    private boolean writable = true;
+    private int pageCount;
+    private long spilledBytes;
+    private boolean closed;
+
+    SpillFile(BlockEncodingSerde blockEncodingSerde, Path path)
+    {
+        this.blockEncodingSerde = checkNotNull(blockEncodingSerde, "blockEncodingSerde is null");
+        this.path = checkNotNull(path, "path is null");
+    }
+
+    public Path getPath()
+    {
+        return path;
+    }
+
+    public synchronized int getPageCount()
+    {
+        return pageCount;
+    }
+
+    public synchronized long getSpilledBytes()
+    {
+        return spilledBytes;
+    }
+
+    public void append(Iterator<Page> pages)
+    {
+        while (pages.hasNext()) {
+            append(pages.next());
+        }
+    }
+
+    public synchronized void append(Page page)
+    {
+        checkNotNull(page, "page is null");
+        checkState(!closed, "Spill file is closed");
+        checkState(writable, "Spill file is being read");
+
+        DynamicSliceOutput buffer = new DynamicSliceOutput((int) Math.min(Integer.MAX_VALUE, page.getSizeInBytes() + 64));
+        writePages(blockEncodingSerde, buffer, page);
+
+        try {
+            if (output == null) {
+                output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+            }
+            output.writeInt(buffer.size());
+            output.write(buffer.slice().getBytes());
+        }
+        catch (IOException e) {
+            throw new PrestoException(INTERNAL_ERROR.toErrorCode(), "Failed to spill pages to " + path, e);
+        }
+
+        pageCount++;
+        spilledBytes += buffer.size() + 4;
+    }
+
+    /**
+     * Returns the pages of this file in the order they were appended.
+     * The file may be read multiple times.
+     */
+    public synchronized Iterator<Page> read()
+    {
+        checkState(!closed, "Spill file is closed");
+        finishWriting();
+
+        if (pageCount == 0) {
+            return ImmutableList.<Page>of().iterator();
+        }
+
+        final DataInputStream input;
+        try {
+            input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+        }
+        catch (IOException e) {
+            throw new PrestoException(INTERNAL_ERROR.toErrorCode(), "Failed to read spilled pages from " + path, e);
+        }
+        openReaders.add(input);
+
+        final int totalPages = pageCount;
+        return new AbstractIterator<Page>()
+        {
+            private int pagesRead;
+
+            @Override
+            protected Page computeNext()
+            {
+                if (pagesRead >= totalPages) {
+                    closeQuietly(input);
+                    return endOfData();
+                }
+
+                try {
+                    byte[] bytes = new byte[input.readInt()];
+                    input.readFully(bytes);
+                    pagesRead++;
+                    return readPages(blockEncodingSerde, Slices.wrappedBuffer(bytes).getInput()).next();
+                }
+                catch (IOException e) {
+                    throw new PrestoException(INTERNAL_ERROR.toErrorCode(), "Failed to read spilled pages from " + path, e);
+                }
+            }
+        };
+    }
+
+    private void finishWriting()
+    {
+        if (!writable) {
+            return;
+        }
+        writable = false;
+
+        if (output != null) {
+            try {
+                output.close();
+            }
+            catch (IOException e) {
+                throw new PrestoException(INTERNAL_ERROR.toErrorCode(), "Failed to spill pages to " + path, e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (output != null) {
+            closeQuietly(output);
+        }
+        for (Closeable reader : openReaders) {
+            closeQuietly(reader);
+        }
+        openReaders.clear();
+
+        try {
+            Files.deleteIfExists(path);
+        }
+        catch (IOException ignored) {
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable)
+    {
+        try {
+            closeable.close();
+        }
+        catch (IOException ignored) {
+        }
+    }
+}
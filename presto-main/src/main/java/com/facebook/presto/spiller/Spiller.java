@@ -0,0 +1,83 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spiller;
+
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.BlockEncodingSerde;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.facebook.presto.spi.StandardErrorCode.INTERNAL_ERROR;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Owns the spill files of a single operator.  Closing the spiller deletes every file it created.
+ */
+public class Spiller
+        implements Closeable
+{
+    private final BlockEncodingSerde blockEncodingSerde;
+    private final Path spillPath;
+    private final List<SpillFile> spillFiles = new ArrayList<>();
+    private boolean closed;
+
+    public Spiller(BlockEncodingSerde blockEncodingSerde, Path spillPath)
+    {
+        this.blockEncodingSerde = checkNotNull(blockEncodingSerde, "blockEncodingSerde is null");
+        this.spillPath = checkNotNull(spillPath, "spillPath is null");
+    }
+
+    public synchronized SpillFile createSpillFile()
+    {
+        checkState(!closed, "Spiller is closed");
+        try {
+            Files.createDirectories(spillPath);
+            SpillFile spillFile = new SpillFile(blockEncodingSerde, Files.createTempFile(spillPath, "spill", ".bin"));
+            spillFiles.add(spillFile);
+            return spillFile;
+        }
+        catch (IOException e) {
+            throw new PrestoException(INTERNAL_ERROR.toErrorCode(), "Failed to create spill file in " + spillPath, e);
+        }
+    }
+
+    public synchronized long getSpilledBytes()
+    {
+        long spilledBytes = 0;
+        for (SpillFile spillFile : spillFiles) {
+            spilledBytes += spillFile.getSpilledBytes();
+        }
+        return spilledBytes;
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        for (SpillFile spillFile : spillFiles) {
+            spillFile.close();
+        }
+        spillFiles.clear();
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spiller;
+
+import com.facebook.presto.execution.TaskManagerConfig;
+import com.facebook.presto.spi.block.BlockEncodingSerde;
+
+import javax.inject.Inject;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+public class SpillerFactory
+{
+    private final BlockEncodingSerde blockEncodingSerde;
+    private final Path spillPath;
+
+    @Inject
+    public SpillerFactory(BlockEncodingSerde blockEncodingSerde, TaskManagerConfig config)
+    {
+        this(blockEncodingSerde, Paths.get(checkNotNull(config, "config is null").getSpillPath()));
+    }
+
+    public SpillerFactory(BlockEncodingSerde blockEncodingSerde, Path spillPath)
+    {
+        this.blockEncodingSerde = checkNotNull(blockEncodingSerde, "blockEncodingSerde is null");
+        this.spillPath = checkNotNull(spillPath, "spillPath is null");
+    }
+
+    public Spiller create()
+    {
+        return new Spiller(blockEncodingSerde, spillPath);
+    }
+}
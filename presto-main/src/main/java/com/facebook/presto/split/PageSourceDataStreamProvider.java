@@ -0,0 +1,42 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.split;
+
+import com.facebook.presto.operator.Operator;
+import com.facebook.presto.operator.OperatorContext;
+import com.facebook.presto.operator.PageSourceOperator;
+import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.ConnectorPageSourceProvider;
+import com.facebook.presto.spi.ConnectorSplit;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+public class PageSourceDataStreamProvider
+        implements ConnectorDataStreamProvider
+{
+    private final ConnectorPageSourceProvider pageSourceProvider;
+
+    public PageSourceDataStreamProvider(ConnectorPageSourceProvider pageSourceProvider)
+    {
+        this.pageSourceProvider = checkNotNull(pageSourceProvider, "pageSourceProvider is null");
+    }
+
+    @Override
+    public Operator createNewDataStream(OperatorContext operatorContext, ConnectorSplit split, List<ConnectorColumnHandle> columns)
+    {
+        return new PageSourceOperator(operatorContext, pageSourceProvider.createPageSource(split, columns));
+    }
+}
@@ -14,12 +14,37 @@
 package com.facebook.presto.sql.analyzer;
 
 import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
 import io.airlift.configuration.LegacyConfig;
+import io.airlift.units.DataSize;
+
+import javax.validation.constraints.NotNull;
 
 public class FeaturesConfig
 {
+    public enum JoinDistributionType
+    {
+        /**
+         * Replicate the build side unless it is estimated to be larger than the broadcast join max size
+         */
+        AUTOMATIC,
+        /**
+         * Always send the whole build side to every task of the probe side
+         */
+        REPLICATED,
+        /**
+         * Always hash partition both sides on the join keys
+         */
+        PARTITIONED
+    }
+
     private boolean experimentalSyntaxEnabled;
     private boolean distributedIndexJoinsEnabled;
+    private boolean colocatedJoinsEnabled;
+    private boolean optimizeHashGeneration;
+    private boolean reorderJoins;
+    private JoinDistributionType joinDistributionType = JoinDistributionType.AUTOMATIC;
+    private DataSize broadcastJoinMaxSize;
 
     @LegacyConfig("analyzer.experimental-syntax-enabled")
     @Config("experimental-syntax-enabled")
@@ -45,4 +70,66 @@ public class FeaturesConfig
     {
         return distributedIndexJoinsEnabled;
     }
+
+    @Config("colocated-joins-enabled")
+    public FeaturesConfig setColocatedJoinsEnabled(boolean colocatedJoinsEnabled)
+    {
+        this.colocatedJoinsEnabled = colocatedJoinsEnabled;
+        return this;
+    }
+
+    public boolean isColocatedJoinsEnabled()
+    {
+        return colocatedJoinsEnabled;
+    }
+
+    @Config("optimizer.optimize-hash-generation")
+    public FeaturesConfig setOptimizeHashGeneration(boolean optimizeHashGeneration)
+    {
+        this.optimizeHashGeneration = optimizeHashGeneration;
+        return this;
+    }
+
+    public boolean isOptimizeHashGeneration()
+    {
+        return optimizeHashGeneration;
+    }
+
+    @Config("optimizer.reorder-joins")
+    public FeaturesConfig setReorderJoins(boolean reorderJoins)
+    {
+        this.reorderJoins = reorderJoins;
+        return this;
+    }
+
+    public boolean isReorderJoins()
+    {
+        return reorderJoins;
+    }
+
+    @Config("optimizer.join-distribution-type")
+    public FeaturesConfig setJoinDistributionType(JoinDistributionType joinDistributionType)
+    {
+        this.joinDistributionType = joinDistributionType;
+        return this;
+    }
+
+    @NotNull
+    public JoinDistributionType getJoinDistributionType()
+    {
+        return joinDistributionType;
+    }
+
+    @Config("optimizer.broadcast-join-max-size")
+    @ConfigDescription("Joins with a larger estimated build side are hash partitioned instead of broadcast")
+    public FeaturesConfig setBroadcastJoinMaxSize(DataSize broadcastJoinMaxSize)
+    {
+        this.broadcastJoinMaxSize = broadcastJoinMaxSize;
+        return this;
+    }
+
+    public DataSize getBroadcastJoinMaxSize()
+    {
+        return broadcastJoinMaxSize;
+    }
 }
@@ -15,6 +15,7 @@ package com.facebook.presto.sql.analyzer;
 
 import com.facebook.presto.metadata.Metadata;
 import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.sql.analyzer.FeaturesConfig.JoinDistributionType;
 import com.facebook.presto.sql.parser.SqlParser;
 import com.facebook.presto.sql.planner.DistributedLogicalPlanner;
 import com.facebook.presto.sql.planner.LogicalPlanner;
@@ -26,6 +27,7 @@ import com.facebook.presto.sql.planner.optimizations.PlanOptimizer;
 import com.facebook.presto.sql.tree.ExplainType;
 import com.facebook.presto.sql.tree.Statement;
 import com.google.common.base.Optional;
+import io.airlift.units.DataSize;
 
 import java.util.List;
 
@@ -39,6 +41,9 @@ public class QueryExplainer
     private final SqlParser sqlParser;
     private final boolean experimentalSyntaxEnabled;
     private final boolean distributedIndexJoinsEnabled;
+    private final boolean colocatedJoinsEnabled;
+    private final JoinDistributionType joinDistributionType;
+    private final Optional<DataSize> broadcastJoinMaxSize;
 
     public QueryExplainer(
             ConnectorSession session,
@@ -46,7 +51,10 @@ public class QueryExplainer
             Metadata metadata,
             SqlParser sqlParser,
             boolean experimentalSyntaxEnabled,
-            boolean distributedIndexJoinsEnabled)
+            boolean distributedIndexJoinsEnabled,
+            boolean colocatedJoinsEnabled,
+            JoinDistributionType joinDistributionType,
+            Optional<DataSize> broadcastJoinMaxSize)
     {
         this.session = checkNotNull(session, "session is null");
         this.planOptimizers = checkNotNull(planOptimizers, "planOptimizers is null");
@@ -54,6 +62,9 @@ public class QueryExplainer
         this.sqlParser = checkNotNull(sqlParser, "sqlParser is null");
         this.experimentalSyntaxEnabled = experimentalSyntaxEnabled;
         this.distributedIndexJoinsEnabled = distributedIndexJoinsEnabled;
+        this.colocatedJoinsEnabled = colocatedJoinsEnabled;
+        this.joinDistributionType = checkNotNull(joinDistributionType, "joinDistributionType is null");
+        this.broadcastJoinMaxSize = checkNotNull(broadcastJoinMaxSize, "broadcastJoinMaxSize is null");
     }
 
     public String getPlan(Statement statement, ExplainType.Type planType)
@@ -113,6 +124,6 @@ public class QueryExplainer
         LogicalPlanner logicalPlanner = new LogicalPlanner(session, planOptimizers, idAllocator, metadata);
         Plan plan = logicalPlanner.plan(analysis);
 
-        return new DistributedLogicalPlanner(session, metadata, idAllocator).createSubPlans(plan, false, distributedIndexJoinsEnabled);
+        return new DistributedLogicalPlanner(session, metadata, idAllocator).createSubPlans(plan, false, distributedIndexJoinsEnabled, colocatedJoinsEnabled, joinDistributionType, broadcastJoinMaxSize);
     }
 }
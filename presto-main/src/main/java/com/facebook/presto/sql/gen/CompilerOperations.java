@@ -13,7 +13,9 @@
  */
 package com.facebook.presto.sql.gen;
 
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
+import com.google.common.base.Optional;
 
 import javax.annotation.Nullable;
 
@@ -74,4 +76,13 @@ public final class CompilerOperations
         }
         return true;
     }
+
+    @Nullable
+    public static Block getBlock(Page page, Optional<Integer> channel)
+    {
+        if (channel.isPresent()) {
+            return page.getBlock(channel.get());
+        }
+        return null;
+    }
 }
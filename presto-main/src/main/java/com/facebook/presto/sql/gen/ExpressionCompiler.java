@@ -17,9 +17,16 @@ import com.facebook.presto.byteCode.ClassDefinition;
 import com.facebook.presto.byteCode.CompilerContext;
 import com.facebook.presto.metadata.Metadata;
 import com.facebook.presto.operator.CursorProcessor;
+import com.facebook.presto.operator.DictionaryAwarePageProcessor;
+import com.facebook.presto.operator.DictionaryAwarePageProcessor.ChannelExpression;
 import com.facebook.presto.operator.PageProcessor;
+import com.facebook.presto.sql.relational.CallExpression;
+import com.facebook.presto.sql.relational.ConstantExpression;
+import com.facebook.presto.sql.relational.InputReferenceExpression;
 import com.facebook.presto.sql.relational.RowExpression;
+import com.facebook.presto.sql.relational.RowExpressionVisitor;
 import com.google.common.base.Objects;
+import com.google.common.base.Optional;
 import com.google.common.base.Throwables;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
@@ -30,15 +37,21 @@ import org.weakref.jmx.Managed;
 import javax.inject.Inject;
 
 import java.util.List;
+import java.util.TreeSet;
 
 import static com.facebook.presto.byteCode.Access.FINAL;
 import static com.facebook.presto.byteCode.Access.PUBLIC;
 import static com.facebook.presto.byteCode.Access.a;
 import static com.facebook.presto.byteCode.ParameterizedType.type;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
 import static com.facebook.presto.sql.gen.Bootstrap.BOOTSTRAP_METHOD;
 import static com.facebook.presto.sql.gen.ByteCodeUtils.invoke;
 import static com.facebook.presto.sql.gen.CompilerUtils.defineClass;
 import static com.facebook.presto.sql.gen.CompilerUtils.makeClassName;
+import static com.facebook.presto.sql.relational.Expressions.call;
+import static com.facebook.presto.sql.relational.Expressions.constant;
+import static com.facebook.presto.sql.relational.Expressions.field;
+import static com.facebook.presto.sql.relational.Expressions.subExpressions;
 import static com.google.common.base.Objects.toStringHelper;
 
 public class ExpressionCompiler
@@ -89,6 +102,89 @@ public class ExpressionCompiler
         return pageProcessors.getUnchecked(new CacheKey(filter, projections, null));
     }
 
+    /**
+     * Compiles a page processor that evaluates the filter and projections once per dictionary entry
+     * or run of encoded input blocks, when each of them reads a single channel.  The expressions must
+     * be deterministic.
+     */
+    public PageProcessor compileDictionaryAwarePageProcessor(RowExpression filter, List<RowExpression> projections)
+    {
+        PageProcessor pageProcessor = compilePageProcessor(filter, projections);
+
+        Optional<ChannelExpression> channelFilter = Optional.absent();
+        if (!isAlwaysTrue(filter)) {
+            List<Integer> channels = getInputChannels(filter);
+            if (channels.size() != 1) {
+                return pageProcessor;
+            }
+            channelFilter = Optional.of(compileChannelExpression(filter, channels.get(0)));
+        }
+
+        ImmutableList.Builder<ChannelExpression> channelProjections = ImmutableList.builder();
+        for (RowExpression projection : projections) {
+            if (projection instanceof InputReferenceExpression) {
+                channelProjections.add(new ChannelExpression(((InputReferenceExpression) projection).getField(), projection.getType(), Optional.<PageProcessor>absent()));
+                continue;
+            }
+
+            List<Integer> channels = getInputChannels(projection);
+            if (channels.size() != 1) {
+                return pageProcessor;
+            }
+            channelProjections.add(compileChannelExpression(projection, channels.get(0)));
+        }
+
+        return new DictionaryAwarePageProcessor(pageProcessor, channelFilter, channelProjections.build());
+    }
+
+    private ChannelExpression compileChannelExpression(RowExpression expression, final int channel)
+    {
+        // the expression is evaluated over the dictionary or run value alone, so it reads the channel as channel 0
+        RowExpression rewritten = expression.accept(new RowExpressionVisitor<Void, RowExpression>()
+        {
+            @Override
+            public RowExpression visitCall(CallExpression call, Void context)
+            {
+                ImmutableList.Builder<RowExpression> arguments = ImmutableList.builder();
+                for (RowExpression argument : call.getArguments()) {
+                    arguments.add(argument.accept(this, context));
+                }
+                return call(call.getSignature(), call.getType(), arguments.build());
+            }
+
+            @Override
+            public RowExpression visitInputReference(InputReferenceExpression reference, Void context)
+            {
+                return field(0, reference.getType());
+            }
+
+            @Override
+            public RowExpression visitConstant(ConstantExpression literal, Void context)
+            {
+                return literal;
+            }
+        }, null);
+
+        PageProcessor processor = compilePageProcessor(constant(true, BOOLEAN), ImmutableList.of(rewritten));
+        return new ChannelExpression(channel, expression.getType(), Optional.of(processor));
+    }
+
+    private static boolean isAlwaysTrue(RowExpression filter)
+    {
+        return filter instanceof ConstantExpression && Boolean.TRUE.equals(((ConstantExpression) filter).getValue());
+    }
+
+    private static List<Integer> getInputChannels(RowExpression expression)
+    {
+        TreeSet<Integer> channels = new TreeSet<>();
+        for (RowExpression subExpression : subExpressions(ImmutableList.of(expression))) {
+            if (subExpression instanceof InputReferenceExpression) {
+                channels.add(((InputReferenceExpression) subExpression).getField());
+            }
+        }
+        return ImmutableList.copyOf(channels);
+    }
+
     private <T> T compileAndInstantiate(RowExpression filter, List<RowExpression> projections, BodyCompiler<T> bodyCompiler, Class<? extends T> superType)
     {
         // create filter and project page iterator class
@@ -30,9 +30,11 @@ import com.facebook.presto.operator.LookupSource;
 import com.facebook.presto.operator.OperatorContext;
 import com.facebook.presto.operator.PageBuilder;
 import com.facebook.presto.operator.PagesHashStrategy;
+import com.facebook.presto.operator.PrecomputedHashPagesHashStrategy;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.base.Objects;
+import com.google.common.base.Optional;
 import com.google.common.base.Throwables;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
@@ -468,8 +470,19 @@ public class JoinCompiler
         }
 
         public LookupSource createLookupSource(LongArrayList addresses, List<Type> types, List<List<com.facebook.presto.spi.block.Block>> channels, OperatorContext operatorContext)
+        {
+            return createLookupSource(addresses, types, channels, Optional.<Integer>absent(), operatorContext);
+        }
+
+        /**
+         * @param hashChannel channel holding the precomputed hash of the join channels
+         */
+        public LookupSource createLookupSource(LongArrayList addresses, List<Type> types, List<List<com.facebook.presto.spi.block.Block>> channels, Optional<Integer> hashChannel, OperatorContext operatorContext)
         {
             PagesHashStrategy pagesHashStrategy = pagesHashStrategyFactory.createPagesHashStrategy(channels);
+            if (hashChannel.isPresent()) {
+                pagesHashStrategy = new PrecomputedHashPagesHashStrategy(pagesHashStrategy, channels.get(hashChannel.get()));
+            }
             try {
                 return constructor.newInstance(addresses, types, pagesHashStrategy, operatorContext);
             }
@@ -28,12 +28,13 @@ import com.facebook.presto.operator.LookupJoinOperatorFactory;
 import com.facebook.presto.operator.LookupSource;
 import com.facebook.presto.operator.LookupSourceSupplier;
 import com.facebook.presto.operator.OperatorFactory;
-import com.facebook.presto.operator.Page;
 import com.facebook.presto.operator.PageBuilder;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Objects;
+import com.google.common.base.Optional;
 import com.google.common.base.Throwables;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
@@ -54,6 +55,7 @@ import static com.facebook.presto.byteCode.Access.a;
 import static com.facebook.presto.byteCode.NamedParameterDefinition.arg;
 import static com.facebook.presto.byteCode.ParameterizedType.type;
 import static com.facebook.presto.byteCode.expression.ByteCodeExpressions.constantInt;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.sql.gen.Bootstrap.BOOTSTRAP_METHOD;
 import static com.facebook.presto.sql.gen.CompilerUtils.defineClass;
 import static com.facebook.presto.sql.gen.CompilerUtils.makeClassName;
@@ -68,7 +70,7 @@ public class JoinProbeCompiler
                 public HashJoinOperatorFactoryFactory load(JoinOperatorCacheKey key)
                         throws Exception
                 {
-                    return internalCompileJoinOperatorFactory(key.getTypes(), key.getProbeChannels());
+                    return internalCompileJoinOperatorFactory(key.getTypes(), key.getProbeChannels(), key.getProbeHashChannel());
                 }
             });
 
@@ -77,9 +79,22 @@ public class JoinProbeCompiler
             List<? extends Type> probeTypes,
             List<Integer> probeJoinChannel,
             boolean enableOuterJoin)
+    {
+        return compileJoinOperatorFactory(operatorId, lookupSourceSupplier, probeTypes, probeJoinChannel, Optional.<Integer>absent(), enableOuterJoin);
+    }
+
+    /**
+     * @param probeHashChannel channel of the probe pages holding the precomputed hash of the probe join channels
+     */
+    public OperatorFactory compileJoinOperatorFactory(int operatorId,
+            LookupSourceSupplier lookupSourceSupplier,
+            List<? extends Type> probeTypes,
+            List<Integer> probeJoinChannel,
+            Optional<Integer> probeHashChannel,
+            boolean enableOuterJoin)
     {
         try {
-            HashJoinOperatorFactoryFactory operatorFactoryFactory = joinProbeFactories.get(new JoinOperatorCacheKey(probeTypes, probeJoinChannel, enableOuterJoin));
+            HashJoinOperatorFactoryFactory operatorFactoryFactory = joinProbeFactories.get(new JoinOperatorCacheKey(probeTypes, probeJoinChannel, probeHashChannel, enableOuterJoin));
             return operatorFactoryFactory.createHashJoinOperatorFactory(operatorId, lookupSourceSupplier, probeTypes, probeJoinChannel, enableOuterJoin);
         }
         catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
@@ -87,9 +102,9 @@ public class JoinProbeCompiler
         }
     }
 
-    public HashJoinOperatorFactoryFactory internalCompileJoinOperatorFactory(List<Type> types, List<Integer> probeJoinChannel)
+    public HashJoinOperatorFactoryFactory internalCompileJoinOperatorFactory(List<Type> types, List<Integer> probeJoinChannel, Optional<Integer> probeHashChannel)
     {
-        Class<? extends JoinProbe> joinProbeClass = compileJoinProbe(types, probeJoinChannel);
+        Class<? extends JoinProbe> joinProbeClass = compileJoinProbe(types, probeJoinChannel, probeHashChannel);
 
         ClassDefinition classDefinition = new ClassDefinition(new CompilerContext(BOOTSTRAP_METHOD),
                 a(PUBLIC, FINAL),
@@ -135,10 +150,16 @@ public class JoinProbeCompiler
     @VisibleForTesting
     public JoinProbeFactory internalCompileJoinProbe(List<Type> types, List<Integer> probeChannels)
     {
-        return new ReflectionJoinProbeFactory(compileJoinProbe(types, probeChannels));
+        return internalCompileJoinProbe(types, probeChannels, Optional.<Integer>absent());
+    }
+
+    @VisibleForTesting
+    public JoinProbeFactory internalCompileJoinProbe(List<Type> types, List<Integer> probeChannels, Optional<Integer> probeHashChannel)
+    {
+        return new ReflectionJoinProbeFactory(compileJoinProbe(types, probeChannels, probeHashChannel));
     }
 
-    private Class<? extends JoinProbe> compileJoinProbe(List<Type> types, List<Integer> probeChannels)
+    private Class<? extends JoinProbe> compileJoinProbe(List<Type> types, List<Integer> probeChannels, Optional<Integer> probeHashChannel)
     {
         CallSiteBinder callSiteBinder = new CallSiteBinder();
 
@@ -168,7 +189,11 @@ public class JoinProbeCompiler
         generateGetChannelCountMethod(classDefinition, blockFields.size());
         generateAppendToMethod(classDefinition, callSiteBinder, types, blockFields, positionField);
         generateAdvanceNextPosition(classDefinition, positionField, positionCountField);
-        generateGetCurrentJoinPosition(classDefinition, lookupSourceField, probeBlocksArrayField, positionField);
+        Optional<FieldDefinition> probeHashBlockField = Optional.absent();
+        if (probeHashChannel.isPresent()) {
+            probeHashBlockField = Optional.of(blockFields.get(probeHashChannel.get()));
+        }
+        generateGetCurrentJoinPosition(classDefinition, callSiteBinder, lookupSourceField, probeBlocksArrayField, probeHashBlockField, positionField);
         generateCurrentRowContainsNull(classDefinition, probeBlockFields, positionField);
 
         return defineClass(classDefinition, JoinProbe.class, callSiteBinder.getBindings(), getClass().getClassLoader());
@@ -308,12 +333,14 @@ public class JoinProbeCompiler
     }
 
     private void generateGetCurrentJoinPosition(ClassDefinition classDefinition,
+            CallSiteBinder callSiteBinder,
             FieldDefinition lookupSourceField,
             FieldDefinition probeBlockArrayField,
+            Optional<FieldDefinition> probeHashBlockField,
             FieldDefinition positionField)
     {
         CompilerContext context = new CompilerContext(BOOTSTRAP_METHOD);
-        classDefinition.declareMethod(context,
+        Block body = classDefinition.declareMethod(context,
                 a(PUBLIC),
                 "getCurrentJoinPosition",
                 type(long.class))
@@ -323,11 +350,24 @@ public class JoinProbeCompiler
                         new Block(context).append(context.getVariable("this").invoke("currentRowContainsNull", boolean.class)),
                         new Block(context).push(-1L).retLong(),
                         null
-                ))
-                .append(context.getVariable("this").getField(lookupSourceField).invoke("getJoinPosition", long.class,
-                        context.getVariable("this").getField(positionField),
-                        context.getVariable("this").getField(probeBlockArrayField)))
-                .retLong();
+                ));
+
+        if (probeHashBlockField.isPresent()) {
+            body.comment("return lookupSource.getJoinPosition(position, probeBlocks, BIGINT.getLong(probeHashBlock, position));")
+                    .append(context.getVariable("this").getField(lookupSourceField).invoke("getJoinPosition", long.class,
+                            context.getVariable("this").getField(positionField),
+                            context.getVariable("this").getField(probeBlockArrayField),
+                            constantType(context, callSiteBinder, BIGINT).invoke("getLong", long.class,
+                                    context.getVariable("this").getField(probeHashBlockField.get()),
+                                    context.getVariable("this").getField(positionField))))
+                    .retLong();
+        }
+        else {
+            body.append(context.getVariable("this").getField(lookupSourceField).invoke("getJoinPosition", long.class,
+                    context.getVariable("this").getField(positionField),
+                    context.getVariable("this").getField(probeBlockArrayField)))
+                    .retLong();
+        }
     }
 
     private void generateCurrentRowContainsNull(ClassDefinition classDefinition, List<FieldDefinition> probeBlockFields, FieldDefinition positionField)
@@ -383,14 +423,17 @@ public class JoinProbeCompiler
     {
         private final List<Type> types;
         private final List<Integer> probeChannels;
+        private final Optional<Integer> probeHashChannel;
         private final boolean enableOuterJoin;
 
         private JoinOperatorCacheKey(List<? extends Type> types,
                 List<Integer> probeChannels,
+                Optional<Integer> probeHashChannel,
                 boolean enableOuterJoin)
         {
             this.types = ImmutableList.copyOf(types);
             this.probeChannels = ImmutableList.copyOf(probeChannels);
+            this.probeHashChannel = probeHashChannel;
             this.enableOuterJoin = enableOuterJoin;
         }
 
@@ -404,10 +447,15 @@ public class JoinProbeCompiler
             return probeChannels;
         }
 
+        private Optional<Integer> getProbeHashChannel()
+        {
+            return probeHashChannel;
+        }
+
         @Override
         public int hashCode()
         {
-            return Objects.hashCode(types, probeChannels, enableOuterJoin);
+            return Objects.hashCode(types, probeChannels, probeHashChannel, enableOuterJoin);
         }
 
         @Override
@@ -422,6 +470,7 @@ public class JoinProbeCompiler
             JoinOperatorCacheKey other = (JoinOperatorCacheKey) obj;
             return Objects.equal(this.types, other.types) &&
                     Objects.equal(this.probeChannels, other.probeChannels) &&
+                    Objects.equal(this.probeHashChannel, other.probeHashChannel) &&
                     Objects.equal(this.enableOuterJoin, other.enableOuterJoin);
         }
     }
@@ -436,7 +485,7 @@ public class JoinProbeCompiler
             this.joinProbeFactory = joinProbeFactory;
 
             try {
-                constructor = operatorFactoryClass.getConstructor(int.class, LookupSourceSupplier.class, List.class, boolean.class, JoinProbeFactory.class);
+                constructor = operatorFactoryClass.getConstructor(int.class, LookupSourceSupplier.class, List.class, List.class, boolean.class, JoinProbeFactory.class);
             }
             catch (NoSuchMethodException e) {
                 throw Throwables.propagate(e);
@@ -451,7 +500,7 @@ public class JoinProbeCompiler
                 boolean enableOuterJoin)
         {
             try {
-                return constructor.newInstance(operatorId, lookupSourceSupplier, probeTypes, enableOuterJoin, joinProbeFactory);
+                return constructor.newInstance(operatorId, lookupSourceSupplier, probeTypes, probeJoinChannel, enableOuterJoin, joinProbeFactory);
             }
             catch (Exception e) {
                 throw Throwables.propagate(e);
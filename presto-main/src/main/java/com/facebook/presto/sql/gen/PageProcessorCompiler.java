@@ -25,10 +25,10 @@ import com.facebook.presto.byteCode.control.ForLoop;
 import com.facebook.presto.byteCode.control.IfStatement;
 import com.facebook.presto.byteCode.instruction.LabelNode;
 import com.facebook.presto.metadata.Metadata;
-import com.facebook.presto.operator.Page;
 import com.facebook.presto.operator.PageBuilder;
 import com.facebook.presto.operator.PageProcessor;
 import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.relational.CallExpression;
@@ -71,6 +71,7 @@ public class PageProcessorCompiler
     public void generateMethods(ClassDefinition classDefinition, CallSiteBinder callSiteBinder, RowExpression filter, List<RowExpression> projections)
     {
         generateProcessMethod(classDefinition, filter, projections);
+        generateProcessEncodedPageMethod(classDefinition);
         generateFilterMethod(classDefinition, callSiteBinder, filter);
 
         for (int i = 0; i < projections.size(); i++) {
@@ -199,6 +200,22 @@ public class PageProcessorCompiler
                 .retInt();
     }
 
+    private static void generateProcessEncodedPageMethod(ClassDefinition classDefinition)
+    {
+        // encoded pages are handled by DictionaryAwarePageProcessor, which wraps the generated processor
+        CompilerContext context = new CompilerContext(BOOTSTRAP_METHOD);
+        classDefinition.declareMethod(context,
+                a(PUBLIC),
+                "processEncodedPage",
+                type(Page.class),
+                arg("session", ConnectorSession.class),
+                arg("page", Page.class))
+                .getBody()
+                .comment("return null;")
+                .pushNull()
+                .retObject();
+    }
+
     private void generateFilterMethod(ClassDefinition classDefinition, CallSiteBinder callSiteBinder, RowExpression filter)
     {
         CompilerContext context = new CompilerContext(BOOTSTRAP_METHOD);
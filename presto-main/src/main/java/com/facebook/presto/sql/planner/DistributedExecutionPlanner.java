@@ -20,6 +20,7 @@ import com.facebook.presto.metadata.Partition;
 import com.facebook.presto.metadata.PartitionResult;
 import com.facebook.presto.spi.TupleDomain;
 import com.facebook.presto.split.SplitManager;
+import com.facebook.presto.sql.planner.PlanFragment.PlanDistribution;
 import com.facebook.presto.sql.planner.plan.AggregationNode;
 import com.facebook.presto.sql.planner.plan.DistinctLimitNode;
 import com.facebook.presto.sql.planner.plan.ExchangeNode;
@@ -30,6 +31,7 @@ import com.facebook.presto.sql.planner.plan.LimitNode;
 import com.facebook.presto.sql.planner.plan.MarkDistinctNode;
 import com.facebook.presto.sql.planner.plan.OutputNode;
 import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.sql.planner.plan.PlanVisitor;
 import com.facebook.presto.sql.planner.plan.ProjectNode;
 import com.facebook.presto.sql.planner.plan.RowNumberLimitNode;
@@ -46,6 +48,7 @@ import com.facebook.presto.sql.planner.plan.ValuesNode;
 import com.facebook.presto.sql.planner.plan.WindowNode;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 import javax.inject.Inject;
 
@@ -68,8 +71,19 @@ public class DistributedExecutionPlanner
         PlanFragment currentFragment = root.getFragment();
 
         // get splits for this fragment, this is lazy so split assignments aren't actually calculated here
-        Visitor visitor = new Visitor();
-        Optional<SplitSource> splits = currentFragment.getRoot().accept(visitor, null);
+        Optional<SplitSource> splits = Optional.absent();
+        ImmutableMap.Builder<PlanNodeId, SplitSource> bucketedSplits = ImmutableMap.builder();
+        if (currentFragment.getDistribution() == PlanDistribution.BUCKETED) {
+            // every table scan of a bucketed fragment has its own splits
+            for (PlanNode source : currentFragment.getSources()) {
+                if (source instanceof TableScanNode) {
+                    bucketedSplits.put(source.getId(), getSplitSource((TableScanNode) source));
+                }
+            }
+        }
+        else {
+            splits = currentFragment.getRoot().accept(new Visitor(), null);
+        }
 
         // create child stages
         ImmutableList.Builder<StageExecutionPlan> dependencies = ImmutableList.builder();
@@ -79,10 +93,26 @@ public class DistributedExecutionPlanner
 
         return new StageExecutionPlan(currentFragment,
                 splits,
+                bucketedSplits.build(),
                 dependencies.build()
         );
     }
 
+    private SplitSource getSplitSource(TableScanNode node)
+    {
+        return splitManager.getPartitionSplits(node.getTable(), getPartitions(node));
+    }
+
+    private List<Partition> getPartitions(TableScanNode node)
+    {
+        if (node.getGeneratedPartitions().isPresent()) {
+            return node.getGeneratedPartitions().get().getPartitions();
+        }
+
+        PartitionResult allPartitions = splitManager.getPartitions(node.getTable(), Optional.<TupleDomain<ColumnHandle>>absent());
+        return allPartitions.getPartitions();
+    }
+
     private final class Visitor
             extends PlanVisitor<Void, Optional<SplitSource>>
     {
@@ -90,19 +120,7 @@ public class DistributedExecutionPlanner
         public Optional<SplitSource> visitTableScan(TableScanNode node, Void context)
         {
             // get dataSource for table
-            SplitSource splitSource = splitManager.getPartitionSplits(node.getTable(), getPartitions(node));
-
-            return Optional.of(splitSource);
-        }
-
-        private List<Partition> getPartitions(TableScanNode node)
-        {
-            if (node.getGeneratedPartitions().isPresent()) {
-                return node.getGeneratedPartitions().get().getPartitions();
-            }
-
-            PartitionResult allPartitions = splitManager.getPartitions(node.getTable(), Optional.<TupleDomain<ColumnHandle>>absent());
-            return allPartitions.getPartitions();
+            return Optional.of(getSplitSource(node));
         }
 
         @Override
@@ -13,10 +13,13 @@
  */
 package com.facebook.presto.sql.planner;
 
+import com.facebook.presto.metadata.ColumnHandle;
 import com.facebook.presto.metadata.FunctionInfo;
 import com.facebook.presto.metadata.Metadata;
 import com.facebook.presto.metadata.Signature;
+import com.facebook.presto.metadata.TablePartitioning;
 import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.sql.analyzer.FeaturesConfig.JoinDistributionType;
 import com.facebook.presto.sql.planner.PlanFragment.OutputPartitioning;
 import com.facebook.presto.sql.planner.PlanFragment.PlanDistribution;
 import com.facebook.presto.sql.planner.plan.AggregationNode;
@@ -55,6 +58,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import io.airlift.units.DataSize;
 
 import java.util.HashMap;
 import java.util.List;
@@ -90,7 +94,23 @@ public class DistributedLogicalPlanner
 
     public SubPlan createSubPlans(Plan plan, boolean createSingleNodePlan, boolean distributedIndexJoins)
     {
-        Visitor visitor = new Visitor(plan.getSymbolAllocator(), createSingleNodePlan, distributedIndexJoins);
+        return createSubPlans(plan, createSingleNodePlan, distributedIndexJoins, false);
+    }
+
+    public SubPlan createSubPlans(Plan plan, boolean createSingleNodePlan, boolean distributedIndexJoins, boolean colocatedJoins)
+    {
+        return createSubPlans(plan, createSingleNodePlan, distributedIndexJoins, colocatedJoins, JoinDistributionType.AUTOMATIC, Optional.<DataSize>absent());
+    }
+
+    /**
+     * @param colocatedJoins run joins and aggregations on the bucketing columns of tables bucketed the same way without an exchange
+     * @param joinDistributionType whether the build side of joins is replicated to every task of the probe side or both sides are hash partitioned on the join keys
+     * @param broadcastJoinMaxSize with automatic join distribution, hash partition both sides of joins whose build side is estimated to be larger than this
+     */
+    public SubPlan createSubPlans(Plan plan, boolean createSingleNodePlan, boolean distributedIndexJoins, boolean colocatedJoins, JoinDistributionType joinDistributionType, Optional<DataSize> broadcastJoinMaxSize)
+    {
+        StatisticsCalculator statisticsCalculator = new StatisticsCalculator(metadata, plan.getSymbolAllocator().getTypes());
+        Visitor visitor = new Visitor(plan.getSymbolAllocator(), createSingleNodePlan, distributedIndexJoins, colocatedJoins, joinDistributionType, broadcastJoinMaxSize, statisticsCalculator);
         SubPlanBuilder builder = plan.getRoot().accept(visitor, null);
 
         SubPlan subplan = builder.build();
@@ -107,12 +127,20 @@ public class DistributedLogicalPlanner
         private final SymbolAllocator allocator;
         private final boolean createSingleNodePlan;
         private final boolean distributedIndexJoins;
+        private final boolean colocatedJoins;
+        private final JoinDistributionType joinDistributionType;
+        private final Optional<DataSize> broadcastJoinMaxSize;
+        private final StatisticsCalculator statisticsCalculator;
 
-        public Visitor(SymbolAllocator allocator, boolean createSingleNodePlan, boolean distributedIndexJoins)
+        public Visitor(SymbolAllocator allocator, boolean createSingleNodePlan, boolean distributedIndexJoins, boolean colocatedJoins, JoinDistributionType joinDistributionType, Optional<DataSize> broadcastJoinMaxSize, StatisticsCalculator statisticsCalculator)
         {
             this.allocator = allocator;
             this.createSingleNodePlan = createSingleNodePlan;
             this.distributedIndexJoins = distributedIndexJoins;
+            this.colocatedJoins = colocatedJoins;
+            this.joinDistributionType = joinDistributionType;
+            this.broadcastJoinMaxSize = broadcastJoinMaxSize;
+            this.statisticsCalculator = statisticsCalculator;
         }
 
         @Override
@@ -122,7 +150,14 @@ public class DistributedLogicalPlanner
 
             if (!current.isDistributed()) {
                 // add the aggregation node as the root of the current fragment
-                current.setRoot(new AggregationNode(node.getId(), current.getRoot(), node.getGroupBy(), node.getAggregations(), node.getFunctions(), node.getMasks(), SINGLE, node.getSampleWeight(), node.getConfidence()));
+                current.setRoot(new AggregationNode(node.getId(), current.getRoot(), node.getGroupBy(), node.getAggregations(), node.getFunctions(), node.getMasks(), SINGLE, node.getSampleWeight(), node.getConfidence(), node.getHashSymbol()));
+                return current;
+            }
+
+            if (isBucketed(current) && node.getGroupBy().containsAll(current.getBucketSymbols())) {
+                // every group lies within a single bucket, so each task can aggregate its buckets completely
+                current = toBucketedPlan(current);
+                current.setRoot(new AggregationNode(node.getId(), current.getRoot(), node.getGroupBy(), node.getAggregations(), node.getFunctions(), node.getMasks(), SINGLE, node.getSampleWeight(), node.getConfidence(), node.getHashSymbol()));
                 return current;
             }
 
@@ -141,9 +176,9 @@ public class DistributedLogicalPlanner
 
             // else, we need to "close" the current fragment and create an unpartitioned fragment for the final aggregation
             if (decomposable) {
-                return addDistributedAggregation(current, aggregations, functions, masks, groupBy, node.getSampleWeight(), node.getConfidence());
+                return addDistributedAggregation(current, aggregations, functions, masks, groupBy, node.getSampleWeight(), node.getConfidence(), node.getHashSymbol());
             }
-            return addSingleNodeAggregation(current, aggregations, functions, masks, groupBy, node.getSampleWeight(), node.getConfidence());
+            return addSingleNodeAggregation(current, aggregations, functions, masks, groupBy, node.getSampleWeight(), node.getConfidence(), node.getHashSymbol());
         }
 
         @Override
@@ -162,35 +197,35 @@ public class DistributedLogicalPlanner
                 }
             }
             if (createSingleNodePlan || alreadyPartitioned || !current.isDistributed()) {
-                MarkDistinctNode markNode = new MarkDistinctNode(idAllocator.getNextId(), current.getRoot(), node.getMarkerSymbol(), node.getDistinctSymbols());
+                MarkDistinctNode markNode = new MarkDistinctNode(idAllocator.getNextId(), current.getRoot(), node.getMarkerSymbol(), node.getDistinctSymbols(), node.getHashSymbol());
                 current.setRoot(markNode);
                 return current;
             }
             else {
                 PlanNode sink = new SinkNode(idAllocator.getNextId(), current.getRoot(), current.getRoot().getOutputSymbols());
                 current.setRoot(sink)
-                        .setHashOutputPartitioning(node.getDistinctSymbols());
+                        .setHashOutputPartitioning(node.getDistinctSymbols(), node.getHashSymbol());
 
                 PlanNode exchange = new ExchangeNode(idAllocator.getNextId(), current.getId(), sink.getOutputSymbols());
-                MarkDistinctNode markNode = new MarkDistinctNode(idAllocator.getNextId(), exchange, node.getMarkerSymbol(), node.getDistinctSymbols());
+                MarkDistinctNode markNode = new MarkDistinctNode(idAllocator.getNextId(), exchange, node.getMarkerSymbol(), node.getDistinctSymbols(), node.getHashSymbol());
                 return createFixedDistributionPlan(markNode)
                         .addChild(current.build());
             }
         }
 
-        private SubPlanBuilder addSingleNodeAggregation(SubPlanBuilder plan, Map<Symbol, FunctionCall> aggregations, Map<Symbol, Signature> functions, Map<Symbol, Symbol> masks, List<Symbol> groupBy, Optional<Symbol> sampleWeight, double confidence)
+        private SubPlanBuilder addSingleNodeAggregation(SubPlanBuilder plan, Map<Symbol, FunctionCall> aggregations, Map<Symbol, Signature> functions, Map<Symbol, Symbol> masks, List<Symbol> groupBy, Optional<Symbol> sampleWeight, double confidence, Optional<Symbol> hashSymbol)
         {
             plan.setRoot(new SinkNode(idAllocator.getNextId(), plan.getRoot(), plan.getRoot().getOutputSymbols()));
 
             // create aggregation plan
             ExchangeNode source = new ExchangeNode(idAllocator.getNextId(), plan.getId(), plan.getRoot().getOutputSymbols());
-            AggregationNode aggregation = new AggregationNode(idAllocator.getNextId(), source, groupBy, aggregations, functions, masks, SINGLE, sampleWeight, confidence);
+            AggregationNode aggregation = new AggregationNode(idAllocator.getNextId(), source, groupBy, aggregations, functions, masks, SINGLE, sampleWeight, confidence, hashSymbol);
             plan = createSingleNodePlan(aggregation).addChild(plan.build());
 
             return plan;
         }
 
-        private SubPlanBuilder addDistributedAggregation(SubPlanBuilder plan, Map<Symbol, FunctionCall> aggregations, Map<Symbol, Signature> functions, Map<Symbol, Symbol> masks, List<Symbol> groupBy, Optional<Symbol> sampleWeight, double confidence)
+        private SubPlanBuilder addDistributedAggregation(SubPlanBuilder plan, Map<Symbol, FunctionCall> aggregations, Map<Symbol, Signature> functions, Map<Symbol, Symbol> masks, List<Symbol> groupBy, Optional<Symbol> sampleWeight, double confidence, Optional<Symbol> hashSymbol)
         {
             Map<Symbol, FunctionCall> finalCalls = new HashMap<>();
             Map<Symbol, FunctionCall> intermediateCalls = new HashMap<>();
@@ -212,19 +247,19 @@ public class DistributedLogicalPlanner
             }
 
             // create partial aggregation plan
-            AggregationNode partialAggregation = new AggregationNode(idAllocator.getNextId(), plan.getRoot(), groupBy, intermediateCalls, intermediateFunctions, intermediateMask, PARTIAL, sampleWeight, confidence);
+            AggregationNode partialAggregation = new AggregationNode(idAllocator.getNextId(), plan.getRoot(), groupBy, intermediateCalls, intermediateFunctions, intermediateMask, PARTIAL, sampleWeight, confidence, hashSymbol);
             plan.setRoot(new SinkNode(idAllocator.getNextId(), partialAggregation, partialAggregation.getOutputSymbols()));
 
             // create final aggregation plan
             ExchangeNode source = new ExchangeNode(idAllocator.getNextId(), plan.getId(), plan.getRoot().getOutputSymbols());
-            AggregationNode finalAggregation = new AggregationNode(idAllocator.getNextId(), source, groupBy, finalCalls, functions, ImmutableMap.<Symbol, Symbol>of(), FINAL, Optional.<Symbol>absent(), confidence);
+            AggregationNode finalAggregation = new AggregationNode(idAllocator.getNextId(), source, groupBy, finalCalls, functions, ImmutableMap.<Symbol, Symbol>of(), FINAL, Optional.<Symbol>absent(), confidence, hashSymbol);
 
             if (groupBy.isEmpty()) {
                 plan = createSingleNodePlan(finalAggregation)
                         .addChild(plan.build());
             }
             else {
-                plan.setHashOutputPartitioning(groupBy);
+                plan.setHashOutputPartitioning(groupBy, hashSymbol);
                 plan = createFixedDistributionPlan(finalAggregation)
                         .addChild(plan.build());
             }
@@ -309,6 +344,10 @@ public class DistributedLogicalPlanner
         {
             SubPlanBuilder current = node.getSource().accept(this, context);
             current.setRoot(new SampleNode(node.getId(), current.getRoot(), node.getSampleRatio(), node.getSampleType(), node.isRescaled(), node.getSampleWeightSymbol()));
+            if (node.getSampleType() == SampleNode.Type.SYSTEM) {
+                // system sampling drops whole splits, which bucketed scheduling does not support
+                current.clearBucketing();
+            }
             return current;
         }
 
@@ -317,6 +356,16 @@ public class DistributedLogicalPlanner
         {
             SubPlanBuilder current = node.getSource().accept(this, context);
             current.setRoot(new ProjectNode(node.getId(), current.getRoot(), node.getOutputMap()));
+
+            if (current.getTablePartitioning().isPresent()) {
+                Optional<List<Symbol>> bucketSymbols = getProjectedSymbols(current.getBucketSymbols(), node.getOutputMap());
+                if (bucketSymbols.isPresent()) {
+                    current.setBucketing(current.getTablePartitioning().get(), bucketSymbols.get());
+                }
+                else {
+                    current.clearBucketing();
+                }
+            }
             return current;
         }
 
@@ -419,7 +468,18 @@ public class DistributedLogicalPlanner
         @Override
         public SubPlanBuilder visitTableScan(TableScanNode node, Void context)
         {
-            return createSourceDistributionPlan(node, node.getId());
+            SubPlanBuilder current = createSourceDistributionPlan(node, node.getId());
+
+            if (colocatedJoins && !createSingleNodePlan) {
+                Optional<TablePartitioning> partitioning = metadata.getTablePartitioning(node.getTable());
+                if (partitioning.isPresent()) {
+                    Optional<List<Symbol>> bucketSymbols = getAssignedSymbols(partitioning.get().getPartitioningColumns(), node.getAssignments());
+                    if (bucketSymbols.isPresent()) {
+                        current.setBucketing(partitioning.get(), bucketSymbols.get());
+                    }
+                }
+            }
+            return current;
         }
 
         @Override
@@ -480,6 +540,34 @@ public class DistributedLogicalPlanner
             SubPlanBuilder left = node.getLeft().accept(this, context);
             SubPlanBuilder right = node.getRight().accept(this, context);
 
+            if (isColocated(node, left, right)) {
+                // bucket N of both sides is read by the same task, so neither side is exchanged
+                JoinNode join = new JoinNode(node.getId(), node.getType(), left.getRoot(), right.getRoot(), node.getCriteria(), node.getLeftHashSymbol(), node.getRightHashSymbol());
+                SubPlanBuilder outer = (node.getType() == JoinNode.Type.RIGHT) ? right : left;
+                return createSubPlan(join, PlanDistribution.BUCKETED, left.getPartitionedSource())
+                        .setBucketing(outer.getTablePartitioning().get(), outer.getBucketSymbols())
+                        .setChildren(Iterables.concat(left.getChildren(), right.getChildren()));
+            }
+
+            if (isPartitioned(node)) {
+                // both sides are exchanged on the join keys, so each task builds a hash table for only one partition of the build side
+                left.setRoot(new SinkNode(idAllocator.getNextId(), left.getRoot(), left.getRoot().getOutputSymbols()))
+                        .setHashOutputPartitioning(Lists.transform(node.getCriteria(), JoinNode.EquiJoinClause.leftGetter()), node.getLeftHashSymbol());
+                right.setRoot(new SinkNode(idAllocator.getNextId(), right.getRoot(), right.getRoot().getOutputSymbols()))
+                        .setHashOutputPartitioning(Lists.transform(node.getCriteria(), JoinNode.EquiJoinClause.rightGetter()), node.getRightHashSymbol());
+
+                JoinNode join = new JoinNode(node.getId(),
+                        node.getType(),
+                        new ExchangeNode(idAllocator.getNextId(), left.getId(), left.getRoot().getOutputSymbols()),
+                        new ExchangeNode(idAllocator.getNextId(), right.getId(), right.getRoot().getOutputSymbols()),
+                        node.getCriteria(),
+                        node.getLeftHashSymbol(),
+                        node.getRightHashSymbol());
+                return createFixedDistributionPlan(join)
+                        .addChild(left.build())
+                        .addChild(right.build());
+            }
+
             if (left.isDistributed() || right.isDistributed()) {
                 switch (node.getType()) {
                     case INNER:
@@ -489,7 +577,9 @@ public class DistributedLogicalPlanner
                                 node.getType(),
                                 left.getRoot(),
                                 new ExchangeNode(idAllocator.getNextId(), right.getId(), right.getRoot().getOutputSymbols()),
-                                node.getCriteria()));
+                                node.getCriteria(),
+                                node.getLeftHashSymbol(),
+                                node.getRightHashSymbol()));
                         left.addChild(right.build());
 
                         return left;
@@ -499,7 +589,9 @@ public class DistributedLogicalPlanner
                                 node.getType(),
                                 new ExchangeNode(idAllocator.getNextId(), left.getId(), left.getRoot().getOutputSymbols()),
                                 right.getRoot(),
-                                node.getCriteria()));
+                                node.getCriteria(),
+                                node.getLeftHashSymbol(),
+                                node.getRightHashSymbol()));
                         right.addChild(left.build());
 
                         return right;
@@ -508,12 +600,85 @@ public class DistributedLogicalPlanner
                 }
             }
             else {
-                JoinNode join = new JoinNode(node.getId(), node.getType(), left.getRoot(), right.getRoot(), node.getCriteria());
+                JoinNode join = new JoinNode(node.getId(), node.getType(), left.getRoot(), right.getRoot(), node.getCriteria(), node.getLeftHashSymbol(), node.getRightHashSymbol());
                 return createSingleNodePlan(join)
                         .setChildren(Iterables.concat(left.getChildren(), right.getChildren()));
             }
         }
 
+        private boolean isPartitioned(JoinNode node)
+        {
+            if (createSingleNodePlan || joinDistributionType == JoinDistributionType.REPLICATED || node.getCriteria().isEmpty()) {
+                return false;
+            }
+
+            PlanNode buildSide;
+            switch (node.getType()) {
+                case INNER:
+                case LEFT:
+                    buildSide = node.getRight();
+                    break;
+                case RIGHT:
+                    buildSide = node.getLeft();
+                    break;
+                default:
+                    return false;
+            }
+            if (joinDistributionType == JoinDistributionType.PARTITIONED) {
+                return true;
+            }
+            if (!broadcastJoinMaxSize.isPresent()) {
+                return false;
+            }
+
+            // without an estimate, keep broadcasting like before
+            double buildSize = statisticsCalculator.calculate(buildSide).getOutputSizeInBytes();
+            return !Double.isNaN(buildSize) && buildSize > broadcastJoinMaxSize.get().toBytes();
+        }
+
+        private boolean isColocated(JoinNode node, SubPlanBuilder left, SubPlanBuilder right)
+        {
+            if (node.getType() != JoinNode.Type.INNER && node.getType() != JoinNode.Type.LEFT && node.getType() != JoinNode.Type.RIGHT) {
+                return false;
+            }
+            if (!isBucketed(left) || !isBucketed(right) || !left.getTablePartitioning().get().isCompatibleWith(right.getTablePartitioning().get())) {
+                return false;
+            }
+
+            // rows can only match within a bucket if each pair of bucketing columns is compared by the join
+            for (int i = 0; i < left.getBucketSymbols().size(); i++) {
+                boolean found = false;
+                for (JoinNode.EquiJoinClause clause : node.getCriteria()) {
+                    if (clause.getLeft().equals(left.getBucketSymbols().get(i)) && clause.getRight().equals(right.getBucketSymbols().get(i))) {
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isBucketed(SubPlanBuilder current)
+        {
+            return current.getTablePartitioning().isPresent() &&
+                    (current.getDistribution() == PlanDistribution.SOURCE || current.getDistribution() == PlanDistribution.BUCKETED) &&
+                    current.getRoot().getOutputSymbols().containsAll(current.getBucketSymbols());
+        }
+
+        private SubPlanBuilder toBucketedPlan(SubPlanBuilder current)
+        {
+            if (current.getDistribution() == PlanDistribution.BUCKETED) {
+                return current;
+            }
+            // the only table scan of a source distributed fragment is its partitioned source
+            return createSubPlan(current.getRoot(), PlanDistribution.BUCKETED, current.getPartitionedSource())
+                    .setBucketing(current.getTablePartitioning().get(), current.getBucketSymbols())
+                    .setChildren(current.getChildren());
+        }
+
         @Override
         public SubPlanBuilder visitSemiJoin(SemiJoinNode node, Void context)
         {
@@ -527,13 +692,15 @@ public class DistributedLogicalPlanner
                         new ExchangeNode(idAllocator.getNextId(), filteringSource.getId(), filteringSource.getRoot().getOutputSymbols()),
                         node.getSourceJoinSymbol(),
                         node.getFilteringSourceJoinSymbol(),
-                        node.getSemiJoinOutput()));
+                        node.getSemiJoinOutput(),
+                        node.getSourceHashSymbol(),
+                        node.getFilteringSourceHashSymbol()));
                 source.addChild(filteringSource.build());
 
                 return source;
             }
             else {
-                SemiJoinNode semiJoinNode = new SemiJoinNode(node.getId(), source.getRoot(), filteringSource.getRoot(), node.getSourceJoinSymbol(), node.getFilteringSourceJoinSymbol(), node.getSemiJoinOutput());
+                SemiJoinNode semiJoinNode = new SemiJoinNode(node.getId(), source.getRoot(), filteringSource.getRoot(), node.getSourceJoinSymbol(), node.getFilteringSourceJoinSymbol(), node.getSemiJoinOutput(), node.getSourceHashSymbol(), node.getFilteringSourceHashSymbol());
                 return createSingleNodePlan(semiJoinNode)
                         .setChildren(Iterables.concat(source.getChildren(), filteringSource.getChildren()));
             }
@@ -592,6 +759,45 @@ public class DistributedLogicalPlanner
             throw new UnsupportedOperationException("not yet implemented: " + node.getClass().getName());
         }
 
+        private Optional<List<Symbol>> getAssignedSymbols(List<ColumnHandle> columns, Map<Symbol, ColumnHandle> assignments)
+        {
+            ImmutableList.Builder<Symbol> symbols = ImmutableList.builder();
+            for (ColumnHandle column : columns) {
+                Symbol symbol = null;
+                for (Map.Entry<Symbol, ColumnHandle> entry : assignments.entrySet()) {
+                    if (entry.getValue().equals(column)) {
+                        symbol = entry.getKey();
+                        break;
+                    }
+                }
+                if (symbol == null) {
+                    return Optional.absent();
+                }
+                symbols.add(symbol);
+            }
+            return Optional.<List<Symbol>>of(symbols.build());
+        }
+
+        private Optional<List<Symbol>> getProjectedSymbols(List<Symbol> symbols, Map<Symbol, Expression> outputMap)
+        {
+            ImmutableList.Builder<Symbol> projected = ImmutableList.builder();
+            for (Symbol symbol : symbols) {
+                Symbol output = null;
+                for (Map.Entry<Symbol, Expression> entry : outputMap.entrySet()) {
+                    Expression expression = entry.getValue();
+                    if (expression instanceof QualifiedNameReference && Symbol.fromQualifiedName(((QualifiedNameReference) expression).getName()).equals(symbol)) {
+                        output = entry.getKey();
+                        break;
+                    }
+                }
+                if (output == null) {
+                    return Optional.absent();
+                }
+                projected.add(output);
+            }
+            return Optional.<List<Symbol>>of(projected.build());
+        }
+
         public SubPlanBuilder createSingleNodePlan(PlanNode root)
         {
             return new SubPlanBuilder(new PlanFragmentId(nextSubPlanId()), allocator, PlanDistribution.NONE, root, null);
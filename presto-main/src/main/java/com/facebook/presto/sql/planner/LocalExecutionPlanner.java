@@ -14,6 +14,7 @@
 package com.facebook.presto.sql.planner;
 
 import com.facebook.presto.block.BlockUtils;
+import com.facebook.presto.execution.HashBuildExecutor;
 import com.facebook.presto.execution.TaskManagerConfig;
 import com.facebook.presto.index.IndexManager;
 import com.facebook.presto.metadata.ColumnHandle;
@@ -22,6 +23,7 @@ import com.facebook.presto.metadata.Signature;
 import com.facebook.presto.operator.AggregationOperator.AggregationOperatorFactory;
 import com.facebook.presto.operator.CursorProcessor;
 import com.facebook.presto.operator.DriverFactory;
+import com.facebook.presto.operator.DynamicFilter;
 import com.facebook.presto.operator.ExchangeClient;
 import com.facebook.presto.operator.ExchangeOperator.ExchangeOperatorFactory;
 import com.facebook.presto.operator.FilterAndProjectOperator;
@@ -69,6 +71,7 @@ import com.facebook.presto.spi.RecordSet;
 import com.facebook.presto.spi.RecordSink;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.split.DataStreamProvider;
 import com.facebook.presto.split.MappedRecordSet;
 import com.facebook.presto.sql.gen.ExpressionCompiler;
@@ -85,6 +88,7 @@ import com.facebook.presto.sql.planner.plan.LimitNode;
 import com.facebook.presto.sql.planner.plan.MarkDistinctNode;
 import com.facebook.presto.sql.planner.plan.OutputNode;
 import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.sql.planner.plan.PlanVisitor;
 import com.facebook.presto.sql.planner.plan.ProjectNode;
 import com.facebook.presto.sql.planner.plan.RowNumberLimitNode;
@@ -139,6 +143,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import static com.facebook.presto.operator.DistinctLimitOperator.DistinctLimitOperatorFactory;
 import static com.facebook.presto.operator.TableCommitOperator.TableCommitOperatorFactory;
@@ -147,6 +152,7 @@ import static com.facebook.presto.operator.TableWriterOperator.TableWriterOperat
 import static com.facebook.presto.operator.index.PagesIndexBuilderOperator.PagesIndexBuilderOperatorFactory;
 import static com.facebook.presto.sql.analyzer.ExpressionAnalyzer.getExpressionTypes;
 import static com.facebook.presto.sql.analyzer.ExpressionAnalyzer.getExpressionTypesFromInput;
+import static com.facebook.presto.sql.planner.plan.AggregationNode.Step.PARTIAL;
 import static com.facebook.presto.sql.planner.plan.IndexJoinNode.EquiJoinClause.indexGetter;
 import static com.facebook.presto.sql.planner.plan.IndexJoinNode.EquiJoinClause.probeGetter;
 import static com.facebook.presto.sql.planner.plan.JoinNode.EquiJoinClause.leftGetter;
@@ -159,6 +165,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Iterables.concat;
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static java.util.Collections.singleton;
 
 public class LocalExecutionPlanner
@@ -176,6 +183,13 @@ public class LocalExecutionPlanner
     private final boolean interpreterEnabled;
     private final DataSize maxIndexMemorySize;
     private final IndexJoinLookupStats indexJoinLookupStats;
+    private final Optional<SpillerFactory> spillerFactory;
+    private final int taskConcurrency;
+    private final int hashBuildConcurrency;
+    private final Executor hashBuildExecutor;
+    private final int writerCount;
+    private final boolean dynamicFilteringEnabled;
+    private final int dynamicFilteringMaxValues;
 
     @Inject
     public LocalExecutionPlanner(
@@ -188,7 +202,9 @@ public class LocalExecutionPlanner
             ExpressionCompiler compiler,
             IndexJoinLookupStats indexJoinLookupStats,
             CompilerConfig compilerConfig,
-            TaskManagerConfig taskManagerConfig)
+            TaskManagerConfig taskManagerConfig,
+            SpillerFactory spillerFactory,
+            HashBuildExecutor hashBuildExecutor)
     {
         checkNotNull(compilerConfig, "compilerConfig is null");
         this.dataStreamProvider = dataStreamProvider;
@@ -200,6 +216,14 @@ public class LocalExecutionPlanner
         this.compiler = checkNotNull(compiler, "compiler is null");
         this.indexJoinLookupStats = checkNotNull(indexJoinLookupStats, "indexJoinLookupStats is null");
         this.maxIndexMemorySize = checkNotNull(taskManagerConfig, "taskManagerConfig is null").getMaxTaskIndexMemoryUsage();
+        checkNotNull(spillerFactory, "spillerFactory is null");
+        this.spillerFactory = taskManagerConfig.isSpillEnabled() ? Optional.of(spillerFactory) : Optional.<SpillerFactory>absent();
+        this.taskConcurrency = taskManagerConfig.getTaskConcurrency();
+        this.hashBuildConcurrency = taskManagerConfig.getHashBuildConcurrency();
+        this.hashBuildExecutor = checkNotNull(hashBuildExecutor, "hashBuildExecutor is null");
+        this.writerCount = taskManagerConfig.getWriterCount();
+        this.dynamicFilteringEnabled = taskManagerConfig.isDynamicFilteringEnabled();
+        this.dynamicFilteringMaxValues = taskManagerConfig.getDynamicFilteringMaxValues();
 
         interpreterEnabled = compilerConfig.isInterpreterEnabled();
     }
@@ -208,10 +232,22 @@ public class LocalExecutionPlanner
             PlanNode plan,
             Map<Symbol, Type> types,
             OutputFactory outputOperatorFactory)
+    {
+        return plan(session, plan, types, outputOperatorFactory, ImmutableSet.<PlanNodeId>of());
+    }
+
+    /**
+     * @param partitionedSources sources that are read by a separate driver for each split
+     */
+    public LocalExecutionPlan plan(ConnectorSession session,
+            PlanNode plan,
+            Map<Symbol, Type> types,
+            OutputFactory outputOperatorFactory,
+            Set<PlanNodeId> partitionedSources)
     {
         LocalExecutionPlanContext context = new LocalExecutionPlanContext(session, types);
 
-        PhysicalOperation physicalOperation = plan.accept(new Visitor(session), context);
+        PhysicalOperation physicalOperation = plan.accept(new Visitor(session, partitionedSources), context);
         DriverFactory driverFactory = new DriverFactory(
                 context.isInputDriver(),
                 true,
@@ -333,10 +369,15 @@ public class LocalExecutionPlanner
             extends PlanVisitor<LocalExecutionPlanContext, PhysicalOperation>
     {
         private final ConnectorSession session;
+        private final Set<PlanNodeId> partitionedSources;
 
-        private Visitor(ConnectorSession session)
+        // filters of the table scans on the probe side of inner joins, by the id of the scan
+        private final Map<PlanNodeId, DynamicFilter> dynamicFilters = new HashMap<>();
+
+        private Visitor(ConnectorSession session, Set<PlanNodeId> partitionedSources)
         {
             this.session = session;
+            this.partitionedSources = ImmutableSet.copyOf(checkNotNull(partitionedSources, "partitionedSources is null"));
         }
 
         @Override
@@ -544,7 +585,8 @@ public class LocalExecutionPlanner
                         partitionChannels,
                         sortChannels,
                         sortOrder,
-                        1_000_000);
+                        1_000_000,
+                        spillerFactory);
 
             return new PhysicalOperation(operatorFactory, outputMappings.build(), source);
         }
@@ -599,7 +641,8 @@ public class LocalExecutionPlanner
                     outputChannels.build(),
                     10_000,
                     orderByChannels,
-                    sortOrder.build());
+                    sortOrder.build(),
+                    spillerFactory);
 
             return new PhysicalOperation(operator, source.getLayout(), source);
         }
@@ -629,6 +672,11 @@ public class LocalExecutionPlanner
         {
             PhysicalOperation source = node.getSource().accept(this, context);
 
+            if (node.getStep() != PARTIAL && !isParallel(context) && readsPartitionedSource(node.getSource())) {
+                // the aggregation must see the rows of all splits, which are read by separate drivers
+                source = gatherSplits(source, context);
+            }
+
             if (node.getGroupBy().isEmpty()) {
                 return planGlobalAggregation(context.getNextOperatorId(), node, source);
             }
@@ -648,7 +696,8 @@ public class LocalExecutionPlanner
                     .putAll(source.getLayout())
                     .put(node.getMarkerSymbol(), source.getLayout().size()).build();
 
-            MarkDistinctOperatorFactory operator = new MarkDistinctOperatorFactory(context.getNextOperatorId(), source.getTypes(), channels);
+            Optional<Integer> hashChannel = getHashChannel(node.getHashSymbol(), source.getLayout());
+            MarkDistinctOperatorFactory operator = new MarkDistinctOperatorFactory(context.getNextOperatorId(), source.getTypes(), channels, hashChannel);
             return new PhysicalOperation(operator, outputMappings, source);
         }
 
@@ -759,6 +808,22 @@ public class LocalExecutionPlanner
             }
             Map<Symbol, Integer> outputMappings = outputMappingsBuilder.build();
 
+            Optional<DynamicFilter> dynamicFilter = Optional.absent();
+            Map<ColumnHandle, Integer> dynamicFilterChannels = new HashMap<>();
+            if (columns != null) {
+                TableScanNode tableScanNode = (TableScanNode) sourceNode;
+                dynamicFilter = Optional.fromNullable(dynamicFilters.get(tableScanNode.getId()));
+                for (int i = 0; i < outputSymbols.size(); i++) {
+                    Expression projection = projectionExpressions.get(i);
+                    if (projection instanceof QualifiedNameReference) {
+                        ColumnHandle column = tableScanNode.getAssignments().get(Symbol.fromQualifiedName(((QualifiedNameReference) projection).getName()));
+                        if (column != null && !dynamicFilterChannels.containsKey(column)) {
+                            dynamicFilterChannels.put(column, i);
+                        }
+                    }
+                }
+            }
+
             try {
                 // compiler uses inputs instead of symbols, so rewrite the expressions first
                 SymbolToInputRewriter symbolToInputRewriter = new SymbolToInputRewriter(sourceLayout);
@@ -781,7 +846,7 @@ public class LocalExecutionPlanner
 
                 if (columns != null) {
                     CursorProcessor cursorProcessor = compiler.compileCursorProcessor(traslatedFilter, translatedProjections, sourceNode.getId());
-                    PageProcessor pageProcessor = compiler.compilePageProcessor(traslatedFilter, translatedProjections);
+                    PageProcessor pageProcessor = compilePageProcessor(filterExpression, projectionExpressions, traslatedFilter, translatedProjections);
 
                     SourceOperatorFactory operatorFactory = new ScanFilterAndProjectOperator.ScanFilterAndProjectOperatorFactory(
                             context.getNextOperatorId(),
@@ -790,12 +855,14 @@ public class LocalExecutionPlanner
                             cursorProcessor,
                             pageProcessor,
                             columns,
-                            Lists.transform(rewrittenProjections, forMap(expressionTypes)));
+                            Lists.transform(rewrittenProjections, forMap(expressionTypes)),
+                            dynamicFilter,
+                            dynamicFilterChannels);
 
                     return new PhysicalOperation(operatorFactory, outputMappings);
                 }
                 else {
-                    PageProcessor processor = compiler.compilePageProcessor(traslatedFilter, translatedProjections);
+                    PageProcessor processor = compilePageProcessor(filterExpression, projectionExpressions, traslatedFilter, translatedProjections);
 
                     OperatorFactory operatorFactory = new FilterAndProjectOperator.FilterAndProjectOperatorFactory(
                             context.getNextOperatorId(),
@@ -851,7 +918,9 @@ public class LocalExecutionPlanner
                         new GenericCursorProcessor(filterFunction, projectionFunctions),
                         new GenericPageProcessor(filterFunction, projectionFunctions),
                         columns,
-                        toTypes(projectionFunctions));
+                        toTypes(projectionFunctions),
+                        dynamicFilter,
+                        dynamicFilterChannels);
 
                 return new PhysicalOperation(operatorFactory, outputMappings);
             }
@@ -864,6 +933,20 @@ public class LocalExecutionPlanner
             }
         }
 
+        private PageProcessor compilePageProcessor(Expression filterExpression, List<Expression> projectionExpressions, RowExpression filter, List<RowExpression> projections)
+        {
+            // expressions evaluated once per dictionary entry must return the same value for every row
+            boolean deterministic = DeterminismEvaluator.isDeterministic(filterExpression);
+            for (Expression projection : projectionExpressions) {
+                deterministic &= DeterminismEvaluator.isDeterministic(projection);
+            }
+
+            if (deterministic) {
+                return compiler.compileDictionaryAwarePageProcessor(filter, projections);
+            }
+            return compiler.compilePageProcessor(filter, projections);
+        }
+
         private Map<Integer, Type> getInputTypes(Map<Symbol, Integer> layout, List<Type> types)
         {
             Builder<Integer, Type> inputTypes = ImmutableMap.builder();
@@ -889,7 +972,8 @@ public class LocalExecutionPlanner
             }
 
             List<Type> types = getSourceOperatorTypes(node, context.getTypes());
-            OperatorFactory operatorFactory = new TableScanOperatorFactory(context.getNextOperatorId(), node.getId(), dataStreamProvider, types, columns);
+            Optional<DynamicFilter> dynamicFilter = Optional.fromNullable(dynamicFilters.get(node.getId()));
+            OperatorFactory operatorFactory = new TableScanOperatorFactory(context.getNextOperatorId(), node.getId(), dataStreamProvider, types, columns, dynamicFilter);
             return new PhysicalOperation(operatorFactory, outputMappings.build());
         }
 
@@ -1099,9 +1183,9 @@ public class LocalExecutionPlanner
             switch (node.getType()) {
                 case INNER:
                 case LEFT:
-                    return createJoinOperator(node, node.getLeft(), leftSymbols, node.getRight(), rightSymbols, context);
+                    return createJoinOperator(node, node.getLeft(), leftSymbols, node.getLeftHashSymbol(), node.getRight(), rightSymbols, node.getRightHashSymbol(), context);
                 case RIGHT:
-                    return createJoinOperator(node, node.getRight(), rightSymbols, node.getLeft(), leftSymbols, context);
+                    return createJoinOperator(node, node.getRight(), rightSymbols, node.getRightHashSymbol(), node.getLeft(), leftSymbols, node.getLeftHashSymbol(), context);
                 default:
                     throw new UnsupportedOperationException("Unsupported join type: " + node.getType());
             }
@@ -1110,33 +1194,85 @@ public class LocalExecutionPlanner
         private PhysicalOperation createJoinOperator(JoinNode node,
                 PlanNode probeNode,
                 List<Symbol> probeSymbols,
+                Optional<Symbol> probeHashSymbol,
                 PlanNode buildNode,
                 List<Symbol> buildSymbols,
+                Optional<Symbol> buildHashSymbol,
                 LocalExecutionPlanContext context)
         {
+            // a spilled build side is partitioned on disk instead, so only build in parallel when spilling is disabled
+            boolean parallel = isParallel(context) && !spillerFactory.isPresent();
+
+            // the scan on the probe side waits for the build keys, so it must be registered before the probe is planned
+            Optional<DynamicFilter> dynamicFilter = Optional.absent();
+            if (dynamicFilteringEnabled && node.getType() == JoinNode.Type.INNER) {
+                dynamicFilter = createDynamicFilter(probeNode, probeSymbols, parallel ? taskConcurrency : 1);
+            }
+
             // Plan probe and introduce a projection to put all fields from the probe side into a single channel if necessary
             PhysicalOperation probeSource = probeNode.accept(this, context);
             List<Integer> probeChannels = ImmutableList.copyOf(getChannelsForSymbols(probeSymbols, probeSource.getLayout()));
+            Optional<Integer> probeHashChannel = getHashChannel(probeHashSymbol, probeSource.getLayout());
 
             // do the same on the build side
             LocalExecutionPlanContext buildContext = context.createSubContext();
             PhysicalOperation buildSource = buildNode.accept(this, buildContext);
             List<Integer> buildChannels = ImmutableList.copyOf(getChannelsForSymbols(buildSymbols, buildSource.getLayout()));
-
-            HashBuilderOperatorFactory hashBuilderOperatorFactory = new HashBuilderOperatorFactory(
-                    buildContext.getNextOperatorId(),
-                    buildSource.getTypes(),
-                    buildChannels,
-                    100_000);
-            LookupSourceSupplier lookupSourceSupplier = hashBuilderOperatorFactory.getLookupSourceSupplier();
-            DriverFactory buildDriverFactory = new DriverFactory(
-                    buildContext.isInputDriver(),
-                    false,
-                    ImmutableList.<OperatorFactory>builder()
-                            .addAll(buildSource.getOperatorFactories())
-                            .add(hashBuilderOperatorFactory)
-                            .build());
-            context.addDriverFactory(buildDriverFactory);
+            Optional<Integer> buildHashChannel = getHashChannel(buildHashSymbol, buildSource.getLayout());
+
+            LookupSourceSupplier lookupSourceSupplier;
+            if (parallel) {
+                // hash partition the build rows over the build drivers, which each build one partition of the lookup source
+                LocalExecutionPlanContext parallelBuildContext = context.createSubContext();
+                PhysicalOperation partitionedBuildSource = createLocalExchange(buildSource, Optional.of(buildChannels), taskConcurrency, buildContext, parallelBuildContext);
+                HashBuilderOperatorFactory hashBuilderOperatorFactory = new HashBuilderOperatorFactory(
+                        parallelBuildContext.getNextOperatorId(),
+                        partitionedBuildSource.getTypes(),
+                        buildChannels,
+                        buildHashChannel,
+                        100_000,
+                        taskConcurrency,
+                        1,
+                        hashBuildExecutor,
+                        Optional.<SpillerFactory>absent(),
+                        dynamicFilter);
+                lookupSourceSupplier = hashBuilderOperatorFactory.getLookupSourceSupplier();
+                DriverFactory buildDriverFactory = new DriverFactory(
+                        false,
+                        false,
+                        ImmutableList.<OperatorFactory>builder()
+                                .addAll(partitionedBuildSource.getOperatorFactories())
+                                .add(hashBuilderOperatorFactory)
+                                .build(),
+                        taskConcurrency);
+                context.addDriverFactory(buildDriverFactory);
+            }
+            else {
+                if (readsPartitionedSource(buildNode)) {
+                    // the lookup source must hold the rows of all splits, which are read by separate drivers
+                    buildSource = gatherSplits(buildSource, buildContext);
+                }
+                HashBuilderOperatorFactory hashBuilderOperatorFactory = new HashBuilderOperatorFactory(
+                        buildContext.getNextOperatorId(),
+                        buildSource.getTypes(),
+                        buildChannels,
+                        buildHashChannel,
+                        100_000,
+                        1,
+                        hashBuildConcurrency,
+                        hashBuildExecutor,
+                        spillerFactory,
+                        dynamicFilter);
+                lookupSourceSupplier = hashBuilderOperatorFactory.getLookupSourceSupplier();
+                DriverFactory buildDriverFactory = new DriverFactory(
+                        buildContext.isInputDriver(),
+                        false,
+                        ImmutableList.<OperatorFactory>builder()
+                                .addAll(buildSource.getOperatorFactories())
+                                .add(hashBuilderOperatorFactory)
+                                .build());
+                context.addDriverFactory(buildDriverFactory);
+            }
 
             ImmutableMap.Builder<Symbol, Integer> outputMappings = ImmutableMap.builder();
             outputMappings.putAll(probeSource.getLayout());
@@ -1149,23 +1285,81 @@ public class LocalExecutionPlanner
                 outputMappings.put(entry.getKey(), offset + input);
             }
 
-            OperatorFactory operator = createJoinOperator(node.getType(), lookupSourceSupplier, probeSource.getTypes(), probeChannels, context);
+            if (parallel) {
+                // spread the probe pages over parallel join drivers and gather the joined rows
+                LocalExecutionPlanContext parallelProbeContext = context.createSubContext();
+                PhysicalOperation parallelProbeSource = createLocalExchange(probeSource, Optional.<List<Integer>>absent(), taskConcurrency, context, parallelProbeContext);
+                OperatorFactory operator = createJoinOperator(node.getType(), lookupSourceSupplier, parallelProbeSource.getTypes(), probeChannels, probeHashChannel, parallelProbeContext);
+                return gather(new PhysicalOperation(operator, outputMappings.build(), parallelProbeSource), parallelProbeContext, taskConcurrency, context);
+            }
+
+            OperatorFactory operator = createJoinOperator(node.getType(), lookupSourceSupplier, probeSource.getTypes(), probeChannels, probeHashChannel, context);
             return new PhysicalOperation(operator, outputMappings.build(), probeSource);
         }
 
+        /**
+         * Creates a filter for the table scan on the probe side, if the probe side only filters
+         * and projects the scanned rows, and at least one probe key is a column of the scan.
+         */
+        private Optional<DynamicFilter> createDynamicFilter(PlanNode probeNode, List<Symbol> probeSymbols, int partitionCount)
+        {
+            // follow the probe keys through the projections down to the scan
+            List<Symbol> symbols = new ArrayList<>(probeSymbols);
+            PlanNode node = probeNode;
+            while (node instanceof FilterNode || node instanceof ProjectNode) {
+                if (node instanceof ProjectNode) {
+                    Map<Symbol, Expression> assignments = ((ProjectNode) node).getOutputMap();
+                    for (int i = 0; i < symbols.size(); i++) {
+                        Expression expression = symbols.get(i) == null ? null : assignments.get(symbols.get(i));
+                        if (expression instanceof QualifiedNameReference) {
+                            symbols.set(i, Symbol.fromQualifiedName(((QualifiedNameReference) expression).getName()));
+                        }
+                        else {
+                            symbols.set(i, null);
+                        }
+                    }
+                }
+                node = getOnlyElement(node.getSources());
+            }
+            if (!(node instanceof TableScanNode)) {
+                return Optional.absent();
+            }
+            TableScanNode tableScanNode = (TableScanNode) node;
+
+            ImmutableList.Builder<ColumnHandle> probeColumns = ImmutableList.builder();
+            ImmutableList.Builder<Integer> joinClauses = ImmutableList.builder();
+            boolean filtered = false;
+            for (int clause = 0; clause < symbols.size(); clause++) {
+                ColumnHandle column = symbols.get(clause) == null ? null : tableScanNode.getAssignments().get(symbols.get(clause));
+                if (column != null) {
+                    probeColumns.add(column);
+                    joinClauses.add(clause);
+                    filtered = true;
+                }
+            }
+            if (!filtered) {
+                return Optional.absent();
+            }
+
+            DynamicFilter dynamicFilter = new DynamicFilter(probeColumns.build(), joinClauses.build(), partitionCount, dynamicFilteringMaxValues);
+            dynamicFilters.put(tableScanNode.getId(), dynamicFilter);
+            return Optional.of(dynamicFilter);
+        }
+
         private OperatorFactory createJoinOperator(
                 JoinNode.Type type,
                 LookupSourceSupplier lookupSourceSupplier,
                 List<Type> probeTypes,
                 List<Integer> probeJoinChannels,
+                Optional<Integer> probeHashChannel,
                 LocalExecutionPlanContext context)
         {
             switch (type) {
                 case INNER:
-                    return LookupJoinOperators.innerJoin(context.getNextOperatorId(), lookupSourceSupplier, probeTypes, probeJoinChannels);
+                    return LookupJoinOperators.innerJoin(context.getNextOperatorId(), lookupSourceSupplier, probeTypes, probeJoinChannels, probeHashChannel);
                 case LEFT:
                 case RIGHT:
-                    return LookupJoinOperators.outerJoin(context.getNextOperatorId(), lookupSourceSupplier, probeTypes, probeJoinChannels);
+                    return LookupJoinOperators.outerJoin(context.getNextOperatorId(), lookupSourceSupplier, probeTypes, probeJoinChannels, probeHashChannel);
                 default:
                     throw new UnsupportedOperationException("Unsupported join type: " + type);
             }
@@ -1183,8 +1377,10 @@ public class LocalExecutionPlanner
 
             int probeChannel = probeSource.getLayout().get(node.getSourceJoinSymbol());
             int buildChannel = buildSource.getLayout().get(node.getFilteringSourceJoinSymbol());
+            Optional<Integer> probeHashChannel = getHashChannel(node.getSourceHashSymbol(), probeSource.getLayout());
+            Optional<Integer> buildHashChannel = getHashChannel(node.getFilteringSourceHashSymbol(), buildSource.getLayout());
 
-            SetBuilderOperatorFactory setBuilderOperatorFactory = new SetBuilderOperatorFactory(buildContext.getNextOperatorId(), buildSource.getTypes(), buildChannel, 100_000);
+            SetBuilderOperatorFactory setBuilderOperatorFactory = new SetBuilderOperatorFactory(buildContext.getNextOperatorId(), buildSource.getTypes(), buildChannel, buildHashChannel, 100_000);
             SetSupplier setProvider = setBuilderOperatorFactory.getSetProvider();
             DriverFactory buildDriverFactory = new DriverFactory(
                     buildContext.isInputDriver(),
@@ -1201,7 +1397,7 @@ public class LocalExecutionPlanner
                     .put(node.getSemiJoinOutput(), probeSource.getLayout().size())
                     .build();
 
-            HashSemiJoinOperatorFactory operator = new HashSemiJoinOperatorFactory(context.getNextOperatorId(), setProvider, probeSource.getTypes(), probeChannel);
+            HashSemiJoinOperatorFactory operator = new HashSemiJoinOperatorFactory(context.getNextOperatorId(), setProvider, probeSource.getTypes(), probeChannel, probeHashChannel);
             return new PhysicalOperation(operator, outputMappings, probeSource);
         }
 
@@ -1232,15 +1428,34 @@ public class LocalExecutionPlanner
         }
 
         @Override
-        public PhysicalOperation visitTableWriter(TableWriterNode node, LocalExecutionPlanContext context)
+        public PhysicalOperation visitTableWriter(final TableWriterNode node, LocalExecutionPlanContext context)
         {
-            // serialize writes by forcing data through a single writer
-            PhysicalOperation exchange = createInMemoryExchange(node.getSource(), context);
+            boolean parallel = writerCount > 1 && !context.getIndexSourceContext().isPresent();
+
+            PhysicalOperation exchange;
+            LocalExecutionPlanContext writerContext = context;
+            if (parallel) {
+                // spread the rows over several writers, each of which writes through its own sink
+                PhysicalOperation source = node.getSource().accept(this, context);
+                writerContext = context.createSubContext();
+                exchange = createLocalExchange(source, Optional.<List<Integer>>absent(), writerCount, context, writerContext);
+            }
+            else {
+                // serialize writes by forcing data through a single writer
+                exchange = createInMemoryExchange(node.getSource(), context);
+            }
 
             Optional<Integer> sampleWeightChannel = node.getSampleWeightSymbol().transform(exchange.channelGetter());
 
-            // create the table writer
-            RecordSink recordSink = getRecordSink(node);
+            // create the table writers
+            Supplier<RecordSink> recordSinkSupplier = new Supplier<RecordSink>()
+            {
+                @Override
+                public RecordSink get()
+                {
+                    return getRecordSink(node);
+                }
+            };
 
             List<Type> types = IterableTransformer.on(node.getColumns())
                     .transform(forMap(context.getTypes()))
@@ -1250,14 +1465,107 @@ public class LocalExecutionPlanner
                     .transform(exchange.channelGetter())
                     .list();
 
-            OperatorFactory operatorFactory = new TableWriterOperatorFactory(context.getNextOperatorId(), recordSink, types, inputChannels, sampleWeightChannel);
+            OperatorFactory operatorFactory = new TableWriterOperatorFactory(writerContext.getNextOperatorId(), recordSinkSupplier, types, inputChannels, sampleWeightChannel);
 
             Map<Symbol, Integer> layout = ImmutableMap.<Symbol, Integer>builder()
                     .put(node.getOutputSymbols().get(0), 0)
                     .put(node.getOutputSymbols().get(1), 1)
                     .build();
 
-            return new PhysicalOperation(operatorFactory, layout, exchange);
+            PhysicalOperation writer = new PhysicalOperation(operatorFactory, layout, exchange);
+            if (parallel) {
+                return gather(writer, writerContext, writerCount, context);
+            }
+            return writer;
+        }
+
+        private boolean isParallel(LocalExecutionPlanContext context)
+        {
+            // index source plans are run by the index loader and can not have sub-contexts
+            return taskConcurrency > 1 && !context.getIndexSourceContext().isPresent();
+        }
+
+        /**
+         * Ends the pipeline of the source with a local exchange that spreads its pages over
+         * {@code concurrency} buffers, and returns the exchange source for a parallel
+         * pipeline planned in {@code parallelContext}.  The layout of the source is preserved.
+         */
+        private PhysicalOperation createLocalExchange(
+                PhysicalOperation source,
+                Optional<List<Integer>> partitionChannels,
+                int concurrency,
+                LocalExecutionPlanContext context,
+                LocalExecutionPlanContext parallelContext)
+        {
+            InMemoryExchange exchange = new InMemoryExchange(source.getTypes(), concurrency, partitionChannels);
+
+            List<OperatorFactory> factories = ImmutableList.<OperatorFactory>builder()
+                    .addAll(source.getOperatorFactories())
+                    .add(exchange.createSinkFactory(context.getNextOperatorId()))
+                    .build();
+            context.addDriverFactory(new DriverFactory(context.isInputDriver(), false, factories));
+            exchange.noMoreSinkFactories();
+
+            // the source pipeline is now the input for the plan
+            context.setInputDriver(false);
+            parallelContext.setInputDriver(false);
+
+            OperatorFactory factory = new InMemoryExchangeSourceOperatorFactory(parallelContext.getNextOperatorId(), exchange);
+            return new PhysicalOperation(factory, source.getLayout());
+        }
+
+        /**
+         * Ends the pipeline of the source with an exchange, and returns the exchange source for a
+         * new pipeline in the same context that runs in a single driver.
+         */
+        private PhysicalOperation gatherSplits(PhysicalOperation source, LocalExecutionPlanContext context)
+        {
+            InMemoryExchange exchange = new InMemoryExchange(source.getTypes());
+
+            List<OperatorFactory> factories = ImmutableList.<OperatorFactory>builder()
+                    .addAll(source.getOperatorFactories())
+                    .add(exchange.createSinkFactory(context.getNextOperatorId()))
+                    .build();
+            context.addDriverFactory(new DriverFactory(context.isInputDriver(), false, factories));
+            exchange.noMoreSinkFactories();
+
+            // the source pipeline is now the input for the plan
+            context.setInputDriver(false);
+
+            OperatorFactory factory = new InMemoryExchangeSourceOperatorFactory(context.getNextOperatorId(), exchange);
+            return new PhysicalOperation(factory, source.getLayout());
+        }
+
+        private boolean readsPartitionedSource(PlanNode node)
+        {
+            if (partitionedSources.contains(node.getId())) {
+                return true;
+            }
+            for (PlanNode source : node.getSources()) {
+                if (readsPartitionedSource(source)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Runs the parallel pipeline planned in {@code parallelContext} with {@code concurrency}
+         * drivers, and gathers their output into a single exchange source in {@code context}.
+         */
+        private PhysicalOperation gather(PhysicalOperation parallelOperation, LocalExecutionPlanContext parallelContext, int concurrency, LocalExecutionPlanContext context)
+        {
+            InMemoryExchange exchange = new InMemoryExchange(parallelOperation.getTypes());
+
+            List<OperatorFactory> factories = ImmutableList.<OperatorFactory>builder()
+                    .addAll(parallelOperation.getOperatorFactories())
+                    .add(exchange.createSinkFactory(parallelContext.getNextOperatorId()))
+                    .build();
+            context.addDriverFactory(new DriverFactory(false, false, factories, concurrency));
+            exchange.noMoreSinkFactories();
+
+            OperatorFactory factory = new InMemoryExchangeSourceOperatorFactory(context.getNextOperatorId(), exchange);
+            return new PhysicalOperation(factory, parallelOperation.getLayout());
         }
 
         private PhysicalOperation createInMemoryExchange(PlanNode node, LocalExecutionPlanContext context)
@@ -1429,6 +1737,14 @@ public class LocalExecutionPlanner
                 channel++;
             }
 
+            // the precomputed hash is output after the group-by keys
+            Optional<Integer> hashChannel = Optional.absent();
+            if (node.getHashSymbol().isPresent()) {
+                hashChannel = Optional.of(source.getLayout().get(node.getHashSymbol().get()));
+                outputMappings.put(node.getHashSymbol().get(), channel);
+                channel++;
+            }
+
             // aggregations go in following channels
             for (Symbol symbol : aggregationOutputSymbols) {
                 outputMappings.put(symbol, channel);
@@ -1445,13 +1761,32 @@ public class LocalExecutionPlanner
                 }
             }));
 
+            // partial aggregations already run in every split driver
+            if (isParallel(context) && node.getStep() != PARTIAL && !groupByChannels.isEmpty()) {
+                // hash partition the rows on the group by keys, so each group is aggregated by a single driver
+                LocalExecutionPlanContext parallelContext = context.createSubContext();
+                PhysicalOperation partitionedSource = createLocalExchange(source, Optional.of(groupByChannels), taskConcurrency, context, parallelContext);
+                OperatorFactory operatorFactory = new HashAggregationOperatorFactory(
+                        parallelContext.getNextOperatorId(),
+                        groupByTypes,
+                        groupByChannels,
+                        hashChannel,
+                        node.getStep(),
+                        accumulatorFactories,
+                        10_000,
+                        spillerFactory);
+                return gather(new PhysicalOperation(operatorFactory, outputMappings.build(), partitionedSource), parallelContext, taskConcurrency, context);
+            }
+
             OperatorFactory operatorFactory = new HashAggregationOperatorFactory(
                     context.getNextOperatorId(),
                     groupByTypes,
                     groupByChannels,
+                    hashChannel,
                     node.getStep(),
                     accumulatorFactories,
-                    10_000);
+                    10_000,
+                    spillerFactory);
 
             return new PhysicalOperation(operatorFactory, outputMappings.build(), source);
         }
@@ -1526,6 +1861,14 @@ public class LocalExecutionPlanner
         return builder.build();
     }
 
+    private static Optional<Integer> getHashChannel(Optional<Symbol> hashSymbol, Map<Symbol, Integer> layout)
+    {
+        if (!hashSymbol.isPresent()) {
+            return Optional.absent();
+        }
+        return Optional.of(layout.get(hashSymbol.get()));
+    }
+
     private static class IdentityProjectionInfo
     {
         private final Map<Symbol, Integer> layout;
@@ -17,6 +17,7 @@ import com.facebook.presto.sql.planner.plan.PlanFragmentId;
 import com.facebook.presto.sql.planner.plan.PlanNode;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.sql.planner.plan.SinkNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.util.IterableTransformer;
 import com.fasterxml.jackson.annotation.JsonCreator;
@@ -24,6 +25,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Function;
 import com.google.common.base.Functions;
 import com.google.common.base.Objects;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableList.Builder;
 import com.google.common.collect.ImmutableSet;
@@ -45,6 +47,10 @@ public class PlanFragment
         NONE,
         FIXED,
         SOURCE,
+        /**
+         * Every table scan is partitioned, and bucket N of each table is processed by task N modulo the task count
+         */
+        BUCKETED,
         COORDINATOR_ONLY
     }
 
@@ -59,11 +65,25 @@ public class PlanFragment
     private final Map<Symbol, Type> symbols;
     private final PlanDistribution distribution;
     private final PlanNodeId partitionedSource;
+    private final Set<PlanNodeId> partitionedSources;
     private final List<Type> types;
     private final List<PlanNode> sources;
     private final Set<PlanNodeId> sourceIds;
     private final OutputPartitioning outputPartitioning;
     private final List<Symbol> partitionBy;
+    private final Optional<Symbol> partitionHashSymbol;
+
+    public PlanFragment(
+            PlanFragmentId id,
+            PlanNode root,
+            Map<Symbol, Type> symbols,
+            PlanDistribution distribution,
+            PlanNodeId partitionedSource,
+            OutputPartitioning outputPartitioning,
+            List<Symbol> partitionBy)
+    {
+        this(id, root, symbols, distribution, partitionedSource, outputPartitioning, partitionBy, Optional.<Symbol>absent());
+    }
 
     @JsonCreator
     public PlanFragment(
@@ -73,7 +93,8 @@ public class PlanFragment
             @JsonProperty("distribution") PlanDistribution distribution,
             @JsonProperty("partitionedSource") PlanNodeId partitionedSource,
             @JsonProperty("outputPartitioning") OutputPartitioning outputPartitioning,
-            @JsonProperty("partitionBy") List<Symbol> partitionBy)
+            @JsonProperty("partitionBy") List<Symbol> partitionBy,
+            @JsonProperty("partitionHashSymbol") Optional<Symbol> partitionHashSymbol)
     {
         this.id = checkNotNull(id, "id is null");
         this.root = checkNotNull(root, "root is null");
@@ -81,6 +102,7 @@ public class PlanFragment
         this.distribution = checkNotNull(distribution, "distribution is null");
         this.partitionedSource = partitionedSource;
         this.partitionBy = ImmutableList.copyOf(checkNotNull(partitionBy, "partitionBy is null"));
+        this.partitionHashSymbol = checkNotNull(partitionHashSymbol, "partitionHashSymbol is null");
 
         types = ImmutableList.copyOf(IterableTransformer.on(root.getOutputSymbols())
                 .transform(Functions.forMap(symbols))
@@ -99,6 +121,19 @@ public class PlanFragment
         }
         this.sourceIds = sourceIds.build();
 
+        ImmutableSet.Builder<PlanNodeId> partitionedSources = ImmutableSet.builder();
+        if (distribution == PlanDistribution.BUCKETED) {
+            for (PlanNode source : this.sources) {
+                if (source instanceof TableScanNode) {
+                    partitionedSources.add(source.getId());
+                }
+            }
+        }
+        else if (partitionedSource != null) {
+            partitionedSources.add(partitionedSource);
+        }
+        this.partitionedSources = partitionedSources.build();
+
         this.outputPartitioning = checkNotNull(outputPartitioning, "outputPartitioning is null");
     }
 
@@ -132,6 +167,15 @@ public class PlanFragment
         return partitionedSource;
     }
 
+    /**
+     * Sources that receive splits from the scheduler.  This is the partitioned source,
+     * or every table scan of a bucketed fragment.
+     */
+    public Set<PlanNodeId> getPartitionedSources()
+    {
+        return partitionedSources;
+    }
+
     @JsonProperty
     public OutputPartitioning getOutputPartitioning()
     {
@@ -144,6 +188,12 @@ public class PlanFragment
         return partitionBy;
     }
 
+    @JsonProperty
+    public Optional<Symbol> getPartitionHashSymbol()
+    {
+        return partitionHashSymbol;
+    }
+
     public List<Integer> getPartitioningChannels()
     {
         checkState(outputPartitioning == OutputPartitioning.HASH, "fragment is not hash partitioned");
@@ -159,6 +209,19 @@ public class PlanFragment
         }).list();
     }
 
+    /**
+     * Channel holding the precomputed hash of the partitioning channels, if any
+     */
+    public Optional<Integer> getPartitionHashChannel()
+    {
+        checkState(outputPartitioning == OutputPartitioning.HASH, "fragment is not hash partitioned");
+        checkState(root instanceof SinkNode, "root is not an instance of SinkNode");
+        if (!partitionHashSymbol.isPresent()) {
+            return Optional.absent();
+        }
+        return Optional.of(root.getOutputSymbols().indexOf(partitionHashSymbol.get()));
+    }
+
     public List<Type> getTypes()
     {
         return types;
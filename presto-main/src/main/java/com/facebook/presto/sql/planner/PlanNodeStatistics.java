@@ -0,0 +1,82 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Estimated output of a plan node.  Values that are not known are NaN.
+ */
+public final class PlanNodeStatistics
+{
+    public static final PlanNodeStatistics UNKNOWN = new PlanNodeStatistics(Double.NaN, Double.NaN, ImmutableMap.<Symbol, Double>of());
+
+    private final double rowCount;
+    private final double outputSizeInBytes;
+    private final Map<Symbol, Double> distinctValuesCounts;
+
+    public PlanNodeStatistics(double rowCount, double outputSizeInBytes, Map<Symbol, Double> distinctValuesCounts)
+    {
+        this.rowCount = rowCount;
+        this.outputSizeInBytes = outputSizeInBytes;
+        this.distinctValuesCounts = ImmutableMap.copyOf(checkNotNull(distinctValuesCounts, "distinctValuesCounts is null"));
+    }
+
+    public double getRowCount()
+    {
+        return rowCount;
+    }
+
+    public boolean isRowCountKnown()
+    {
+        return !Double.isNaN(rowCount);
+    }
+
+    public double getOutputSizeInBytes()
+    {
+        return outputSizeInBytes;
+    }
+
+    /**
+     * Returns the estimated number of distinct non-null values of the symbol, or NaN if unknown.
+     */
+    public double getDistinctValuesCount(Symbol symbol)
+    {
+        Double distinctValuesCount = distinctValuesCounts.get(symbol);
+        if (distinctValuesCount == null) {
+            return Double.NaN;
+        }
+        return distinctValuesCount;
+    }
+
+    public Map<Symbol, Double> getDistinctValuesCounts()
+    {
+        return distinctValuesCounts;
+    }
+
+    @Override
+    public String toString()
+    {
+        return Objects.toStringHelper(this)
+                .add("rowCount", rowCount)
+                .add("outputSizeInBytes", outputSizeInBytes)
+                .add("distinctValuesCounts", distinctValuesCounts)
+                .toString();
+    }
+}
@@ -15,11 +15,14 @@ package com.facebook.presto.sql.planner;
 
 import com.facebook.presto.execution.SplitSource;
 import com.facebook.presto.sql.planner.plan.OutputNode;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.google.common.base.Objects;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 import java.util.List;
+import java.util.Map;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -28,13 +31,23 @@ public class StageExecutionPlan
 {
     private final PlanFragment fragment;
     private final Optional<SplitSource> dataSource;
+    private final Map<PlanNodeId, SplitSource> bucketedDataSources;
     private final List<StageExecutionPlan> subStages;
     private final Optional<List<String>> fieldNames;
 
     public StageExecutionPlan(PlanFragment fragment, Optional<SplitSource> dataSource, List<StageExecutionPlan> subStages)
+    {
+        this(fragment, dataSource, ImmutableMap.<PlanNodeId, SplitSource>of(), subStages);
+    }
+
+    /**
+     * @param bucketedDataSources the splits of each table scan of a bucketed fragment
+     */
+    public StageExecutionPlan(PlanFragment fragment, Optional<SplitSource> dataSource, Map<PlanNodeId, SplitSource> bucketedDataSources, List<StageExecutionPlan> subStages)
     {
         this.fragment = checkNotNull(fragment, "fragment is null");
         this.dataSource = checkNotNull(dataSource, "dataSource is null");
+        this.bucketedDataSources = ImmutableMap.copyOf(checkNotNull(bucketedDataSources, "bucketedDataSources is null"));
         this.subStages = ImmutableList.copyOf(checkNotNull(subStages, "dependencies is null"));
 
         fieldNames = (fragment.getRoot() instanceof OutputNode) ?
@@ -58,6 +71,11 @@ public class StageExecutionPlan
         return dataSource;
     }
 
+    public Map<PlanNodeId, SplitSource> getBucketedDataSources()
+    {
+        return bucketedDataSources;
+    }
+
     public List<StageExecutionPlan> getSubStages()
     {
         return subStages;
@@ -0,0 +1,402 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner;
+
+import com.facebook.presto.metadata.ColumnHandle;
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.metadata.Partition;
+import com.facebook.presto.metadata.TableStatistics;
+import com.facebook.presto.spi.type.FixedWidthType;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.facebook.presto.sql.planner.plan.DistinctLimitNode;
+import com.facebook.presto.sql.planner.plan.FilterNode;
+import com.facebook.presto.sql.planner.plan.IndexJoinNode;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.LimitNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanVisitor;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.SampleNode;
+import com.facebook.presto.sql.planner.plan.SemiJoinNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.sql.planner.plan.TopNNode;
+import com.facebook.presto.sql.planner.plan.UnionNode;
+import com.facebook.presto.sql.planner.plan.ValuesNode;
+import com.facebook.presto.sql.tree.ComparisonExpression;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.InListExpression;
+import com.facebook.presto.sql.tree.InPredicate;
+import com.facebook.presto.sql.tree.Literal;
+import com.facebook.presto.sql.tree.QualifiedNameReference;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.facebook.presto.sql.ExpressionUtils.extractConjuncts;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Estimates the rows and bytes produced by the nodes of a logical plan from the table
+ * statistics reported by the connectors.  The estimates assume that the values of different
+ * columns are independent and use fixed selectivities where the statistics say nothing, so
+ * they are only good enough to compare alternative plans with each other.
+ */
+public class StatisticsCalculator
+{
+    private static final double DEFAULT_FILTER_SELECTIVITY = 0.5;
+    private static final double DEFAULT_EQUALITY_SELECTIVITY = 0.1;
+    private static final int DEFAULT_VARIABLE_WIDTH = 16;
+
+    private final Metadata metadata;
+    private final Map<Symbol, Type> types;
+    private final Map<PlanNode, PlanNodeStatistics> statistics = new IdentityHashMap<>();
+
+    public StatisticsCalculator(Metadata metadata, Map<Symbol, Type> types)
+    {
+        this.metadata = checkNotNull(metadata, "metadata is null");
+        this.types = checkNotNull(types, "types is null");
+    }
+
+    public PlanNodeStatistics calculate(PlanNode node)
+    {
+        PlanNodeStatistics nodeStatistics = statistics.get(node);
+        if (nodeStatistics == null) {
+            nodeStatistics = node.accept(new Visitor(), null);
+            statistics.put(node, nodeStatistics);
+        }
+        return nodeStatistics;
+    }
+
+    private double getBytesPerRow(PlanNode node)
+    {
+        PlanNodeStatistics nodeStatistics = calculate(node);
+        if (!Double.isNaN(nodeStatistics.getOutputSizeInBytes()) && nodeStatistics.getRowCount() > 0) {
+            return nodeStatistics.getOutputSizeInBytes() / nodeStatistics.getRowCount();
+        }
+        return getRowWidth(node.getOutputSymbols());
+    }
+
+    private double getRowWidth(List<Symbol> symbols)
+    {
+        double width = 0;
+        for (Symbol symbol : symbols) {
+            Type type = types.get(symbol);
+            if (type instanceof FixedWidthType) {
+                width += ((FixedWidthType) type).getFixedSize();
+            }
+            else {
+                width += DEFAULT_VARIABLE_WIDTH;
+            }
+        }
+        return width;
+    }
+
+    /**
+     * Estimates the output of a node that produces the specified number of rows, each
+     * consisting of some of the values of a row of its source and possibly new values.
+     */
+    private PlanNodeStatistics derive(PlanNode source, double rowCount, List<Symbol> outputSymbols)
+    {
+        PlanNodeStatistics sourceStatistics = calculate(source);
+
+        double bytesPerRow = getRowWidth(outputSymbols);
+        double sourceWidth = getRowWidth(source.getOutputSymbols());
+        if (sourceWidth > 0) {
+            bytesPerRow = getBytesPerRow(source) * bytesPerRow / sourceWidth;
+        }
+
+        Map<Symbol, Double> distinctValuesCounts = new HashMap<>();
+        for (Symbol symbol : outputSymbols) {
+            double distinctValuesCount = sourceStatistics.getDistinctValuesCount(symbol);
+            if (!Double.isNaN(distinctValuesCount)) {
+                distinctValuesCounts.put(symbol, capDistinctValuesCount(distinctValuesCount, rowCount));
+            }
+        }
+        return new PlanNodeStatistics(rowCount, rowCount * bytesPerRow, distinctValuesCounts);
+    }
+
+    private static double capDistinctValuesCount(double distinctValuesCount, double rowCount)
+    {
+        if (Double.isNaN(rowCount)) {
+            return distinctValuesCount;
+        }
+        return Math.min(distinctValuesCount, rowCount);
+    }
+
+    private static double maxOfKnown(double first, double second)
+    {
+        if (Double.isNaN(first)) {
+            return second;
+        }
+        if (Double.isNaN(second)) {
+            return first;
+        }
+        return Math.max(first, second);
+    }
+
+    private static double minOfKnown(double first, double second)
+    {
+        if (Double.isNaN(first)) {
+            return second;
+        }
+        if (Double.isNaN(second)) {
+            return first;
+        }
+        return Math.min(first, second);
+    }
+
+    private class Visitor
+            extends PlanVisitor<Void, PlanNodeStatistics>
+    {
+        @Override
+        protected PlanNodeStatistics visitPlan(PlanNode node, Void context)
+        {
+            if (node.getSources().size() != 1) {
+                return PlanNodeStatistics.UNKNOWN;
+            }
+            PlanNode source = node.getSources().get(0);
+            return derive(source, calculate(source).getRowCount(), node.getOutputSymbols());
+        }
+
+        @Override
+        public PlanNodeStatistics visitTableScan(TableScanNode node, Void context)
+        {
+            Optional<List<Partition>> partitions = Optional.absent();
+            if (node.getGeneratedPartitions().isPresent()) {
+                partitions = Optional.of(node.getGeneratedPartitions().get().getPartitions());
+            }
+            TableStatistics tableStatistics = metadata.getTableStatistics(node.getTable(), partitions);
+            double rowCount = tableStatistics.getRowCount();
+
+            Map<Symbol, Double> distinctValuesCounts = new HashMap<>();
+            for (Symbol symbol : node.getOutputSymbols()) {
+                double distinctValuesCount = tableStatistics.getDistinctValuesCount(node.getAssignments().get(symbol));
+                if (!Double.isNaN(distinctValuesCount)) {
+                    distinctValuesCounts.put(symbol, capDistinctValuesCount(distinctValuesCount, rowCount));
+                }
+            }
+
+            double outputSize = rowCount * getRowWidth(node.getOutputSymbols());
+            if (!Double.isNaN(tableStatistics.getDataSize())) {
+                // assume that all columns of the table are about equally large
+                Map<String, ColumnHandle> columns = metadata.getColumnHandles(node.getTable());
+                if (!columns.isEmpty()) {
+                    outputSize = tableStatistics.getDataSize() * Math.min(1.0, (double) node.getOutputSymbols().size() / columns.size());
+                }
+            }
+            return new PlanNodeStatistics(rowCount, outputSize, distinctValuesCounts);
+        }
+
+        @Override
+        public PlanNodeStatistics visitValues(ValuesNode node, Void context)
+        {
+            double rowCount = node.getRows().size();
+            return new PlanNodeStatistics(rowCount, rowCount * getRowWidth(node.getOutputSymbols()), ImmutableMap.<Symbol, Double>of());
+        }
+
+        @Override
+        public PlanNodeStatistics visitFilter(FilterNode node, Void context)
+        {
+            PlanNodeStatistics sourceStatistics = calculate(node.getSource());
+
+            double selectivity = 1;
+            for (Expression conjunct : extractConjuncts(node.getPredicate())) {
+                selectivity *= getSelectivity(conjunct, sourceStatistics);
+            }
+            return derive(node.getSource(), sourceStatistics.getRowCount() * selectivity, node.getOutputSymbols());
+        }
+
+        private double getSelectivity(Expression conjunct, PlanNodeStatistics sourceStatistics)
+        {
+            if (conjunct instanceof ComparisonExpression) {
+                ComparisonExpression comparison = (ComparisonExpression) conjunct;
+                if (comparison.getType() != ComparisonExpression.Type.EQUAL) {
+                    return DEFAULT_FILTER_SELECTIVITY;
+                }
+
+                Optional<Symbol> symbol = Optional.absent();
+                if (comparison.getLeft() instanceof QualifiedNameReference && comparison.getRight() instanceof Literal) {
+                    symbol = Optional.of(Symbol.fromQualifiedName(((QualifiedNameReference) comparison.getLeft()).getName()));
+                }
+                else if (comparison.getRight() instanceof QualifiedNameReference && comparison.getLeft() instanceof Literal) {
+                    symbol = Optional.of(Symbol.fromQualifiedName(((QualifiedNameReference) comparison.getRight()).getName()));
+                }
+                if (!symbol.isPresent()) {
+                    return DEFAULT_EQUALITY_SELECTIVITY;
+                }
+                return getEqualitySelectivity(sourceStatistics.getDistinctValuesCount(symbol.get()), 1);
+            }
+
+            if (conjunct instanceof InPredicate) {
+                InPredicate inPredicate = (InPredicate) conjunct;
+                if (inPredicate.getValue() instanceof QualifiedNameReference && inPredicate.getValueList() instanceof InListExpression) {
+                    Symbol symbol = Symbol.fromQualifiedName(((QualifiedNameReference) inPredicate.getValue()).getName());
+                    int valueCount = ((InListExpression) inPredicate.getValueList()).getValues().size();
+                    return getEqualitySelectivity(sourceStatistics.getDistinctValuesCount(symbol), valueCount);
+                }
+            }
+
+            return DEFAULT_FILTER_SELECTIVITY;
+        }
+
+        private double getEqualitySelectivity(double distinctValuesCount, int valueCount)
+        {
+            if (Double.isNaN(distinctValuesCount)) {
+                return Math.min(1.0, valueCount * DEFAULT_EQUALITY_SELECTIVITY);
+            }
+            return Math.min(1.0, valueCount / Math.max(distinctValuesCount, 1));
+        }
+
+        @Override
+        public PlanNodeStatistics visitProject(ProjectNode node, Void context)
+        {
+            PlanNodeStatistics sourceStatistics = calculate(node.getSource());
+            PlanNodeStatistics nodeStatistics = derive(node.getSource(), sourceStatistics.getRowCount(), node.getOutputSymbols());
+
+            // symbols assigned from a symbol of the source keep its distinct values count
+            Map<Symbol, Double> distinctValuesCounts = new HashMap<>(nodeStatistics.getDistinctValuesCounts());
+            for (Map.Entry<Symbol, Expression> entry : node.getOutputMap().entrySet()) {
+                if (entry.getValue() instanceof QualifiedNameReference) {
+                    double distinctValuesCount = sourceStatistics.getDistinctValuesCount(Symbol.fromQualifiedName(((QualifiedNameReference) entry.getValue()).getName()));
+                    if (!Double.isNaN(distinctValuesCount)) {
+                        distinctValuesCounts.put(entry.getKey(), distinctValuesCount);
+                    }
+                }
+            }
+            return new PlanNodeStatistics(nodeStatistics.getRowCount(), nodeStatistics.getOutputSizeInBytes(), distinctValuesCounts);
+        }
+
+        @Override
+        public PlanNodeStatistics visitAggregation(AggregationNode node, Void context)
+        {
+            PlanNodeStatistics sourceStatistics = calculate(node.getSource());
+
+            double rowCount = 1;
+            for (Symbol symbol : node.getGroupBy()) {
+                rowCount *= sourceStatistics.getDistinctValuesCount(symbol);
+            }
+            if (!node.getGroupBy().isEmpty()) {
+                // without statistics for every grouping column, the input is the best upper bound
+                rowCount = Double.isNaN(rowCount) ? sourceStatistics.getRowCount() : minOfKnown(rowCount, sourceStatistics.getRowCount());
+            }
+            return derive(node.getSource(), rowCount, node.getOutputSymbols());
+        }
+
+        @Override
+        public PlanNodeStatistics visitJoin(JoinNode node, Void context)
+        {
+            PlanNodeStatistics leftStatistics = calculate(node.getLeft());
+            PlanNodeStatistics rightStatistics = calculate(node.getRight());
+
+            double rowCount = leftStatistics.getRowCount() * rightStatistics.getRowCount();
+            if (!node.getCriteria().isEmpty()) {
+                // each clause alone matches a row with the rows sharing its value, so use the most selective one
+                double distinctValuesCount = Double.NaN;
+                for (JoinNode.EquiJoinClause clause : node.getCriteria()) {
+                    double clauseDistinctValuesCount = maxOfKnown(leftStatistics.getDistinctValuesCount(clause.getLeft()), rightStatistics.getDistinctValuesCount(clause.getRight()));
+                    distinctValuesCount = maxOfKnown(distinctValuesCount, clauseDistinctValuesCount);
+                }
+                if (Double.isNaN(distinctValuesCount)) {
+                    // assume a join of a foreign key with a unique key
+                    rowCount = Math.max(leftStatistics.getRowCount(), rightStatistics.getRowCount());
+                }
+                else {
+                    rowCount /= Math.max(distinctValuesCount, 1);
+                }
+            }
+            if (node.getType() == JoinNode.Type.LEFT) {
+                rowCount = Math.max(rowCount, leftStatistics.getRowCount());
+            }
+            else if (node.getType() == JoinNode.Type.RIGHT) {
+                rowCount = Math.max(rowCount, rightStatistics.getRowCount());
+            }
+
+            Map<Symbol, Double> distinctValuesCounts = new HashMap<>();
+            for (PlanNodeStatistics sourceStatistics : ImmutableList.of(leftStatistics, rightStatistics)) {
+                for (Map.Entry<Symbol, Double> entry : sourceStatistics.getDistinctValuesCounts().entrySet()) {
+                    distinctValuesCounts.put(entry.getKey(), capDistinctValuesCount(entry.getValue(), rowCount));
+                }
+            }
+            if (node.getType() == JoinNode.Type.INNER) {
+                // only values present on both sides survive an inner join
+                for (JoinNode.EquiJoinClause clause : node.getCriteria()) {
+                    double distinctValuesCount = minOfKnown(leftStatistics.getDistinctValuesCount(clause.getLeft()), rightStatistics.getDistinctValuesCount(clause.getRight()));
+                    if (!Double.isNaN(distinctValuesCount)) {
+                        distinctValuesCounts.put(clause.getLeft(), capDistinctValuesCount(distinctValuesCount, rowCount));
+                        distinctValuesCounts.put(clause.getRight(), capDistinctValuesCount(distinctValuesCount, rowCount));
+                    }
+                }
+            }
+
+            double outputSize = rowCount * (getBytesPerRow(node.getLeft()) + getBytesPerRow(node.getRight()));
+            return new PlanNodeStatistics(rowCount, outputSize, distinctValuesCounts);
+        }
+
+        @Override
+        public PlanNodeStatistics visitSemiJoin(SemiJoinNode node, Void context)
+        {
+            return derive(node.getSource(), calculate(node.getSource()).getRowCount(), node.getOutputSymbols());
+        }
+
+        @Override
+        public PlanNodeStatistics visitIndexJoin(IndexJoinNode node, Void context)
+        {
+            // every probe row matches about one index row
+            return derive(node.getProbeSource(), calculate(node.getProbeSource()).getRowCount(), node.getOutputSymbols());
+        }
+
+        @Override
+        public PlanNodeStatistics visitLimit(LimitNode node, Void context)
+        {
+            return derive(node.getSource(), minOfKnown(node.getCount(), calculate(node.getSource()).getRowCount()), node.getOutputSymbols());
+        }
+
+        @Override
+        public PlanNodeStatistics visitTopN(TopNNode node, Void context)
+        {
+            return derive(node.getSource(), minOfKnown(node.getCount(), calculate(node.getSource()).getRowCount()), node.getOutputSymbols());
+        }
+
+        @Override
+        public PlanNodeStatistics visitDistinctLimit(DistinctLimitNode node, Void context)
+        {
+            return derive(node.getSource(), minOfKnown(node.getLimit(), calculate(node.getSource()).getRowCount()), node.getOutputSymbols());
+        }
+
+        @Override
+        public PlanNodeStatistics visitSample(SampleNode node, Void context)
+        {
+            return derive(node.getSource(), calculate(node.getSource()).getRowCount() * node.getSampleRatio(), node.getOutputSymbols());
+        }
+
+        @Override
+        public PlanNodeStatistics visitUnion(UnionNode node, Void context)
+        {
+            double rowCount = 0;
+            double outputSize = 0;
+            for (PlanNode source : node.getSources()) {
+                PlanNodeStatistics sourceStatistics = calculate(source);
+                rowCount += sourceStatistics.getRowCount();
+                outputSize += sourceStatistics.getRowCount() * getBytesPerRow(source);
+            }
+            return new PlanNodeStatistics(rowCount, outputSize, ImmutableMap.<Symbol, Double>of());
+        }
+    }
+}
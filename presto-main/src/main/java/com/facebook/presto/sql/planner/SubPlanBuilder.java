@@ -13,11 +13,13 @@
  */
 package com.facebook.presto.sql.planner;
 
+import com.facebook.presto.metadata.TablePartitioning;
 import com.facebook.presto.sql.planner.PlanFragment.OutputPartitioning;
 import com.facebook.presto.sql.planner.PlanFragment.PlanDistribution;
 import com.facebook.presto.sql.planner.plan.PlanFragmentId;
 import com.facebook.presto.sql.planner.plan.PlanNode;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -39,8 +41,11 @@ public class SubPlanBuilder
 
     private PlanNode root;
     private List<Symbol> partitionBy = ImmutableList.of();
+    private Optional<Symbol> partitionHashSymbol = Optional.absent();
     private List<SubPlan> children = new ArrayList<>();
     private OutputPartitioning outputPartitioning = OutputPartitioning.NONE;
+    private Optional<TablePartitioning> tablePartitioning = Optional.absent();
+    private List<Symbol> bucketSymbols = ImmutableList.of();
 
     public SubPlanBuilder(PlanFragmentId id, SymbolAllocator allocator, PlanDistribution distribution, PlanNode root, PlanNodeId partitionedSource)
     {
@@ -56,6 +61,11 @@ public class SubPlanBuilder
         return id;
     }
 
+    public PlanNodeId getPartitionedSource()
+    {
+        return partitionedSource;
+    }
+
     public boolean isDistributed()
     {
         return (distribution != PlanDistribution.NONE) &&
@@ -97,11 +107,53 @@ public class SubPlanBuilder
     }
 
     public SubPlanBuilder setHashOutputPartitioning(List<Symbol> partitionBy)
+    {
+        return setHashOutputPartitioning(partitionBy, Optional.<Symbol>absent());
+    }
+
+    /**
+     * @param partitionHashSymbol symbol holding the precomputed hash of the partitionBy symbols
+     */
+    public SubPlanBuilder setHashOutputPartitioning(List<Symbol> partitionBy, Optional<Symbol> partitionHashSymbol)
     {
         this.outputPartitioning = OutputPartitioning.HASH;
         checkNotNull(partitionBy, "partitionBy is null");
         checkArgument(!partitionBy.isEmpty(), "partitionBy is empty");
         this.partitionBy = ImmutableList.copyOf(partitionBy);
+        this.partitionHashSymbol = checkNotNull(partitionHashSymbol, "partitionHashSymbol is null");
+        return this;
+    }
+
+    /**
+     * Returns the bucketing of the table whose rows flow out of the root, if every task of
+     * this fragment can be given whole buckets of that table.
+     */
+    public Optional<TablePartitioning> getTablePartitioning()
+    {
+        return tablePartitioning;
+    }
+
+    /**
+     * Symbols holding the values of the partitioning columns of {@link #getTablePartitioning}
+     */
+    public List<Symbol> getBucketSymbols()
+    {
+        return bucketSymbols;
+    }
+
+    public SubPlanBuilder setBucketing(TablePartitioning tablePartitioning, List<Symbol> bucketSymbols)
+    {
+        checkNotNull(bucketSymbols, "bucketSymbols is null");
+        checkArgument(bucketSymbols.size() == tablePartitioning.getPartitioningColumns().size(), "expected a symbol for each partitioning column");
+        this.tablePartitioning = Optional.of(tablePartitioning);
+        this.bucketSymbols = ImmutableList.copyOf(bucketSymbols);
+        return this;
+    }
+
+    public SubPlanBuilder clearBucketing()
+    {
+        this.tablePartitioning = Optional.absent();
+        this.bucketSymbols = ImmutableList.of();
         return this;
     }
 
@@ -109,7 +161,7 @@ public class SubPlanBuilder
     {
         Set<Symbol> dependencies = SymbolExtractor.extract(root);
 
-        PlanFragment fragment = new PlanFragment(id, root, Maps.filterKeys(allocator.getTypes(), in(dependencies)), distribution, partitionedSource, outputPartitioning, partitionBy);
+        PlanFragment fragment = new PlanFragment(id, root, Maps.filterKeys(allocator.getTypes(), in(dependencies)), distribution, partitionedSource, outputPartitioning, partitionBy, partitionHashSymbol);
 
         return new SubPlan(fragment, children);
     }
@@ -0,0 +1,237 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.metadata.OperatorNotFoundException;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.PlanNodeIdAllocator;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.SymbolAllocator;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.MarkDistinctNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanNodeRewriter;
+import com.facebook.presto.sql.planner.plan.PlanRewriter;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.SemiJoinNode;
+import com.facebook.presto.sql.tree.CoalesceExpression;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.FunctionCall;
+import com.facebook.presto.sql.tree.LongLiteral;
+import com.facebook.presto.sql.tree.QualifiedName;
+import com.facebook.presto.sql.tree.QualifiedNameReference;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.facebook.presto.metadata.FunctionRegistry.mangleOperatorName;
+import static com.facebook.presto.metadata.OperatorType.HASH_CODE;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.sql.planner.plan.JoinNode.EquiJoinClause.leftGetter;
+import static com.facebook.presto.sql.planner.plan.JoinNode.EquiJoinClause.rightGetter;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Computes the hash of the keys of hash aggregations, joins, semi joins and mark distincts
+ * in a projection below the node, so the operators (and the exchanges that partition rows
+ * for them) use the precomputed hash instead of hashing the keys again.  The projected value
+ * is the same hash the operators compute themselves, so nodes with and without a precomputed
+ * hash can be mixed freely.
+ */
+public class HashGenerationOptimizer
+        extends PlanOptimizer
+{
+    private static final String HASH_CODE_FUNCTION = mangleOperatorName(HASH_CODE);
+    private static final String COMBINE_HASH_FUNCTION = "combine_hash";
+    private static final long INITIAL_HASH_VALUE = 0;
+    private static final long NULL_HASH_CODE = 0;
+
+    private final Metadata metadata;
+    private final boolean optimizeHashGeneration;
+
+    public HashGenerationOptimizer(Metadata metadata, boolean optimizeHashGeneration)
+    {
+        this.metadata = checkNotNull(metadata, "metadata is null");
+        this.optimizeHashGeneration = optimizeHashGeneration;
+    }
+
+    @Override
+    public PlanNode optimize(PlanNode plan, ConnectorSession session, Map<Symbol, Type> types, SymbolAllocator symbolAllocator, PlanNodeIdAllocator idAllocator)
+    {
+        checkNotNull(plan, "plan is null");
+        checkNotNull(session, "session is null");
+        checkNotNull(types, "types is null");
+        checkNotNull(symbolAllocator, "symbolAllocator is null");
+        checkNotNull(idAllocator, "idAllocator is null");
+
+        if (!optimizeHashGeneration) {
+            return plan;
+        }
+        return PlanRewriter.rewriteWith(new Rewriter(metadata, symbolAllocator, idAllocator), plan);
+    }
+
+    private static class Rewriter
+            extends PlanNodeRewriter<Void>
+    {
+        private final Metadata metadata;
+        private final SymbolAllocator symbolAllocator;
+        private final PlanNodeIdAllocator idAllocator;
+
+        private Rewriter(Metadata metadata, SymbolAllocator symbolAllocator, PlanNodeIdAllocator idAllocator)
+        {
+            this.metadata = metadata;
+            this.symbolAllocator = symbolAllocator;
+            this.idAllocator = idAllocator;
+        }
+
+        @Override
+        public PlanNode rewriteAggregation(AggregationNode node, Void context, PlanRewriter<Void> planRewriter)
+        {
+            PlanNode source = planRewriter.rewrite(node.getSource(), context);
+            if (node.getGroupBy().isEmpty() || !canHash(node.getGroupBy())) {
+                return new AggregationNode(node.getId(), source, node.getGroupBy(), node.getAggregations(), node.getFunctions(), node.getMasks(), node.getStep(), node.getSampleWeight(), node.getConfidence());
+            }
+
+            Symbol hashSymbol = newHashSymbol();
+            return new AggregationNode(
+                    node.getId(),
+                    getHashProjection(source, hashSymbol, node.getGroupBy()),
+                    node.getGroupBy(),
+                    node.getAggregations(),
+                    node.getFunctions(),
+                    node.getMasks(),
+                    node.getStep(),
+                    node.getSampleWeight(),
+                    node.getConfidence(),
+                    Optional.of(hashSymbol));
+        }
+
+        @Override
+        public PlanNode rewriteMarkDistinct(MarkDistinctNode node, Void context, PlanRewriter<Void> planRewriter)
+        {
+            PlanNode source = planRewriter.rewrite(node.getSource(), context);
+            if (!canHash(node.getDistinctSymbols())) {
+                return new MarkDistinctNode(node.getId(), source, node.getMarkerSymbol(), node.getDistinctSymbols());
+            }
+
+            Symbol hashSymbol = newHashSymbol();
+            return new MarkDistinctNode(
+                    node.getId(),
+                    getHashProjection(source, hashSymbol, node.getDistinctSymbols()),
+                    node.getMarkerSymbol(),
+                    node.getDistinctSymbols(),
+                    Optional.of(hashSymbol));
+        }
+
+        @Override
+        public PlanNode rewriteJoin(JoinNode node, Void context, PlanRewriter<Void> planRewriter)
+        {
+            PlanNode left = planRewriter.rewrite(node.getLeft(), context);
+            PlanNode right = planRewriter.rewrite(node.getRight(), context);
+
+            List<Symbol> leftSymbols = Lists.transform(node.getCriteria(), leftGetter());
+            List<Symbol> rightSymbols = Lists.transform(node.getCriteria(), rightGetter());
+            if (node.getCriteria().isEmpty() || !canHash(leftSymbols) || !canHash(rightSymbols)) {
+                return new JoinNode(node.getId(), node.getType(), left, right, node.getCriteria());
+            }
+
+            Symbol leftHashSymbol = newHashSymbol();
+            Symbol rightHashSymbol = newHashSymbol();
+            return new JoinNode(
+                    node.getId(),
+                    node.getType(),
+                    getHashProjection(left, leftHashSymbol, leftSymbols),
+                    getHashProjection(right, rightHashSymbol, rightSymbols),
+                    node.getCriteria(),
+                    Optional.of(leftHashSymbol),
+                    Optional.of(rightHashSymbol));
+        }
+
+        @Override
+        public PlanNode rewriteSemiJoin(SemiJoinNode node, Void context, PlanRewriter<Void> planRewriter)
+        {
+            PlanNode source = planRewriter.rewrite(node.getSource(), context);
+            PlanNode filteringSource = planRewriter.rewrite(node.getFilteringSource(), context);
+
+            List<Symbol> sourceSymbols = ImmutableList.of(node.getSourceJoinSymbol());
+            List<Symbol> filteringSourceSymbols = ImmutableList.of(node.getFilteringSourceJoinSymbol());
+            if (!canHash(sourceSymbols) || !canHash(filteringSourceSymbols)) {
+                return new SemiJoinNode(node.getId(), source, filteringSource, node.getSourceJoinSymbol(), node.getFilteringSourceJoinSymbol(), node.getSemiJoinOutput());
+            }
+
+            Symbol sourceHashSymbol = newHashSymbol();
+            Symbol filteringSourceHashSymbol = newHashSymbol();
+            return new SemiJoinNode(
+                    node.getId(),
+                    getHashProjection(source, sourceHashSymbol, sourceSymbols),
+                    getHashProjection(filteringSource, filteringSourceHashSymbol, filteringSourceSymbols),
+                    node.getSourceJoinSymbol(),
+                    node.getFilteringSourceJoinSymbol(),
+                    node.getSemiJoinOutput(),
+                    Optional.of(sourceHashSymbol),
+                    Optional.of(filteringSourceHashSymbol));
+        }
+
+        private Symbol newHashSymbol()
+        {
+            return symbolAllocator.newSymbol("$hashvalue", BIGINT);
+        }
+
+        private boolean canHash(List<Symbol> symbols)
+        {
+            for (Symbol symbol : symbols) {
+                try {
+                    metadata.resolveOperator(HASH_CODE, ImmutableList.of(symbolAllocator.getTypes().get(symbol)));
+                }
+                catch (OperatorNotFoundException e) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private ProjectNode getHashProjection(PlanNode source, Symbol hashSymbol, List<Symbol> hashedSymbols)
+        {
+            ImmutableMap.Builder<Symbol, Expression> assignments = ImmutableMap.builder();
+            for (Symbol symbol : source.getOutputSymbols()) {
+                assignments.put(symbol, new QualifiedNameReference(symbol.toQualifiedName()));
+            }
+            assignments.put(hashSymbol, getHashExpression(hashedSymbols));
+            return new ProjectNode(idAllocator.getNextId(), source, assignments.build());
+        }
+    }
+
+    private static Expression getHashExpression(List<Symbol> symbols)
+    {
+        Expression hashExpression = new LongLiteral(String.valueOf(INITIAL_HASH_VALUE));
+        for (Symbol symbol : symbols) {
+            hashExpression = getHashFunctionCall(hashExpression, symbol);
+        }
+        return hashExpression;
+    }
+
+    private static Expression getHashFunctionCall(Expression previousHashValue, Symbol symbol)
+    {
+        FunctionCall hashCode = new FunctionCall(QualifiedName.of(HASH_CODE_FUNCTION), ImmutableList.<Expression>of(new QualifiedNameReference(symbol.toQualifiedName())));
+        Expression value = new CoalesceExpression(hashCode, new LongLiteral(String.valueOf(NULL_HASH_CODE)));
+        return new FunctionCall(QualifiedName.of(COMBINE_HASH_FUNCTION), ImmutableList.of(previousHashValue, value));
+    }
+}
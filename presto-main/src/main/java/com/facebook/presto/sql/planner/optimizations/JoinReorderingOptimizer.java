@@ -0,0 +1,233 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.PlanNodeIdAllocator;
+import com.facebook.presto.sql.planner.PlanNodeStatistics;
+import com.facebook.presto.sql.planner.StatisticsCalculator;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.SymbolAllocator;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanNodeRewriter;
+import com.facebook.presto.sql.planner.plan.PlanRewriter;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.QualifiedNameReference;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reorders trees of inner equi-joins using the estimates of the {@link StatisticsCalculator}.
+ * The largest relation becomes the left-most (probe) side and the remaining relations are
+ * added greedily, each time picking the connected relation that produces the smallest
+ * intermediate result, so the hash tables are built on the small sides.  Trees that would
+ * require a cross join or that contain relations without row count estimates are left as
+ * they are.
+ */
+public class JoinReorderingOptimizer
+        extends PlanOptimizer
+{
+    private final Metadata metadata;
+    private final boolean reorderJoins;
+
+    public JoinReorderingOptimizer(Metadata metadata, boolean reorderJoins)
+    {
+        this.metadata = checkNotNull(metadata, "metadata is null");
+        this.reorderJoins = reorderJoins;
+    }
+
+    @Override
+    public PlanNode optimize(PlanNode plan, ConnectorSession session, Map<Symbol, Type> types, SymbolAllocator symbolAllocator, PlanNodeIdAllocator idAllocator)
+    {
+        checkNotNull(plan, "plan is null");
+        checkNotNull(session, "session is null");
+        checkNotNull(types, "types is null");
+        checkNotNull(symbolAllocator, "symbolAllocator is null");
+        checkNotNull(idAllocator, "idAllocator is null");
+
+        if (!reorderJoins) {
+            return plan;
+        }
+        return PlanRewriter.rewriteWith(new Rewriter(new StatisticsCalculator(metadata, types), idAllocator), plan);
+    }
+
+    private static class Rewriter
+            extends PlanNodeRewriter<Void>
+    {
+        private final StatisticsCalculator statisticsCalculator;
+        private final PlanNodeIdAllocator idAllocator;
+
+        private Rewriter(StatisticsCalculator statisticsCalculator, PlanNodeIdAllocator idAllocator)
+        {
+            this.statisticsCalculator = checkNotNull(statisticsCalculator, "statisticsCalculator is null");
+            this.idAllocator = checkNotNull(idAllocator, "idAllocator is null");
+        }
+
+        @Override
+        public PlanNode rewriteJoin(JoinNode node, Void context, PlanRewriter<Void> planRewriter)
+        {
+            if (!isReorderable(node)) {
+                return null;
+            }
+
+            List<PlanNode> leaves = new ArrayList<>();
+            List<JoinNode.EquiJoinClause> clauses = new ArrayList<>();
+            flatten(node, leaves, clauses);
+
+            List<Integer> order = chooseJoinOrder(leaves, clauses);
+            if (order == null) {
+                // keep the original shape, but still reorder the joins below the leaves
+                return null;
+            }
+
+            List<PlanNode> rewrittenLeaves = new ArrayList<>();
+            for (PlanNode leaf : leaves) {
+                rewrittenLeaves.add(planRewriter.rewrite(leaf, context));
+            }
+
+            PlanNode result = rewrittenLeaves.get(order.get(0));
+            Set<Symbol> joinedSymbols = ImmutableSet.copyOf(leaves.get(order.get(0)).getOutputSymbols());
+            for (int i = 1; i < order.size(); i++) {
+                PlanNode leaf = leaves.get(order.get(i));
+                result = new JoinNode(idAllocator.getNextId(), JoinNode.Type.INNER, result, rewrittenLeaves.get(order.get(i)), getJoinClauses(joinedSymbols, leaf, clauses));
+                joinedSymbols = ImmutableSet.<Symbol>builder().addAll(joinedSymbols).addAll(leaf.getOutputSymbols()).build();
+            }
+
+            if (result.getOutputSymbols().equals(node.getOutputSymbols())) {
+                return result;
+            }
+
+            // restore the column order expected by the parent
+            ImmutableMap.Builder<Symbol, Expression> assignments = ImmutableMap.builder();
+            for (Symbol symbol : node.getOutputSymbols()) {
+                assignments.put(symbol, new QualifiedNameReference(symbol.toQualifiedName()));
+            }
+            return new ProjectNode(idAllocator.getNextId(), result, assignments.build());
+        }
+
+        /**
+         * Returns the order in which the leaves should be joined, or null if the leaves
+         * cannot be reordered safely.
+         */
+        private List<Integer> chooseJoinOrder(List<PlanNode> leaves, List<JoinNode.EquiJoinClause> clauses)
+        {
+            List<Integer> remaining = new ArrayList<>();
+            int probe = -1;
+            for (int i = 0; i < leaves.size(); i++) {
+                PlanNodeStatistics statistics = statisticsCalculator.calculate(leaves.get(i));
+                if (!statistics.isRowCountKnown()) {
+                    return null;
+                }
+                if (probe < 0 || statistics.getRowCount() > getRowCount(leaves.get(probe))) {
+                    probe = i;
+                }
+                remaining.add(i);
+            }
+            remaining.remove((Integer) probe);
+
+            ImmutableList.Builder<Integer> order = ImmutableList.builder();
+            order.add(probe);
+            PlanNode current = leaves.get(probe);
+            Set<Symbol> joinedSymbols = ImmutableSet.copyOf(current.getOutputSymbols());
+            while (!remaining.isEmpty()) {
+                Integer best = null;
+                PlanNode bestJoin = null;
+                for (Integer candidate : remaining) {
+                    PlanNode leaf = leaves.get(candidate);
+                    List<JoinNode.EquiJoinClause> joinClauses = getJoinClauses(joinedSymbols, leaf, clauses);
+                    if (joinClauses.isEmpty()) {
+                        continue;
+                    }
+                    JoinNode join = new JoinNode(idAllocator.getNextId(), JoinNode.Type.INNER, current, leaf, joinClauses);
+                    if (best == null || isBetter(join, leaf, bestJoin, leaves.get(best))) {
+                        best = candidate;
+                        bestJoin = join;
+                    }
+                }
+                if (best == null) {
+                    // the remaining leaves could only be added with a cross join
+                    return null;
+                }
+                order.add(best);
+                remaining.remove(best);
+                current = bestJoin;
+                joinedSymbols = ImmutableSet.<Symbol>builder().addAll(joinedSymbols).addAll(leaves.get(best).getOutputSymbols()).build();
+            }
+            return order.build();
+        }
+
+        private boolean isBetter(JoinNode join, PlanNode leaf, JoinNode bestJoin, PlanNode bestLeaf)
+        {
+            double rowCount = getRowCount(join);
+            double bestRowCount = getRowCount(bestJoin);
+            if (rowCount != bestRowCount) {
+                return rowCount < bestRowCount;
+            }
+            return getRowCount(leaf) < getRowCount(bestLeaf);
+        }
+
+        private double getRowCount(PlanNode node)
+        {
+            return statisticsCalculator.calculate(node).getRowCount();
+        }
+
+        private static boolean isReorderable(PlanNode node)
+        {
+            return node instanceof JoinNode && ((JoinNode) node).getType() == JoinNode.Type.INNER && !((JoinNode) node).getCriteria().isEmpty();
+        }
+
+        private static void flatten(PlanNode node, List<PlanNode> leaves, List<JoinNode.EquiJoinClause> clauses)
+        {
+            if (!isReorderable(node)) {
+                leaves.add(node);
+                return;
+            }
+            JoinNode joinNode = (JoinNode) node;
+            flatten(joinNode.getLeft(), leaves, clauses);
+            flatten(joinNode.getRight(), leaves, clauses);
+            clauses.addAll(joinNode.getCriteria());
+        }
+
+        /**
+         * Returns the clauses that join the leaf with the already joined symbols, with the
+         * already joined symbols on the left side.
+         */
+        private static List<JoinNode.EquiJoinClause> getJoinClauses(Set<Symbol> joinedSymbols, PlanNode leaf, List<JoinNode.EquiJoinClause> clauses)
+        {
+            Set<Symbol> leafSymbols = ImmutableSet.copyOf(leaf.getOutputSymbols());
+            ImmutableList.Builder<JoinNode.EquiJoinClause> joinClauses = ImmutableList.builder();
+            for (JoinNode.EquiJoinClause clause : clauses) {
+                if (joinedSymbols.contains(clause.getLeft()) && leafSymbols.contains(clause.getRight())) {
+                    joinClauses.add(clause);
+                }
+                else if (joinedSymbols.contains(clause.getRight()) && leafSymbols.contains(clause.getLeft())) {
+                    joinClauses.add(new JoinNode.EquiJoinClause(clause.getRight(), clause.getLeft()));
+                }
+            }
+            return joinClauses.build();
+        }
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.metadata.AggregatedTable;
+import com.facebook.presto.metadata.ColumnHandle;
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.metadata.Signature;
+import com.facebook.presto.metadata.TableHandle;
+import com.facebook.presto.spi.ConnectorAggregate;
+import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.split.SplitManager;
+import com.facebook.presto.sql.planner.PlanNodeIdAllocator;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.SymbolAllocator;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.facebook.presto.sql.planner.plan.LimitNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanNodeRewriter;
+import com.facebook.presto.sql.planner.plan.PlanRewriter;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.sql.tree.CoalesceExpression;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.FunctionCall;
+import com.facebook.presto.sql.tree.LongLiteral;
+import com.facebook.presto.sql.tree.QualifiedName;
+import com.facebook.presto.sql.tree.QualifiedNameReference;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.facebook.presto.sql.planner.plan.TableScanNode.GeneratedPartitions;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Offers aggregations and limits directly over a table scan to the connector, so that
+ * connectors backed by a database can compute them remotely and return far fewer rows.
+ * The engine still combines the results of the individual splits: an aggregation is
+ * replaced by one that merges the partial aggregates, and a limit is kept as is.
+ */
+public class TableScanPushDown
+        extends PlanOptimizer
+{
+    private static final Set<String> DECOMPOSABLE_FUNCTIONS = ImmutableSet.of("count", "sum", "min", "max");
+
+    private final Metadata metadata;
+    private final SplitManager splitManager;
+
+    public TableScanPushDown(Metadata metadata, SplitManager splitManager)
+    {
+        this.metadata = checkNotNull(metadata, "metadata is null");
+        this.splitManager = checkNotNull(splitManager, "splitManager is null");
+    }
+
+    @Override
+    public PlanNode optimize(PlanNode plan, ConnectorSession session, Map<Symbol, Type> types, SymbolAllocator symbolAllocator, PlanNodeIdAllocator idAllocator)
+    {
+        checkNotNull(plan, "plan is null");
+        checkNotNull(session, "session is null");
+        checkNotNull(types, "types is null");
+        checkNotNull(symbolAllocator, "symbolAllocator is null");
+        checkNotNull(idAllocator, "idAllocator is null");
+
+        return PlanRewriter.rewriteWith(new Rewriter(metadata, splitManager, symbolAllocator, idAllocator), plan, null);
+    }
+
+    private static class Rewriter
+            extends PlanNodeRewriter<Void>
+    {
+        private final Metadata metadata;
+        private final SplitManager splitManager;
+        private final SymbolAllocator symbolAllocator;
+        private final PlanNodeIdAllocator idAllocator;
+
+        private Rewriter(Metadata metadata, SplitManager splitManager, SymbolAllocator symbolAllocator, PlanNodeIdAllocator idAllocator)
+        {
+            this.metadata = checkNotNull(metadata, "metadata is null");
+            this.splitManager = checkNotNull(splitManager, "splitManager is null");
+            this.symbolAllocator = checkNotNull(symbolAllocator, "symbolAllocator is null");
+            this.idAllocator = checkNotNull(idAllocator, "idAllocator is null");
+        }
+
+        @Override
+        public PlanNode rewriteAggregation(AggregationNode node, Void context, PlanRewriter<Void> planRewriter)
+        {
+            Optional<PlanNode> rewritten = pushDownAggregation(node);
+            if (rewritten.isPresent()) {
+                return rewritten.get();
+            }
+            return planRewriter.defaultRewrite(node, context);
+        }
+
+        @Override
+        public PlanNode rewriteLimit(LimitNode node, Void context, PlanRewriter<Void> planRewriter)
+        {
+            ProjectNode project = null;
+            PlanNode source = node.getSource();
+            if (source instanceof ProjectNode) {
+                project = (ProjectNode) source;
+                source = project.getSource();
+            }
+            if (!(source instanceof TableScanNode)) {
+                return planRewriter.defaultRewrite(node, context);
+            }
+
+            TableScanNode tableScan = (TableScanNode) source;
+            Optional<TableHandle> limitedTable = metadata.pushDownLimit(tableScan.getTable(), node.getCount());
+            if (!limitedTable.isPresent()) {
+                return planRewriter.defaultRewrite(node, context);
+            }
+
+            // the partitions refer to the original table, so they have to be generated again for the limited one
+            Optional<GeneratedPartitions> generatedPartitions = tableScan.getGeneratedPartitions();
+            if (generatedPartitions.isPresent()) {
+                TupleDomain<ColumnHandle> tupleDomainInput = generatedPartitions.get().getTupleDomainInput();
+                generatedPartitions = Optional.of(new GeneratedPartitions(
+                        tupleDomainInput,
+                        splitManager.getPartitions(limitedTable.get(), Optional.of(tupleDomainInput)).getPartitions()));
+            }
+
+            PlanNode rewrittenSource = new TableScanNode(
+                    tableScan.getId(),
+                    limitedTable.get(),
+                    tableScan.getOutputSymbols(),
+                    tableScan.getAssignments(),
+                    tableScan.getOriginalConstraint(),
+                    generatedPartitions);
+            if (project != null) {
+                rewrittenSource = new ProjectNode(project.getId(), rewrittenSource, project.getOutputMap());
+            }
+            return new LimitNode(node.getId(), rewrittenSource, node.getCount());
+        }
+
+        private Optional<PlanNode> pushDownAggregation(AggregationNode node)
+        {
+            if (node.getStep() != AggregationNode.Step.SINGLE || !node.getMasks().isEmpty() || node.getSampleWeight().isPresent() || node.getHashSymbol().isPresent()) {
+                return Optional.absent();
+            }
+
+            ProjectNode project = null;
+            PlanNode source = node.getSource();
+            if (source instanceof ProjectNode) {
+                project = (ProjectNode) source;
+                source = project.getSource();
+            }
+            if (!(source instanceof TableScanNode)) {
+                return Optional.absent();
+            }
+            TableScanNode tableScan = (TableScanNode) source;
+
+            // the scan is not followed by a filter, so the connector enforces the whole constraint it was given
+            TupleDomain<ColumnHandle> constraint = TupleDomain.all();
+            if (tableScan.getGeneratedPartitions().isPresent()) {
+                constraint = tableScan.getGeneratedPartitions().get().getTupleDomainInput();
+            }
+            if (constraint.isNone()) {
+                return Optional.absent();
+            }
+
+            ImmutableList.Builder<ColumnHandle> groupingColumns = ImmutableList.builder();
+            for (Symbol symbol : node.getGroupBy()) {
+                Optional<ColumnHandle> column = getColumn(symbol, project, tableScan);
+                if (!column.isPresent()) {
+                    return Optional.absent();
+                }
+                groupingColumns.add(column.get());
+            }
+
+            Map<Symbol, Type> types = symbolAllocator.getTypes();
+            List<Symbol> aggregationSymbols = ImmutableList.copyOf(node.getAggregations().keySet());
+            ImmutableList.Builder<ConnectorAggregate> aggregates = ImmutableList.builder();
+            for (Symbol symbol : aggregationSymbols) {
+                FunctionCall call = node.getAggregations().get(symbol);
+                String functionName = node.getFunctions().get(symbol).getName();
+                if (call.isDistinct() || !DECOMPOSABLE_FUNCTIONS.contains(functionName)) {
+                    return Optional.absent();
+                }
+
+                ConnectorColumnHandle argument = null;
+                if (call.getArguments().isEmpty()) {
+                    if (!functionName.equals("count")) {
+                        return Optional.absent();
+                    }
+                }
+                else {
+                    if (call.getArguments().size() != 1 || !(call.getArguments().get(0) instanceof QualifiedNameReference)) {
+                        return Optional.absent();
+                    }
+                    Optional<ColumnHandle> column = getColumn(Symbol.fromQualifiedName(((QualifiedNameReference) call.getArguments().get(0)).getName()), project, tableScan);
+                    if (!column.isPresent()) {
+                        return Optional.absent();
+                    }
+                    argument = column.get().getConnectorHandle();
+                }
+                aggregates.add(new ConnectorAggregate(functionName, argument, types.get(symbol)));
+            }
+
+            Optional<AggregatedTable> aggregatedTable = metadata.pushDownAggregation(tableScan.getTable(), constraint, groupingColumns.build(), aggregates.build());
+            if (!aggregatedTable.isPresent()) {
+                return Optional.absent();
+            }
+
+            // the grouping columns keep their symbols, and the partial aggregates of the splits get new ones
+            ImmutableList.Builder<Symbol> scanSymbols = ImmutableList.builder();
+            ImmutableMap.Builder<Symbol, ColumnHandle> assignments = ImmutableMap.builder();
+            ImmutableMap.Builder<Symbol, Expression> projections = ImmutableMap.builder();
+            for (int i = 0; i < node.getGroupBy().size(); i++) {
+                Symbol symbol = node.getGroupBy().get(i);
+                scanSymbols.add(symbol);
+                assignments.put(symbol, aggregatedTable.get().getGroupingColumns().get(i));
+                projections.put(symbol, new QualifiedNameReference(symbol.toQualifiedName()));
+            }
+
+            ImmutableMap.Builder<Symbol, FunctionCall> combinedAggregations = ImmutableMap.builder();
+            ImmutableMap.Builder<Symbol, Signature> combinedFunctions = ImmutableMap.builder();
+            boolean needsProjection = false;
+            for (int i = 0; i < aggregationSymbols.size(); i++) {
+                Symbol symbol = aggregationSymbols.get(i);
+                Type type = types.get(symbol);
+                String functionName = node.getFunctions().get(symbol).getName();
+
+                Symbol partialSymbol = symbolAllocator.newSymbol(functionName, type);
+                scanSymbols.add(partialSymbol);
+                assignments.put(partialSymbol, aggregatedTable.get().getAggregateColumns().get(i));
+
+                // counts are combined by adding them up, and a global count over no splits must still be zero
+                Symbol outputSymbol = symbol;
+                if (functionName.equals("count")) {
+                    functionName = "sum";
+                    if (node.getGroupBy().isEmpty()) {
+                        outputSymbol = symbolAllocator.newSymbol(functionName, type);
+                        needsProjection = true;
+                    }
+                }
+                QualifiedName name = QualifiedName.of(functionName);
+                combinedAggregations.put(outputSymbol, new FunctionCall(name, ImmutableList.<Expression>of(new QualifiedNameReference(partialSymbol.toQualifiedName()))));
+                combinedFunctions.put(outputSymbol, metadata.resolveFunction(name, ImmutableList.of(type.getName()), false).getSignature());
+
+                Expression projection = new QualifiedNameReference(outputSymbol.toQualifiedName());
+                if (!outputSymbol.equals(symbol)) {
+                    projection = new CoalesceExpression(projection, new LongLiteral("0"));
+                }
+                projections.put(symbol, projection);
+            }
+
+            PlanNode result = new TableScanNode(
+                    idAllocator.getNextId(),
+                    aggregatedTable.get().getTableHandle(),
+                    scanSymbols.build(),
+                    assignments.build(),
+                    null,
+                    Optional.<GeneratedPartitions>absent());
+            result = new AggregationNode(
+                    node.getId(),
+                    result,
+                    node.getGroupBy(),
+                    combinedAggregations.build(),
+                    combinedFunctions.build(),
+                    ImmutableMap.<Symbol, Symbol>of(),
+                    Optional.<Symbol>absent(),
+                    node.getConfidence());
+            if (needsProjection) {
+                result = new ProjectNode(idAllocator.getNextId(), result, projections.build());
+            }
+            return Optional.of(result);
+        }
+
+        private static Optional<ColumnHandle> getColumn(Symbol symbol, ProjectNode project, TableScanNode tableScan)
+        {
+            if (project != null) {
+                Expression expression = project.getOutputMap().get(symbol);
+                if (!(expression instanceof QualifiedNameReference)) {
+                    return Optional.absent();
+                }
+                symbol = Symbol.fromQualifiedName(((QualifiedNameReference) expression).getName());
+            }
+            return Optional.fromNullable(tableScan.getAssignments().get(symbol));
+        }
+    }
+}
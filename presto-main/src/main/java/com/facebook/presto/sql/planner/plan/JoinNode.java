@@ -18,6 +18,7 @@ import com.facebook.presto.sql.tree.Join;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Function;
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 
@@ -35,13 +36,22 @@ public class JoinNode
     private final PlanNode left;
     private final PlanNode right;
     private final List<EquiJoinClause> criteria;
+    private final Optional<Symbol> leftHashSymbol;
+    private final Optional<Symbol> rightHashSymbol;
+
+    public JoinNode(PlanNodeId id, Type type, PlanNode left, PlanNode right, List<EquiJoinClause> criteria)
+    {
+        this(id, type, left, right, criteria, Optional.<Symbol>absent(), Optional.<Symbol>absent());
+    }
 
     @JsonCreator
     public JoinNode(@JsonProperty("id") PlanNodeId id,
             @JsonProperty("type") Type type,
             @JsonProperty("left") PlanNode left,
             @JsonProperty("right") PlanNode right,
-            @JsonProperty("criteria") List<EquiJoinClause> criteria)
+            @JsonProperty("criteria") List<EquiJoinClause> criteria,
+            @JsonProperty("leftHashSymbol") Optional<Symbol> leftHashSymbol,
+            @JsonProperty("rightHashSymbol") Optional<Symbol> rightHashSymbol)
     {
         super(id);
 
@@ -54,6 +64,8 @@ public class JoinNode
         this.left = left;
         this.right = right;
         this.criteria = ImmutableList.copyOf(criteria);
+        this.leftHashSymbol = checkNotNull(leftHashSymbol, "leftHashSymbol is null");
+        this.rightHashSymbol = checkNotNull(rightHashSymbol, "rightHashSymbol is null");
     }
 
     public enum Type
@@ -117,6 +129,18 @@ public class JoinNode
         return criteria;
     }
 
+    @JsonProperty("leftHashSymbol")
+    public Optional<Symbol> getLeftHashSymbol()
+    {
+        return leftHashSymbol;
+    }
+
+    @JsonProperty("rightHashSymbol")
+    public Optional<Symbol> getRightHashSymbol()
+    {
+        return rightHashSymbol;
+    }
+
     @Override
     public List<PlanNode> getSources()
     {
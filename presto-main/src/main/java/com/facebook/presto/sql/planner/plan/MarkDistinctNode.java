@@ -16,6 +16,7 @@ package com.facebook.presto.sql.planner.plan;
 import com.facebook.presto.sql.planner.Symbol;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 
 import javax.annotation.concurrent.Immutable;
@@ -31,17 +32,25 @@ public class MarkDistinctNode
     private final PlanNode source;
     private final Symbol markerSymbol;
     private final List<Symbol> distinctSymbols;
+    private final Optional<Symbol> hashSymbol;
+
+    public MarkDistinctNode(PlanNodeId id, PlanNode source, Symbol markerSymbol, List<Symbol> distinctSymbols)
+    {
+        this(id, source, markerSymbol, distinctSymbols, Optional.<Symbol>absent());
+    }
 
     @JsonCreator
     public MarkDistinctNode(@JsonProperty("id") PlanNodeId id,
             @JsonProperty("source") PlanNode source,
             @JsonProperty("markerSymbol") Symbol markerSymbol,
-            @JsonProperty("distinctSymbols") List<Symbol> distinctSymbols)
+            @JsonProperty("distinctSymbols") List<Symbol> distinctSymbols,
+            @JsonProperty("hashSymbol") Optional<Symbol> hashSymbol)
     {
         super(id);
         this.source = source;
         this.markerSymbol = markerSymbol;
         this.distinctSymbols = ImmutableList.copyOf(checkNotNull(distinctSymbols, "distinctSymbols is null"));
+        this.hashSymbol = checkNotNull(hashSymbol, "hashSymbol is null");
     }
 
     @Override
@@ -77,6 +86,12 @@ public class MarkDistinctNode
         return distinctSymbols;
     }
 
+    @JsonProperty
+    public Optional<Symbol> getHashSymbol()
+    {
+        return hashSymbol;
+    }
+
     @Override
     public <C, R> R accept(PlanVisitor<C, R> visitor, C context)
     {
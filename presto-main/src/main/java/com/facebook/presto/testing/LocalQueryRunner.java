@@ -23,6 +23,7 @@ import com.facebook.presto.connector.system.SystemRecordSetProvider;
 import com.facebook.presto.connector.system.SystemSplitManager;
 import com.facebook.presto.connector.system.SystemTablesManager;
 import com.facebook.presto.connector.system.SystemTablesMetadata;
+import com.facebook.presto.execution.HashBuildExecutor;
 import com.facebook.presto.execution.SplitSource;
 import com.facebook.presto.execution.TaskId;
 import com.facebook.presto.execution.TaskManagerConfig;
@@ -45,6 +46,7 @@ import com.facebook.presto.operator.Operator;
 import com.facebook.presto.operator.OperatorContext;
 import com.facebook.presto.operator.OperatorFactory;
 import com.facebook.presto.operator.OutputFactory;
+import com.facebook.presto.operator.PipelineContext;
 import com.facebook.presto.operator.RecordSinkManager;
 import com.facebook.presto.operator.TaskContext;
 import com.facebook.presto.operator.index.IndexJoinLookupStats;
@@ -55,6 +57,7 @@ import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.SystemTable;
 import com.facebook.presto.spi.TupleDomain;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.split.DataStreamManager;
 import com.facebook.presto.split.SplitManager;
 import com.facebook.presto.sql.analyzer.Analysis;
@@ -95,6 +98,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static com.facebook.presto.sql.testing.TreeAssertions.assertFormattedSql;
+import static com.facebook.presto.testing.TestingBlockEncodingManager.createTestingBlockEncodingManager;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -105,7 +109,9 @@ public class LocalQueryRunner
     implements QueryRunner
 {
     private final ConnectorSession defaultSession;
+    private final FeaturesConfig featuresConfig;
     private final ExecutorService executor;
+    private final HashBuildExecutor hashBuildExecutor;
 
     private final SqlParser sqlParser;
     private final InMemoryNodeManager nodeManager;
@@ -122,14 +128,23 @@ public class LocalQueryRunner
     private boolean printPlan;
 
     public LocalQueryRunner(ConnectorSession defaultSession)
+    {
+        this(defaultSession, new FeaturesConfig()
+                .setExperimentalSyntaxEnabled(true)
+                .setDistributedIndexJoinsEnabled(false));
+    }
+
+    public LocalQueryRunner(ConnectorSession defaultSession, FeaturesConfig featuresConfig)
     {
         this.defaultSession = checkNotNull(defaultSession, "defaultSession is null");
+        this.featuresConfig = checkNotNull(featuresConfig, "featuresConfig is null");
         this.executor = newCachedThreadPool(daemonThreadsNamed("local-query-runner-%s"));
+        this.hashBuildExecutor = new HashBuildExecutor(new TaskManagerConfig());
 
         this.sqlParser = new SqlParser();
         this.nodeManager = new InMemoryNodeManager();
         this.typeRegistry = new TypeRegistry();
-        this.metadata = new MetadataManager(new FeaturesConfig().setExperimentalSyntaxEnabled(true), typeRegistry);
+        this.metadata = new MetadataManager(featuresConfig, typeRegistry);
         this.splitManager = new SplitManager();
         this.dataStreamProvider = new DataStreamManager();
         this.indexManager = new IndexManager();
@@ -167,6 +182,7 @@ public class LocalQueryRunner
     public void close()
     {
         executor.shutdownNow();
+        hashBuildExecutor.stop();
     }
 
     @Override
@@ -308,27 +324,9 @@ public class LocalQueryRunner
 
     public List<Driver> createDrivers(ConnectorSession session, @Language("SQL") String sql, OutputFactory outputFactory, TaskContext taskContext)
     {
-        Statement statement = sqlParser.createStatement(sql);
-
-        assertFormattedSql(sqlParser, statement);
-
         PlanNodeIdAllocator idAllocator = new PlanNodeIdAllocator();
-        FeaturesConfig featuresConfig = new FeaturesConfig()
-                .setExperimentalSyntaxEnabled(true)
-                .setDistributedIndexJoinsEnabled(false);
-        PlanOptimizersFactory planOptimizersFactory = new PlanOptimizersFactory(metadata, sqlParser, splitManager, indexManager, featuresConfig);
-
-        QueryExplainer queryExplainer = new QueryExplainer(session, planOptimizersFactory.get(), metadata, sqlParser, featuresConfig.isExperimentalSyntaxEnabled(), featuresConfig.isDistributedIndexJoinsEnabled());
-        Analyzer analyzer = new Analyzer(session, metadata, sqlParser, Optional.of(queryExplainer), featuresConfig.isExperimentalSyntaxEnabled());
-
-        Analysis analysis = analyzer.analyze(statement);
-
-        Plan plan = new LogicalPlanner(session, planOptimizersFactory.get(), idAllocator, metadata).plan(analysis);
-        if (printPlan) {
-            System.out.println(PlanPrinter.textLogicalPlan(plan.getRoot(), plan.getTypes(), metadata));
-        }
-
-        SubPlan subplan = new DistributedLogicalPlanner(session, metadata, idAllocator).createSubPlans(plan, true, featuresConfig.isDistributedIndexJoinsEnabled());
+        Plan plan = createPlan(session, sql, idAllocator);
+        SubPlan subplan = createSubPlans(session, plan, true, idAllocator);
         if (!subplan.getChildren().isEmpty()) {
             throw new AssertionError("Expected subplan to have no children");
         }
@@ -343,7 +341,9 @@ public class LocalQueryRunner
                 compiler,
                 new IndexJoinLookupStats(),
                 new CompilerConfig().setInterpreterEnabled(false), // make sure tests fail if compiler breaks
-                new TaskManagerConfig()
+                new TaskManagerConfig(),
+                new SpillerFactory(createTestingBlockEncodingManager(), new TaskManagerConfig()),
+                hashBuildExecutor
         );
 
         // plan query
@@ -384,11 +384,13 @@ public class LocalQueryRunner
         List<Driver> drivers = new ArrayList<>();
         Map<PlanNodeId, Driver> driversBySource = new HashMap<>();
         for (DriverFactory driverFactory : localExecutionPlan.getDriverFactories()) {
-            DriverContext driverContext = taskContext.addPipelineContext(driverFactory.isInputDriver(), driverFactory.isOutputDriver()).addDriverContext();
-            Driver driver = driverFactory.createDriver(driverContext);
-            drivers.add(driver);
-            for (PlanNodeId sourceId : driver.getSourceIds()) {
-                driversBySource.put(sourceId, driver);
+            PipelineContext pipelineContext = taskContext.addPipelineContext(driverFactory.isInputDriver(), driverFactory.isOutputDriver());
+            for (int i = 0; i < driverFactory.getDriverInstances(); i++) {
+                Driver driver = driverFactory.createDriver(pipelineContext.addDriverContext());
+                drivers.add(driver);
+                for (PlanNodeId sourceId : driver.getSourceIds()) {
+                    driversBySource.put(sourceId, driver);
+                }
             }
             driverFactory.close();
         }
@@ -403,6 +405,52 @@ public class LocalQueryRunner
         return ImmutableList.copyOf(drivers);
     }
 
+    public Plan createPlan(@Language("SQL") String sql)
+    {
+        return createPlan(defaultSession, sql, new PlanNodeIdAllocator());
+    }
+
+    /**
+     * Plans the query, and fragments the plan as it would be for a distributed query
+     * if {@code createSingleNodePlan} is false.
+     */
+    public SubPlan createSubPlans(@Language("SQL") String sql, boolean createSingleNodePlan)
+    {
+        PlanNodeIdAllocator idAllocator = new PlanNodeIdAllocator();
+        return createSubPlans(defaultSession, createPlan(defaultSession, sql, idAllocator), createSingleNodePlan, idAllocator);
+    }
+
+    private Plan createPlan(ConnectorSession session, @Language("SQL") String sql, PlanNodeIdAllocator idAllocator)
+    {
+        Statement statement = sqlParser.createStatement(sql);
+
+        assertFormattedSql(sqlParser, statement);
+
+        PlanOptimizersFactory planOptimizersFactory = new PlanOptimizersFactory(metadata, sqlParser, splitManager, indexManager, featuresConfig);
+
+        QueryExplainer queryExplainer = new QueryExplainer(session, planOptimizersFactory.get(), metadata, sqlParser, featuresConfig.isExperimentalSyntaxEnabled(), featuresConfig.isDistributedIndexJoinsEnabled(), featuresConfig.isColocatedJoinsEnabled(), featuresConfig.getJoinDistributionType(), Optional.fromNullable(featuresConfig.getBroadcastJoinMaxSize()));
+        Analyzer analyzer = new Analyzer(session, metadata, sqlParser, Optional.of(queryExplainer), featuresConfig.isExperimentalSyntaxEnabled());
+
+        Analysis analysis = analyzer.analyze(statement);
+
+        Plan plan = new LogicalPlanner(session, planOptimizersFactory.get(), idAllocator, metadata).plan(analysis);
+        if (printPlan) {
+            System.out.println(PlanPrinter.textLogicalPlan(plan.getRoot(), plan.getTypes(), metadata));
+        }
+        return plan;
+    }
+
+    private SubPlan createSubPlans(ConnectorSession session, Plan plan, boolean createSingleNodePlan, PlanNodeIdAllocator idAllocator)
+    {
+        return new DistributedLogicalPlanner(session, metadata, idAllocator).createSubPlans(
+                plan,
+                createSingleNodePlan,
+                featuresConfig.isDistributedIndexJoinsEnabled(),
+                featuresConfig.isColocatedJoinsEnabled(),
+                featuresConfig.getJoinDistributionType(),
+                Optional.fromNullable(featuresConfig.getBroadcastJoinMaxSize()));
+    }
+
     private List<Partition> getPartitions(TableScanNode node)
     {
         if (node.getGeneratedPartitions().isPresent()) {
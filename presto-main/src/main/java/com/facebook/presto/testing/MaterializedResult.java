@@ -13,8 +13,8 @@
  */
 package com.facebook.presto.testing;
 
-import com.facebook.presto.operator.Page;
 import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.SqlDate;
 import com.facebook.presto.spi.type.SqlTime;
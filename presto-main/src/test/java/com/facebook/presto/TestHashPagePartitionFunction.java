@@ -0,0 +1,74 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.toValues;
+import static com.facebook.presto.operator.scalar.HashFunctions.combineHash;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static org.testng.Assert.assertEquals;
+
+public class TestHashPagePartitionFunction
+{
+    private static final List<Type> TYPES = ImmutableList.<Type>of(BIGINT, VARCHAR, BIGINT);
+
+    @Test
+    public void testPrecomputedHashMatchesFallback()
+    {
+        Block keys = createLongSequenceBlock(-500, 500);
+        Block names = createStringSequenceBlock(0, 1000);
+
+        // the hash column is computed the way the planner's combine_hash chain computes it
+        BlockBuilder hashes = BIGINT.createBlockBuilder(new BlockBuilderStatus());
+        for (int position = 0; position < keys.getPositionCount(); position++) {
+            long hash = combineHash(0, BIGINT.hash(keys, position));
+            hash = combineHash(hash, VARCHAR.hash(names, position));
+            BIGINT.writeLong(hashes, hash);
+        }
+        List<Page> pages = ImmutableList.of(new Page(keys, names, hashes.build()));
+
+        int rows = 0;
+        for (int partition = 0; partition < 4; partition++) {
+            HashPagePartitionFunction precomputed = new HashPagePartitionFunction(partition, 4, ImmutableList.of(0, 1), Optional.of(2), TYPES);
+            HashPagePartitionFunction fallback = new HashPagePartitionFunction(partition, 4, ImmutableList.of(0, 1), Optional.<Integer>absent(), TYPES);
+
+            List<Object> precomputedKeys = getKeys(precomputed.partition(pages));
+            assertEquals(getKeys(fallback.partition(pages)), precomputedKeys);
+            rows += precomputedKeys.size();
+        }
+        assertEquals(rows, 1000);
+    }
+
+    private static List<Object> getKeys(List<Page> pages)
+    {
+        ImmutableList.Builder<Object> keys = ImmutableList.builder();
+        for (Page page : pages) {
+            keys.addAll(toValues(BIGINT, page.getBlock(0)));
+        }
+        return keys.build();
+    }
+}
@@ -107,6 +107,50 @@ public class TestNodeScheduler
         assertEquals(assignments.size(), 1);
     }
 
+    @Test
+    public void testScheduleRemoteOnExactNode()
+            throws Exception
+    {
+        HostAddress address = HostAddress.fromString("127.0.0.1:12");
+        Set<Split> splits = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            splits.add(new Split("foo", new TestSplitRemoteOnNode(address)));
+        }
+        Multimap<Node, Split> assignments = nodeSelector.computeAssignments(splits);
+        assertEquals(assignments.size(), 5);
+        assertEquals(Iterables.getOnlyElement(assignments.keySet()).getHostAndPort(), address);
+    }
+
+    @Test
+    public void testScheduleRemoteOnFullExactNode()
+            throws Exception
+    {
+        HostAddress address = HostAddress.fromString("127.0.0.1:12");
+        Node exactNode = null;
+        for (Node node : nodeManager.getActiveDatasourceNodes("foo")) {
+            if (node.getHostAndPort().equals(address)) {
+                exactNode = node;
+            }
+        }
+
+        ImmutableList.Builder<Split> initialSplits = ImmutableList.builder();
+        for (int i = 0; i < 20; i++) {
+            initialSplits.add(new Split("foo", new TestSplitRemote()));
+        }
+        MockRemoteTaskFactory remoteTaskFactory = new MockRemoteTaskFactory(remoteTaskExecutor);
+        nodeTaskMap.addTask(exactNode, remoteTaskFactory.createTableScanTask(exactNode, initialSplits.build()));
+
+        Set<Split> splits = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            splits.add(new Split("foo", new TestSplitRemoteOnNode(address)));
+        }
+        Multimap<Node, Split> assignments = nodeSelector.computeAssignments(splits);
+
+        // the exact node is full, so the splits go to the other nodes
+        assertEquals(assignments.size(), 5);
+        assertFalse(assignments.keySet().contains(exactNode));
+    }
+
     @Test
     public void testBasicAssignment()
             throws Exception
@@ -235,7 +279,8 @@ public class TestNodeScheduler
         @Override
         public List<HostAddress> getAddresses()
         {
-            int randomPort = ThreadLocalRandom.current().nextInt(5000);
+            // stay clear of the ports of the nodes, which are preferred when named exactly
+            int randomPort = 1000 + ThreadLocalRandom.current().nextInt(5000);
             return ImmutableList.of(HostAddress.fromString("127.0.0.1:" + randomPort));
         }
 
@@ -245,4 +290,33 @@ public class TestNodeScheduler
             return this;
         }
     }
+
+    private class TestSplitRemoteOnNode
+            implements ConnectorSplit
+    {
+        private final HostAddress address;
+
+        private TestSplitRemoteOnNode(HostAddress address)
+        {
+            this.address = address;
+        }
+
+        @Override
+        public boolean isRemotelyAccessible()
+        {
+            return true;
+        }
+
+        @Override
+        public List<HostAddress> getAddresses()
+        {
+            return ImmutableList.of(address);
+        }
+
+        @Override
+        public Object getInfo()
+        {
+            return this;
+        }
+    }
 }
@@ -25,6 +25,7 @@ import com.facebook.presto.metadata.PrestoNode;
 import com.facebook.presto.metadata.Split;
 import com.facebook.presto.metadata.TableHandle;
 import com.facebook.presto.operator.TaskContext;
+import com.facebook.presto.spi.ConnectorBucketedSplit;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorSplit;
 import com.facebook.presto.spi.FixedSplitSource;
@@ -44,9 +45,11 @@ import com.facebook.presto.sql.planner.plan.PlanFragmentId;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.sql.planner.plan.TableScanNode;
 import com.google.common.base.Optional;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
 import io.airlift.units.DataSize;
@@ -59,6 +62,7 @@ import org.testng.annotations.Test;
 import javax.annotation.concurrent.GuardedBy;
 
 import java.net.URI;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
@@ -83,6 +87,7 @@ import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.fail;
 
 @Test(singleThreaded = true)
@@ -178,6 +183,76 @@ public class TestSqlStageExecution
         }
     }
 
+    @Test
+    public void testBucketedSplitAssignment()
+            throws Exception
+    {
+        // bucket 3 of the right table has two splits
+        SqlStageExecution sqlStageExecution = createBucketedSqlStageExecution(
+                ImmutableList.of(0, 1, 2, 3, 4, 5, 6, 7),
+                ImmutableList.of(0, 1, 2, 3, 3, 4, 5, 6, 7));
+        Future future = sqlStageExecution.start();
+        future.get(1, TimeUnit.SECONDS);
+
+        // there are 3 nodes for 8 hash partitions
+        Map<Node, RemoteTask> tasks = sqlStageExecution.getTasks();
+        assertEquals(tasks.size(), 3);
+
+        // all splits of a bucket, from both tables, are assigned to the same task
+        Map<Integer, RemoteTask> taskByBucket = new HashMap<>();
+        Multimap<PlanNodeId, Integer> buckets = ArrayListMultimap.create();
+        for (RemoteTask task : tasks.values()) {
+            for (Map.Entry<PlanNodeId, Split> entry : ((MockRemoteTaskFactory.MockRemoteTask) task).getSplits().entries()) {
+                int bucket = ((TestingBucketedSplit) entry.getValue().getConnectorSplit()).getBucket();
+                RemoteTask previous = taskByBucket.put(bucket, task);
+                if (previous != null) {
+                    assertSame(previous, task, "bucket " + bucket + " is assigned to multiple tasks");
+                }
+                buckets.put(entry.getKey(), bucket);
+            }
+        }
+        assertEquals(taskByBucket.size(), 8);
+        assertEquals(buckets.get(new PlanNodeId("left")).size(), 8);
+        assertEquals(buckets.get(new PlanNodeId("right")).size(), 9);
+
+        // every task gets some of the buckets
+        assertEquals(ImmutableSet.copyOf(taskByBucket.values()).size(), 3);
+    }
+
+    @Test(expectedExceptions = ExecutionException.class, expectedExceptionsMessageRegExp = ".*does not belong to a single bucket")
+    public void testBucketedSplitWithUnknownBucket()
+            throws Exception
+    {
+        SqlStageExecution sqlStageExecution = createBucketedSqlStageExecution(
+                ImmutableList.of(0, 1),
+                ImmutableList.of(0, ConnectorBucketedSplit.UNKNOWN_BUCKET));
+        Future future = sqlStageExecution.start();
+        future.get(1, TimeUnit.SECONDS);
+    }
+
+    private SqlStageExecution createBucketedSqlStageExecution(List<Integer> leftBuckets, List<Integer> rightBuckets)
+    {
+        ExecutorService remoteTaskExecutor = newCachedThreadPool(daemonThreadsNamed("remoteTaskExecutor"));
+        MockRemoteTaskFactory remoteTaskFactory = new MockRemoteTaskFactory(remoteTaskExecutor);
+        ExecutorService executor = newCachedThreadPool(daemonThreadsNamed("stageExecutor"));
+
+        OutputBuffers outputBuffers = INITIAL_EMPTY_OUTPUT_BUFFERS
+                .withBuffer("out", new UnpartitionedPagePartitionFunction())
+                .withNoMoreBufferIds();
+
+        return new SqlStageExecution(new QueryId("query"),
+                locationFactory,
+                createBucketedJoinPlan(leftBuckets, rightBuckets),
+                nodeScheduler,
+                remoteTaskFactory,
+                SESSION,
+                2,      // splitBatchSize
+                8,      // initialHashPartitions
+                executor,
+                nodeTaskMap,
+                outputBuffers);
+    }
+
     private SqlStageExecution createSqlStageExecution(NodeScheduler nodeScheduler, int splitBatchSize, int splitCount)
     {
         ExecutorService remoteTaskExecutor = newCachedThreadPool(daemonThreadsNamed("remoteTaskExecutor"));
@@ -311,6 +386,49 @@ public class TestSqlStageExecution
         );
     }
 
+    private StageExecutionPlan createBucketedJoinPlan(List<Integer> leftBuckets, List<Integer> rightBuckets)
+    {
+        Symbol leftSymbol = new Symbol("left_column");
+        Symbol rightSymbol = new Symbol("right_column");
+        TableScanNode left = createTableScan("left", leftSymbol);
+        TableScanNode right = createTableScan("right", rightSymbol);
+
+        // both tables are read by the join fragment, one bucket at a time
+        PlanFragment joinFragment = new PlanFragment(
+                new PlanFragmentId("join"),
+                new JoinNode(new PlanNodeId("join"), JoinNode.Type.INNER, left, right, ImmutableList.of(new EquiJoinClause(leftSymbol, rightSymbol))),
+                ImmutableMap.<Symbol, Type>of(leftSymbol, VARCHAR, rightSymbol, VARCHAR),
+                PlanDistribution.BUCKETED,
+                left.getId(),
+                OutputPartitioning.NONE,
+                ImmutableList.<Symbol>of());
+
+        return new StageExecutionPlan(joinFragment,
+                Optional.<SplitSource>absent(),
+                ImmutableMap.of(left.getId(), createBucketedSplitSource(leftBuckets), right.getId(), createBucketedSplitSource(rightBuckets)),
+                ImmutableList.<StageExecutionPlan>of());
+    }
+
+    private static TableScanNode createTableScan(String planId, Symbol symbol)
+    {
+        return new TableScanNode(
+                new PlanNodeId(planId),
+                new TableHandle("test", new TestingTableHandle()),
+                ImmutableList.of(symbol),
+                ImmutableMap.of(symbol, new ColumnHandle("test", new TestingColumnHandle(symbol.getName()))),
+                null,
+                Optional.<GeneratedPartitions>absent());
+    }
+
+    private static SplitSource createBucketedSplitSource(List<Integer> buckets)
+    {
+        ImmutableList.Builder<ConnectorSplit> splits = ImmutableList.builder();
+        for (int bucket : buckets) {
+            splits.add(new TestingBucketedSplit(bucket));
+        }
+        return new ConnectorAwareSplitSource("test", new FixedSplitSource(null, splits.build()));
+    }
+
     private StageExecutionPlan createTableScanPlan(String planId, int splitCount)
     {
         Symbol symbol = new Symbol("column");
@@ -504,6 +622,11 @@ public class TestSqlStageExecution
             {
                 return 0;
             }
+
+            public synchronized Multimap<PlanNodeId, Split> getSplits()
+            {
+                return ImmutableMultimap.copyOf(splits);
+            }
         }
     }
 }
@@ -18,6 +18,7 @@ import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import org.testng.annotations.Test;
 
+import java.nio.file.Paths;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -34,11 +35,19 @@ public class TestTaskManagerConfig
         assertRecordedDefaults(recordDefaults(TaskManagerConfig.class)
                 .setTaskCpuTimerEnabled(true)
                 .setMaxShardProcessorThreads(Runtime.getRuntime().availableProcessors() * 4)
+                .setTaskConcurrency(1)
+                .setHashBuildConcurrency(1)
+                .setHashBuildThreads(Runtime.getRuntime().availableProcessors())
+                .setWriterCount(1)
                 .setInfoMaxAge(new Duration(15, TimeUnit.MINUTES))
                 .setClientTimeout(new Duration(5, TimeUnit.MINUTES))
                 .setMaxTaskMemoryUsage(new DataSize(256, Unit.MEGABYTE))
                 .setMaxTaskIndexMemoryUsage(new DataSize(64, Unit.MEGABYTE))
                 .setOperatorPreAllocatedMemory(new DataSize(16, Unit.MEGABYTE))
+                .setSpillEnabled(false)
+                .setDynamicFilteringEnabled(false)
+                .setDynamicFilteringMaxValues(10_000)
+                .setSpillPath(Paths.get(System.getProperty("java.io.tmpdir"), "presto", "spill").toString())
                 .setSinkMaxBufferSize(new DataSize(32, Unit.MEGABYTE)));
     }
 
@@ -51,6 +60,14 @@ public class TestTaskManagerConfig
                 .put("task.max-index-memory", "512MB")
                 .put("task.operator-pre-allocated-memory", "2MB")
                 .put("task.shard.max-threads", "3")
+                .put("task.concurrency", "8")
+                .put("task.hash-build-concurrency", "4")
+                .put("task.hash-build-threads", "6")
+                .put("task.writer-count", "3")
+                .put("task.spill-enabled", "true")
+                .put("task.spill-path", "/tmp/custom/spill")
+                .put("task.dynamic-filtering-enabled", "true")
+                .put("task.dynamic-filtering-max-values", "100")
                 .put("task.info.max-age", "22m")
                 .put("task.client.timeout", "10s")
                 .put("sink.max-buffer-size", "42MB")
@@ -62,6 +79,14 @@ public class TestTaskManagerConfig
                 .setMaxTaskIndexMemoryUsage(new DataSize(512, Unit.MEGABYTE))
                 .setOperatorPreAllocatedMemory(new DataSize(2, Unit.MEGABYTE))
                 .setMaxShardProcessorThreads(3)
+                .setTaskConcurrency(8)
+                .setHashBuildConcurrency(4)
+                .setHashBuildThreads(6)
+                .setWriterCount(3)
+                .setSpillEnabled(true)
+                .setSpillPath("/tmp/custom/spill")
+                .setDynamicFilteringEnabled(true)
+                .setDynamicFilteringMaxValues(100)
                 .setInfoMaxAge(new Duration(22, TimeUnit.MINUTES))
                 .setClientTimeout(new Duration(10, TimeUnit.SECONDS))
                 .setSinkMaxBufferSize(new DataSize(42, Unit.MEGABYTE));
@@ -0,0 +1,61 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.spi.ConnectorBucketedSplit;
+import com.facebook.presto.spi.HostAddress;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+public class TestingBucketedSplit
+        implements ConnectorBucketedSplit
+{
+    private final int bucket;
+
+    public TestingBucketedSplit(int bucket)
+    {
+        this.bucket = bucket;
+    }
+
+    @Override
+    public int getBucket()
+    {
+        return bucket;
+    }
+
+    @Override
+    public boolean isRemotelyAccessible()
+    {
+        return true;
+    }
+
+    @Override
+    public List<HostAddress> getAddresses()
+    {
+        return ImmutableList.of();
+    }
+
+    @Override
+    public Object getInfo()
+    {
+        return this;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "bucket " + bucket;
+    }
+}
@@ -14,16 +14,22 @@
 package com.facebook.presto.metadata;
 
 import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.ConnectorAggregate;
+import com.facebook.presto.spi.ConnectorAggregatedTable;
 import com.facebook.presto.spi.ConnectorColumnHandle;
 import com.facebook.presto.spi.ConnectorInsertTableHandle;
 import com.facebook.presto.spi.ConnectorMetadata;
 import com.facebook.presto.spi.ConnectorOutputTableHandle;
+import com.facebook.presto.spi.ConnectorPartition;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorTableHandle;
 import com.facebook.presto.spi.ConnectorTableMetadata;
+import com.facebook.presto.spi.ConnectorTablePartitioning;
+import com.facebook.presto.spi.ConnectorTableStatistics;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.SchemaTablePrefix;
+import com.facebook.presto.spi.TupleDomain;
 import com.facebook.presto.spi.ViewNotFoundException;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
@@ -96,6 +102,30 @@ public class TestingMetadata
         return null;
     }
 
+    @Override
+    public ConnectorTablePartitioning getTablePartitioning(ConnectorTableHandle tableHandle)
+    {
+        return null;
+    }
+
+    @Override
+    public ConnectorTableStatistics getTableStatistics(ConnectorTableHandle tableHandle, List<ConnectorPartition> partitions)
+    {
+        return ConnectorTableStatistics.UNKNOWN;
+    }
+
+    @Override
+    public ConnectorAggregatedTable pushDownAggregation(ConnectorTableHandle tableHandle, TupleDomain<ConnectorColumnHandle> constraint, List<ConnectorColumnHandle> groupingColumns, List<ConnectorAggregate> aggregates)
+    {
+        return null;
+    }
+
+    @Override
+    public ConnectorTableHandle pushDownLimit(ConnectorTableHandle tableHandle, long limit)
+    {
+        return null;
+    }
+
     @Override
     public boolean canCreateSampledTables(ConnectorSession session)
     {
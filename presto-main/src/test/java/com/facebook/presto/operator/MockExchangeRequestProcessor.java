@@ -15,6 +15,7 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.client.PrestoHeaders;
 import com.facebook.presto.serde.PagesSerde;
+import com.facebook.presto.spi.Page;
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableListMultimap;
 import io.airlift.http.client.HttpStatus;
@@ -127,14 +128,14 @@ public class MockExchangeRequestProcessor
         // add pages up to the size limit
         List<Page> responsePages = new ArrayList<>();
         responsePages.add(page);
-        long responseSize = page.getDataSize().toBytes();
+        long responseSize = page.getSizeInBytes();
         while (responseSize < maxSize.toBytes()) {
             page = pages.poll();
             if (page == null) {
                 break;
             }
             responsePages.add(page);
-            responseSize += page.getDataSize().toBytes();
+            responseSize += page.getSizeInBytes();
         }
 
         // update sequence id
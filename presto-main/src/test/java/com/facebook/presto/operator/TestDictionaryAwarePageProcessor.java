@@ -0,0 +1,184 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.block.dictionary.DictionaryEncodedBlock;
+import com.facebook.presto.block.rle.RunLengthEncodedBlock;
+import com.facebook.presto.metadata.FunctionRegistry;
+import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.metadata.OperatorType;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.facebook.presto.sql.gen.ExpressionCompiler;
+import com.facebook.presto.sql.relational.RowExpression;
+import com.facebook.presto.type.TypeRegistry;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Locale;
+
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
+import static com.facebook.presto.sql.relational.Expressions.call;
+import static com.facebook.presto.sql.relational.Expressions.constant;
+import static com.facebook.presto.sql.relational.Expressions.field;
+import static io.airlift.testing.Assertions.assertInstanceOf;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class TestDictionaryAwarePageProcessor
+{
+    private static final ConnectorSession SESSION = new ConnectorSession("user", "source", "catalog", "schema", UTC_KEY, Locale.ENGLISH, "address", "agent");
+
+    private final ExpressionCompiler compiler;
+    // x <> 0
+    private final RowExpression notZero;
+    // 10 / x
+    private final RowExpression tenDividedBy;
+
+    public TestDictionaryAwarePageProcessor()
+    {
+        MetadataManager metadata = new MetadataManager(new FeaturesConfig(), new TypeRegistry());
+        compiler = new ExpressionCompiler(metadata);
+
+        FunctionRegistry functionRegistry = metadata.getFunctionRegistry();
+        List<Type> bigints = ImmutableList.<Type>of(BIGINT, BIGINT);
+        notZero = call(functionRegistry.resolveOperator(OperatorType.NOT_EQUAL, bigints).getSignature(), BOOLEAN, field(0, BIGINT), constant(0L, BIGINT));
+        tenDividedBy = call(functionRegistry.resolveOperator(OperatorType.DIVIDE, bigints).getSignature(), BIGINT, constant(10L, BIGINT), field(0, BIGINT));
+    }
+
+    @Test
+    public void testDictionaryFilterAndProjection()
+    {
+        PageProcessor processor = compile(notZero, tenDividedBy);
+
+        // the filter removes the rows of entry 1, and entry 3 is not used, so 10 / 0 is never evaluated
+        Block dictionary = createLongsBlock(5L, 0L, 2L, 0L);
+        Page page = new Page(new DictionaryEncodedBlock(dictionary, createLongsBlock(0L, 1L, 2L, 1L, 0L)));
+
+        Page result = processor.processEncodedPage(SESSION, page);
+        assertEquals(result.getPositionCount(), 3);
+        assertInstanceOf(result.getBlock(0), DictionaryEncodedBlock.class);
+        assertLongs(result.getBlock(0), 2, 5, 2);
+    }
+
+    @Test
+    public void testDictionaryProjectionOfUsedEntries()
+    {
+        PageProcessor processor = compile(constant(true, BOOLEAN), tenDividedBy);
+
+        Page page = new Page(new DictionaryEncodedBlock(createLongsBlock(5L, 0L), createLongsBlock(0L, 0L, 0L)));
+
+        Page result = processor.processEncodedPage(SESSION, page);
+        assertEquals(result.getPositionCount(), 3);
+        assertInstanceOf(result.getBlock(0), DictionaryEncodedBlock.class);
+        assertLongs(result.getBlock(0), 2, 2, 2);
+    }
+
+    @Test
+    public void testDictionaryInputReference()
+    {
+        PageProcessor processor = compile(notZero, field(0, BIGINT));
+
+        Block dictionary = createLongsBlock(7L, 0L);
+        Page page = new Page(new DictionaryEncodedBlock(dictionary, createLongsBlock(0L, 1L, 0L)));
+
+        Page result = processor.processEncodedPage(SESSION, page);
+        assertEquals(result.getPositionCount(), 2);
+        assertLongs(result.getBlock(0), 7, 7);
+    }
+
+    @Test
+    public void testDictionaryFilterRemovesAllRows()
+    {
+        PageProcessor processor = compile(notZero, tenDividedBy);
+
+        Page page = new Page(new DictionaryEncodedBlock(createLongsBlock(0L, 5L), createLongsBlock(0L, 0L)));
+
+        Page result = processor.processEncodedPage(SESSION, page);
+        assertEquals(result.getPositionCount(), 0);
+    }
+
+    @Test
+    public void testNullIds()
+    {
+        // a null id is null regardless of the dictionary, so the page is processed position by position
+        PageProcessor processor = compile(constant(true, BOOLEAN), tenDividedBy);
+        Page page = new Page(new DictionaryEncodedBlock(createLongsBlock(5L), createLongsBlock(0L, null)));
+        assertNull(processor.processEncodedPage(SESSION, page));
+
+        processor = compile(notZero, field(0, BIGINT));
+        assertNull(processor.processEncodedPage(SESSION, page));
+
+        // references to the channel keep their null ids
+        processor = compile(constant(true, BOOLEAN), field(0, BIGINT));
+        Page result = processor.processEncodedPage(SESSION, page);
+        assertEquals(result.getPositionCount(), 2);
+        assertEquals(BIGINT.getLong(result.getBlock(0), 0), 5);
+        assertEquals(result.getBlock(0).isNull(1), true);
+    }
+
+    @Test(expectedExceptions = PrestoException.class)
+    public void testFailingProjection()
+    {
+        // the selected rows fail row by row as well
+        PageProcessor processor = compile(constant(true, BOOLEAN), tenDividedBy);
+        Page page = new Page(new DictionaryEncodedBlock(createLongsBlock(5L, 0L), createLongsBlock(0L, 1L)));
+        processor.processEncodedPage(SESSION, page);
+    }
+
+    @Test
+    public void testRunLengthEncoded()
+    {
+        PageProcessor processor = compile(notZero, tenDividedBy);
+
+        Page result = processor.processEncodedPage(SESSION, new Page(new RunLengthEncodedBlock(createLongsBlock(5L), 4)));
+        assertEquals(result.getPositionCount(), 4);
+        assertInstanceOf(result.getBlock(0), RunLengthEncodedBlock.class);
+        assertLongs(result.getBlock(0), 2, 2, 2, 2);
+
+        // the projection is not evaluated when the filter removes the run
+        result = processor.processEncodedPage(SESSION, new Page(new RunLengthEncodedBlock(createLongsBlock(0L), 4)));
+        assertEquals(result.getPositionCount(), 0);
+    }
+
+    @Test
+    public void testUnencodedPage()
+    {
+        PageProcessor processor = compile(notZero, tenDividedBy);
+        assertNull(processor.processEncodedPage(SESSION, new Page(createLongsBlock(5L, 0L))));
+    }
+
+    private PageProcessor compile(RowExpression filter, RowExpression projection)
+    {
+        PageProcessor processor = compiler.compileDictionaryAwarePageProcessor(filter, ImmutableList.of(projection));
+        assertInstanceOf(processor, DictionaryAwarePageProcessor.class);
+        return processor;
+    }
+
+    private static void assertLongs(Block block, long... expected)
+    {
+        assertEquals(block.getPositionCount(), expected.length);
+        for (int position = 0; position < expected.length; position++) {
+            assertEquals(BIGINT.getLong(block, position), expected[position]);
+        }
+    }
+}
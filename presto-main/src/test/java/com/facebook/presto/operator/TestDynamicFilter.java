@@ -0,0 +1,144 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.metadata.ColumnHandle;
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.Range;
+import com.facebook.presto.spi.SortedRangeSet;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.TestingColumnHandle;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static com.facebook.presto.operator.PageAssertions.assertPageEquals;
+import static com.facebook.presto.operator.RowPagesBuilder.rowPagesBuilder;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class TestDynamicFilter
+{
+    private static final ColumnHandle KEY = new ColumnHandle("test", new TestingColumnHandle("key"));
+    private static final ColumnHandle NAME = new ColumnHandle("test", new TestingColumnHandle("name"));
+    private static final List<Type> BUILD_TYPES = ImmutableList.<Type>of(VARCHAR, BIGINT);
+
+    @Test
+    public void testDistinctValues()
+    {
+        DynamicFilter dynamicFilter = new DynamicFilter(ImmutableList.of(KEY, NAME), ImmutableList.of(0, 1), 1, 10);
+        assertFalse(dynamicFilter.isReady());
+
+        publish(dynamicFilter, rowPagesBuilder(BUILD_TYPES)
+                .row("a", 3)
+                .row("b", null)
+                .row(null, 1)
+                .row("a", 3)
+                .build());
+
+        assertTrue(dynamicFilter.isReady());
+        assertEquals(dynamicFilter.getTupleDomain(), TupleDomain.withColumnDomains(ImmutableMap.of(
+                KEY, Domain.create(SortedRangeSet.of(Range.equal(1L), Range.equal(3L)), false),
+                NAME, Domain.create(SortedRangeSet.of(Range.equal(utf8Slice("a")), Range.equal(utf8Slice("b"))), false))));
+    }
+
+    @Test
+    public void testRange()
+    {
+        DynamicFilter dynamicFilter = new DynamicFilter(ImmutableList.of(KEY), ImmutableList.of(0), 1, 2);
+
+        publish(dynamicFilter, rowPagesBuilder(BUILD_TYPES)
+                .row("a", 5)
+                .row("b", 2)
+                .row("c", 9)
+                .build());
+
+        assertEquals(dynamicFilter.getTupleDomain(), TupleDomain.withColumnDomains(ImmutableMap.of(
+                KEY, Domain.create(SortedRangeSet.of(Range.range(2L, true, 9L, true)), false))));
+    }
+
+    @Test
+    public void testPartitions()
+    {
+        DynamicFilter dynamicFilter = new DynamicFilter(ImmutableList.of(KEY), ImmutableList.of(0), 2, 10);
+
+        publish(dynamicFilter, rowPagesBuilder(BUILD_TYPES).row("a", 1).build());
+        assertFalse(dynamicFilter.isReady());
+        assertFalse(dynamicFilter.isBlocked().isDone());
+
+        publish(dynamicFilter, rowPagesBuilder(BUILD_TYPES).row("b", 2).build());
+        assertTrue(dynamicFilter.isReady());
+        assertTrue(dynamicFilter.isBlocked().isDone());
+        assertEquals(dynamicFilter.getTupleDomain(), TupleDomain.withColumnDomains(ImmutableMap.of(
+                KEY, Domain.create(SortedRangeSet.of(Range.equal(1L), Range.equal(2L)), false))));
+    }
+
+    @Test
+    public void testEmptyBuild()
+    {
+        DynamicFilter dynamicFilter = new DynamicFilter(ImmutableList.of(KEY), ImmutableList.of(0), 1, 10);
+
+        publish(dynamicFilter, rowPagesBuilder(BUILD_TYPES).row("a", null).build());
+
+        assertTrue(dynamicFilter.getTupleDomain().isNone());
+    }
+
+    @Test
+    public void testPageFilter()
+    {
+        DynamicFilter dynamicFilter = new DynamicFilter(ImmutableList.of(KEY), ImmutableList.of(0), 1, 10);
+        publish(dynamicFilter, rowPagesBuilder(BUILD_TYPES)
+                .row("a", 1)
+                .row("b", 3)
+                .build());
+
+        List<Type> probeTypes = ImmutableList.<Type>of(VARCHAR, BIGINT);
+        DynamicPageFilter pageFilter = new DynamicPageFilter(dynamicFilter.getTupleDomain(), ImmutableMap.of(KEY, 1), probeTypes);
+
+        Page page = rowPagesBuilder(probeTypes)
+                .row("w", 1)
+                .row("x", 2)
+                .row("y", null)
+                .row("z", 3)
+                .build()
+                .get(0);
+        Page expected = rowPagesBuilder(probeTypes)
+                .row("w", 1)
+                .row("z", 3)
+                .build()
+                .get(0);
+        assertPageEquals(probeTypes, pageFilter.filter(page), expected);
+
+        Page unmatched = rowPagesBuilder(probeTypes).row("x", 2).build().get(0);
+        assertNull(pageFilter.filter(unmatched));
+    }
+
+    private static void publish(DynamicFilter dynamicFilter, List<Page> pages)
+    {
+        DynamicFilterCollector collector = new DynamicFilterCollector(dynamicFilter, BUILD_TYPES, ImmutableList.of(1, 0));
+        for (Page page : pages) {
+            collector.add(page);
+        }
+        collector.publish();
+    }
+}
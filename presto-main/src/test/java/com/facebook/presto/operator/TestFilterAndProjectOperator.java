@@ -13,8 +13,10 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.block.rle.RunLengthEncodedBlock;
 import com.facebook.presto.execution.TaskId;
 import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.RecordCursor;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
@@ -29,7 +31,9 @@ import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.ExecutorService;
 
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
 import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEquals;
+import static com.facebook.presto.operator.OperatorAssertion.toPages;
 import static com.facebook.presto.operator.ProjectionFunctions.singleColumn;
 import static com.facebook.presto.operator.RowPagesBuilder.rowPagesBuilder;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
@@ -37,6 +41,7 @@ import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertEquals;
 
 @Test(singleThreaded = true)
 public class TestFilterAndProjectOperator
@@ -107,6 +112,45 @@ public class TestFilterAndProjectOperator
         assertOperatorEquals(operator, input, expected);
     }
 
+    @Test
+    public void testEncodedPagesKeepOrder()
+            throws Exception
+    {
+        // passes run length encoded pages through, and copies the positions of other pages
+        PageProcessor processor = new PageProcessor()
+        {
+            @Override
+            public int process(ConnectorSession session, Page page, int start, int end, PageBuilder pageBuilder)
+            {
+                for (int position = start; position < end; position++) {
+                    BIGINT.appendTo(page.getBlock(0), position, pageBuilder.getBlockBuilder(0));
+                    pageBuilder.declarePosition();
+                }
+                return end;
+            }
+
+            @Override
+            public Page processEncodedPage(ConnectorSession session, Page page)
+            {
+                return page.getBlock(0) instanceof RunLengthEncodedBlock ? page : null;
+            }
+        };
+        Operator operator = new FilterAndProjectOperator(driverContext.addOperatorContext(0, "test"), ImmutableList.of(BIGINT), processor);
+
+        List<Page> input = ImmutableList.of(
+                new Page(createLongsBlock(1L, 2L)),
+                new Page(new RunLengthEncodedBlock(createLongsBlock(3L), 2)),
+                new Page(createLongsBlock(4L)));
+
+        ImmutableList.Builder<Long> values = ImmutableList.builder();
+        for (Page page : toPages(operator, input)) {
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                values.add(BIGINT.getLong(page.getBlock(0), position));
+            }
+        }
+        assertEquals(values.build(), ImmutableList.of(1L, 2L, 3L, 3L, 4L));
+    }
+
     private static class Add5Projection
             implements ProjectionFunction
     {
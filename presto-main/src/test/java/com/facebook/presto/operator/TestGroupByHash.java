@@ -14,6 +14,13 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.block.BlockAssertions;
+import com.facebook.presto.block.dictionary.DictionaryEncodedBlock;
+import com.facebook.presto.block.rle.RunLengthEncodedBlock;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import org.testng.annotations.Test;
 
@@ -28,7 +35,7 @@ public class TestGroupByHash
     public void test()
             throws Exception
     {
-        GroupByHash groupByHash = new GroupByHash(ImmutableList.of(BIGINT), new int[] {0}, 100);
+        GroupByHash groupByHash = new MultiChannelGroupByHash(ImmutableList.of(BIGINT), new int[] {0}, 100);
         for (int tries = 0; tries < 2; tries++) {
             for (int value = 0; value < MAX_GROUP_ID; value++) {
                 Page page = new Page(BlockAssertions.createLongsBlock(value));
@@ -42,4 +49,126 @@ public class TestGroupByHash
             }
         }
     }
+
+    @Test
+    public void testPrecomputedHash()
+            throws Exception
+    {
+        Block values = BlockAssertions.createLongSequenceBlock(0, MAX_GROUP_ID);
+        BlockBuilder hashes = BIGINT.createBlockBuilder(new BlockBuilderStatus());
+        for (int position = 0; position < values.getPositionCount(); position++) {
+            BIGINT.writeLong(hashes, BIGINT.hash(values, position));
+        }
+        Page page = new Page(values, hashes.build());
+
+        GroupByHash groupByHash = new MultiChannelGroupByHash(ImmutableList.of(BIGINT), new int[] {0}, Optional.of(1), 100);
+        GroupByHash expectedGroupByHash = new MultiChannelGroupByHash(ImmutableList.of(BIGINT), new int[] {0}, 100);
+        assertEquals(groupByHash.getTypes(), ImmutableList.of(BIGINT, BIGINT));
+
+        for (int tries = 0; tries < 2; tries++) {
+            GroupByIdBlock groupIds = groupByHash.getGroupIds(page);
+            GroupByIdBlock expectedGroupIds = expectedGroupByHash.getGroupIds(page);
+            assertEquals(groupIds.getGroupCount(), MAX_GROUP_ID);
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                assertEquals(groupIds.getGroupId(position), expectedGroupIds.getGroupId(position));
+            }
+        }
+
+        // the precomputed hash is output after the group by values
+        PageBuilder pageBuilder = new PageBuilder(groupByHash.getTypes());
+        for (int groupId = 0; groupId < groupByHash.getGroupCount(); groupId++) {
+            groupByHash.appendValuesTo(groupId, pageBuilder, 0);
+        }
+        Page output = pageBuilder.build();
+        for (int position = 0; position < output.getPositionCount(); position++) {
+            long value = BIGINT.getLong(output.getBlock(0), position);
+            assertEquals(BIGINT.getLong(output.getBlock(1), position), (long) BIGINT.hash(values, (int) value));
+        }
+    }
+
+    @Test
+    public void testBigintGroupByHash()
+            throws Exception
+    {
+        GroupByHash groupByHash = new BigintGroupByHash(BIGINT, 0, Optional.<Integer>absent(), 100);
+        GroupByHash expectedGroupByHash = new MultiChannelGroupByHash(ImmutableList.of(BIGINT), new int[] {0}, 100);
+
+        // enough distinct values to force a few rehashes, plus nulls
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus());
+        for (int value = 0; value < MAX_GROUP_ID * 10; value++) {
+            if (value % 7 == 0) {
+                blockBuilder.appendNull();
+            }
+            else {
+                BIGINT.writeLong(blockBuilder, value % (MAX_GROUP_ID * 5));
+            }
+        }
+        Page page = new Page(blockBuilder.build());
+
+        GroupByIdBlock groupIds = groupByHash.getGroupIds(page);
+        GroupByIdBlock expectedGroupIds = expectedGroupByHash.getGroupIds(page);
+        assertEquals(groupIds.getGroupCount(), expectedGroupIds.getGroupCount());
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            assertEquals(groupIds.getGroupId(position), expectedGroupIds.getGroupId(position));
+            assertEquals(groupByHash.contains(position, page.getBlock(0)), true);
+        }
+        assertEquals(groupByHash.contains(0, BlockAssertions.createLongsBlock(-1)), false);
+
+        PageBuilder pageBuilder = new PageBuilder(groupByHash.getTypes());
+        PageBuilder expectedPageBuilder = new PageBuilder(expectedGroupByHash.getTypes());
+        for (int groupId = 0; groupId < groupByHash.getGroupCount(); groupId++) {
+            groupByHash.appendValuesTo(groupId, pageBuilder, 0);
+            expectedGroupByHash.appendValuesTo(groupId, expectedPageBuilder, 0);
+        }
+        PageAssertions.assertPageEquals(groupByHash.getTypes(), pageBuilder.build(), expectedPageBuilder.build());
+    }
+
+    @Test
+    public void testEncodedBlocks()
+            throws Exception
+    {
+        assertEncodedGroupIds(new BigintGroupByHash(BIGINT, 0, Optional.<Integer>absent(), 100), new BigintGroupByHash(BIGINT, 0, Optional.<Integer>absent(), 100));
+        assertEncodedGroupIds(new MultiChannelGroupByHash(ImmutableList.of(BIGINT), new int[] {0}, 100), new MultiChannelGroupByHash(ImmutableList.of(BIGINT), new int[] {0}, 100));
+    }
+
+    private static void assertEncodedGroupIds(GroupByHash groupByHash, GroupByHash expectedGroupByHash)
+    {
+        Block dictionary = BlockAssertions.createLongsBlock(7L, null, 3L, 5L);
+
+        // ids repeat dictionary entries and include a null id
+        BlockBuilder idBlockBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus());
+        BlockBuilder valueBlockBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus());
+        for (int position = 0; position < 20; position++) {
+            if (position % 9 == 8) {
+                idBlockBuilder.appendNull();
+                valueBlockBuilder.appendNull();
+            }
+            else {
+                int id = (position * 3) % dictionary.getPositionCount();
+                BIGINT.writeLong(idBlockBuilder, id);
+                if (dictionary.isNull(id)) {
+                    valueBlockBuilder.appendNull();
+                }
+                else {
+                    BIGINT.writeLong(valueBlockBuilder, BIGINT.getLong(dictionary, id));
+                }
+            }
+        }
+        assertSameGroupIds(groupByHash, new Page(new DictionaryEncodedBlock(dictionary, idBlockBuilder.build())), expectedGroupByHash, new Page(valueBlockBuilder.build()));
+
+        // a run of a new value and a run of an existing value
+        assertSameGroupIds(groupByHash, new Page(new RunLengthEncodedBlock(BlockAssertions.createLongsBlock(11L), 5)), expectedGroupByHash, new Page(BlockAssertions.createLongsBlock(11L, 11L, 11L, 11L, 11L)));
+        assertSameGroupIds(groupByHash, new Page(new RunLengthEncodedBlock(BlockAssertions.createLongsBlock(3L), 3)), expectedGroupByHash, new Page(BlockAssertions.createLongsBlock(3L, 3L, 3L)));
+    }
+
+    private static void assertSameGroupIds(GroupByHash groupByHash, Page page, GroupByHash expectedGroupByHash, Page expectedPage)
+    {
+        GroupByIdBlock groupIds = groupByHash.getGroupIds(page);
+        GroupByIdBlock expectedGroupIds = expectedGroupByHash.getGroupIds(expectedPage);
+        assertEquals(groupIds.getPositionCount(), expectedGroupIds.getPositionCount());
+        assertEquals(groupIds.getGroupCount(), expectedGroupIds.getGroupCount());
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            assertEquals(groupIds.getGroupId(position), expectedGroupIds.getGroupId(position));
+        }
+    }
 }
@@ -15,15 +15,19 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.ExceededMemoryLimitException;
 import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.execution.TaskStateMachine;
 import com.facebook.presto.operator.HashAggregationOperator.HashAggregationOperatorFactory;
 import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.sql.planner.plan.AggregationNode.Step;
 import com.facebook.presto.testing.MaterializedResult;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
 import com.google.common.primitives.Ints;
 import io.airlift.slice.Slices;
 import io.airlift.units.DataSize;
@@ -32,6 +36,7 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.io.File;
 import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.ExecutorService;
@@ -51,11 +56,13 @@ import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
 import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
+import static com.facebook.presto.testing.TestingBlockEncodingManager.createTestingBlockEncodingManager;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.slice.SizeOf.SIZE_OF_DOUBLE;
 import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestHashAggregationOperator
@@ -150,6 +157,54 @@ public class TestHashAggregationOperator
         toPages(operator, input);
     }
 
+    @Test
+    public void testSpillToDisk()
+            throws Exception
+    {
+        int groupCount = 50_000;
+        List<Page> input = rowPagesBuilder(BIGINT, BIGINT)
+                .addSequencePage(groupCount, 0, 0)
+                .addSequencePage(groupCount, 0, 0)
+                .addSequencePage(groupCount, 0, 0)
+                .addSequencePage(groupCount, 0, 0)
+                .build();
+
+        // no pre-allocated memory, so the 50K groups of a single page can not fit in the task memory
+        ConnectorSession session = new ConnectorSession("user", "source", "catalog", "schema", UTC_KEY, Locale.ENGLISH, "address", "agent");
+        TaskStateMachine taskStateMachine = new TaskStateMachine(new TaskId("query", "stage", "task"), executor);
+        DriverContext driverContext = new TaskContext(taskStateMachine, executor, session, new DataSize(1, Unit.MEGABYTE), new DataSize(0, Unit.BYTE), true)
+                .addPipelineContext(true, true)
+                .addDriverContext();
+
+        File spillPath = Files.createTempDir();
+        try {
+            HashAggregationOperatorFactory operatorFactory = new HashAggregationOperatorFactory(
+                    0,
+                    ImmutableList.of(BIGINT),
+                    Ints.asList(0),
+                    Step.SINGLE,
+                    ImmutableList.of(COUNT.bind(ImmutableList.of(0), Optional.<Integer>absent(), Optional.<Integer>absent(), 1.0),
+                            LONG_SUM.bind(ImmutableList.of(1), Optional.<Integer>absent(), Optional.<Integer>absent(), 1.0)),
+                    100,
+                    Optional.of(new SpillerFactory(createTestingBlockEncodingManager(), spillPath.toPath())));
+
+            Operator operator = operatorFactory.createOperator(driverContext);
+
+            MaterializedResult.Builder expected = resultBuilder(driverContext.getSession(), BIGINT, BIGINT, BIGINT);
+            for (int i = 0; i < groupCount; i++) {
+                expected.row((long) i, 4L, 4L * i);
+            }
+
+            assertOperatorEqualsIgnoreOrder(operator, input, expected.build());
+
+            // spill files are removed once the output is consumed
+            assertEquals(spillPath.list().length, 0);
+        }
+        finally {
+            assertTrue(spillPath.delete());
+        }
+    }
+
     @Test
     public void testHashBuilderResize()
     {
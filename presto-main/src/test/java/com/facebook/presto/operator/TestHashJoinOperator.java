@@ -14,31 +14,45 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.ExceededMemoryLimitException;
+import com.facebook.presto.execution.HashBuildExecutor;
 import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.execution.TaskStateMachine;
 import com.facebook.presto.operator.HashBuilderOperator.HashBuilderOperatorFactory;
 import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.testing.MaterializedResult;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
 import com.google.common.primitives.Ints;
 import io.airlift.units.DataSize;
+import io.airlift.units.DataSize.Unit;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.io.Closeable;
+import java.io.File;
 import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.ExecutorService;
 
 import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEquals;
+import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEqualsIgnoreOrder;
 import static com.facebook.presto.operator.RowPagesBuilder.rowPagesBuilder;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.testing.TestingBlockEncodingManager.createTestingBlockEncodingManager;
 import static com.google.common.collect.Iterables.concat;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.units.DataSize.Unit.BYTE;
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestHashJoinOperator
@@ -110,6 +124,62 @@ public class TestHashJoinOperator
         assertOperatorEquals(joinOperator, probeInput, expected);
     }
 
+    @Test
+    public void testPartitionedInnerJoin()
+            throws Exception
+    {
+        // build rows are hash partitioned over two build drivers through a local exchange
+        List<Type> buildTypes = ImmutableList.<Type>of(VARCHAR, BIGINT, BIGINT);
+        InMemoryExchange exchange = new InMemoryExchange(buildTypes, 2, Optional.<List<Integer>>of(Ints.asList(0)));
+        for (Page page : rowPagesBuilder(buildTypes).addSequencePage(10, 20, 30, 40).build()) {
+            exchange.addPage(page);
+        }
+        exchange.finish();
+
+        HashBuilderOperatorFactory hashBuilderOperatorFactory = new HashBuilderOperatorFactory(1, buildTypes, Ints.asList(0), 100, 2);
+        for (int partition = 0; partition < 2; partition++) {
+            DriverContext driverContext = taskContext.addPipelineContext(false, false).addDriverContext();
+            OperatorContext operatorContext = driverContext.addOperatorContext(0, InMemoryExchangeSourceOperator.class.getSimpleName());
+            Operator exchangeSource = new InMemoryExchangeSourceOperator(operatorContext, exchange, partition);
+            Operator sourceHashProvider = hashBuilderOperatorFactory.createOperator(driverContext);
+
+            Driver driver = new Driver(driverContext, exchangeSource, sourceHashProvider);
+            while (!driver.isFinished()) {
+                driver.process();
+            }
+        }
+        assertTrue(hashBuilderOperatorFactory.getLookupSourceSupplier().getLookupSource(null).isDone());
+
+        // probe
+        List<Type> probeTypes = ImmutableList.<Type>of(VARCHAR, BIGINT, BIGINT);
+        List<Page> probeInput = rowPagesBuilder(probeTypes)
+                .addSequencePage(1000, 0, 1000, 2000)
+                .build();
+        OperatorFactory joinOperatorFactory = LookupJoinOperators.innerJoin(
+                0,
+                hashBuilderOperatorFactory.getLookupSourceSupplier(),
+                probeTypes,
+                Ints.asList(0));
+
+        Operator joinOperator = joinOperatorFactory.createOperator(taskContext.addPipelineContext(true, true).addDriverContext());
+
+        // expected
+        MaterializedResult expected = MaterializedResult.resultBuilder(taskContext.getSession(), concat(probeTypes, buildTypes))
+                .row("20", 1020, 2020, "20", 30, 40)
+                .row("21", 1021, 2021, "21", 31, 41)
+                .row("22", 1022, 2022, "22", 32, 42)
+                .row("23", 1023, 2023, "23", 33, 43)
+                .row("24", 1024, 2024, "24", 34, 44)
+                .row("25", 1025, 2025, "25", 35, 45)
+                .row("26", 1026, 2026, "26", 36, 46)
+                .row("27", 1027, 2027, "27", 37, 47)
+                .row("28", 1028, 2028, "28", 38, 48)
+                .row("29", 1029, 2029, "29", 39, 49)
+                .build();
+
+        assertOperatorEquals(joinOperator, probeInput, expected);
+    }
+
     @Test
     public void testInnerJoinWithNullProbe()
             throws Exception
@@ -461,6 +531,194 @@ public class TestHashJoinOperator
         assertOperatorEquals(joinOperator, probeInput, expected);
     }
 
+    @Test
+    public void testParallelHashBuild()
+            throws Exception
+    {
+        // build: enough rows for the hash table to be built as four partitions, on fewer threads
+        DriverContext driverContext = taskContext.addPipelineContext(true, true).addDriverContext();
+        OperatorContext operatorContext = driverContext.addOperatorContext(0, ValuesOperator.class.getSimpleName());
+        List<Type> buildTypes = ImmutableList.<Type>of(BIGINT, BIGINT);
+        Operator buildOperator = new ValuesOperator(operatorContext, buildTypes, rowPagesBuilder(buildTypes)
+                .addSequencePage(25_000, 0, 0)
+                .addSequencePage(25_000, 25_000, 25_000)
+                .addSequencePage(25_000, 50_000, 50_000)
+                .addSequencePage(25_000, 75_000, 75_000)
+                .build());
+        HashBuildExecutor hashBuildExecutor = new HashBuildExecutor(2);
+        HashBuilderOperatorFactory hashBuilderOperatorFactory = new HashBuilderOperatorFactory(1, buildOperator.getTypes(), Ints.asList(0), 100, Optional.<SpillerFactory>absent(), 4, hashBuildExecutor);
+        try {
+            Operator sourceHashProvider = hashBuilderOperatorFactory.createOperator(driverContext);
+
+            // the driver is not held while the partitions are built, but waits on the build instead
+            Driver driver = new Driver(driverContext, buildOperator, sourceHashProvider);
+            while (!driver.isFinished()) {
+                driver.process().get();
+            }
+        }
+        finally {
+            hashBuildExecutor.stop();
+        }
+        assertTrue(hashBuilderOperatorFactory.getLookupSourceSupplier().getLookupSource(null).get() instanceof PartitionedLookupSource);
+
+        // probe
+        List<Type> probeTypes = ImmutableList.<Type>of(BIGINT, BIGINT);
+        List<Page> probeInput = rowPagesBuilder(probeTypes)
+                .addSequencePage(2000, 99_000, 0)
+                .build();
+        OperatorFactory joinOperatorFactory = LookupJoinOperators.innerJoin(
+                0,
+                hashBuilderOperatorFactory.getLookupSourceSupplier(),
+                probeTypes,
+                Ints.asList(0));
+
+        Operator joinOperator = joinOperatorFactory.createOperator(taskContext.addPipelineContext(true, true).addDriverContext());
+
+        // expected
+        MaterializedResult.Builder expected = MaterializedResult.resultBuilder(taskContext.getSession(), concat(probeTypes, buildTypes));
+        for (long key = 99_000; key < 100_000; key++) {
+            expected.row(key, key - 99_000, key, key);
+        }
+
+        assertOperatorEquals(joinOperator, probeInput, expected.build());
+    }
+
+    @Test
+    public void testSpilledInnerJoin()
+            throws Exception
+    {
+        // no pre-allocated memory, so the 100K build rows can not fit in the task memory
+        ConnectorSession session = new ConnectorSession("user", "source", "catalog", "schema", UTC_KEY, Locale.ENGLISH, "address", "agent");
+        TaskStateMachine taskStateMachine = new TaskStateMachine(new TaskId("query", "stage", "task"), executor);
+        TaskContext spillTaskContext = new TaskContext(taskStateMachine, executor, session, new DataSize(1, Unit.MEGABYTE), new DataSize(0, Unit.BYTE), true);
+
+        File spillPath = Files.createTempDir();
+        try {
+            Optional<SpillerFactory> spillerFactory = Optional.of(new SpillerFactory(createTestingBlockEncodingManager(), spillPath.toPath()));
+
+            // build
+            DriverContext driverContext = spillTaskContext.addPipelineContext(true, true).addDriverContext();
+            OperatorContext operatorContext = driverContext.addOperatorContext(0, ValuesOperator.class.getSimpleName());
+            List<Type> buildTypes = ImmutableList.<Type>of(BIGINT, BIGINT);
+            Operator buildOperator = new ValuesOperator(operatorContext, buildTypes, rowPagesBuilder(buildTypes)
+                    .addSequencePage(25_000, 0, 0)
+                    .addSequencePage(25_000, 25_000, 25_000)
+                    .addSequencePage(25_000, 50_000, 50_000)
+                    .addSequencePage(25_000, 75_000, 75_000)
+                    .build());
+            HashBuilderOperatorFactory hashBuilderOperatorFactory = new HashBuilderOperatorFactory(1, buildOperator.getTypes(), Ints.asList(0), 100, spillerFactory);
+            Operator sourceHashProvider = hashBuilderOperatorFactory.createOperator(driverContext);
+
+            Driver driver = new Driver(driverContext, buildOperator, sourceHashProvider);
+            while (!driver.isFinished()) {
+                driver.process();
+            }
+
+            // probe
+            List<Type> probeTypes = ImmutableList.<Type>of(BIGINT, BIGINT);
+            List<Page> probeInput = rowPagesBuilder(probeTypes)
+                    .addSequencePage(2000, 99_000, 0)
+                    .build();
+            OperatorFactory joinOperatorFactory = LookupJoinOperators.innerJoin(
+                    0,
+                    hashBuilderOperatorFactory.getLookupSourceSupplier(),
+                    probeTypes,
+                    Ints.asList(0));
+
+            Operator joinOperator = joinOperatorFactory.createOperator(spillTaskContext.addPipelineContext(true, true).addDriverContext());
+
+            // expected
+            MaterializedResult.Builder expected = MaterializedResult.resultBuilder(spillTaskContext.getSession(), concat(probeTypes, buildTypes));
+            for (long key = 99_000; key < 100_000; key++) {
+                expected.row(key, key - 99_000, key, key);
+            }
+
+            assertOperatorEqualsIgnoreOrder(joinOperator, probeInput, expected.build());
+
+            // spill files are removed once all users of the build side are done
+            ((Closeable) joinOperator).close();
+            joinOperatorFactory.close();
+            assertEquals(spillPath.list().length, 0);
+        }
+        finally {
+            assertTrue(spillPath.delete());
+        }
+    }
+
+    @Test
+    public void testSpilledOuterJoin()
+            throws Exception
+    {
+        // no pre-allocated memory, so the 100K build rows can not fit in the task memory
+        ConnectorSession session = new ConnectorSession("user", "source", "catalog", "schema", UTC_KEY, Locale.ENGLISH, "address", "agent");
+        TaskStateMachine taskStateMachine = new TaskStateMachine(new TaskId("query", "stage", "task"), executor);
+        TaskContext spillTaskContext = new TaskContext(taskStateMachine, executor, session, new DataSize(1, Unit.MEGABYTE), new DataSize(0, Unit.BYTE), true);
+
+        File spillPath = Files.createTempDir();
+        try {
+            Optional<SpillerFactory> spillerFactory = Optional.of(new SpillerFactory(createTestingBlockEncodingManager(), spillPath.toPath()));
+
+            // build
+            DriverContext driverContext = spillTaskContext.addPipelineContext(true, true).addDriverContext();
+            OperatorContext operatorContext = driverContext.addOperatorContext(0, ValuesOperator.class.getSimpleName());
+            List<Type> buildTypes = ImmutableList.<Type>of(BIGINT, BIGINT);
+            Operator buildOperator = new ValuesOperator(operatorContext, buildTypes, rowPagesBuilder(buildTypes)
+                    .addSequencePage(25_000, 0, 0)
+                    .addSequencePage(25_000, 25_000, 25_000)
+                    .addSequencePage(25_000, 50_000, 50_000)
+                    .addSequencePage(25_000, 75_000, 75_000)
+                    .build());
+            HashBuilderOperatorFactory hashBuilderOperatorFactory = new HashBuilderOperatorFactory(1, buildOperator.getTypes(), Ints.asList(0), 100, spillerFactory);
+            Operator sourceHashProvider = hashBuilderOperatorFactory.createOperator(driverContext);
+
+            Driver driver = new Driver(driverContext, buildOperator, sourceHashProvider);
+            while (!driver.isFinished()) {
+                driver.process();
+            }
+            LookupSourceSupplier lookupSourceSupplier = hashBuilderOperatorFactory.getLookupSourceSupplier();
+            assertTrue(lookupSourceSupplier.getSpilledPartitions().get().isPresent());
+            assertFalse(lookupSourceSupplier.getLookupSource(null).isDone());
+
+            // probe: half of the keys match, and the other half and the null keys spread over all partitions
+            List<Type> probeTypes = ImmutableList.<Type>of(BIGINT, BIGINT);
+            List<Page> probeInput = rowPagesBuilder(probeTypes)
+                    .addSequencePage(2000, 99_000, 0)
+                    .row(null, 2000L)
+                    .row(null, 2001L)
+                    .build();
+
+            // a right join is planned as an outer join with the sides swapped, so this covers both
+            OperatorFactory joinOperatorFactory = LookupJoinOperators.outerJoin(
+                    0,
+                    lookupSourceSupplier,
+                    probeTypes,
+                    Ints.asList(0));
+
+            Operator joinOperator = joinOperatorFactory.createOperator(spillTaskContext.addPipelineContext(true, true).addDriverContext());
+
+            // expected: every probe row exactly once, and none of the unmatched build rows
+            MaterializedResult.Builder expected = MaterializedResult.resultBuilder(spillTaskContext.getSession(), concat(probeTypes, buildTypes));
+            for (long key = 99_000; key < 100_000; key++) {
+                expected.row(key, key - 99_000, key, key);
+            }
+            for (long key = 100_000; key < 101_000; key++) {
+                expected.row(key, key - 99_000, null, null);
+            }
+            expected.row(null, 2000L, null, null);
+            expected.row(null, 2001L, null, null);
+
+            assertOperatorEqualsIgnoreOrder(joinOperator, probeInput, expected.build());
+
+            // spill files are removed once all users of the build side are done
+            ((Closeable) joinOperator).close();
+            joinOperatorFactory.close();
+            assertEquals(spillPath.list().length, 0);
+        }
+        finally {
+            assertTrue(spillPath.delete());
+        }
+    }
+
     @Test(expectedExceptions = ExceededMemoryLimitException.class, expectedExceptionsMessageRegExp = "Task exceeded max memory size.*")
     public void testMemoryLimit()
             throws Exception
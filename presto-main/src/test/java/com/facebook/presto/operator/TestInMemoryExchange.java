@@ -0,0 +1,95 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringsBlock;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestInMemoryExchange
+{
+    private static final List<Type> TYPES = ImmutableList.<Type>of(BIGINT, VARCHAR);
+
+    @Test
+    public void testPartitionedPages()
+    {
+        InMemoryExchange exchange = new InMemoryExchange(TYPES, 3, Optional.<List<Integer>>of(ImmutableList.of(0)));
+        exchange.addPage(new Page(createLongSequenceBlock(0, 1000), createStringSequenceBlock(0, 1000)));
+
+        LocalPartitionFunction partitionFunction = new LocalPartitionFunction(ImmutableList.of(BIGINT), 3);
+        int rows = 0;
+        for (int buffer = 0; buffer < 3; buffer++) {
+            Page page = exchange.removePage(buffer);
+            assertNull(exchange.removePage(buffer));
+
+            // rows keep their input order within a partition
+            long previous = -1;
+            Block keys = page.getBlock(0);
+            Block values = page.getBlock(1);
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                long key = BIGINT.getLong(keys, position);
+                assertEquals(partitionFunction.getPartition(position, keys), buffer);
+                assertEquals(VARCHAR.getSlice(values, position).toStringUtf8(), String.valueOf(key));
+                assertTrue(key > previous);
+                previous = key;
+            }
+            rows += page.getPositionCount();
+        }
+        assertEquals(rows, 1000);
+    }
+
+    @Test
+    public void testSinglePartitionPage()
+    {
+        InMemoryExchange exchange = new InMemoryExchange(TYPES, 3, Optional.<List<Integer>>of(ImmutableList.of(0)));
+        Page page = new Page(createLongsBlock(7L, 7L, 7L), createStringsBlock("a", "b", "c"));
+        exchange.addPage(page);
+
+        // a page with the rows of a single partition is passed on as is
+        int partition = new LocalPartitionFunction(ImmutableList.of(BIGINT), 3).getPartition(0, page.getBlock(0));
+        for (int buffer = 0; buffer < 3; buffer++) {
+            if (buffer == partition) {
+                assertSame(exchange.removePage(buffer), page);
+            }
+            assertNull(exchange.removePage(buffer));
+        }
+    }
+
+    @Test
+    public void testEmptyPage()
+    {
+        InMemoryExchange exchange = new InMemoryExchange(TYPES, 3, Optional.<List<Integer>>of(ImmutableList.of(0)));
+        exchange.addPage(new Page(createLongsBlock(ImmutableList.<Long>of()), createStringsBlock(ImmutableList.<String>of())));
+
+        for (int buffer = 0; buffer < 3; buffer++) {
+            assertNull(exchange.removePage(buffer));
+        }
+    }
+}
@@ -16,15 +16,21 @@ package com.facebook.presto.operator;
 import com.facebook.presto.ExceededMemoryLimitException;
 import com.facebook.presto.execution.TaskId;
 import com.facebook.presto.operator.OrderByOperator.OrderByOperatorFactory;
+import com.facebook.presto.execution.TaskStateMachine;
 import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.testing.MaterializedResult;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
 import io.airlift.units.DataSize;
 import io.airlift.units.DataSize.Unit;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.io.File;
 import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.ExecutorService;
@@ -39,8 +45,11 @@ import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
 import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
+import static com.facebook.presto.testing.TestingBlockEncodingManager.createTestingBlockEncodingManager;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestOrderByOperator
@@ -160,6 +169,52 @@ public class TestOrderByOperator
         assertOperatorEquals(operator, input, expected);
     }
 
+    @Test
+    public void testSpillToDisk()
+            throws Exception
+    {
+        List<Page> input = rowPagesBuilder(BIGINT)
+                .addSequencePage(50_000, 150_000)
+                .addSequencePage(50_000, 0)
+                .addSequencePage(50_000, 100_000)
+                .addSequencePage(50_000, 50_000)
+                .build();
+
+        // no pre-allocated memory, so the 200K rows can not be sorted in memory
+        ConnectorSession session = new ConnectorSession("user", "source", "catalog", "schema", UTC_KEY, Locale.ENGLISH, "address", "agent");
+        TaskStateMachine taskStateMachine = new TaskStateMachine(new TaskId("query", "stage", "task"), executor);
+        DriverContext driverContext = new TaskContext(taskStateMachine, executor, session, new DataSize(1, Unit.MEGABYTE), new DataSize(0, Unit.BYTE), true)
+                .addPipelineContext(true, true)
+                .addDriverContext();
+
+        File spillPath = Files.createTempDir();
+        try {
+            OrderByOperatorFactory operatorFactory = new OrderByOperatorFactory(
+                    0,
+                    ImmutableList.of(BIGINT),
+                    ImmutableList.of(0),
+                    10,
+                    ImmutableList.of(0),
+                    ImmutableList.of(DESC_NULLS_LAST),
+                    Optional.of(new SpillerFactory(createTestingBlockEncodingManager(), spillPath.toPath())));
+
+            Operator operator = operatorFactory.createOperator(driverContext);
+
+            MaterializedResult.Builder expected = resultBuilder(driverContext.getSession(), BIGINT);
+            for (long value = 199_999; value >= 0; value--) {
+                expected.row(value);
+            }
+
+            assertOperatorEquals(operator, input, expected.build());
+
+            // spill files are removed once the output is consumed
+            assertEquals(spillPath.list().length, 0);
+        }
+        finally {
+            assertTrue(spillPath.delete());
+        }
+    }
+
     @Test(expectedExceptions = ExceededMemoryLimitException.class, expectedExceptionsMessageRegExp = "Task exceeded max memory size of 10B")
     public void testMemoryLimit()
             throws Exception
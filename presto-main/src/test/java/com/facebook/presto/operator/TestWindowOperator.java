@@ -15,6 +15,7 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.ExceededMemoryLimitException;
 import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.execution.TaskStateMachine;
 import com.facebook.presto.operator.WindowOperator.WindowOperatorFactory;
 import com.facebook.presto.operator.window.FirstValueFunction.VarcharFirstValueFunction;
 import com.facebook.presto.operator.window.LagFunction.VarcharLagFunction;
@@ -24,10 +25,15 @@ import com.facebook.presto.operator.window.NthValueFunction.VarcharNthValueFunct
 import com.facebook.presto.operator.window.ReflectionWindowFunctionSupplier;
 import com.facebook.presto.operator.window.RowNumberFunction;
 import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.testing.MaterializedResult;
+import com.google.common.base.Optional;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
 import com.google.common.primitives.Ints;
 import io.airlift.units.DataSize;
 import io.airlift.units.DataSize.Unit;
@@ -35,6 +41,7 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.io.File;
 import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.ExecutorService;
@@ -49,8 +56,11 @@ import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
 import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
+import static com.facebook.presto.testing.TestingBlockEncodingManager.createTestingBlockEncodingManager;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestWindowOperator
@@ -211,6 +221,109 @@ public class TestWindowOperator
         assertOperatorEquals(operator, input, expected);
     }
 
+    @Test
+    public void testRowNumberPartitionSpillToDisk()
+            throws Exception
+    {
+        // 50K partitions of four rows each, spread over all pages
+        List<Page> input = rowPagesBuilder(BIGINT, BIGINT)
+                .addSequencePage(50_000, 0, 150_000)
+                .addSequencePage(50_000, 0, 0)
+                .addSequencePage(50_000, 0, 100_000)
+                .addSequencePage(50_000, 0, 50_000)
+                .build();
+
+        // no pre-allocated memory, so the 200K rows can not be sorted in memory
+        ConnectorSession session = new ConnectorSession("user", "source", "catalog", "schema", UTC_KEY, Locale.ENGLISH, "address", "agent");
+        TaskStateMachine taskStateMachine = new TaskStateMachine(new TaskId("query", "stage", "task"), executor);
+        DriverContext driverContext = new TaskContext(taskStateMachine, executor, session, new DataSize(1, Unit.MEGABYTE), new DataSize(0, Unit.BYTE), true)
+                .addPipelineContext(true, true)
+                .addDriverContext();
+
+        File spillPath = Files.createTempDir();
+        try {
+            WindowOperatorFactory operatorFactory = new WindowOperatorFactory(
+                    0,
+                    ImmutableList.of(BIGINT, BIGINT),
+                    Ints.asList(0, 1),
+                    ROW_NUMBER,
+                    Ints.asList(0),
+                    Ints.asList(1),
+                    ImmutableList.copyOf(new SortOrder[] {SortOrder.ASC_NULLS_LAST}),
+                    10,
+                    Optional.of(new SpillerFactory(createTestingBlockEncodingManager(), spillPath.toPath())));
+
+            Operator operator = operatorFactory.createOperator(driverContext);
+
+            MaterializedResult.Builder expected = resultBuilder(driverContext.getSession(), BIGINT, BIGINT, BIGINT);
+            for (long partition = 0; partition < 50_000; partition++) {
+                for (long row = 0; row < 4; row++) {
+                    expected.row(partition, partition + row * 50_000, row + 1);
+                }
+            }
+
+            assertOperatorEquals(operator, input, expected.build());
+
+            // spill files are removed once the output is consumed
+            assertEquals(spillPath.list().length, 0);
+        }
+        finally {
+            assertTrue(spillPath.delete());
+        }
+    }
+
+    @Test
+    public void testSpillToDiskWithOnePartitionInMemory()
+            throws Exception
+    {
+        // every row is a page and a partition of its own, and only one row fits in memory
+        String value = Strings.repeat("x", 600_000);
+        List<Page> input = rowPagesBuilder(BIGINT, VARCHAR)
+                .row(3, value)
+                .pageBreak()
+                .row(1, value)
+                .pageBreak()
+                .row(2, value)
+                .pageBreak()
+                .row(0, value)
+                .build();
+
+        ConnectorSession session = new ConnectorSession("user", "source", "catalog", "schema", UTC_KEY, Locale.ENGLISH, "address", "agent");
+        TaskStateMachine taskStateMachine = new TaskStateMachine(new TaskId("query", "stage", "task"), executor);
+        DriverContext driverContext = new TaskContext(taskStateMachine, executor, session, new DataSize(1, Unit.MEGABYTE), new DataSize(0, Unit.BYTE), true)
+                .addPipelineContext(true, true)
+                .addDriverContext();
+
+        File spillPath = Files.createTempDir();
+        try {
+            WindowOperatorFactory operatorFactory = new WindowOperatorFactory(
+                    0,
+                    ImmutableList.of(BIGINT, VARCHAR),
+                    Ints.asList(0),
+                    ROW_NUMBER,
+                    Ints.asList(0),
+                    Ints.asList(0),
+                    ImmutableList.copyOf(new SortOrder[] {SortOrder.ASC_NULLS_LAST}),
+                    10,
+                    Optional.of(new SpillerFactory(createTestingBlockEncodingManager(), spillPath.toPath())));
+
+            Operator operator = operatorFactory.createOperator(driverContext);
+
+            // the row that starts the next partition is carried over instead of forced into memory
+            MaterializedResult expected = resultBuilder(driverContext.getSession(), BIGINT, BIGINT)
+                    .row(0, 1)
+                    .row(1, 1)
+                    .row(2, 1)
+                    .row(3, 1)
+                    .build();
+
+            assertOperatorEquals(operator, input, expected);
+        }
+        finally {
+            assertTrue(spillPath.delete());
+        }
+    }
+
     @Test(expectedExceptions = ExceededMemoryLimitException.class, expectedExceptionsMessageRegExp = "Task exceeded max memory size of 10B")
     public void testMemoryLimit()
             throws Exception
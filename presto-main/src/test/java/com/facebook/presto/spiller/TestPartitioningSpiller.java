@@ -0,0 +1,98 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spiller;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static com.facebook.presto.operator.RowPagesBuilder.rowPagesBuilder;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.testing.TestingBlockEncodingManager.createTestingBlockEncodingManager;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestPartitioningSpiller
+{
+    private File spillPath;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        spillPath = Files.createTempDir();
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        assertTrue(spillPath.delete());
+    }
+
+    @Test
+    public void testSpillAndReadPartitions()
+            throws Exception
+    {
+        List<Page> input = rowPagesBuilder(BIGINT, VARCHAR)
+                .addSequencePage(1000, 0, 0)
+                .addSequencePage(1000, 500, 500)
+                .build();
+
+        Spiller spiller = new SpillerFactory(createTestingBlockEncodingManager(), spillPath.toPath()).create();
+        try (PartitioningSpiller partitioningSpiller = new PartitioningSpiller(spiller, ImmutableList.of(BIGINT, VARCHAR), ImmutableList.of(0), 4)) {
+            partitioningSpiller.spill(input.iterator());
+            partitioningSpiller.flush();
+            assertTrue(partitioningSpiller.getSpilledBytes() > 0);
+
+            int rowCount = 0;
+            Set<Long> seenKeys = new HashSet<>();
+            for (int partition = 0; partition < partitioningSpiller.getPartitionCount(); partition++) {
+                Set<Long> partitionKeys = new HashSet<>();
+                Iterator<Page> pages = partitioningSpiller.readPartition(partition);
+                while (pages.hasNext()) {
+                    Page page = pages.next();
+                    Block keys = page.getBlock(0);
+                    for (int position = 0; position < page.getPositionCount(); position++) {
+                        assertEquals(partitioningSpiller.getPartition(page, position), partition);
+                        partitionKeys.add(BIGINT.getLong(keys, position));
+                        rowCount++;
+                    }
+                }
+
+                // every key is written to exactly one partition
+                for (Long key : partitionKeys) {
+                    assertFalse(seenKeys.contains(key));
+                }
+                seenKeys.addAll(partitionKeys);
+            }
+
+            assertEquals(rowCount, 2000);
+            assertEquals(seenKeys.size(), 1500);
+        }
+
+        // closing the spiller removes all spill files
+        assertEquals(spillPath.list().length, 0);
+    }
+}
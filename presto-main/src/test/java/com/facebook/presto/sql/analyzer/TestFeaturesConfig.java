@@ -13,8 +13,11 @@
  */
 package com.facebook.presto.sql.analyzer;
 
+import com.facebook.presto.sql.analyzer.FeaturesConfig.JoinDistributionType;
 import com.google.common.collect.ImmutableMap;
 import io.airlift.configuration.testing.ConfigAssertions;
+import io.airlift.units.DataSize;
+import io.airlift.units.DataSize.Unit;
 import org.testng.annotations.Test;
 
 import java.util.Map;
@@ -30,7 +33,12 @@ public class TestFeaturesConfig
     {
         assertRecordedDefaults(ConfigAssertions.recordDefaults(FeaturesConfig.class)
                 .setExperimentalSyntaxEnabled(false)
-                .setDistributedIndexJoinsEnabled(false));
+                .setDistributedIndexJoinsEnabled(false)
+                .setColocatedJoinsEnabled(false)
+                .setOptimizeHashGeneration(false)
+                .setReorderJoins(false)
+                .setJoinDistributionType(JoinDistributionType.AUTOMATIC)
+                .setBroadcastJoinMaxSize(null));
     }
 
     @Test
@@ -39,15 +47,30 @@ public class TestFeaturesConfig
         Map<String, String> propertiesLegacy = new ImmutableMap.Builder<String, String>()
                 .put("analyzer.experimental-syntax-enabled", "true")
                 .put("distributed-index-joins-enabled", "true")
+                .put("colocated-joins-enabled", "true")
+                .put("optimizer.optimize-hash-generation", "true")
+                .put("optimizer.reorder-joins", "true")
+                .put("optimizer.join-distribution-type", "PARTITIONED")
+                .put("optimizer.broadcast-join-max-size", "100MB")
                 .build();
         Map<String, String> properties = new ImmutableMap.Builder<String, String>()
                 .put("experimental-syntax-enabled", "true")
                 .put("distributed-index-joins-enabled", "true")
+                .put("colocated-joins-enabled", "true")
+                .put("optimizer.optimize-hash-generation", "true")
+                .put("optimizer.reorder-joins", "true")
+                .put("optimizer.join-distribution-type", "PARTITIONED")
+                .put("optimizer.broadcast-join-max-size", "100MB")
                 .build();
 
         FeaturesConfig expected = new FeaturesConfig()
                 .setExperimentalSyntaxEnabled(true)
-                .setDistributedIndexJoinsEnabled(true);
+                .setDistributedIndexJoinsEnabled(true)
+                .setColocatedJoinsEnabled(true)
+                .setOptimizeHashGeneration(true)
+                .setReorderJoins(true)
+                .setJoinDistributionType(JoinDistributionType.PARTITIONED)
+                .setBroadcastJoinMaxSize(new DataSize(100, Unit.MEGABYTE));
 
         assertFullMapping(properties, expected);
         assertDeprecatedEquivalence(FeaturesConfig.class, properties, propertiesLegacy);
@@ -16,10 +16,10 @@ package com.facebook.presto.sql.gen;
 import com.facebook.presto.metadata.MetadataManager;
 import com.facebook.presto.metadata.OperatorType;
 import com.facebook.presto.metadata.Signature;
-import com.facebook.presto.operator.Page;
 import com.facebook.presto.operator.PageBuilder;
 import com.facebook.presto.operator.PageProcessor;
 import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.BigintType;
 import com.facebook.presto.spi.type.BooleanType;
@@ -158,6 +158,12 @@ public class BenchmarkPageProcessor
             return position;
         }
 
+        @Override
+        public Page processEncodedPage(ConnectorSession session, Page page)
+        {
+            return null;
+        }
+
         private static void project(int position, PageBuilder pageBuilder, Block extendedPriceBlock, Block discountBlock)
         {
             if (discountBlock.isNull(position) || extendedPriceBlock.isNull(position)) {
@@ -0,0 +1,282 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner;
+
+import com.facebook.presto.metadata.ColumnHandle;
+import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.metadata.Signature;
+import com.facebook.presto.metadata.TableHandle;
+import com.facebook.presto.metadata.TestingMetadata;
+import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.ConnectorTableHandle;
+import com.facebook.presto.spi.ConnectorTablePartitioning;
+import com.facebook.presto.sql.planner.PlanFragment.PlanDistribution;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.facebook.presto.sql.planner.plan.ExchangeNode;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.OutputNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.sql.tree.FunctionCall;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
+import static com.facebook.presto.sql.planner.plan.AggregationNode.Step.FINAL;
+import static com.facebook.presto.sql.planner.plan.AggregationNode.Step.PARTIAL;
+import static com.facebook.presto.sql.planner.plan.AggregationNode.Step.SINGLE;
+import static com.facebook.presto.sql.planner.plan.TableScanNode.GeneratedPartitions;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestColocatedJoinPlanning
+{
+    private static final ConnectorSession SESSION = new ConnectorSession("user", "test", "test", "test", UTC_KEY, Locale.ENGLISH, null, null);
+
+    private static final ConnectorTableHandle ORDERS = new TestingTableHandle();
+    private static final ConnectorTableHandle LINEITEM = new TestingTableHandle();
+    private static final ConnectorTableHandle LINEITEM_8_BUCKETS = new TestingTableHandle();
+    private static final ConnectorTableHandle CUSTOMER = new TestingTableHandle();
+
+    private MetadataManager metadata;
+    private SymbolAllocator symbolAllocator;
+    private PlanNodeIdAllocator idAllocator;
+
+    private Symbol orderOrderKey;
+    private Symbol orderCustKey;
+    private Symbol lineitemOrderKey;
+    private Symbol customerCustKey;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        final Map<ConnectorTableHandle, ConnectorTablePartitioning> partitionings = ImmutableMap.of(
+                ORDERS, new ConnectorTablePartitioning(ImmutableList.<ConnectorColumnHandle>of(new TestingColumnHandle("o_orderkey")), "test", 4),
+                LINEITEM, new ConnectorTablePartitioning(ImmutableList.<ConnectorColumnHandle>of(new TestingColumnHandle("l_orderkey")), "test", 4),
+                LINEITEM_8_BUCKETS, new ConnectorTablePartitioning(ImmutableList.<ConnectorColumnHandle>of(new TestingColumnHandle("l_orderkey")), "test", 8));
+
+        metadata = new MetadataManager();
+        metadata.addConnectorMetadata("test", "test", new TestingMetadata()
+        {
+            @Override
+            public ConnectorTablePartitioning getTablePartitioning(ConnectorTableHandle tableHandle)
+            {
+                return partitionings.get(tableHandle);
+            }
+        });
+
+        symbolAllocator = new SymbolAllocator();
+        idAllocator = new PlanNodeIdAllocator();
+
+        orderOrderKey = symbolAllocator.newSymbol("o_orderkey", BIGINT);
+        orderCustKey = symbolAllocator.newSymbol("o_custkey", BIGINT);
+        lineitemOrderKey = symbolAllocator.newSymbol("l_orderkey", BIGINT);
+        customerCustKey = symbolAllocator.newSymbol("c_custkey", BIGINT);
+    }
+
+    @Test
+    public void testColocatedJoin()
+    {
+        TableScanNode orders = ordersScan();
+        TableScanNode lineitem = tableScan(LINEITEM, lineitemOrderKey);
+        SubPlan subPlan = createSubPlans(join(orders, lineitem, orderOrderKey, lineitemOrderKey), true);
+
+        // the join reads bucket N of both tables in the same task, so there is no exchange below it
+        PlanFragment bucketed = getOnlyBucketedFragment(subPlan);
+        assertEquals(bucketed.getPartitionedSources(), ImmutableSet.of(orders.getId(), lineitem.getId()));
+        assertTrue(findNodes(bucketed.getRoot(), ExchangeNode.class).isEmpty());
+        assertEquals(findNodes(bucketed.getRoot(), JoinNode.class).size(), 1);
+
+        // only the output fragment reads from the bucketed fragment
+        assertEquals(subPlan.getAllFragments().size(), 2);
+    }
+
+    @Test
+    public void testColocatedJoinsDisabled()
+    {
+        SubPlan subPlan = createSubPlans(join(ordersScan(), tableScan(LINEITEM, lineitemOrderKey), orderOrderKey, lineitemOrderKey), false);
+
+        assertNoBucketedFragments(subPlan);
+        // the build side is exchanged
+        assertEquals(subPlan.getAllFragments().size(), 3);
+    }
+
+    @Test
+    public void testDifferentBucketCounts()
+    {
+        SubPlan subPlan = createSubPlans(join(ordersScan(), tableScan(LINEITEM_8_BUCKETS, lineitemOrderKey), orderOrderKey, lineitemOrderKey), true);
+
+        assertNoBucketedFragments(subPlan);
+    }
+
+    @Test
+    public void testUnbucketedTable()
+    {
+        SubPlan subPlan = createSubPlans(join(ordersScan(), tableScan(CUSTOMER, customerCustKey), orderCustKey, customerCustKey), true);
+
+        assertNoBucketedFragments(subPlan);
+    }
+
+    @Test
+    public void testJoinNotOnBucketColumns()
+    {
+        SubPlan subPlan = createSubPlans(join(ordersScan(), tableScan(LINEITEM, lineitemOrderKey), orderCustKey, lineitemOrderKey), true);
+
+        assertNoBucketedFragments(subPlan);
+    }
+
+    @Test
+    public void testBucketedAggregation()
+    {
+        SubPlan subPlan = createSubPlans(aggregation(ordersScan(), orderOrderKey, orderCustKey), true);
+
+        // every group lies in one bucket, so the aggregation is completed without repartitioning
+        PlanFragment bucketed = getOnlyBucketedFragment(subPlan);
+        List<AggregationNode> aggregations = findNodes(bucketed.getRoot(), AggregationNode.class);
+        assertEquals(aggregations.size(), 1);
+        assertEquals(aggregations.get(0).getStep(), SINGLE);
+        assertEquals(subPlan.getAllFragments().size(), 2);
+    }
+
+    @Test
+    public void testAggregationNotOnBucketColumns()
+    {
+        SubPlan subPlan = createSubPlans(aggregation(ordersScan(), orderCustKey), true);
+
+        assertNoBucketedFragments(subPlan);
+        ImmutableSet.Builder<AggregationNode.Step> steps = ImmutableSet.builder();
+        for (PlanFragment fragment : subPlan.getAllFragments()) {
+            for (AggregationNode aggregation : findNodes(fragment.getRoot(), AggregationNode.class)) {
+                steps.add(aggregation.getStep());
+            }
+        }
+        assertEquals(steps.build(), ImmutableSet.of(PARTIAL, FINAL));
+    }
+
+    @Test
+    public void testAggregationOverColocatedJoin()
+    {
+        PlanNode join = join(ordersScan(), tableScan(LINEITEM, lineitemOrderKey), orderOrderKey, lineitemOrderKey);
+        SubPlan subPlan = createSubPlans(aggregation(join, orderOrderKey), true);
+
+        PlanFragment bucketed = getOnlyBucketedFragment(subPlan);
+        assertEquals(findNodes(bucketed.getRoot(), JoinNode.class).size(), 1);
+        assertEquals(findNodes(bucketed.getRoot(), AggregationNode.class).size(), 1);
+        assertEquals(subPlan.getAllFragments().size(), 2);
+    }
+
+    @Test
+    public void testSingleNodePlan()
+    {
+        PlanNode join = join(ordersScan(), tableScan(LINEITEM, lineitemOrderKey), orderOrderKey, lineitemOrderKey);
+        SubPlan subPlan = new DistributedLogicalPlanner(SESSION, metadata, idAllocator).createSubPlans(new Plan(output(join), symbolAllocator), true, false, true);
+
+        assertNoBucketedFragments(subPlan);
+        assertTrue(subPlan.getChildren().isEmpty());
+    }
+
+    private SubPlan createSubPlans(PlanNode root, boolean colocatedJoins)
+    {
+        return new DistributedLogicalPlanner(SESSION, metadata, idAllocator).createSubPlans(new Plan(output(root), symbolAllocator), false, false, colocatedJoins);
+    }
+
+    private static PlanFragment getOnlyBucketedFragment(SubPlan subPlan)
+    {
+        ImmutableList.Builder<PlanFragment> bucketed = ImmutableList.builder();
+        for (PlanFragment fragment : subPlan.getAllFragments()) {
+            if (fragment.getDistribution() == PlanDistribution.BUCKETED) {
+                bucketed.add(fragment);
+            }
+        }
+        List<PlanFragment> fragments = bucketed.build();
+        assertEquals(fragments.size(), 1, "expected a single bucketed fragment");
+        return fragments.get(0);
+    }
+
+    private static void assertNoBucketedFragments(SubPlan subPlan)
+    {
+        for (PlanFragment fragment : subPlan.getAllFragments()) {
+            assertTrue(fragment.getDistribution() != PlanDistribution.BUCKETED, "unexpected bucketed fragment " + fragment);
+        }
+    }
+
+    private static <T extends PlanNode> List<T> findNodes(PlanNode root, Class<T> nodeClass)
+    {
+        ImmutableList.Builder<T> nodes = ImmutableList.builder();
+        findNodes(root, nodeClass, nodes);
+        return nodes.build();
+    }
+
+    private static <T extends PlanNode> void findNodes(PlanNode node, Class<T> nodeClass, ImmutableList.Builder<T> nodes)
+    {
+        if (nodeClass.isInstance(node)) {
+            nodes.add(nodeClass.cast(node));
+        }
+        for (PlanNode source : node.getSources()) {
+            findNodes(source, nodeClass, nodes);
+        }
+    }
+
+    private PlanNode output(PlanNode source)
+    {
+        ImmutableList.Builder<String> columnNames = ImmutableList.builder();
+        for (Symbol symbol : source.getOutputSymbols()) {
+            columnNames.add(symbol.getName());
+        }
+        return new OutputNode(idAllocator.getNextId(), source, columnNames.build(), source.getOutputSymbols());
+    }
+
+    private PlanNode join(PlanNode left, PlanNode right, Symbol leftSymbol, Symbol rightSymbol)
+    {
+        return new JoinNode(idAllocator.getNextId(), JoinNode.Type.INNER, left, right, ImmutableList.of(new JoinNode.EquiJoinClause(leftSymbol, rightSymbol)));
+    }
+
+    private PlanNode aggregation(PlanNode source, Symbol... groupBy)
+    {
+        return new AggregationNode(idAllocator.getNextId(),
+                source,
+                ImmutableList.copyOf(groupBy),
+                ImmutableMap.<Symbol, FunctionCall>of(),
+                ImmutableMap.<Symbol, Signature>of(),
+                ImmutableMap.<Symbol, Symbol>of(),
+                Optional.<Symbol>absent(),
+                1.0);
+    }
+
+    private TableScanNode ordersScan()
+    {
+        return tableScan(ORDERS, orderOrderKey, orderCustKey);
+    }
+
+    private TableScanNode tableScan(ConnectorTableHandle table, Symbol... symbols)
+    {
+        ImmutableMap.Builder<Symbol, ColumnHandle> assignments = ImmutableMap.builder();
+        for (Symbol symbol : symbols) {
+            assignments.put(symbol, new ColumnHandle("test", new TestingColumnHandle(symbol.getName())));
+        }
+        PlanNodeId id = idAllocator.getNextId();
+        return new TableScanNode(id, new TableHandle("test", table), ImmutableList.copyOf(symbols), assignments.build(), null, Optional.<GeneratedPartitions>absent());
+    }
+}
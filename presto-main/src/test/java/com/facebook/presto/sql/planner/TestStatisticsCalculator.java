@@ -0,0 +1,191 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner;
+
+import com.facebook.presto.metadata.ColumnHandle;
+import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.metadata.Signature;
+import com.facebook.presto.metadata.TableHandle;
+import com.facebook.presto.metadata.TestingMetadata;
+import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.ConnectorColumnStatistics;
+import com.facebook.presto.spi.ConnectorPartition;
+import com.facebook.presto.spi.ConnectorTableHandle;
+import com.facebook.presto.spi.ConnectorTableStatistics;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.facebook.presto.sql.planner.plan.FilterNode;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.LimitNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.sql.tree.ComparisonExpression;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.FunctionCall;
+import com.facebook.presto.sql.tree.QualifiedNameReference;
+import com.facebook.presto.sql.tree.StringLiteral;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.sql.planner.plan.TableScanNode.GeneratedPartitions;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+public class TestStatisticsCalculator
+{
+    private static final Symbol ORDER_CUSTKEY = new Symbol("o_custkey");
+    private static final Symbol ORDER_STATUS = new Symbol("o_status");
+    private static final Symbol CUSTOMER_CUSTKEY = new Symbol("c_custkey");
+
+    private static final Map<Symbol, Type> TYPES = ImmutableMap.<Symbol, Type>of(
+            ORDER_CUSTKEY, BIGINT,
+            ORDER_STATUS, VARCHAR,
+            CUSTOMER_CUSTKEY, BIGINT);
+
+    private static final ConnectorTableHandle ORDERS = new TestingTableHandle();
+    private static final ConnectorTableHandle CUSTOMER = new TestingTableHandle();
+    private static final ConnectorTableHandle UNKNOWN = new TestingTableHandle();
+
+    private StatisticsCalculator calculator;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        final Map<ConnectorTableHandle, ConnectorTableStatistics> statistics = ImmutableMap.of(
+                ORDERS, new ConnectorTableStatistics(1000, Double.NaN, ImmutableMap.<ConnectorColumnHandle, ConnectorColumnStatistics>of(
+                        new TestingColumnHandle("o_custkey"), new ConnectorColumnStatistics(100, 0),
+                        new TestingColumnHandle("o_status"), new ConnectorColumnStatistics(4, 0))),
+                CUSTOMER, new ConnectorTableStatistics(100, Double.NaN, ImmutableMap.<ConnectorColumnHandle, ConnectorColumnStatistics>of(
+                        new TestingColumnHandle("c_custkey"), new ConnectorColumnStatistics(100, 0))));
+
+        MetadataManager metadata = new MetadataManager();
+        metadata.addConnectorMetadata("test", "test", new TestingMetadata()
+        {
+            @Override
+            public ConnectorTableStatistics getTableStatistics(ConnectorTableHandle tableHandle, List<ConnectorPartition> partitions)
+            {
+                if (statistics.containsKey(tableHandle)) {
+                    return statistics.get(tableHandle);
+                }
+                return ConnectorTableStatistics.UNKNOWN;
+            }
+        });
+        calculator = new StatisticsCalculator(metadata, TYPES);
+    }
+
+    @Test
+    public void testTableScan()
+    {
+        PlanNode orders = ordersScan();
+        assertEquals(calculator.calculate(orders).getRowCount(), 1000.0);
+        assertEquals(calculator.calculate(orders).getDistinctValuesCount(ORDER_CUSTKEY), 100.0);
+        assertEquals(calculator.calculate(orders).getOutputSizeInBytes(), 1000.0 * (8 + 16));
+
+        assertFalse(calculator.calculate(tableScan(UNKNOWN, ORDER_CUSTKEY, "o_custkey")).isRowCountKnown());
+    }
+
+    @Test
+    public void testFilter()
+    {
+        Expression predicate = new ComparisonExpression(ComparisonExpression.Type.EQUAL, reference(ORDER_STATUS), new StringLiteral("F"));
+        PlanNode filter = new FilterNode(newId(), ordersScan(), predicate);
+        assertEquals(calculator.calculate(filter).getRowCount(), 250.0);
+
+        predicate = new ComparisonExpression(ComparisonExpression.Type.GREATER_THAN, reference(ORDER_CUSTKEY), reference(ORDER_CUSTKEY));
+        filter = new FilterNode(newId(), ordersScan(), predicate);
+        assertEquals(calculator.calculate(filter).getRowCount(), 500.0);
+    }
+
+    @Test
+    public void testAggregation()
+    {
+        PlanNode aggregation = new AggregationNode(newId(),
+                ordersScan(),
+                ImmutableList.of(ORDER_CUSTKEY, ORDER_STATUS),
+                ImmutableMap.<Symbol, FunctionCall>of(),
+                ImmutableMap.<Symbol, Signature>of(),
+                ImmutableMap.<Symbol, Symbol>of(),
+                Optional.<Symbol>absent(),
+                1.0);
+        assertEquals(calculator.calculate(aggregation).getRowCount(), 400.0);
+
+        aggregation = new AggregationNode(newId(),
+                ordersScan(),
+                ImmutableList.<Symbol>of(),
+                ImmutableMap.<Symbol, FunctionCall>of(),
+                ImmutableMap.<Symbol, Signature>of(),
+                ImmutableMap.<Symbol, Symbol>of(),
+                Optional.<Symbol>absent(),
+                1.0);
+        assertEquals(calculator.calculate(aggregation).getRowCount(), 1.0);
+    }
+
+    @Test
+    public void testJoin()
+    {
+        PlanNode customer = tableScan(CUSTOMER, CUSTOMER_CUSTKEY, "c_custkey");
+        JoinNode join = new JoinNode(newId(), JoinNode.Type.INNER, ordersScan(), customer, ImmutableList.of(new JoinNode.EquiJoinClause(ORDER_CUSTKEY, CUSTOMER_CUSTKEY)));
+        assertEquals(calculator.calculate(join).getRowCount(), 1000.0);
+        assertEquals(calculator.calculate(join).getDistinctValuesCount(CUSTOMER_CUSTKEY), 100.0);
+
+        join = new JoinNode(newId(), JoinNode.Type.CROSS, ordersScan(), customer, ImmutableList.<JoinNode.EquiJoinClause>of());
+        assertEquals(calculator.calculate(join).getRowCount(), 100_000.0);
+    }
+
+    @Test
+    public void testLimit()
+    {
+        assertEquals(calculator.calculate(new LimitNode(newId(), ordersScan(), 10)).getRowCount(), 10.0);
+        assertEquals(calculator.calculate(new LimitNode(newId(), ordersScan(), 10_000)).getRowCount(), 1000.0);
+    }
+
+    private static PlanNode ordersScan()
+    {
+        Map<Symbol, ColumnHandle> assignments = ImmutableMap.of(
+                ORDER_CUSTKEY, newColumnHandle("o_custkey"),
+                ORDER_STATUS, newColumnHandle("o_status"));
+        return new TableScanNode(newId(), new TableHandle("test", ORDERS), ImmutableList.copyOf(assignments.keySet()), assignments, null, Optional.<GeneratedPartitions>absent());
+    }
+
+    private static PlanNode tableScan(ConnectorTableHandle table, Symbol symbol, String column)
+    {
+        Map<Symbol, ColumnHandle> assignments = ImmutableMap.of(symbol, newColumnHandle(column));
+        return new TableScanNode(newId(), new TableHandle("test", table), ImmutableList.of(symbol), assignments, null, Optional.<GeneratedPartitions>absent());
+    }
+
+    private static Expression reference(Symbol symbol)
+    {
+        return new QualifiedNameReference(symbol.toQualifiedName());
+    }
+
+    private static ColumnHandle newColumnHandle(String name)
+    {
+        return new ColumnHandle("test", new TestingColumnHandle(name));
+    }
+
+    private static PlanNodeId newId()
+    {
+        return new PlanNodeId(UUID.randomUUID().toString());
+    }
+}
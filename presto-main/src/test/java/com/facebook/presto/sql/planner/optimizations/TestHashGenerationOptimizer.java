@@ -0,0 +1,203 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.facebook.presto.sql.planner.Plan;
+import com.facebook.presto.sql.planner.PlanFragment;
+import com.facebook.presto.sql.planner.SubPlan;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.SemiJoinNode;
+import com.facebook.presto.testing.LocalQueryRunner;
+import com.facebook.presto.tpch.TpchConnectorFactory;
+import com.facebook.presto.tpch.TpchMetadata;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Locale;
+
+import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
+import static com.facebook.presto.sql.planner.PlanFragment.OutputPartitioning.HASH;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestHashGenerationOptimizer
+{
+    private static final ConnectorSession SESSION = new ConnectorSession("user", "test", "tpch", TpchMetadata.TINY_SCHEMA_NAME, UTC_KEY, Locale.ENGLISH, null, null);
+
+    private LocalQueryRunner queryRunner;
+    private LocalQueryRunner disabledQueryRunner;
+
+    @BeforeClass
+    public void setUp()
+    {
+        queryRunner = createQueryRunner(true);
+        disabledQueryRunner = createQueryRunner(false);
+    }
+
+    @AfterClass
+    public void tearDown()
+    {
+        if (queryRunner != null) {
+            queryRunner.close();
+        }
+        if (disabledQueryRunner != null) {
+            disabledQueryRunner.close();
+        }
+    }
+
+    @Test
+    public void testAggregation()
+    {
+        Plan plan = queryRunner.createPlan("SELECT orderstatus, count(*) FROM orders GROUP BY orderstatus");
+
+        List<AggregationNode> aggregations = findNodes(plan.getRoot(), AggregationNode.class);
+        assertEquals(aggregations.size(), 1);
+        AggregationNode aggregation = aggregations.get(0);
+        assertHashProjection(aggregation.getSource(), aggregation.getHashSymbol());
+    }
+
+    @Test
+    public void testGlobalAggregation()
+    {
+        Plan plan = queryRunner.createPlan("SELECT count(*) FROM orders");
+
+        for (AggregationNode aggregation : findNodes(plan.getRoot(), AggregationNode.class)) {
+            assertFalse(aggregation.getHashSymbol().isPresent());
+        }
+        assertNoHashSymbols(plan);
+    }
+
+    @Test
+    public void testJoin()
+    {
+        Plan plan = queryRunner.createPlan("SELECT o.orderkey, l.linenumber FROM orders o JOIN lineitem l ON o.orderkey = l.orderkey");
+
+        List<JoinNode> joins = findNodes(plan.getRoot(), JoinNode.class);
+        assertEquals(joins.size(), 1);
+        JoinNode join = joins.get(0);
+        assertHashProjection(join.getLeft(), join.getLeftHashSymbol());
+        assertHashProjection(join.getRight(), join.getRightHashSymbol());
+    }
+
+    @Test
+    public void testCrossJoin()
+    {
+        Plan plan = queryRunner.createPlan("SELECT o.orderkey, r.regionkey FROM orders o CROSS JOIN region r");
+
+        for (JoinNode join : findNodes(plan.getRoot(), JoinNode.class)) {
+            assertFalse(join.getLeftHashSymbol().isPresent());
+            assertFalse(join.getRightHashSymbol().isPresent());
+        }
+        assertNoHashSymbols(plan);
+    }
+
+    @Test
+    public void testSemiJoin()
+    {
+        Plan plan = queryRunner.createPlan("SELECT orderkey FROM orders WHERE custkey IN (SELECT custkey FROM customer)");
+
+        List<SemiJoinNode> semiJoins = findNodes(plan.getRoot(), SemiJoinNode.class);
+        assertEquals(semiJoins.size(), 1);
+        SemiJoinNode semiJoin = semiJoins.get(0);
+        assertHashProjection(semiJoin.getSource(), semiJoin.getSourceHashSymbol());
+        assertHashProjection(semiJoin.getFilteringSource(), semiJoin.getFilteringSourceHashSymbol());
+    }
+
+    @Test
+    public void testDistributedAggregationPartitionsOnHash()
+    {
+        SubPlan subPlan = queryRunner.createSubPlans("SELECT orderstatus, count(*) FROM orders GROUP BY orderstatus", false);
+
+        boolean foundHashPartitionedFragment = false;
+        for (PlanFragment fragment : subPlan.getAllFragments()) {
+            if (fragment.getOutputPartitioning() == HASH) {
+                foundHashPartitionedFragment = true;
+                assertTrue(fragment.getPartitionHashSymbol().isPresent());
+                assertTrue(fragment.getRoot().getOutputSymbols().contains(fragment.getPartitionHashSymbol().get()));
+            }
+        }
+        assertTrue(foundHashPartitionedFragment);
+    }
+
+    @Test
+    public void testDisabled()
+    {
+        assertNoHashSymbols(disabledQueryRunner.createPlan("SELECT orderstatus, count(*) FROM orders GROUP BY orderstatus"));
+        assertNoHashSymbols(disabledQueryRunner.createPlan("SELECT o.orderkey, l.linenumber FROM orders o JOIN lineitem l ON o.orderkey = l.orderkey"));
+        assertNoHashSymbols(disabledQueryRunner.createPlan("SELECT orderkey FROM orders WHERE custkey IN (SELECT custkey FROM customer)"));
+
+        SubPlan subPlan = disabledQueryRunner.createSubPlans("SELECT orderstatus, count(*) FROM orders GROUP BY orderstatus", false);
+        for (PlanFragment fragment : subPlan.getAllFragments()) {
+            assertFalse(fragment.getPartitionHashSymbol().isPresent());
+        }
+    }
+
+    private static void assertHashProjection(PlanNode source, Optional<Symbol> hashSymbol)
+    {
+        assertTrue(hashSymbol.isPresent(), "hash symbol is missing");
+        assertTrue(hashSymbol.get().getName().startsWith("$hashvalue"), "unexpected hash symbol " + hashSymbol.get());
+        assertTrue(source instanceof ProjectNode, "hash symbol is not computed directly below the node: " + source);
+        ProjectNode projection = (ProjectNode) source;
+        assertTrue(projection.getOutputMap().containsKey(hashSymbol.get()));
+        // the projection passes through everything its source produces
+        assertTrue(projection.getOutputSymbols().containsAll(projection.getSource().getOutputSymbols()));
+    }
+
+    private static void assertNoHashSymbols(Plan plan)
+    {
+        for (Symbol symbol : plan.getTypes().keySet()) {
+            assertFalse(symbol.getName().startsWith("$hashvalue"), "unexpected hash symbol " + symbol);
+        }
+    }
+
+    private static <T extends PlanNode> List<T> findNodes(PlanNode root, Class<T> nodeClass)
+    {
+        ImmutableList.Builder<T> nodes = ImmutableList.builder();
+        findNodes(root, nodeClass, nodes);
+        return nodes.build();
+    }
+
+    private static <T extends PlanNode> void findNodes(PlanNode node, Class<T> nodeClass, ImmutableList.Builder<T> nodes)
+    {
+        if (nodeClass.isInstance(node)) {
+            nodes.add(nodeClass.cast(node));
+        }
+        for (PlanNode source : node.getSources()) {
+            findNodes(source, nodeClass, nodes);
+        }
+    }
+
+    private static LocalQueryRunner createQueryRunner(boolean optimizeHashGeneration)
+    {
+        FeaturesConfig featuresConfig = new FeaturesConfig()
+                .setExperimentalSyntaxEnabled(true)
+                .setDistributedIndexJoinsEnabled(false)
+                .setOptimizeHashGeneration(optimizeHashGeneration);
+        LocalQueryRunner queryRunner = new LocalQueryRunner(SESSION, featuresConfig);
+        queryRunner.createCatalog(SESSION.getCatalog(), new TpchConnectorFactory(queryRunner.getNodeManager(), 1), ImmutableMap.<String, String>of());
+        return queryRunner;
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.metadata.ColumnHandle;
+import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.metadata.TableHandle;
+import com.facebook.presto.metadata.TestingMetadata;
+import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.ConnectorColumnStatistics;
+import com.facebook.presto.spi.ConnectorPartition;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.ConnectorTableHandle;
+import com.facebook.presto.spi.ConnectorTableStatistics;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.PlanNodeIdAllocator;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.SymbolAllocator;
+import com.facebook.presto.sql.planner.TestingColumnHandle;
+import com.facebook.presto.sql.planner.TestingTableHandle;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
+import static com.facebook.presto.sql.planner.plan.TableScanNode.GeneratedPartitions;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestJoinReorderingOptimizer
+{
+    private static final ConnectorSession SESSION = new ConnectorSession("user", "test", "test", "test", UTC_KEY, Locale.ENGLISH, null, null);
+
+    private static final Symbol REGION_REGIONKEY = new Symbol("r_regionkey");
+    private static final Symbol NATION_NATIONKEY = new Symbol("n_nationkey");
+    private static final Symbol CUSTOMER_CUSTKEY = new Symbol("c_custkey");
+    private static final Symbol CUSTOMER_NATIONKEY = new Symbol("c_nationkey");
+    private static final Symbol ORDER_CUSTKEY = new Symbol("o_custkey");
+
+    private static final Map<Symbol, Type> TYPES = ImmutableMap.<Symbol, Type>builder()
+            .put(REGION_REGIONKEY, BIGINT)
+            .put(NATION_NATIONKEY, BIGINT)
+            .put(CUSTOMER_CUSTKEY, BIGINT)
+            .put(CUSTOMER_NATIONKEY, BIGINT)
+            .put(ORDER_CUSTKEY, BIGINT)
+            .build();
+
+    private static final ConnectorTableHandle REGION = new TestingTableHandle();
+    private static final ConnectorTableHandle NATION = new TestingTableHandle();
+    private static final ConnectorTableHandle CUSTOMER = new TestingTableHandle();
+    private static final ConnectorTableHandle ORDERS = new TestingTableHandle();
+    private static final ConnectorTableHandle UNKNOWN = new TestingTableHandle();
+
+    private MetadataManager metadata;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        final Map<ConnectorTableHandle, ConnectorTableStatistics> statistics = ImmutableMap.of(
+                REGION, new ConnectorTableStatistics(5, Double.NaN, ImmutableMap.<ConnectorColumnHandle, ConnectorColumnStatistics>of(
+                        new TestingColumnHandle("r_regionkey"), new ConnectorColumnStatistics(5, 0))),
+                NATION, new ConnectorTableStatistics(25, Double.NaN, ImmutableMap.<ConnectorColumnHandle, ConnectorColumnStatistics>of(
+                        new TestingColumnHandle("n_nationkey"), new ConnectorColumnStatistics(25, 0))),
+                CUSTOMER, new ConnectorTableStatistics(1500, Double.NaN, ImmutableMap.<ConnectorColumnHandle, ConnectorColumnStatistics>of(
+                        new TestingColumnHandle("c_custkey"), new ConnectorColumnStatistics(1500, 0),
+                        new TestingColumnHandle("c_nationkey"), new ConnectorColumnStatistics(25, 0))),
+                ORDERS, new ConnectorTableStatistics(15000, Double.NaN, ImmutableMap.<ConnectorColumnHandle, ConnectorColumnStatistics>of(
+                        new TestingColumnHandle("o_custkey"), new ConnectorColumnStatistics(1000, 0))));
+
+        metadata = new MetadataManager();
+        metadata.addConnectorMetadata("test", "test", new TestingMetadata()
+        {
+            @Override
+            public ConnectorTableStatistics getTableStatistics(ConnectorTableHandle tableHandle, List<ConnectorPartition> partitions)
+            {
+                if (statistics.containsKey(tableHandle)) {
+                    return statistics.get(tableHandle);
+                }
+                return ConnectorTableStatistics.UNKNOWN;
+            }
+        });
+    }
+
+    @Test
+    public void testReorderRestoresOutputSymbols()
+    {
+        PlanNode nation = tableScan(NATION, NATION_NATIONKEY);
+        PlanNode customer = tableScan(CUSTOMER, CUSTOMER_CUSTKEY, CUSTOMER_NATIONKEY);
+        PlanNode orders = tableScan(ORDERS, ORDER_CUSTKEY);
+        PlanNode plan = join(join(nation, customer, NATION_NATIONKEY, CUSTOMER_NATIONKEY), orders, CUSTOMER_CUSTKEY, ORDER_CUSTKEY);
+
+        PlanNode result = optimize(plan, true);
+
+        // orders is the largest relation, so it becomes the probe side, and nation can only be joined after customer
+        assertTrue(result instanceof ProjectNode, "expected a projection restoring the output symbols: " + result);
+        assertEquals(result.getOutputSymbols(), plan.getOutputSymbols());
+
+        JoinNode top = (JoinNode) ((ProjectNode) result).getSource();
+        assertSame(top.getRight(), nation);
+        assertCriteria(top, CUSTOMER_NATIONKEY, NATION_NATIONKEY);
+
+        JoinNode bottom = (JoinNode) top.getLeft();
+        assertSame(bottom.getLeft(), orders);
+        assertSame(bottom.getRight(), customer);
+        assertCriteria(bottom, ORDER_CUSTKEY, CUSTOMER_CUSTKEY);
+    }
+
+    @Test
+    public void testReorderWithoutProjection()
+    {
+        PlanNode nation = tableScan(NATION, NATION_NATIONKEY);
+        PlanNode customer = tableScan(CUSTOMER, CUSTOMER_CUSTKEY, CUSTOMER_NATIONKEY);
+        PlanNode orders = tableScan(ORDERS, ORDER_CUSTKEY);
+        PlanNode plan = join(join(orders, customer, ORDER_CUSTKEY, CUSTOMER_CUSTKEY), nation, CUSTOMER_NATIONKEY, NATION_NATIONKEY);
+
+        PlanNode result = optimize(plan, true);
+
+        // the order is already the chosen one, so the output symbols match and no projection is added
+        assertTrue(result instanceof JoinNode, "unexpected projection: " + result);
+        assertEquals(result.getOutputSymbols(), plan.getOutputSymbols());
+        JoinNode top = (JoinNode) result;
+        assertSame(top.getRight(), nation);
+        assertSame(((JoinNode) top.getLeft()).getLeft(), orders);
+        assertSame(((JoinNode) top.getLeft()).getRight(), customer);
+    }
+
+    @Test
+    public void testCrossJoinIsNotReordered()
+    {
+        PlanNode region = tableScan(REGION, REGION_REGIONKEY);
+        PlanNode nation = tableScan(NATION, NATION_NATIONKEY);
+        PlanNode customer = tableScan(CUSTOMER, CUSTOMER_CUSTKEY, CUSTOMER_NATIONKEY);
+        PlanNode orders = tableScan(ORDERS, ORDER_CUSTKEY);
+        PlanNode innerJoins = join(join(nation, customer, NATION_NATIONKEY, CUSTOMER_NATIONKEY), orders, CUSTOMER_CUSTKEY, ORDER_CUSTKEY);
+        JoinNode plan = new JoinNode(newId(), JoinNode.Type.CROSS, innerJoins, region, ImmutableList.<JoinNode.EquiJoinClause>of());
+
+        PlanNode result = optimize(plan, true);
+
+        // the cross join stays where it is, only the inner joins below it are reordered
+        assertTrue(result instanceof JoinNode);
+        JoinNode crossJoin = (JoinNode) result;
+        assertEquals(crossJoin.getId(), plan.getId());
+        assertEquals(crossJoin.getType(), JoinNode.Type.CROSS);
+        assertSame(crossJoin.getRight(), region);
+        assertTrue(crossJoin.getLeft() instanceof ProjectNode);
+        assertEquals(crossJoin.getLeft().getOutputSymbols(), innerJoins.getOutputSymbols());
+        assertEquals(crossJoin.getOutputSymbols(), plan.getOutputSymbols());
+    }
+
+    @Test
+    public void testCrossJoinLeaf()
+    {
+        PlanNode region = tableScan(REGION, REGION_REGIONKEY);
+        PlanNode nation = tableScan(NATION, NATION_NATIONKEY);
+        PlanNode customer = tableScan(CUSTOMER, CUSTOMER_CUSTKEY, CUSTOMER_NATIONKEY);
+        PlanNode crossJoin = new JoinNode(newId(), JoinNode.Type.CROSS, nation, region, ImmutableList.<JoinNode.EquiJoinClause>of());
+        PlanNode plan = join(crossJoin, customer, NATION_NATIONKEY, CUSTOMER_NATIONKEY);
+
+        PlanNode result = optimize(plan, true);
+
+        // the cross join is kept whole as one of the relations that are joined
+        JoinNode join = (JoinNode) ((ProjectNode) result).getSource();
+        assertSame(join.getLeft(), customer);
+        assertSame(join.getRight(), crossJoin);
+        assertEquals(result.getOutputSymbols(), plan.getOutputSymbols());
+    }
+
+    @Test
+    public void testUnknownRowCount()
+    {
+        PlanNode unknown = tableScan(UNKNOWN, NATION_NATIONKEY);
+        PlanNode customer = tableScan(CUSTOMER, CUSTOMER_CUSTKEY, CUSTOMER_NATIONKEY);
+        PlanNode orders = tableScan(ORDERS, ORDER_CUSTKEY);
+        PlanNode plan = join(join(unknown, customer, NATION_NATIONKEY, CUSTOMER_NATIONKEY), orders, CUSTOMER_CUSTKEY, ORDER_CUSTKEY);
+
+        assertSame(optimize(plan, true), plan);
+    }
+
+    @Test
+    public void testDisabled()
+    {
+        PlanNode nation = tableScan(NATION, NATION_NATIONKEY);
+        PlanNode customer = tableScan(CUSTOMER, CUSTOMER_CUSTKEY, CUSTOMER_NATIONKEY);
+        PlanNode orders = tableScan(ORDERS, ORDER_CUSTKEY);
+        PlanNode plan = join(join(nation, customer, NATION_NATIONKEY, CUSTOMER_NATIONKEY), orders, CUSTOMER_CUSTKEY, ORDER_CUSTKEY);
+
+        assertSame(optimize(plan, false), plan);
+    }
+
+    private PlanNode optimize(PlanNode plan, boolean reorderJoins)
+    {
+        return new JoinReorderingOptimizer(metadata, reorderJoins).optimize(plan, SESSION, TYPES, new SymbolAllocator(), new PlanNodeIdAllocator());
+    }
+
+    private static void assertCriteria(JoinNode join, Symbol left, Symbol right)
+    {
+        assertEquals(join.getCriteria().size(), 1);
+        assertEquals(join.getCriteria().get(0).getLeft(), left);
+        assertEquals(join.getCriteria().get(0).getRight(), right);
+    }
+
+    private static JoinNode join(PlanNode left, PlanNode right, Symbol leftSymbol, Symbol rightSymbol)
+    {
+        return new JoinNode(newId(), JoinNode.Type.INNER, left, right, ImmutableList.of(new JoinNode.EquiJoinClause(leftSymbol, rightSymbol)));
+    }
+
+    private static PlanNode tableScan(ConnectorTableHandle table, Symbol... symbols)
+    {
+        ImmutableMap.Builder<Symbol, ColumnHandle> assignments = ImmutableMap.builder();
+        for (Symbol symbol : symbols) {
+            assignments.put(symbol, new ColumnHandle("test", new TestingColumnHandle(symbol.getName())));
+        }
+        return new TableScanNode(newId(), new TableHandle("test", table), ImmutableList.copyOf(symbols), assignments.build(), null, Optional.<GeneratedPartitions>absent());
+    }
+
+    private static PlanNodeId newId()
+    {
+        return new PlanNodeId(UUID.randomUUID().toString());
+    }
+}
@@ -27,6 +27,7 @@ import javax.inject.Inject;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.Set;
 
 public class MySqlClient
@@ -61,6 +62,17 @@ public class MySqlClient
         }
     }
 
+    @Override
+    public Statement createStatement(Connection connection)
+            throws SQLException
+    {
+        Statement statement = connection.createStatement();
+        // the MySQL driver buffers the whole result unless the fetch size is MIN_VALUE,
+        // which streams the rows instead
+        statement.setFetchSize(Integer.MIN_VALUE);
+        return statement;
+    }
+
     @Override
     protected ResultSet getTables(Connection connection, String schemaName, String tableName)
             throws SQLException
@@ -24,6 +24,7 @@ import javax.inject.Inject;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.Collection;
 
 public class PostgreSqlClient
@@ -36,6 +37,15 @@ public class PostgreSqlClient
         super(connectorId, config, "\"", new Driver());
     }
 
+    @Override
+    public Statement createStatement(Connection connection)
+            throws SQLException
+    {
+        // PostgreSQL ignores the fetch size and buffers the whole result unless in a transaction
+        connection.setAutoCommit(false);
+        return super.createStatement(connection);
+    }
+
     @Override
     public void commitCreateTable(JdbcOutputTableHandle handle, Collection<String> fragments)
     {
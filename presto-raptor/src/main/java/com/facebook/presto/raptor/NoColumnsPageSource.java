@@ -13,36 +13,26 @@
  */
 package com.facebook.presto.raptor;
 
-import com.facebook.presto.operator.Operator;
-import com.facebook.presto.operator.OperatorContext;
-import com.facebook.presto.operator.Page;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
-import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.Iterator;
 import java.util.List;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
-public class NoColumnsOperator
-        implements Operator
+public class NoColumnsPageSource
+        implements ConnectorPageSource
 {
-    private final OperatorContext operatorContext;
     private final Iterator<Integer> positionCounts;
 
     private boolean finished;
 
-    public NoColumnsOperator(OperatorContext operatorContext, Iterable<Integer> positionCounts)
+    public NoColumnsPageSource(Iterable<Integer> positionCounts)
     {
-        this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
-        this.positionCounts = positionCounts.iterator();
-    }
-
-    @Override
-    public OperatorContext getOperatorContext()
-    {
-        return operatorContext;
+        this.positionCounts = checkNotNull(positionCounts, "positionCounts is null").iterator();
     }
 
     @Override
@@ -52,37 +42,31 @@ public class NoColumnsOperator
     }
 
     @Override
-    public void finish()
-    {
-        finished = true;
-    }
-
-    @Override
-    public boolean isFinished()
+    public long getTotalBytes()
     {
-        return finished;
+        return 0;
     }
 
     @Override
-    public ListenableFuture<?> isBlocked()
+    public long getCompletedBytes()
     {
-        return NOT_BLOCKED;
+        return 0;
     }
 
     @Override
-    public boolean needsInput()
+    public long getReadTimeNanos()
     {
-        return false;
+        return 0;
     }
 
     @Override
-    public void addInput(Page page)
+    public boolean isFinished()
     {
-        throw new UnsupportedOperationException(getClass().getName() + " cannot take input");
+        return finished;
     }
 
     @Override
-    public Page getOutput()
+    public Page getNextPage()
     {
         if (finished) {
             return null;
@@ -95,4 +79,10 @@ public class NoColumnsOperator
 
         return new Page(positionCounts.next());
     }
+
+    @Override
+    public void close()
+    {
+        finished = true;
+    }
 }
@@ -22,18 +22,26 @@ import com.facebook.presto.raptor.metadata.TableColumn;
 import com.facebook.presto.raptor.metadata.TablePartition;
 import com.facebook.presto.raptor.metadata.ViewResult;
 import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.ConnectorAggregate;
+import com.facebook.presto.spi.ConnectorAggregatedTable;
 import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.ConnectorColumnStatistics;
 import com.facebook.presto.spi.ConnectorInsertTableHandle;
 import com.facebook.presto.spi.ConnectorMetadata;
 import com.facebook.presto.spi.ConnectorOutputTableHandle;
+import com.facebook.presto.spi.ConnectorPartition;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorTableHandle;
 import com.facebook.presto.spi.ConnectorTableMetadata;
+import com.facebook.presto.spi.ConnectorTablePartitioning;
+import com.facebook.presto.spi.ConnectorTableStatistics;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.SchemaTablePrefix;
+import com.facebook.presto.spi.TupleDomain;
 import com.facebook.presto.spi.ViewNotFoundException;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
 import com.google.common.base.Splitter;
 import com.google.common.collect.FluentIterable;
@@ -180,6 +188,35 @@ public class RaptorMetadata
         return checkType(tableHandle, RaptorTableHandle.class, "tableHandle").getSampleWeightColumnHandle();
     }
 
+    @Override
+    public ConnectorTablePartitioning getTablePartitioning(ConnectorTableHandle tableHandle)
+    {
+        return null;
+    }
+
+    @Override
+    public ConnectorTableStatistics getTableStatistics(ConnectorTableHandle tableHandle, List<ConnectorPartition> partitions)
+    {
+        // row counts are recorded per shard, so the statistics always cover the entire table
+        Optional<Long> rowCount = shardManager.getShardRowCounts(tableHandle).getEstimatedRowCount();
+        if (!rowCount.isPresent()) {
+            return ConnectorTableStatistics.UNKNOWN;
+        }
+        return new ConnectorTableStatistics(rowCount.get(), Double.NaN, ImmutableMap.<ConnectorColumnHandle, ConnectorColumnStatistics>of());
+    }
+
+    @Override
+    public ConnectorAggregatedTable pushDownAggregation(ConnectorTableHandle tableHandle, TupleDomain<ConnectorColumnHandle> constraint, List<ConnectorColumnHandle> groupingColumns, List<ConnectorAggregate> aggregates)
+    {
+        return null;
+    }
+
+    @Override
+    public ConnectorTableHandle pushDownLimit(ConnectorTableHandle tableHandle, long limit)
+    {
+        return null;
+    }
+
     @Override
     public boolean canCreateSampledTables(ConnectorSession session)
     {
@@ -348,7 +385,7 @@ public class RaptorMetadata
             }
         });
 
-        shardManager.commitUnpartitionedTable(tableId, parseFragments(fragments));
+        shardManager.commitUnpartitionedTable(tableId, parseFragments(fragments), parseShardRowCounts(fragments));
     }
 
     @Override
@@ -374,7 +411,7 @@ public class RaptorMetadata
     public void commitInsert(ConnectorInsertTableHandle insertHandle, Collection<String> fragments)
     {
         long tableId = checkType(insertHandle, RaptorInsertTableHandle.class, "insertHandle").getTableId();
-        shardManager.commitUnpartitionedTable(tableId, parseFragments(fragments));
+        shardManager.commitUnpartitionedTable(tableId, parseFragments(fragments), parseShardRowCounts(fragments));
     }
 
     @Override
@@ -456,6 +493,20 @@ public class RaptorMetadata
         return shards.build();
     }
 
+    private static Map<UUID, Long> parseShardRowCounts(Collection<String> fragments)
+    {
+        ImmutableMap.Builder<UUID, Long> rowCounts = ImmutableMap.builder();
+        for (String fragment : fragments) {
+            Iterator<String> split = Splitter.on(':').split(fragment).iterator();
+            split.next();
+            UUID shardUuid = UUID.fromString(split.next());
+            if (split.hasNext()) {
+                rowCounts.put(shardUuid, Long.parseLong(split.next()));
+            }
+        }
+        return rowCounts.build();
+    }
+
     private static Predicate<ColumnMetadata> isSampleWeightColumn()
     {
         return new Predicate<ColumnMetadata>()
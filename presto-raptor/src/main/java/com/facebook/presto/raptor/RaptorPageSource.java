@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.raptor;
+
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+
+import java.util.Iterator;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Returns the blocks stored for the columns of a shard as pages.  The column files
+ * are not required to split their blocks at the same positions, so each page covers
+ * the positions that the current blocks of all columns have in common.
+ */
+public class RaptorPageSource
+        implements ConnectorPageSource
+{
+    private final List<Type> types;
+    private final List<Iterator<Block>> iterators;
+    private final Block[] blocks;
+    private final int[] positions;
+
+    private long completedBytes;
+    private boolean finished;
+
+    public RaptorPageSource(List<Type> types, List<Iterable<Block>> channels)
+    {
+        this.types = ImmutableList.copyOf(checkNotNull(types, "types is null"));
+        checkNotNull(channels, "channels is null");
+        checkArgument(!channels.isEmpty(), "channels is empty");
+        checkArgument(types.size() == channels.size(), "types and channels do not match");
+
+        ImmutableList.Builder<Iterator<Block>> iterators = ImmutableList.builder();
+        for (Iterable<Block> channel : channels) {
+            iterators.add(channel.iterator());
+        }
+        this.iterators = iterators.build();
+
+        this.blocks = new Block[channels.size()];
+        this.positions = new int[channels.size()];
+    }
+
+    @Override
+    public List<Type> getTypes()
+    {
+        return types;
+    }
+
+    @Override
+    public long getTotalBytes()
+    {
+        return 0;
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return completedBytes;
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return 0;
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return finished;
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        if (finished) {
+            return null;
+        }
+
+        // all columns should end together
+        if (getRemainingPositions(0) <= 0 && !iterators.get(0).hasNext()) {
+            for (Iterator<Block> iterator : iterators) {
+                checkState(!iterator.hasNext(), "columns of the shard have different lengths");
+            }
+            finished = true;
+            return null;
+        }
+
+        // determine maximum shared length
+        int length = Integer.MAX_VALUE;
+        for (int channel = 0; channel < blocks.length; channel++) {
+            if (getRemainingPositions(channel) <= 0) {
+                blocks[channel] = iterators.get(channel).next();
+                positions[channel] = 0;
+            }
+            length = Math.min(length, getRemainingPositions(channel));
+        }
+
+        Block[] regions = new Block[blocks.length];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            if (positions[channel] == 0 && blocks[channel].getPositionCount() == length) {
+                regions[channel] = blocks[channel];
+            }
+            else {
+                regions[channel] = blocks[channel].getRegion(positions[channel], length);
+            }
+            positions[channel] += length;
+        }
+
+        Page page = new Page(length, regions);
+        completedBytes += page.getSizeInBytes();
+        return page;
+    }
+
+    private int getRemainingPositions(int channel)
+    {
+        if (blocks[channel] == null) {
+            return 0;
+        }
+        return blocks[channel].getPositionCount() - positions[channel];
+    }
+
+    @Override
+    public void close()
+    {
+        finished = true;
+    }
+}
@@ -44,6 +44,7 @@ public class RaptorRecordSink
     private final int sampleWeightField;
 
     private int field = -1;
+    private long rowCount;
 
     public RaptorRecordSink(String nodeId, ColumnFileHandle fileHandle, LocalStorageManager storageManager, List<Type> columnTypes, RaptorColumnHandle sampleWeightColumnHandle)
     {
@@ -84,6 +85,7 @@ public class RaptorRecordSink
         checkState(field != -1, "not in record");
         checkState(field == lastField(), "not all fields set");
         field = -1;
+        rowCount++;
 
         if (pageBuilder.isFull()) {
             fileHandle.append(pageBuilder.build());
@@ -138,7 +140,7 @@ public class RaptorRecordSink
             throw Throwables.propagate(e);
         }
 
-        return Joiner.on(':').join(nodeId, fileHandle.getShardUuid());
+        return Joiner.on(':').join(nodeId, fileHandle.getShardUuid(), rowCount);
     }
 
     private BlockBuilder nextBlockBuilder()
@@ -19,6 +19,7 @@ import com.facebook.presto.spi.PrestoException;
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
@@ -66,7 +67,18 @@ public class DatabaseShardManager
     }
 
     @Override
-    public void commitPartition(final long tableId, String partition, List<PartitionKey> partitionKeys, final Map<UUID, String> shards)
+    public void commitPartition(long tableId, String partition, List<PartitionKey> partitionKeys, Map<UUID, String> shards)
+    {
+        commitPartition(tableId, partition, partitionKeys, shards, ImmutableMap.<UUID, Long>of());
+    }
+
+    @Override
+    public void commitUnpartitionedTable(long tableId, Map<UUID, String> shards, Map<UUID, Long> shardRowCounts)
+    {
+        commitPartition(tableId, "<UNPARTITIONED>", ImmutableList.<PartitionKey>of(), shards, shardRowCounts);
+    }
+
+    private void commitPartition(final long tableId, String partition, List<PartitionKey> partitionKeys, final Map<UUID, String> shards, final Map<UUID, Long> shardRowCounts)
     {
         final long partitionId = getOrCreatePartitionId(tableId, partition, partitionKeys);
 
@@ -82,17 +94,16 @@ public class DatabaseShardManager
                     long shardId = dao.insertShard(shardUuid);
                     dao.insertShardNode(shardId, nodeId);
                     dao.insertPartitionShard(shardId, tableId, partitionId);
+
+                    Long rowCount = shardRowCounts.get(shardUuid);
+                    if (rowCount != null) {
+                        dao.insertShardRowCount(shardId, rowCount);
+                    }
                 }
             }
         });
     }
 
-    @Override
-    public void commitUnpartitionedTable(long tableId, Map<UUID, String> shards)
-    {
-        commitPartition(tableId, "<UNPARTITIONED>", ImmutableList.<PartitionKey>of(), shards);
-    }
-
     @Override
     public void disassociateShard(long shardId, @Nullable String nodeIdentifier)
     {
@@ -109,6 +120,7 @@ public class DatabaseShardManager
             {
                 ShardManagerDao dao = handle.attach(ShardManagerDao.class);
                 dao.deleteShardFromPartitionShards(shardId);
+                dao.deleteShardRowCount(shardId);
                 dao.deleteShard(shardId);
             }
         });
@@ -140,6 +152,13 @@ public class DatabaseShardManager
         return map.build();
     }
 
+    @Override
+    public ShardRowCounts getShardRowCounts(ConnectorTableHandle tableHandle)
+    {
+        long tableId = checkType(tableHandle, RaptorTableHandle.class, "tableHandle").getTableId();
+        return dao.getShardRowCounts(tableId);
+    }
+
     @Override
     public Set<String> getTableNodes(ConnectorTableHandle tableHandle)
     {
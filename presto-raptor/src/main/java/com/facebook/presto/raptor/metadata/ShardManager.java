@@ -45,8 +45,10 @@ public interface ShardManager
 
     /**
      * Commit an unpartitioned table.
+     *
+     * @param shardRowCounts the number of rows in each shard, for the shards where it is known
      */
-    void commitUnpartitionedTable(long tableId, Map<UUID, String> shards);
+    void commitUnpartitionedTable(long tableId, Map<UUID, String> shards, Map<UUID, Long> shardRowCounts);
 
     /**
      * Get the names of all partitions that have been successfully imported.
@@ -67,6 +69,11 @@ public interface ShardManager
      */
     Multimap<Long, Entry<UUID, String>> getShardNodesByPartition(ConnectorTableHandle tableHandle);
 
+    /**
+     * Return the row counts of the shards of a table.
+     */
+    ShardRowCounts getShardRowCounts(ConnectorTableHandle tableHandle);
+
     /**
      * Return list of nodes used by table shards.
      *
@@ -82,6 +82,13 @@ public interface ShardManagerDao
             ")")
     void createPartitionShards();
 
+    @SqlUpdate("CREATE TABLE IF NOT EXISTS shard_row_counts (\n" +
+            "  shard_id BIGINT PRIMARY KEY,\n" +
+            "  row_count BIGINT NOT NULL,\n" +
+            "  FOREIGN KEY (shard_id) REFERENCES shards (shard_id)\n" +
+            ")")
+    void createShardRowCounts();
+
     @SqlUpdate("INSERT INTO nodes (node_identifier) VALUES (:nodeIdentifier)")
     void insertNode(@Bind("nodeIdentifier") String nodeIdentifier);
 
@@ -119,6 +126,12 @@ public interface ShardManagerDao
             @Bind("tableId") long tableId,
             @Bind("partitionId") long partitionId);
 
+    @SqlUpdate("INSERT INTO shard_row_counts (shard_id, row_count)\n" +
+            "VALUES (:shardId, :rowCount)\n")
+    void insertShardRowCount(
+            @Bind("shardId") long shardId,
+            @Bind("rowCount") long rowCount);
+
     @SqlQuery("SELECT node_id FROM nodes WHERE node_identifier = :nodeIdentifier")
     Long getNodeId(@Bind("nodeIdentifier") String nodeIdentifier);
 
@@ -156,6 +169,15 @@ public interface ShardManagerDao
             "WHERE ps.table_id = :tableId")
     Set<String> getTableNodes(@Bind("tableId") long tableId);
 
+    @SqlQuery("SELECT count(*) AS shard_count,\n" +
+            "  count(rc.shard_id) AS counted_shard_count,\n" +
+            "  COALESCE(sum(rc.row_count), 0) AS row_count\n" +
+            "FROM partition_shards ps\n" +
+            "LEFT JOIN shard_row_counts rc ON (ps.shard_id = rc.shard_id)\n" +
+            "WHERE ps.table_id = :tableId")
+    @Mapper(ShardRowCounts.Mapper.class)
+    ShardRowCounts getShardRowCounts(@Bind("tableId") long tableId);
+
     @SqlQuery("SELECT node_identifier FROM nodes")
     List<String> getAllNodesInUse();
 
@@ -170,6 +192,10 @@ public interface ShardManagerDao
             "WHERE shard_id = :shardId\n")
     void deleteShardFromPartitionShards(@Bind("shardId") long shardId);
 
+    @SqlUpdate("DELETE FROM shard_row_counts\n" +
+            "WHERE shard_id = :shardId\n")
+    void deleteShardRowCount(@Bind("shardId") long shardId);
+
     @SqlUpdate("DELETE FROM shards\n" +
             "  WHERE shard_id = :shardId\n")
     void deleteShard(@Bind("shardId") long shardId);
@@ -49,5 +49,6 @@ public final class ShardManagerDaoUtils
         dao.createTablePartitions();
         dao.createPartitionKeys();
         dao.createPartitionShards();
+        dao.createShardRowCounts();
     }
 }
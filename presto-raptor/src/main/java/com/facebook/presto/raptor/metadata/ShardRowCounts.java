@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.raptor.metadata;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import org.skife.jdbi.v2.StatementContext;
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Row counts of the shards of a table.  Shards written before row counts were
+ * recorded do not have one.
+ */
+public class ShardRowCounts
+{
+    private final long shardCount;
+    private final long countedShardCount;
+    private final long rowCount;
+
+    ShardRowCounts(long shardCount, long countedShardCount, long rowCount)
+    {
+        this.shardCount = shardCount;
+        this.countedShardCount = countedShardCount;
+        this.rowCount = rowCount;
+    }
+
+    public long getShardCount()
+    {
+        return shardCount;
+    }
+
+    public long getCountedShardCount()
+    {
+        return countedShardCount;
+    }
+
+    /**
+     * Returns the total row count of the shards with a row count.
+     */
+    public long getRowCount()
+    {
+        return rowCount;
+    }
+
+    /**
+     * Returns the row count of the table, extrapolated to the shards without a row count,
+     * or absent if no shard has one.
+     */
+    public Optional<Long> getEstimatedRowCount()
+    {
+        if (shardCount == 0) {
+            return Optional.of(0L);
+        }
+        if (countedShardCount == 0) {
+            return Optional.absent();
+        }
+        return Optional.of(rowCount * shardCount / countedShardCount);
+    }
+
+    @Override
+    public String toString()
+    {
+        return Objects.toStringHelper(this)
+                .add("shardCount", shardCount)
+                .add("countedShardCount", countedShardCount)
+                .add("rowCount", rowCount)
+                .toString();
+    }
+
+    public static class Mapper
+            implements ResultSetMapper<ShardRowCounts>
+    {
+        @Override
+        public ShardRowCounts map(int index, ResultSet r, StatementContext ctx)
+                throws SQLException
+        {
+            return new ShardRowCounts(
+                    r.getLong("shard_count"),
+                    r.getLong("counted_shard_count"),
+                    r.getLong("row_count"));
+        }
+    }
+}
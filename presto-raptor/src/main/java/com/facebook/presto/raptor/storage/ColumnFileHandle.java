@@ -13,11 +13,11 @@
  */
 package com.facebook.presto.raptor.storage;
 
-import com.facebook.presto.operator.Page;
 import com.facebook.presto.raptor.RaptorColumnHandle;
 import com.facebook.presto.serde.BlocksFileEncoding;
 import com.facebook.presto.serde.BlocksFileWriter;
 import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
 import com.google.common.base.Throwables;
@@ -16,7 +16,6 @@ package com.facebook.presto.raptor.storage;
 import com.facebook.presto.execution.TaskId;
 import com.facebook.presto.operator.AlignmentOperator;
 import com.facebook.presto.operator.OperatorContext;
-import com.facebook.presto.operator.Page;
 import com.facebook.presto.operator.TaskContext;
 import com.facebook.presto.raptor.RaptorColumnHandle;
 import com.facebook.presto.serde.BlocksFileEncoding;
@@ -24,6 +23,7 @@ import com.facebook.presto.serde.BlocksFileReader;
 import com.facebook.presto.serde.BlocksFileStats;
 import com.facebook.presto.spi.ConnectorColumnHandle;
 import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
 import com.facebook.presto.spi.type.Type;
@@ -33,6 +33,9 @@ import com.google.common.base.Function;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.io.Files;
@@ -58,6 +61,7 @@ import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
 import static com.facebook.presto.util.Types.checkType;
@@ -89,20 +93,8 @@ public class DatabaseLocalStorageManager
     private final File baseStagingDir;
     private final StorageManagerDao dao;
 
-    private final LoadingCache<File, Slice> mappedFileCache = CacheBuilder.newBuilder().build(new CacheLoader<File, Slice>()
-    {
-        @Override
-        public Slice load(File file)
-                throws Exception
-        {
-            checkArgument(file.isAbsolute(), "file is not absolute: %s", file);
-            checkArgument(file.canRead(), "file is not readable: %s", file);
-            if (file.length() == 0) {
-                return Slices.EMPTY_SLICE;
-            }
-            return Slices.mapFileReadOnly(file);
-        }
-    });
+    private final LoadingCache<File, Slice> mappedFileCache;
+    private final AtomicLong mappedBytes = new AtomicLong();
     private final BlocksFileEncoding defaultEncoding;
 
     @Inject
@@ -122,6 +114,48 @@ public class DatabaseLocalStorageManager
         this.executorMBean = new ThreadPoolExecutorMBean((ThreadPoolExecutor) executor);
         this.shardBoundedExecutor = new KeyBoundedExecutor<>(executor);
 
+        // Mapped files are weighed by their size and the least recently used are evicted first.
+        // Evicted mappings are not unmapped explicitly, because blocks read from them may still
+        // be in use by queries, but are released once the last reference is collected.
+        // The cache has a single segment, since Guava divides the maximum weight between the
+        // segments, which would evict files larger than a segment's share of the maximum.
+        this.mappedFileCache = CacheBuilder.newBuilder()
+                .concurrencyLevel(1)
+                .maximumWeight(config.getMaxMappedSize().toBytes())
+                .weigher(new Weigher<File, Slice>()
+                {
+                    @Override
+                    public int weigh(File file, Slice slice)
+                    {
+                        return slice.length();
+                    }
+                })
+                .removalListener(new RemovalListener<File, Slice>()
+                {
+                    @Override
+                    public void onRemoval(RemovalNotification<File, Slice> notification)
+                    {
+                        mappedBytes.addAndGet(-notification.getValue().length());
+                    }
+                })
+                .recordStats()
+                .build(new CacheLoader<File, Slice>()
+                {
+                    @Override
+                    public Slice load(File file)
+                            throws Exception
+                    {
+                        checkArgument(file.isAbsolute(), "file is not absolute: %s", file);
+                        checkArgument(file.canRead(), "file is not readable: %s", file);
+                        if (file.length() == 0) {
+                            return Slices.EMPTY_SLICE;
+                        }
+                        Slice slice = Slices.mapFileReadOnly(file);
+                        mappedBytes.addAndGet(slice.length());
+                        return slice;
+                    }
+                });
+
         dao.createTableColumns();
 
         if (config.isCompressed()) {
@@ -145,6 +179,36 @@ public class DatabaseLocalStorageManager
         return executorMBean;
     }
 
+    @Managed
+    public long getMappedFileCacheHitCount()
+    {
+        return mappedFileCache.stats().hitCount();
+    }
+
+    @Managed
+    public long getMappedFileCacheMissCount()
+    {
+        return mappedFileCache.stats().missCount();
+    }
+
+    @Managed
+    public long getMappedFileCacheEvictionCount()
+    {
+        return mappedFileCache.stats().evictionCount();
+    }
+
+    @Managed
+    public long getMappedFileCount()
+    {
+        return mappedFileCache.size();
+    }
+
+    @Managed
+    public long getMappedBytes()
+    {
+        return mappedBytes.get();
+    }
+
     @Override
     public ColumnFileHandle createStagingFileHandles(UUID shardUuid, List<RaptorColumnHandle> columnHandles)
             throws IOException
@@ -201,6 +265,8 @@ public class DatabaseLocalStorageManager
                 // Compute optimal encoding from stats
                 BlocksFileReader blocks = BlocksFileReader.readBlocks(blockEncodingSerde, slice);
                 BlocksFileStats stats = blocks.getStats();
+                // the staging file is not read through the cache again
+                mappedFileCache.invalidate(file.getAbsoluteFile());
                 boolean rleEncode = stats.getAvgRunLength() > RUN_LENGTH_AVERAGE_CUTOFF;
                 boolean dicEncode = stats.getUniqueCount() < DICTIONARY_CARDINALITY_CUTOFF;
 
@@ -414,6 +480,7 @@ public class DatabaseLocalStorageManager
             List<String> shardFiles = dao.getShardFiles(shardUuid);
             for (String shardFile : shardFiles) {
                 File file = new File(getShardPath(baseStorageDir, shardUuid), shardFile);
+                mappedFileCache.invalidate(file.getAbsoluteFile());
                 if (!file.delete()) {
                     log.warn("failed to delete file: %s", file.getAbsolutePath());
                 }
@@ -15,17 +15,21 @@ package com.facebook.presto.raptor.storage;
 
 import io.airlift.configuration.Config;
 import io.airlift.configuration.ConfigDescription;
+import io.airlift.units.DataSize;
 
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
 import java.io.File;
 
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
+
 public class DatabaseLocalStorageManagerConfig
 {
     private File dataDirectory = new File("var/data");
     private int tasksPerNode = 32;
     private boolean compressed = true;
+    private DataSize maxMappedSize = new DataSize(4, GIGABYTE);
 
     @NotNull
     public File getDataDirectory()
@@ -55,6 +59,20 @@ public class DatabaseLocalStorageManagerConfig
         return this;
     }
 
+    @NotNull
+    public DataSize getMaxMappedSize()
+    {
+        return maxMappedSize;
+    }
+
+    @Config("storage.max-mapped-size")
+    @ConfigDescription("Maximum total size of column files kept memory mapped")
+    public DatabaseLocalStorageManagerConfig setMaxMappedSize(DataSize maxMappedSize)
+    {
+        this.maxMappedSize = maxMappedSize;
+        return this;
+    }
+
     @Deprecated
     public boolean isCompressed()
     {
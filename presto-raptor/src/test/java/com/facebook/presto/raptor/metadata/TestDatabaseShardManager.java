@@ -16,6 +16,7 @@ package com.facebook.presto.raptor.metadata;
 import com.facebook.presto.raptor.RaptorColumnHandle;
 import com.facebook.presto.raptor.RaptorTableHandle;
 import com.facebook.presto.spi.ConnectorTableHandle;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -96,4 +97,30 @@ public class TestDatabaseShardManager
         Collection<Entry<UUID, String>> partitionShards = allShardNodes.get(partitionId);
         assertEquals(partitionShards.size(), 1);
     }
+
+    @Test
+    public void testShardRowCounts()
+            throws Exception
+    {
+        long tableId = 1;
+        ConnectorTableHandle tableHandle = new RaptorTableHandle("test", "demo", "test", tableId, new RaptorColumnHandle("test", "foo", 1, BIGINT), null);
+
+        ShardRowCounts rowCounts = shardManager.getShardRowCounts(tableHandle);
+        assertEquals(rowCounts.getShardCount(), 0);
+        assertEquals(rowCounts.getEstimatedRowCount(), Optional.of(0L));
+
+        // a shard committed without a row count
+        shardManager.commitPartition(tableId, "some-partition", ImmutableList.<PartitionKey>of(), ImmutableMap.of(UUID.randomUUID(), "some-node"));
+        assertEquals(shardManager.getShardRowCounts(tableHandle).getEstimatedRowCount(), Optional.<Long>absent());
+
+        UUID shardId1 = UUID.randomUUID();
+        UUID shardId2 = UUID.randomUUID();
+        shardManager.commitUnpartitionedTable(tableId, ImmutableMap.of(shardId1, "some-node", shardId2, "some-node"), ImmutableMap.of(shardId1, 10L, shardId2, 20L));
+
+        rowCounts = shardManager.getShardRowCounts(tableHandle);
+        assertEquals(rowCounts.getShardCount(), 3);
+        assertEquals(rowCounts.getCountedShardCount(), 2);
+        assertEquals(rowCounts.getRowCount(), 30);
+        assertEquals(rowCounts.getEstimatedRowCount(), Optional.of(45L));
+    }
 }
@@ -19,16 +19,17 @@ import com.facebook.presto.operator.DriverContext;
 import com.facebook.presto.operator.Operator;
 import com.facebook.presto.operator.OperatorAssertion;
 import com.facebook.presto.operator.OperatorContext;
-import com.facebook.presto.operator.Page;
 import com.facebook.presto.operator.TaskContext;
 import com.facebook.presto.raptor.RaptorColumnHandle;
 import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.testing.MaterializedResult;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.io.Files;
 import io.airlift.testing.FileUtils;
+import io.airlift.units.DataSize;
 import org.skife.jdbi.v2.DBI;
 import org.skife.jdbi.v2.Handle;
 import org.skife.jdbi.v2.IDBI;
@@ -51,7 +52,10 @@ import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.testing.TestingBlockEncodingManager.createTestingBlockEncodingManager;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
@@ -59,6 +63,7 @@ import static org.testng.Assert.assertTrue;
 @Test(singleThreaded = true)
 public class TestDatabaseLocalStorageManager
 {
+    private IDBI dbi;
     private Handle dummyHandle;
     private File dataDir;
     private LocalStorageManager storageManager;
@@ -69,7 +74,7 @@ public class TestDatabaseLocalStorageManager
     public void setup()
             throws IOException
     {
-        IDBI dbi = new DBI("jdbc:h2:mem:test" + System.nanoTime());
+        dbi = new DBI("jdbc:h2:mem:test" + System.nanoTime());
         dummyHandle = dbi.open();
         dataDir = Files.createTempDir();
         DatabaseLocalStorageManagerConfig config = new DatabaseLocalStorageManagerConfig().setDataDirectory(dataDir);
@@ -155,6 +160,121 @@ public class TestDatabaseLocalStorageManager
         assertTrue(Iterables.isEmpty(storageManager.getBlocks(shardUuid, columnHandles.get(0))));
     }
 
+    @Test
+    public void testMappedFileCacheEviction()
+            throws Exception
+    {
+        RaptorColumnHandle columnHandle = new RaptorColumnHandle("test", "column_17", 17L, BIGINT);
+        List<UUID> shards = ImmutableList.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        for (UUID shardUuid : shards) {
+            createShard(shardUuid, columnHandle);
+        }
+
+        // the files of all shards have the same size, and two of them fit in the cache
+        long fileSize = getColumnFile(shards.get(0)).length();
+        assertTrue(fileSize > 0);
+        DatabaseLocalStorageManager manager = createStorageManager(new DataSize(2 * fileSize, BYTE));
+
+        readShard(manager, shards.get(0), columnHandle);
+        readShard(manager, shards.get(1), columnHandle);
+        assertEquals(manager.getMappedFileCount(), 2);
+        assertEquals(manager.getMappedBytes(), 2 * fileSize);
+        assertEquals(manager.getMappedFileCacheEvictionCount(), 0);
+
+        // mapping a third file evicts the least recently used one
+        readShard(manager, shards.get(0), columnHandle);
+        readShard(manager, shards.get(2), columnHandle);
+        assertEquals(manager.getMappedFileCount(), 2);
+        assertEquals(manager.getMappedBytes(), 2 * fileSize);
+        assertEquals(manager.getMappedFileCacheEvictionCount(), 1);
+
+        readShard(manager, shards.get(0), columnHandle);
+        assertEquals(manager.getMappedFileCacheHitCount(), 2);
+        assertEquals(manager.getMappedFileCacheMissCount(), 3);
+
+        readShard(manager, shards.get(1), columnHandle);
+        assertEquals(manager.getMappedFileCacheHitCount(), 2);
+        assertEquals(manager.getMappedFileCacheMissCount(), 4);
+        assertEquals(manager.getMappedFileCacheEvictionCount(), 2);
+    }
+
+    @Test
+    public void testMappedFileCacheLargeFile()
+            throws Exception
+    {
+        RaptorColumnHandle columnHandle = new RaptorColumnHandle("test", "column_19", 19L, BIGINT);
+        UUID shardUuid = UUID.randomUUID();
+        createShard(shardUuid, columnHandle);
+
+        // a file that takes up most of the cache is still kept
+        long fileSize = getColumnFile(shardUuid).length();
+        DatabaseLocalStorageManager manager = createStorageManager(new DataSize(fileSize + 1, BYTE));
+
+        readShard(manager, shardUuid, columnHandle);
+        readShard(manager, shardUuid, columnHandle);
+        assertEquals(manager.getMappedFileCount(), 1);
+        assertEquals(manager.getMappedBytes(), fileSize);
+        assertEquals(manager.getMappedFileCacheHitCount(), 1);
+        assertEquals(manager.getMappedFileCacheMissCount(), 1);
+        assertEquals(manager.getMappedFileCacheEvictionCount(), 0);
+    }
+
+    @Test
+    public void testMappedFileCacheStats()
+            throws Exception
+    {
+        DatabaseLocalStorageManager manager = createStorageManager(new DataSize(1, MEGABYTE));
+        RaptorColumnHandle columnHandle = new RaptorColumnHandle("test", "column_23", 23L, BIGINT);
+        UUID shardUuid = UUID.randomUUID();
+
+        ColumnFileHandle fileHandles = manager.createStagingFileHandles(shardUuid, ImmutableList.of(columnHandle));
+        for (Page page : rowPagesBuilder(BIGINT).addSequencePage(1000, 0).build()) {
+            fileHandles.append(page);
+        }
+        manager.commit(fileHandles);
+
+        // the staging file is read once while committing and is not kept in the cache
+        assertEquals(manager.getMappedFileCacheMissCount(), 1);
+        assertEquals(manager.getMappedFileCount(), 0);
+        assertEquals(manager.getMappedBytes(), 0);
+
+        readShard(manager, shardUuid, columnHandle);
+        assertEquals(manager.getMappedFileCacheHitCount(), 0);
+        assertEquals(manager.getMappedFileCacheMissCount(), 2);
+        assertEquals(manager.getMappedFileCount(), 1);
+        assertEquals(manager.getMappedBytes(), getColumnFile(shardUuid).length());
+
+        readShard(manager, shardUuid, columnHandle);
+        readShard(manager, shardUuid, columnHandle);
+        assertEquals(manager.getMappedFileCacheHitCount(), 2);
+        assertEquals(manager.getMappedFileCacheMissCount(), 2);
+        assertEquals(manager.getMappedFileCacheEvictionCount(), 0);
+    }
+
+    @Test
+    public void testDropShardInvalidatesMappedFiles()
+            throws Exception
+    {
+        DatabaseLocalStorageManager manager = createStorageManager(new DataSize(1, MEGABYTE));
+        RaptorColumnHandle columnHandle = new RaptorColumnHandle("test", "column_29", 29L, BIGINT);
+        UUID shardUuid = UUID.randomUUID();
+        createShard(shardUuid, columnHandle);
+        File file = getColumnFile(shardUuid);
+
+        readShard(manager, shardUuid, columnHandle);
+        assertEquals(manager.getMappedFileCount(), 1);
+
+        manager.dropShard(shardUuid);
+        while (manager.isShardActive(shardUuid)) {
+            MILLISECONDS.sleep(10);
+        }
+
+        assertFalse(manager.shardExists(shardUuid));
+        assertFalse(file.exists());
+        assertEquals(manager.getMappedFileCount(), 0);
+        assertEquals(manager.getMappedBytes(), 0);
+    }
+
     @Test
     public void testShardPath()
     {
@@ -163,4 +283,36 @@ public class TestDatabaseLocalStorageManager
         File actual = new File("/data/test/db/29/8a/db298a0c-e968-4d5a-8e58-b1021c7eab2c");
         assertEquals(expected, actual);
     }
+
+    private DatabaseLocalStorageManager createStorageManager(DataSize maxMappedSize)
+            throws IOException
+    {
+        DatabaseLocalStorageManagerConfig config = new DatabaseLocalStorageManagerConfig()
+                .setDataDirectory(dataDir)
+                .setMaxMappedSize(maxMappedSize);
+        return new DatabaseLocalStorageManager(dbi, createTestingBlockEncodingManager(), config);
+    }
+
+    private void createShard(UUID shardUuid, RaptorColumnHandle columnHandle)
+            throws IOException
+    {
+        ColumnFileHandle fileHandles = storageManager.createStagingFileHandles(shardUuid, ImmutableList.of(columnHandle));
+        for (Page page : rowPagesBuilder(BIGINT).addSequencePage(1000, 0).build()) {
+            fileHandles.append(page);
+        }
+        storageManager.commit(fileHandles);
+    }
+
+    private File getColumnFile(UUID shardUuid)
+    {
+        File[] files = getShardPath(new File(dataDir, "storage"), shardUuid).listFiles();
+        assertEquals(files.length, 1);
+        return files[0];
+    }
+
+    private static void readShard(LocalStorageManager manager, UUID shardUuid, RaptorColumnHandle columnHandle)
+    {
+        // the file is mapped when the blocks are iterated
+        assertFalse(Iterables.isEmpty(manager.getBlocks(shardUuid, columnHandle)));
+    }
 }
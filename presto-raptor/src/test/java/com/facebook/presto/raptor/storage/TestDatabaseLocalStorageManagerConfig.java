@@ -15,6 +15,7 @@ package com.facebook.presto.raptor.storage;
 
 import com.google.common.collect.ImmutableMap;
 import io.airlift.configuration.testing.ConfigAssertions;
+import io.airlift.units.DataSize;
 import org.testng.annotations.Test;
 
 import javax.validation.constraints.NotNull;
@@ -23,6 +24,7 @@ import java.io.File;
 import java.util.Map;
 
 import static io.airlift.testing.ValidationAssertions.assertFailsValidation;
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
 
 public class TestDatabaseLocalStorageManagerConfig
 {
@@ -32,6 +34,7 @@ public class TestDatabaseLocalStorageManagerConfig
         ConfigAssertions.assertRecordedDefaults(ConfigAssertions.recordDefaults(DatabaseLocalStorageManagerConfig.class)
                 .setDataDirectory(new File("var/data"))
                 .setTasksPerNode(32)
+                .setMaxMappedSize(new DataSize(4, GIGABYTE))
                 .setCompressed(true));
     }
 
@@ -41,12 +44,14 @@ public class TestDatabaseLocalStorageManagerConfig
         Map<String, String> properties = new ImmutableMap.Builder<String, String>()
                 .put("storage.data-directory", "/data")
                 .put("storage.tasks-per-node", "16")
+                .put("storage.max-mapped-size", "1GB")
                 .put("storage.compress", "false")
                 .build();
 
         DatabaseLocalStorageManagerConfig expected = new DatabaseLocalStorageManagerConfig()
                 .setDataDirectory(new File("/data"))
                 .setTasksPerNode(16)
+                .setMaxMappedSize(new DataSize(1, GIGABYTE))
                 .setCompressed(false);
 
         ConfigAssertions.assertFullMapping(properties, expected);
@@ -56,5 +61,6 @@ public class TestDatabaseLocalStorageManagerConfig
     public void testValidations()
     {
         assertFailsValidation(new DatabaseLocalStorageManagerConfig().setDataDirectory(null), "dataDirectory", "may not be null", NotNull.class);
+        assertFailsValidation(new DatabaseLocalStorageManagerConfig().setMaxMappedSize(null), "maxMappedSize", "may not be null", NotNull.class);
     }
 }
@@ -26,6 +26,13 @@ public interface Connector
      */
     ConnectorRecordSetProvider getRecordSetProvider();
 
+    /**
+     * Connectors that return a page source provider are read through it instead of the record set provider.
+     *
+     * @throws UnsupportedOperationException if this connector doesn't support reading tables as pages
+     */
+    ConnectorPageSourceProvider getPageSourceProvider();
+
     /**
      * @throws UnsupportedOperationException if this connector doesn't support writing tables
      */
@@ -0,0 +1,86 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi;
+
+import com.facebook.presto.spi.type.Type;
+
+import java.util.Objects;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An aggregate function offered to a connector by
+ * {@link ConnectorMetadata#pushDownAggregation}.  The function is one of
+ * {@code count}, {@code sum}, {@code min} and {@code max}, so the results
+ * computed for each split can be combined by the engine.
+ */
+public class ConnectorAggregate
+{
+    private final String functionName;
+    private final ConnectorColumnHandle argument;
+    private final Type type;
+
+    /**
+     * @param argument the aggregated column, or null for {@code count(*)}
+     * @param type the type of the result
+     */
+    public ConnectorAggregate(String functionName, ConnectorColumnHandle argument, Type type)
+    {
+        this.functionName = requireNonNull(functionName, "functionName is null");
+        this.argument = argument;
+        this.type = requireNonNull(type, "type is null");
+    }
+
+    public String getFunctionName()
+    {
+        return functionName;
+    }
+
+    public ConnectorColumnHandle getArgument()
+    {
+        return argument;
+    }
+
+    public Type getType()
+    {
+        return type;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        ConnectorAggregate other = (ConnectorAggregate) obj;
+        return Objects.equals(this.functionName, other.functionName) &&
+                Objects.equals(this.argument, other.argument) &&
+                Objects.equals(this.type, other.type);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(functionName, argument, type);
+    }
+
+    @Override
+    public String toString()
+    {
+        return functionName + "(" + (argument == null ? "*" : argument) + ")";
+    }
+}
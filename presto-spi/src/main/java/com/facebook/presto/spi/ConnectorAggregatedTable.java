@@ -0,0 +1,68 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A table whose rows are the partially aggregated rows of another table, as returned by
+ * {@link ConnectorMetadata#pushDownAggregation}.  Each split of the table yields at most
+ * one row per group, but a group may appear in several splits.
+ */
+public class ConnectorAggregatedTable
+{
+    private final ConnectorTableHandle tableHandle;
+    private final List<ConnectorColumnHandle> groupingColumns;
+    private final List<ConnectorColumnHandle> aggregateColumns;
+
+    /**
+     * @param groupingColumns the columns holding the grouping values, in the order they were requested
+     * @param aggregateColumns the columns holding the aggregate results, in the order they were requested
+     */
+    public ConnectorAggregatedTable(ConnectorTableHandle tableHandle, List<ConnectorColumnHandle> groupingColumns, List<ConnectorColumnHandle> aggregateColumns)
+    {
+        this.tableHandle = requireNonNull(tableHandle, "tableHandle is null");
+        this.groupingColumns = unmodifiableList(new ArrayList<>(requireNonNull(groupingColumns, "groupingColumns is null")));
+        this.aggregateColumns = unmodifiableList(new ArrayList<>(requireNonNull(aggregateColumns, "aggregateColumns is null")));
+    }
+
+    public ConnectorTableHandle getTableHandle()
+    {
+        return tableHandle;
+    }
+
+    public List<ConnectorColumnHandle> getGroupingColumns()
+    {
+        return groupingColumns;
+    }
+
+    public List<ConnectorColumnHandle> getAggregateColumns()
+    {
+        return aggregateColumns;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ConnectorAggregatedTable{" +
+                "tableHandle=" + tableHandle +
+                ", groupingColumns=" + groupingColumns +
+                ", aggregateColumns=" + aggregateColumns +
+                '}';
+    }
+}
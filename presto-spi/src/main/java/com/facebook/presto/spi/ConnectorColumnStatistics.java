@@ -0,0 +1,80 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi;
+
+import java.util.Objects;
+
+/**
+ * Estimated distribution of the values of a column.  Values that are not known
+ * are {@link Double#NaN}.
+ */
+public class ConnectorColumnStatistics
+{
+    private final double distinctValuesCount;
+    private final double nullsFraction;
+
+    public ConnectorColumnStatistics(double distinctValuesCount, double nullsFraction)
+    {
+        if (distinctValuesCount < 0) {
+            throw new IllegalArgumentException("distinctValuesCount is negative");
+        }
+        if (nullsFraction < 0 || nullsFraction > 1) {
+            throw new IllegalArgumentException("nullsFraction must be between 0 and 1");
+        }
+        this.distinctValuesCount = distinctValuesCount;
+        this.nullsFraction = nullsFraction;
+    }
+
+    /**
+     * Returns the number of distinct non-null values.
+     */
+    public double getDistinctValuesCount()
+    {
+        return distinctValuesCount;
+    }
+
+    public double getNullsFraction()
+    {
+        return nullsFraction;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        ConnectorColumnStatistics other = (ConnectorColumnStatistics) obj;
+        return Double.compare(this.distinctValuesCount, other.distinctValuesCount) == 0 &&
+                Double.compare(this.nullsFraction, other.nullsFraction) == 0;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(distinctValuesCount, nullsFraction);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ConnectorColumnStatistics{" +
+                "distinctValuesCount=" + distinctValuesCount +
+                ", nullsFraction=" + nullsFraction +
+                '}';
+    }
+}
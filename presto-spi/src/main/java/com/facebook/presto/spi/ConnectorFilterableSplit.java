@@ -0,0 +1,29 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi;
+
+/**
+ * A split that can skip data using a predicate that is only known during execution,
+ * such as the join keys collected by a dynamic filter.
+ */
+public interface ConnectorFilterableSplit
+        extends ConnectorSplit
+{
+    /**
+     * Returns a split that reads the rows of this split that may match the predicate,
+     * or null if no row of this split can match.  The returned split is not required
+     * to remove all rows that do not match.
+     */
+    ConnectorSplit filter(TupleDomain<ConnectorColumnHandle> predicate);
+}
@@ -48,6 +48,42 @@ public interface ConnectorMetadata
      */
     ConnectorColumnHandle getSampleWeightColumnHandle(ConnectorTableHandle tableHandle);
 
+    /**
+     * Returns how the rows of the table are bucketed, or null if the table is not bucketed.
+     *
+     * @throws RuntimeException if the table handle is no longer valid
+     */
+    ConnectorTablePartitioning getTablePartitioning(ConnectorTableHandle tableHandle);
+
+    /**
+     * Returns estimated statistics for the rows of the specified partitions of the table,
+     * or {@link ConnectorTableStatistics#UNKNOWN} if the connector has none.
+     *
+     * @param partitions the partitions read by the query, or null for the entire table
+     * @throws RuntimeException if the table handle is no longer valid
+     */
+    ConnectorTableStatistics getTableStatistics(ConnectorTableHandle tableHandle, List<ConnectorPartition> partitions);
+
+    /**
+     * Offers the connector the aggregation of the rows of the table that match the constraint.
+     * The returned table must yield, for each split, the aggregates over the rows of that split
+     * grouped by the grouping columns.  The engine combines the groups of all splits.
+     *
+     * @return the aggregated table, or null if the connector can not compute the aggregation
+     * @throws RuntimeException if the table handle is no longer valid
+     */
+    ConnectorAggregatedTable pushDownAggregation(ConnectorTableHandle tableHandle, TupleDomain<ConnectorColumnHandle> constraint, List<ConnectorColumnHandle> groupingColumns, List<ConnectorAggregate> aggregates);
+
+    /**
+     * Offers the connector a limit on the number of rows read from the table.  The returned
+     * table must yield at most the specified number of rows from each split, and the engine
+     * still applies the limit to the rows of all splits.
+     *
+     * @return a handle for the limited table, or null if the connector can not apply the limit
+     * @throws RuntimeException if the table handle is no longer valid
+     */
+    ConnectorTableHandle pushDownLimit(ConnectorTableHandle tableHandle, long limit);
+
     /**
      * Returns true if this catalog supports creation of sampled tables
      */
@@ -0,0 +1,99 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Describes how the rows of a table are hashed into a fixed number of buckets.
+ *
+ * Two tables of the same connector with equal bucket functions and bucket counts place
+ * rows with equal values in the partitioning columns in the same bucket, so a join or
+ * aggregation on those columns can be evaluated one bucket at a time.  The splits of such
+ * a table must implement {@link ConnectorBucketedSplit}.
+ */
+public class ConnectorTablePartitioning
+{
+    private final List<ConnectorColumnHandle> partitioningColumns;
+    private final String bucketFunction;
+    private final int bucketCount;
+
+    /**
+     * @param bucketFunction identifies the function that hashes the values of the partitioning columns to buckets
+     */
+    public ConnectorTablePartitioning(List<ConnectorColumnHandle> partitioningColumns, String bucketFunction, int bucketCount)
+    {
+        requireNonNull(partitioningColumns, "partitioningColumns is null");
+        if (partitioningColumns.isEmpty()) {
+            throw new IllegalArgumentException("partitioningColumns is empty");
+        }
+        if (bucketCount <= 0) {
+            throw new IllegalArgumentException("bucketCount must be positive");
+        }
+        this.partitioningColumns = unmodifiableList(new ArrayList<>(partitioningColumns));
+        this.bucketFunction = requireNonNull(bucketFunction, "bucketFunction is null");
+        this.bucketCount = bucketCount;
+    }
+
+    public List<ConnectorColumnHandle> getPartitioningColumns()
+    {
+        return partitioningColumns;
+    }
+
+    public String getBucketFunction()
+    {
+        return bucketFunction;
+    }
+
+    public int getBucketCount()
+    {
+        return bucketCount;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        ConnectorTablePartitioning other = (ConnectorTablePartitioning) obj;
+        return Objects.equals(this.partitioningColumns, other.partitioningColumns) &&
+                Objects.equals(this.bucketFunction, other.bucketFunction) &&
+                this.bucketCount == other.bucketCount;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(partitioningColumns, bucketFunction, bucketCount);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ConnectorTablePartitioning{" +
+                "partitioningColumns=" + partitioningColumns +
+                ", bucketFunction='" + bucketFunction + '\'' +
+                ", bucketCount=" + bucketCount +
+                '}';
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Estimated size of a table, or of the partitions of a table read by a query.
+ *
+ * The planner uses statistics to order joins and to choose how they are distributed,
+ * so they only need to be accurate to within a small factor.  Values that are not known
+ * are {@link Double#NaN}.
+ */
+public class ConnectorTableStatistics
+{
+    public static final ConnectorTableStatistics UNKNOWN = new ConnectorTableStatistics(Double.NaN, Double.NaN, Collections.<ConnectorColumnHandle, ConnectorColumnStatistics>emptyMap());
+
+    private final double rowCount;
+    private final double dataSize;
+    private final Map<ConnectorColumnHandle, ConnectorColumnStatistics> columnStatistics;
+
+    /**
+     * @param dataSize the size of the data in bytes, as stored by the connector
+     */
+    public ConnectorTableStatistics(double rowCount, double dataSize, Map<ConnectorColumnHandle, ConnectorColumnStatistics> columnStatistics)
+    {
+        if (rowCount < 0) {
+            throw new IllegalArgumentException("rowCount is negative");
+        }
+        if (dataSize < 0) {
+            throw new IllegalArgumentException("dataSize is negative");
+        }
+        this.rowCount = rowCount;
+        this.dataSize = dataSize;
+        this.columnStatistics = unmodifiableMap(new HashMap<>(requireNonNull(columnStatistics, "columnStatistics is null")));
+    }
+
+    public double getRowCount()
+    {
+        return rowCount;
+    }
+
+    public double getDataSize()
+    {
+        return dataSize;
+    }
+
+    /**
+     * Returns the statistics of the columns that have any; columns not in the map have none.
+     */
+    public Map<ConnectorColumnHandle, ConnectorColumnStatistics> getColumnStatistics()
+    {
+        return columnStatistics;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        ConnectorTableStatistics other = (ConnectorTableStatistics) obj;
+        return Double.compare(this.rowCount, other.rowCount) == 0 &&
+                Double.compare(this.dataSize, other.dataSize) == 0 &&
+                Objects.equals(this.columnStatistics, other.columnStatistics);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(rowCount, dataSize, columnStatistics);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ConnectorTableStatistics{" +
+                "rowCount=" + rowCount +
+                ", dataSize=" + dataSize +
+                ", columnStatistics=" + columnStatistics +
+                '}';
+    }
+}
@@ -11,19 +11,16 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package com.facebook.presto.operator;
+package com.facebook.presto.spi;
 
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.Type;
-import com.google.common.base.Function;
-import com.google.common.base.Objects;
-import com.google.common.base.Preconditions;
 import io.airlift.slice.Slice;
-import io.airlift.units.DataSize;
-import io.airlift.units.DataSize.Unit;
 
 import java.util.Arrays;
 
+import static java.util.Objects.requireNonNull;
+
 public class Page
 {
     private final Block[] blocks;
@@ -36,7 +33,7 @@ public class Page
 
     public Page(int positionCount, Block... blocks)
     {
-        Preconditions.checkNotNull(blocks, "blocks is null");
+        requireNonNull(blocks, "blocks is null");
         this.blocks = Arrays.copyOf(blocks, blocks.length);
         this.positionCount = positionCount;
     }
@@ -51,13 +48,13 @@ public class Page
         return positionCount;
     }
 
-    public DataSize getDataSize()
+    public long getSizeInBytes()
     {
-        long dataSize = 0;
+        long sizeInBytes = 0;
         for (Block block : blocks) {
-            dataSize += block.getSizeInBytes();
+            sizeInBytes += block.getSizeInBytes();
         }
-        return new DataSize(dataSize, Unit.BYTE);
+        return sizeInBytes;
     }
 
     public Block[] getBlocks()
@@ -107,22 +104,11 @@ public class Page
     @Override
     public String toString()
     {
-        return Objects.toStringHelper(this)
-                .add("positionCount", positionCount)
-                .add("channelCount", getChannelCount())
-                .addValue("@" + Integer.toHexString(System.identityHashCode(this)))
-                .toString();
-    }
-
-    public Function<Integer, Block> blockGetter()
-    {
-        return new Function<Integer, Block>()
-        {
-            @Override
-            public Block apply(Integer input)
-            {
-                return getBlock(input);
-            }
-        };
+        StringBuilder sb = new StringBuilder("Page{");
+        sb.append("positionCount=").append(positionCount);
+        sb.append(", channelCount=").append(getChannelCount());
+        sb.append(", @").append(Integer.toHexString(System.identityHashCode(this)));
+        sb.append('}');
+        return sb.toString();
     }
 }
@@ -0,0 +1,33 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi;
+
+import com.facebook.presto.spi.type.Type;
+
+import java.util.List;
+
+/**
+ * A {@link RecordSink} that can also write whole pages, so connectors can convert the
+ * values of a column at a time instead of receiving a call for every field.  The engine
+ * writes pages to sinks that implement this interface unless the table is sampled.
+ */
+public interface PageSink
+        extends RecordSink
+{
+    /**
+     * Appends all rows of the page.  The blocks of the page hold the columns of the table,
+     * in order, with the specified types.
+     */
+    void appendPage(Page page, List<Type> types);
+}
@@ -23,6 +23,30 @@ import static java.util.Collections.emptyMap;
 public abstract class ReadOnlyConnectorMetadata
         implements ConnectorMetadata
 {
+    @Override
+    public ConnectorTablePartitioning getTablePartitioning(ConnectorTableHandle tableHandle)
+    {
+        return null;
+    }
+
+    @Override
+    public ConnectorTableStatistics getTableStatistics(ConnectorTableHandle tableHandle, List<ConnectorPartition> partitions)
+    {
+        return ConnectorTableStatistics.UNKNOWN;
+    }
+
+    @Override
+    public ConnectorAggregatedTable pushDownAggregation(ConnectorTableHandle tableHandle, TupleDomain<ConnectorColumnHandle> constraint, List<ConnectorColumnHandle> groupingColumns, List<ConnectorAggregate> aggregates)
+    {
+        return null;
+    }
+
+    @Override
+    public ConnectorTableHandle pushDownLimit(ConnectorTableHandle tableHandle, long limit)
+    {
+        return null;
+    }
+
     @Override
     public final ConnectorTableHandle createTable(ConnectorSession session, ConnectorTableMetadata tableMetadata)
     {
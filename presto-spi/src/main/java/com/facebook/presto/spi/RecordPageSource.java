@@ -0,0 +1,162 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi;
+
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.type.Type;
+import io.airlift.slice.Slice;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.facebook.presto.spi.block.BlockBuilderStatus.DEFAULT_MAX_BLOCK_SIZE_IN_BYTES;
+import static com.facebook.presto.spi.block.BlockBuilderStatus.DEFAULT_MAX_PAGE_SIZE_IN_BYTES;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Page source for connectors that produce records one at a time.  The records
+ * of the cursor are copied into pages.
+ */
+public class RecordPageSource
+        implements ConnectorPageSource
+{
+    private static final int ROWS_PER_REQUEST = 4096;
+
+    private final RecordCursor cursor;
+    private final List<Type> types;
+    private final int maxBlockSizeInBytes;
+    private boolean closed;
+
+    public RecordPageSource(RecordSet recordSet)
+    {
+        this(requireNonNull(recordSet, "recordSet is null").getColumnTypes(), recordSet.cursor());
+    }
+
+    public RecordPageSource(List<Type> types, RecordCursor cursor)
+    {
+        this.cursor = requireNonNull(cursor, "cursor is null");
+        this.types = Collections.unmodifiableList(new ArrayList<>(requireNonNull(types, "types is null")));
+        if (types.isEmpty()) {
+            this.maxBlockSizeInBytes = 0;
+        }
+        else {
+            this.maxBlockSizeInBytes = Math.min(DEFAULT_MAX_BLOCK_SIZE_IN_BYTES, DEFAULT_MAX_PAGE_SIZE_IN_BYTES / types.size());
+        }
+    }
+
+    public RecordCursor getCursor()
+    {
+        return cursor;
+    }
+
+    @Override
+    public List<Type> getTypes()
+    {
+        return types;
+    }
+
+    @Override
+    public long getTotalBytes()
+    {
+        return cursor.getTotalBytes();
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return cursor.getCompletedBytes();
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return cursor.getReadTimeNanos();
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        cursor.close();
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return closed;
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        if (closed) {
+            return null;
+        }
+
+        BlockBuilderStatus blockBuilderStatus = new BlockBuilderStatus(DEFAULT_MAX_PAGE_SIZE_IN_BYTES, maxBlockSizeInBytes);
+        BlockBuilder[] blockBuilders = new BlockBuilder[types.size()];
+        for (int i = 0; i < blockBuilders.length; i++) {
+            blockBuilders[i] = types.get(i).createBlockBuilder(blockBuilderStatus);
+        }
+
+        int positionCount = 0;
+        while (positionCount < ROWS_PER_REQUEST && !blockBuilderStatus.isFull()) {
+            if (!cursor.advanceNextPosition()) {
+                close();
+                break;
+            }
+            positionCount++;
+
+            for (int column = 0; column < blockBuilders.length; column++) {
+                BlockBuilder output = blockBuilders[column];
+                if (cursor.isNull(column)) {
+                    output.appendNull();
+                }
+                else {
+                    Type type = types.get(column);
+                    Class<?> javaType = type.getJavaType();
+                    if (javaType == boolean.class) {
+                        type.writeBoolean(output, cursor.getBoolean(column));
+                    }
+                    else if (javaType == long.class) {
+                        type.writeLong(output, cursor.getLong(column));
+                    }
+                    else if (javaType == double.class) {
+                        type.writeDouble(output, cursor.getDouble(column));
+                    }
+                    else if (javaType == Slice.class) {
+                        Slice slice = cursor.getSlice(column);
+                        type.writeSlice(output, slice, 0, slice.length());
+                    }
+                    else {
+                        throw new AssertionError("Unimplemented type: " + javaType.getName());
+                    }
+                }
+            }
+        }
+
+        if (positionCount == 0) {
+            return null;
+        }
+
+        Block[] blocks = new Block[blockBuilders.length];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = blockBuilders[i].build();
+        }
+        return new Page(positionCount, blocks);
+    }
+}
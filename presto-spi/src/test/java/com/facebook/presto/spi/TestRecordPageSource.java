@@ -0,0 +1,114 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi;
+
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class TestRecordPageSource
+{
+    @Test
+    public void testValues()
+            throws Exception
+    {
+        InMemoryRecordSet recordSet = new InMemoryRecordSet(
+                ImmutableList.of(BIGINT, VARCHAR),
+                ImmutableList.of(Arrays.<Object>asList(1L, "a"), Arrays.<Object>asList(null, "b"), Arrays.<Object>asList(3L, null)));
+        RecordPageSource pageSource = new RecordPageSource(recordSet);
+        assertEquals(pageSource.getTypes(), ImmutableList.of(BIGINT, VARCHAR));
+
+        Page page = pageSource.getNextPage();
+        assertEquals(page.getPositionCount(), 3);
+        assertEquals(page.getChannelCount(), 2);
+
+        assertEquals(BIGINT.getLong(page.getBlock(0), 0), 1L);
+        assertTrue(page.getBlock(0).isNull(1));
+        assertEquals(BIGINT.getLong(page.getBlock(0), 2), 3L);
+
+        assertEquals(VARCHAR.getSlice(page.getBlock(1), 0).toStringUtf8(), "a");
+        assertEquals(VARCHAR.getSlice(page.getBlock(1), 1).toStringUtf8(), "b");
+        assertTrue(page.getBlock(1).isNull(2));
+
+        assertTrue(pageSource.isFinished());
+        assertNull(pageSource.getNextPage());
+    }
+
+    @Test
+    public void testMultiplePages()
+            throws Exception
+    {
+        List<List<?>> records = new ArrayList<>();
+        for (long i = 0; i < 10_000; i++) {
+            records.add(ImmutableList.of(i));
+        }
+        RecordPageSource pageSource = new RecordPageSource(new InMemoryRecordSet(ImmutableList.of(BIGINT), records));
+
+        long expected = 0;
+        while (!pageSource.isFinished()) {
+            Page page = pageSource.getNextPage();
+            if (page == null) {
+                continue;
+            }
+            assertTrue(page.getPositionCount() > 0);
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                assertEquals(BIGINT.getLong(page.getBlock(0), position), expected);
+                expected++;
+            }
+        }
+        assertEquals(expected, 10_000);
+    }
+
+    @Test
+    public void testNoColumns()
+            throws Exception
+    {
+        List<List<?>> records = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            records.add(ImmutableList.of());
+        }
+        RecordPageSource pageSource = new RecordPageSource(new InMemoryRecordSet(ImmutableList.<Type>of(), records));
+
+        Page page = pageSource.getNextPage();
+        assertEquals(page.getPositionCount(), 5);
+        assertEquals(page.getChannelCount(), 0);
+        assertTrue(pageSource.isFinished());
+    }
+
+    @Test
+    public void testClose()
+            throws Exception
+    {
+        List<List<?>> records = new ArrayList<>();
+        for (long i = 0; i < 10_000; i++) {
+            records.add(ImmutableList.of(i));
+        }
+        RecordPageSource pageSource = new RecordPageSource(new InMemoryRecordSet(ImmutableList.of(BIGINT), records));
+        assertFalse(pageSource.isFinished());
+        pageSource.close();
+        assertTrue(pageSource.isFinished());
+        assertNull(pageSource.getNextPage());
+    }
+}
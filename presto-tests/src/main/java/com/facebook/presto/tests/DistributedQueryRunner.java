@@ -53,18 +53,25 @@ public class DistributedQueryRunner
 
     public DistributedQueryRunner(ConnectorSession defaultSession, int workersCount)
             throws Exception
+    {
+        this(defaultSession, workersCount, ImmutableMap.<String, String>of());
+    }
+
+    public DistributedQueryRunner(ConnectorSession defaultSession, int workersCount, Map<String, String> extraProperties)
+            throws Exception
     {
         checkNotNull(defaultSession, "defaultSession is null");
+        checkNotNull(extraProperties, "extraProperties is null");
 
         try {
             discoveryServer = new TestingDiscoveryServer(ENVIRONMENT);
 
             ImmutableList.Builder<TestingPrestoServer> servers = ImmutableList.builder();
-            coordinator = createTestingPrestoServer(discoveryServer.getBaseUrl(), true);
+            coordinator = createTestingPrestoServer(discoveryServer.getBaseUrl(), true, extraProperties);
             servers.add(coordinator);
 
             for (int i = 1; i < workersCount; i++) {
-                servers.add(createTestingPrestoServer(discoveryServer.getBaseUrl(), false));
+                servers.add(createTestingPrestoServer(discoveryServer.getBaseUrl(), false, extraProperties));
             }
             this.servers = servers.build();
         }
@@ -86,7 +93,7 @@ public class DistributedQueryRunner
         }
     }
 
-    private static TestingPrestoServer createTestingPrestoServer(URI discoveryUri, boolean coordinator)
+    private static TestingPrestoServer createTestingPrestoServer(URI discoveryUri, boolean coordinator, Map<String, String> extraProperties)
             throws Exception
     {
         ImmutableMap.Builder<String, String> properties = ImmutableMap.<String, String>builder()
@@ -99,6 +106,7 @@ public class DistributedQueryRunner
         if (coordinator) {
             properties.put("node-scheduler.include-coordinator", "false");
         }
+        properties.putAll(extraProperties);
 
         TestingPrestoServer server = new TestingPrestoServer(coordinator, properties.build(), ENVIRONMENT, discoveryUri, ImmutableList.<Module>of());
 
@@ -14,13 +14,19 @@
 package com.facebook.presto.tpch;
 
 import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.ConnectorAggregate;
+import com.facebook.presto.spi.ConnectorAggregatedTable;
 import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.ConnectorColumnStatistics;
+import com.facebook.presto.spi.ConnectorPartition;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorTableHandle;
 import com.facebook.presto.spi.ConnectorTableMetadata;
+import com.facebook.presto.spi.ConnectorTableStatistics;
 import com.facebook.presto.spi.ReadOnlyConnectorMetadata;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.SchemaTablePrefix;
+import com.facebook.presto.spi.TupleDomain;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -49,6 +55,28 @@ public class TpchMetadata
     public static final String ROW_NUMBER_COLUMN_NAME = "row_number";
     private static final TpchColumnHandle ROW_NUMBER_COLUMN_HANDLE = new TpchColumnHandle(ROW_NUMBER_COLUMN_NAME, -1, BIGINT);
 
+    // row counts at scale factor 1; the nation and region tables do not grow with the scale factor
+    private static final Map<String, Long> ROW_COUNTS = ImmutableMap.<String, Long>builder()
+            .put("region", 5L)
+            .put("nation", 25L)
+            .put("supplier", 10_000L)
+            .put("customer", 150_000L)
+            .put("part", 200_000L)
+            .put("partsupp", 800_000L)
+            .put("orders", 1_500_000L)
+            .put("lineitem", 6_001_215L)
+            .build();
+
+    // key columns have at most as many distinct values as the table they identify
+    private static final Map<String, String> KEY_COLUMN_TABLES = ImmutableMap.<String, String>builder()
+            .put("regionkey", "region")
+            .put("nationkey", "nation")
+            .put("suppkey", "supplier")
+            .put("custkey", "customer")
+            .put("partkey", "part")
+            .put("orderkey", "orders")
+            .build();
+
     private final String connectorId;
     private final Set<String> tableNames;
 
@@ -120,6 +148,52 @@ public class TpchMetadata
         return builder.build();
     }
 
+    @Override
+    public ConnectorTableStatistics getTableStatistics(ConnectorTableHandle tableHandle, List<ConnectorPartition> partitions)
+    {
+        TpchTableHandle tpchTableHandle = checkType(tableHandle, TpchTableHandle.class, "tableHandle");
+        double scaleFactor = tpchTableHandle.getScaleFactor();
+        double rowCount = getRowCount(tpchTableHandle.getTableName(), scaleFactor);
+
+        ImmutableMap.Builder<ConnectorColumnHandle, ConnectorColumnStatistics> columnStatistics = ImmutableMap.builder();
+        for (Map.Entry<String, ConnectorColumnHandle> entry : getColumnHandles(tableHandle).entrySet()) {
+            String keyTable = KEY_COLUMN_TABLES.get(entry.getKey());
+            if (entry.getKey().equals(ROW_NUMBER_COLUMN_NAME)) {
+                columnStatistics.put(entry.getValue(), new ConnectorColumnStatistics(rowCount, 0));
+            }
+            else if (keyTable != null) {
+                double distinctValuesCount = Math.min(rowCount, getRowCount(keyTable, scaleFactor));
+                columnStatistics.put(entry.getValue(), new ConnectorColumnStatistics(distinctValuesCount, 0));
+            }
+        }
+
+        return new ConnectorTableStatistics(rowCount, Double.NaN, columnStatistics.build());
+    }
+
+    @Override
+    public ConnectorAggregatedTable pushDownAggregation(ConnectorTableHandle tableHandle, TupleDomain<ConnectorColumnHandle> constraint, List<ConnectorColumnHandle> groupingColumns, List<ConnectorAggregate> aggregates)
+    {
+        return null;
+    }
+
+    @Override
+    public ConnectorTableHandle pushDownLimit(ConnectorTableHandle tableHandle, long limit)
+    {
+        return null;
+    }
+
+    private static double getRowCount(String tableName, double scaleFactor)
+    {
+        Long rowCount = ROW_COUNTS.get(tableName);
+        if (rowCount == null) {
+            return Double.NaN;
+        }
+        if (tableName.equals("nation") || tableName.equals("region")) {
+            return rowCount;
+        }
+        return Math.max(1, Math.round(rowCount * scaleFactor));
+    }
+
     @Override
     public ConnectorColumnHandle getSampleWeightColumnHandle(ConnectorTableHandle tableHandle)
     {
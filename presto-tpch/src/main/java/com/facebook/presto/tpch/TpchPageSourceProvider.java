@@ -0,0 +1,35 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.tpch;
+
+import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.ConnectorPageSourceProvider;
+import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.RecordPageSource;
+
+import java.util.List;
+
+public class TpchPageSourceProvider
+        implements ConnectorPageSourceProvider
+{
+    private final TpchRecordSetProvider recordSetProvider = new TpchRecordSetProvider();
+
+    @Override
+    public ConnectorPageSource createPageSource(ConnectorSplit split, List<ConnectorColumnHandle> columns)
+    {
+        // the generator produces rows, so copy them into pages
+        return new RecordPageSource(recordSetProvider.getRecordSet(split, columns));
+    }
+}
@@ -13,7 +13,7 @@
  */
 package com.facebook.presto.tpch;
 
-import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.ConnectorBucketedSplit;
 import com.facebook.presto.spi.HostAddress;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -27,7 +27,7 @@ import static com.google.common.base.Preconditions.checkState;
 
 // Right now, splits are just the entire TPCH table
 public class TpchSplit
-        implements ConnectorSplit
+        implements ConnectorBucketedSplit
 {
     private final TpchTableHandle tableHandle;
     private final int totalParts;
@@ -68,6 +68,12 @@ public class TpchSplit
         return partNumber;
     }
 
+    @Override
+    public int getBucket()
+    {
+        return partNumber;
+    }
+
     @Override
     public Object getInfo()
     {
@@ -0,0 +1,60 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.tpch.testing;
+
+import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.ConnectorTableHandle;
+import com.facebook.presto.spi.ConnectorTablePartitioning;
+import com.facebook.presto.tpch.TpchMetadata;
+import com.facebook.presto.tpch.TpchTableHandle;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Reports the orders and lineitem tables as bucketed on orderkey, with one bucket per
+ * split created by a {@link BucketedTpchSplitManager} with the same bucket count.
+ */
+public class BucketedTpchMetadata
+        extends TpchMetadata
+{
+    // part N of lineitem holds the lines of the orders in part N of orders
+    private static final Set<String> ORDER_KEY_BUCKETED_TABLES = ImmutableSet.of("orders", "lineitem");
+
+    private final int bucketCount;
+
+    public BucketedTpchMetadata(String connectorId, int bucketCount)
+    {
+        super(connectorId);
+        checkArgument(bucketCount > 0, "bucketCount must be at least 1");
+        this.bucketCount = bucketCount;
+    }
+
+    @Override
+    public ConnectorTablePartitioning getTablePartitioning(ConnectorTableHandle tableHandle)
+    {
+        TpchTableHandle tpchTableHandle = (TpchTableHandle) tableHandle;
+        if (!ORDER_KEY_BUCKETED_TABLES.contains(tpchTableHandle.getTableName())) {
+            return null;
+        }
+
+        // the parts only line up between tables of the same scale factor
+        String bucketFunction = "tpch-part(" + tpchTableHandle.getScaleFactor() + ")";
+        ConnectorColumnHandle orderKey = getColumnHandles(tableHandle).get("orderkey");
+        return new ConnectorTablePartitioning(ImmutableList.of(orderKey), bucketFunction, bucketCount);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.tpch.testing;
+
+import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.ConnectorPartition;
+import com.facebook.presto.spi.ConnectorPartitionResult;
+import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.ConnectorSplitManager;
+import com.facebook.presto.spi.ConnectorSplitSource;
+import com.facebook.presto.spi.ConnectorTableHandle;
+import com.facebook.presto.spi.FixedSplitSource;
+import com.facebook.presto.spi.Node;
+import com.facebook.presto.spi.NodeManager;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.tpch.TpchSplit;
+import com.facebook.presto.tpch.TpchSplitManager;
+import com.facebook.presto.tpch.TpchSplitManager.TpchPartition;
+import com.facebook.presto.tpch.TpchTableHandle;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Splits every table into a fixed number of parts, independent of the number of nodes,
+ * so that the parts always match the buckets reported by {@link BucketedTpchMetadata}.
+ */
+public class BucketedTpchSplitManager
+        implements ConnectorSplitManager
+{
+    private final String connectorId;
+    private final NodeManager nodeManager;
+    private final int bucketCount;
+    private final TpchSplitManager delegate;
+
+    public BucketedTpchSplitManager(String connectorId, NodeManager nodeManager, int bucketCount)
+    {
+        this.connectorId = checkNotNull(connectorId, "connectorId is null");
+        this.nodeManager = checkNotNull(nodeManager, "nodeManager is null");
+        checkArgument(bucketCount > 0, "bucketCount must be at least 1");
+        this.bucketCount = bucketCount;
+        this.delegate = new TpchSplitManager(connectorId, nodeManager, 1);
+    }
+
+    @Override
+    public ConnectorPartitionResult getPartitions(ConnectorTableHandle table, TupleDomain<ConnectorColumnHandle> tupleDomain)
+    {
+        return delegate.getPartitions(table, tupleDomain);
+    }
+
+    @Override
+    public ConnectorSplitSource getPartitionSplits(ConnectorTableHandle table, List<ConnectorPartition> partitions)
+    {
+        checkNotNull(partitions, "partitions is null");
+        if (partitions.isEmpty()) {
+            return new FixedSplitSource(connectorId, ImmutableList.<ConnectorSplit>of());
+        }
+
+        ConnectorPartition partition = Iterables.getOnlyElement(partitions);
+        TpchTableHandle tableHandle = ((TpchPartition) partition).getTable();
+
+        List<Node> nodes = ImmutableList.copyOf(nodeManager.getActiveDatasourceNodes(connectorId));
+        checkState(!nodes.isEmpty(), "No TPCH nodes available");
+
+        ImmutableList.Builder<ConnectorSplit> splits = ImmutableList.builder();
+        for (int partNumber = 0; partNumber < bucketCount; partNumber++) {
+            Node node = nodes.get(partNumber % nodes.size());
+            splits.add(new TpchSplit(tableHandle, partNumber, bucketCount, ImmutableList.of(node.getHostAndPort())));
+        }
+        return new FixedSplitSource(connectorId, splits.build());
+    }
+}